@@ -0,0 +1,27 @@
+-- Migration script for the transactional e-mail outbox
+
+-- E-mails queued in the sender's transaction and sent once it commits, with retries
+CREATE TABLE IF NOT EXISTS email_outbox (
+    id UUID PRIMARY KEY DEFAULT gen_random_uuid(),
+    recipient VARCHAR(320) NOT NULL,
+    subject VARCHAR(500) NOT NULL,
+    html_body TEXT NOT NULL,
+    dedup_key VARCHAR(400), -- what the e-mail is about plus the recipient; sent only once
+    status VARCHAR(10) NOT NULL DEFAULT 'PENDING' CHECK (status IN ('PENDING', 'SENDING', 'SENT', 'FAILED')),
+    next_attempt_at TIMESTAMP NOT NULL DEFAULT NOW(),
+    locked_until TIMESTAMP, -- lease of the node sending the e-mail
+    claim_token UUID, -- marks the rows one drain claimed
+    attempts INT NOT NULL DEFAULT 0,
+    last_error TEXT,
+    created_at TIMESTAMP NOT NULL DEFAULT NOW(),
+    sent_at TIMESTAMP
+);
+
+-- Picking the e-mails that are due
+CREATE INDEX IF NOT EXISTS idx_email_outbox_status_next ON email_outbox(status, next_attempt_at);
+
+-- Skipping an e-mail that was already queued
+CREATE INDEX IF NOT EXISTS idx_email_outbox_dedup_key ON email_outbox(dedup_key);
+
+-- Reading back the rows a drain claimed
+CREATE INDEX IF NOT EXISTS idx_email_outbox_claim_token ON email_outbox(claim_token);
@@ -0,0 +1,13 @@
+-- Migration script for per-user unread notification counters
+
+-- Unread notifications per user, kept in step with every write so the badge count is a
+-- primary key lookup; checked against the notifications table now and then
+CREATE TABLE IF NOT EXISTS notification_unread_counters (
+    user_id UUID PRIMARY KEY REFERENCES users(id) ON DELETE CASCADE,
+    unread_count BIGINT NOT NULL DEFAULT 0,
+    updated_at TIMESTAMP NOT NULL DEFAULT NOW(),
+    reconciled_at TIMESTAMP NOT NULL DEFAULT NOW()
+);
+
+-- Picking the counters that are due for reconciliation
+CREATE INDEX IF NOT EXISTS idx_unread_counters_reconciled ON notification_unread_counters(reconciled_at);
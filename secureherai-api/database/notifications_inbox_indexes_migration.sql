@@ -0,0 +1,7 @@
+-- Migration script for the notification inbox indexes (unread counts and keyset paging)
+
+-- Counting a user's unread notifications when a counter is created or reconciled
+CREATE INDEX IF NOT EXISTS idx_notifications_user_status ON notifications(user_id, status);
+
+-- Inbox pages, newest first: a page after a (created_at, id) cursor is an index range scan
+CREATE INDEX IF NOT EXISTS idx_notifications_user_created ON notifications(user_id, created_at DESC, id DESC);
@@ -0,0 +1,11 @@
+-- Migration script for pooled notification IDs (batched notification inserts)
+
+-- Notification IDs, handed out 50 at a time by the application (Hibernate's pooled
+-- optimizer); the increment must match Notification.ID_ALLOCATION_SIZE
+CREATE SEQUENCE IF NOT EXISTS notifications_seq START WITH 1 INCREMENT BY 50;
+
+-- Move the sequence past the IDs the identity column already handed out. A sequence
+-- value is the top of a block of IDs, so the first block after the existing IDs must
+-- end at least a block above them. Only ever moves the sequence forward
+SELECT setval('notifications_seq', GREATEST(nextval('notifications_seq'),
+    (SELECT COALESCE(MAX(id), 0) FROM notifications) + 50));
@@ -0,0 +1,21 @@
+-- Migration script for durable timers (responder batch escalation and other delayed work)
+
+-- Delayed tasks that survive restarts; every node polls for due ones and claims them
+CREATE TABLE IF NOT EXISTS scheduled_tasks (
+    id UUID PRIMARY KEY DEFAULT gen_random_uuid(),
+    task_type VARCHAR(50) NOT NULL,
+    task_key VARCHAR(100), -- subject of the task (e.g. an alert id), to cancel its tasks together
+    payload JSON,
+    status VARCHAR(10) NOT NULL DEFAULT 'PENDING' CHECK (status IN ('PENDING', 'RUNNING', 'FAILED')),
+    due_at TIMESTAMP NOT NULL,
+    locked_until TIMESTAMP, -- lease of the node running the task
+    attempts INT NOT NULL DEFAULT 0,
+    last_error TEXT,
+    created_at TIMESTAMP NOT NULL DEFAULT NOW()
+);
+
+-- Polling for due tasks and reclaiming expired leases
+CREATE INDEX IF NOT EXISTS idx_scheduled_tasks_status_due ON scheduled_tasks(status, due_at);
+
+-- Canceling or replacing the tasks of one subject
+CREATE INDEX IF NOT EXISTS idx_scheduled_tasks_type_key ON scheduled_tasks(task_type, task_key);
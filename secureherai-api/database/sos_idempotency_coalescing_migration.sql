@@ -0,0 +1,34 @@
+-- Migration script for SOS idempotency keys and duplicate-trigger coalescing
+
+-- Responses to SOS requests sent with an Idempotency-Key header, replayed on retries.
+-- A request claims its key by inserting the row before it runs (ON CONFLICT DO NOTHING)
+CREATE TABLE IF NOT EXISTS sos_idempotency_keys (
+    key_hash VARCHAR(64) PRIMARY KEY, -- SHA-256 of user id + client key
+    user_id UUID NOT NULL REFERENCES users(id) ON DELETE CASCADE,
+    response_status INT, -- NULL while the claiming request is still running
+    response_body TEXT,
+    created_at TIMESTAMP NOT NULL DEFAULT NOW()
+);
+
+-- Tables created before keys were claimed up front
+ALTER TABLE sos_idempotency_keys ALTER COLUMN response_status DROP NOT NULL;
+
+CREATE INDEX IF NOT EXISTS idx_sos_idempotency_created ON sos_idempotency_keys(created_at);
+
+-- Repeat triggers merged into an already active alert
+CREATE TABLE IF NOT EXISTS alert_triggers (
+    id UUID PRIMARY KEY DEFAULT gen_random_uuid(),
+    alert_id UUID NOT NULL REFERENCES alerts(id) ON DELETE CASCADE,
+    trigger_method TEXT NOT NULL,
+    latitude NUMERIC(9,6) NOT NULL,
+    longitude NUMERIC(9,6) NOT NULL,
+    address TEXT,
+    alert_message TEXT,
+    audio_recording TEXT,
+    triggered_at TIMESTAMP NOT NULL DEFAULT NOW()
+);
+
+CREATE INDEX IF NOT EXISTS idx_alert_triggers_alert ON alert_triggers(alert_id);
+
+-- Finding the user's latest active alert for coalescing
+CREATE INDEX IF NOT EXISTS idx_alerts_user_status_triggered ON alerts(user_id, status, triggered_at DESC);
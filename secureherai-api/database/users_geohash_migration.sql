@@ -0,0 +1,8 @@
+-- Migration script for geohash-indexed user locations (nearest responder lookups)
+
+-- Geohash of the user's current location (precision 9); kept in step with the
+-- location on every save. Existing rows are filled in by the application at startup
+ALTER TABLE users ADD COLUMN IF NOT EXISTS geohash VARCHAR(9);
+
+-- Prefix lookups of the users in and around a geohash cell
+CREATE INDEX IF NOT EXISTS idx_users_geohash ON users(geohash);
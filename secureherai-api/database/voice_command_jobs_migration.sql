@@ -0,0 +1,25 @@
+-- Migration script for durable voice SOS commands in the ingestion pipeline
+
+-- Voice commands accepted with 202, kept until they finish so that a restart does not lose them
+CREATE TABLE IF NOT EXISTS voice_command_jobs (
+    id UUID PRIMARY KEY DEFAULT gen_random_uuid(),
+    user_id UUID NOT NULL REFERENCES users(id) ON DELETE CASCADE,
+    latitude NUMERIC(9,6) NOT NULL,
+    longitude NUMERIC(9,6) NOT NULL,
+    address TEXT,
+    audio_path TEXT NOT NULL, -- raw upload in the staging directory
+    audio_sha256 VARCHAR(64) NOT NULL,
+    audio_size BIGINT NOT NULL,
+    audio_extension VARCHAR(11) NOT NULL,
+    original_file_name TEXT,
+    stage VARCHAR(15) NOT NULL CHECK (stage IN ('ACCEPTED', 'PERSISTED', 'TRANSCRIBING', 'DECIDING', 'COMMITTING', 'FANNING_OUT', 'COMPLETED', 'NO_KEYWORD', 'FAILED')),
+    attempts INT NOT NULL DEFAULT 1, -- raised each time another node takes the command over
+    transcribed_text TEXT,
+    alert_id UUID,
+    message TEXT,
+    accepted_at TIMESTAMP NOT NULL DEFAULT NOW(),
+    updated_at TIMESTAMP NOT NULL DEFAULT NOW()
+);
+
+-- Purging finished commands
+CREATE INDEX IF NOT EXISTS idx_voice_command_jobs_stage_updated ON voice_command_jobs(stage, updated_at);
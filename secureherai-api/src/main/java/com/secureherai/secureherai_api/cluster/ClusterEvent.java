@@ -0,0 +1,57 @@
+package com.secureherai.secureherai_api.cluster;
+
+import java.util.Map;
+
+/**
+ * Something that happened on one API node and that the other nodes may need to act on
+ */
+public class ClusterEvent {
+
+    private final String type;
+    private final String key;
+    private final Map<String, Object> data;
+    private final boolean local;
+    private final boolean truncated;
+
+    public ClusterEvent(String type, String key, Map<String, Object> data, boolean local, boolean truncated) {
+        this.type = type;
+        this.key = key;
+        this.data = data != null ? data : Map.of();
+        this.local = local;
+        this.truncated = truncated;
+    }
+
+    /**
+     * One of the {@code ClusterEventBus} event types
+     */
+    public String getType() {
+        return type;
+    }
+
+    /**
+     * Subject of the event, such as an alert or user ID; queued events of the same type
+     * and key are merged into the latest one
+     */
+    public String getKey() {
+        return key;
+    }
+
+    public Map<String, Object> getData() {
+        return data;
+    }
+
+    /**
+     * Whether the event was published on this node
+     */
+    public boolean isLocal() {
+        return local;
+    }
+
+    /**
+     * Whether the data was left out because it did not fit in a notification; handlers
+     * then load what they need by the key
+     */
+    public boolean isTruncated() {
+        return truncated;
+    }
+}
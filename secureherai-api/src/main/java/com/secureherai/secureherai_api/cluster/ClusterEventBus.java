@@ -0,0 +1,362 @@
+package com.secureherai.secureherai_api.cluster;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.secureherai.secureherai_api.dto.notification.NotificationResponseDto;
+import com.secureherai.secureherai_api.entity.Alert;
+import com.secureherai.secureherai_api.entity.Notification;
+import com.secureherai.secureherai_api.util.CoalescingQueue;
+import com.secureherai.secureherai_api.util.TransactionHooks;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Event bus shared by all API nodes, built on PostgreSQL {@code LISTEN/NOTIFY}.
+ *
+ * Node-local state (the responders' socket connections, the responder location index)
+ * only sees what happens on its own node; this bus carries the events the other nodes
+ * need, through the database the nodes already share. {@link #publish} runs
+ * {@code pg_notify} on the caller's connection, so inside a transaction PostgreSQL only
+ * delivers the event when the transaction commits, and never if it rolls back. Each node
+ * keeps one connection outside the pool that listens on the channel.
+ *
+ * Events from this node and from the others go into one {@link CoalescingQueue}, so a
+ * burst of events about the same subject (a responder's position) is merged into the
+ * latest one, and a slow handler costs at most {@code cluster.events.backlog-capacity}
+ * queued events; when that fills up the oldest are dropped. Handlers run on one
+ * dispatcher thread and should hand slow work off. Delivery is at most once: events sent
+ * while a node's listener is reconnecting are lost to that node, so every handler's
+ * state must also be recoverable some other way (the location index reloads
+ * periodically, push clients get missed notifications replayed when they connect).
+ *
+ * With any database other than PostgreSQL, or {@code cluster.events.enabled=false}, the
+ * bus only delivers events to the node that published them.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ClusterEventBus {
+
+    public static final String ALERT_CREATED = "alert-created";
+    public static final String ALERT_STATUS_CHANGED = "alert-status-changed";
+    public static final String NOTIFICATION_CREATED = "notification-created";
+    public static final String LOCATION_UPDATED = "location-updated";
+    public static final String NOTIFICATIONS_READ = "notifications-read";
+
+    // NOTIFY payloads are limited to 8000 bytes
+    private static final int MAX_PAYLOAD_BYTES = 7900;
+    private static final int MAX_EVENTS_PER_DISPATCH = 256;
+    private static final TypeReference<Map<String, Object>> MESSAGE_TYPE = new TypeReference<>() {};
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    @Value("${cluster.events.enabled:true}")
+    private boolean enabled;
+
+    @Value("${cluster.events.channel:secureherai_events}")
+    private String channel;
+
+    @Value("${cluster.events.backlog-capacity:10000}")
+    private int backlogCapacity;
+
+    @Value("${cluster.events.poll-millis:500}")
+    private int pollMillis;
+
+    @Value("${cluster.events.reconnect-seconds:5}")
+    private long reconnectSeconds;
+
+    @Value("${spring.datasource.url:}")
+    private String datasourceUrl;
+
+    @Value("${spring.datasource.username:}")
+    private String datasourceUsername;
+
+    @Value("${spring.datasource.password:}")
+    private String datasourcePassword;
+
+    // Tells this node's own notifications apart, which were delivered when published
+    private final String nodeId = UUID.randomUUID().toString();
+    private final Map<String, List<Consumer<ClusterEvent>>> handlers = new ConcurrentHashMap<>();
+
+    private CoalescingQueue<String, ClusterEvent> backlog;
+    private boolean distributed;
+    private volatile boolean running;
+    private volatile boolean listening;
+    private Thread listener;
+    private Thread dispatcher;
+
+    private final AtomicLong published = new AtomicLong();
+    private final AtomicLong truncated = new AtomicLong();
+    private final AtomicLong received = new AtomicLong();
+    private final AtomicLong dispatched = new AtomicLong();
+    private final AtomicLong handlerErrors = new AtomicLong();
+    private final AtomicLong reconnects = new AtomicLong();
+
+    @PostConstruct
+    void init() {
+        backlog = new CoalescingQueue<>(backlogCapacity);
+        distributed = enabled && datasourceUrl.startsWith("jdbc:postgresql:");
+        if (distributed && !channel.matches("[a-z_][a-z0-9_]*")) {
+            throw new IllegalStateException("Invalid cluster event channel name: " + channel);
+        }
+        running = true;
+        dispatcher = new Thread(this::dispatchLoop, "cluster-events-dispatch");
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startListening() {
+        if (!distributed) {
+            log.info("Cluster events are delivered on this node only");
+            return;
+        }
+        listener = new Thread(this::listenLoop, "cluster-events-listen");
+        listener.setDaemon(true);
+        listener.start();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        running = false;
+        if (listener != null) {
+            listener.interrupt();
+        }
+        dispatcher.interrupt();
+    }
+
+    /**
+     * Register a handler for events of a type, from this node and the others. Handlers
+     * run on the dispatcher thread, after the publishing transaction has committed.
+     */
+    public void subscribe(String type, Consumer<ClusterEvent> handler) {
+        handlers.computeIfAbsent(type, t -> new CopyOnWriteArrayList<>()).add(handler);
+    }
+
+    /**
+     * Publish an event to every node, this one included, once the current transaction
+     * commits
+     *
+     * @param key Subject of the event; queued events with the same type and key are merged
+     * @param data What handlers need, JSON serializable; left out if the event would not
+     *             fit in a notification
+     */
+    public void publish(String type, Object key, Map<String, Object> data) {
+        String payload = prepare(type, key, data);
+        if (payload != null) {
+            // Joins the caller's transaction, so other nodes see the event only after the commit
+            jdbcTemplate.queryForList("SELECT pg_notify(?, ?)", channel, payload);
+        }
+    }
+
+    /**
+     * Publish {@link #ALERT_CREATED} or {@link #ALERT_STATUS_CHANGED} for a saved alert
+     */
+    public void publishAlertEvent(String type, Alert alert) {
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("alertId", alert.getId().toString());
+        data.put("userId", alert.getUserId().toString());
+        data.put("status", String.valueOf(alert.getStatus()));
+        publish(type, alert.getId(), data);
+    }
+
+    /**
+     * Publish {@link #NOTIFICATION_CREATED} for a saved in-app notification
+     */
+    public void publishNotificationCreated(Notification notification) {
+        publishNotificationsCreated(List.of(notification));
+    }
+
+    /**
+     * Publish {@link #NOTIFICATION_CREATED} for saved in-app notifications, sending all of
+     * them to the other nodes with one statement
+     */
+    public void publishNotificationsCreated(List<Notification> notifications) {
+        List<String> payloads = new ArrayList<>(notifications.size());
+        for (Notification notification : notifications) {
+            // Converted now: the entity may be detached or changed by the time the transaction commits
+            Map<String, Object> data = new LinkedHashMap<>();
+            data.put("notification", objectMapper.convertValue(NotificationResponseDto.fromEntity(notification), MESSAGE_TYPE));
+            String payload = prepare(NOTIFICATION_CREATED, notification.getId(), data);
+            if (payload != null) {
+                payloads.add(payload);
+            }
+        }
+        if (!payloads.isEmpty()) {
+            jdbcTemplate.queryForList("SELECT pg_notify(?, payload) FROM unnest(?::text[]) AS payload",
+                channel, payloads.toArray(new String[0]));
+        }
+    }
+
+    /**
+     * Queue an event for this node's handlers once the transaction commits
+     *
+     * @return The notification payload for the other nodes, or null if there are none
+     */
+    private String prepare(String type, Object key, Map<String, Object> data) {
+        String eventKey = String.valueOf(key);
+        published.incrementAndGet();
+        TransactionHooks.runAfterCommit(() -> enqueue(new ClusterEvent(type, eventKey, data, true, false)));
+        if (!distributed) {
+            return null;
+        }
+
+        String payload = serialize(type, eventKey, data);
+        if (payload.getBytes(StandardCharsets.UTF_8).length > MAX_PAYLOAD_BYTES) {
+            truncated.incrementAndGet();
+            payload = serialize(type, eventKey, null);
+        }
+        return payload;
+    }
+
+    private String serialize(String type, String key, Map<String, Object> data) {
+        Map<String, Object> message = new LinkedHashMap<>();
+        message.put("type", type);
+        message.put("key", key);
+        message.put("node", nodeId);
+        if (data != null) {
+            message.put("data", data);
+        }
+        try {
+            return objectMapper.writeValueAsString(message);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Cluster event data is not serializable: " + type, e);
+        }
+    }
+
+    private void listenLoop() {
+        while (running) {
+            try (Connection connection = DriverManager.getConnection(datasourceUrl, datasourceUsername, datasourcePassword)) {
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + channel);
+                }
+                listening = true;
+                log.info("Listening for cluster events on channel {}", channel);
+
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications(pollMillis);
+                    if (notifications == null) {
+                        continue;
+                    }
+                    for (PGNotification notification : notifications) {
+                        receive(notification.getParameter());
+                    }
+                }
+            } catch (SQLException e) {
+                if (!running) {
+                    break;
+                }
+                log.warn("Cluster event listener lost its connection, reconnecting in {}s: {}",
+                    reconnectSeconds, e.getMessage());
+            } finally {
+                listening = false;
+            }
+
+            if (running) {
+                reconnects.incrementAndGet();
+                try {
+                    TimeUnit.SECONDS.sleep(reconnectSeconds);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void receive(String payload) {
+        try {
+            Map<String, Object> message = objectMapper.readValue(payload, MESSAGE_TYPE);
+            if (nodeId.equals(message.get("node"))) {
+                return;
+            }
+            received.incrementAndGet();
+            Map<String, Object> data = (Map<String, Object>) message.get("data");
+            enqueue(new ClusterEvent((String) message.get("type"), (String) message.get("key"),
+                data, false, data == null));
+        } catch (Exception e) {
+            log.warn("Ignoring malformed cluster event: {}", e.getMessage());
+        }
+    }
+
+    private void enqueue(ClusterEvent event) {
+        if (!backlog.offer(event.getType() + ':' + event.getKey(), event)) {
+            log.warn("Cluster event backlog is full, dropped the oldest event");
+        }
+    }
+
+    private void dispatchLoop() {
+        while (running) {
+            try {
+                ClusterEvent first = backlog.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                dispatch(first);
+                for (ClusterEvent event : backlog.drain(MAX_EVENTS_PER_DISPATCH)) {
+                    dispatch(event);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void dispatch(ClusterEvent event) {
+        for (Consumer<ClusterEvent> handler : handlers.getOrDefault(event.getType(), List.of())) {
+            try {
+                handler.accept(event);
+            } catch (Exception e) {
+                handlerErrors.incrementAndGet();
+                log.error("Cluster event handler failed for {} {}", event.getType(), event.getKey(), e);
+            }
+        }
+        dispatched.incrementAndGet();
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("distributed", distributed);
+        stats.put("listening", listening);
+        stats.put("backlog", backlog.size());
+        stats.put("published", published.get());
+        stats.put("truncated", truncated.get());
+        stats.put("received", received.get());
+        stats.put("dispatched", dispatched.get());
+        stats.put("coalesced", backlog.getCoalesced());
+        stats.put("dropped", backlog.getDropped());
+        stats.put("handlerErrors", handlerErrors.get());
+        stats.put("reconnects", reconnects.get());
+        return stats;
+    }
+}
@@ -0,0 +1,48 @@
+package com.secureherai.secureherai_api.config;
+
+import com.secureherai.secureherai_api.entity.Notification;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Moves the notification ID sequence past the IDs already in the table.
+ *
+ * Notification IDs used to come from the table's identity column; the sequence that
+ * replaced it is created empty by the schema update (or by
+ * {@code database/notifications_seq_migration.sql}), and would hand out IDs that are
+ * taken. Runs at startup, once the entity manager factory has updated the schema and
+ * before requests are served, and only ever moves the sequence forward, so it is a no-op
+ * once the sequence is ahead. All nodes must run the sequence mapping: a node still
+ * inserting through the identity column would reuse IDs.
+ */
+@Component
+@DependsOn("entityManagerFactory")
+@RequiredArgsConstructor
+@Slf4j
+public class NotificationSequenceAligner {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${spring.datasource.url:}")
+    private String datasourceUrl;
+
+    @PostConstruct
+    void align() {
+        if (!datasourceUrl.startsWith("jdbc:postgresql:")) {
+            // Other databases here are throwaway test databases created with the sequence
+            return;
+        }
+        // With the pooled optimizer a sequence value is the top of a block of IDs, so the
+        // first block after the existing IDs must end at least a block above them
+        Long value = jdbcTemplate.queryForObject(
+            "SELECT setval('notifications_seq', GREATEST(nextval('notifications_seq'), " +
+            "(SELECT COALESCE(MAX(id), 0) FROM notifications) + ?))",
+            Long.class, Notification.ID_ALLOCATION_SIZE);
+        log.info("Notification ID sequence at {}", value);
+    }
+}
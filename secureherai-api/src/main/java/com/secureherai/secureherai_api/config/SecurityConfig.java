@@ -3,6 +3,7 @@ package com.secureherai.secureherai_api.config;
 import com.secureherai.secureherai_api.security.ApiAuthenticationEntryPoint;
 import com.secureherai.secureherai_api.security.JwtAuthFilter;
 import com.secureherai.secureherai_api.security.OAuth2SuccessHandler;
+import jakarta.servlet.DispatcherType;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -36,6 +37,8 @@ public class SecurityConfig {
             .csrf(csrf -> csrf.disable())
             .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
             .authorizeHttpRequests(auth -> auth
+                // Completion of async requests such as notification streams; the request itself was authorized
+                .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                 .requestMatchers("/api/isOk", "/api/health", "/api/auth/**", "/health", "/auth/**", "/api/responder/available", "/api/contacts/test", "/oauth2/**", "/login/oauth2/**").permitAll()
                 .requestMatchers("/oauth2/**", "/login/oauth2/**", "/api/speech/**").permitAll()
                 .requestMatchers("/actuator/health").permitAll()
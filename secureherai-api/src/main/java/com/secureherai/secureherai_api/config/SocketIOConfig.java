@@ -0,0 +1,60 @@
+package com.secureherai.secureherai_api.config;
+
+import com.corundumstudio.socketio.SocketIOServer;
+import com.corundumstudio.socketio.protocol.JacksonJsonSupport;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Socket.io server used for real-time features (streaming voice SOS, notification push).
+ * The server is started once the application is ready so every namespace
+ * handler has registered its listeners before the first client connects.
+ */
+@Configuration
+@ConditionalOnProperty(name = "socketio.enabled", havingValue = "true")
+@Slf4j
+public class SocketIOConfig {
+
+    @Value("${socketio.host:0.0.0.0}")
+    private String host;
+
+    @Value("${socketio.port:9092}")
+    private int port;
+
+    @Value("${socketio.max-frame-payload-length:1048576}")
+    private int maxFramePayloadLength;
+
+    @Bean(destroyMethod = "stop")
+    public SocketIOServer socketIOServer() {
+        com.corundumstudio.socketio.Configuration config = new com.corundumstudio.socketio.Configuration();
+        config.setHostname(host);
+        config.setPort(port);
+        config.setMaxFramePayloadLength(maxFramePayloadLength);
+        config.setMaxHttpContentLength(maxFramePayloadLength);
+        // Notification payloads carry LocalDateTime values; send them as ISO strings like the REST API
+        config.setJsonSupport(new JacksonJsonSupport(new JavaTimeModule()) {
+            @Override
+            protected void init(ObjectMapper objectMapper) {
+                super.init(objectMapper);
+                objectMapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+            }
+        });
+        return new SocketIOServer(config);
+    }
+
+    @Bean
+    public ApplicationListener<ApplicationReadyEvent> socketIOServerStarter(SocketIOServer socketIOServer) {
+        return event -> {
+            socketIOServer.start();
+            log.info("Socket.io server started on {}:{}", host, port);
+        };
+    }
+}
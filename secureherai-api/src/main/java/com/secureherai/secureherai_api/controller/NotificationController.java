@@ -3,18 +3,21 @@ package com.secureherai.secureherai_api.controller;
 import com.secureherai.secureherai_api.dto.notification.*;
 import com.secureherai.secureherai_api.service.JwtService;
 import com.secureherai.secureherai_api.service.NotificationService;
+import com.secureherai.secureherai_api.service.NotificationStreamService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.time.Duration;
-import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
@@ -29,18 +32,25 @@ import java.util.concurrent.CompletableFuture;
 public class NotificationController {
     
     private final NotificationService notificationService;
+    private final NotificationStreamService notificationStreamService;
     private final JwtService jwtService;
     
+    // Largest page a client can ask for
+    private static final int MAX_PAGE_SIZE = 100;
+    
     /**
-     * Get all notifications for the authenticated user
+     * Get the authenticated user's notifications, newest first, a page at a time. The
+     * response's nextCursor is passed as cursor to get the next page. A page number
+     * above 0 still selects an offset page, for older clients.
      * 
-     * GET /api/notifications
+     * GET /api/notifications?size=20&cursor=...
      */
     @GetMapping
     public ResponseEntity<NotificationListResponseDto> getUserNotifications(
             @RequestHeader("Authorization") String authHeader,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "20") int size) {
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(required = false) String cursor) {
         
         try {
             // Extract token and validate
@@ -51,17 +61,11 @@ public class NotificationController {
             }
             
             UUID userId = jwtService.extractUserId(token);
+            int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
             
-            if (page < 0 || size <= 0) {
-                // Return all notifications without pagination
-                List<NotificationResponseDto> notifications = notificationService.getUserNotifications(userId);
-                long unreadCount = notificationService.countUnreadNotifications(userId);
-                
-                return ResponseEntity.ok(NotificationListResponseDto.success(
-                    notifications, notifications.size(), unreadCount));
-            } else {
-                // Return paginated notifications
-                Pageable pageable = PageRequest.of(page, size);
+            if (page > 0 && cursor == null) {
+                // Offset page
+                Pageable pageable = PageRequest.of(page, pageSize);
                 Page<NotificationResponseDto> notificationsPage = notificationService.getUserNotifications(userId, pageable);
                 long unreadCount = notificationService.countUnreadNotifications(userId);
                 
@@ -69,6 +73,13 @@ public class NotificationController {
                     notificationsPage.getContent(), notificationsPage.getTotalElements(), unreadCount));
             }
             
+            NotificationPageDto notificationsPage = notificationService.getUserNotifications(userId, cursor, pageSize);
+            long unreadCount = notificationService.countUnreadNotifications(userId);
+            
+            return ResponseEntity.ok(NotificationListResponseDto.success(notificationsPage, unreadCount));
+            
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(NotificationListResponseDto.error(e.getMessage()));
         } catch (Exception e) {
             log.error("Error fetching notifications", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -77,13 +88,15 @@ public class NotificationController {
     }
     
     /**
-     * Get unread notifications for the authenticated user
+     * Get the authenticated user's unread notifications, newest first, a page at a time
      * 
-     * GET /api/notifications/unread
+     * GET /api/notifications/unread?size=100&cursor=...
      */
     @GetMapping("/unread")
     public ResponseEntity<NotificationListResponseDto> getUnreadNotifications(
-            @RequestHeader("Authorization") String authHeader) {
+            @RequestHeader("Authorization") String authHeader,
+            @RequestParam(defaultValue = "100") int size,
+            @RequestParam(required = false) String cursor) {
         
         try {
             // Extract token and validate
@@ -95,11 +108,15 @@ public class NotificationController {
             
             UUID userId = jwtService.extractUserId(token);
             
-            List<NotificationResponseDto> unreadNotifications = notificationService.getUnreadNotifications(userId);
+            int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+            
+            NotificationPageDto unreadPage = notificationService.getUnreadNotifications(userId, cursor, pageSize);
+            long unreadCount = notificationService.countUnreadNotifications(userId);
             
-            return ResponseEntity.ok(NotificationListResponseDto.success(
-                unreadNotifications, unreadNotifications.size(), unreadNotifications.size()));
+            return ResponseEntity.ok(NotificationListResponseDto.success(unreadPage, unreadCount));
                 
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(NotificationListResponseDto.error(e.getMessage()));
         } catch (Exception e) {
             log.error("Error fetching unread notifications", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -107,6 +124,31 @@ public class NotificationController {
         }
     }
     
+    /**
+     * Stream the unread count and notification changes to the authenticated user as
+     * Server-Sent Events; reconnecting clients send Last-Event-ID to resume
+     * 
+     * GET /api/notifications/stream
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamNotifications(
+            @RequestHeader("Authorization") String authHeader,
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        
+        String token = authHeader.replace("Bearer ", "");
+        if (!jwtService.isTokenValid(token)) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        
+        UUID userId = jwtService.extractUserId(token);
+        
+        return ResponseEntity.ok()
+            .cacheControl(CacheControl.noCache())
+            // Keeps reverse proxies from buffering the stream
+            .header("X-Accel-Buffering", "no")
+            .body(notificationStreamService.open(userId, lastEventId));
+    }
+    
     /**
      * Get notification count for the authenticated user
      * 
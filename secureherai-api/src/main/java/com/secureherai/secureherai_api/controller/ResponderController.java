@@ -27,10 +27,12 @@ import com.secureherai.secureherai_api.entity.User;
 import com.secureherai.secureherai_api.entity.TrustedContact;
 import com.secureherai.secureherai_api.enums.AlertStatus;
 import com.secureherai.secureherai_api.repository.AlertRepository;
+import com.secureherai.secureherai_api.cluster.ClusterEventBus;
 import com.secureherai.secureherai_api.repository.AlertResponderRepository;
 import com.secureherai.secureherai_api.repository.ResponderRepository;
 import com.secureherai.secureherai_api.repository.TrustedContactRepository;
 import com.secureherai.secureherai_api.service.JwtService;
+import com.secureherai.secureherai_api.service.ResponderLocationIndex;
 import com.secureherai.secureherai_api.repository.UserRepository;
 
 @RestController
@@ -54,6 +56,12 @@ public class ResponderController {
 
     @Autowired
     private JwtService jwtService;
+    
+    @Autowired(required = false)
+    private ResponderLocationIndex responderLocationIndex;
+    
+    @Autowired(required = false)
+    private ClusterEventBus clusterEventBus;
 
     @GetMapping("/profile")
     public ResponseEntity<Object> getResponderProfile(@RequestHeader("Authorization") String authHeader) {
@@ -150,6 +158,9 @@ public class ResponderController {
                         Responder responder = responderOpt.get();
                         responder.setStatus(status);
                         responderRepository.save(responder);
+                        if (responderLocationIndex != null) {
+                            responderLocationIndex.onStatusChanged(responder);
+                        }
                         
                         Map<String, Object> response = new HashMap<>();
                         response.put("success", true);
@@ -221,6 +232,9 @@ public class ResponderController {
                 Responder responder = responderOpt.get();
                 responder.setStatus(status);
                 responderRepository.save(responder);
+                if (responderLocationIndex != null) {
+                    responderLocationIndex.onStatusChanged(responder);
+                }
                 
                 Map<String, Object> response = new HashMap<>();
                 response.put("success", true);
@@ -587,6 +601,9 @@ public class ResponderController {
             // Update the alert status to "responded" so other responders won't see it
             alert.setStatus(AlertStatus.ACCEPTED);
             alertRepository.save(alert);
+            if (clusterEventBus != null) {
+                clusterEventBus.publishAlertEvent(ClusterEventBus.ALERT_STATUS_CHANGED, alert);
+            }
 
             return ResponseEntity.ok(Map.of("success", true, "message", "Alert accepted successfully"));
         } catch (Exception e) {
@@ -629,6 +646,9 @@ public class ResponderController {
                 Alert alert = alertOpt.get();
                 alert.setStatus(AlertStatus.REJECTED);
                 alertRepository.save(alert);
+                if (clusterEventBus != null) {
+                    clusterEventBus.publishAlertEvent(ClusterEventBus.ALERT_STATUS_CHANGED, alert);
+                }
 
             }
 
@@ -1,15 +1,24 @@
 package com.secureherai.secureherai_api.controller;
 
+import com.secureherai.secureherai_api.dto.sos.LocationDto;
 import com.secureherai.secureherai_api.dto.sos.SOSAlertResponseDto;
 import com.secureherai.secureherai_api.dto.sos.SOSCancelAlertRequestDto;
+import com.secureherai.secureherai_api.dto.sos.SOSIngestionStatusDto;
 import com.secureherai.secureherai_api.dto.sos.SOSTextCommandRequestDto;
 import com.secureherai.secureherai_api.dto.sos.SOSVoiceUrlCommandRequestDto;
 import com.secureherai.secureherai_api.entity.Alert;
+import com.secureherai.secureherai_api.entity.VoiceCommandJob;
 import com.secureherai.secureherai_api.enums.AlertStatus;
+import com.secureherai.secureherai_api.exception.SpeechEngineUnavailableException;
 import com.secureherai.secureherai_api.service.JwtService;
+import com.secureherai.secureherai_api.service.SOSIngestionPipeline;
+import com.secureherai.secureherai_api.service.SOSIdempotencyService;
+import com.secureherai.secureherai_api.service.SOSIngestionPipeline.IngestionJob;
 import com.secureherai.secureherai_api.service.SOSService;
+import com.secureherai.secureherai_api.util.Deadline;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -17,10 +26,14 @@ import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
 import jakarta.validation.Valid;
+import java.math.BigDecimal;
+import java.time.Duration;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * Controller for SOS alert endpoints (voice and text commands)
@@ -32,8 +45,14 @@ import java.util.UUID;
 public class SOSController {
     
     private final SOSService sosService;
+    private final SOSIngestionPipeline sosIngestionPipeline;
+    private final SOSIdempotencyService sosIdempotencyService;
     private final JwtService jwtService;
     
+    // Upper bound on a synchronous SOS request from conversion to the last inline notification
+    @Value("${sos.deadline.budget-ms:10000}")
+    private long deadlineBudgetMillis;
+    
     /**
      * Process voice command from URL and create an alert if keyword is detected
      * 
@@ -42,25 +61,37 @@ public class SOSController {
     @PostMapping("/voice-command")
     public ResponseEntity<SOSAlertResponseDto> processVoiceCommand(
             @RequestHeader("Authorization") String authHeader,
+            @RequestHeader(value = SOSIdempotencyService.IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
             @RequestBody @Valid SOSVoiceUrlCommandRequestDto requestDto) {
         
+        // The budget starts when the request arrives, not when processing gets to it
+        Deadline deadline = Deadline.after(Duration.ofMillis(deadlineBudgetMillis));
+        
+        // Extract token and validate
+        String token = authHeader.replace("Bearer ", "");
+        if (!jwtService.isTokenValid(token)) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                .body(new SOSAlertResponseDto(false, "Authentication token is invalid or expired"));
+        }
+        
+        // Extract user ID from token
+        UUID userId = jwtService.extractUserId(token);
+        return sosIdempotencyService.execute(userId, idempotencyKey, "POST /api/sos/voice-command", SOSAlertResponseDto.class,
+            message -> new SOSAlertResponseDto(false, message),
+            () -> processVoiceCommandFromUrl(userId, requestDto, deadline));
+    }
+    
+    private ResponseEntity<SOSAlertResponseDto> processVoiceCommandFromUrl(UUID userId, SOSVoiceUrlCommandRequestDto requestDto,
+                                                                           Deadline deadline) {
         try {
-            // Extract token and validate
-            String token = authHeader.replace("Bearer ", "");
-            if (!jwtService.isTokenValid(token)) {
-                return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
-                    .body(new SOSAlertResponseDto(false, "Authentication token is invalid or expired"));
-            }
-            
-            // Extract user ID from token
-            UUID userId = jwtService.extractUserId(token);
             log.info("Processing voice command from URL for user: {}", userId);
             
             // Process the voice command
             Alert alert = sosService.processVoiceCommandFromUrl(
                 userId,
                 requestDto.getAudioUrl(),
-                requestDto.getLocation()
+                requestDto.getLocation(),
+                deadline
             );
             
             // If no alert was created (no keywords detected), return appropriate response
@@ -71,10 +102,11 @@ public class SOSController {
                 ));
             }
             
-            // Return success response with the created alert including all fields
-            return ResponseEntity.status(HttpStatus.CREATED).body(new SOSAlertResponseDto(
+            // Return success response with the created alert including all fields.
+            // A repeat trigger merged into the already active alert is not a new resource.
+            return ResponseEntity.status(alert.isCoalesced() ? HttpStatus.OK : HttpStatus.CREATED).body(new SOSAlertResponseDto(
                 true,
-                "SOS Alert triggered successfully",
+                alert.isCoalesced() ? "SOS Alert already active, trigger merged into it" : "SOS Alert triggered successfully",
                 alert.getId(),
                 alert.getUserId(),
                 alert.getLatitude(),
@@ -90,6 +122,10 @@ public class SOSController {
                 alert.getResolvedAt()
             ));
             
+        } catch (SpeechEngineUnavailableException e) {
+            // Fail fast so the client can resend the SOS through the text command
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .body(new SOSAlertResponseDto(false, e.getMessage()));
         } catch (Exception e) {
             log.error("Error processing voice command from URL", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -101,25 +137,135 @@ public class SOSController {
     }
     
     /**
-     * Process text command and create an alert if keyword is detected
+     * Accept an uploaded voice command for asynchronous processing.
+     * Returns immediately with a tracking ID; the alert is created by the ingestion pipeline.
      * 
-     * POST /api/sos/text-command
+     * POST /api/sos/voice-command/upload
      */
-    @PostMapping("/text-command")
-    public ResponseEntity<SOSAlertResponseDto> processTextCommand(
+    @PostMapping(value = "/voice-command/upload", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<SOSIngestionStatusDto> submitVoiceCommand(
             @RequestHeader("Authorization") String authHeader,
-            @RequestBody @Valid SOSTextCommandRequestDto requestDto) {
+            @RequestParam(value = "audio", required = false) MultipartFile audioFile,
+            @RequestParam("latitude") BigDecimal latitude,
+            @RequestParam("longitude") BigDecimal longitude,
+            @RequestParam(value = "address", required = false) String address,
+            @RequestHeader(value = SOSIdempotencyService.IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
+        
+        // Extract token and validate
+        String token = authHeader.replace("Bearer ", "");
+        if (!jwtService.isTokenValid(token)) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                .body(new SOSIngestionStatusDto(false, "Authentication token is invalid or expired"));
+        }
+        
+        if (audioFile == null || audioFile.isEmpty()) {
+            return ResponseEntity.badRequest()
+                .body(new SOSIngestionStatusDto(false, "Audio file is required"));
+        }
+        
+        // Extract user ID from token
+        UUID userId = jwtService.extractUserId(token);
+        return sosIdempotencyService.execute(userId, idempotencyKey, "POST /api/sos/voice-command/upload", SOSIngestionStatusDto.class,
+            message -> new SOSIngestionStatusDto(false, message),
+            () -> submitVoiceCommand(userId, audioFile, new LocationDto(latitude, longitude, address)));
+    }
+    
+    private ResponseEntity<SOSIngestionStatusDto> submitVoiceCommand(UUID userId, MultipartFile audioFile, LocationDto location) {
+        try {
+            log.info("Accepting voice command upload for user: {}", userId);
+            
+            IngestionJob job = sosIngestionPipeline.submitVoiceCommand(userId, audioFile, location);
+            
+            return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .body(SOSIngestionStatusDto.fromJob(job, "Voice command accepted for processing"));
+            
+        } catch (RejectedExecutionException e) {
+            log.warn("Voice command rejected, SOS pipeline is saturated");
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .body(new SOSIngestionStatusDto(
+                    false, 
+                    "Voice processing is busy. Please retry or use the text SOS command."
+                ));
+        } catch (Exception e) {
+            log.error("Error accepting voice command upload", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(new SOSIngestionStatusDto(
+                    false, 
+                    "Error accepting voice command: " + e.getMessage()
+                ));
+        }
+    }
+    
+    /**
+     * Get the processing status of an uploaded voice command
+     * 
+     * GET /api/sos/voice-command/{trackingId}/status
+     */
+    @GetMapping("/voice-command/{trackingId}/status")
+    public ResponseEntity<SOSIngestionStatusDto> getVoiceCommandStatus(
+            @RequestHeader("Authorization") String authHeader,
+            @PathVariable String trackingId) {
         
         try {
             // Extract token and validate
             String token = authHeader.replace("Bearer ", "");
             if (!jwtService.isTokenValid(token)) {
                 return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
-                    .body(new SOSAlertResponseDto(false, "Authentication token is invalid or expired"));
+                    .body(new SOSIngestionStatusDto(false, "Authentication token is invalid or expired"));
             }
             
-            // Extract user ID from token
             UUID userId = jwtService.extractUserId(token);
+            Optional<VoiceCommandJob> jobOpt = sosIngestionPipeline.getJob(UUID.fromString(trackingId));
+            
+            // Only the submitting user can see the status of their command
+            if (jobOpt.isEmpty() || !jobOpt.get().getUserId().equals(userId)) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(new SOSIngestionStatusDto(false, "Voice command not found or no longer tracked"));
+            }
+            
+            return ResponseEntity.ok(SOSIngestionStatusDto.fromRecord(jobOpt.get()));
+            
+        } catch (IllegalArgumentException e) {
+            log.error("Invalid tracking ID format: {}", trackingId, e);
+            return ResponseEntity.badRequest()
+                .body(new SOSIngestionStatusDto(false, "Invalid tracking ID format"));
+        } catch (Exception e) {
+            log.error("Error getting voice command status: {}", trackingId, e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(new SOSIngestionStatusDto(false, "Error getting voice command status: " + e.getMessage()));
+        }
+    }
+    
+    /**
+     * Process text command and create an alert if keyword is detected
+     * 
+     * POST /api/sos/text-command
+     */
+    @PostMapping("/text-command")
+    public ResponseEntity<SOSAlertResponseDto> processTextCommand(
+            @RequestHeader("Authorization") String authHeader,
+            @RequestHeader(value = SOSIdempotencyService.IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+            @RequestBody @Valid SOSTextCommandRequestDto requestDto) {
+        
+        Deadline deadline = Deadline.after(Duration.ofMillis(deadlineBudgetMillis));
+        
+        // Extract token and validate
+        String token = authHeader.replace("Bearer ", "");
+        if (!jwtService.isTokenValid(token)) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                .body(new SOSAlertResponseDto(false, "Authentication token is invalid or expired"));
+        }
+        
+        // Extract user ID from token
+        UUID userId = jwtService.extractUserId(token);
+        return sosIdempotencyService.execute(userId, idempotencyKey, "POST /api/sos/text-command", SOSAlertResponseDto.class,
+            message -> new SOSAlertResponseDto(false, message),
+            () -> processTextCommand(userId, requestDto, deadline));
+    }
+    
+    private ResponseEntity<SOSAlertResponseDto> processTextCommand(UUID userId, SOSTextCommandRequestDto requestDto,
+                                                                   Deadline deadline) {
+        try {
             log.info("Processing text command for user: {}", userId);
             
             // Process the text command
@@ -127,7 +273,8 @@ public class SOSController {
                 userId,
                 requestDto.getMessage(),
                 requestDto.getKeyword(),
-                requestDto.getLocation()
+                requestDto.getLocation(),
+                deadline
             );
             
             // If no alert was created (keyword doesn't match user's SOS keyword), return appropriate response
@@ -138,10 +285,11 @@ public class SOSController {
                 ));
             }
             
-            // Return success response with the created alert including all fields
-            return ResponseEntity.status(HttpStatus.CREATED).body(new SOSAlertResponseDto(
+            // Return success response with the created alert including all fields.
+            // A repeat trigger merged into the already active alert is not a new resource.
+            return ResponseEntity.status(alert.isCoalesced() ? HttpStatus.OK : HttpStatus.CREATED).body(new SOSAlertResponseDto(
                 true,
-                "SOS Alert triggered successfully",
+                alert.isCoalesced() ? "SOS Alert already active, trigger merged into it" : "SOS Alert triggered successfully",
                 alert.getId(),
                 alert.getUserId(),
                 alert.getLatitude(),
@@ -250,18 +398,25 @@ public class SOSController {
     @PostMapping("/cancel")
     public ResponseEntity<SOSAlertResponseDto> cancelAlert(
             @RequestHeader("Authorization") String authHeader,
+            @RequestHeader(value = SOSIdempotencyService.IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
             @RequestBody @Valid SOSCancelAlertRequestDto requestDto) {
         
+        // Extract token and validate
+        String token = authHeader.replace("Bearer ", "");
+        if (!jwtService.isTokenValid(token)) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                .body(new SOSAlertResponseDto(false, "Authentication token is invalid or expired"));
+        }
+        
+        // Extract user ID from token
+        UUID userId = jwtService.extractUserId(token);
+        return sosIdempotencyService.execute(userId, idempotencyKey, "POST /api/sos/cancel", SOSAlertResponseDto.class,
+            message -> new SOSAlertResponseDto(false, message),
+            () -> cancelAlert(userId, requestDto));
+    }
+    
+    private ResponseEntity<SOSAlertResponseDto> cancelAlert(UUID userId, SOSCancelAlertRequestDto requestDto) {
         try {
-            // Extract token and validate
-            String token = authHeader.replace("Bearer ", "");
-            if (!jwtService.isTokenValid(token)) {
-                return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
-                    .body(new SOSAlertResponseDto(false, "Authentication token is invalid or expired"));
-            }
-            
-            // Extract user ID from token
-            UUID userId = jwtService.extractUserId(token);
             log.info("User {} attempting to cancel alert {}", userId, requestDto.getAlertId());
             
             // Cancel the alert
@@ -2,6 +2,10 @@ package com.secureherai.secureherai_api.controller;
 
 import com.secureherai.secureherai_api.dto.SpeechTranscriptionResponseDto;
 import com.secureherai.secureherai_api.service.AzureSpeechService;
+import com.secureherai.secureherai_api.service.SpeechPreFilter;
+import com.secureherai.secureherai_api.util.AudioBufferPool;
+import com.secureherai.secureherai_api.util.AudioDownloader;
+import com.secureherai.secureherai_api.util.FfmpegWorkerPool;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
@@ -12,12 +16,14 @@ import org.springframework.web.multipart.MultipartFile;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 
 /**
  * REST controller for Azure Speech-to-Text API endpoints
@@ -29,6 +35,10 @@ import java.util.List;
 public class SpeechController {
 
     private final AzureSpeechService azureSpeechService;
+    private final SpeechPreFilter speechPreFilter;
+    private final FfmpegWorkerPool ffmpegWorkerPool;
+    private final AudioBufferPool audioBufferPool;
+    private final AudioDownloader audioDownloader;
     
     // Supported audio file formats - now includes WebM, AAC, and more
     private static final List<String> SUPPORTED_FORMATS = Arrays.asList(
@@ -75,16 +85,20 @@ public class SpeechController {
                 originalFileName, audioFile.getSize());
 
         File tempFile = null;
+        AudioBufferPool.PooledBuffer buffer = null;
         try {
             // Validate the uploaded file - this will throw IllegalArgumentException for invalid files
             validateAudioFile(audioFile);
             
-            // Save the uploaded file temporarily
-            tempFile = saveTemporaryFile(audioFile);
-            
-            // Transcribe the audio file
-            AzureSpeechService.SpeechTranscriptionResult result = 
-                azureSpeechService.transcribeAudioFile(tempFile);
+            // Short uploads are transcribed from memory; larger ones go through a temporary file
+            AzureSpeechService.SpeechTranscriptionResult result;
+            buffer = readIntoMemory(audioFile);
+            if (buffer != null) {
+                result = azureSpeechService.transcribeAudio(buffer.view(), originalFileName);
+            } else {
+                tempFile = saveTemporaryFile(audioFile);
+                result = azureSpeechService.transcribeAudioFile(tempFile);
+            }
             
             long processingTime = System.currentTimeMillis() - startTime;
             
@@ -127,12 +141,31 @@ public class SpeechController {
             
         } finally {
             // Always clean up the temporary file
+            if (buffer != null) {
+                buffer.close();
+            }
             if (tempFile != null) {
                 cleanupTemporaryFile(tempFile);
             }
         }
     }
 
+    /**
+     * Reads a short upload into a pooled buffer
+     *
+     * @param audioFile The uploaded file
+     * @return The buffer, or null if the upload should go through a temporary file
+     * @throws IOException if reading the upload fails
+     */
+    private AudioBufferPool.PooledBuffer readIntoMemory(MultipartFile audioFile) throws IOException {
+        if (audioFile.getSize() > audioBufferPool.getMaxBytes()) {
+            return null;
+        }
+        try (InputStream inputStream = audioFile.getInputStream()) {
+            return audioBufferPool.read(inputStream, audioFile.getSize(), null);
+        }
+    }
+
     /**
      * Validates the uploaded audio file
      *
@@ -257,4 +290,48 @@ public class SpeechController {
     public ResponseEntity<String> healthCheck() {
         return ResponseEntity.ok("Speech-to-Text service is running");
     }
+
+    /**
+     * Speech engine state: circuit breakers, concurrency, hedging and timeouts
+     *
+     * @return Engine statistics
+     */
+    @GetMapping("/engine/stats")
+    public ResponseEntity<Map<String, Object>> engineStats() {
+        return ResponseEntity.ok(azureSpeechService.getEngineStats());
+    }
+
+    /**
+     * Transcription cache counters: hits, misses, coalesced duplicates, evictions
+     *
+     * @return Cache statistics
+     */
+    @GetMapping("/cache/stats")
+    public ResponseEntity<Map<String, Object>> cacheStats() {
+        return ResponseEntity.ok(azureSpeechService.getCacheStats());
+    }
+
+    /**
+     * Speech pre-filter counters: clips analyzed, rejected as silent, trimmed
+     *
+     * @return Pre-filter statistics
+     */
+    @GetMapping("/prefilter/stats")
+    public ResponseEntity<Map<String, Object>> preFilterStats() {
+        return ResponseEntity.ok(speechPreFilter.getStats());
+    }
+
+    /**
+     * Conversion counters: ffmpeg worker use, uploads handled in memory and URL downloads
+     *
+     * @return Converter statistics
+     */
+    @GetMapping("/converter/stats")
+    public ResponseEntity<Map<String, Object>> converterStats() {
+        return ResponseEntity.ok(Map.of(
+            "ffmpeg", ffmpegWorkerPool.getStats(),
+            "inMemory", audioBufferPool.getStats(),
+            "download", audioDownloader.getStats()
+        ));
+    }
 }
@@ -9,6 +9,8 @@ public class NotificationListResponseDto {
     private List<NotificationResponseDto> notifications;
     private long totalCount;
     private long unreadCount;
+    // Token for the next page of a cursor-paged list; null on the last page
+    private String nextCursor;
     
     // Constructors
     public NotificationListResponseDto() {}
@@ -35,6 +37,12 @@ public class NotificationListResponseDto {
                                               notifications, totalCount, unreadCount);
     }
     
+    public static NotificationListResponseDto success(NotificationPageDto page, long unreadCount) {
+        NotificationListResponseDto response = success(page.getNotifications(), page.getNotifications().size(), unreadCount);
+        response.setNextCursor(page.getNextCursor());
+        return response;
+    }
+    
     public static NotificationListResponseDto error(String message) {
         return new NotificationListResponseDto(false, message);
     }
@@ -79,4 +87,12 @@ public class NotificationListResponseDto {
     public void setUnreadCount(long unreadCount) {
         this.unreadCount = unreadCount;
     }
+    
+    public String getNextCursor() {
+        return nextCursor;
+    }
+    
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
 }
@@ -0,0 +1,28 @@
+package com.secureherai.secureherai_api.dto.notification;
+
+import java.util.List;
+
+/**
+ * One page of a user's notifications, newest first
+ */
+public class NotificationPageDto {
+
+    private final List<NotificationResponseDto> notifications;
+    private final String nextCursor;
+
+    public NotificationPageDto(List<NotificationResponseDto> notifications, String nextCursor) {
+        this.notifications = notifications;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<NotificationResponseDto> getNotifications() {
+        return notifications;
+    }
+
+    /**
+     * Token for the next page, or null if this is the last page
+     */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+}
@@ -0,0 +1,73 @@
+package com.secureherai.secureherai_api.dto.sos;
+
+import com.secureherai.secureherai_api.entity.VoiceCommandJob;
+import com.secureherai.secureherai_api.service.SOSIngestionPipeline.IngestionJob;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Response DTO for asynchronous voice SOS submissions and their status
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SOSIngestionStatusDto {
+
+    private boolean success;
+    private String message;
+
+    // Tracking details - only populated if the command was accepted
+    private UUID trackingId;
+    private String stage;
+    private boolean finished;
+    private UUID alertId;
+    private String transcribedText;
+    private LocalDateTime acceptedAt;
+    private LocalDateTime updatedAt;
+
+    /**
+     * Constructor for error responses
+     */
+    public SOSIngestionStatusDto(boolean success, String message) {
+        this.success = success;
+        this.message = message;
+    }
+
+    /**
+     * Build a status response from a tracked pipeline job
+     */
+    public static SOSIngestionStatusDto fromJob(IngestionJob job, String message) {
+        return new SOSIngestionStatusDto(
+            true,
+            message != null ? message : job.getMessage(),
+            job.getTrackingId(),
+            job.getStage().name(),
+            job.getStage().isTerminal(),
+            job.getAlertId(),
+            job.getTranscribedText(),
+            job.getAcceptedAt(),
+            job.getUpdatedAt()
+        );
+    }
+
+    /**
+     * Build a status response from a stored pipeline job
+     */
+    public static SOSIngestionStatusDto fromRecord(VoiceCommandJob job) {
+        return new SOSIngestionStatusDto(
+            true,
+            job.getMessage(),
+            job.getId(),
+            job.getStage().name(),
+            job.getStage().isTerminal(),
+            job.getAlertId(),
+            job.getTranscribedText(),
+            job.getAcceptedAt(),
+            job.getUpdatedAt()
+        );
+    }
+}
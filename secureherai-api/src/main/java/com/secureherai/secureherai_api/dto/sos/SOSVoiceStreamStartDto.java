@@ -0,0 +1,31 @@
+package com.secureherai.secureherai_api.dto.sos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * Payload of the "start" event that opens a streaming voice SOS session
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SOSVoiceStreamStartDto {
+    
+    private BigDecimal latitude;
+    
+    private BigDecimal longitude;
+    
+    private String address;
+    
+    /**
+     * Optional recognition language (default: en-US)
+     */
+    private String languageCode;
+    
+    public LocationDto toLocation() {
+        return new LocationDto(latitude, longitude, address);
+    }
+}
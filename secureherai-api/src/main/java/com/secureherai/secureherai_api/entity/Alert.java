@@ -10,7 +10,9 @@ import java.time.LocalDateTime;
 import java.util.UUID;
 
 @Entity
-@Table(name = "alerts")
+@Table(name = "alerts", indexes = {
+    @Index(name = "idx_alerts_user_status_triggered", columnList = "user_id, status, triggered_at")
+})
 public class Alert {
     @Id
     @GeneratedValue(strategy = GenerationType.AUTO)
@@ -57,6 +59,10 @@ public class Alert {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
     
+    // Set when a repeat trigger was merged into this already active alert
+    @Transient
+    private boolean coalesced;
+    
     // Constructors
     public Alert() {}
     
@@ -189,4 +195,12 @@ public class Alert {
     public void setUpdatedAt(LocalDateTime updatedAt) {
         this.updatedAt = updatedAt;
     }
+    
+    public boolean isCoalesced() {
+        return coalesced;
+    }
+    
+    public void setCoalesced(boolean coalesced) {
+        this.coalesced = coalesced;
+    }
 }
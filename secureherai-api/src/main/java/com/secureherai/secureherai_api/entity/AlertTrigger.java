@@ -0,0 +1,131 @@
+package com.secureherai.secureherai_api.entity;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * A repeat SOS trigger that was merged into an already active alert
+ */
+@Entity
+@Table(name = "alert_triggers", indexes = {
+    @Index(name = "idx_alert_triggers_alert", columnList = "alert_id")
+})
+public class AlertTrigger {
+    @Id
+    @GeneratedValue(strategy = GenerationType.AUTO)
+    private UUID id;
+    
+    @Column(name = "alert_id", nullable = false)
+    private UUID alertId;
+    
+    @Column(name = "trigger_method", nullable = false)
+    private String triggerMethod;
+    
+    @Column(nullable = false, precision = 9, scale = 6)
+    private BigDecimal latitude;
+    
+    @Column(nullable = false, precision = 9, scale = 6)
+    private BigDecimal longitude;
+    
+    private String address;
+    
+    @Column(name = "alert_message", columnDefinition = "TEXT")
+    private String alertMessage;
+    
+    @Column(name = "audio_recording")
+    private String audioRecording;
+    
+    @CreationTimestamp
+    @Column(name = "triggered_at", nullable = false)
+    private LocalDateTime triggeredAt;
+    
+    // Constructors
+    public AlertTrigger() {}
+    
+    public AlertTrigger(UUID alertId, Alert trigger) {
+        this.alertId = alertId;
+        this.triggerMethod = trigger.getTriggerMethod();
+        this.latitude = trigger.getLatitude();
+        this.longitude = trigger.getLongitude();
+        this.address = trigger.getAddress();
+        this.alertMessage = trigger.getAlertMessage();
+        this.audioRecording = trigger.getAudioRecording();
+    }
+    
+    // Getters and Setters
+    public UUID getId() {
+        return id;
+    }
+    
+    public void setId(UUID id) {
+        this.id = id;
+    }
+    
+    public UUID getAlertId() {
+        return alertId;
+    }
+    
+    public void setAlertId(UUID alertId) {
+        this.alertId = alertId;
+    }
+    
+    public String getTriggerMethod() {
+        return triggerMethod;
+    }
+    
+    public void setTriggerMethod(String triggerMethod) {
+        this.triggerMethod = triggerMethod;
+    }
+    
+    public BigDecimal getLatitude() {
+        return latitude;
+    }
+    
+    public void setLatitude(BigDecimal latitude) {
+        this.latitude = latitude;
+    }
+    
+    public BigDecimal getLongitude() {
+        return longitude;
+    }
+    
+    public void setLongitude(BigDecimal longitude) {
+        this.longitude = longitude;
+    }
+    
+    public String getAddress() {
+        return address;
+    }
+    
+    public void setAddress(String address) {
+        this.address = address;
+    }
+    
+    public String getAlertMessage() {
+        return alertMessage;
+    }
+    
+    public void setAlertMessage(String alertMessage) {
+        this.alertMessage = alertMessage;
+    }
+    
+    public String getAudioRecording() {
+        return audioRecording;
+    }
+    
+    public void setAudioRecording(String audioRecording) {
+        this.audioRecording = audioRecording;
+    }
+    
+    public LocalDateTime getTriggeredAt() {
+        return triggeredAt;
+    }
+    
+    public void setTriggeredAt(LocalDateTime triggeredAt) {
+        this.triggeredAt = triggeredAt;
+    }
+}
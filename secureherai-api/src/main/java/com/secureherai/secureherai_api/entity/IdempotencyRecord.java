@@ -0,0 +1,86 @@
+package com.secureherai.secureherai_api.entity;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Stored response for an SOS request carrying an Idempotency-Key header
+ */
+@Entity
+@Table(name = "sos_idempotency_keys", indexes = {
+    @Index(name = "idx_sos_idempotency_created", columnList = "created_at")
+})
+public class IdempotencyRecord {
+    // SHA-256 of user ID + client key, so arbitrary client keys fit and can't collide across users
+    @Id
+    @Column(name = "key_hash", length = 64)
+    private String keyHash;
+    
+    @Column(name = "user_id", nullable = false)
+    private UUID userId;
+    
+    // Null while the request that claimed the key is still running
+    @Column(name = "response_status")
+    private Integer responseStatus;
+    
+    @Column(name = "response_body", columnDefinition = "TEXT")
+    private String responseBody;
+    
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+    
+    // Constructors
+    public IdempotencyRecord() {}
+    
+    public IdempotencyRecord(String keyHash, UUID userId, Integer responseStatus, String responseBody) {
+        this.keyHash = keyHash;
+        this.userId = userId;
+        this.responseStatus = responseStatus;
+        this.responseBody = responseBody;
+    }
+    
+    // Getters and Setters
+    public String getKeyHash() {
+        return keyHash;
+    }
+    
+    public void setKeyHash(String keyHash) {
+        this.keyHash = keyHash;
+    }
+    
+    public UUID getUserId() {
+        return userId;
+    }
+    
+    public void setUserId(UUID userId) {
+        this.userId = userId;
+    }
+    
+    public Integer getResponseStatus() {
+        return responseStatus;
+    }
+    
+    public void setResponseStatus(Integer responseStatus) {
+        this.responseStatus = responseStatus;
+    }
+    
+    public String getResponseBody() {
+        return responseBody;
+    }
+    
+    public void setResponseBody(String responseBody) {
+        this.responseBody = responseBody;
+    }
+    
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+    
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+}
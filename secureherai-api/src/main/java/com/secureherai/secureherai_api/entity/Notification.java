@@ -1,7 +1,6 @@
 package com.secureherai.secureherai_api.entity;
 
 import jakarta.persistence.*;
-import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.JdbcTypeCode;
 import org.hibernate.type.SqlTypes;
 
@@ -10,11 +9,22 @@ import java.util.Map;
 import java.util.UUID;
 
 @Entity
-@Table(name = "notifications")
+@Table(name = "notifications", indexes = {
+    // Unread counts when a counter is created or reconciled
+    @Index(name = "idx_notifications_user_status", columnList = "user_id, status"),
+    // Inbox pages, newest first; see KeysetCursor
+    @Index(name = "idx_notifications_user_created", columnList = "user_id, created_at DESC, id DESC")
+})
 public class Notification {
     
+    public static final int ID_ALLOCATION_SIZE = 50;
+    
+    // IDs come from a sequence, 50 at a time (Hibernate's pooled optimizer), so saving
+    // notifications does not insert them right away and a batch of them is written in
+    // one JDBC batch at flush; an identity column would insert each one on save
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "notifications_seq")
+    @SequenceGenerator(name = "notifications_seq", sequenceName = "notifications_seq", allocationSize = Notification.ID_ALLOCATION_SIZE)
     private Long id;
     
     @Column(name = "user_id", nullable = false)
@@ -49,7 +59,6 @@ public class Notification {
     @Column(nullable = false, length = 15)
     private NotificationStatus status = NotificationStatus.PENDING;
     
-    @CreationTimestamp
     @Column(name = "created_at", nullable = false)
     private LocalDateTime createdAt;
     
@@ -101,6 +110,15 @@ public class Notification {
         FAILED
     }
     
+    // Set on save rather than on insert, which is deferred to the flush, so the
+    // notification already has it when it is pushed to the app
+    @PrePersist
+    protected void onCreate() {
+        if (createdAt == null) {
+            createdAt = LocalDateTime.now();
+        }
+    }
+    
     // Constructors
     public Notification() {}
     
@@ -0,0 +1,153 @@
+package com.secureherai.secureherai_api.entity;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Durable timer: work that has to run at a later time and must survive restarts
+ */
+@Entity
+@Table(name = "scheduled_tasks", indexes = {
+    @Index(name = "idx_scheduled_tasks_status_due", columnList = "status, due_at"),
+    @Index(name = "idx_scheduled_tasks_type_key", columnList = "task_type, task_key")
+})
+public class ScheduledTask {
+    @Id
+    @GeneratedValue(strategy = GenerationType.AUTO)
+    private UUID id;
+    
+    @Column(name = "task_type", nullable = false, length = 50)
+    private String taskType;
+    
+    // Groups the tasks of one subject (e.g. an alert ID) so they can be canceled together
+    @Column(name = "task_key", length = 100)
+    private String taskKey;
+    
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(columnDefinition = "json")
+    private Map<String, Object> payload;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private Status status = Status.PENDING;
+    
+    @Column(name = "due_at", nullable = false)
+    private LocalDateTime dueAt;
+    
+    // A RUNNING task whose lease has passed was abandoned by a node that went down
+    @Column(name = "locked_until")
+    private LocalDateTime lockedUntil;
+    
+    @Column(nullable = false)
+    private Integer attempts = 0;
+    
+    @Column(name = "last_error", columnDefinition = "TEXT")
+    private String lastError;
+    
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+    
+    public enum Status {
+        PENDING,
+        RUNNING,
+        FAILED
+    }
+    
+    // Constructors
+    public ScheduledTask() {}
+    
+    public ScheduledTask(String taskType, String taskKey, Map<String, Object> payload, LocalDateTime dueAt) {
+        this.taskType = taskType;
+        this.taskKey = taskKey;
+        this.payload = payload;
+        this.dueAt = dueAt;
+    }
+    
+    // Getters and Setters
+    public UUID getId() {
+        return id;
+    }
+    
+    public void setId(UUID id) {
+        this.id = id;
+    }
+    
+    public String getTaskType() {
+        return taskType;
+    }
+    
+    public void setTaskType(String taskType) {
+        this.taskType = taskType;
+    }
+    
+    public String getTaskKey() {
+        return taskKey;
+    }
+    
+    public void setTaskKey(String taskKey) {
+        this.taskKey = taskKey;
+    }
+    
+    public Map<String, Object> getPayload() {
+        return payload;
+    }
+    
+    public void setPayload(Map<String, Object> payload) {
+        this.payload = payload;
+    }
+    
+    public Status getStatus() {
+        return status;
+    }
+    
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+    
+    public LocalDateTime getDueAt() {
+        return dueAt;
+    }
+    
+    public void setDueAt(LocalDateTime dueAt) {
+        this.dueAt = dueAt;
+    }
+    
+    public LocalDateTime getLockedUntil() {
+        return lockedUntil;
+    }
+    
+    public void setLockedUntil(LocalDateTime lockedUntil) {
+        this.lockedUntil = lockedUntil;
+    }
+    
+    public Integer getAttempts() {
+        return attempts;
+    }
+    
+    public void setAttempts(Integer attempts) {
+        this.attempts = attempts;
+    }
+    
+    public String getLastError() {
+        return lastError;
+    }
+    
+    public void setLastError(String lastError) {
+        this.lastError = lastError;
+    }
+    
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+    
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+}
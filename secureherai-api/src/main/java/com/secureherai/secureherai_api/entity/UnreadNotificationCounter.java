@@ -0,0 +1,66 @@
+package com.secureherai.secureherai_api.entity;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * A user's number of unread notifications, kept current as notifications are created and
+ * read so the badge does not need a count over the notifications table
+ */
+@Entity
+@Table(name = "notification_unread_counters", indexes = {
+    @Index(name = "idx_unread_counters_reconciled", columnList = "reconciled_at")
+})
+public class UnreadNotificationCounter {
+    @Id
+    @Column(name = "user_id")
+    private UUID userId;
+
+    @Column(name = "unread_count", nullable = false)
+    private long unreadCount;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    // Last time the count was checked against the notifications table
+    @Column(name = "reconciled_at", nullable = false)
+    private LocalDateTime reconciledAt;
+
+    // Constructors
+    public UnreadNotificationCounter() {}
+
+    // Getters and Setters
+    public UUID getUserId() {
+        return userId;
+    }
+
+    public void setUserId(UUID userId) {
+        this.userId = userId;
+    }
+
+    public long getUnreadCount() {
+        return unreadCount;
+    }
+
+    public void setUnreadCount(long unreadCount) {
+        this.unreadCount = unreadCount;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    public LocalDateTime getReconciledAt() {
+        return reconciledAt;
+    }
+
+    public void setReconciledAt(LocalDateTime reconciledAt) {
+        this.reconciledAt = reconciledAt;
+    }
+}
@@ -4,6 +4,7 @@ import jakarta.persistence.*;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
+import com.secureherai.secureherai_api.util.Geohash;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
@@ -12,7 +13,9 @@ import java.util.Collections;
 import java.util.UUID;
 
 @Entity
-@Table(name = "users")
+@Table(name = "users", indexes = {
+    @Index(name = "idx_users_geohash", columnList = "geohash")
+})
 public class User implements UserDetails {
     
     @Id
@@ -105,6 +108,10 @@ public class User implements UserDetails {
     @Column(name = "last_location_update")
     private LocalDateTime lastLocationUpdate;
     
+    // Geohash of the current location, kept in step on every save for neighborhood lookups
+    @Column(name = "geohash", length = Geohash.STORED_PRECISION)
+    private String geohash;
+    
     public enum Role {
         USER, RESPONDER, ADMIN
     }
@@ -113,11 +120,22 @@ public class User implements UserDetails {
     protected void onCreate() {
         createdAt = LocalDateTime.now();
         updatedAt = LocalDateTime.now();
+        refreshGeohash();
     }
     
     @PreUpdate
     protected void onUpdate() {
         updatedAt = LocalDateTime.now();
+        refreshGeohash();
+    }
+    
+    /**
+     * Recompute the geohash from the current location
+     */
+    public void refreshGeohash() {
+        geohash = currentLatitude != null && currentLongitude != null
+            ? Geohash.encode(currentLatitude.doubleValue(), currentLongitude.doubleValue(), Geohash.STORED_PRECISION)
+            : null;
     }
 
     // Constructors
@@ -256,4 +274,6 @@ public class User implements UserDetails {
     
     public LocalDateTime getLastLocationUpdate() { return lastLocationUpdate; }
     public void setLastLocationUpdate(LocalDateTime lastLocationUpdate) { this.lastLocationUpdate = lastLocationUpdate; }
+    
+    public String getGeohash() { return geohash; }
 }
\ No newline at end of file
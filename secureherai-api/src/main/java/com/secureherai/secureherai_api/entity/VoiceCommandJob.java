@@ -0,0 +1,247 @@
+package com.secureherai.secureherai_api.entity;
+
+import jakarta.persistence.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * An uploaded voice SOS command moving through the ingestion pipeline, kept so that a
+ * command accepted before a restart is still processed, and its status still reported
+ */
+@Entity
+@Table(name = "voice_command_jobs", indexes = {
+    @Index(name = "idx_voice_command_jobs_stage_updated", columnList = "stage, updated_at")
+})
+public class VoiceCommandJob {
+    @Id
+    @GeneratedValue(strategy = GenerationType.AUTO)
+    private UUID id;
+
+    @Column(name = "user_id", nullable = false)
+    private UUID userId;
+
+    @Column(nullable = false, precision = 9, scale = 6)
+    private BigDecimal latitude;
+
+    @Column(nullable = false, precision = 9, scale = 6)
+    private BigDecimal longitude;
+
+    private String address;
+
+    // The raw upload in the staging directory, deleted once the command has finished
+    @Column(name = "audio_path", nullable = false)
+    private String audioPath;
+
+    @Column(name = "audio_sha256", nullable = false, length = 64)
+    private String audioSha256;
+
+    @Column(name = "audio_size", nullable = false)
+    private Long audioSize;
+
+    @Column(name = "audio_extension", nullable = false, length = 11)
+    private String audioExtension;
+
+    @Column(name = "original_file_name")
+    private String originalFileName;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 15)
+    private Stage stage = Stage.PERSISTED;
+
+    // Raised each time the command is taken over after its node went down; a node only
+    // records progress for the attempt it is running
+    @Column(nullable = false)
+    private Integer attempts = 1;
+
+    @Column(name = "transcribed_text", columnDefinition = "TEXT")
+    private String transcribedText;
+
+    @Column(name = "alert_id")
+    private UUID alertId;
+
+    @Column(columnDefinition = "TEXT")
+    private String message;
+
+    @Column(name = "accepted_at", nullable = false)
+    private LocalDateTime acceptedAt;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    /**
+     * Pipeline stages a voice command moves through
+     */
+    public enum Stage {
+        ACCEPTED,
+        PERSISTED,
+        TRANSCRIBING,
+        DECIDING,
+        COMMITTING,
+        FANNING_OUT,
+        COMPLETED,
+        NO_KEYWORD,
+        FAILED;
+
+        public boolean isTerminal() {
+            return this == COMPLETED || this == NO_KEYWORD || this == FAILED;
+        }
+    }
+
+    // Constructors
+    public VoiceCommandJob() {}
+
+    public VoiceCommandJob(UUID userId, BigDecimal latitude, BigDecimal longitude, String address,
+                           String audioPath, String audioSha256, Long audioSize, String audioExtension,
+                           String originalFileName) {
+        this.userId = userId;
+        this.latitude = latitude;
+        this.longitude = longitude;
+        this.address = address;
+        this.audioPath = audioPath;
+        this.audioSha256 = audioSha256;
+        this.audioSize = audioSize;
+        this.audioExtension = audioExtension;
+        this.originalFileName = originalFileName;
+        this.acceptedAt = LocalDateTime.now();
+        this.updatedAt = this.acceptedAt;
+    }
+
+    // Getters and Setters
+    public UUID getId() {
+        return id;
+    }
+
+    public void setId(UUID id) {
+        this.id = id;
+    }
+
+    public UUID getUserId() {
+        return userId;
+    }
+
+    public void setUserId(UUID userId) {
+        this.userId = userId;
+    }
+
+    public BigDecimal getLatitude() {
+        return latitude;
+    }
+
+    public void setLatitude(BigDecimal latitude) {
+        this.latitude = latitude;
+    }
+
+    public BigDecimal getLongitude() {
+        return longitude;
+    }
+
+    public void setLongitude(BigDecimal longitude) {
+        this.longitude = longitude;
+    }
+
+    public String getAddress() {
+        return address;
+    }
+
+    public void setAddress(String address) {
+        this.address = address;
+    }
+
+    public String getAudioPath() {
+        return audioPath;
+    }
+
+    public void setAudioPath(String audioPath) {
+        this.audioPath = audioPath;
+    }
+
+    public String getAudioSha256() {
+        return audioSha256;
+    }
+
+    public void setAudioSha256(String audioSha256) {
+        this.audioSha256 = audioSha256;
+    }
+
+    public Long getAudioSize() {
+        return audioSize;
+    }
+
+    public void setAudioSize(Long audioSize) {
+        this.audioSize = audioSize;
+    }
+
+    public String getAudioExtension() {
+        return audioExtension;
+    }
+
+    public void setAudioExtension(String audioExtension) {
+        this.audioExtension = audioExtension;
+    }
+
+    public String getOriginalFileName() {
+        return originalFileName;
+    }
+
+    public void setOriginalFileName(String originalFileName) {
+        this.originalFileName = originalFileName;
+    }
+
+    public Stage getStage() {
+        return stage;
+    }
+
+    public void setStage(Stage stage) {
+        this.stage = stage;
+    }
+
+    public Integer getAttempts() {
+        return attempts;
+    }
+
+    public void setAttempts(Integer attempts) {
+        this.attempts = attempts;
+    }
+
+    public String getTranscribedText() {
+        return transcribedText;
+    }
+
+    public void setTranscribedText(String transcribedText) {
+        this.transcribedText = transcribedText;
+    }
+
+    public UUID getAlertId() {
+        return alertId;
+    }
+
+    public void setAlertId(UUID alertId) {
+        this.alertId = alertId;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    public LocalDateTime getAcceptedAt() {
+        return acceptedAt;
+    }
+
+    public void setAcceptedAt(LocalDateTime acceptedAt) {
+        this.acceptedAt = acceptedAt;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
@@ -0,0 +1,17 @@
+package com.secureherai.secureherai_api.exception;
+
+/**
+ * Thrown when a stage of an SOS request cannot finish within what is left of the
+ * request's deadline. Callers degrade instead of waiting, e.g. alert on location
+ * alone when the audio could not be transcribed in time.
+ */
+public class DeadlineExceededException extends RuntimeException {
+
+    public DeadlineExceededException(String message) {
+        super(message);
+    }
+
+    public DeadlineExceededException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,17 @@
+package com.secureherai.secureherai_api.exception;
+
+/**
+ * Thrown when speech recognition cannot be attempted right now: every engine's circuit
+ * is open, the concurrency limit is reached, or the call ran past its timeout.
+ * Callers should fall back to the text SOS path instead of retrying the audio.
+ */
+public class SpeechEngineUnavailableException extends RuntimeException {
+
+    public SpeechEngineUnavailableException(String message) {
+        super(message);
+    }
+
+    public SpeechEngineUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -22,6 +22,9 @@ public interface AlertRepository extends JpaRepository<Alert, UUID> {
     // Find active alerts by user ID
     List<Alert> findByUserIdAndStatus(UUID userId, AlertStatus status);
     
+    // Latest alert of a user in a status triggered after a point in time (for coalescing repeat triggers)
+    Optional<Alert> findFirstByUserIdAndStatusAndTriggeredAtAfterOrderByTriggeredAtDesc(UUID userId, AlertStatus status, LocalDateTime since);
+    
     // Find alert by ID and user ID (for authorization)
     Optional<Alert> findByIdAndUserId(UUID id, UUID userId);
     
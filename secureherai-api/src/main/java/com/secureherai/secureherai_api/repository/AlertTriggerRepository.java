@@ -0,0 +1,15 @@
+package com.secureherai.secureherai_api.repository;
+
+import com.secureherai.secureherai_api.entity.AlertTrigger;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface AlertTriggerRepository extends JpaRepository<AlertTrigger, UUID> {
+    
+    // Repeat triggers merged into an alert, oldest first
+    List<AlertTrigger> findByAlertIdOrderByTriggeredAtAsc(UUID alertId);
+}
@@ -0,0 +1,67 @@
+package com.secureherai.secureherai_api.repository;
+
+import com.secureherai.secureherai_api.entity.EmailOutbox;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface EmailOutboxRepository extends JpaRepository<EmailOutbox, UUID> {
+
+    boolean existsByDedupKey(String dedupKey);
+
+    // E-mails ready to send: pending ones that are due, and ones whose sender went down mid-send
+    @Query("SELECT e.id FROM EmailOutbox e " +
+           "WHERE (e.status = 'PENDING' AND e.nextAttemptAt <= :now) " +
+           "OR (e.status = 'SENDING' AND e.lockedUntil < :now) " +
+           "ORDER BY e.nextAttemptAt ASC")
+    List<UUID> findReadyIds(@Param("now") LocalDateTime now, Pageable pageable);
+
+    // Take ready e-mails for this node; rows another node took in the meantime are left out
+    @Modifying
+    @Transactional
+    @Query("UPDATE EmailOutbox e SET e.status = 'SENDING', e.claimToken = :claimToken, " +
+           "e.lockedUntil = :lockedUntil, e.attempts = e.attempts + 1 " +
+           "WHERE e.id IN :ids " +
+           "AND ((e.status = 'PENDING' AND e.nextAttemptAt <= :now) OR (e.status = 'SENDING' AND e.lockedUntil < :now))")
+    int claim(@Param("ids") Collection<UUID> ids, @Param("claimToken") UUID claimToken,
+              @Param("now") LocalDateTime now, @Param("lockedUntil") LocalDateTime lockedUntil);
+
+    List<EmailOutbox> findByClaimToken(UUID claimToken);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE EmailOutbox e SET e.status = 'SENT', e.sentAt = :sentAt, e.lockedUntil = null, e.claimToken = null " +
+           "WHERE e.id IN :ids")
+    int markSent(@Param("ids") Collection<UUID> ids, @Param("sentAt") LocalDateTime sentAt);
+
+    // Put a failed attempt back for a retry
+    @Modifying
+    @Transactional
+    @Query("UPDATE EmailOutbox e SET e.status = 'PENDING', e.nextAttemptAt = :nextAttemptAt, " +
+           "e.lockedUntil = null, e.claimToken = null, e.lastError = :error WHERE e.id = :id")
+    int reschedule(@Param("id") UUID id, @Param("nextAttemptAt") LocalDateTime nextAttemptAt, @Param("error") String error);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE EmailOutbox e SET e.status = 'FAILED', e.lockedUntil = null, e.claimToken = null, e.lastError = :error " +
+           "WHERE e.id = :id")
+    int markFailed(@Param("id") UUID id, @Param("error") String error);
+
+    // Sent e-mails are kept for a while so the same e-mail is not queued twice
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM EmailOutbox e WHERE e.status = 'SENT' AND e.sentAt < :before")
+    int deleteSentBefore(@Param("before") LocalDateTime before);
+
+    long countByStatus(EmailOutbox.Status status);
+}
@@ -0,0 +1,45 @@
+package com.secureherai.secureherai_api.repository;
+
+import com.secureherai.secureherai_api.entity.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, String>, IdempotencyRecordRepositoryCustom {
+    
+    // Take over a key whose request went down with its instance, or whose response expired;
+    // 0 means it is still running elsewhere, or holds a response to replay
+    @Modifying
+    @Transactional
+    @Query("UPDATE IdempotencyRecord r SET r.responseStatus = null, r.responseBody = null, r.createdAt = :claimedAt " +
+           "WHERE r.keyHash = :keyHash AND ((r.responseStatus IS NULL AND r.createdAt < :staleBefore) " +
+           "OR r.createdAt < :expiredBefore)")
+    int takeOverClaim(@Param("keyHash") String keyHash, @Param("claimedAt") LocalDateTime claimedAt,
+                      @Param("staleBefore") LocalDateTime staleBefore, @Param("expiredBefore") LocalDateTime expiredBefore);
+
+    // Store the response for a claim; 0 means the claim was taken over in the meantime
+    @Modifying
+    @Transactional
+    @Query("UPDATE IdempotencyRecord r SET r.responseStatus = :status, r.responseBody = :body, r.createdAt = :now " +
+           "WHERE r.keyHash = :keyHash AND r.responseStatus IS NULL AND r.createdAt = :claimedAt")
+    int completeClaim(@Param("keyHash") String keyHash, @Param("claimedAt") LocalDateTime claimedAt,
+                      @Param("status") int status, @Param("body") String body, @Param("now") LocalDateTime now);
+
+    // Give up a claim so the client can retry
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.keyHash = :keyHash AND r.responseStatus IS NULL " +
+           "AND r.createdAt = :claimedAt")
+    int releaseClaim(@Param("keyHash") String keyHash, @Param("claimedAt") LocalDateTime claimedAt);
+
+    // Purge records older than the idempotency TTL
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.createdAt < :cutoff")
+    int deleteCreatedBefore(@Param("cutoff") LocalDateTime cutoff);
+}
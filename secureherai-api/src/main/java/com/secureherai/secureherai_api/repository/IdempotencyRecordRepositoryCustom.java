@@ -0,0 +1,18 @@
+package com.secureherai.secureherai_api.repository;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Idempotency key statements written as HQL that Spring Data does not derive
+ */
+public interface IdempotencyRecordRepositoryCustom {
+
+    /**
+     * Claim a key for a request that is about to run, unless another request, on any
+     * instance, already holds it or finished with it
+     *
+     * @return 1 if the key was claimed, 0 if it existed
+     */
+    int insertClaim(String keyHash, UUID userId, LocalDateTime claimedAt);
+}
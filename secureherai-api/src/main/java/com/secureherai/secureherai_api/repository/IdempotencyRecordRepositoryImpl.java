@@ -0,0 +1,31 @@
+package com.secureherai.secureherai_api.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Hibernate turns ON CONFLICT DO NOTHING into INSERT ... ON CONFLICT on PostgreSQL and
+ * into an equivalent MERGE on H2, so two instances claiming the same key at once get
+ * exactly one winner without a failed statement.
+ */
+class IdempotencyRecordRepositoryImpl implements IdempotencyRecordRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @Transactional
+    public int insertClaim(String keyHash, UUID userId, LocalDateTime claimedAt) {
+        return entityManager.createQuery(
+                "INSERT INTO IdempotencyRecord (keyHash, userId, createdAt) " +
+                "VALUES (:keyHash, :userId, :claimedAt) ON CONFLICT DO NOTHING")
+            .setParameter("keyHash", keyHash)
+            .setParameter("userId", userId)
+            .setParameter("claimedAt", claimedAt)
+            .executeUpdate();
+    }
+}
@@ -11,21 +11,35 @@ import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
 @Repository
 public interface NotificationRepository extends JpaRepository<Notification, Long> {
     
-    // Find notifications by user ID
-    List<Notification> findByUserIdOrderByCreatedAtDesc(UUID userId);
-    
-    // Find notifications by user ID with pagination
+    // Find notifications by user ID with offset pagination
     Page<Notification> findByUserIdOrderByCreatedAtDesc(UUID userId, Pageable pageable);
     
+    // A user's newest notifications; the first page of the keyset pages below
+    @Query("SELECT n FROM Notification n WHERE n.userId = :userId ORDER BY n.createdAt DESC, n.id DESC")
+    List<Notification> findFirstPage(@Param("userId") UUID userId, Pageable pageable);
+    
+    // The notifications after a cursor, newest first; the createdAt <= bound lets the
+    // (user_id, created_at, id) index start the scan at the cursor
+    @Query("SELECT n FROM Notification n WHERE n.userId = :userId AND n.createdAt <= :createdAt " +
+           "AND (n.createdAt < :createdAt OR n.id < :id) ORDER BY n.createdAt DESC, n.id DESC")
+    List<Notification> findPageAfter(@Param("userId") UUID userId, @Param("createdAt") LocalDateTime createdAt,
+                                     @Param("id") Long id, Pageable pageable);
+    
     // Find unread notifications for a user
     List<Notification> findByUserIdAndStatusOrderByCreatedAtDesc(UUID userId, Notification.NotificationStatus status);
     
+    boolean existsByIdAndUserId(Long id, UUID userId);
+    
+    // Whether a user was notified about an alert
+    boolean existsByAlertIdAndUserId(UUID alertId, UUID userId);
+    
     // Find notifications by type for a user
     List<Notification> findByUserIdAndTypeOrderByCreatedAtDesc(UUID userId, Notification.NotificationType type);
     
@@ -58,6 +72,41 @@ public interface NotificationRepository extends JpaRepository<Notification, Long
     @Query("UPDATE Notification n SET n.status = :status, n.sentAt = :sentAt WHERE n.id = :id")
     int updateStatus(@Param("id") Long id, @Param("status") Notification.NotificationStatus status, @Param("sentAt") LocalDateTime sentAt);
     
+    // Mark pushed notifications as delivered once a client acknowledged them; read ones stay read
+    @Modifying
+    @Transactional
+    @Query("UPDATE Notification n SET n.status = 'SENT', n.sentAt = :sentAt WHERE n.id IN :ids AND n.status = 'PENDING'")
+    int markDelivered(@Param("ids") Collection<Long> ids, @Param("sentAt") LocalDateTime sentAt);
+    
+    // In-app notifications not yet delivered to the user's app, most important first
+    @Query("SELECT n FROM Notification n WHERE n.userId = :userId AND n.status = 'PENDING' AND n.channel <> 'EMAIL' " +
+           "AND (n.expiresAt IS NULL OR n.expiresAt > :now) ORDER BY n.priority DESC, n.createdAt DESC")
+    List<Notification> findUndelivered(@Param("userId") UUID userId, @Param("now") LocalDateTime now, Pageable pageable);
+    
+    // Unread notifications: waiting for delivery or delivered but not read yet
+    @Query("SELECT n FROM Notification n WHERE n.userId = :userId AND n.status IN ('PENDING', 'SENT') " +
+           "ORDER BY n.createdAt DESC, n.id DESC")
+    List<Notification> findUnreadFirstPage(@Param("userId") UUID userId, Pageable pageable);
+    
+    @Query("SELECT n FROM Notification n WHERE n.userId = :userId AND n.status IN ('PENDING', 'SENT') " +
+           "AND n.createdAt <= :createdAt AND (n.createdAt < :createdAt OR n.id < :id) ORDER BY n.createdAt DESC, n.id DESC")
+    List<Notification> findUnreadPageAfter(@Param("userId") UUID userId, @Param("createdAt") LocalDateTime createdAt,
+                                           @Param("id") Long id, Pageable pageable);
+    
+    @Query("SELECT COUNT(n) FROM Notification n WHERE n.userId = :userId AND n.status IN ('PENDING', 'SENT')")
+    long countUnread(@Param("userId") UUID userId);
+    
+    // Mark one unread notification as read; 0 if it was read already, so it is counted once
+    @Modifying
+    @Transactional
+    @Query("UPDATE Notification n SET n.status = 'READ', n.readAt = :readAt WHERE n.id = :id AND n.userId = :userId AND n.status IN ('PENDING', 'SENT')")
+    int markUnreadAsRead(@Param("id") Long id, @Param("userId") UUID userId, @Param("readAt") LocalDateTime readAt);
+    
+    @Modifying
+    @Transactional
+    @Query("UPDATE Notification n SET n.status = 'READ', n.readAt = :readAt WHERE n.userId = :userId AND n.status IN ('PENDING', 'SENT')")
+    int markAllUnreadAsRead(@Param("userId") UUID userId, @Param("readAt") LocalDateTime readAt);
+    
     // Find notifications that need to be sent (pending status)
     @Query("SELECT n FROM Notification n WHERE n.status = :status ORDER BY n.priority DESC, n.createdAt ASC")
     List<Notification> findPendingNotifications(@Param("status") Notification.NotificationStatus status);
@@ -0,0 +1,41 @@
+package com.secureherai.secureherai_api.repository;
+
+import com.secureherai.secureherai_api.entity.Responder;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/**
+ * Just enough of an available responder to rank it by distance, without loading the
+ * Responder and User entities. A responder's id is its user's id.
+ */
+public class ResponderCandidate {
+    private final UUID userId;
+    private final double latitude;
+    private final double longitude;
+    private final Responder.ResponderType responderType;
+
+    public ResponderCandidate(UUID userId, BigDecimal latitude, BigDecimal longitude,
+                              Responder.ResponderType responderType) {
+        this.userId = userId;
+        this.latitude = latitude.doubleValue();
+        this.longitude = longitude.doubleValue();
+        this.responderType = responderType;
+    }
+
+    public UUID getUserId() {
+        return userId;
+    }
+
+    public double getLatitude() {
+        return latitude;
+    }
+
+    public double getLongitude() {
+        return longitude;
+    }
+
+    public Responder.ResponderType getResponderType() {
+        return responderType;
+    }
+}
@@ -12,7 +12,7 @@ import org.springframework.stereotype.Repository;
 import com.secureherai.secureherai_api.entity.Responder;
 
 @Repository
-public interface ResponderRepository extends JpaRepository<Responder, UUID> {
+public interface ResponderRepository extends JpaRepository<Responder, UUID>, ResponderRepositoryCustom {
     
     Optional<Responder> findByUserId(UUID userId);
     
@@ -30,6 +30,11 @@ public interface ResponderRepository extends JpaRepository<Responder, UUID> {
         @Param("type") Responder.ResponderType type
     );
     
+    // IDs and positions of responders with a status, without loading the entities
+    @Query("SELECT r.userId, u.currentLatitude, u.currentLongitude FROM Responder r JOIN r.user u " +
+           "WHERE r.status = :status AND r.isActive = true")
+    List<Object[]> findPositionsByStatusAndIsActiveTrue(@Param("status") Responder.Status status);
+    
     void deleteByUserId(UUID userId);
 
     @Query("SELECT r FROM Responder r WHERE r.badgeNumber = :badgeNumber")
@@ -0,0 +1,21 @@
+package com.secureherai.secureherai_api.repository;
+
+import com.secureherai.secureherai_api.entity.Responder;
+
+import java.util.List;
+
+/**
+ * Responder queries built at run time
+ */
+public interface ResponderRepositoryCustom {
+
+    /**
+     * Active responders with a status whose user's geohash starts with one of the given
+     * cells, nearest to a position first
+     *
+     * @param cells Geohash cell prefixes, e.g. from {@link com.secureherai.secureherai_api.util.Geohash#neighborhood}
+     * @param limit Most candidates to return
+     */
+    List<ResponderCandidate> findNearestCandidates(Responder.Status status, List<String> cells,
+                                                   double latitude, double longitude, int limit);
+}
@@ -0,0 +1,64 @@
+package com.secureherai.secureherai_api.repository;
+
+import com.secureherai.secureherai_api.entity.Responder;
+import com.secureherai.secureherai_api.util.Geohash;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Each geohash cell becomes a range condition on users.geohash, which the B-tree index
+ * answers with one short range scan per cell. The candidates in those cells are ordered
+ * by an equirectangular approximation of the distance (plain arithmetic, so it runs the
+ * same on PostgreSQL and H2) and cut off at the limit in the database, so the cost
+ * depends on how many responders are near the position, not on the table size.
+ */
+class ResponderRepositoryImpl implements ResponderRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<ResponderCandidate> findNearestCandidates(Responder.Status status, List<String> cells,
+                                                          double latitude, double longitude, int limit) {
+        if (cells.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        StringBuilder jpql = new StringBuilder(
+            "SELECT new com.secureherai.secureherai_api.repository.ResponderCandidate(" +
+            "r.userId, u.currentLatitude, u.currentLongitude, r.responderType) " +
+            "FROM Responder r JOIN r.user u " +
+            "WHERE r.status = :status AND r.isActive = true AND (");
+        for (int i = 0; i < cells.size(); i++) {
+            if (i > 0) {
+                jpql.append(" OR ");
+            }
+            jpql.append("(u.geohash >= :from").append(i);
+            if (Geohash.prefixUpperBound(cells.get(i)) != null) {
+                jpql.append(" AND u.geohash < :to").append(i);
+            }
+            jpql.append(')');
+        }
+        jpql.append(") ORDER BY (u.currentLatitude - :latitude) * (u.currentLatitude - :latitude)" +
+                    " + (u.currentLongitude - :longitude) * (u.currentLongitude - :longitude) * :longitudeScale");
+
+        TypedQuery<ResponderCandidate> query = entityManager.createQuery(jpql.toString(), ResponderCandidate.class)
+            .setParameter("status", status)
+            .setParameter("latitude", BigDecimal.valueOf(latitude))
+            .setParameter("longitude", BigDecimal.valueOf(longitude))
+            // A degree of longitude is cos(latitude) times as long as a degree of latitude
+            .setParameter("longitudeScale", BigDecimal.valueOf(Math.pow(Math.cos(Math.toRadians(latitude)), 2)))
+            .setMaxResults(limit);
+        for (int i = 0; i < cells.size(); i++) {
+            String upperBound = Geohash.prefixUpperBound(cells.get(i));
+            query.setParameter("from" + i, cells.get(i));
+            if (upperBound != null) {
+                query.setParameter("to" + i, upperBound);
+            }
+        }
+        return query.getResultList();
+    }
+}
@@ -0,0 +1,58 @@
+package com.secureherai.secureherai_api.repository;
+
+import com.secureherai.secureherai_api.entity.ScheduledTask;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface ScheduledTaskRepository extends JpaRepository<ScheduledTask, UUID> {
+    
+    // Tasks to load into the timing wheel: pending ones due before the horizon, and running
+    // ones whose lease has passed because the node running them went down
+    @Query("SELECT t.id, t.dueAt FROM ScheduledTask t " +
+           "WHERE (t.status = 'PENDING' AND t.dueAt < :horizon) " +
+           "OR (t.status = 'RUNNING' AND t.lockedUntil < :now) " +
+           "ORDER BY t.dueAt ASC")
+    List<Object[]> findDueBefore(@Param("horizon") LocalDateTime horizon, @Param("now") LocalDateTime now, Pageable pageable);
+    
+    // Take a due task for this node; 0 means another node has it, or it was canceled or rescheduled
+    @Modifying
+    @Transactional
+    @Query("UPDATE ScheduledTask t SET t.status = 'RUNNING', t.lockedUntil = :lockedUntil, t.attempts = t.attempts + 1 " +
+           "WHERE t.id = :id AND t.dueAt <= :now " +
+           "AND (t.status = 'PENDING' OR (t.status = 'RUNNING' AND t.lockedUntil < :now))")
+    int claim(@Param("id") UUID id, @Param("now") LocalDateTime now, @Param("lockedUntil") LocalDateTime lockedUntil);
+    
+    // Put a failed attempt back for a retry
+    @Modifying
+    @Transactional
+    @Query("UPDATE ScheduledTask t SET t.status = 'PENDING', t.dueAt = :dueAt, t.lockedUntil = null, t.lastError = :error " +
+           "WHERE t.id = :id")
+    int reschedule(@Param("id") UUID id, @Param("dueAt") LocalDateTime dueAt, @Param("error") String error);
+    
+    @Modifying
+    @Transactional
+    @Query("UPDATE ScheduledTask t SET t.status = 'FAILED', t.lockedUntil = null, t.lastError = :error WHERE t.id = :id")
+    int markFailed(@Param("id") UUID id, @Param("error") String error);
+    
+    // IDs of the tasks still to run for a subject
+    @Query("SELECT t.id FROM ScheduledTask t WHERE t.taskType = :taskType AND t.taskKey = :taskKey AND t.status <> 'FAILED'")
+    List<UUID> findOpenIds(@Param("taskType") String taskType, @Param("taskKey") String taskKey);
+    
+    // Cancel the tasks still to run for a subject; a task already running finishes
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM ScheduledTask t WHERE t.taskType = :taskType AND t.taskKey = :taskKey AND t.status = 'PENDING'")
+    int deletePending(@Param("taskType") String taskType, @Param("taskKey") String taskKey);
+    
+    long countByStatus(ScheduledTask.Status status);
+}
@@ -0,0 +1,63 @@
+package com.secureherai.secureherai_api.repository;
+
+import com.secureherai.secureherai_api.entity.UnreadNotificationCounter;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface UnreadNotificationCounterRepository extends JpaRepository<UnreadNotificationCounter, UUID>,
+        UnreadNotificationCounterRepositoryCustom {
+
+    @Query("SELECT c.unreadCount FROM UnreadNotificationCounter c WHERE c.userId = :userId")
+    Optional<Long> findUnreadCount(@Param("userId") UUID userId);
+
+    // Change a user's count in place; 0 means the user has no counter yet
+    @Modifying
+    @Transactional
+    @Query("UPDATE UnreadNotificationCounter c SET " +
+           "c.unreadCount = CASE WHEN c.unreadCount + :delta < 0 THEN 0 ELSE c.unreadCount + :delta END, " +
+           "c.updatedAt = :now WHERE c.userId = :userId")
+    int add(@Param("userId") UUID userId, @Param("delta") long delta, @Param("now") LocalDateTime now);
+
+    // Change several users' counts by the same amount in one statement
+    @Modifying
+    @Transactional
+    @Query("UPDATE UnreadNotificationCounter c SET " +
+           "c.unreadCount = CASE WHEN c.unreadCount + :delta < 0 THEN 0 ELSE c.unreadCount + :delta END, " +
+           "c.updatedAt = :now WHERE c.userId IN :userIds")
+    int addAll(@Param("userIds") Collection<UUID> userIds, @Param("delta") long delta, @Param("now") LocalDateTime now);
+    
+    @Query("SELECT c.userId FROM UnreadNotificationCounter c WHERE c.userId IN :userIds")
+    List<UUID> findExistingUserIds(@Param("userIds") Collection<UUID> userIds);
+    
+    // Counters checked longest ago that have not changed since quietSince
+    @Query("SELECT c.userId FROM UnreadNotificationCounter c WHERE c.reconciledAt < :before AND c.updatedAt < :quietSince " +
+           "ORDER BY c.reconciledAt ASC")
+    List<UUID> findReconcileCandidates(@Param("before") LocalDateTime before, @Param("quietSince") LocalDateTime quietSince, Pageable pageable);
+
+    // Recount from the notifications table; counters changed since quietSince are left for the
+    // next run, because the change that touched them may not be visible to the count yet
+    @Modifying
+    @Transactional
+    @Query("UPDATE UnreadNotificationCounter c SET " +
+           "c.unreadCount = (SELECT COUNT(n) FROM Notification n WHERE n.userId = c.userId AND n.status IN ('PENDING', 'SENT')), " +
+           "c.reconciledAt = :now " +
+           "WHERE c.userId IN :userIds AND c.updatedAt < :quietSince")
+    int reconcile(@Param("userIds") Collection<UUID> userIds, @Param("quietSince") LocalDateTime quietSince, @Param("now") LocalDateTime now);
+
+    // Delete a user's counter (for account deletion)
+    @Modifying
+    @Query("DELETE FROM UnreadNotificationCounter c WHERE c.userId = :userId")
+    void deleteByUserId(@Param("userId") UUID userId);
+}
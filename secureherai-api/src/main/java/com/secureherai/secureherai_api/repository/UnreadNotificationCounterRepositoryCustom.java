@@ -0,0 +1,18 @@
+package com.secureherai.secureherai_api.repository;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Unread counter statements written as HQL that Spring Data does not derive
+ */
+public interface UnreadNotificationCounterRepositoryCustom {
+
+    /**
+     * Create a user's counter unless another transaction already did; never fails on a
+     * duplicate, so it is safe inside a larger transaction
+     *
+     * @return 1 if the counter was created, 0 if it existed
+     */
+    int insertIfAbsent(UUID userId, long unreadCount, LocalDateTime now);
+}
@@ -0,0 +1,31 @@
+package com.secureherai.secureherai_api.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Hibernate turns ON CONFLICT DO NOTHING into INSERT ... ON CONFLICT on PostgreSQL and
+ * into an equivalent MERGE on H2. A plain insert would abort the caller's PostgreSQL
+ * transaction when two requests create the same user's counter at once.
+ */
+class UnreadNotificationCounterRepositoryImpl implements UnreadNotificationCounterRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @Transactional
+    public int insertIfAbsent(UUID userId, long unreadCount, LocalDateTime now) {
+        return entityManager.createQuery(
+                "INSERT INTO UnreadNotificationCounter (userId, unreadCount, updatedAt, reconciledAt) " +
+                "VALUES (:userId, :unreadCount, :now, :now) ON CONFLICT DO NOTHING")
+            .setParameter("userId", userId)
+            .setParameter("unreadCount", unreadCount)
+            .setParameter("now", now)
+            .executeUpdate();
+    }
+}
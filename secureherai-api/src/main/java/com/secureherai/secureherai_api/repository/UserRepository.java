@@ -1,11 +1,16 @@
 package com.secureherai.secureherai_api.repository;
 
 import com.secureherai.secureherai_api.entity.User;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 import java.time.LocalDateTime;
@@ -19,6 +24,15 @@ public interface UserRepository extends JpaRepository<User, UUID> {
     Optional<User> findByResetToken(String resetToken);
     Optional<User> findByLoginCode(String loginCode);
     
+    // Row lock (SELECT ... FOR UPDATE) held until the caller's transaction ends, so
+    // concurrent writes on behalf of one user run one after the other
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT u FROM User u WHERE u.id = :id")
+    Optional<User> lockById(@Param("id") UUID id);
+    
+    // Users with a location saved before the geohash column existed
+    List<User> findTop500ByGeohashIsNullAndCurrentLatitudeIsNotNullAndCurrentLongitudeIsNotNull();
+    
     // Now that isVerified is properly mapped to database, we can use it
     @Modifying
     @Transactional
@@ -0,0 +1,40 @@
+package com.secureherai.secureherai_api.repository;
+
+import com.secureherai.secureherai_api.entity.VoiceCommandJob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Repository
+public interface VoiceCommandJobRepository extends JpaRepository<VoiceCommandJob, UUID> {
+
+    // Record progress; 0 means the command was taken over by another attempt, or is gone
+    @Modifying
+    @Transactional
+    @Query("UPDATE VoiceCommandJob j SET j.stage = :stage, j.message = :message, j.transcribedText = :transcribedText, " +
+           "j.alertId = :alertId, j.updatedAt = :now WHERE j.id = :id AND j.attempts = :attempt")
+    int updateState(@Param("id") UUID id, @Param("attempt") int attempt, @Param("stage") VoiceCommandJob.Stage stage,
+                    @Param("message") String message, @Param("transcribedText") String transcribedText,
+                    @Param("alertId") UUID alertId, @Param("now") LocalDateTime now);
+
+    // Take over an unfinished command that made no progress since staleBefore; 0 means it is
+    // still moving on its node, or another attempt took it first
+    @Modifying
+    @Transactional
+    @Query("UPDATE VoiceCommandJob j SET j.attempts = j.attempts + 1, j.updatedAt = :now " +
+           "WHERE j.id = :id AND j.attempts = :attempts AND j.updatedAt < :staleBefore " +
+           "AND j.stage NOT IN ('COMPLETED', 'NO_KEYWORD', 'FAILED')")
+    int claimStale(@Param("id") UUID id, @Param("attempts") int attempts,
+                   @Param("staleBefore") LocalDateTime staleBefore, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM VoiceCommandJob j WHERE j.stage IN ('COMPLETED', 'NO_KEYWORD', 'FAILED') AND j.updatedAt < :cutoff")
+    int deleteFinishedBefore(@Param("cutoff") LocalDateTime cutoff);
+}
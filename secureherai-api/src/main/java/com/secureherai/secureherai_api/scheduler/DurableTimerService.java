@@ -0,0 +1,330 @@
+package com.secureherai.secureherai_api.scheduler;
+
+import com.secureherai.secureherai_api.entity.ScheduledTask;
+import com.secureherai.secureherai_api.repository.ScheduledTaskRepository;
+import com.secureherai.secureherai_api.util.TransactionHooks;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Durable timers for work that runs long after the request that scheduled it, such
+ * as escalating an unanswered SOS to the next batch of responders.
+ *
+ * Every timer is a row in {@code scheduled_tasks}, written in the caller's
+ * transaction, and its due time is held in a {@link HierarchicalTimingWheel}. One
+ * thread ticks the wheel and hands due tasks to a small worker pool, so thousands of
+ * pending timers cost no threads. At startup, and every {@code timer.scan-interval-seconds}
+ * after that, tasks due within {@code timer.horizon-minutes} are loaded from the table,
+ * which brings back timers from before a restart and picks up ones scheduled on other
+ * nodes. A node claims a task with a conditional update before running it, so each
+ * task runs once; a claim is a lease, and a task whose node went down while running it
+ * is picked up again once the lease has passed. Failed tasks are retried with
+ * exponential backoff up to {@code timer.max-attempts}, then kept as FAILED.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class DurableTimerService {
+
+    private static final int WHEEL_SIZE = 64;
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private final ScheduledTaskRepository scheduledTaskRepository;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${timer.tick-millis:1000}")
+    private long tickMillis;
+
+    @Value("${timer.workers:2}")
+    private int workers;
+
+    @Value("${timer.queue-capacity:1000}")
+    private int queueCapacity;
+
+    @Value("${timer.scan-interval-seconds:60}")
+    private long scanIntervalSeconds;
+
+    @Value("${timer.horizon-minutes:10}")
+    private long horizonMinutes;
+
+    @Value("${timer.scan-batch-size:1000}")
+    private int scanBatchSize;
+
+    @Value("${timer.lease-seconds:300}")
+    private long leaseSeconds;
+
+    @Value("${timer.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${timer.retry-backoff-seconds:10}")
+    private long retryBackoffSeconds;
+
+    private final Map<String, TaskHandler> handlers = new ConcurrentHashMap<>();
+
+    private HierarchicalTimingWheel<UUID> wheel;
+    private ScheduledExecutorService ticker;
+    private ThreadPoolExecutor executor;
+    private TransactionTemplate transactionTemplate;
+
+    private final AtomicLong scheduled = new AtomicLong();
+    private final AtomicLong recovered = new AtomicLong();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong retried = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong lostClaims = new AtomicLong();
+
+    @PostConstruct
+    void init() {
+        wheel = new HierarchicalTimingWheel<>(tickMillis, WHEEL_SIZE, System.currentTimeMillis());
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        AtomicInteger counter = new AtomicInteger();
+        executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                Thread thread = new Thread(runnable, "timer-" + counter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }, new ThreadPoolExecutor.AbortPolicy());
+        ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "timer-wheel");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ticker.scheduleAtFixedRate(this::tick, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        ticker.shutdownNow();
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        // Tasks still in the wheel stay in the table and are picked up by the next start
+    }
+
+    /**
+     * Register the code that runs tasks of a type. Handlers run in a transaction that
+     * also removes the task, so a handler that throws leaves the task for a retry.
+     */
+    public void registerHandler(String taskType, TaskHandler handler) {
+        handlers.put(taskType, handler);
+    }
+
+    /**
+     * Schedule a task. The row is written in the caller's transaction, and the timer
+     * only starts once that transaction commits.
+     *
+     * @param taskType Type a handler was registered for
+     * @param taskKey Subject of the task, used to cancel it, or null
+     * @param payload What the handler needs to run the task; must be JSON serializable
+     * @param delay Time until the task is due
+     * @return The stored task
+     */
+    public ScheduledTask schedule(String taskType, String taskKey, Map<String, Object> payload, Duration delay) {
+        long dueAtMillis = System.currentTimeMillis() + delay.toMillis();
+        ScheduledTask task = scheduledTaskRepository.save(
+            new ScheduledTask(taskType, taskKey, payload, toDateTime(dueAtMillis)));
+        scheduled.incrementAndGet();
+        TransactionHooks.runAfterCommit(() -> arm(task.getId(), dueAtMillis));
+        log.debug("Scheduled {} task {} for {} in {}", taskType, task.getId(), taskKey, delay);
+        return task;
+    }
+
+    /**
+     * Cancel the pending tasks of a type for a subject. A task that is already running
+     * is not interrupted.
+     *
+     * @return Number of tasks canceled
+     */
+    public int cancel(String taskType, String taskKey) {
+        List<UUID> ids = scheduledTaskRepository.findOpenIds(taskType, taskKey);
+        int canceled = scheduledTaskRepository.deletePending(taskType, taskKey);
+        TransactionHooks.runAfterCommit(() -> ids.forEach(wheel::cancel));
+        return canceled;
+    }
+
+    /**
+     * Load the tasks that were pending before the restart
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void recover() {
+        int loaded = loadDueTasks();
+        recovered.addAndGet(loaded);
+        log.info("Durable timers started: {} pending tasks loaded", loaded);
+    }
+
+    /**
+     * Pick up tasks that came into the horizon, were scheduled on another node, or were
+     * abandoned by a node that went down while running them
+     */
+    @Scheduled(fixedDelayString = "${timer.scan-interval-seconds:60}",
+               initialDelayString = "${timer.scan-interval-seconds:60}", timeUnit = TimeUnit.SECONDS)
+    public void scan() {
+        int loaded = loadDueTasks();
+        if (loaded > 0) {
+            log.debug("Timer scan loaded {} tasks", loaded);
+        }
+    }
+
+    private int loadDueTasks() {
+        LocalDateTime now = LocalDateTime.now();
+        // A little past the next scan, so nothing becomes due between two scans unseen
+        LocalDateTime horizon = now.plusMinutes(horizonMinutes).plusSeconds(scanIntervalSeconds);
+        int loaded = 0;
+        for (Object[] row : scheduledTaskRepository.findDueBefore(horizon, now, PageRequest.of(0, scanBatchSize))) {
+            UUID id = (UUID) row[0];
+            if (!wheel.contains(id)) {
+                arm(id, toEpochMillis((LocalDateTime) row[1]));
+                loaded++;
+            }
+        }
+        return loaded;
+    }
+
+    private void arm(UUID taskId, long dueAtMillis) {
+        if (!wheel.schedule(taskId, dueAtMillis)) {
+            dispatch(taskId);
+        }
+    }
+
+    private void tick() {
+        try {
+            for (UUID taskId : wheel.advance(System.currentTimeMillis())) {
+                dispatch(taskId);
+            }
+        } catch (RuntimeException e) {
+            // An exception would cancel the fixed-rate ticks for good
+            log.error("Timer tick failed", e);
+        }
+    }
+
+    private void dispatch(UUID taskId) {
+        try {
+            executor.execute(() -> run(taskId));
+        } catch (RejectedExecutionException e) {
+            // Workers are backed up; the task stays in the table, try again shortly
+            log.warn("Timer workers are busy, delaying task {}", taskId);
+            wheel.schedule(taskId, System.currentTimeMillis() + tickMillis);
+        }
+    }
+
+    void run(UUID taskId) {
+        LocalDateTime now = LocalDateTime.now();
+        if (scheduledTaskRepository.claim(taskId, now, now.plusSeconds(leaseSeconds)) == 0) {
+            // Canceled, rescheduled, or taken by another node
+            lostClaims.incrementAndGet();
+            return;
+        }
+        ScheduledTask task = scheduledTaskRepository.findById(taskId).orElse(null);
+        if (task == null) {
+            return;
+        }
+        TaskHandler handler = handlers.get(task.getTaskType());
+        try {
+            if (handler == null) {
+                throw new IllegalStateException("No handler registered for task type " + task.getTaskType());
+            }
+            transactionTemplate.executeWithoutResult(status -> {
+                try {
+                    handler.handle(task);
+                } catch (RuntimeException e) {
+                    throw e;
+                } catch (Exception e) {
+                    throw new IllegalStateException(e.getMessage(), e);
+                }
+                scheduledTaskRepository.deleteById(taskId);
+            });
+            completed.incrementAndGet();
+        } catch (RuntimeException e) {
+            retryOrFail(task, e);
+        }
+    }
+
+    private void retryOrFail(ScheduledTask task, Exception error) {
+        String message = truncate(error.getMessage());
+        if (task.getAttempts() >= maxAttempts) {
+            failed.incrementAndGet();
+            scheduledTaskRepository.markFailed(task.getId(), message);
+            log.error("{} task {} failed after {} attempts", task.getTaskType(), task.getId(), task.getAttempts(), error);
+            return;
+        }
+        long backoffMillis = TimeUnit.SECONDS.toMillis(retryBackoffSeconds) << Math.min(task.getAttempts() - 1, 10);
+        long dueAtMillis = System.currentTimeMillis() + backoffMillis;
+        retried.incrementAndGet();
+        scheduledTaskRepository.reschedule(task.getId(), toDateTime(dueAtMillis), message);
+        arm(task.getId(), dueAtMillis);
+        log.warn("{} task {} failed (attempt {}), retrying in {} ms: {}",
+            task.getTaskType(), task.getId(), task.getAttempts(), backoffMillis, message);
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("inWheel", wheel.size());
+        stats.put("wheelLevels", wheel.levels());
+        stats.put("queued", executor.getQueue().size());
+        stats.put("running", executor.getActiveCount());
+        stats.put("scheduled", scheduled.get());
+        stats.put("recovered", recovered.get());
+        stats.put("completed", completed.get());
+        stats.put("retried", retried.get());
+        stats.put("failed", failed.get());
+        stats.put("lostClaims", lostClaims.get());
+        return stats;
+    }
+
+    private static String truncate(String message) {
+        if (message == null || message.length() <= MAX_ERROR_LENGTH) {
+            return message;
+        }
+        return message.substring(0, MAX_ERROR_LENGTH);
+    }
+
+    private static LocalDateTime toDateTime(long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault());
+    }
+
+    private static long toEpochMillis(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    /**
+     * Runs the tasks of one type
+     */
+    @FunctionalInterface
+    public interface TaskHandler {
+        void handle(ScheduledTask task) throws Exception;
+    }
+}
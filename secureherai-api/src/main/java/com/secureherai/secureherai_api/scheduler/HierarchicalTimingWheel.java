@@ -0,0 +1,222 @@
+package com.secureherai.secureherai_api.scheduler;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hierarchical timing wheel holding the due times of pending timers.
+ *
+ * Level 0 has {@code wheelSize} slots of {@code tickMillis} each; every further level
+ * has slots as wide as the whole level below it, and levels are added as needed, so
+ * one hour with 1 s ticks and 64 slots takes two levels. Scheduling and canceling are
+ * O(1); advancing costs one slot per elapsed tick plus moving each timer down at most
+ * once per level. When a level's slot comes up, its timers are re-filed into the
+ * finer levels below until they land in the level 0 slot they fire from.
+ *
+ * Timers in the level 0 slot that has come up wait in a short list that every advance
+ * checks, so a timer fires on the first advance at or after its due time, never
+ * before. Keys are unique: scheduling a key again replaces its previous due time.
+ * Thread safe.
+ *
+ * @param <K> Timer key
+ */
+public class HierarchicalTimingWheel<K> {
+
+    private final long tickMillis;
+    private final int wheelSize;
+    private final Map<K, Timer<K>> timers = new HashMap<>();
+    private final List<Level<K>> levels = new ArrayList<>();
+    // Timers in the level 0 slot that has come up, not yet due
+    private final List<Timer<K>> current = new ArrayList<>();
+    private long now;
+
+    /**
+     * @param tickMillis Width of a level 0 slot, the resolution of the wheel
+     * @param wheelSize Slots per level
+     * @param startMillis Current time
+     */
+    public HierarchicalTimingWheel(long tickMillis, int wheelSize, long startMillis) {
+        if (tickMillis <= 0 || wheelSize < 2) {
+            throw new IllegalArgumentException("Tick must be positive and a level needs at least 2 slots");
+        }
+        this.tickMillis = tickMillis;
+        this.wheelSize = wheelSize;
+        this.now = startMillis;
+        levels.add(new Level<>(tickMillis, wheelSize, startMillis - Math.floorMod(startMillis, tickMillis)));
+    }
+
+    /**
+     * Schedule a timer, replacing any earlier one with the same key
+     *
+     * @return false if the timer is already due; it is then not held and the caller runs it
+     */
+    public synchronized boolean schedule(K key, long dueAtMillis) {
+        cancel(key);
+        Timer<K> timer = new Timer<>(key, dueAtMillis);
+        if (!file(timer)) {
+            return false;
+        }
+        timers.put(key, timer);
+        return true;
+    }
+
+    /**
+     * @return true if the timer was pending
+     */
+    public synchronized boolean cancel(K key) {
+        Timer<K> timer = timers.remove(key);
+        if (timer == null) {
+            return false;
+        }
+        timer.canceled = true;
+        return true;
+    }
+
+    public synchronized boolean contains(K key) {
+        return timers.containsKey(key);
+    }
+
+    public synchronized int size() {
+        return timers.size();
+    }
+
+    public synchronized int levels() {
+        return levels.size();
+    }
+
+    /**
+     * Move the wheel to the given time
+     *
+     * @return Keys of the timers that became due, in due time order per tick
+     */
+    public synchronized List<K> advance(long nowMillis) {
+        List<K> due = new ArrayList<>();
+        now = Math.max(now, nowMillis);
+        long target = now - Math.floorMod(now, tickMillis);
+        Level<K> first = levels.get(0);
+
+        if (timers.isEmpty()) {
+            // Nothing to fire or re-file: jump straight to the target
+            current.clear();
+            for (Level<K> level : levels) {
+                level.currentTime = Math.max(level.currentTime, target - Math.floorMod(target, level.tickMillis));
+            }
+            return due;
+        }
+
+        while (first.currentTime + tickMillis <= target) {
+            // What waited in the slot that is now behind us is due
+            List<Timer<K>> passed = new ArrayList<>(current);
+            current.clear();
+            refile(passed, due);
+
+            long time = first.currentTime + tickMillis;
+            // Every level's clock moves before anything is re-filed, so no timer goes back
+            // into a slot that has already come up
+            int crossed = 0;
+            for (Level<K> level : levels) {
+                long levelTime = time - Math.floorMod(time, level.tickMillis);
+                if (levelTime == level.currentTime) {
+                    break;
+                }
+                level.currentTime = levelTime;
+                crossed++;
+            }
+            // Coarser levels first: what they re-file may land in the finer slot that comes up now
+            for (int i = crossed - 1; i >= 0; i--) {
+                List<Timer<K>> slot = levels.get(i).take(levels.get(i).currentTime);
+                if (slot != null) {
+                    refile(slot, due);
+                }
+            }
+        }
+
+        List<Timer<K>> waiting = new ArrayList<>(current);
+        current.clear();
+        refile(waiting, due);
+        return due;
+    }
+
+    private void refile(List<Timer<K>> slot, List<K> due) {
+        slot.sort((a, b) -> Long.compare(a.dueAtMillis, b.dueAtMillis));
+        for (Timer<K> timer : slot) {
+            if (!timer.canceled && !file(timer)) {
+                timers.remove(timer.key);
+                due.add(timer.key);
+            }
+        }
+    }
+
+    /**
+     * Put a timer in the finest level that covers its due time
+     *
+     * @return false if it is due
+     */
+    private boolean file(Timer<K> timer) {
+        if (timer.dueAtMillis <= now) {
+            return false;
+        }
+        Level<K> first = levels.get(0);
+        if (timer.dueAtMillis < first.currentTime + tickMillis) {
+            current.add(timer);
+            return true;
+        }
+        for (int i = 0; ; i++) {
+            if (i == levels.size()) {
+                Level<K> top = levels.get(i - 1);
+                long span = top.tickMillis * wheelSize;
+                levels.add(new Level<>(span, wheelSize, top.currentTime - Math.floorMod(top.currentTime, span)));
+            }
+            Level<K> level = levels.get(i);
+            if (timer.dueAtMillis < level.currentTime + level.tickMillis * wheelSize) {
+                level.add(timer);
+                return true;
+            }
+        }
+    }
+
+    private static class Level<K> {
+        private final long tickMillis;
+        private final List<Timer<K>>[] slots;
+        private long currentTime;
+
+        @SuppressWarnings("unchecked")
+        Level(long tickMillis, int wheelSize, long currentTime) {
+            this.tickMillis = tickMillis;
+            this.slots = new List[wheelSize];
+            this.currentTime = currentTime;
+        }
+
+        void add(Timer<K> timer) {
+            int index = slotIndex(timer.dueAtMillis);
+            if (slots[index] == null) {
+                slots[index] = new ArrayList<>();
+            }
+            slots[index].add(timer);
+        }
+
+        List<Timer<K>> take(long time) {
+            int index = slotIndex(time);
+            List<Timer<K>> slot = slots[index];
+            slots[index] = null;
+            return slot;
+        }
+
+        private int slotIndex(long time) {
+            return (int) Math.floorMod(Math.floorDiv(time, tickMillis), (long) slots.length);
+        }
+    }
+
+    private static class Timer<K> {
+        private final K key;
+        private final long dueAtMillis;
+        private boolean canceled;
+
+        Timer(K key, long dueAtMillis) {
+            this.key = key;
+            this.dueAtMillis = dueAtMillis;
+        }
+    }
+}
@@ -0,0 +1,330 @@
+package com.secureherai.secureherai_api.service;
+
+import com.secureherai.secureherai_api.util.AudioBufferPool;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Content-addressed storage for SOS audio recordings.
+ *
+ * An upload is written exactly once, into the staging directory, and hashed (SHA-256)
+ * while it streams in. Promoting it into the store hardlinks (or atomically moves) the
+ * staged file to {@code <blob-directory>/ab/cd/<sha256><ext>}, so nothing is copied
+ * twice, no directory grows flat, and identical re-uploads share a single blob.
+ *
+ * Short uploads are staged in a pooled in-memory buffer instead (see
+ * {@link AudioBufferPool}); they only reach disk if they are promoted, which happens
+ * once a keyword was detected.
+ */
+@Service
+@Slf4j
+public class AudioBlobStore {
+
+    private static final String DEFAULT_EXTENSION = ".wav";
+
+    @Value("${sos.audio.blob-directory:data/sos}")
+    private String blobDirectory = "data/sos";
+
+    @Value("${sos.audio.staging-directory:data/temp}")
+    private String stagingDirectory = "data/temp";
+
+    @Autowired(required = false)
+    private AudioBufferPool audioBufferPool;
+
+    private final AtomicLong blobsStored = new AtomicLong();
+    private final AtomicLong duplicatesSkipped = new AtomicLong();
+    private final AtomicLong bytesStaged = new AtomicLong();
+    private final AtomicLong stagedInMemory = new AtomicLong();
+
+    /**
+     * Write an upload to the staging directory, hashing it on the way
+     */
+    public StagedAudio stage(MultipartFile upload) throws IOException {
+        if (audioBufferPool != null && upload.getSize() <= audioBufferPool.getMaxBytes()) {
+            StagedAudio inMemory = stageInMemory(upload);
+            if (inMemory != null) {
+                return inMemory;
+            }
+        }
+        try (InputStream inputStream = upload.getInputStream()) {
+            return stage(inputStream, upload.getOriginalFilename());
+        }
+    }
+
+    /**
+     * Read a short upload into a pooled buffer, hashing it on the way
+     *
+     * @return The staged upload, or null if no buffer was available
+     */
+    private StagedAudio stageInMemory(MultipartFile upload) throws IOException {
+        MessageDigest digest = newDigest();
+        AudioBufferPool.PooledBuffer buffer;
+        try (InputStream inputStream = upload.getInputStream()) {
+            buffer = audioBufferPool.read(inputStream, upload.getSize(), digest);
+        }
+        if (buffer == null) {
+            return null;
+        }
+
+        stagedInMemory.incrementAndGet();
+        bytesStaged.addAndGet(buffer.size());
+        String sha256 = HexFormat.of().formatHex(digest.digest());
+        String extension = getFileExtension(upload.getOriginalFilename());
+        log.debug("Staged audio in memory ({} bytes, sha256 {})", buffer.size(), sha256);
+        return new StagedAudio(buffer, "temp_sos_" + UUID.randomUUID() + extension, sha256, buffer.size(), extension);
+    }
+
+    /**
+     * Write a stream to the staging directory, hashing it on the way
+     */
+    public StagedAudio stage(InputStream inputStream, String originalFileName) throws IOException {
+        Path stagingDir = Paths.get(stagingDirectory);
+        Files.createDirectories(stagingDir);
+
+        String extension = getFileExtension(originalFileName);
+        Path stagedPath = stagingDir.resolve("temp_sos_" + UUID.randomUUID() + extension);
+
+        MessageDigest digest = newDigest();
+        long size;
+        try (DigestInputStream digestStream = new DigestInputStream(inputStream, digest)) {
+            size = Files.copy(digestStream, stagedPath);
+        } catch (IOException e) {
+            Files.deleteIfExists(stagedPath);
+            throw e;
+        }
+        bytesStaged.addAndGet(size);
+
+        String sha256 = HexFormat.of().formatHex(digest.digest());
+        log.debug("Staged audio {} ({} bytes, sha256 {})", stagedPath, size, sha256);
+        return new StagedAudio(stagedPath.toFile(), sha256, size, extension);
+    }
+
+    /**
+     * Make sure a staged upload is on disk, so it outlives a restart. An upload held in
+     * memory is written to the staging directory as well; its buffer stays valid.
+     *
+     * @return The staged file
+     */
+    public File persist(StagedAudio staged) throws IOException {
+        if (!staged.isInMemory()) {
+            return staged.getFile();
+        }
+        Path stagingDir = Paths.get(stagingDirectory);
+        Files.createDirectories(stagingDir);
+        Path stagedPath = stagingDir.resolve(staged.getFileName());
+        writeIntoPlace(staged.getData(), stagedPath);
+        return stagedPath.toFile();
+    }
+
+    /**
+     * Promote a staged upload into the store without copying it.
+     * The staged file stays valid until the caller cleans it up.
+     *
+     * @return The relative URL of the stored blob
+     */
+    public String promote(StagedAudio staged) throws IOException {
+        Path blobPath = blobPath(staged.getSha256(), staged.getExtension());
+        String blobUrl = toUrl(blobPath);
+
+        if (Files.exists(blobPath)) {
+            duplicatesSkipped.incrementAndGet();
+            log.info("SOS audio {} already stored, reusing {}", staged.getSha256(), blobUrl);
+            return blobUrl;
+        }
+
+        Files.createDirectories(blobPath.getParent());
+        if (staged.isInMemory()) {
+            writeIntoPlace(staged.getData(), blobPath);
+            blobsStored.incrementAndGet();
+            log.info("Stored SOS audio blob: {}", blobPath.toAbsolutePath());
+            return blobUrl;
+        }
+        try {
+            Files.createLink(blobPath, staged.getFile().toPath());
+        } catch (FileAlreadyExistsException e) {
+            // An identical upload was promoted concurrently
+            duplicatesSkipped.incrementAndGet();
+            return blobUrl;
+        } catch (UnsupportedOperationException | IOException e) {
+            // No hardlinks here (different file store or file system), fall back to a move
+            log.debug("Hardlink failed for {}, moving instead: {}", blobPath, e.getMessage());
+            moveIntoPlace(staged.getFile().toPath(), blobPath);
+        }
+
+        blobsStored.incrementAndGet();
+        log.info("Stored SOS audio blob: {}", blobPath.toAbsolutePath());
+        return blobUrl;
+    }
+
+    public Map<String, Object> getStats() {
+        return Map.of(
+            "blobsStored", blobsStored.get(),
+            "duplicatesSkipped", duplicatesSkipped.get(),
+            "bytesStaged", bytesStaged.get(),
+            "stagedInMemory", stagedInMemory.get()
+        );
+    }
+
+    Path blobPath(String sha256, String extension) {
+        return Paths.get(blobDirectory)
+            .resolve(sha256.substring(0, 2))
+            .resolve(sha256.substring(2, 4))
+            .resolve(sha256 + extension);
+    }
+
+    private void moveIntoPlace(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            // Staging and store are on different file systems: copy beside the target, then rename
+            Path partial = target.resolveSibling(target.getFileName() + ".partial-" + UUID.randomUUID());
+            try {
+                Files.copy(source, partial);
+                Files.move(partial, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } finally {
+                Files.deleteIfExists(partial);
+            }
+        }
+    }
+
+    private void writeIntoPlace(ByteBuffer content, Path target) throws IOException {
+        // Write beside the target, then rename, so readers never see a partial blob
+        Path partial = target.resolveSibling(target.getFileName() + ".partial-" + UUID.randomUUID());
+        try {
+            try (FileChannel channel = FileChannel.open(partial, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+                while (content.hasRemaining()) {
+                    channel.write(content);
+                }
+            }
+            Files.move(partial, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(partial);
+        }
+    }
+
+    private String toUrl(Path blobPath) {
+        return blobPath.toString().replace(File.separatorChar, '/');
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static String getFileExtension(String fileName) {
+        if (fileName == null || fileName.isEmpty()) {
+            return DEFAULT_EXTENSION;
+        }
+
+        int lastDotIndex = fileName.lastIndexOf('.');
+        if (lastDotIndex > 0 && lastDotIndex < fileName.length() - 1) {
+            String extension = fileName.substring(lastDotIndex).toLowerCase();
+            // The extension ends up in a path, so only accept plain ones
+            if (extension.matches("\\.[a-z0-9]{1,10}")) {
+                return extension;
+            }
+        }
+
+        return DEFAULT_EXTENSION;
+    }
+
+    /**
+     * An upload written once to the staging directory, or held in a pooled buffer,
+     * with its content hash
+     */
+    public static class StagedAudio {
+        private final File file;
+        private final AudioBufferPool.PooledBuffer buffer;
+        private final String fileName;
+        private final String sha256;
+        private final long size;
+        private final String extension;
+
+        public StagedAudio(File file, String sha256, long size, String extension) {
+            this(file, null, file.getName(), sha256, size, extension);
+        }
+
+        public StagedAudio(AudioBufferPool.PooledBuffer buffer, String fileName, String sha256, long size, String extension) {
+            this(null, buffer, fileName, sha256, size, extension);
+        }
+
+        private StagedAudio(File file, AudioBufferPool.PooledBuffer buffer, String fileName, String sha256,
+                            long size, String extension) {
+            this.file = file;
+            this.buffer = buffer;
+            this.fileName = fileName;
+            this.sha256 = sha256;
+            this.size = size;
+            this.extension = extension;
+        }
+
+        /**
+         * The staged file, or null if the upload is held in memory
+         */
+        public File getFile() {
+            return file;
+        }
+
+        public boolean isInMemory() {
+            return buffer != null;
+        }
+
+        /**
+         * A read-only view of an in-memory upload
+         */
+        public ByteBuffer getData() {
+            return buffer.view();
+        }
+
+        public String getFileName() {
+            return fileName;
+        }
+
+        /**
+         * Return an in-memory upload's buffer to the pool; staged files are deleted separately
+         */
+        public void releaseBuffer() {
+            if (buffer != null) {
+                buffer.close();
+            }
+        }
+
+        public String getSha256() {
+            return sha256;
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+    }
+}
@@ -23,6 +23,7 @@ import com.secureherai.secureherai_api.repository.ReportEvidenceRepository;
 import com.secureherai.secureherai_api.repository.ResponderRepository;
 import com.secureherai.secureherai_api.repository.SettingsRepository;
 import com.secureherai.secureherai_api.repository.TrustedContactRepository;
+import com.secureherai.secureherai_api.repository.UnreadNotificationCounterRepository;
 import com.secureherai.secureherai_api.repository.UserRepository;
 
 @Service
@@ -42,6 +43,9 @@ public class AuthService {    @Autowired
     @Autowired
     private NotificationRepository notificationRepository;
     
+    @Autowired
+    private UnreadNotificationCounterRepository unreadNotificationCounterRepository;
+    
     @Autowired
     private IncidentReportRepository incidentReportRepository;
     
@@ -484,6 +488,7 @@ public class AuthService {    @Autowired
             
             // 1. Delete notifications (they reference both user and alerts)
             notificationRepository.deleteByUserId(user.getId());
+            unreadNotificationCounterRepository.deleteByUserId(user.getId());
             
             // 2. Delete report evidence (they reference incident reports)
             // First get all user's incident reports to delete their evidence
@@ -1,20 +1,40 @@
 package com.secureherai.secureherai_api.service;
 
-import com.microsoft.cognitiveservices.speech.*;
-import com.microsoft.cognitiveservices.speech.audio.AudioConfig;
+import com.secureherai.secureherai_api.exception.DeadlineExceededException;
+import com.secureherai.secureherai_api.exception.SpeechEngineUnavailableException;
+import com.secureherai.secureherai_api.service.speech.SpeechRecognitionEngine;
+import com.secureherai.secureherai_api.service.speech.StreamingRecognition;
+import com.secureherai.secureherai_api.util.AudioDownloader;
 import com.secureherai.secureherai_api.util.AudioFormatConverter;
+import com.secureherai.secureherai_api.util.Deadline;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.tika.Tika;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 
 /**
  * Azure Speech-to-Text service implementation
@@ -34,7 +54,60 @@ public class AzureSpeechService {
     @Autowired
     private AudioFormatConverter audioConverter;
 
-    private final Tika tika = new Tika();
+    @Autowired
+    private AudioDownloader audioDownloader;
+
+    @Autowired
+    private SpeechPreFilter speechPreFilter;
+
+    @Autowired
+    private SpeechRecognitionEngine speechRecognitionEngine;
+
+    @Autowired(required = false)
+    private TranscriptionCache transcriptionCache;
+
+    @Value("${speech.engine.type:azure}")
+    private String engineType;
+
+    @Value("${speech.early-exit.enabled:true}")
+    private boolean earlyExitEnabled;
+
+    // Consecutive intermediate hypotheses a keyword must survive before it is trusted
+    @Value("${speech.early-exit.partial-confirmations:2}")
+    private int partialConfirmations;
+
+    @Value("${speech.early-exit.timeout-seconds:60}")
+    private long earlyExitTimeoutSeconds;
+
+    @Value("${speech.early-exit.finisher-workers:4}")
+    private int finisherWorkers;
+
+    private static final int PCM_SAMPLE_RATE = 16000;
+    // 100 ms of 16 kHz, 16-bit mono PCM
+    private static final int PUSH_FRAME_BYTES = 3200;
+    private static final String TEMP_DIRECTORY = "data/temp";
+
+    // Drains continuous recognition after the keyword decision has been handed back
+    private ThreadPoolExecutor transcriptFinisher;
+
+    @PostConstruct
+    void init() {
+        AtomicInteger counter = new AtomicInteger();
+        // A full queue drains on the caller, which then just waits for the whole transcript
+        transcriptFinisher = new ThreadPoolExecutor(finisherWorkers, finisherWorkers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(finisherWorkers * 16), runnable -> {
+                    Thread thread = new Thread(runnable, "speech-finisher-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (transcriptFinisher != null) {
+            transcriptFinisher.shutdownNow();
+        }
+    }
 
     /**
      * Transcribes audio file to text using Azure Speech-to-Text service
@@ -48,6 +121,18 @@ public class AzureSpeechService {
      */
     public SpeechTranscriptionResult transcribeAudioFile(File audioFile)
             throws IOException, InterruptedException, ExecutionException, Exception {
+        return transcribeAudioFile(audioFile, null);
+    }
+
+    /**
+     * Transcribes an audio file whose content hash is already known, e.g. a staged upload
+     *
+     * @param audioFile The audio file to transcribe
+     * @param contentHash SHA-256 of the file's content (hex), or null to compute it here
+     * @return Transcription result containing recognized text and confidence
+     * @throws Exception If conversion or transcription fails
+     */
+    public SpeechTranscriptionResult transcribeAudioFile(File audioFile, String contentHash) throws Exception {
 
         log.info("Starting transcription for file: {} ({})", audioFile.getName(), 
                  formatFileSize(audioFile.length()));
@@ -68,39 +153,174 @@ public class AzureSpeechService {
             );
         }
 
+        // A repeat of the same recording skips conversion and recognition
+        String cacheKey = transcriptionCache == null ? null
+            : contentHash != null ? contentHash : TranscriptionCache.contentHash(audioFile);
+        return cached(cacheKey, null, () -> convertAndRecognize(audioFile));
+    }
+
+    private SpeechTranscriptionResult convertAndRecognize(File audioFile) throws Exception {
         File wavFile = null;
+        File trimmedFile = null;
         try {
             // Convert audio to WAV format if needed
             wavFile = audioConverter.convertToWav(audioFile);
             log.info("Audio converted to WAV format: {}", wavFile.getName());
 
+            // Skip Azure for clips without speech and trim surrounding silence
+            SpeechPreFilter.PreFilterResult preFilter = speechPreFilter.filter(wavFile);
+            if (!preFilter.isSpeechDetected()) {
+                return new SpeechTranscriptionResult(false, "", 0.0, "No speech detected in audio");
+            }
+            if (preFilter.isTrimmed()) {
+                trimmedFile = preFilter.getAudioFile();
+            }
+
             // Perform Azure Speech recognition on the WAV file
-            return performSpeechRecognition(wavFile, audioFile.getName());
+            return performSpeechRecognition(preFilter.getAudioFile(), audioFile.getName());
 
         } catch (Exception e) {
             log.error("Error during transcription of file {}: {}", audioFile.getName(), e.getMessage(), e);
             throw e;
         } finally {
-            // Clean up temporary WAV file if it was created
+            // Clean up temporary WAV files if they were created
             if (wavFile != null && !wavFile.equals(audioFile)) {
                 audioConverter.cleanupTempFile(wavFile);
             }
+            if (trimmedFile != null) {
+                audioConverter.cleanupTempFile(trimmedFile);
+            }
+        }
+    }
+
+    /**
+     * Transcribes audio held in memory without writing it to disk: the upload is
+     * converted to PCM in memory and pushed to the recognizer through a stream.
+     * Formats that can only be converted from a file are spilled to a temporary file
+     * and take the regular file path.
+     *
+     * @param audio The uploaded audio from position to limit; the buffer's position is not changed
+     * @param fileName Original file name, used for format detection and logging
+     * @return Transcription result containing recognized text and confidence
+     * @throws Exception If conversion or transcription fails
+     */
+    public SpeechTranscriptionResult transcribeAudio(ByteBuffer audio, String fileName) throws Exception {
+        return transcribeAudio(audio, fileName, null);
+    }
+
+    /**
+     * In-memory transcription of audio whose content hash is already known, see
+     * {@link #transcribeAudio(ByteBuffer, String)}
+     *
+     * @param contentHash SHA-256 of the audio (hex), or null to compute it here
+     */
+    public SpeechTranscriptionResult transcribeAudio(ByteBuffer audio, String fileName, String contentHash)
+            throws Exception {
+        log.info("Starting in-memory transcription for: {} ({})", fileName, formatFileSize(audio.remaining()));
+
+        // Validate Azure Speech configuration
+        validateAzureConfiguration();
+
+        if (!audio.hasRemaining()) {
+            throw new IllegalArgumentException("Audio is empty: " + fileName);
+        }
+        if (!audioConverter.isSupportedByExtension(fileName)) {
+            throw new UnsupportedOperationException(
+                "Unsupported audio format. Supported formats: " +
+                String.join(", ", audioConverter.getSupportedFormats())
+            );
+        }
+
+        String cacheKey = transcriptionCache == null ? null
+            : contentHash != null ? contentHash : TranscriptionCache.contentHash(audio);
+        return cached(cacheKey, null, () -> {
+            ByteBuffer pcm = audioConverter.convertToPcm(audio, fileName);
+            if (pcm == null) {
+                return transcribeSpilled(audio, fileName);
+            }
+            return recognizePcm(pcm, fileName, null);
+        });
+    }
+
+    /**
+     * Pre-filters 16 kHz mono PCM and streams what is left to the recognizer
+     */
+    private SpeechTranscriptionResult recognizePcm(ByteBuffer pcm, String clipName, String languageCode)
+            throws Exception {
+        return recognizePcm(pcm, clipName, languageCode, Deadline.none());
+    }
+
+    private SpeechTranscriptionResult recognizePcm(ByteBuffer pcm, String clipName, String languageCode,
+                                                   Deadline deadline) throws Exception {
+        // Skip Azure for clips without speech and trim surrounding silence
+        SpeechPreFilter.PreFilterResult preFilter = speechPreFilter.filter(pcm, PCM_SAMPLE_RATE, clipName);
+        if (!preFilter.isSpeechDetected()) {
+            return new SpeechTranscriptionResult(false, "", 0.0, "No speech detected in audio");
+        }
+
+        try {
+            SpeechTranscriptionResult transcriptionResult =
+                speechRecognitionEngine.recognizePcm(preFilter.getAudioData(), clipName, languageCode, deadline);
+            log.info("Transcription completed for in-memory audio: {}", clipName);
+            return transcriptionResult;
+        } catch (SpeechEngineUnavailableException e) {
+            log.warn("Speech recognition unavailable for {}: {}", clipName, e.getMessage());
+            return SpeechTranscriptionResult.unavailable(e.getMessage());
+        }
+    }
+
+    /**
+     * Disk fallback for in-memory audio that only the file-based converter can read
+     */
+    private SpeechTranscriptionResult transcribeSpilled(ByteBuffer audio, String fileName) throws Exception {
+        log.info("Converting {} from a temporary file", fileName);
+        Path tempDir = Paths.get(TEMP_DIRECTORY);
+        Files.createDirectories(tempDir);
+        // The extension was validated above and tells the converter what it is reading
+        Path spilled = tempDir.resolve("spill_" + System.nanoTime() + fileName.substring(fileName.lastIndexOf('.')));
+        try {
+            try (FileChannel channel = FileChannel.open(spilled, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+                ByteBuffer content = audio.duplicate();
+                while (content.hasRemaining()) {
+                    channel.write(content);
+                }
+            }
+            return transcribeAudioFile(spilled.toFile());
+        } finally {
+            Files.deleteIfExists(spilled);
         }
     }
 
     /**
      * Transcribes audio from a URL using Azure Speech-to-Text service
-     * Supports multiple audio formats through automatic conversion
+     * Supports multiple audio formats through automatic conversion; the audio is
+     * streamed from the URL into the converter without being written to disk
      *
      * @param audioUrl The URL of the audio file to transcribe
      * @param languageCode Optional language code (e.g., "en-US")
      * @return Transcription result containing recognized text and confidence
      * @throws InterruptedException If transcription is interrupted
      * @throws ExecutionException If transcription fails
-     * @throws IOException If file operations fail
+     * @throws IOException If the download fails or exceeds its size or time limit
      */
     public SpeechTranscriptionResult transcribeAudioFromUrl(String audioUrl, String languageCode) 
             throws InterruptedException, ExecutionException, IOException, Exception {
+        return transcribeAudioFromUrl(audioUrl, languageCode, Deadline.none());
+    }
+
+    /**
+     * Transcribes audio from a URL within the request's deadline. The download,
+     * conversion and recognition each wait no longer than the time left.
+     *
+     * @param audioUrl The URL of the audio file to transcribe
+     * @param languageCode Optional language code (e.g., "en-US")
+     * @param deadline The request's deadline
+     * @return Transcription result containing recognized text and confidence
+     * @throws DeadlineExceededException If the audio could not be transcribed in time
+     * @throws IOException If the download fails or exceeds its size or time limit
+     */
+    public SpeechTranscriptionResult transcribeAudioFromUrl(String audioUrl, String languageCode, Deadline deadline)
+            throws Exception {
         
         log.info("Starting transcription for audio URL: {}", audioUrl);
         
@@ -112,82 +332,251 @@ public class AzureSpeechService {
             throw new IllegalArgumentException("Audio URL cannot be empty");
         }
         
-        File tempFile = null;
-        File wavFile = null;
+        AudioDownloader.Download download = awaitDownload(audioDownloader.open(audioUrl, deadline), deadline);
+
+        // Detection and conversion read the body while it is still downloading; the content
+        // hash is only known once it has arrived, so a cache hit saves the recognition
+        ByteBuffer pcm;
+        MessageDigest digest = TranscriptionCache.newDigest();
+        try (download) {
+            log.info("Downloading audio {} ({}, {})", download.getFileName(), download.getContentType(),
+                     download.getContentLength() < 0 ? "unknown size" : formatFileSize(download.getContentLength()));
+            pcm = audioConverter.convertToPcm(new DigestInputStream(download.getBody(), digest),
+                                              download.getFileName(), deadline);
+        } catch (IOException e) {
+            // A download or ffmpeg timeout shortened by the deadline means the budget ran out
+            if (deadline.isExpired()) {
+                throw new DeadlineExceededException("Audio was not converted within the request deadline", e);
+            }
+            throw e;
+        }
+        String contentHash = HexFormat.of().formatHex(digest.digest());
+        return cached(contentHash, languageCode, () -> recognizePcm(pcm, "URL: " + audioUrl, languageCode, deadline));
+    }
+
+    private static AudioDownloader.Download awaitDownload(CompletableFuture<AudioDownloader.Download> opening,
+                                                          Deadline deadline) throws Exception {
         try {
-            // Download the audio file from URL to a temporary file
-            tempFile = downloadAudioFromUrl(audioUrl);
-            log.debug("Downloaded audio from URL to temporary file: {}", tempFile.getAbsolutePath());
-            
-            // Detect audio format
-            String detectedFormat = tika.detect(tempFile);
-            log.info("Detected audio format from URL: {}", detectedFormat);
-            
-            // Convert to WAV if needed
-            wavFile = audioConverter.convertUrlAudioToWav(tempFile, detectedFormat);
-            
-            // Perform Azure Speech recognition on the WAV file
-            return performSpeechRecognition(wavFile, "URL: " + audioUrl, languageCode);
-            
-        } finally {
-            // Clean up temporary files
-            if (tempFile != null && tempFile.exists()) {
-                // Keep for debugging as in original code
-                log.info("Temporary file kept for debugging: {}", tempFile.getAbsolutePath());
+            return deadline.isBounded()
+                ? opening.get(deadline.remainingMillis(), TimeUnit.MILLISECONDS)
+                : opening.get();
+        } catch (TimeoutException e) {
+            // Close the download if the response still arrives
+            opening.thenAccept(AudioDownloader.Download::close);
+            throw new DeadlineExceededException("Audio download did not start within the request deadline", e);
+        } catch (ExecutionException e) {
+            if (deadline.isExpired()) {
+                throw new DeadlineExceededException("Audio download did not start within the request deadline", e.getCause());
             }
-            
-            if (wavFile != null && !wavFile.equals(tempFile)) {
-                audioConverter.cleanupTempFile(wavFile);
+            throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+        }
+    }
+
+    /**
+     * Whether uploaded clips can be transcribed with early exit on a keyword
+     */
+    public boolean isEarlyExitEnabled() {
+        return earlyExitEnabled && transcriptFinisher != null && !"local".equalsIgnoreCase(engineType);
+    }
+
+    /**
+     * Transcribes an uploaded clip with continuous recognition, checking every
+     * intermediate hypothesis for a keyword. The returned transcription reports the
+     * keyword as soon as it is confirmed, while the rest of the clip is still being
+     * recognized in the background for the full transcript.
+     *
+     * @param audioFile The audio file to transcribe
+     * @param keywordMatcher Tells whether a hypothesis contains an SOS keyword
+     * @return The running transcription
+     * @throws Exception If validation or conversion fails
+     */
+    public EarlyExitTranscription transcribeUntilKeyword(File audioFile, Predicate<String> keywordMatcher)
+            throws Exception {
+        return transcribeUntilKeyword(audioFile, null, keywordMatcher);
+    }
+
+    /**
+     * Early-exit transcription of a file whose content hash is already known, see
+     * {@link #transcribeUntilKeyword(File, Predicate)}
+     *
+     * @param contentHash SHA-256 of the file's content (hex), or null to compute it here
+     */
+    public EarlyExitTranscription transcribeUntilKeyword(File audioFile, String contentHash,
+                                                         Predicate<String> keywordMatcher) throws Exception {
+        log.info("Starting early-exit transcription for file: {} ({})", audioFile.getName(),
+                 formatFileSize(audioFile.length()));
+
+        validateAzureConfiguration();
+        if (!audioFile.exists() || audioFile.length() == 0) {
+            throw new IllegalArgumentException("Audio file does not exist or is empty: " + audioFile.getName());
+        }
+        if (!audioConverter.isSupportedByExtension(audioFile.getName())) {
+            throw new UnsupportedOperationException(
+                "Unsupported audio format. Supported formats: " +
+                String.join(", ", audioConverter.getSupportedFormats())
+            );
+        }
+
+        String cacheKey = transcriptionCache == null ? null
+            : contentHash != null ? contentHash : TranscriptionCache.contentHash(audioFile);
+        SpeechTranscriptionResult cachedResult = peekCache(cacheKey);
+        if (cachedResult != null) {
+            return EarlyExitTranscription.finished(cachedResult, keywordMatcher);
+        }
+
+        ByteBuffer pcm;
+        try (InputStream in = Files.newInputStream(audioFile.toPath())) {
+            pcm = audioConverter.convertToPcm(in, audioFile.getName());
+        }
+        return recognizeUntilKeyword(pcm, audioFile.getName(), cacheKey, keywordMatcher);
+    }
+
+    /**
+     * Early-exit transcription of a clip held in memory, see {@link #transcribeUntilKeyword(File, Predicate)}
+     *
+     * @param audio The uploaded audio from position to limit; not needed once this returns
+     * @param fileName Original file name, used for format detection and logging
+     * @param keywordMatcher Tells whether a hypothesis contains an SOS keyword
+     * @return The running transcription
+     * @throws Exception If validation or conversion fails
+     */
+    public EarlyExitTranscription transcribeUntilKeyword(ByteBuffer audio, String fileName,
+                                                         Predicate<String> keywordMatcher) throws Exception {
+        return transcribeUntilKeyword(audio, fileName, null, keywordMatcher);
+    }
+
+    /**
+     * Early-exit transcription of in-memory audio whose content hash is already known, see
+     * {@link #transcribeUntilKeyword(ByteBuffer, String, Predicate)}
+     *
+     * @param contentHash SHA-256 of the audio (hex), or null to compute it here
+     */
+    public EarlyExitTranscription transcribeUntilKeyword(ByteBuffer audio, String fileName, String contentHash,
+                                                         Predicate<String> keywordMatcher) throws Exception {
+        log.info("Starting early-exit transcription for: {} ({})", fileName, formatFileSize(audio.remaining()));
+
+        validateAzureConfiguration();
+        if (!audio.hasRemaining()) {
+            throw new IllegalArgumentException("Audio is empty: " + fileName);
+        }
+        if (!audioConverter.isSupportedByExtension(fileName)) {
+            throw new UnsupportedOperationException(
+                "Unsupported audio format. Supported formats: " +
+                String.join(", ", audioConverter.getSupportedFormats())
+            );
+        }
+
+        String cacheKey = transcriptionCache == null ? null
+            : contentHash != null ? contentHash : TranscriptionCache.contentHash(audio);
+        SpeechTranscriptionResult cachedResult = peekCache(cacheKey);
+        if (cachedResult != null) {
+            return EarlyExitTranscription.finished(cachedResult, keywordMatcher);
+        }
+
+        ByteBuffer pcm = audioConverter.convertToPcm(audio, fileName);
+        if (pcm == null) {
+            return EarlyExitTranscription.finished(
+                cached(cacheKey, null, () -> transcribeSpilled(audio, fileName)), keywordMatcher);
+        }
+        return recognizeUntilKeyword(pcm, fileName, cacheKey, keywordMatcher);
+    }
+
+    /**
+     * Pre-filters the PCM and pushes all of it to a continuous recognizer. Pushing only
+     * copies into the recognizer's buffer, so this returns while Azure is still working
+     * through the clip and the PCM can be released; draining the session for the full
+     * transcript is left to the finisher pool.
+     */
+    private EarlyExitTranscription recognizeUntilKeyword(ByteBuffer pcm, String clipName, String contentHash,
+                                                         Predicate<String> keywordMatcher) throws Exception {
+        SpeechPreFilter.PreFilterResult preFilter = speechPreFilter.filter(pcm, PCM_SAMPLE_RATE, clipName);
+        if (!preFilter.isSpeechDetected()) {
+            return EarlyExitTranscription.finished(
+                new SpeechTranscriptionResult(false, "", 0.0, "No speech detected in audio"), keywordMatcher);
+        }
+
+        EarlyExitTranscription transcription = new EarlyExitTranscription(keywordMatcher, partialConfirmations);
+        StreamingRecognition recognition;
+        try {
+            recognition = startStreamingRecognition(null, transcription::onPartial, transcription::onFinal,
+                                                    transcription::onError);
+        } catch (SpeechEngineUnavailableException e) {
+            // The engine already failed over between regions and counted the failure against its circuit
+            log.warn("Speech recognition unavailable for {}: {}", clipName, e.getMessage());
+            return EarlyExitTranscription.finished(SpeechTranscriptionResult.unavailable(e.getMessage()), keywordMatcher);
+        }
+
+        ByteBuffer samples = preFilter.getAudioData().duplicate();
+        while (samples.hasRemaining()) {
+            byte[] frame = new byte[Math.min(PUSH_FRAME_BYTES, samples.remaining())];
+            samples.get(frame);
+            recognition.write(frame);
+        }
+
+        transcriptFinisher.execute(() -> {
+            boolean stoppedCleanly = false;
+            try {
+                stoppedCleanly = recognition.finish(earlyExitTimeoutSeconds);
+            } finally {
+                transcription.onStopped(stoppedCleanly);
             }
+        });
+        // Only a transcript of the whole clip is a success, so a truncated one is never cached
+        if (transcriptionCache != null) {
+            transcription.getTranscript().thenAccept(result -> transcriptionCache.put(contentHash, null, result));
         }
+        return transcription;
+    }
+
+    private SpeechTranscriptionResult peekCache(String contentHash) {
+        return transcriptionCache != null ? transcriptionCache.peek(contentHash, null) : null;
+    }
+
+    private SpeechTranscriptionResult cached(String contentHash, String languageCode,
+                                             TranscriptionCache.Transcription transcription) throws Exception {
+        if (transcriptionCache == null) {
+            return transcription.run();
+        }
+        return transcriptionCache.get(contentHash, languageCode, transcription);
     }
     
     /**
-     * Downloads audio from a URL to a temporary file
+     * Starts continuous recognition over a push stream so audio can be transcribed
+     * while the user is still speaking. Frames written to the returned handle must be
+     * 16 kHz, 16-bit, mono PCM. The session goes through the speech engine, so it
+     * takes a concurrency permit until it is finished and counts towards the circuit
+     * breaker of the region it runs in.
      *
-     * @param audioUrl The URL of the audio file
-     * @return The temporary file
-     * @throws IOException If download fails
+     * @param languageCode Optional language code (e.g., "en-US")
+     * @param onPartial Receives every intermediate hypothesis
+     * @param onFinal Receives each finalized phrase
+     * @param onError Receives error details if recognition is canceled with an error
+     * @return Handle used to push audio and finish the stream
+     * @throws SpeechEngineUnavailableException If no engine could start the session in time
+     * @throws Exception If recognition fails to start
      */
-    private File downloadAudioFromUrl(String audioUrl) throws IOException {
-        java.net.URL url = new java.net.URL(audioUrl);
-        String fileName = url.getPath();
-        int lastSlashIndex = fileName.lastIndexOf('/');
-        if (lastSlashIndex >= 0) {
-            fileName = fileName.substring(lastSlashIndex + 1);
-        }
+    public StreamingRecognition startStreamingRecognition(String languageCode, Consumer<String> onPartial,
+            Consumer<String> onFinal, Consumer<String> onError) throws Exception {
         
-        // Create temp directory if it doesn't exist
-        Path tempDir = Path.of("data/received");
-        if (!Files.exists(tempDir)) {
-            Files.createDirectories(tempDir);
+        if ("local".equalsIgnoreCase(engineType)) {
+            throw new UnsupportedOperationException("Streaming recognition needs the Azure speech engine");
         }
-        
-        // Create temporary file
-        String tempFileName = String.format("url_audio_%d_%s", 
-            System.currentTimeMillis(), 
-            fileName.isEmpty() ? "audio.unknown" : fileName
-        );
-        File tempFile = tempDir.resolve(tempFileName).toFile();
-        
-        // Download the file
-        try (java.io.InputStream in = url.openStream();
-             java.io.FileOutputStream out = new java.io.FileOutputStream(tempFile)) {
-            
-            byte[] buffer = new byte[8192];
-            int bytesRead;
-            while ((bytesRead = in.read(buffer)) != -1) {
-                out.write(buffer, 0, bytesRead);
-            }
+        validateAzureConfiguration();
+        if (!speechRecognitionEngine.isAvailable()) {
+            throw new SpeechEngineUnavailableException("Speech recognition is temporarily unavailable");
         }
         
-        return tempFile;
+        return speechRecognitionEngine.startStreaming(languageCode, onPartial, onFinal, onError, Deadline.none());
     }
-
+    
     /**
      * Validates Azure Speech service configuration
      */
     private void validateAzureConfiguration() {
+        if ("local".equalsIgnoreCase(engineType)) {
+            return;
+        }
+
         if (speechKey == null || speechKey.trim().isEmpty()) {
             throw new IllegalStateException("Azure Speech key is not configured. Please set AZURE_SPEECH_KEY environment variable.");
         }
@@ -198,63 +587,27 @@ public class AzureSpeechService {
     }
 
     /**
-     * Performs Azure Speech recognition on a WAV file
+     * Performs speech recognition on a WAV file
      */
     private SpeechTranscriptionResult performSpeechRecognition(File wavFile, String originalFileName) 
-            throws InterruptedException, ExecutionException {
+            throws Exception {
         return performSpeechRecognition(wavFile, originalFileName, null);
     }
 
     /**
-     * Performs Azure Speech recognition on a WAV file with specified language
+     * Performs speech recognition on a WAV file with specified language.
+     * An unavailable engine yields an unsuccessful result flagged as such instead of an error,
+     * so callers can point the user at the text SOS command right away.
      */
     private SpeechTranscriptionResult performSpeechRecognition(File wavFile, String originalFileName, String languageCode) 
-            throws InterruptedException, ExecutionException {
-        
-        SpeechConfig speechConfig = null;
-        AudioConfig audioConfig = null;
-        SpeechRecognizer speechRecognizer = null;
-
+            throws Exception {
         try {
-            // Configure Azure Speech service
-            speechConfig = SpeechConfig.fromSubscription(speechKey, speechRegion);
-            
-            // Set language if provided, otherwise default to en-US
-            if (languageCode != null && !languageCode.trim().isEmpty()) {
-                speechConfig.setSpeechRecognitionLanguage(languageCode);
-            } else {
-                speechConfig.setSpeechRecognitionLanguage("en-US");
-            }
-
-            // Configure audio input from file
-            audioConfig = AudioConfig.fromWavFileInput(wavFile.getAbsolutePath());
-
-            // Create speech recognizer
-            speechRecognizer = new SpeechRecognizer(speechConfig, audioConfig);
-
-            log.debug("Configured Azure Speech recognizer for file: {}", originalFileName);
-
-            // Perform recognition
-            Future<SpeechRecognitionResult> task = speechRecognizer.recognizeOnceAsync();
-            SpeechRecognitionResult result = task.get();
-
-            // Process recognition result
-            SpeechTranscriptionResult transcriptionResult = processRecognitionResult(result, originalFileName);
-
+            SpeechTranscriptionResult transcriptionResult = speechRecognitionEngine.recognize(wavFile, languageCode);
             log.info("Transcription completed for file: {}", originalFileName);
             return transcriptionResult;
-
-        } finally {
-            // Clean up resources
-            if (speechRecognizer != null) {
-                speechRecognizer.close();
-            }
-            if (audioConfig != null) {
-                audioConfig.close();
-            }
-            if (speechConfig != null) {
-                speechConfig.close();
-            }
+        } catch (SpeechEngineUnavailableException e) {
+            log.warn("Speech recognition unavailable for {}: {}", originalFileName, e.getMessage());
+            return SpeechTranscriptionResult.unavailable(e.getMessage());
         }
     }
 
@@ -272,65 +625,17 @@ public class AzureSpeechService {
     }
 
     /**
-     * Processes the Azure Speech recognition result
-     *
-     * @param result Azure Speech recognition result
-     * @param fileName Original file name for logging
-     * @return Processed transcription result
+     * Speech engine health: circuit state, concurrency, hedging and timeout counters
      */
-    private SpeechTranscriptionResult processRecognitionResult(SpeechRecognitionResult result, String fileName) {
-        SpeechTranscriptionResult transcriptionResult = new SpeechTranscriptionResult();
-
-        switch (result.getReason()) {
-            case RecognizedSpeech:
-                log.info("Speech recognized successfully for file: {}", fileName);
-                transcriptionResult.setSuccess(true);
-                transcriptionResult.setText(result.getText());
-                transcriptionResult.setConfidence(1.0); // Azure doesn't provide confidence in basic recognition
-                transcriptionResult.setMessage("Speech recognized successfully");
-                break;
-
-            case NoMatch:
-                log.warn("No speech could be recognized for file: {}", fileName);
-                transcriptionResult.setSuccess(false);
-                transcriptionResult.setText("");
-                transcriptionResult.setConfidence(0.0);
-                transcriptionResult.setMessage("No speech could be recognized in the audio file");
-                break;
-
-            case Canceled:
-                CancellationDetails cancellation = CancellationDetails.fromResult(result);
-                log.error("Recognition was canceled for file: {}. Reason: {}", fileName, cancellation.getReason());
-
-                transcriptionResult.setSuccess(false);
-                transcriptionResult.setText("");
-                transcriptionResult.setConfidence(0.0);
-
-                if (cancellation.getReason() == CancellationReason.Error) {
-                    String errorMessage = String.format("Recognition failed with error: %s - %s",
-                            cancellation.getErrorCode(), cancellation.getErrorDetails());
-                    transcriptionResult.setMessage(errorMessage);
-                    log.error("Error details for file {}: {}", fileName, errorMessage);
-                } else {
-                    transcriptionResult.setMessage("Recognition was canceled: " + cancellation.getReason());
-                }
-                break;
-
-            default:
-                log.warn("Unexpected recognition result for file: {}", fileName);
-                transcriptionResult.setSuccess(false);
-                transcriptionResult.setText("");
-                transcriptionResult.setConfidence(0.0);
-                transcriptionResult.setMessage("Unexpected recognition result");
-                break;
-        }
-
-        // Log the result for debugging
-        if (!transcriptionResult.isSuccess()) {
-            log.warn("Azure Speech Service failed for {}: {}", fileName, transcriptionResult.getMessage());
-        }
+    public java.util.Map<String, Object> getEngineStats() {
+        return speechRecognitionEngine.getStats();
+    }
 
-        return transcriptionResult;
+    /**
+     * Transcription cache hits, misses, coalesced duplicates and evictions
+     */
+    public java.util.Map<String, Object> getCacheStats() {
+        return transcriptionCache != null ? transcriptionCache.getStats() : java.util.Map.of("enabled", false);
     }
 
     /**
@@ -360,6 +665,7 @@ public class AzureSpeechService {
         private String text;
         private double confidence;
         private String message;
+        private boolean engineUnavailable;
 
         // Constructors
         public SpeechTranscriptionResult() {}
@@ -371,6 +677,15 @@ public class AzureSpeechService {
             this.message = message;
         }
 
+        /**
+         * Result for audio that could not be transcribed because no speech engine was available
+         */
+        public static SpeechTranscriptionResult unavailable(String message) {
+            SpeechTranscriptionResult result = new SpeechTranscriptionResult(false, "", 0.0, message);
+            result.setEngineUnavailable(true);
+            return result;
+        }
+
         // Getters and setters
         public boolean isSuccess() {
             return success;
@@ -403,5 +718,13 @@ public class AzureSpeechService {
         public void setMessage(String message) {
             this.message = message;
         }
+
+        public boolean isEngineUnavailable() {
+            return engineUnavailable;
+        }
+
+        public void setEngineUnavailable(boolean engineUnavailable) {
+            this.engineUnavailable = engineUnavailable;
+        }
     }
 }
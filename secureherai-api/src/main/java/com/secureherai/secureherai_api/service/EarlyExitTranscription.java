@@ -0,0 +1,160 @@
+package com.secureherai.secureherai_api.service;
+
+import com.secureherai.secureherai_api.service.AzureSpeechService.SpeechTranscriptionResult;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Predicate;
+
+/**
+ * Keyword spotting over continuous recognition of an uploaded clip.
+ *
+ * Every intermediate hypothesis and finalized phrase is run through the keyword
+ * matcher. A keyword in a finalized phrase is confirmed at once; a keyword in the
+ * intermediate hypotheses is confirmed once it survives the configured number of
+ * consecutive hypotheses, since Azure often revises the last word of a partial.
+ * The keyword result completes as soon as a keyword is confirmed (or with null once
+ * recognition ends without one), while the full transcript keeps accumulating and
+ * completes when recognition has drained the whole clip.
+ */
+@Slf4j
+public class EarlyExitTranscription {
+
+    private final Predicate<String> keywordMatcher;
+    private final int partialConfirmations;
+    private final CompletableFuture<String> keyword = new CompletableFuture<>();
+    private final CompletableFuture<SpeechTranscriptionResult> transcript = new CompletableFuture<>();
+    private final StringBuilder phrases = new StringBuilder();
+    private int matchingPartials;
+    private volatile String error;
+
+    EarlyExitTranscription(Predicate<String> keywordMatcher, int partialConfirmations) {
+        this.keywordMatcher = keywordMatcher;
+        this.partialConfirmations = Math.max(1, partialConfirmations);
+    }
+
+    /**
+     * A transcription that is already complete, e.g. from the cache or a whole-clip recognition
+     */
+    static EarlyExitTranscription finished(SpeechTranscriptionResult result, Predicate<String> keywordMatcher) {
+        EarlyExitTranscription transcription = new EarlyExitTranscription(keywordMatcher, 1);
+        if (result.isSuccess() && transcription.matches(result.getText())) {
+            transcription.keyword.complete(result.getText());
+        } else {
+            transcription.keyword.complete(null);
+        }
+        transcription.transcript.complete(result);
+        return transcription;
+    }
+
+    /**
+     * Intermediate hypothesis for the phrase being spoken
+     */
+    synchronized void onPartial(String hypothesis) {
+        if (keyword.isDone()) {
+            return;
+        }
+        if (!matches(hypothesis)) {
+            matchingPartials = 0;
+            return;
+        }
+        if (++matchingPartials >= partialConfirmations) {
+            log.debug("Keyword confirmed in {} consecutive hypotheses", matchingPartials);
+            keyword.complete(hypothesis);
+        }
+    }
+
+    /**
+     * Finalized phrase; phrases make up the full transcript
+     */
+    synchronized void onFinal(String phrase) {
+        if (phrase == null || phrase.isBlank()) {
+            return;
+        }
+        if (phrases.length() > 0) {
+            phrases.append(' ');
+        }
+        phrases.append(phrase);
+        matchingPartials = 0;
+        if (!keyword.isDone() && matches(phrase)) {
+            keyword.complete(phrase);
+        }
+    }
+
+    /**
+     * Recognition was canceled with an error
+     */
+    void onError(String details) {
+        log.warn("Continuous recognition failed: {}", details);
+        error = details;
+    }
+
+    /**
+     * Recognition has ended; completes the transcript and, if no keyword was heard,
+     * the keyword result with null. The transcript is only a success when recognition
+     * drained the whole clip: phrases from a session that was canceled with an error
+     * or cut off by the drain timeout are a truncated transcript.
+     *
+     * @param stoppedCleanly Whether the session stopped on its own without an error
+     */
+    synchronized void onStopped(boolean stoppedCleanly) {
+        String text = phrases.toString();
+        SpeechTranscriptionResult result;
+        if (!stoppedCleanly) {
+            result = SpeechTranscriptionResult.unavailable(error != null
+                ? "Recognition failed: " + error
+                : "Recognition did not finish in time");
+        } else if (!text.isEmpty()) {
+            result = new SpeechTranscriptionResult(true, text, 1.0, "Speech recognized successfully");
+        } else {
+            result = new SpeechTranscriptionResult(false, "", 0.0, "No speech could be recognized in the audio file");
+        }
+        keyword.complete(null);
+        transcript.complete(result);
+    }
+
+    /**
+     * Wait until a keyword is confirmed or recognition ends
+     *
+     * @return The hypothesis or phrase the keyword was confirmed in, or null if recognition
+     *         ended (or the timeout passed) without one
+     */
+    public String awaitKeyword(long timeout, TimeUnit unit) throws InterruptedException {
+        try {
+            return keyword.get(timeout, unit);
+        } catch (ExecutionException | TimeoutException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Wait for the full transcript
+     *
+     * @return The transcript, or an unavailable result if recognition did not finish in time
+     */
+    public SpeechTranscriptionResult awaitTranscript(long timeout, TimeUnit unit) throws InterruptedException {
+        try {
+            return transcript.get(timeout, unit);
+        } catch (ExecutionException | TimeoutException e) {
+            return SpeechTranscriptionResult.unavailable("Recognition did not finish in time");
+        }
+    }
+
+    /**
+     * The full transcript, completed once recognition has drained the clip
+     */
+    public CompletableFuture<SpeechTranscriptionResult> getTranscript() {
+        return transcript;
+    }
+
+    public boolean isKeywordConfirmed() {
+        return keyword.isDone() && keyword.getNow(null) != null;
+    }
+
+    private boolean matches(String text) {
+        return text != null && !text.isBlank() && keywordMatcher.test(text);
+    }
+}
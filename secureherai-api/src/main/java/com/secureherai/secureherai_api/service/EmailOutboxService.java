@@ -0,0 +1,346 @@
+package com.secureherai.secureherai_api.service;
+
+import com.secureherai.secureherai_api.entity.EmailOutbox;
+import com.secureherai.secureherai_api.repository.EmailOutboxRepository;
+import com.secureherai.secureherai_api.util.EmailTemplates;
+import com.secureherai.secureherai_api.util.SmtpConnectionPool;
+import com.secureherai.secureherai_api.util.TransactionHooks;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.Message;
+import jakarta.mail.MessagingException;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.MimeMessage;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Transactional outbox for e-mail.
+ *
+ * {@link #enqueue} only writes a row to {@code email_outbox} in the caller's
+ * transaction, so an SOS request no longer waits for SMTP, and an e-mail exists exactly
+ * when the alert it is about was committed. Once that transaction commits, and every
+ * {@code email.outbox.poll-interval-seconds} after that, up to {@code email.outbox.workers}
+ * threads drain the table: each claims a batch of due rows with one conditional update,
+ * sends the whole batch over one SMTP connection borrowed from a
+ * {@link SmtpConnectionPool}, and marks the sent rows in one update.
+ *
+ * A claim is a lease: if the node dies mid-batch, the rows are claimed again once
+ * {@code email.outbox.lease-seconds} have passed, so e-mails are sent at least once.
+ * Failed sends are retried with exponential backoff up to {@code email.outbox.max-attempts};
+ * addresses the server rejects outright fail at once. The same e-mail to the same
+ * recipient is queued once: {@link #enqueue} skips a reference and recipient pair that
+ * is already in the table, and a drain sends rows with the same key once.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class EmailOutboxService {
+
+    private static final int MAX_ERROR_LENGTH = 1000;
+    private static final int MAX_CLAIM_TRIES = 3;
+
+    private final EmailOutboxRepository emailOutboxRepository;
+    private final JavaMailSender mailSender;
+
+    @Value("${spring.mail.username}")
+    private String fromEmail;
+
+    @Value("${email.outbox.workers:2}")
+    private int workers;
+
+    @Value("${email.outbox.batch-size:20}")
+    private int batchSize;
+
+    @Value("${email.outbox.lease-seconds:120}")
+    private long leaseSeconds;
+
+    @Value("${email.outbox.max-attempts:6}")
+    private int maxAttempts;
+
+    @Value("${email.outbox.retry-backoff-seconds:15}")
+    private long retryBackoffSeconds;
+
+    @Value("${email.outbox.max-backoff-seconds:1800}")
+    private long maxBackoffSeconds;
+
+    @Value("${email.outbox.connection-idle-seconds:60}")
+    private long connectionIdleSeconds;
+
+    @Value("${email.outbox.retention-hours:24}")
+    private long retentionHours;
+
+    private ThreadPoolExecutor executor;
+    private SmtpConnectionPool connectionPool;
+    private final AtomicInteger activeDrains = new AtomicInteger();
+
+    private final AtomicLong queued = new AtomicLong();
+    private final AtomicLong duplicates = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong retried = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    @PostConstruct
+    void init() {
+        AtomicInteger counter = new AtomicInteger();
+        executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(workers), runnable -> {
+                Thread thread = new Thread(runnable, "email-" + counter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }, new ThreadPoolExecutor.AbortPolicy());
+        if (mailSender instanceof JavaMailSenderImpl sender) {
+            connectionPool = new SmtpConnectionPool(sender.getSession(),
+                sender.getProtocol() != null ? sender.getProtocol() : "smtp",
+                sender.getHost(), sender.getPort(), sender.getUsername(), sender.getPassword(),
+                workers, TimeUnit.SECONDS.toMillis(connectionIdleSeconds));
+        } else {
+            log.warn("Mail sender is not a JavaMailSenderImpl, e-mails will be sent without connection reuse");
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        if (connectionPool != null) {
+            connectionPool.close();
+        }
+        // Unsent rows stay in the table for the next start or another node
+    }
+
+    /**
+     * Queue an e-mail in the caller's transaction; it is sent after the transaction commits
+     *
+     * @param recipient Address to send to
+     * @param subject Subject line
+     * @param htmlBody Rendered HTML body
+     * @param reference What the e-mail is about (e.g. "alert:" + alert ID); the same
+     *                  reference is sent to a recipient once. Null to skip the check.
+     * @return false if the same e-mail was already queued for the recipient
+     */
+    @Transactional
+    public boolean enqueue(String recipient, String subject, String htmlBody, String reference) {
+        String address = recipient.trim();
+        String dedupKey = reference != null ? reference + "|" + address.toLowerCase(Locale.ROOT) : null;
+        if (dedupKey != null && emailOutboxRepository.existsByDedupKey(dedupKey)) {
+            duplicates.incrementAndGet();
+            log.debug("E-mail {} to {} is already queued", reference, address);
+            return false;
+        }
+        emailOutboxRepository.save(new EmailOutbox(address, subject, htmlBody, dedupKey, LocalDateTime.now()));
+        queued.incrementAndGet();
+        TransactionHooks.runAfterCommit(this::wakeUp);
+        return true;
+    }
+
+    /**
+     * Pick up e-mails queued on other nodes, retries that have come due, and rows
+     * abandoned by a node that went down
+     */
+    @Scheduled(fixedDelayString = "${email.outbox.poll-interval-seconds:5}", timeUnit = TimeUnit.SECONDS)
+    public void poll() {
+        wakeUp();
+        if (connectionPool != null) {
+            connectionPool.closeIdle();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${email.outbox.purge-interval-minutes:60}", timeUnit = TimeUnit.MINUTES)
+    public void purgeSent() {
+        int purged = emailOutboxRepository.deleteSentBefore(LocalDateTime.now().minusHours(retentionHours));
+        if (purged > 0) {
+            log.debug("Purged {} sent e-mails from the outbox", purged);
+        }
+    }
+
+    /**
+     * Start another drain unless all workers are already draining
+     */
+    void wakeUp() {
+        int running;
+        do {
+            running = activeDrains.get();
+            if (running >= workers) {
+                return;
+            }
+        } while (!activeDrains.compareAndSet(running, running + 1));
+        try {
+            executor.execute(this::drain);
+        } catch (RejectedExecutionException e) {
+            activeDrains.decrementAndGet();
+        }
+    }
+
+    void drain() {
+        try {
+            List<EmailOutbox> batch;
+            while (!(batch = claimBatch()).isEmpty()) {
+                if (batch.size() >= batchSize) {
+                    // More may be waiting: bring in another worker
+                    wakeUp();
+                }
+                send(batch);
+            }
+        } catch (RuntimeException e) {
+            log.error("E-mail outbox drain failed", e);
+        } finally {
+            activeDrains.decrementAndGet();
+        }
+    }
+
+    private List<EmailOutbox> claimBatch() {
+        for (int attempt = 0; attempt < MAX_CLAIM_TRIES; attempt++) {
+            LocalDateTime now = LocalDateTime.now();
+            List<UUID> ids = emailOutboxRepository.findReadyIds(now, PageRequest.of(0, batchSize));
+            if (ids.isEmpty()) {
+                return List.of();
+            }
+            UUID claimToken = UUID.randomUUID();
+            if (emailOutboxRepository.claim(ids, claimToken, now, now.plusSeconds(leaseSeconds)) > 0) {
+                return emailOutboxRepository.findByClaimToken(claimToken);
+            }
+            // Another node claimed all of them first; look again
+        }
+        return List.of();
+    }
+
+    /**
+     * Send a claimed batch over one connection
+     */
+    void send(List<EmailOutbox> batch) {
+        batches.incrementAndGet();
+        // Rows with the same key are the same e-mail: send it once and mark all of them
+        Map<String, List<EmailOutbox>> byKey = new LinkedHashMap<>();
+        for (EmailOutbox email : batch) {
+            String key = email.getDedupKey() != null ? email.getDedupKey() : email.getId().toString();
+            byKey.computeIfAbsent(key, k -> new ArrayList<>()).add(email);
+        }
+
+        List<UUID> sentIds = new ArrayList<>();
+        Transport transport = null;
+        try {
+            for (List<EmailOutbox> same : byKey.values()) {
+                EmailOutbox email = same.get(0);
+                try {
+                    if (connectionPool == null) {
+                        MimeMessage message = mailSender.createMimeMessage();
+                        fill(message, email);
+                        mailSender.send(message);
+                    } else {
+                        if (transport == null) {
+                            transport = connectionPool.borrow();
+                        }
+                        MimeMessage message = new MimeMessage(connectionPool.getSession());
+                        fill(message, email);
+                        message.saveChanges();
+                        transport.sendMessage(message, message.getAllRecipients());
+                    }
+                    same.forEach(row -> sentIds.add(row.getId()));
+                } catch (SendFailedException e) {
+                    // The server refused the recipient; the connection itself is fine
+                    retryOrFail(same, e, isPermanent(e));
+                } catch (MessagingException | RuntimeException e) {
+                    retryOrFail(same, e, false);
+                    if (transport != null) {
+                        connectionPool.release(transport, false);
+                        transport = null;
+                    }
+                }
+            }
+        } finally {
+            if (transport != null) {
+                connectionPool.release(transport, true);
+            }
+            if (!sentIds.isEmpty()) {
+                emailOutboxRepository.markSent(sentIds, LocalDateTime.now());
+                sent.addAndGet(sentIds.size());
+            }
+        }
+    }
+
+    private void fill(MimeMessage message, EmailOutbox email) throws MessagingException {
+        message.setFrom(fromEmail);
+        message.setRecipients(Message.RecipientType.TO, email.getRecipient());
+        message.setSubject(email.getSubject(), "UTF-8");
+        EmailTemplates.setHtmlContent(message, email.getHtmlBody().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static boolean isPermanent(SendFailedException e) {
+        return e.getInvalidAddresses() != null && e.getInvalidAddresses().length > 0
+            && (e.getValidSentAddresses() == null || e.getValidSentAddresses().length == 0);
+    }
+
+    private void retryOrFail(List<EmailOutbox> rows, Exception error, boolean permanent) {
+        String message = truncate(error.getMessage());
+        for (EmailOutbox row : rows) {
+            if (permanent || row.getAttempts() >= maxAttempts) {
+                failed.incrementAndGet();
+                emailOutboxRepository.markFailed(row.getId(), message);
+                log.error("E-mail {} to {} failed after {} attempts: {}", row.getId(), row.getRecipient(),
+                    row.getAttempts(), message);
+                continue;
+            }
+            long backoffSeconds = Math.min(maxBackoffSeconds, retryBackoffSeconds << Math.min(row.getAttempts() - 1, 20));
+            retried.incrementAndGet();
+            emailOutboxRepository.reschedule(row.getId(), LocalDateTime.now().plusSeconds(backoffSeconds), message);
+            log.warn("E-mail {} to {} failed (attempt {}), retrying in {} s: {}", row.getId(), row.getRecipient(),
+                row.getAttempts(), backoffSeconds, message);
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("pending", emailOutboxRepository.countByStatus(EmailOutbox.Status.PENDING));
+        stats.put("failedRows", emailOutboxRepository.countByStatus(EmailOutbox.Status.FAILED));
+        stats.put("activeDrains", activeDrains.get());
+        stats.put("queued", queued.get());
+        stats.put("duplicates", duplicates.get());
+        stats.put("batches", batches.get());
+        stats.put("sent", sent.get());
+        stats.put("retried", retried.get());
+        stats.put("failed", failed.get());
+        if (connectionPool != null) {
+            stats.put("connections", connectionPool.getStats());
+        }
+        return stats;
+    }
+
+    private static String truncate(String message) {
+        if (message == null || message.length() <= MAX_ERROR_LENGTH) {
+            return message;
+        }
+        return message.substring(0, MAX_ERROR_LENGTH);
+    }
+}
@@ -5,11 +5,17 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.mail.javamail.JavaMailSender;
-import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.stereotype.Service;
+import com.secureherai.secureherai_api.util.EmailTemplate;
+import com.secureherai.secureherai_api.util.EmailTemplates;
+import jakarta.mail.Message;
 import jakarta.mail.MessagingException;
 import jakarta.mail.internet.MimeMessage;
 
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
 @Service
 public class EmailService {
     private static final Logger logger = LoggerFactory.getLogger(EmailService.class);
@@ -25,88 +31,27 @@ public class EmailService {
     
     // Add mobile app scheme for deep linking
     private static final String APP_SCHEME = "secureheraiapp://";
+    
+    public static final String EMERGENCY_ALERT_SUBJECT = "🚨 EMERGENCY ALERT - Immediate Attention Required";
 
-    /**
-     * Creates a consistent email header with SecureHerAI branding
-     */
-    private String createEmailHeader(String title) {
-        StringBuilder header = new StringBuilder();
-        header.append("<!DOCTYPE html><html><body style='font-family: Arial, sans-serif; line-height: 1.6; margin: 0; padding: 0; background-color: #f4f4f4;'>");
-        header.append("<div style='max-width: 600px; margin: 20px auto; background-color: white; border-radius: 8px; box-shadow: 0 2px 10px rgba(0,0,0,0.1); overflow: hidden;'>");
-        
-        // Add header banner
-        header.append("<div style='background: linear-gradient(135deg, rgb(0, 110, 255) 0%, rgb(168, 85, 247) 100%); padding: 20px; text-align: center;'>");
-        header.append("<h1 style='color: white; margin: 0; font-size: 24px;'>🛡️ SecureHerAI</h1>");
-        header.append("</div>");
-        
-        // Content area
-        header.append("<div style='padding: 30px 20px;'>");
-        header.append("<h2 style='color: #4a4a4a; margin-top: 0;'>" + title + "</h2>");
-        
-        return header.toString();
-    }
+    // Bodies are compiled once per template and language; see src/main/resources/email-templates
+    private final EmailTemplates templates = new EmailTemplates("email-templates/");
 
-    /**
-     * Creates a consistent email footer
-     */
-    private String createEmailFooter() {
-        StringBuilder footer = new StringBuilder();
-        
-        // Add footer
-        footer.append("<hr style='margin: 30px 0; border: none; border-top: 1px solid #eee;'>");
-        footer.append("<div style='text-align: center; color: #666; font-size: 12px;'>");
-        footer.append("<p>© 2025 SecureHerAI. All rights reserved.</p>");
-        footer.append("<p>This email was sent from a no-reply address. Please do not reply to this email.</p>");
-        footer.append("</div>");
-        
-        footer.append("</div>"); // Close content div
-        footer.append("</div>"); // Close container div
-        footer.append("</body></html>");
-        
-        return footer.toString();
-    }
+    @Value("${email.templates.default-locale:en}")
+    private String defaultLocale;
 
     public void sendPasswordResetEmail(String toEmail, String resetToken) {
         try {
-            MimeMessage mimeMessage = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(mimeMessage, true, "UTF-8");
-            
-            helper.setFrom(fromEmail);
-            helper.setTo(toEmail);
-            helper.setSubject("SecureHerAI - Password Reset Request");
-            
             // Create reset link for web/app deep linking
             String resetLink = frontendUrl + "/reset-password?token=" + resetToken + "&email=" + toEmail;
             String appResetLink = APP_SCHEME + "reset-password?token=" + resetToken + "&email=" + toEmail;
             
-            StringBuilder emailBody = new StringBuilder();
-            emailBody.append(createEmailHeader("Password Reset Request"));
-            emailBody.append("<p>Dear User,</p>");
-            emailBody.append("<p>You have requested to reset your password for your <b>SecureHerAI</b> account.</p>");
-            
-            // Add reset button/link
-            emailBody.append("<div style='margin: 30px 0; text-align: center;'>");
-            emailBody.append("<a href='" + resetLink + "' style='background-color: rgb(0, 110, 255); color: white; padding: 12px 30px; text-decoration: none; border-radius: 5px; font-weight: bold; display: inline-block; margin-right: 10px;'>Reset on Web</a>");
-            emailBody.append("<a href='" + appResetLink + "' style='background-color: rgb(168, 85, 247); color: white; padding: 12px 30px; text-decoration: none; border-radius: 5px; font-weight: bold; display: inline-block;'>Open in App</a>");
-            emailBody.append("</div>");
+            Map<String, String> values = new HashMap<>();
+            values.put("resetLink", resetLink);
+            values.put("appResetLink", appResetLink);
+            values.put("resetToken", resetToken);
             
-            emailBody.append("<p>Or, if the button doesn't work, you can manually enter this reset code in the app:</p>");
-            emailBody.append("<p><b style='font-size: 18px; color: rgb(0, 110, 255); background-color: #f5f5f5; padding: 8px 12px; border-radius: 4px; display: inline-block; font-family: monospace;'>" + resetToken + "</b></p>");
-            
-            emailBody.append("<p><i>This reset link and code will expire in 1 hour for security reasons.</i></p>");
-            emailBody.append("<p>If you did not request this password reset, please ignore this email and consider changing your password as a precaution.</p>");
-            
-            // Add manual link for copy-paste
-            emailBody.append("<hr style='margin: 20px 0; border: none; border-top: 1px solid #eee;'>");
-            emailBody.append("<p style='font-size: 12px; color: #666;'>If the button above doesn't work, copy and paste this link into your browser:</p>");
-            emailBody.append("<p style='font-size: 12px; word-break: break-all; color: #007bff;'>" + resetLink + "</p>");
-            
-            emailBody.append("<p>Best regards,<br><b>SecureHerAI Team</b></p>");
-            emailBody.append(createEmailFooter());
-            
-            helper.setText(emailBody.toString(), true); // true indicates HTML content
-            
-            mailSender.send(mimeMessage);
+            send(toEmail, "SecureHerAI - Password Reset Request", template("password-reset").render(values));
         } catch (MessagingException e) {
             throw new RuntimeException("Failed to send password reset email: " + e.getMessage(), e);
         }
@@ -123,46 +68,11 @@ public class EmailService {
                 return;
             }
             
-            MimeMessage mimeMessage = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(mimeMessage, true, "UTF-8");
-            
-            helper.setFrom(fromEmail);
-            helper.setTo(toEmail);
-            helper.setSubject("Welcome to SecureHerAI!");
-            
-            String loginUrl = frontendUrl + "/login";
-            
-            StringBuilder emailBody = new StringBuilder();
-            emailBody.append(createEmailHeader("Welcome to SecureHerAI!"));
-            emailBody.append("<p>Dear ").append(fullName).append(",</p>");
-            emailBody.append("<p>Welcome to <b>SecureHerAI</b>! Your account has been successfully created.</p>");
-            
-            // Add login button
-            emailBody.append("<div style='margin: 30px 0; text-align: center;'>");
-            emailBody.append("<a href='" + loginUrl + "' style='background-color: rgb(34, 197, 94); color: white; padding: 12px 30px; text-decoration: none; border-radius: 5px; font-weight: bold; display: inline-block;'>Login Now</a>");
-            emailBody.append("</div>");
-            
-            emailBody.append("<p><b>Important:</b> Please log in to verify your account. Accounts that remain unverified for more than 7 days will be automatically deleted.</p>");
-            emailBody.append("<p>SecureHerAI is designed to keep you safe with advanced safety features including:</p>");
-            emailBody.append("<ul>");
-            emailBody.append("<li>🔄 Real-time location sharing with trusted contacts</li>");
-            emailBody.append("<li>🚨 Emergency SOS alerts</li>");
-            emailBody.append("<li>📍 Journey tracking and safety notifications</li>");
-            emailBody.append("<li>🤖 AI-powered risk assessment</li>");
-            emailBody.append("</ul>");
-            emailBody.append("<p>Get started by setting up your emergency contacts and notification preferences in the app.</p>");
-            
-            // Add manual link for copy-paste
-            emailBody.append("<hr style='margin: 20px 0; border: none; border-top: 1px solid #eee;'>");
-            emailBody.append("<p style='font-size: 12px; color: #666;'>If the button above doesn't work, copy and paste this link:</p>");
-            emailBody.append("<p style='font-size: 12px; word-break: break-all; color: #007bff;'>" + loginUrl + "</p>");
+            Map<String, String> values = new HashMap<>();
+            values.put("fullName", fullName);
+            values.put("loginUrl", frontendUrl + "/login");
             
-            emailBody.append("<p>Stay safe,<br><b>SecureHerAI Team</b></p>");
-            emailBody.append(createEmailFooter());
-            
-            helper.setText(emailBody.toString(), true); // true indicates HTML content
-            
-            mailSender.send(mimeMessage);
+            send(toEmail, "Welcome to SecureHerAI!", template("welcome").render(values));
         } catch (MessagingException e) {
             // Don't throw exception for welcome email failure, just log it
             System.err.println("Failed to send welcome email: " + e.getMessage());
@@ -171,46 +81,14 @@ public class EmailService {
 
     public void sendLoginCodeEmail(String toEmail, String fullName, String loginCode) {
         try {
-            MimeMessage mimeMessage = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(mimeMessage, true, "UTF-8");
-            
-            helper.setFrom(fromEmail);
-            helper.setTo(toEmail);
-            helper.setSubject("SecureHerAI - Login Verification Code");
-            
             // Create login verification link
-            String verifyUrl = frontendUrl + "/verify-login?code=" + loginCode + "&email=" + toEmail;
-            String appVerifyUrl = "secureheraiapp://verify-login?code=" + loginCode + "&email=" + toEmail;
-            
-            StringBuilder emailBody = new StringBuilder();
-            emailBody.append(createEmailHeader("Login Verification Code"));
-            emailBody.append("<p>Dear ").append(fullName).append(",</p>");
-            emailBody.append("<p>You are attempting to sign in to your <b>SecureHerAI</b> account.</p>");
-            
-            // Add verification button
-            emailBody.append("<div style='margin: 30px 0; text-align: center;'>");
-            emailBody.append("<a href='" + verifyUrl + "' style='background-color: rgb(0, 110, 255); color: white; padding: 12px 30px; text-decoration: none; border-radius: 5px; font-weight: bold; display: inline-block; margin-right: 10px;'>Verify on Web</a>");
-            emailBody.append("<a href='" + appVerifyUrl + "' style='background-color: rgb(168, 85, 247); color: white; padding: 12px 30px; text-decoration: none; border-radius: 5px; font-weight: bold; display: inline-block;'>Open in App</a>");
-            emailBody.append("</div>");
+            Map<String, String> values = new HashMap<>();
+            values.put("fullName", fullName);
+            values.put("loginCode", loginCode);
+            values.put("verifyUrl", frontendUrl + "/verify-login?code=" + loginCode + "&email=" + toEmail);
+            values.put("appVerifyUrl", APP_SCHEME + "verify-login?code=" + loginCode + "&email=" + toEmail);
             
-            emailBody.append("<p>Or manually enter this verification code in the app:</p>");
-            emailBody.append("<div style='text-align: center; margin: 20px 0;'>");
-            emailBody.append("<div style='font-size: 32px; font-weight: bold; color: rgb(0, 110, 255); background-color: #f8f9ff; padding: 20px; border-radius: 8px; border: 2px dashed rgb(0, 110, 255); display: inline-block; font-family: monospace; letter-spacing: 4px;'>" + loginCode + "</div>");
-            emailBody.append("</div>");
-            
-            emailBody.append("<p><i>⏰ This code will expire in 10 minutes for security reasons.</i></p>");
-            emailBody.append("<p><b>Security Notice:</b> If you did not attempt to sign in, please ignore this email and consider changing your password immediately.</p>");
-            
-            // Add manual link for copy-paste
-            emailBody.append("<hr style='margin: 20px 0; border: none; border-top: 1px solid #eee;'>");
-            emailBody.append("<p style='font-size: 12px; color: #666;'>If the button above doesn't work, copy and paste this link:</p>");
-            emailBody.append("<p style='font-size: 12px; word-break: break-all; color: #007bff;'>" + verifyUrl + "</p>");
-            
-            emailBody.append("<p>Best regards,<br><b>SecureHerAI Team</b></p>");
-            emailBody.append(createEmailFooter());
-            helper.setText(emailBody.toString(), true); // true indicates HTML content
-            
-            mailSender.send(mimeMessage);
+            send(toEmail, "SecureHerAI - Login Verification Code", template("login-code").render(values));
         } catch (MessagingException e) {
             throw new RuntimeException("Failed to send login code email: " + e.getMessage(), e);
         }
@@ -218,47 +96,12 @@ public class EmailService {
 
     public void sendWelcomeEmailForOAuth(String toEmail, String name, String provider) {
         try {
-            MimeMessage mimeMessage = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(mimeMessage, true, "UTF-8");
-            
-            helper.setFrom(fromEmail);
-            helper.setTo(toEmail);
-            helper.setSubject("Welcome to SecureHerAI!");
-            
-            String appUrl = frontendUrl + "/dashboard";
-            
-            StringBuilder emailBody = new StringBuilder();
-            emailBody.append(createEmailHeader("Welcome to SecureHerAI!"));
-            emailBody.append("<p>Dear " + name + ",</p>");
-            emailBody.append("<p>Thank you for signing up with <b>SecureHerAI</b> using your " + provider + " account! 🚀</p>");
-            emailBody.append("<p>Your account has been created successfully and you can now access all premium safety features.</p>");
-            
-            // Add get started button
-            emailBody.append("<div style='margin: 30px 0; text-align: center;'>");
-            emailBody.append("<a href='" + appUrl + "' style='background-color: rgb(168, 85, 247); color: white; padding: 12px 30px; text-decoration: none; border-radius: 5px; font-weight: bold; display: inline-block;'>Get Started</a>");
-            emailBody.append("</div>");
-            
-            emailBody.append("<p><b>What's Next?</b></p>");
-            emailBody.append("<ul>");
-            emailBody.append("<li>📱 Set up your emergency contacts</li>");
-            emailBody.append("<li>🌍 Configure your location preferences</li>");
-            emailBody.append("<li>🔔 Customize your notification settings</li>");
-            emailBody.append("<li>🛡️ Explore our safety features</li>");
-            emailBody.append("</ul>");
-            
-            emailBody.append("<p>We're committed to helping you stay safe and secure every step of the way.</p>");
-            
-            // Add manual link for copy-paste
-            emailBody.append("<hr style='margin: 20px 0; border: none; border-top: 1px solid #eee;'>");
-            emailBody.append("<p style='font-size: 12px; color: #666;'>If the button above doesn't work, copy and paste this link:</p>");
-            emailBody.append("<p style='font-size: 12px; word-break: break-all; color: #007bff;'>" + appUrl + "</p>");
-            
-            emailBody.append("<p>Best regards,<br><b>SecureHerAI Team</b></p>");
-            emailBody.append(createEmailFooter());
-            
-            helper.setText(emailBody.toString(), true);
-            mailSender.send(mimeMessage);
+            Map<String, String> values = new HashMap<>();
+            values.put("name", name);
+            values.put("provider", provider);
+            values.put("appUrl", frontendUrl + "/dashboard");
             
+            send(toEmail, "Welcome to SecureHerAI!", template("oauth-welcome").render(values));
         } catch (MessagingException e) {
             // Log error but don't fail the registration process
             System.err.println("Failed to send welcome email: " + e.getMessage());
@@ -267,46 +110,9 @@ public class EmailService {
 
     public void sendAccountDeletionConfirmation(String toEmail, String name) {
         try {
-            MimeMessage mimeMessage = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(mimeMessage, true, "UTF-8");
-            
-            helper.setFrom(fromEmail);
-            helper.setTo(toEmail);
-            helper.setSubject("SecureHerAI - Account Deletion Confirmation");
-            
-            StringBuilder emailBody = new StringBuilder();
-            emailBody.append(createEmailHeader("Account Successfully Deleted"));
-            emailBody.append("<p>Dear " + (name != null ? name : "User") + ",</p>");
-            emailBody.append("<p>Your <b>SecureHerAI</b> account has been successfully deleted as requested.</p>");
-            
-            // Add deletion confirmation details
-            emailBody.append("<div style='background-color: #f8f9fa; border-left: 4px solid #dc3545; padding: 15px; margin: 20px 0; border-radius: 4px;'>");
-            emailBody.append("<h3 style='color: #dc3545; margin-top: 0;'>⚠️ Account Deletion Summary</h3>");
-            emailBody.append("<ul style='margin: 10px 0;'>");
-            emailBody.append("<li>Your account and all associated data have been permanently removed</li>");
-            emailBody.append("<li>All emergency contacts and safety settings have been cleared</li>");
-            emailBody.append("<li>Location history and personal data have been deleted</li>");
-            emailBody.append("<li>This action cannot be undone</li>");
-            emailBody.append("</ul>");
-            emailBody.append("</div>");
-            
-            emailBody.append("<p><b>What happens next?</b></p>");
-            emailBody.append("<ul>");
-            emailBody.append("<li>🚫 You will no longer be able to access SecureHerAI services</li>");
-            emailBody.append("<li>📧 You will not receive any further communications from us</li>");
-            emailBody.append("<li>🔄 If you wish to use SecureHerAI again, you'll need to create a new account</li>");
-            emailBody.append("</ul>");
-            
-            emailBody.append("<p>We're sorry to see you go. If you have any feedback about your experience or would like to share why you decided to delete your account, we'd appreciate hearing from you.</p>");
-            
-            emailBody.append("<p>Thank you for trusting SecureHerAI with your safety and security.</p>");
-            
-            emailBody.append("<p>Best regards,<br><b>SecureHerAI Team</b></p>");
-            emailBody.append(createEmailFooter());
-            
-            helper.setText(emailBody.toString(), true);
-            mailSender.send(mimeMessage);
+            Map<String, String> values = Map.of("name", name != null ? name : "User");
             
+            send(toEmail, "SecureHerAI - Account Deletion Confirmation", template("account-deleted").render(values));
         } catch (MessagingException e) {
             // Log error but don't fail the deletion process
             System.err.println("Failed to send account deletion confirmation email: " + e.getMessage());
@@ -319,44 +125,8 @@ public class EmailService {
     public void sendEmergencyAlertEmail(String toEmail, String contactName, String userPhoneOrName, 
                                        String alertMessage, String location, String triggeredTime) {
         try {
-            MimeMessage mimeMessage = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(mimeMessage, true, "UTF-8");
-            
-            helper.setFrom(fromEmail);
-            helper.setTo(toEmail);
-            helper.setSubject("🚨 EMERGENCY ALERT - Immediate Attention Required");
-            
-            StringBuilder emailBody = new StringBuilder();
-            emailBody.append(createEmailHeader("🚨 EMERGENCY ALERT"));
-            
-            // Emergency alert styling - red background for urgency
-            emailBody.append("<div style='background-color: #fee; border: 2px solid #f44; border-radius: 8px; padding: 20px; margin: 20px 0;'>");
-            emailBody.append("<h3 style='color: #d44; margin: 0 0 15px 0; font-size: 18px;'>⚠️ Your trusted contact has triggered an emergency alert</h3>");
-            
-            emailBody.append("<p style='margin: 10px 0; font-size: 16px;'><strong>Contact:</strong> " + contactName + "</p>");
-            if (userPhoneOrName != null && !userPhoneOrName.isEmpty()) {
-                emailBody.append("<p style='margin: 10px 0; font-size: 16px;'><strong>Phone:</strong> " + userPhoneOrName + "</p>");
-            }
-            emailBody.append("<p style='margin: 10px 0; font-size: 16px;'><strong>Time:</strong> " + triggeredTime + "</p>");
-            emailBody.append("<p style='margin: 10px 0; font-size: 16px;'><strong>Location:</strong> " + location + "</p>");
-            emailBody.append("<p style='margin: 10px 0; font-size: 16px;'><strong>Message:</strong> " + alertMessage + "</p>");
-            emailBody.append("</div>");
-            
-            // Action instructions with prominent styling
-            emailBody.append("<div style='background-color: #fff3cd; border: 1px solid #ffc107; border-radius: 8px; padding: 20px; margin: 20px 0;'>");
-            emailBody.append("<h4 style='color: #856404; margin: 0 0 10px 0;'>⚡ IMMEDIATE ACTION REQUIRED</h4>");
-            emailBody.append("<p style='margin: 10px 0; font-weight: bold; color: #856404;'>1. Contact them immediately at their phone number</p>");
-            emailBody.append("<p style='margin: 10px 0; font-weight: bold; color: #856404;'>2. If you cannot reach them, call local emergency services (911, 999, etc.)</p>");
-            emailBody.append("<p style='margin: 10px 0; font-weight: bold; color: #856404;'>3. If possible, go to their location to provide assistance</p>");
-            emailBody.append("</div>");
-            
-            emailBody.append("<p style='color: #666; font-style: italic; margin-top: 30px;'>This is an automated emergency alert from SecureHerAI. Please take immediate action to ensure your trusted contact's safety.</p>");
-            
-            emailBody.append(createEmailFooter());
-            
-            helper.setText(emailBody.toString(), true);
-            
-            mailSender.send(mimeMessage);
+            send(toEmail, EMERGENCY_ALERT_SUBJECT, template("emergency-alert")
+                .render(emergencyAlertValues(contactName, userPhoneOrName, alertMessage, location, triggeredTime)));
             logger.info("Emergency alert email sent successfully to: {}", toEmail);
             
         } catch (MessagingException e) {
@@ -365,36 +135,32 @@ public class EmailService {
         }
     }
 
+    /**
+     * HTML body of the emergency alert email to a trusted contact
+     */
+    public String renderEmergencyAlertEmail(String contactName, String userPhoneOrName,
+                                            String alertMessage, String location, String triggeredTime) {
+        return template("emergency-alert")
+            .renderString(emergencyAlertValues(contactName, userPhoneOrName, alertMessage, location, triggeredTime));
+    }
+
+    private static Map<String, String> emergencyAlertValues(String contactName, String userPhoneOrName,
+                                                            String alertMessage, String location, String triggeredTime) {
+        Map<String, String> values = new HashMap<>();
+        values.put("contactName", contactName);
+        values.put("phone", userPhoneOrName);
+        values.put("time", triggeredTime);
+        values.put("location", location);
+        values.put("message", alertMessage);
+        return values;
+    }
+
     /**
      * Send general notification email
      */
     public void sendNotificationEmail(String toEmail, String subject, String title, String message) {
         try {
-            MimeMessage mimeMessage = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(mimeMessage, true, "UTF-8");
-            
-            helper.setFrom(fromEmail);
-            helper.setTo(toEmail);
-            helper.setSubject(subject);
-            
-            StringBuilder emailBody = new StringBuilder();
-            emailBody.append(createEmailHeader(title));
-            
-            // Convert plain text message to HTML paragraphs
-            String[] paragraphs = message.split("\n\n");
-            for (String paragraph : paragraphs) {
-                if (!paragraph.trim().isEmpty()) {
-                    emailBody.append("<p style='margin: 15px 0; line-height: 1.6;'>");
-                    emailBody.append(paragraph.replace("\n", "<br>"));
-                    emailBody.append("</p>");
-                }
-            }
-            
-            emailBody.append(createEmailFooter());
-            
-            helper.setText(emailBody.toString(), true);
-            
-            mailSender.send(mimeMessage);
+            send(toEmail, subject, template("notification").render(notificationValues(title, message)));
             logger.info("Notification email sent successfully to: {}", toEmail);
             
         } catch (MessagingException e) {
@@ -402,4 +168,44 @@ public class EmailService {
             throw new RuntimeException("Failed to send notification email", e);
         }
     }
+
+    /**
+     * HTML body of a general notification email
+     */
+    public String renderNotificationEmail(String title, String message) {
+        return template("notification").renderString(notificationValues(title, message));
+    }
+
+    private static Map<String, String> notificationValues(String title, String message) {
+        // Convert plain text message to HTML paragraphs
+        StringBuilder paragraphs = new StringBuilder(message.length() + 64);
+        for (String paragraph : message.split("\n\n")) {
+            if (!paragraph.trim().isEmpty()) {
+                paragraphs.append("<p style='margin: 15px 0; line-height: 1.6;'>");
+                paragraphs.append(paragraph.replace("\n", "<br>"));
+                paragraphs.append("</p>");
+            }
+        }
+        Map<String, String> values = new HashMap<>();
+        values.put("title", title);
+        values.put("paragraphs", paragraphs.toString());
+        return values;
+    }
+
+    private EmailTemplate template(String name) {
+        return templates.get(name, defaultLocale != null ? Locale.forLanguageTag(defaultLocale) : Locale.ROOT);
+    }
+
+    /**
+     * Send a rendered body; the message is put together directly instead of through
+     * {@code MimeMessageHelper}, with the body already encoded
+     */
+    private void send(String toEmail, String subject, byte[] html) throws MessagingException {
+        MimeMessage mimeMessage = mailSender.createMimeMessage();
+        mimeMessage.setFrom(fromEmail);
+        mimeMessage.setRecipients(Message.RecipientType.TO, toEmail);
+        mimeMessage.setSubject(subject, "UTF-8");
+        EmailTemplates.setHtmlContent(mimeMessage, html);
+        mailSender.send(mimeMessage);
+    }
 }
@@ -0,0 +1,122 @@
+package com.secureherai.secureherai_api.service;
+
+import com.secureherai.secureherai_api.entity.Settings;
+import com.secureherai.secureherai_api.repository.SettingsRepository;
+import com.secureherai.secureherai_api.util.KeywordAutomaton;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Compiles the default SOS keywords plus each user's custom keywords into a
+ * {@link KeywordAutomaton} and caches it per user, so keyword spotting on
+ * transcripts (including every partial result while streaming) never hits the database.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class KeywordMatcherService {
+
+    public static final List<String> DEFAULT_KEYWORDS = List.of("help", "emergency", "sos");
+
+    // Used when a user's keywords can't be loaded
+    public static final KeywordAutomaton DEFAULT_AUTOMATON = KeywordAutomaton.compile(DEFAULT_KEYWORDS);
+
+    private final SettingsRepository settingsRepository;
+
+    @Value("${sos.keywords.cache-max-users:10000}")
+    private int cacheMaxUsers;
+
+    private final Map<UUID, KeywordAutomaton> automatonCache = new ConcurrentHashMap<>();
+
+    // Bumped on every invalidation so a load racing with a keyword change is not cached
+    private final AtomicLong generation = new AtomicLong();
+    private final AtomicLong cacheHits = new AtomicLong();
+    private final AtomicLong cacheMisses = new AtomicLong();
+
+    /**
+     * Check whether the text contains any of the user's SOS keywords
+     */
+    public boolean matches(String text, UUID userId) {
+        return automatonFor(userId).matches(text);
+    }
+
+    /**
+     * Get the compiled automaton for a user, loading and compiling it on first use
+     */
+    public KeywordAutomaton automatonFor(UUID userId) {
+        KeywordAutomaton cached = automatonCache.get(userId);
+        if (cached != null) {
+            cacheHits.incrementAndGet();
+            return cached;
+        }
+        cacheMisses.incrementAndGet();
+
+        long loadGeneration = generation.get();
+        String storedKeywords = settingsRepository.findByUserId(userId)
+            .map(Settings::getSosKeyword)
+            .orElse(null);
+
+        List<String> keywords = new ArrayList<>(DEFAULT_KEYWORDS);
+        keywords.addAll(parseKeywords(storedKeywords));
+        KeywordAutomaton automaton = KeywordAutomaton.compile(keywords);
+
+        if (generation.get() == loadGeneration) {
+            evictIfFull();
+            automatonCache.put(userId, automaton);
+        }
+        return automaton;
+    }
+
+    /**
+     * Drop a user's compiled automaton, e.g. after their SOS keyword changed
+     */
+    public void invalidate(UUID userId) {
+        generation.incrementAndGet();
+        automatonCache.remove(userId);
+        log.debug("Invalidated SOS keyword automaton for user: {}", userId);
+    }
+
+    /**
+     * Split the stored sos_keyword value into individual keywords.
+     * Several keywords can be stored comma separated, e.g. "help me, bachao".
+     */
+    public static List<String> parseKeywords(String storedKeywords) {
+        List<String> keywords = new ArrayList<>();
+        if (storedKeywords == null) {
+            return keywords;
+        }
+        for (String keyword : storedKeywords.split(",")) {
+            String trimmed = keyword.trim().toLowerCase();
+            if (!trimmed.isEmpty()) {
+                keywords.add(trimmed);
+            }
+        }
+        return keywords;
+    }
+
+    public Map<String, Object> getCacheStats() {
+        return Map.of(
+            "cachedUsers", automatonCache.size(),
+            "hits", cacheHits.get(),
+            "misses", cacheMisses.get()
+        );
+    }
+
+    private void evictIfFull() {
+        Iterator<UUID> iterator = automatonCache.keySet().iterator();
+        while (automatonCache.size() >= cacheMaxUsers && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+    }
+}
@@ -1,30 +1,44 @@
 package com.secureherai.secureherai_api.service;
 
+import com.secureherai.secureherai_api.cluster.ClusterEventBus;
 import com.secureherai.secureherai_api.dto.notification.NotificationCreateDto;
+import com.secureherai.secureherai_api.dto.notification.NotificationPageDto;
 import com.secureherai.secureherai_api.dto.notification.NotificationResponseDto;
 import com.secureherai.secureherai_api.entity.Alert;
 import com.secureherai.secureherai_api.entity.AlertResponder;
 import com.secureherai.secureherai_api.entity.Notification;
 import com.secureherai.secureherai_api.entity.Responder;
+import com.secureherai.secureherai_api.entity.ScheduledTask;
 import com.secureherai.secureherai_api.entity.TrustedContact;
 import com.secureherai.secureherai_api.enums.AlertStatus;
+import com.secureherai.secureherai_api.repository.AlertRepository;
 import com.secureherai.secureherai_api.repository.AlertResponderRepository;
 import com.secureherai.secureherai_api.repository.NotificationRepository;
 import com.secureherai.secureherai_api.repository.ResponderRepository;
 import com.secureherai.secureherai_api.repository.TrustedContactRepository;
 import com.secureherai.secureherai_api.repository.UserRepository;
+import com.secureherai.secureherai_api.scheduler.DurableTimerService;
+import com.secureherai.secureherai_api.socket.NotificationPushGateway;
+import com.secureherai.secureherai_api.util.Deadline;
+import com.secureherai.secureherai_api.util.GeoGridIndex.Neighbor;
+import com.secureherai.secureherai_api.util.KeysetCursor;
+import com.secureherai.secureherai_api.util.TransactionHooks;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.math.BigDecimal;
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.*;
-import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 /**
@@ -40,13 +54,41 @@ public class NotificationService {
     private final ResponderRepository responderRepository;
     private final UserRepository userRepository;
     private final EmailService emailService;
+    private final EmailOutboxService emailOutboxService;
     private final AlertResponderRepository alertResponderRepository;
+    private final AlertRepository alertRepository;
+    private final DurableTimerService durableTimerService;
+    private final ResponderLocationIndex responderLocationIndex;
+    private final UnreadCounterService unreadCounterService;
+    private final PlatformTransactionManager transactionManager;
+    
+    // Only present when socket.io is enabled
+    @Autowired(required = false)
+    private NotificationPushGateway pushGateway;
+    
+    @Autowired(required = false)
+    private ClusterEventBus clusterEventBus;
+    
+    @Value("${responder.search-radius-km:50}")
+    private double searchRadiusKm;
     
     // TTL Configuration
     private static final Duration EMERGENCY_TTL = Duration.ofHours(1); // 1 hour TTL
     private static final int BATCH_SIZE = 2; // Send to 2 responders at a time
     private static final int MAX_RESPONDERS = 10; // Maximum responders to notify per alert
     
+    // Durable timer task that checks a batch once its TTL has passed and moves on to the next batch
+    static final String BATCH_ESCALATION_TASK = "RESPONDER_BATCH_ESCALATION";
+    
+    // For fan-out deferred past the request, which runs on a thread without a transaction
+    private TransactionTemplate transactionTemplate;
+    
+    @PostConstruct
+    void registerTimerHandlers() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        durableTimerService.registerHandler(BATCH_ESCALATION_TASK, this::escalateBatch);
+    }
+    
     /**
      * Create a new notification
      */
@@ -63,26 +105,70 @@ public class NotificationService {
         notification.setPayload(createDto.getPayload());
         notification.setPriority(createDto.getPriority());
         
-        Notification saved = notificationRepository.save(notification);
-        
-        // Send notification asynchronously if needed
-        sendNotificationAsync(saved);
+        Notification saved = createNotifications(List.of(notification)).get(0);
         
         return NotificationResponseDto.fromEntity(saved);
     }
     
+    /**
+     * Save and send several notifications at once. The rows are written in one JDBC
+     * batch when the transaction flushes, with their final status, and the unread
+     * counters and the event for connected apps take one statement each.
+     */
+    @Transactional
+    public List<Notification> createNotifications(List<Notification> notifications) {
+        // Set before the save: anything that flushes the session from here on, such as the
+        // unread count query, would otherwise insert the rows as PENDING and update them later
+        for (Notification notification : notifications) {
+            if (!isInApp(notification) || pushGateway == null) {
+                // With push enabled, in-app notifications stay PENDING until a connected app
+                // acknowledges them; apps that are offline get them when they next connect
+                notification.markAsSent();
+            }
+        }
+        List<Notification> saved = notificationRepository.saveAll(notifications);
+        
+        Map<UUID, Long> unread = new HashMap<>();
+        for (Notification notification : saved) {
+            unread.merge(notification.getUserId(), 1L, Long::sum);
+        }
+        unreadCounterService.addAll(unread);
+        
+        // Send notifications asynchronously if needed
+        sendNotificationsAsync(saved);
+        
+        return saved;
+    }
+    
     /**
      * Send SOS alert notifications to trusted contacts and nearby responders
      */
     @Transactional
     public void sendSOSAlertNotifications(Alert alert) {
+        sendSOSAlertNotifications(alert, Deadline.none());
+    }
+    
+    /**
+     * Send SOS alert notifications within the request's deadline. Nearby responders are
+     * notified first; trusted-contact e-mails are queued in the e-mail outbox in the
+     * alert's transaction and sent once it commits, so neither waits for SMTP.
+     */
+    @Transactional
+    public void sendSOSAlertNotifications(Alert alert, Deadline deadline) {
         log.info("Sending SOS alert notifications for alert: {}", alert.getId());
         
+        // Send to nearest active responders
+        if (deadline.isExpired()) {
+            log.warn("Request deadline passed, notifying responders for alert {} in the background", alert.getId());
+            // The batch's notifications and its escalation timer must commit together
+            TransactionHooks.runAsyncAfterCommit(() -> transactionTemplate.executeWithoutResult(
+                status -> sendNearbyResponderNotifications(alert)));
+        } else {
+            sendNearbyResponderNotifications(alert);
+        }
+        
         // Send to trusted contacts
         sendTrustedContactNotifications(alert);
-        
-        // Send to nearest active responders
-        sendNearbyResponderNotifications(alert);
     }
     
     /**
@@ -92,41 +178,56 @@ public class NotificationService {
         List<TrustedContact> trustedContacts = trustedContactRepository.findByUserId(alert.getUserId());
         
         for (TrustedContact contact : trustedContacts) {
-            // Send email directly to trusted contact if email is available
-            // Trusted contacts are external people, not app users, so we don't create in-app notifications
-            if (contact.getEmail() != null && !contact.getEmail().isEmpty()) {
-                sendEmergencyEmailToContact(contact, alert);
-            }
-            
-            // TODO: Send SMS to trusted contact if SMS service is available
-            // if (contact.getPhone() != null && !contact.getPhone().isEmpty()) {
-            //     sendEmergencySMSToContact(contact, alert);
-            // }
-            
-            log.info("Emergency notification sent to trusted contact: {} ({})", contact.getName(), contact.getPhone());
+            notifyTrustedContact(contact, alert);
         }
     }
     
+    private void notifyTrustedContact(TrustedContact contact, Alert alert) {
+        // Send email directly to trusted contact if email is available
+        // Trusted contacts are external people, not app users, so we don't create in-app notifications
+        if (contact.getEmail() != null && !contact.getEmail().isEmpty()) {
+            sendEmergencyEmailToContact(contact, alert);
+        }
+        
+        // TODO: Send SMS to trusted contact if SMS service is available
+        // if (contact.getPhone() != null && !contact.getPhone().isEmpty()) {
+        //     sendEmergencySMSToContact(contact, alert);
+        // }
+        
+        log.info("Emergency notification queued for trusted contact: {} ({})", contact.getName(), contact.getPhone());
+    }
+    
     /**
      * Send notifications to nearby active responders with TTL and 10-responder limit
      */
     private void sendNearbyResponderNotifications(Alert alert) {
-        // Get all active responders
-        List<Responder> activeResponders = responderRepository.findByStatusAndIsActiveTrue(Responder.Status.AVAILABLE);
+        if (alert.getLatitude() == null || alert.getLongitude() == null) {
+            log.warn("Alert {} has no location, cannot pick nearby responders", alert.getId());
+            return;
+        }
+        
+        List<Neighbor<UUID>> nearest = responderLocationIndex.findNearest(
+            alert.getLatitude().doubleValue(), alert.getLongitude().doubleValue(), MAX_RESPONDERS, searchRadiusKm);
         
-        if (activeResponders.isEmpty()) {
-            log.warn("No active responders available for alert: {}", alert.getId());
+        if (nearest.isEmpty()) {
+            log.warn("No responders found within {} km for alert: {}", searchRadiusKm, alert.getId());
             return;
         }
         
-        // Calculate distance and sort by nearest
-        List<ResponderWithDistance> sortedResponders = activeResponders.stream()
-            .map(responder -> new ResponderWithDistance(responder, 
-                calculateDistance(alert.getLatitude(), alert.getLongitude(), 
-                                responder.getUser().getCurrentLatitude(), responder.getUser().getCurrentLongitude()))) // Get location from User entity
-            .sorted(Comparator.comparingDouble(ResponderWithDistance::getDistance))
-            .limit(MAX_RESPONDERS) // Limit to maximum 10 responders
-            .collect(Collectors.toList());
+        // Load only the chosen responders
+        Map<UUID, Responder> responders = responderRepository.findAllById(
+                nearest.stream().map(Neighbor::getKey).collect(Collectors.toList()))
+            .stream()
+            .collect(Collectors.toMap(Responder::getUserId, responder -> responder));
+        
+        // Keep the nearest-first order; skip anyone whose row is gone
+        List<ResponderWithDistance> sortedResponders = new ArrayList<>();
+        for (Neighbor<UUID> neighbor : nearest) {
+            Responder responder = responders.get(neighbor.getKey());
+            if (responder != null) {
+                sortedResponders.add(new ResponderWithDistance(responder, neighbor.getDistanceKm()));
+            }
+        }
         
         if (sortedResponders.isEmpty()) {
             log.warn("No responders found within range for alert: {}", alert.getId());
@@ -192,17 +293,27 @@ public class NotificationService {
     }
     
     /**
-     * Get notifications for a user
+     * Get a page of a user's notifications, newest first
+     * 
+     * @param cursor The previous page's next cursor, or null for the first page
+     * @throws IllegalArgumentException If the cursor is not valid
      */
-    public List<NotificationResponseDto> getUserNotifications(UUID userId) {
-        List<Notification> notifications = notificationRepository.findByUserIdOrderByCreatedAtDesc(userId);
-        return notifications.stream()
-            .map(NotificationResponseDto::fromEntity)
-            .collect(Collectors.toList());
+    public NotificationPageDto getUserNotifications(UUID userId, String cursor, int size) {
+        // One extra row tells whether there is a next page
+        Pageable limit = PageRequest.of(0, size + 1);
+        List<Notification> notifications;
+        if (cursor == null) {
+            notifications = notificationRepository.findFirstPage(userId, limit);
+        } else {
+            KeysetCursor after = KeysetCursor.decode(cursor);
+            notifications = notificationRepository.findPageAfter(userId, after.getCreatedAt(), after.getId(), limit);
+        }
+        return toPage(notifications, size);
     }
     
     /**
-     * Get notifications for a user with pagination
+     * Get notifications for a user with offset pagination; pages deep in a long history
+     * are slow, so clients should page with cursors instead
      */
     public Page<NotificationResponseDto> getUserNotifications(UUID userId, Pageable pageable) {
         Page<Notification> notifications = notificationRepository.findByUserIdOrderByCreatedAtDesc(userId, pageable);
@@ -210,14 +321,33 @@ public class NotificationService {
     }
     
     /**
-     * Get unread notifications for a user
+     * Get a page of a user's unread notifications, newest first
+     * 
+     * @param cursor The previous page's next cursor, or null for the first page
+     * @throws IllegalArgumentException If the cursor is not valid
      */
-    public List<NotificationResponseDto> getUnreadNotifications(UUID userId) {
-        List<Notification> notifications = notificationRepository.findByUserIdAndStatusOrderByCreatedAtDesc(
-            userId, Notification.NotificationStatus.PENDING);
-        return notifications.stream()
+    public NotificationPageDto getUnreadNotifications(UUID userId, String cursor, int size) {
+        Pageable limit = PageRequest.of(0, size + 1);
+        List<Notification> notifications;
+        if (cursor == null) {
+            notifications = notificationRepository.findUnreadFirstPage(userId, limit);
+        } else {
+            KeysetCursor after = KeysetCursor.decode(cursor);
+            notifications = notificationRepository.findUnreadPageAfter(userId, after.getCreatedAt(), after.getId(), limit);
+        }
+        return toPage(notifications, size);
+    }
+    
+    private NotificationPageDto toPage(List<Notification> notifications, int size) {
+        String nextCursor = null;
+        if (notifications.size() > size) {
+            notifications = notifications.subList(0, size);
+            Notification last = notifications.get(size - 1);
+            nextCursor = new KeysetCursor(last.getCreatedAt(), last.getId()).encode();
+        }
+        return new NotificationPageDto(notifications.stream()
             .map(NotificationResponseDto::fromEntity)
-            .collect(Collectors.toList());
+            .collect(Collectors.toList()), nextCursor);
     }
     
     /**
@@ -225,9 +355,14 @@ public class NotificationService {
      */
     @Transactional
     public boolean markNotificationAsRead(Long notificationId, UUID userId) {
-        int updated = notificationRepository.markAsRead(notificationId, userId, 
-            Notification.NotificationStatus.READ, LocalDateTime.now());
-        return updated > 0;
+        int updated = notificationRepository.markUnreadAsRead(notificationId, userId, LocalDateTime.now());
+        if (updated == 0) {
+            // Already read, or not the user's
+            return notificationRepository.existsByIdAndUserId(notificationId, userId);
+        }
+        unreadCounterService.add(userId, -1);
+        publishRead(userId, Map.of("notificationId", notificationId, "count", 1));
+        return true;
     }
     
     /**
@@ -235,17 +370,34 @@ public class NotificationService {
      */
     @Transactional
     public int markAllNotificationsAsRead(UUID userId) {
-        return notificationRepository.markAllAsRead(userId, 
-            Notification.NotificationStatus.PENDING, 
-            Notification.NotificationStatus.READ, 
-            LocalDateTime.now());
+        int updated = notificationRepository.markAllUnreadAsRead(userId, LocalDateTime.now());
+        if (updated > 0) {
+            unreadCounterService.add(userId, -updated);
+            publishRead(userId, Map.of("all", true, "count", updated));
+        }
+        return updated;
     }
     
     /**
-     * Count unread notifications for a user
+     * Count unread notifications for a user; delivered but unread notifications count too
      */
     public long countUnreadNotifications(UUID userId) {
-        return notificationRepository.countByUserIdAndStatus(userId, Notification.NotificationStatus.PENDING);
+        return unreadCounterService.get(userId);
+    }
+    
+    /**
+     * Tell the user's connected apps, on every node, that notifications were read
+     */
+    private void publishRead(UUID userId, Map<String, Object> read) {
+        if (clusterEventBus != null) {
+            Map<String, Object> data = new HashMap<>(read);
+            data.put("userId", userId.toString());
+            // Keyed per read so that reads queued together are not merged
+            clusterEventBus.publish(ClusterEventBus.NOTIFICATIONS_READ, userId + ":" + read.getOrDefault("notificationId", "all"), data);
+        }
+        if (pushGateway != null) {
+            pushGateway.publishUnreadCount(userId, unreadCounterService.getStored(userId));
+        }
     }
     
     /**
@@ -399,6 +551,7 @@ public class NotificationService {
         log.info("Sending emergency batch {} to {} responders for alert: {}", 
             batchNumber, batchResponders.size(), alert.getId());
         
+        List<Notification> invitations = new ArrayList<>(batchResponders.size());
         for (ResponderWithDistance responderWithDistance : batchResponders) {
             Responder responder = responderWithDistance.getResponder();
             
@@ -418,8 +571,8 @@ public class NotificationService {
                 batchNumber
             );
             
-            // Create and save notification with TTL
-            createNotificationWithTTL(
+            // Create notification with TTL
+            invitations.add(buildNotificationWithTTL(
                 responder.getUserId(),
                 Notification.NotificationType.EMERGENCY_NEARBY,
                 Notification.NotificationChannel.IN_APP,
@@ -429,20 +582,21 @@ public class NotificationService {
                 15, // High priority for emergency
                 alert.getId(),
                 batchNumber
-            );
-            
-            log.info("Emergency notification sent to responder: {} for alert: {}", 
-                responder.getUserId(), alert.getId());
+            ));
         }
         
+        // Save and send the whole batch at once
+        createNotifications(invitations);
+        log.info("Emergency notifications sent to {} responders for alert: {}", invitations.size(), alert.getId());
+        
         // Schedule expiration check for this batch
         scheduleExpirationCheck(alert, allResponders, batchNumber);
     }
     
     /**
-     * Create notification with TTL and batch tracking
+     * Build a notification with TTL and batch tracking, to be saved with {@link #createNotifications}
      */
-    private Notification createNotificationWithTTL(UUID userId, Notification.NotificationType type,
+    private Notification buildNotificationWithTTL(UUID userId, Notification.NotificationType type,
             Notification.NotificationChannel channel, String title, String message,
             Map<String, Object> payload, Integer priority, UUID alertId, Integer batchNumber) {
         
@@ -459,65 +613,111 @@ public class NotificationService {
         notification.setTTL(EMERGENCY_TTL); // Set 1 hour TTL
         notification.setStatus(Notification.NotificationStatus.PENDING);
         
-        notification = notificationRepository.save(notification);
-        
-        // Send the notification asynchronously
-        sendNotificationAsync(notification);
-        
         return notification;
     }
     
     /**
-     * Schedule expiration check for emergency notifications
+     * Schedule expiration check for emergency notifications. The check is a durable
+     * timer, so it survives restarts and holds no thread while it waits; the ranked
+     * responder list is stored with it, so the next batch goes to the same responders
+     * the first one was picked from.
      */
     public void scheduleExpirationCheck(Alert alert, List<ResponderWithDistance> allResponders, int batchNumber) {
-        CompletableFuture.runAsync(() -> {
-            try {
-                // Wait for TTL duration
-                Thread.sleep(EMERGENCY_TTL.toMillis());
-                
-                // Check if any responder from this batch accepted
-                List<Notification> batchNotifications = notificationRepository.findByAlertIdAndTypeAndStatus(
-                    alert.getId(),
-                    Notification.NotificationType.EMERGENCY_NEARBY,
-                    Notification.NotificationStatus.PENDING
-                );
-                
-                boolean batchExpired = batchNotifications.stream()
-                    .filter(n -> n.getBatchNumber() != null && n.getBatchNumber().equals(batchNumber))
-                    .allMatch(Notification::isExpired);
-                
-                if (batchExpired) {
-                    log.info("Batch {} expired for alert {}, checking if need to send next batch", 
-                        batchNumber, alert.getId());
-                    
-                    // Mark expired notifications as failed
-                    batchNotifications.stream()
-                        .filter(n -> n.getBatchNumber() != null && n.getBatchNumber().equals(batchNumber))
-                        .filter(Notification::isExpired)
-                        .forEach(n -> {
-                            n.setStatus(Notification.NotificationStatus.FAILED);
-                            notificationRepository.save(n);
-                        });
-                    
-                    // Check if alert is still active (not resolved)
-                    long totalNotified = notificationRepository.countRespondersNotifiedForAlert(
-                        alert.getId(), Notification.NotificationType.EMERGENCY_NEARBY);
-                    
-                    if (totalNotified < MAX_RESPONDERS && !isAlertResolved(alert.getId())) {
-                        // Send to next batch
-                        sendEmergencyBatch(alert, allResponders, batchNumber + 1);
-                    } else {
-                        log.info("Alert {} - max responders reached or alert resolved, stopping TTL process", 
-                            alert.getId());
-                    }
-                }
-                
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-                log.error("Expiration check interrupted for alert: {}", alert.getId());
+        List<String> responderIds = new ArrayList<>();
+        List<Double> distances = new ArrayList<>();
+        for (ResponderWithDistance responderWithDistance : allResponders) {
+            responderIds.add(responderWithDistance.getResponder().getUserId().toString());
+            distances.add(responderWithDistance.getDistance());
+        }
+        
+        Map<String, Object> payload = new HashMap<>();
+        payload.put("alertId", alert.getId().toString());
+        payload.put("batchNumber", batchNumber);
+        payload.put("responderIds", responderIds);
+        payload.put("distances", distances);
+        
+        durableTimerService.schedule(BATCH_ESCALATION_TASK, alert.getId().toString(), payload, EMERGENCY_TTL);
+    }
+    
+    /**
+     * Runs when a batch's TTL has passed: if nobody in the batch responded, mark its
+     * invitations failed and notify the next batch
+     */
+    private void escalateBatch(ScheduledTask task) {
+        Map<String, Object> payload = task.getPayload();
+        UUID alertId = UUID.fromString(String.valueOf(payload.get("alertId")));
+        int batchNumber = ((Number) payload.get("batchNumber")).intValue();
+        
+        Alert alert = alertRepository.findById(alertId).orElse(null);
+        if (alert == null) {
+            log.info("Alert {} no longer exists, stopping TTL process", alertId);
+            return;
+        }
+        
+        // Check if any responder from this batch accepted
+        List<Notification> batchNotifications = notificationRepository.findByAlertIdAndTypeAndStatus(
+            alert.getId(),
+            Notification.NotificationType.EMERGENCY_NEARBY,
+            Notification.NotificationStatus.PENDING
+        );
+        
+        boolean batchExpired = batchNotifications.stream()
+            .filter(n -> n.getBatchNumber() != null && n.getBatchNumber().equals(batchNumber))
+            .allMatch(Notification::isExpired);
+        
+        if (!batchExpired) {
+            return;
+        }
+        
+        log.info("Batch {} expired for alert {}, checking if need to send next batch", 
+            batchNumber, alert.getId());
+        
+        // Mark expired notifications as failed
+        Map<UUID, Long> unread = new HashMap<>();
+        batchNotifications.stream()
+            .filter(n -> n.getBatchNumber() != null && n.getBatchNumber().equals(batchNumber))
+            .filter(Notification::isExpired)
+            .forEach(n -> {
+                n.setStatus(Notification.NotificationStatus.FAILED);
+                notificationRepository.save(n);
+                unread.merge(n.getUserId(), -1L, Long::sum);
+            });
+        unreadCounterService.addAll(unread);
+        
+        // Check if alert is still active (not resolved)
+        long totalNotified = notificationRepository.countRespondersNotifiedForAlert(
+            alert.getId(), Notification.NotificationType.EMERGENCY_NEARBY);
+        
+        if (totalNotified < MAX_RESPONDERS && !isAlertResolved(alert.getId())) {
+            // Send to next batch
+            sendEmergencyBatch(alert, rankedResponders(payload), batchNumber + 1);
+        } else {
+            log.info("Alert {} - max responders reached or alert resolved, stopping TTL process", 
+                alert.getId());
+        }
+    }
+    
+    /**
+     * The ranked responder list stored with an escalation task; responders deleted since are left out
+     */
+    @SuppressWarnings("unchecked")
+    private List<ResponderWithDistance> rankedResponders(Map<String, Object> payload) {
+        List<String> responderIds = (List<String>) payload.get("responderIds");
+        List<Number> distances = (List<Number>) payload.get("distances");
+        
+        Map<UUID, Responder> responders = responderRepository.findAllById(
+                responderIds.stream().map(UUID::fromString).collect(Collectors.toList()))
+            .stream()
+            .collect(Collectors.toMap(Responder::getUserId, responder -> responder));
+        
+        List<ResponderWithDistance> ranked = new ArrayList<>();
+        for (int i = 0; i < responderIds.size(); i++) {
+            Responder responder = responders.get(UUID.fromString(responderIds.get(i)));
+            if (responder != null) {
+                ranked.add(new ResponderWithDistance(responder, distances.get(i).doubleValue()));
             }
-        });
+        }
+        return ranked;
     }
     
     /**
@@ -532,6 +732,9 @@ public class NotificationService {
         alertResponder.setStatus(AlertStatus.ACCEPTED);
         alertResponderRepository.save(alertResponder);
         
+        // No further batches for this alert
+        durableTimerService.cancel(BATCH_ESCALATION_TASK, alertId.toString());
+        
         // Mark all pending notifications for this alert as no longer needed
         List<Notification> pendingNotifications = notificationRepository.findByAlertIdAndTypeAndStatus(
             alertId,
@@ -539,12 +742,15 @@ public class NotificationService {
             Notification.NotificationStatus.PENDING
         );
         
+        Map<UUID, Long> unread = new HashMap<>();
         pendingNotifications.forEach(notification -> {
             if (!notification.getUserId().equals(responderId)) {
                 notification.setStatus(Notification.NotificationStatus.READ); // Cancel other invitations
                 notificationRepository.save(notification);
+                unread.merge(notification.getUserId(), -1L, Long::sum);
             }
         });
+        unreadCounterService.addAll(unread);
         
         log.info("Responder {} accepted alert {}, created AlertResponder record, cancelled {} other pending invitations", 
             responderId, alertId, pendingNotifications.size() - 1);
@@ -560,69 +766,79 @@ public class NotificationService {
     }
     
     /**
-     * Send notification asynchronously
+     * Send notifications asynchronously: e-mails are queued in the outbox, and in-app
+     * notifications are published to connected apps with one statement
      */
-    private void sendNotificationAsync(Notification notification) {
-        try {
+    private void sendNotificationsAsync(List<Notification> notifications) {
+        List<Notification> inApp = new ArrayList<>();
+        for (Notification notification : notifications) {
             if (notification.getChannel() == Notification.NotificationChannel.EMAIL || 
                 notification.getChannel() == Notification.NotificationChannel.BOTH) {
-                
-                // Get user's email address
-                userRepository.findById(notification.getUserId()).ifPresent(user -> {
-                    try {
-                        emailService.sendNotificationEmail(
-                            user.getEmail(),
-                            notification.getTitle(),
-                            notification.getTitle(),
-                            notification.getMessage()
-                        );
-                        log.info("Email notification sent for notification: {}", notification.getId());
-                    } catch (Exception e) {
-                        log.error("Failed to send email for notification: {}", notification.getId(), e);
-                    }
-                });
+                queueNotificationEmail(notification);
             }
-            
-            // Send push notifications for IN_APP or BOTH channels
-            if (notification.getChannel() == Notification.NotificationChannel.IN_APP || 
-                notification.getChannel() == Notification.NotificationChannel.BOTH) {
-                
-                // In-app notifications are saved to database (already done by createNotification)
-                // But we can also send real-time push notifications to user's devices
-                
-                sendPushNotificationToUser(notification);
+            if (isInApp(notification)) {
+                inApp.add(notification);
             }
-            
-            // Mark as sent
-            notification.markAsSent();
-            notificationRepository.save(notification);
-            
+        }
+        
+        if (inApp.isEmpty() || clusterEventBus == null) {
+            return;
+        }
+        try {
+            clusterEventBus.publishNotificationsCreated(inApp);
         } catch (Exception e) {
-            log.error("Failed to send notification: {}", notification.getId(), e);
-            notification.markAsFailed();
-            notificationRepository.save(notification);
+            log.error("Failed to send {} in-app notifications", inApp.size(), e);
+            Map<UUID, Long> unread = new HashMap<>();
+            for (Notification notification : inApp) {
+                notification.markAsFailed();
+                unread.merge(notification.getUserId(), -1L, Long::sum);
+            }
+            // The rows may already be flushed, so this is an update on the failure path only
+            notificationRepository.saveAll(inApp);
+            unreadCounterService.addAll(unread);
         }
     }
     
+    private static boolean isInApp(Notification notification) {
+        return notification.getChannel() == Notification.NotificationChannel.IN_APP || 
+            notification.getChannel() == Notification.NotificationChannel.BOTH;
+    }
+    
+    private void queueNotificationEmail(Notification notification) {
+        // Get user's email address
+        userRepository.findById(notification.getUserId()).ifPresent(user -> {
+            try {
+                emailOutboxService.enqueue(
+                    user.getEmail(),
+                    notification.getTitle(),
+                    emailService.renderNotificationEmail(notification.getTitle(), notification.getMessage()),
+                    "notification:" + notification.getId()
+                );
+                log.info("Email notification queued for notification: {}", notification.getId());
+            } catch (Exception e) {
+                log.error("Failed to queue email for notification: {}", notification.getId(), e);
+            }
+        });
+    }
+    
     /**
-     * Send emergency email to trusted contact
+     * Queue the emergency email to a trusted contact; it goes out once the alert is committed
      */
     private void sendEmergencyEmailToContact(TrustedContact contact, Alert alert) {
         try {
-            // Use the EmailService to send the emergency alert email
-            emailService.sendEmergencyAlertEmail(
-                contact.getEmail(),
+            String body = emailService.renderEmergencyAlertEmail(
                 contact.getName(),
                 contact.getPhone(),
                 alert.getAlertMessage() != null ? alert.getAlertMessage() : "Emergency assistance needed",
                 alert.getAddress() != null ? alert.getAddress() : "Location not available",
                 alert.getTriggeredAt().toString()
             );
+            emailOutboxService.enqueue(contact.getEmail(), EmailService.EMERGENCY_ALERT_SUBJECT, body, "alert:" + alert.getId());
             
-            log.info("Emergency email sent to trusted contact: {} ({})", contact.getName(), contact.getEmail());
+            log.info("Emergency email queued for trusted contact: {} ({})", contact.getName(), contact.getEmail());
             
         } catch (Exception e) {
-            log.error("Failed to send emergency email to trusted contact: {} ({})", contact.getName(), contact.getEmail(), e);
+            log.error("Failed to queue emergency email to trusted contact: {} ({})", contact.getName(), contact.getEmail(), e);
         }
     }
     
@@ -642,27 +858,6 @@ public class NotificationService {
         return payload;
     }
     
-    /**
-     * Calculate distance between two points using Haversine formula
-     */
-    private double calculateDistance(BigDecimal lat1, BigDecimal lon1, BigDecimal lat2, BigDecimal lon2) {
-        if (lat2 == null || lon2 == null) {
-            return Double.MAX_VALUE; // Responder location not available
-        }
-        
-        final int R = 6371; // Radius of the earth in km
-        
-        double latDistance = Math.toRadians(lat2.doubleValue() - lat1.doubleValue());
-        double lonDistance = Math.toRadians(lon2.doubleValue() - lon1.doubleValue());
-        double a = Math.sin(latDistance / 2) * Math.sin(latDistance / 2)
-                + Math.cos(Math.toRadians(lat1.doubleValue())) * Math.cos(Math.toRadians(lat2.doubleValue()))
-                * Math.sin(lonDistance / 2) * Math.sin(lonDistance / 2);
-        double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
-        double distance = R * c; // Distance in km
-        
-        return distance;
-    }
-    
     /**
      * Helper class for responder with distance calculation
      */
@@ -683,57 +878,4 @@ public class NotificationService {
             return distance;
         }
     }
-    
-    /**
-     * Send push notification to user's devices
-     * 
-     * EXPLANATION: Push notifications are real-time alerts sent to user's devices
-     * even when the app is closed. This is different from database notifications.
-     * 
-     * How it works:
-     * 1. User's device registers with a push service (FCM, APNs, etc.)
-     * 2. Device gets a unique "push token" 
-     * 3. We store this token in our database
-     * 4. When we want to notify the user, we send to the push service
-     * 5. Push service delivers to the user's device
-     * 
-     * For your SecureHerAI app, this would need:
-     * - Firebase/FCM setup for Android
-     * - APNs setup for iOS  
-     * - Web Push for browsers
-     * - User device tokens stored in database
-     */
-    private void sendPushNotificationToUser(Notification notification) {
-        try {
-            // STEP 1: Get user's device tokens from database
-            // You would need a UserDevice entity to store push tokens
-            // List<String> pushTokens = userDeviceRepository.findPushTokensByUserId(notification.getUserId());
-            
-            // STEP 2: Send to each device using push service
-            // For now, we just log what would happen
-            log.info("🔔 PUSH NOTIFICATION EXPLANATION for notification {}", notification.getId());
-            log.info("   📱 Would send to user's mobile devices (if FCM/APNs configured)");
-            log.info("   💻 Would send to user's web browsers (if Web Push configured)");
-            log.info("   📊 Database notification already saved by createNotification()");
-            
-            // STEP 3: Actual implementation would look like:
-            /*
-            for (String pushToken : pushTokens) {
-                // For Firebase Cloud Messaging:
-                Message message = Message.builder()
-                    .setToken(pushToken)
-                    .setNotification(NotificationDto.builder()
-                        .setTitle(notification.getTitle())
-                        .setBody(notification.getMessage())
-                        .build())
-                    .build();
-                
-                FirebaseMessaging.getInstance().send(message);
-            }
-            */
-            
-        } catch (Exception e) {
-            log.error("Failed to send push notification for notification: {}", notification.getId(), e);
-        }
-    }
 }
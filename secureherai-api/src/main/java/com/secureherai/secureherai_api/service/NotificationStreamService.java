@@ -0,0 +1,443 @@
+package com.secureherai.secureherai_api.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.secureherai.secureherai_api.cluster.ClusterEvent;
+import com.secureherai.secureherai_api.cluster.ClusterEventBus;
+import com.secureherai.secureherai_api.dto.notification.NotificationResponseDto;
+import com.secureherai.secureherai_api.repository.NotificationRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Server-Sent Events streams of a user's notifications, replacing polling of
+ * {@code /api/notifications/count} and {@code /unread}.
+ *
+ * A stream starts with an "unread-count" event, then sends "notification" for each new
+ * in-app notification (one more unread) and "read" { notificationId | all, count } when
+ * notifications are read (that many fewer), so the app keeps its badge without asking
+ * again. Events come from the {@link ClusterEventBus}, so they reach streams on any node.
+ *
+ * Every event has an ID, and the last {@code notification.stream.replay-size} events of
+ * each user are kept, also for {@code notification.stream.resume-window-minutes} after
+ * their last stream closed; a client that reconnects with {@code Last-Event-ID} gets the
+ * events it missed, or a fresh "unread-count" if they are no longer kept or the ID came
+ * from another node. Streams are async requests, so an idle stream holds no servlet thread;
+ * events are written by a small pool, one write at a time per stream, and a heartbeat
+ * comment keeps proxies from closing idle streams. A stream whose client does not keep
+ * up is closed once {@code notification.stream.max-queued-bytes} are waiting for it; the
+ * client reconnects and resumes from its last event.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class NotificationStreamService {
+
+    private final NotificationRepository notificationRepository;
+    private final ClusterEventBus clusterEventBus;
+    private final UnreadCounterService unreadCounterService;
+    private final ObjectMapper objectMapper;
+
+    @Value("${notification.stream.timeout-minutes:30}")
+    private long timeoutMinutes;
+
+    @Value("${notification.stream.heartbeat-seconds:15}")
+    private long heartbeatSeconds;
+
+    @Value("${notification.stream.replay-size:100}")
+    private int replaySize;
+
+    @Value("${notification.stream.max-queued-bytes:65536}")
+    private int maxQueuedBytes;
+
+    @Value("${notification.stream.resume-window-minutes:5}")
+    private long resumeWindowMinutes;
+
+    @Value("${notification.stream.max-streams-per-user:5}")
+    private int maxStreamsPerUser;
+
+    @Value("${notification.stream.workers:4}")
+    private int workers;
+
+    // Event IDs are "<epoch>-<sequence>"; an ID from before a restart or from another node does not match
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLong sequence = new AtomicLong();
+    private final Map<UUID, UserStreams> users = new ConcurrentHashMap<>();
+
+    private ThreadPoolExecutor writer;
+    private ScheduledExecutorService heartbeat;
+
+    private final AtomicLong opened = new AtomicLong();
+    private final AtomicLong resumed = new AtomicLong();
+    private final AtomicLong resynced = new AtomicLong();
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong overflowed = new AtomicLong();
+
+    @PostConstruct
+    void init() {
+        AtomicInteger counter = new AtomicInteger();
+        // One queued task per stream at most, see Stream#schedule
+        writer = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(10000), runnable -> {
+                Thread thread = new Thread(runnable, "sse-" + counter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        heartbeat = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "sse-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+        heartbeat.scheduleWithFixedDelay(this::sendHeartbeats, heartbeatSeconds, heartbeatSeconds, TimeUnit.SECONDS);
+        heartbeat.scheduleWithFixedDelay(this::evictIdleUsers, 1, 1, TimeUnit.MINUTES);
+
+        clusterEventBus.subscribe(ClusterEventBus.NOTIFICATION_CREATED, this::onNotificationCreated);
+        clusterEventBus.subscribe(ClusterEventBus.NOTIFICATIONS_READ, this::onNotificationsRead);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        heartbeat.shutdownNow();
+        users.values().forEach(user -> user.streams().forEach(Stream::close));
+        writer.shutdown();
+    }
+
+    /**
+     * Open a stream for a user
+     *
+     * @param lastEventId The Last-Event-ID header of a reconnecting client, or null
+     */
+    public SseEmitter open(UUID userId, String lastEventId) {
+        SseEmitter emitter = newEmitter();
+        Stream stream = new Stream(userId, emitter);
+        emitter.onCompletion(() -> remove(userId, stream));
+        emitter.onTimeout(() -> remove(userId, stream));
+        emitter.onError(error -> remove(userId, stream));
+
+        // Registered before the count is read, so no event after the count is missed
+        boolean[] resumable = new boolean[1];
+        users.compute(userId, (id, user) -> {
+            UserStreams streams = user != null ? user : new UserStreams();
+            resumable[0] = streams.add(stream, lastEventId, maxStreamsPerUser);
+            return streams;
+        });
+        opened.incrementAndGet();
+        if (resumable[0]) {
+            resumed.incrementAndGet();
+        } else {
+            if (lastEventId != null) {
+                resynced.incrementAndGet();
+            }
+            long count = unreadCounterService.get(userId);
+            stream.offer(new Event(nextId(), "unread-count", json(Map.of("count", count))));
+        }
+        stream.release();
+        return emitter;
+    }
+
+    // Package-private so that tests can stand in for the servlet container behind the emitter
+    SseEmitter newEmitter() {
+        return new SseEmitter(TimeUnit.MINUTES.toMillis(timeoutMinutes));
+    }
+
+    @SuppressWarnings("unchecked")
+    private void onNotificationCreated(ClusterEvent event) {
+        Map<String, Object> notification;
+        if (event.isTruncated()) {
+            // Too large to travel with the event
+            notification = notificationRepository.findById(Long.valueOf(event.getKey()))
+                .map(entity -> objectMapper.convertValue(NotificationResponseDto.fromEntity(entity), Map.class))
+                .orElse(null);
+            if (notification == null) {
+                return;
+            }
+        } else {
+            notification = (Map<String, Object>) event.getData().get("notification");
+        }
+        publish(UUID.fromString(String.valueOf(notification.get("userId"))), "notification", notification);
+    }
+
+    private void onNotificationsRead(ClusterEvent event) {
+        Map<String, Object> data = new LinkedHashMap<>(event.getData());
+        UUID userId = UUID.fromString(String.valueOf(data.remove("userId")));
+        publish(userId, "read", data);
+    }
+
+    private void publish(UUID userId, String name, Map<String, Object> data) {
+        UserStreams user = users.get(userId);
+        if (user == null) {
+            return;
+        }
+        Event event = new Event(nextId(), name, json(data));
+        for (Stream stream : user.record(event, replaySize)) {
+            stream.offer(event);
+        }
+    }
+
+    private void sendHeartbeats() {
+        for (UserStreams user : users.values()) {
+            for (Stream stream : user.streams()) {
+                stream.heartbeat();
+            }
+        }
+    }
+
+    private void remove(UUID userId, Stream stream) {
+        UserStreams user = users.get(userId);
+        if (user != null) {
+            user.remove(stream);
+        }
+    }
+
+    private void evictIdleUsers() {
+        long idleBefore = System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(resumeWindowMinutes);
+        for (UUID userId : users.keySet()) {
+            users.computeIfPresent(userId, (id, user) -> user.isIdleSince(idleBefore) ? null : user);
+        }
+    }
+
+    private String nextId() {
+        return epoch + "-" + sequence.incrementAndGet();
+    }
+
+    private String json(Object data) {
+        try {
+            return objectMapper.writeValueAsString(data);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Stream event is not serializable", e);
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        int streams = 0;
+        for (UserStreams user : users.values()) {
+            streams += user.streams().size();
+        }
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("users", users.size());
+        stats.put("streams", streams);
+        stats.put("opened", opened.get());
+        stats.put("resumed", resumed.get());
+        stats.put("resynced", resynced.get());
+        stats.put("sent", sent.get());
+        stats.put("overflowed", overflowed.get());
+        stats.put("writeQueue", writer.getQueue().size());
+        return stats;
+    }
+
+    private static final class Event {
+        static final Event HEARTBEAT = new Event(null, null, null, -1);
+
+        final String id;
+        final String name;
+        final String data;
+        final long sequence;
+
+        Event(String id, String name, String data) {
+            this(id, name, data, Long.parseLong(id.substring(id.indexOf('-') + 1)));
+        }
+
+        private Event(String id, String name, String data, long sequence) {
+            this.id = id;
+            this.name = name;
+            this.data = data;
+            this.sequence = sequence;
+        }
+
+        int size() {
+            return this == HEARTBEAT ? 0 : data.getBytes(StandardCharsets.UTF_8).length + id.length() + name.length();
+        }
+    }
+
+    /**
+     * A user's open streams and recent events
+     */
+    private final class UserStreams {
+        private final List<Stream> streams = new ArrayList<>();
+        private final Deque<Event> recent = new ArrayDeque<>();
+        // Events up to this sequence are not in recent: from before this entry, or trimmed
+        private long keptAfter = sequence.get();
+        private long idleSince = System.currentTimeMillis();
+
+        synchronized List<Stream> streams() {
+            return new ArrayList<>(streams);
+        }
+
+        /**
+         * Add a stream, held until {@link Stream#release}, and queue the events after
+         * {@code lastEventId} to it
+         *
+         * @return False if those events are not all kept, and the stream needs a fresh count
+         */
+        synchronized boolean add(Stream stream, String lastEventId, int maxStreams) {
+            if (streams.size() >= maxStreams) {
+                // The oldest stream is most likely one the client has given up on
+                streams.remove(0).close();
+            }
+            streams.add(stream);
+            long last = parseSequence(lastEventId);
+            if (last < keptAfter) {
+                return false;
+            }
+            for (Event event : recent) {
+                if (event.sequence > last) {
+                    stream.offer(event);
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Keep an event for resuming streams
+         *
+         * @return The streams to send it to
+         */
+        synchronized List<Stream> record(Event event, int replaySize) {
+            recent.addLast(event);
+            while (recent.size() > replaySize) {
+                keptAfter = recent.removeFirst().sequence;
+            }
+            return new ArrayList<>(streams);
+        }
+
+        synchronized void remove(Stream stream) {
+            if (streams.remove(stream) && streams.isEmpty()) {
+                idleSince = System.currentTimeMillis();
+            }
+        }
+
+        synchronized boolean isIdleSince(long time) {
+            return streams.isEmpty() && idleSince < time;
+        }
+
+        private long parseSequence(String eventId) {
+            if (eventId == null || !eventId.startsWith(epoch + "-")) {
+                return -1;
+            }
+            try {
+                return Long.parseLong(eventId.substring(epoch.length() + 1));
+            } catch (NumberFormatException e) {
+                return -1;
+            }
+        }
+    }
+
+    /**
+     * One open SSE connection; events are queued here and written by the writer pool
+     */
+    private final class Stream {
+        private final UUID userId;
+        private final SseEmitter emitter;
+        private final Deque<Event> queued = new ArrayDeque<>();
+        private int queuedBytes;
+        // Held until open() has queued the first events
+        private boolean held = true;
+        private boolean scheduled;
+        private boolean closed;
+
+        Stream(UUID userId, SseEmitter emitter) {
+            this.userId = userId;
+            this.emitter = emitter;
+        }
+
+        synchronized void offer(Event event) {
+            if (closed) {
+                return;
+            }
+            queuedBytes += event.size();
+            if (queuedBytes > maxQueuedBytes) {
+                overflowed.incrementAndGet();
+                log.debug("Closing notification stream of user {}: {} bytes queued", userId, queuedBytes);
+                close();
+                return;
+            }
+            queued.addLast(event);
+            schedule();
+        }
+
+        synchronized void release() {
+            held = false;
+            schedule();
+        }
+
+        synchronized void heartbeat() {
+            if (!closed && queued.isEmpty()) {
+                queued.addLast(Event.HEARTBEAT);
+                schedule();
+            }
+        }
+
+        private void schedule() {
+            if (held || scheduled || closed || queued.isEmpty()) {
+                return;
+            }
+            scheduled = true;
+            try {
+                writer.execute(this::write);
+            } catch (RejectedExecutionException e) {
+                close();
+            }
+        }
+
+        private void write() {
+            while (true) {
+                Event event;
+                synchronized (this) {
+                    if (closed || queued.isEmpty()) {
+                        scheduled = false;
+                        return;
+                    }
+                    event = queued.pollFirst();
+                    queuedBytes -= event.size();
+                }
+                try {
+                    if (event == Event.HEARTBEAT) {
+                        emitter.send(SseEmitter.event().comment("heartbeat"));
+                    } else {
+                        emitter.send(SseEmitter.event().id(event.id).name(event.name).data(event.data));
+                        sent.incrementAndGet();
+                    }
+                } catch (IOException | IllegalStateException e) {
+                    // The client went away; the emitter's callbacks remove the stream
+                    synchronized (this) {
+                        closed = true;
+                        scheduled = false;
+                    }
+                    emitter.completeWithError(e);
+                    return;
+                }
+            }
+        }
+
+        synchronized void close() {
+            closed = true;
+            queued.clear();
+            queuedBytes = 0;
+            emitter.complete();
+        }
+    }
+}
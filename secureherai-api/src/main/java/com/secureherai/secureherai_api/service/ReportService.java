@@ -21,6 +21,8 @@ import com.secureherai.secureherai_api.entity.ReportEvidence;
 import com.secureherai.secureherai_api.repository.IncidentReportRepository;
 import com.secureherai.secureherai_api.repository.UserRepository;
 import com.secureherai.secureherai_api.repository.ReportEvidenceRepository;
+import com.secureherai.secureherai_api.util.Deadline;
+import com.secureherai.secureherai_api.util.TransactionHooks;
 import java.time.LocalDateTime;
 
 @Service
@@ -38,6 +40,22 @@ public class ReportService {
     @Autowired
     private ReportEvidenceRepository evidenceRepository;
     
+    /**
+     * Auto-generate incident report from SOS alert within the request's deadline. The
+     * report is not needed to get help on the way, so once the deadline has passed it is
+     * generated in the background after the alert is committed.
+     *
+     * @return The report, or null if it failed or was deferred
+     */
+    public IncidentReport autoGenerateReportFromAlert(Alert alert, Deadline deadline) {
+        if (deadline.isExpired()) {
+            logger.info("Request deadline passed, generating report for alert {} in the background", alert.getId());
+            TransactionHooks.runAsyncAfterCommit(() -> autoGenerateReportFromAlert(alert));
+            return null;
+        }
+        return autoGenerateReportFromAlert(alert);
+    }
+
     /**
      * Auto-generate incident report from SOS alert
      */
@@ -0,0 +1,233 @@
+package com.secureherai.secureherai_api.service;
+
+import com.secureherai.secureherai_api.cluster.ClusterEvent;
+import com.secureherai.secureherai_api.cluster.ClusterEventBus;
+import com.secureherai.secureherai_api.entity.Responder;
+import com.secureherai.secureherai_api.entity.User;
+import com.secureherai.secureherai_api.repository.ResponderCandidate;
+import com.secureherai.secureherai_api.repository.ResponderRepository;
+import com.secureherai.secureherai_api.util.Geohash;
+import com.secureherai.secureherai_api.util.GeoGridIndex;
+import com.secureherai.secureherai_api.util.GeoGridIndex.Neighbor;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Finds the responders nearest to an SOS.
+ *
+ * Holds every AVAILABLE, active responder that has reported a location in a
+ * {@link GeoGridIndex}, so finding the nearest responders looks at the grid cells
+ * around the alert instead of loading and sorting every responder. The index is
+ * loaded at startup and kept current by {@link #onLocationChanged} and
+ * {@link #onStatusChanged}, and by the location updates other nodes publish on the
+ * {@link ClusterEventBus}; a full reload every {@code responder.index.rebuild-interval-minutes}
+ * picks up status changes made on other nodes, events the bus dropped, and changes made
+ * outside those paths.
+ *
+ * With {@code responder.index.enabled=false} (several API nodes, where a node's index
+ * only sees its own updates between reloads), and until the first load, the search
+ * runs in the database instead: the 3x3 geohash neighborhood of the alert is read
+ * through the users.geohash index, starting with ~5 km cells and widening to coarser
+ * cells until the nearest responders found are certainly the nearest overall.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ResponderLocationIndex {
+
+    private final ResponderRepository responderRepository;
+    private final ClusterEventBus clusterEventBus;
+
+    // Database search starts with 5-character cells, about 5 km across
+    private static final int DATABASE_START_PRECISION = 5;
+
+    @Value("${responder.index.enabled:true}")
+    private boolean enabled;
+
+    @Value("${responder.index.cell-degrees:0.02}")
+    private double cellDegrees;
+
+    private GeoGridIndex<UUID> index;
+    // Responders that can take alerts, including those with no position yet
+    private final Set<UUID> available = ConcurrentHashMap.newKeySet();
+    private volatile boolean ready;
+
+    private final AtomicLong queries = new AtomicLong();
+    private final AtomicLong queryNanos = new AtomicLong();
+    private final AtomicLong updates = new AtomicLong();
+    private final AtomicLong rebuilds = new AtomicLong();
+    private final AtomicLong databaseQueries = new AtomicLong();
+    private final AtomicLong databaseRoundTrips = new AtomicLong();
+
+    @PostConstruct
+    void init() {
+        index = new GeoGridIndex<>(cellDegrees);
+        clusterEventBus.subscribe(ClusterEventBus.LOCATION_UPDATED, this::onRemoteLocationChanged);
+    }
+
+    /**
+     * Reload all available responders and their positions
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${responder.index.rebuild-interval-minutes:10}",
+               initialDelayString = "${responder.index.rebuild-interval-minutes:10}", timeUnit = TimeUnit.MINUTES)
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        List<Object[]> rows = responderRepository.findPositionsByStatusAndIsActiveTrue(Responder.Status.AVAILABLE);
+        Map<UUID, double[]> positions = new HashMap<>();
+        Set<UUID> ids = new HashSet<>();
+        for (Object[] row : rows) {
+            UUID responderId = (UUID) row[0];
+            ids.add(responderId);
+            if (row[1] != null && row[2] != null) {
+                positions.put(responderId, new double[] {((BigDecimal) row[1]).doubleValue(), ((BigDecimal) row[2]).doubleValue()});
+            }
+        }
+        index.replaceAll(positions);
+        available.retainAll(ids);
+        available.addAll(ids);
+        ready = true;
+        rebuilds.incrementAndGet();
+        log.debug("Responder index rebuilt: {} available, {} with a position", ids.size(), positions.size());
+    }
+
+    /**
+     * A user reported a new position; only available responders are indexed
+     */
+    public void onLocationChanged(UUID userId, double latitude, double longitude) {
+        if (enabled && available.contains(userId)) {
+            index.put(userId, latitude, longitude);
+            updates.incrementAndGet();
+        }
+    }
+
+    /**
+     * A position reported through another node; this node's own updates were applied when they were saved
+     */
+    private void onRemoteLocationChanged(ClusterEvent event) {
+        if (event.isLocal() || event.isTruncated()) {
+            return;
+        }
+        Map<String, Object> data = event.getData();
+        onLocationChanged(UUID.fromString(event.getKey()),
+            ((Number) data.get("latitude")).doubleValue(), ((Number) data.get("longitude")).doubleValue());
+    }
+
+    /**
+     * A responder's status or active flag was saved
+     */
+    public void onStatusChanged(Responder responder) {
+        if (!enabled) {
+            return;
+        }
+        UUID responderId = responder.getUserId();
+        updates.incrementAndGet();
+        if (responder.getStatus() != Responder.Status.AVAILABLE || !Boolean.TRUE.equals(responder.getIsActive())) {
+            available.remove(responderId);
+            index.remove(responderId);
+            return;
+        }
+        available.add(responderId);
+        User user = responder.getUser();
+        if (user != null && user.getCurrentLatitude() != null && user.getCurrentLongitude() != null) {
+            index.put(responderId, user.getCurrentLatitude().doubleValue(), user.getCurrentLongitude().doubleValue());
+        }
+    }
+
+    /**
+     * False until the first load has finished, and always when the index is disabled
+     */
+    public boolean isReady() {
+        return enabled && ready;
+    }
+
+    /**
+     * The available responders nearest to a position
+     *
+     * @param limit Most responders to return
+     * @param radiusKm Largest distance to return
+     * @return Responder IDs with their distance, nearest first
+     */
+    public List<Neighbor<UUID>> findNearest(double latitude, double longitude, int limit, double radiusKm) {
+        if (!isReady()) {
+            return findNearestInDatabase(latitude, longitude, limit, radiusKm);
+        }
+        long started = System.nanoTime();
+        List<Neighbor<UUID>> nearest = index.nearest(latitude, longitude, limit, radiusKm);
+        queries.incrementAndGet();
+        queryNanos.addAndGet(System.nanoTime() - started);
+        return nearest;
+    }
+
+    /**
+     * Nearest responders from the users.geohash index, one query per cell size tried
+     */
+    List<Neighbor<UUID>> findNearestInDatabase(double latitude, double longitude, int limit, double radiusKm) {
+        databaseQueries.incrementAndGet();
+        List<Neighbor<UUID>> nearest = new ArrayList<>();
+        for (int precision = DATABASE_START_PRECISION; precision >= 1; precision--) {
+            List<ResponderCandidate> candidates = responderRepository.findNearestCandidates(Responder.Status.AVAILABLE,
+                Geohash.neighborhood(latitude, longitude, precision), latitude, longitude, limit);
+            databaseRoundTrips.incrementAndGet();
+
+            nearest.clear();
+            for (ResponderCandidate candidate : candidates) {
+                double distanceKm = GeoGridIndex.haversineKm(latitude, longitude,
+                    candidate.getLatitude(), candidate.getLongitude());
+                if (distanceKm <= radiusKm) {
+                    nearest.add(new Neighbor<>(candidate.getUserId(), candidate.getLatitude(),
+                        candidate.getLongitude(), distanceKm));
+                }
+            }
+            nearest.sort(Comparator.comparingDouble(Neighbor::getDistanceKm));
+
+            // Done once nothing outside the neighborhood can be closer than what was found
+            double coverageKm = Geohash.neighborhoodCoverageKm(latitude, precision);
+            boolean fullBeforeCoverage = nearest.size() == limit
+                && nearest.get(limit - 1).getDistanceKm() <= coverageKm;
+            if (fullBeforeCoverage || coverageKm >= radiusKm) {
+                break;
+            }
+        }
+        return nearest;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("ready", ready);
+        stats.put("available", available.size());
+        stats.put("indexed", index.size());
+        stats.put("cellDegrees", cellDegrees);
+        long queryCount = queries.get();
+        stats.put("queries", queryCount);
+        stats.put("avgQueryMicros", queryCount == 0 ? 0.0 : queryNanos.get() / 1000.0 / queryCount);
+        stats.put("updates", updates.get());
+        stats.put("rebuilds", rebuilds.get());
+        stats.put("databaseQueries", databaseQueries.get());
+        stats.put("databaseRoundTrips", databaseRoundTrips.get());
+        return stats;
+    }
+}
@@ -0,0 +1,280 @@
+package com.secureherai.secureherai_api.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.secureherai.secureherai_api.entity.IdempotencyRecord;
+import com.secureherai.secureherai_api.repository.IdempotencyRecordRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Makes SOS requests carrying an Idempotency-Key header safe to retry.
+ *
+ * A request claims its (user, operation, key) triple by inserting a row into the
+ * sos_idempotency_keys table, so only one request runs per key across all instances; a duplicate that arrives
+ * meanwhile gets a conflict. The first response is then stored in that row and in a
+ * bounded in-memory TTL cache, and retries get it back instead of creating another alert.
+ * Server errors are not stored, so the client can retry them. The operation (HTTP method
+ * and route) is part of the key, so a key reused on another endpoint runs as a request of
+ * its own instead of replaying an unrelated response.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SOSIdempotencyService {
+
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private final IdempotencyRecordRepository idempotencyRecordRepository;
+    private final ObjectMapper objectMapper;
+
+    @Value("${sos.idempotency.ttl-hours:24}")
+    private long ttlHours;
+
+    @Value("${sos.idempotency.cache-max-entries:10000}")
+    private int cacheMaxEntries;
+
+    // A claimed key whose request neither finished nor failed within this time is treated as lost
+    @Value("${sos.idempotency.in-flight-timeout-seconds:120}")
+    private long inFlightTimeoutSeconds;
+
+    // Insertion ordered, so the oldest entries are evicted first once the cache is full
+    private final Map<String, CachedResponse> cache = new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CachedResponse> eldest) {
+            return size() > cacheMaxEntries;
+        }
+    };
+
+    /**
+     * Run an SOS action at most once per idempotency key.
+     *
+     * @param userId The authenticated user
+     * @param idempotencyKey The client supplied key, or null to run the action unconditionally
+     * @param operation The HTTP method and route the key is used on, e.g. "POST /api/sos/cancel"
+     * @param bodyType Response body type, used to rebuild a stored response
+     * @param conflictBody Builds the body returned while the first request is still running
+     * @param action The request handling
+     * @return The response of the action, or the stored response of an earlier identical request
+     */
+    public <T> ResponseEntity<T> execute(UUID userId, String idempotencyKey, String operation, Class<T> bodyType,
+                                         Function<String, T> conflictBody, Supplier<ResponseEntity<T>> action) {
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            return action.get();
+        }
+
+        String keyHash = hashKey(userId, operation, idempotencyKey.trim());
+        // Truncated to what the database keeps, as the claim is matched on it later
+        LocalDateTime claimedAt = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        CachedResponse previous = claim(keyHash, userId, claimedAt);
+        if (previous != null) {
+            if (previous.inFlight) {
+                log.info("Duplicate SOS request from user {} while the original is still running", userId);
+                return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(conflictBody.apply("A request with this Idempotency-Key is still being processed"));
+            }
+            try {
+                T body = objectMapper.readValue(previous.body, bodyType);
+                log.info("Replaying stored SOS response for user {}", userId);
+                return ResponseEntity.status(previous.status).header(REPLAYED_HEADER, "true").body(body);
+            } catch (Exception e) {
+                log.warn("Stored SOS response for user {} is unreadable, processing again: {}", userId, e.getMessage());
+            }
+        }
+
+        ResponseEntity<T> response;
+        try {
+            response = action.get();
+        } catch (RuntimeException e) {
+            release(keyHash, claimedAt);
+            throw e;
+        }
+
+        if (response.getStatusCode().is5xxServerError()) {
+            release(keyHash, claimedAt);
+        } else {
+            store(keyHash, userId, claimedAt, response);
+        }
+        return response;
+    }
+
+    /**
+     * Drop expired keys from memory and from the database
+     */
+    @Scheduled(fixedDelay = 3600000)
+    @Transactional
+    public void purgeExpired() {
+        long now = System.currentTimeMillis();
+        synchronized (cache) {
+            cache.values().removeIf(cached -> cached.isExpired(now));
+        }
+
+        int deleted = idempotencyRecordRepository.deleteCreatedBefore(LocalDateTime.now().minusHours(ttlHours));
+        if (deleted > 0) {
+            log.info("Purged {} expired SOS idempotency keys", deleted);
+        }
+    }
+
+    public Map<String, Object> getCacheStats() {
+        synchronized (cache) {
+            return Map.of("cachedKeys", cache.size(), "maxEntries", cacheMaxEntries);
+        }
+    }
+
+    /**
+     * Reserve a key for this request.
+     *
+     * @return null if the caller owns the key now, otherwise the in-flight marker or stored response
+     */
+    private CachedResponse claim(String keyHash, UUID userId, LocalDateTime claimedAt) {
+        long now = System.currentTimeMillis();
+        CachedResponse inFlight = CachedResponse.inFlight(now + TimeUnit.SECONDS.toMillis(inFlightTimeoutSeconds));
+        synchronized (cache) {
+            CachedResponse cached = cache.get(keyHash);
+            if (cached != null && !cached.isExpired(now)) {
+                return cached;
+            }
+            cache.put(keyHash, inFlight);
+        }
+
+        // Not in memory: the database decides (restart, other instance, evicted entry)
+        try {
+            if (idempotencyRecordRepository.insertClaim(keyHash, userId, claimedAt) == 1
+                    || idempotencyRecordRepository.takeOverClaim(keyHash, claimedAt,
+                        claimedAt.minusSeconds(inFlightTimeoutSeconds), claimedAt.minusHours(ttlHours)) == 1) {
+                return null;
+            }
+
+            Optional<IdempotencyRecord> recordOpt = idempotencyRecordRepository.findById(keyHash);
+            if (recordOpt.isPresent() && recordOpt.get().getResponseStatus() != null) {
+                IdempotencyRecord record = recordOpt.get();
+                long expiresAt = toMillis(record.getCreatedAt()) + TimeUnit.HOURS.toMillis(ttlHours);
+                CachedResponse stored = CachedResponse.completed(record.getResponseStatus(), record.getResponseBody(), expiresAt);
+                synchronized (cache) {
+                    cache.put(keyHash, stored);
+                }
+                return stored;
+            }
+        } catch (Exception e) {
+            log.warn("Idempotency key claim failed, continuing with in-memory state only: {}", e.getMessage());
+            return null;
+        }
+
+        // Still running elsewhere (or released just now); the client retries
+        forget(keyHash, inFlight);
+        return inFlight;
+    }
+
+    private void store(String keyHash, UUID userId, LocalDateTime claimedAt, ResponseEntity<?> response) {
+        String body;
+        try {
+            body = objectMapper.writeValueAsString(response.getBody());
+        } catch (Exception e) {
+            log.warn("Could not serialize SOS response for idempotency key: {}", e.getMessage());
+            release(keyHash, claimedAt);
+            return;
+        }
+
+        int status = response.getStatusCode().value();
+        long expiresAt = System.currentTimeMillis() + TimeUnit.HOURS.toMillis(ttlHours);
+        synchronized (cache) {
+            cache.put(keyHash, CachedResponse.completed(status, body, expiresAt));
+        }
+
+        try {
+            if (idempotencyRecordRepository.completeClaim(keyHash, claimedAt, status, body, LocalDateTime.now()) == 0) {
+                log.warn("Idempotency key for user {} was taken over before its response was stored", userId);
+            }
+        } catch (Exception e) {
+            // The in-memory entry still protects this instance
+            log.warn("Failed to persist idempotency key for user {}: {}", userId, e.getMessage());
+        }
+    }
+
+    private void release(String keyHash, LocalDateTime claimedAt) {
+        synchronized (cache) {
+            CachedResponse cached = cache.get(keyHash);
+            if (cached != null && cached.inFlight) {
+                cache.remove(keyHash);
+            }
+        }
+
+        try {
+            idempotencyRecordRepository.releaseClaim(keyHash, claimedAt);
+        } catch (Exception e) {
+            // The claim is taken over once it is older than the in-flight timeout
+            log.warn("Failed to release idempotency key: {}", e.getMessage());
+        }
+    }
+
+    private void forget(String keyHash, CachedResponse inFlight) {
+        synchronized (cache) {
+            cache.remove(keyHash, inFlight);
+        }
+    }
+
+    private static String hashKey(UUID userId, String operation, String idempotencyKey) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(userId.toString().getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) ':');
+            digest.update(operation.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) ':');
+            digest.update(idempotencyKey.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static class CachedResponse {
+        private final boolean inFlight;
+        private final int status;
+        private final String body;
+        private final long expiresAt;
+
+        private CachedResponse(boolean inFlight, int status, String body, long expiresAt) {
+            this.inFlight = inFlight;
+            this.status = status;
+            this.body = body;
+            this.expiresAt = expiresAt;
+        }
+
+        static CachedResponse inFlight(long expiresAt) {
+            return new CachedResponse(true, 0, null, expiresAt);
+        }
+
+        static CachedResponse completed(int status, String body, long expiresAt) {
+            return new CachedResponse(false, status, body, expiresAt);
+        }
+
+        boolean isExpired(long now) {
+            return expiresAt <= now;
+        }
+    }
+}
@@ -0,0 +1,554 @@
+package com.secureherai.secureherai_api.service;
+
+import com.secureherai.secureherai_api.dto.sos.LocationDto;
+import com.secureherai.secureherai_api.entity.Alert;
+import com.secureherai.secureherai_api.entity.VoiceCommandJob;
+import com.secureherai.secureherai_api.entity.VoiceCommandJob.Stage;
+import com.secureherai.secureherai_api.service.AudioBlobStore.StagedAudio;
+import com.secureherai.secureherai_api.service.AzureSpeechService.SpeechTranscriptionResult;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+/**
+ * Staged asynchronous ingestion pipeline for uploaded voice SOS commands.
+ *
+ * accept -> persist raw upload -> transcribe -> keyword decision -> alert commit -> fan-out
+ *
+ * The request thread only accepts and persists the upload, then returns a tracking ID.
+ * Every later stage has its own bounded queue and worker pool so a slow dependency
+ * (Azure Speech, SMTP) only backs up its own stage instead of the servlet pool.
+ *
+ * With early exit enabled the transcribe stage runs the keyword matcher on the
+ * recognizer's intermediate hypotheses and commits the alert as soon as a keyword is
+ * confirmed; the full transcript is attached to the alert once recognition finishes.
+ *
+ * Accepted commands are kept in the {@link VoiceCommandJobStore} with their raw upload on
+ * disk, and each stage they reach is recorded there, which is also where their status is
+ * read from. A command whose node went down is resumed on another node, or on this one
+ * after the restart: from the transcription, or from the fan-out if its alert was already
+ * committed. Resuming runs the fan-out again, so some contacts may be notified twice.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SOSIngestionPipeline {
+
+    private final SOSService sosService;
+    private final AzureSpeechService azureSpeechService;
+    private final VoiceCommandJobStore voiceCommandJobStore;
+
+    @Value("${sos.pipeline.transcribe.workers:4}")
+    private int transcribeWorkers;
+
+    @Value("${sos.pipeline.transcribe.queue-capacity:64}")
+    private int transcribeQueueCapacity;
+
+    // Upper bound on waiting for an early-exit keyword decision or the full transcript
+    @Value("${sos.pipeline.transcribe.timeout-seconds:90}")
+    private long transcribeTimeoutSeconds;
+
+    @Value("${sos.pipeline.decide.workers:2}")
+    private int decideWorkers;
+
+    @Value("${sos.pipeline.decide.queue-capacity:128}")
+    private int decideQueueCapacity;
+
+    @Value("${sos.pipeline.commit.workers:4}")
+    private int commitWorkers;
+
+    @Value("${sos.pipeline.commit.queue-capacity:128}")
+    private int commitQueueCapacity;
+
+    @Value("${sos.pipeline.fanout.workers:4}")
+    private int fanOutWorkers;
+
+    @Value("${sos.pipeline.fanout.queue-capacity:256}")
+    private int fanOutQueueCapacity;
+
+    @Value("${sos.pipeline.job-retention-minutes:30}")
+    private long jobRetentionMinutes;
+
+    // Attempts at a command, counting the ones resumed after its node went down
+    @Value("${sos.pipeline.max-attempts:3}")
+    private int maxAttempts;
+
+    private ThreadPoolExecutor transcribeStage;
+    private ThreadPoolExecutor decideStage;
+    private ThreadPoolExecutor commitStage;
+    private ThreadPoolExecutor fanOutStage;
+
+    @PostConstruct
+    void startStages() {
+        // The entry stage rejects when full so the caller can answer 503 and the client can fall back
+        transcribeStage = newStage("sos-transcribe", transcribeWorkers, transcribeQueueCapacity,
+                new ThreadPoolExecutor.AbortPolicy());
+        // Downstream stages never drop an accepted job; a full queue pushes back on the upstream worker
+        decideStage = newStage("sos-decide", decideWorkers, decideQueueCapacity,
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        commitStage = newStage("sos-commit", commitWorkers, commitQueueCapacity,
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        fanOutStage = newStage("sos-fanout", fanOutWorkers, fanOutQueueCapacity,
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        voiceCommandJobStore.registerRecoveryHandler(this::resume);
+        log.info("SOS ingestion pipeline started (transcribe={}, decide={}, commit={}, fanout={} workers)",
+                transcribeWorkers, decideWorkers, commitWorkers, fanOutWorkers);
+    }
+
+    @PreDestroy
+    void stopStages() {
+        for (ThreadPoolExecutor stage : new ThreadPoolExecutor[] { transcribeStage, decideStage, commitStage, fanOutStage }) {
+            if (stage != null) {
+                stage.shutdown();
+            }
+        }
+        try {
+            for (ThreadPoolExecutor stage : new ThreadPoolExecutor[] { transcribeStage, decideStage, commitStage, fanOutStage }) {
+                if (stage != null && !stage.awaitTermination(10, TimeUnit.SECONDS)) {
+                    stage.shutdownNow();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Accept a voice command upload and queue it for asynchronous processing.
+     * The upload is persisted on the calling thread because the multipart part
+     * is only valid for the lifetime of the request.
+     *
+     * @param userId The user ID from authentication
+     * @param audioFile The uploaded audio file
+     * @param location Location information
+     * @return The tracked job
+     * @throws IOException If the upload cannot be persisted
+     * @throws RejectedExecutionException If the transcription stage is saturated
+     */
+    public IngestionJob submitVoiceCommand(UUID userId, MultipartFile audioFile, LocationDto location) throws IOException {
+        StagedAudio stagedAudio = sosService.stageUpload(audioFile);
+        File rawFile;
+        VoiceCommandJob record;
+        try {
+            rawFile = sosService.persistUpload(stagedAudio);
+            record = voiceCommandJobStore.create(new VoiceCommandJob(userId, location.getLatitude(),
+                location.getLongitude(), location.getAddress(), rawFile.getPath(), stagedAudio.getSha256(),
+                stagedAudio.getSize(), stagedAudio.getExtension(), audioFile.getOriginalFilename()));
+        } catch (IOException | RuntimeException e) {
+            stagedAudio.releaseBuffer();
+            sosService.cleanupTemporaryFile(stagedAudio.getFile());
+            throw e;
+        }
+
+        IngestionJob job = new IngestionJob(record, location, stagedAudio, rawFile, 1);
+
+        try {
+            transcribeStage.execute(() -> transcribe(job));
+        } catch (RejectedExecutionException e) {
+            voiceCommandJobStore.discard(job.getTrackingId());
+            stagedAudio.releaseBuffer();
+            sosService.cleanupTemporaryFile(rawFile);
+            log.warn("SOS transcription stage saturated, rejecting voice command for user: {}", userId);
+            throw e;
+        }
+
+        log.info("Accepted voice command {} for user: {}", job.getTrackingId(), userId);
+        return job;
+    }
+
+    /**
+     * Run report generation and notifications for an alert created outside the
+     * pipeline (e.g. streaming voice SOS) on the fan-out stage
+     *
+     * @param alert The committed alert
+     */
+    public void submitFanOut(Alert alert) {
+        fanOutStage.execute(() -> {
+            try {
+                sosService.dispatchAlertFanOut(alert);
+            } catch (Exception e) {
+                log.error("Fan-out failed for alert {}", alert.getId(), e);
+            }
+        });
+    }
+
+    /**
+     * Look up a tracked job, as stored; it may be running on another node
+     *
+     * @param trackingId The tracking ID returned on submission
+     * @return The job if it is still tracked
+     */
+    public Optional<VoiceCommandJob> getJob(UUID trackingId) {
+        return voiceCommandJobStore.find(trackingId);
+    }
+
+    /**
+     * Current queue depth per stage, useful for monitoring bursts
+     */
+    public Map<String, Integer> getQueueDepths() {
+        return Map.of(
+            "transcribe", transcribeStage.getQueue().size(),
+            "decide", decideStage.getQueue().size(),
+            "commit", commitStage.getQueue().size(),
+            "fanout", fanOutStage.getQueue().size()
+        );
+    }
+
+    /**
+     * Drop finished jobs once their retention period has passed
+     */
+    @Scheduled(fixedDelay = 60000)
+    public void evictFinishedJobs() {
+        voiceCommandJobStore.deleteFinishedBefore(LocalDateTime.now().minusMinutes(jobRetentionMinutes));
+    }
+
+    /**
+     * Pick up a command whose node went down, from its raw upload
+     */
+    void resume(VoiceCommandJob record, int attempt) {
+        File rawFile = new File(record.getAudioPath());
+        StagedAudio stagedAudio = new StagedAudio(rawFile, record.getAudioSha256(), record.getAudioSize(),
+            record.getAudioExtension());
+        LocationDto location = new LocationDto(record.getLatitude(), record.getLongitude(), record.getAddress());
+        IngestionJob job = new IngestionJob(record, location, stagedAudio, rawFile, attempt);
+
+        if (attempt > maxAttempts) {
+            finish(job, Stage.FAILED, "Voice command could not be processed after " + maxAttempts + " attempts");
+            return;
+        }
+        if (record.getAlertId() != null) {
+            // The alert was committed; only the notifications may be missing
+            Optional<Alert> alert = sosService.findAlert(record.getAlertId());
+            if (alert.isPresent()) {
+                handOff(fanOutStage, job, () -> fanOut(job, alert.get()));
+                return;
+            }
+        }
+        if (!rawFile.exists()) {
+            finish(job, Stage.FAILED, "Voice command audio was lost, please send the SOS again");
+            return;
+        }
+        // Left for the next recovery timer if the stage is full
+        try {
+            transcribeStage.execute(() -> transcribe(job));
+        } catch (RejectedExecutionException e) {
+            log.warn("SOS transcription stage saturated, voice command {} waits for the next recovery", job.getTrackingId());
+        }
+    }
+
+    private void transcribe(IngestionJob job) {
+        if (!advance(job, Stage.TRANSCRIBING)) {
+            return;
+        }
+        try {
+            if (azureSpeechService.isEarlyExitEnabled()) {
+                transcribeUntilKeyword(job);
+                return;
+            }
+            StagedAudio stagedAudio = job.getStagedAudio();
+            SpeechTranscriptionResult result = stagedAudio.isInMemory()
+                ? azureSpeechService.transcribeAudio(stagedAudio.getData(), stagedAudio.getFileName(),
+                    stagedAudio.getSha256())
+                : azureSpeechService.transcribeAudioFile(job.getRawFile(), stagedAudio.getSha256());
+            decideOn(job, result);
+        } catch (Exception e) {
+            log.error("Transcription stage failed for voice command {}", job.getTrackingId(), e);
+            finish(job, Stage.FAILED, "Transcription error: " + e.getMessage());
+        }
+    }
+
+    private void transcribeUntilKeyword(IngestionJob job) throws Exception {
+        StagedAudio stagedAudio = job.getStagedAudio();
+        Predicate<String> keywordMatcher = text -> sosService.containsKeyword(text, job.getUserId());
+        EarlyExitTranscription transcription = stagedAudio.isInMemory()
+            ? azureSpeechService.transcribeUntilKeyword(stagedAudio.getData(), stagedAudio.getFileName(),
+                stagedAudio.getSha256(), keywordMatcher)
+            : azureSpeechService.transcribeUntilKeyword(job.getRawFile(), stagedAudio.getSha256(), keywordMatcher);
+
+        String keywordText = transcription.awaitKeyword(transcribeTimeoutSeconds, TimeUnit.SECONDS);
+        if (keywordText != null) {
+            // The keyword decision was made on the hypotheses, so go straight to the commit
+            log.info("Keyword confirmed early for voice command {}", job.getTrackingId());
+            job.setTranscribedText(keywordText);
+            job.setPendingTranscript(transcription.getTranscript());
+            handOff(commitStage, job, () -> commit(job));
+            return;
+        }
+        decideOn(job, transcription.awaitTranscript(transcribeTimeoutSeconds, TimeUnit.SECONDS));
+    }
+
+    private void decideOn(IngestionJob job, SpeechTranscriptionResult result) {
+        if (!result.isSuccess()) {
+            finish(job, Stage.FAILED, result.isEngineUnavailable()
+                ? SOSService.VOICE_UNAVAILABLE_MESSAGE
+                : "Transcription failed: " + result.getMessage());
+            return;
+        }
+        job.setTranscribedText(result.getText());
+        handOff(decideStage, job, () -> decide(job));
+    }
+
+    private void decide(IngestionJob job) {
+        if (!advance(job, Stage.DECIDING)) {
+            return;
+        }
+        try {
+            if (!sosService.containsKeyword(job.getTranscribedText(), job.getUserId())) {
+                finish(job, Stage.NO_KEYWORD, "Alert not triggered. No emergency keywords detected in the audio.");
+                return;
+            }
+            handOff(commitStage, job, () -> commit(job));
+        } catch (Exception e) {
+            log.error("Keyword stage failed for voice command {}", job.getTrackingId(), e);
+            finish(job, Stage.FAILED, "Keyword detection error: " + e.getMessage());
+        }
+    }
+
+    private void commit(IngestionJob job) {
+        if (!advance(job, Stage.COMMITTING)) {
+            return;
+        }
+        try {
+            String audioUrl = sosService.saveAudioFile(job.getStagedAudio());
+            Alert alert = sosService.createVoiceAlert(job.getUserId(), job.getLocation(), job.getTranscribedText(), audioUrl);
+            job.setAlertId(alert.getId());
+            CompletableFuture<SpeechTranscriptionResult> pendingTranscript = job.getPendingTranscript();
+            if (pendingTranscript != null) {
+                pendingTranscript.thenAccept(result -> attachTranscript(job, alert, result));
+            }
+            handOff(fanOutStage, job, () -> fanOut(job, alert));
+        } catch (Exception e) {
+            log.error("Alert commit stage failed for voice command {}", job.getTrackingId(), e);
+            finish(job, Stage.FAILED, "Error creating alert: " + e.getMessage());
+        }
+    }
+
+    private void fanOut(IngestionJob job, Alert alert) {
+        // Records the alert ID too, so a resumed command does not commit a second alert
+        if (!advance(job, Stage.FANNING_OUT)) {
+            return;
+        }
+        try {
+            sosService.dispatchAlertFanOut(alert);
+            finish(job, Stage.COMPLETED, alert.isCoalesced()
+                ? "SOS Alert already active, voice command merged into it"
+                : "SOS Alert triggered successfully");
+        } catch (Exception e) {
+            // The alert itself is committed; only the notifications are affected
+            log.error("Fan-out stage failed for alert {}", alert.getId(), e);
+            finish(job, Stage.COMPLETED, "SOS Alert triggered, but some notifications failed: " + e.getMessage());
+        }
+    }
+
+    private void attachTranscript(IngestionJob job, Alert alert, SpeechTranscriptionResult result) {
+        if (!result.isSuccess()) {
+            log.warn("Full transcript unavailable for alert {}: {}", alert.getId(), result.getMessage());
+            return;
+        }
+        if (alert.isCoalesced()) {
+            // The alert's message belongs to the trigger that raised it, not to this repeat
+            job.setTranscribedText(result.getText());
+            return;
+        }
+        try {
+            sosService.attachTranscript(alert.getId(), result.getText());
+            job.setTranscribedText(result.getText());
+        } catch (Exception e) {
+            log.warn("Failed to attach transcript to alert {}: {}", alert.getId(), e.getMessage());
+        }
+    }
+
+    private void handOff(ThreadPoolExecutor nextStage, IngestionJob job, Runnable task) {
+        try {
+            nextStage.execute(task);
+        } catch (RejectedExecutionException e) {
+            // Only happens while shutting down
+            finish(job, Stage.FAILED, "Pipeline is shutting down");
+        }
+    }
+
+    private void finish(IngestionJob job, Stage stage, String message) {
+        job.getStagedAudio().releaseBuffer();
+        job.setMessage(message);
+        job.advance(stage);
+        if (!voiceCommandJobStore.finish(job)) {
+            // Another attempt owns the command and its upload now
+            log.warn("Voice command {} was taken over, dropping the result of attempt {}", job.getTrackingId(), job.getAttempt());
+            return;
+        }
+        sosService.cleanupTemporaryFile(job.getRawFile());
+        log.info("Voice command {} finished with stage {}: {}", job.getTrackingId(), stage, message);
+    }
+
+    /**
+     * Move a job to its next stage and record it
+     *
+     * @return false if the job was taken over by another attempt and must stop here
+     */
+    private boolean advance(IngestionJob job, Stage stage) {
+        job.advance(stage);
+        if (voiceCommandJobStore.update(job)) {
+            return true;
+        }
+        log.warn("Voice command {} was taken over, stopping attempt {}", job.getTrackingId(), job.getAttempt());
+        job.getStagedAudio().releaseBuffer();
+        return false;
+    }
+
+    private static ThreadPoolExecutor newStage(String name, int workers, int queueCapacity,
+                                               RejectedExecutionHandler rejectionHandler) {
+        AtomicInteger counter = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        return new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), threadFactory, rejectionHandler);
+    }
+
+    /**
+     * Tracking state for one voice command moving through the pipeline
+     */
+    public static class IngestionJob {
+        private final UUID trackingId;
+        private final UUID userId;
+        private final LocationDto location;
+        private final StagedAudio stagedAudio;
+        private final File rawFile;
+        private final String originalFileName;
+        private final LocalDateTime acceptedAt;
+        private final int attempt;
+        private volatile Stage stage;
+        private volatile LocalDateTime updatedAt;
+        private volatile String transcribedText;
+        private volatile UUID alertId;
+        private volatile String message;
+        private volatile CompletableFuture<SpeechTranscriptionResult> pendingTranscript;
+
+        /**
+         * @param record The stored command
+         * @param stagedAudio The upload, in memory or in its staging file
+         * @param rawFile The upload on disk
+         * @param attempt The stored attempt this job runs
+         */
+        public IngestionJob(VoiceCommandJob record, LocationDto location, StagedAudio stagedAudio, File rawFile, int attempt) {
+            this.trackingId = record.getId();
+            this.userId = record.getUserId();
+            this.location = location;
+            this.stagedAudio = stagedAudio;
+            this.rawFile = rawFile;
+            this.originalFileName = record.getOriginalFileName();
+            this.acceptedAt = record.getAcceptedAt();
+            this.attempt = attempt;
+            this.stage = record.getStage();
+            this.updatedAt = record.getUpdatedAt();
+            this.transcribedText = record.getTranscribedText();
+            this.alertId = record.getAlertId();
+        }
+
+        void advance(Stage stage) {
+            this.stage = stage;
+            this.updatedAt = LocalDateTime.now();
+        }
+
+        public UUID getTrackingId() {
+            return trackingId;
+        }
+
+        public UUID getUserId() {
+            return userId;
+        }
+
+        public LocationDto getLocation() {
+            return location;
+        }
+
+        public StagedAudio getStagedAudio() {
+            return stagedAudio;
+        }
+
+        /**
+         * The upload on disk, also for uploads transcribed from memory
+         */
+        public File getRawFile() {
+            return rawFile;
+        }
+
+        public String getOriginalFileName() {
+            return originalFileName;
+        }
+
+        public LocalDateTime getAcceptedAt() {
+            return acceptedAt;
+        }
+
+        public int getAttempt() {
+            return attempt;
+        }
+
+        public Stage getStage() {
+            return stage;
+        }
+
+        public LocalDateTime getUpdatedAt() {
+            return updatedAt;
+        }
+
+        public String getTranscribedText() {
+            return transcribedText;
+        }
+
+        public void setTranscribedText(String transcribedText) {
+            this.transcribedText = transcribedText;
+        }
+
+        public UUID getAlertId() {
+            return alertId;
+        }
+
+        public void setAlertId(UUID alertId) {
+            this.alertId = alertId;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        public void setMessage(String message) {
+            this.message = message;
+        }
+
+        /**
+         * Full transcript still being recognized after an early keyword decision
+         */
+        CompletableFuture<SpeechTranscriptionResult> getPendingTranscript() {
+            return pendingTranscript;
+        }
+
+        void setPendingTranscript(CompletableFuture<SpeechTranscriptionResult> pendingTranscript) {
+            this.pendingTranscript = pendingTranscript;
+        }
+    }
+}
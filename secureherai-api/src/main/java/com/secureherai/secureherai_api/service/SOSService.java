@@ -1,20 +1,29 @@
 package com.secureherai.secureherai_api.service;
 
+import com.secureherai.secureherai_api.cluster.ClusterEventBus;
 import com.secureherai.secureherai_api.dto.sos.LocationDto;
 import com.secureherai.secureherai_api.entity.Alert;
 import com.secureherai.secureherai_api.entity.AlertResponder;
+import com.secureherai.secureherai_api.entity.AlertTrigger;
 import com.secureherai.secureherai_api.entity.IncidentReport;
 import com.secureherai.secureherai_api.entity.User;
 import com.secureherai.secureherai_api.entity.Responder;
 import com.secureherai.secureherai_api.enums.AlertStatus;
+import com.secureherai.secureherai_api.exception.DeadlineExceededException;
+import com.secureherai.secureherai_api.exception.SpeechEngineUnavailableException;
 import com.secureherai.secureherai_api.repository.AlertRepository;
 import com.secureherai.secureherai_api.repository.AlertResponderRepository;
+import com.secureherai.secureherai_api.repository.AlertTriggerRepository;
 import com.secureherai.secureherai_api.repository.UserRepository;
 import com.secureherai.secureherai_api.repository.ResponderRepository;
+import com.secureherai.secureherai_api.service.AudioBlobStore.StagedAudio;
 import com.secureherai.secureherai_api.service.AzureSpeechService.SpeechTranscriptionResult;
+import com.secureherai.secureherai_api.util.Deadline;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
@@ -22,10 +31,7 @@ import org.springframework.web.multipart.MultipartFile;
 import java.io.File;
 import java.io.IOException;
 import java.math.BigDecimal;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
@@ -43,6 +49,18 @@ import java.time.LocalDateTime;
 @Slf4j
 public class SOSService {
     
+    /**
+     * Shown when audio can't be transcribed because speech recognition is down
+     */
+    public static final String VOICE_UNAVAILABLE_MESSAGE =
+        "Voice recognition is temporarily unavailable. Please send the SOS as a text command.";
+    
+    /**
+     * Alert message for a voice SOS whose audio could not be transcribed within the request's deadline
+     */
+    public static final String LOCATION_ONLY_MESSAGE =
+        "Voice SOS received, but the recording could not be transcribed in time. Listen to the attached recording.";
+    
     private final AlertRepository alertRepository;
     private final AlertResponderRepository alertResponderRepository;
     private final UserRepository userRepository;
@@ -51,12 +69,20 @@ public class SOSService {
     private final NotificationService notificationService;
     private final SettingsService settingsService;
     private final ReportService reportService;
+    private final KeywordMatcherService keywordMatcherService;
+    private final AudioBlobStore audioBlobStore;
+    private final AlertTriggerRepository alertTriggerRepository;
+    
+    @Autowired(required = false)
+    private ClusterEventBus clusterEventBus;
     
-    // Default SOS keywords
-    private static final List<String> DEFAULT_KEYWORDS = Arrays.asList("help", "emergency", "sos");
+    // Repeat triggers within this many seconds of an ACTIVE alert are merged into it (0 disables)
+    @Value("${sos.coalesce.window-seconds:120}")
+    private long coalesceWindowSeconds;
     
-    // Directory for storing audio files
-    private static final String SOS_AUDIO_DIR = "data/sos";
+    // Part of a voice request's deadline kept back from transcription for the alert commit and fan-out
+    @Value("${sos.deadline.fan-out-reserve-ms:2000}")
+    private long fanOutReserveMillis;
     
     /**
      * Process voice command and create an alert if a keyword is detected
@@ -72,16 +98,19 @@ public class SOSService {
         
         log.info("Processing voice command for user: {}", userId);
         
-        File tempFile = null;
+        StagedAudio stagedAudio = null;
         try {
-            // Save the uploaded file temporarily
-            tempFile = saveTemporaryFile(audioFile);
+            // Write the upload once, hashing it on the way
+            stagedAudio = stageUpload(audioFile);
             
-            // Transcribe the audio file
-            SpeechTranscriptionResult transcriptionResult = azureSpeechService.transcribeAudioFile(tempFile);
+            // Transcribe the audio, straight from memory when the upload was short
+            SpeechTranscriptionResult transcriptionResult = transcribeStaged(stagedAudio);
             
             if (!transcriptionResult.isSuccess()) {
                 log.warn("Transcription failed: {}", transcriptionResult.getMessage());
+                if (transcriptionResult.isEngineUnavailable()) {
+                    throw new SpeechEngineUnavailableException(VOICE_UNAVAILABLE_MESSAGE);
+                }
                 return null;
             }
             
@@ -90,8 +119,8 @@ public class SOSService {
             
             // Check if any keywords are present in the transcribed text
             if (containsKeyword(transcribedText, userId)) {
-                // Save the audio file to a persistent location
-                String audioUrl = saveAudioFile(audioFile, userId);
+                // Promote the staged upload into audio storage
+                String audioUrl = saveAudioFile(stagedAudio);
                 
                 // Create alert
                 Alert alert = new Alert();
@@ -104,20 +133,10 @@ public class SOSService {
                 alert.setAudioRecording(audioUrl);
                 
                 // Save the alert
-                Alert savedAlert = alertRepository.save(alert);
-                
-                // Auto-generate incident report for this alert
-                try {
-                    IncidentReport autoReport = reportService.autoGenerateReportFromAlert(savedAlert);
-                    if (autoReport != null) {
-                        log.info("Auto-generated incident report for alert: {}", savedAlert.getId());
-                    }
-                } catch (Exception e) {
-                    log.warn("Failed to auto-generate report for alert {}: {}", savedAlert.getId(), e.getMessage());
-                }
+                Alert savedAlert = saveOrCoalesce(alert);
                 
-                // Send notifications to trusted contacts and nearby responders
-                notificationService.sendSOSAlertNotifications(savedAlert);
+                // Auto-generate incident report and notify contacts/responders
+                dispatchAlertFanOut(savedAlert);
                 
                 return savedAlert;
             } else {
@@ -125,8 +144,11 @@ public class SOSService {
                 return null;
             }
         } finally {
-            // Clean up the temporary file
-            // cleanupTemporaryFile(tempFile);
+            // Clean up the staged upload; a promoted recording lives on in audio storage
+            if (stagedAudio != null) {
+                stagedAudio.releaseBuffer();
+                cleanupTemporaryFile(stagedAudio.getFile());
+            }
         }
     }
     
@@ -141,14 +163,43 @@ public class SOSService {
     @Transactional
     public Alert processVoiceCommandFromUrl(UUID userId, String audioUrl, LocationDto location) 
             throws IOException, InterruptedException, ExecutionException, Exception {
+        return processVoiceCommandFromUrl(userId, audioUrl, location, Deadline.none());
+    }
+    
+    /**
+     * Process voice command from URL within the request's deadline. Transcription gets
+     * the deadline minus a reserve for the alert commit and fan-out; if it cannot finish
+     * in time the SOS is not dropped but alerted on location alone, with the recording
+     * attached for whoever responds.
+     *
+     * @param userId The user ID from authentication
+     * @param audioUrl The URL of the audio file
+     * @param location Location information
+     * @param deadline The request's deadline
+     * @return The created alert or null if no keywords were detected
+     */
+    @Transactional
+    public Alert processVoiceCommandFromUrl(UUID userId, String audioUrl, LocationDto location, Deadline deadline)
+            throws Exception {
         
-        log.info("Processing voice command from URL for user: {}", userId);
+        log.info("Processing voice command from URL for user: {} ({})", userId, deadline);
         
         // Transcribe the audio from URL
-        SpeechTranscriptionResult transcriptionResult = azureSpeechService.transcribeAudioFromUrl(audioUrl, null);
+        SpeechTranscriptionResult transcriptionResult;
+        try {
+            transcriptionResult = azureSpeechService.transcribeAudioFromUrl(audioUrl, null,
+                deadline.reserve(Duration.ofMillis(fanOutReserveMillis)));
+        } catch (DeadlineExceededException e) {
+            log.warn("Voice command from URL not transcribed in time for user: {} ({}), alerting on location alone",
+                userId, e.getMessage());
+            return commitUrlVoiceAlert(userId, location, LOCATION_ONLY_MESSAGE, audioUrl, deadline);
+        }
         
         if (!transcriptionResult.isSuccess()) {
             log.warn("URL transcription failed: {}", transcriptionResult.getMessage());
+            if (transcriptionResult.isEngineUnavailable()) {
+                throw new SpeechEngineUnavailableException(VOICE_UNAVAILABLE_MESSAGE);
+            }
             return null;
         }
         
@@ -157,40 +208,35 @@ public class SOSService {
         
         // Check if any default keywords are present in the transcribed text
         if (containsKeyword(transcribedText, userId)) {
-            // Create alert
-            Alert alert = new Alert();
-            alert.setUserId(userId);
-            alert.setLatitude(location.getLatitude());
-            alert.setLongitude(location.getLongitude());
-            alert.setAddress(location.getAddress());
-            alert.setTriggerMethod("voice");
-            alert.setAlertMessage(transcribedText);
-            alert.setAudioRecording(audioUrl); // Use the provided URL directly
-            alert.setTriggeredAt(LocalDateTime.now());
-            
-            // Save the alert
-            Alert savedAlert = alertRepository.save(alert);
-            
-            // Auto-generate incident report for this alert
-            try {
-                IncidentReport autoReport = reportService.autoGenerateReportFromAlert(savedAlert);
-                if (autoReport != null) {
-                    log.info("Auto-generated incident report for alert: {}", savedAlert.getId());
-                }
-            } catch (Exception e) {
-                log.warn("Failed to auto-generate report for alert {}: {}", savedAlert.getId(), e.getMessage());
-            }
-            
-            // Send notifications to trusted contacts and nearby responders
-            notificationService.sendSOSAlertNotifications(savedAlert);
-            
-            return savedAlert;
+            return commitUrlVoiceAlert(userId, location, transcribedText, audioUrl, deadline);
         } else {
             log.info("No keywords detected in voice command from URL");
             return null;
         }
     }
     
+    private Alert commitUrlVoiceAlert(UUID userId, LocationDto location, String alertMessage, String audioUrl,
+                                      Deadline deadline) {
+        // Create alert
+        Alert alert = new Alert();
+        alert.setUserId(userId);
+        alert.setLatitude(location.getLatitude());
+        alert.setLongitude(location.getLongitude());
+        alert.setAddress(location.getAddress());
+        alert.setTriggerMethod("voice");
+        alert.setAlertMessage(alertMessage);
+        alert.setAudioRecording(audioUrl); // Use the provided URL directly
+        alert.setTriggeredAt(LocalDateTime.now());
+        
+        // Save the alert
+        Alert savedAlert = saveOrCoalesce(alert);
+        
+        // Auto-generate incident report and notify contacts/responders
+        dispatchAlertFanOut(savedAlert, deadline);
+        
+        return savedAlert;
+    }
+    
     /**
      * Process text command and create an alert if the provided keyword matches user's SOS keyword
      *
@@ -202,6 +248,23 @@ public class SOSService {
      */
     @Transactional
     public Alert processTextCommand(UUID userId, String message, String keyword, LocationDto location) {
+        return processTextCommand(userId, message, keyword, location, Deadline.none());
+    }
+    
+    /**
+     * Process text command within the request's deadline; report generation and
+     * notifications that do not fit in it continue in the background
+     *
+     * @param userId The user ID from authentication
+     * @param message The text message
+     * @param keyword The keyword to check
+     * @param location Location information
+     * @param deadline The request's deadline
+     * @return The created alert or null if the keyword doesn't match
+     */
+    @Transactional
+    public Alert processTextCommand(UUID userId, String message, String keyword, LocationDto location,
+                                    Deadline deadline) {
         
         log.info("Processing text command for user: {}", userId);
         
@@ -210,7 +273,7 @@ public class SOSService {
             String userSosKeyword = settingsService.getSosKeyword(userId);
             
             // Check if the provided keyword matches the user's SOS keyword (case-insensitive)
-            if (keyword != null && keyword.toLowerCase().equals(userSosKeyword.toLowerCase())) {
+            if (keyword != null && KeywordMatcherService.parseKeywords(userSosKeyword).contains(keyword.trim().toLowerCase())) {
                 // Create alert
                 Alert alert = new Alert();
                 alert.setUserId(userId);
@@ -222,20 +285,10 @@ public class SOSService {
                 alert.setTriggeredAt(LocalDateTime.now());
                 
                 // Save the alert
-                Alert savedAlert = alertRepository.save(alert);
+                Alert savedAlert = saveOrCoalesce(alert);
                 
-                // Auto-generate incident report for this alert
-                try {
-                    IncidentReport autoReport = reportService.autoGenerateReportFromAlert(savedAlert);
-                    if (autoReport != null) {
-                        log.info("Auto-generated incident report for alert: {}", savedAlert.getId());
-                    }
-                } catch (Exception e) {
-                    log.warn("Failed to auto-generate report for alert {}: {}", savedAlert.getId(), e.getMessage());
-                }
-                
-                // Send notifications to trusted contacts and nearby responders
-                notificationService.sendSOSAlertNotifications(savedAlert);
+                // Auto-generate incident report and notify contacts/responders
+                dispatchAlertFanOut(savedAlert, deadline);
                 
                 return savedAlert;
             } else {
@@ -248,6 +301,148 @@ public class SOSService {
         }
     }
     
+    /**
+     * Persist a voice alert for an already transcribed and keyword-matched command.
+     * Only the alert row is written here so the transaction stays short; the
+     * report and notification fan-out is dispatched separately.
+     *
+     * @param userId The user ID from authentication
+     * @param location Location information
+     * @param transcribedText The transcribed voice command
+     * @param audioUrl The stored audio recording reference
+     * @return The saved alert
+     */
+    @Transactional
+    public Alert createVoiceAlert(UUID userId, LocationDto location, String transcribedText, String audioUrl) {
+        Alert alert = new Alert();
+        alert.setUserId(userId);
+        alert.setLatitude(location.getLatitude());
+        alert.setLongitude(location.getLongitude());
+        alert.setAddress(location.getAddress());
+        alert.setTriggerMethod("voice");
+        alert.setAlertMessage(transcribedText);
+        alert.setAudioRecording(audioUrl);
+        alert.setTriggeredAt(LocalDateTime.now());
+        
+        Alert savedAlert = saveOrCoalesce(alert);
+        log.info("Voice alert {} committed for user: {}", savedAlert.getId(), userId);
+        return savedAlert;
+    }
+    
+    /**
+     * Save a new alert, or merge it into the user's ACTIVE alert if that was triggered
+     * within the coalescing window. The merged trigger is recorded in alert_triggers and
+     * moves the alert to the latest location; the returned alert is flagged as coalesced.
+     * The user's row is locked first, so triggers arriving together (on any instance)
+     * are coalesced one after the other instead of each creating an alert. Must run
+     * inside the caller's transaction, which holds the lock until it commits.
+     *
+     * @param alert The new, unsaved alert
+     * @return The saved alert or the active alert the trigger was merged into
+     */
+    private Alert saveOrCoalesce(Alert alert) {
+        if (coalesceWindowSeconds > 0) {
+            userRepository.lockById(alert.getUserId());
+            LocalDateTime since = LocalDateTime.now().minusSeconds(coalesceWindowSeconds);
+            Optional<Alert> activeOpt = alertRepository.findFirstByUserIdAndStatusAndTriggeredAtAfterOrderByTriggeredAtDesc(
+                alert.getUserId(), AlertStatus.ACTIVE, since);
+            
+            if (activeOpt.isPresent()) {
+                Alert activeAlert = activeOpt.get();
+                alertTriggerRepository.save(new AlertTrigger(activeAlert.getId(), alert));
+                
+                activeAlert.setLatitude(alert.getLatitude());
+                activeAlert.setLongitude(alert.getLongitude());
+                if (alert.getAddress() != null) {
+                    activeAlert.setAddress(alert.getAddress());
+                }
+                if (activeAlert.getAudioRecording() == null) {
+                    activeAlert.setAudioRecording(alert.getAudioRecording());
+                }
+                
+                Alert mergedAlert = alertRepository.save(activeAlert);
+                mergedAlert.setCoalesced(true);
+                log.info("Merged repeat {} trigger from user {} into active alert {}", 
+                    alert.getTriggerMethod(), alert.getUserId(), mergedAlert.getId());
+                return mergedAlert;
+            }
+        }
+        
+        Alert savedAlert = alertRepository.save(alert);
+        publishAlertEvent(ClusterEventBus.ALERT_CREATED, savedAlert);
+        return savedAlert;
+    }
+    
+    /**
+     * Tell the connected apps on every node about a new alert or a status change
+     */
+    private void publishAlertEvent(String type, Alert alert) {
+        if (clusterEventBus != null && alert != null) {
+            clusterEventBus.publishAlertEvent(type, alert);
+        }
+    }
+    
+    /**
+     * Replace the alert message with the complete transcript once it is available
+     *
+     * @param alertId The alert ID
+     * @param transcript The complete transcript
+     * @return The updated alert or null if not found
+     */
+    @Transactional
+    public Alert attachTranscript(UUID alertId, String transcript) {
+        if (transcript == null || transcript.isBlank()) {
+            return null;
+        }
+        
+        Optional<Alert> alertOpt = alertRepository.findById(alertId);
+        if (alertOpt.isEmpty()) {
+            log.warn("Alert {} not found while attaching transcript", alertId);
+            return null;
+        }
+        
+        Alert alert = alertOpt.get();
+        alert.setAlertMessage(transcript);
+        return alertRepository.save(alert);
+    }
+    
+    /**
+     * Auto-generate the incident report and send SOS notifications for a saved alert
+     *
+     * @param savedAlert The persisted alert
+     */
+    public void dispatchAlertFanOut(Alert savedAlert) {
+        dispatchAlertFanOut(savedAlert, Deadline.none());
+    }
+    
+    /**
+     * Auto-generate the incident report and send SOS notifications for a saved alert,
+     * deferring whatever does not fit in the request's deadline to the background
+     *
+     * @param savedAlert The persisted alert
+     * @param deadline The request's deadline
+     */
+    public void dispatchAlertFanOut(Alert savedAlert, Deadline deadline) {
+        // Contacts and responders were already alerted for the alert a repeat trigger merged into
+        if (savedAlert.isCoalesced()) {
+            log.info("Skipping fan-out for repeat trigger merged into alert: {}", savedAlert.getId());
+            return;
+        }
+        
+        // Auto-generate incident report for this alert
+        try {
+            IncidentReport autoReport = reportService.autoGenerateReportFromAlert(savedAlert, deadline);
+            if (autoReport != null) {
+                log.info("Auto-generated incident report for alert: {}", savedAlert.getId());
+            }
+        } catch (Exception e) {
+            log.warn("Failed to auto-generate report for alert {}: {}", savedAlert.getId(), e.getMessage());
+        }
+        
+        // Send notifications to trusted contacts and nearby responders
+        notificationService.sendSOSAlertNotifications(savedAlert, deadline);
+    }
+    
     /**
      * Check if text contains any of the default keywords or user's custom keyword
      *
@@ -255,92 +450,63 @@ public class SOSService {
      * @param userId The user ID to get custom keyword
      * @return True if any keyword is found, false otherwise
      */
-    private boolean containsKeyword(String text, UUID userId) {
+    public boolean containsKeyword(String text, UUID userId) {
         if (text == null || text.isEmpty()) {
             return false;
         }
         
-        String lowercaseText = text.toLowerCase();
-        
-        // Check default keywords
-        boolean hasDefaultKeyword = DEFAULT_KEYWORDS.stream().anyMatch(lowercaseText::contains);
-        
-        // Check user's custom keyword
+        // Default and custom keywords are compiled into one cached automaton per user
         try {
-            String userKeyword = settingsService.getSosKeyword(userId);
-            boolean hasUserKeyword = userKeyword != null && lowercaseText.contains(userKeyword.toLowerCase());
-            
-            return hasDefaultKeyword || hasUserKeyword;
+            return keywordMatcherService.matches(text, userId);
         } catch (Exception e) {
             log.warn("Error getting user's SOS keyword for user: {}, using default keywords only", userId, e);
-            return hasDefaultKeyword;
+            return KeywordMatcherService.DEFAULT_AUTOMATON.matches(text);
         }
     }
     
     /**
-     * Saves audio file to persistent storage
+     * Promotes a staged upload into content-addressed SOS audio storage.
+     * Identical recordings are stored once.
      *
-     * @param audioFile The audio file
-     * @param userId User ID for file naming
+     * @param stagedAudio The staged upload
      * @return The relative URL to the saved file
      */
-    private String saveAudioFile(MultipartFile audioFile, UUID userId) throws IOException {
-        // Create directory if it doesn't exist
-        Path sosDir = Paths.get(SOS_AUDIO_DIR);
-        if (!Files.exists(sosDir)) {
-            Files.createDirectories(sosDir);
-        }
-
-        // Generate filename with user ID and timestamp
-        String originalFileName = audioFile.getOriginalFilename();
-        String fileExtension = getFileExtension(originalFileName);
-        String uniqueFileName = String.format("sos_voice_%s_%d%s", 
-                userId.toString(),
-                System.currentTimeMillis(),
-                fileExtension);
-
-        Path filePath = sosDir.resolve(uniqueFileName);
-        
-        // Copy uploaded file to persistent storage
-        Files.copy(audioFile.getInputStream(), filePath, StandardCopyOption.REPLACE_EXISTING);
-        
-        log.info("Saved SOS audio file: {}", filePath.toAbsolutePath());
-        
-        // Return relative path/URL to the file
-        return SOS_AUDIO_DIR + "/" + uniqueFileName;
+    public String saveAudioFile(StagedAudio stagedAudio) throws IOException {
+        return audioBlobStore.promote(stagedAudio);
     }
     
     /**
-     * Saves the uploaded file to a temporary location
+     * Writes the uploaded file once to the staging area, hashing its content
      *
      * @param audioFile The uploaded file
-     * @return The temporary file
+     * @return The staged upload
      */
-    private File saveTemporaryFile(MultipartFile audioFile) throws IOException {
-        // Create temporary directory if it doesn't exist
-        Path tempDir = Paths.get("data/temp");
-        if (!Files.exists(tempDir)) {
-            Files.createDirectories(tempDir);
+    public StagedAudio stageUpload(MultipartFile audioFile) throws IOException {
+        return audioBlobStore.stage(audioFile);
+    }
+    
+    /**
+     * Makes sure a staged upload is on disk, so it outlives a restart
+     *
+     * @param stagedAudio The staged upload
+     * @return The staged file
+     */
+    public File persistUpload(StagedAudio stagedAudio) throws IOException {
+        return audioBlobStore.persist(stagedAudio);
+    }
+    
+    /**
+     * Transcribes a staged upload from memory or from its staging file
+     *
+     * @param stagedAudio The staged upload
+     * @return The transcription result
+     */
+    public SpeechTranscriptionResult transcribeStaged(StagedAudio stagedAudio) throws Exception {
+        if (stagedAudio.isInMemory()) {
+            return azureSpeechService.transcribeAudio(stagedAudio.getData(), stagedAudio.getFileName(),
+                stagedAudio.getSha256());
         }
-
-        // Generate unique filename
-        String originalFileName = audioFile.getOriginalFilename();
-        String fileExtension = getFileExtension(originalFileName);
-        String uniqueFileName = String.format("temp_sos_%d_%s%s", 
-            System.currentTimeMillis(),
-            Thread.currentThread().getId(),
-            fileExtension
-        );
-
-        Path tempFilePath = tempDir.resolve(uniqueFileName);
-        
-        // Copy uploaded file to temporary location
-        Files.copy(audioFile.getInputStream(), tempFilePath, StandardCopyOption.REPLACE_EXISTING);
-        
-        File tempFile = tempFilePath.toFile();
-        log.debug("Saved temporary file: {}", tempFile.getAbsolutePath());
-        
-        return tempFile;
+        return azureSpeechService.transcribeAudioFile(stagedAudio.getFile(), stagedAudio.getSha256());
     }
     
     /**
@@ -348,7 +514,7 @@ public class SOSService {
      *
      * @param tempFile The temporary file to delete
      */
-    private void cleanupTemporaryFile(File tempFile) {
+    public void cleanupTemporaryFile(File tempFile) {
         if (tempFile != null && tempFile.exists()) {
             try {
                 if (tempFile.delete()) {
@@ -363,22 +529,13 @@ public class SOSService {
     }
     
     /**
-     * Extract file extension from filename
-     *
-     * @param fileName The filename
-     * @return The file extension including the dot
+     * Get an alert by ID
+     * 
+     * @param alertId The alert ID
+     * @return The alert, if it exists
      */
-    private String getFileExtension(String fileName) {
-        if (fileName == null || fileName.isEmpty()) {
-            return ".wav";  // Default extension
-        }
-        
-        int lastDotIndex = fileName.lastIndexOf('.');
-        if (lastDotIndex > 0 && lastDotIndex < fileName.length() - 1) {
-            return fileName.substring(lastDotIndex);
-        }
-        
-        return ".wav";  // Default extension
+    public Optional<Alert> findAlert(UUID alertId) {
+        return alertRepository.findById(alertId);
     }
     
     /**
@@ -440,7 +597,9 @@ public class SOSService {
         alert.setCanceledAt(LocalDateTime.now());
         
         // Save and return the updated alert
-        return alertRepository.save(alert);
+        Alert canceledAlert = alertRepository.save(alert);
+        publishAlertEvent(ClusterEventBus.ALERT_STATUS_CHANGED, canceledAlert);
+        return canceledAlert;
     }
     
     /**
@@ -626,6 +785,7 @@ public class SOSService {
         }
         
         alertResponderRepository.save(alertResponder);
+        publishAlertEvent(ClusterEventBus.ALERT_STATUS_CHANGED, updatedAlert);
         
         // Notify the user about the status change
         try {
@@ -713,6 +873,12 @@ public class SOSService {
             result.put("responders", responderInfoList);
         }
         
+        // Repeat triggers merged into this alert (later locations and recordings)
+        List<AlertTrigger> triggers = alertTriggerRepository.findByAlertIdOrderByTriggeredAtAsc(alertId);
+        if (!triggers.isEmpty()) {
+            result.put("triggers", triggers);
+        }
+        
         return result;
     }
 }
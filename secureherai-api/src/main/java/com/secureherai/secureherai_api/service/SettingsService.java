@@ -4,6 +4,7 @@ import com.secureherai.secureherai_api.entity.Settings;
 import com.secureherai.secureherai_api.entity.User;
 import com.secureherai.secureherai_api.repository.SettingsRepository;
 import com.secureherai.secureherai_api.repository.UserRepository;
+import com.secureherai.secureherai_api.util.TransactionHooks;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -21,6 +22,7 @@ public class SettingsService {
     
     private final SettingsRepository settingsRepository;
     private final UserRepository userRepository;
+    private final KeywordMatcherService keywordMatcherService;
     
     /**
      * Get user settings, create default if not exists
@@ -61,6 +63,7 @@ public class SettingsService {
         }
         if (sosKeyword != null && !sosKeyword.trim().isEmpty()) {
             settings.setSosKeyword(sosKeyword.trim().toLowerCase());
+            invalidateKeywordCache(userId);
         }
         
         return settingsRepository.save(settings);
@@ -73,7 +76,9 @@ public class SettingsService {
     public Settings updateSosKeyword(UUID userId, String sosKeyword) {
         Settings settings = getUserSettings(userId);
         settings.setSosKeyword(sosKeyword != null ? sosKeyword.trim().toLowerCase() : "help");
-        return settingsRepository.save(settings);
+        Settings savedSettings = settingsRepository.save(settings);
+        invalidateKeywordCache(userId);
+        return savedSettings;
     }
     
     /**
@@ -104,4 +109,13 @@ public class SettingsService {
         
         return settingsRepository.save(settings);
     }
+
+    /**
+     * Drop the user's compiled keyword matcher now and again once the change is committed,
+     * so a concurrent voice command can't re-cache the old keyword in between
+     */
+    private void invalidateKeywordCache(UUID userId) {
+        keywordMatcherService.invalidate(userId);
+        TransactionHooks.runAfterCommit(() -> keywordMatcherService.invalidate(userId));
+    }
 }
@@ -0,0 +1,278 @@
+package com.secureherai.secureherai_api.service;
+
+import com.secureherai.secureherai_api.util.VoiceActivityDetector;
+import com.secureherai.secureherai_api.util.WavFile;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Local voice-activity pre-filter that runs on converted WAV audio before it is sent
+ * to Azure. Clips without speech (pocket recordings, silence, steady noise) are
+ * rejected without a network call, and leading/trailing silence is trimmed so Azure
+ * has less audio to process.
+ */
+@Service
+@Slf4j
+public class SpeechPreFilter {
+
+    @Value("${speech.prefilter.enabled:true}")
+    private boolean enabled;
+
+    @Value("${audio.temp.directory:data/temp}")
+    private String tempDirectory = "data/temp";
+
+    @Value("${speech.prefilter.absolute-threshold-db:-50}")
+    private double absoluteThresholdDb;
+
+    @Value("${speech.prefilter.noise-margin-db:10}")
+    private double noiseMarginDb;
+
+    @Value("${speech.prefilter.max-threshold-db:-30}")
+    private double maxThresholdDb;
+
+    @Value("${speech.prefilter.max-zero-crossing-rate:0.35}")
+    private double maxZeroCrossingRate;
+
+    @Value("${speech.prefilter.min-run-frames:3}")
+    private int minRunFrames;
+
+    @Value("${speech.prefilter.min-speech-ms:250}")
+    private int minSpeechMillis;
+
+    @Value("${speech.prefilter.padding-ms:300}")
+    private int paddingMillis;
+
+    // Trimming rewrites the file, so it's only worth it if it saves at least this much audio
+    @Value("${speech.prefilter.min-trim-ms:500}")
+    private int minTrimMillis;
+
+    private VoiceActivityDetector detector;
+
+    private final AtomicLong analyzed = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong trimmed = new AtomicLong();
+    private final AtomicLong skipped = new AtomicLong();
+    private final AtomicLong inputMillis = new AtomicLong();
+    private final AtomicLong outputMillis = new AtomicLong();
+    private final AtomicLong analysisNanos = new AtomicLong();
+
+    @PostConstruct
+    void initDetector() {
+        detector = new VoiceActivityDetector(absoluteThresholdDb, noiseMarginDb, maxThresholdDb,
+            maxZeroCrossingRate, minRunFrames, minSpeechMillis, paddingMillis);
+    }
+
+    /**
+     * Check a WAV file for speech and trim surrounding silence.
+     * Audio the filter can't analyze (not 16-bit PCM, unreadable) passes through unchanged.
+     *
+     * @param wavFile Converted WAV audio
+     * @return The decision and the file to transcribe
+     */
+    public PreFilterResult filter(File wavFile) {
+        if (!enabled) {
+            return PreFilterResult.passThrough(wavFile);
+        }
+
+        long started = System.nanoTime();
+        try {
+            byte[] bytes = Files.readAllBytes(wavFile.toPath());
+            WavFile wav = WavFile.parse(bytes, bytes.length);
+            if (!wav.isPcm16()) {
+                skipped.incrementAndGet();
+                log.debug("Skipping speech pre-filter for non 16-bit PCM audio: {}", wavFile.getName());
+                return PreFilterResult.passThrough(wavFile);
+            }
+
+            VoiceActivityDetector.Result vad = detector.analyze(bytes, wav.getDataOffset(), wav.getDataLength(),
+                wav.getSampleRate(), wav.getChannels());
+            analyzed.incrementAndGet();
+            inputMillis.addAndGet(vad.getTotalMillis());
+
+            if (!vad.isSpeechDetected()) {
+                rejected.incrementAndGet();
+                log.info("No speech detected in {} ({} ms, {} ms speech, noise floor {} dBFS), skipping transcription",
+                    wavFile.getName(), vad.getTotalMillis(), vad.getSpeechMillis(), Math.round(vad.getNoiseFloorDb()));
+                return PreFilterResult.rejected(vad.getTotalMillis());
+            }
+
+            int keptBytes = vad.getSpeechEndByte() - vad.getSpeechStartByte();
+            long keptMillis = keptBytes / wav.getBlockAlign() * 1000L / wav.getSampleRate();
+            if (vad.getTotalMillis() - keptMillis < minTrimMillis) {
+                outputMillis.addAndGet(vad.getTotalMillis());
+                return new PreFilterResult(true, wavFile, false, vad.getTotalMillis(), vad.getTotalMillis());
+            }
+
+            File trimmedFile = writeTrimmed(bytes, wav, vad, wavFile.getName());
+            trimmed.incrementAndGet();
+            outputMillis.addAndGet(keptMillis);
+            log.info("Trimmed silence from {}: {} ms -> {} ms", wavFile.getName(), vad.getTotalMillis(), keptMillis);
+            return new PreFilterResult(true, trimmedFile, true, vad.getTotalMillis(), keptMillis);
+
+        } catch (IOException e) {
+            skipped.incrementAndGet();
+            log.warn("Speech pre-filter could not read {}, passing it through: {}", wavFile.getName(), e.getMessage());
+            return PreFilterResult.passThrough(wavFile);
+        } finally {
+            analysisNanos.addAndGet(System.nanoTime() - started);
+        }
+    }
+
+    /**
+     * Check raw 16-bit mono PCM held in memory for speech. Trimming is just a narrower
+     * view of the same buffer, so nothing is copied or written.
+     *
+     * @param pcm 16-bit little-endian mono samples, from position to limit
+     * @param sampleRate Samples per second
+     * @param name Name of the clip for logging
+     * @return The decision and the samples to transcribe
+     */
+    public PreFilterResult filter(ByteBuffer pcm, int sampleRate, String name) {
+        if (!enabled) {
+            return PreFilterResult.passThrough(pcm);
+        }
+
+        long started = System.nanoTime();
+        try {
+            ByteBuffer samples = pcm.slice();
+            VoiceActivityDetector.Result vad = detector.analyze(samples, 0, samples.remaining(), sampleRate, 1);
+            analyzed.incrementAndGet();
+            inputMillis.addAndGet(vad.getTotalMillis());
+
+            if (!vad.isSpeechDetected()) {
+                rejected.incrementAndGet();
+                log.info("No speech detected in {} ({} ms, {} ms speech, noise floor {} dBFS), skipping transcription",
+                    name, vad.getTotalMillis(), vad.getSpeechMillis(), Math.round(vad.getNoiseFloorDb()));
+                return PreFilterResult.rejected(vad.getTotalMillis());
+            }
+
+            long keptMillis = (vad.getSpeechEndByte() - vad.getSpeechStartByte()) / 2 * 1000L / sampleRate;
+            if (vad.getTotalMillis() - keptMillis < minTrimMillis) {
+                outputMillis.addAndGet(vad.getTotalMillis());
+                return new PreFilterResult(true, null, samples, false, vad.getTotalMillis(), vad.getTotalMillis());
+            }
+
+            ByteBuffer kept = samples.position(vad.getSpeechStartByte()).limit(vad.getSpeechEndByte()).slice();
+            trimmed.incrementAndGet();
+            outputMillis.addAndGet(keptMillis);
+            log.info("Trimmed silence from {}: {} ms -> {} ms", name, vad.getTotalMillis(), keptMillis);
+            return new PreFilterResult(true, null, kept, true, vad.getTotalMillis(), keptMillis);
+        } finally {
+            analysisNanos.addAndGet(System.nanoTime() - started);
+        }
+    }
+
+    /**
+     * Pre-filter counters for monitoring the rejection rate and the audio saved
+     */
+    public Map<String, Object> getStats() {
+        long analyzedCount = analyzed.get();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("analyzed", analyzedCount);
+        stats.put("rejected", rejected.get());
+        stats.put("trimmed", trimmed.get());
+        stats.put("skipped", skipped.get());
+        stats.put("rejectionRate", analyzedCount == 0 ? 0.0 : (double) rejected.get() / analyzedCount);
+        stats.put("inputAudioMillis", inputMillis.get());
+        stats.put("outputAudioMillis", outputMillis.get());
+        stats.put("averageAnalysisMillis", analyzedCount == 0 ? 0.0 : analysisNanos.get() / 1_000_000.0 / analyzedCount);
+        return stats;
+    }
+
+    private File writeTrimmed(byte[] bytes, WavFile wav, VoiceActivityDetector.Result vad, String originalName) throws IOException {
+        Path tempDir = Paths.get(tempDirectory);
+        Files.createDirectories(tempDir);
+        Path trimmedPath = tempDir.resolve("vad_" + System.nanoTime() + "_" + originalName);
+
+        int length = vad.getSpeechEndByte() - vad.getSpeechStartByte();
+        byte[] header = new byte[WavFile.HEADER_SIZE];
+        WavFile.writeHeader(header, wav.getSampleRate(), wav.getChannels(), wav.getBitsPerSample(), length);
+        try (OutputStream out = Files.newOutputStream(trimmedPath)) {
+            out.write(header);
+            out.write(bytes, wav.getDataOffset() + vad.getSpeechStartByte(), length);
+        }
+        return trimmedPath.toFile();
+    }
+
+    /**
+     * Pre-filter decision for one clip
+     */
+    public static class PreFilterResult {
+        private final boolean speechDetected;
+        private final File audioFile;
+        private final ByteBuffer audioData;
+        private final boolean trimmed;
+        private final long originalMillis;
+        private final long keptMillis;
+
+        public PreFilterResult(boolean speechDetected, File audioFile, boolean trimmed, long originalMillis, long keptMillis) {
+            this(speechDetected, audioFile, null, trimmed, originalMillis, keptMillis);
+        }
+
+        private PreFilterResult(boolean speechDetected, File audioFile, ByteBuffer audioData, boolean trimmed,
+                                long originalMillis, long keptMillis) {
+            this.speechDetected = speechDetected;
+            this.audioFile = audioFile;
+            this.audioData = audioData;
+            this.trimmed = trimmed;
+            this.originalMillis = originalMillis;
+            this.keptMillis = keptMillis;
+        }
+
+        static PreFilterResult passThrough(File audioFile) {
+            return new PreFilterResult(true, audioFile, false, -1, -1);
+        }
+
+        static PreFilterResult passThrough(ByteBuffer audioData) {
+            return new PreFilterResult(true, null, audioData, false, -1, -1);
+        }
+
+        static PreFilterResult rejected(long originalMillis) {
+            return new PreFilterResult(false, null, false, originalMillis, 0);
+        }
+
+        public boolean isSpeechDetected() {
+            return speechDetected;
+        }
+
+        /**
+         * The file to transcribe; a new temporary file if {@link #isTrimmed()}
+         */
+        public File getAudioFile() {
+            return audioFile;
+        }
+
+        /**
+         * The PCM samples to transcribe when filtering in-memory audio
+         */
+        public ByteBuffer getAudioData() {
+            return audioData;
+        }
+
+        public boolean isTrimmed() {
+            return trimmed;
+        }
+
+        public long getOriginalMillis() {
+            return originalMillis;
+        }
+
+        public long getKeptMillis() {
+            return keptMillis;
+        }
+    }
+}
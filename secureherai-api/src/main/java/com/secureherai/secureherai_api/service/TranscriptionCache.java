@@ -0,0 +1,290 @@
+package com.secureherai.secureherai_api.service;
+
+import com.secureherai.secureherai_api.service.AzureSpeechService.SpeechTranscriptionResult;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caches successful transcriptions by the SHA-256 of the uploaded audio and the
+ * recognition language.
+ *
+ * Clients retry failed uploads and often send a clip to /api/speech/transcribe before
+ * sending the same clip as a voice SOS; with the cache the repeat skips conversion
+ * and recognition entirely. Entries expire after {@code speech.cache.ttl-minutes} and
+ * the least recently used entry is dropped once {@code speech.cache.max-entries} is
+ * reached. Concurrent requests for the same audio share a single recognition.
+ * Failed and unavailable results are never cached, so a retry gets a fresh attempt.
+ */
+@Service
+@Slf4j
+public class TranscriptionCache {
+
+    private static final int HASH_CHUNK_BYTES = 64 * 1024;
+    private static final String DEFAULT_LANGUAGE = "default";
+
+    @Value("${speech.cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${speech.cache.max-entries:5000}")
+    private int maxEntries;
+
+    @Value("${speech.cache.ttl-minutes:60}")
+    private long ttlMinutes;
+
+    // Access ordered, so the least recently used entry is evicted first once the cache is full
+    private final Map<String, CachedTranscription> cache = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CachedTranscription> eldest) {
+            if (size() > maxEntries) {
+                evictions.incrementAndGet();
+                return true;
+            }
+            return false;
+        }
+    };
+
+    private final Map<String, CompletableFuture<SpeechTranscriptionResult>> inFlight = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong expirations = new AtomicLong();
+
+    /**
+     * Return the cached transcription of this audio, or run the transcription and cache it
+     *
+     * @param contentHash SHA-256 of the original audio, or null to bypass the cache
+     * @param languageCode Recognition language, null for the engine default
+     * @param transcription Runs the conversion and recognition on a miss
+     * @return The transcription; callers may modify it
+     */
+    public SpeechTranscriptionResult get(String contentHash, String languageCode, Transcription transcription)
+            throws Exception {
+        if (!enabled || contentHash == null) {
+            return transcription.run();
+        }
+
+        String key = contentHash + ':' + normalizeLanguage(languageCode);
+        SpeechTranscriptionResult cached = lookup(key);
+        if (cached != null) {
+            hits.incrementAndGet();
+            log.debug("Transcription cache hit for {}", key);
+            return copy(cached);
+        }
+
+        CompletableFuture<SpeechTranscriptionResult> mine = new CompletableFuture<>();
+        CompletableFuture<SpeechTranscriptionResult> running = inFlight.putIfAbsent(key, mine);
+        if (running != null) {
+            coalesced.incrementAndGet();
+            log.debug("Waiting for a running transcription of the same audio: {}", key);
+            return copy(await(running));
+        }
+
+        misses.incrementAndGet();
+        try {
+            SpeechTranscriptionResult result = transcription.run();
+            store(key, result);
+            mine.complete(result);
+            return result;
+        } catch (Exception e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    /**
+     * Return the cached transcription of this audio without running anything on a miss
+     *
+     * @param contentHash SHA-256 of the original audio, or null
+     * @param languageCode Recognition language, null for the engine default
+     * @return A copy of the cached transcription, or null
+     */
+    public SpeechTranscriptionResult peek(String contentHash, String languageCode) {
+        if (!enabled || contentHash == null) {
+            return null;
+        }
+        SpeechTranscriptionResult cached = lookup(contentHash + ':' + normalizeLanguage(languageCode));
+        if (cached == null) {
+            return null;
+        }
+        hits.incrementAndGet();
+        return copy(cached);
+    }
+
+    /**
+     * Cache a transcription that was produced outside {@link #get}, e.g. by continuous
+     * recognition finishing in the background
+     */
+    public void put(String contentHash, String languageCode, SpeechTranscriptionResult result) {
+        if (!enabled || contentHash == null) {
+            return;
+        }
+        misses.incrementAndGet();
+        store(contentHash + ':' + normalizeLanguage(languageCode), result);
+    }
+
+    private void store(String key, SpeechTranscriptionResult result) {
+        if (result != null && result.isSuccess()) {
+            long expiresAt = System.currentTimeMillis() + TimeUnit.MINUTES.toMillis(ttlMinutes);
+            synchronized (cache) {
+                cache.put(key, new CachedTranscription(copy(result), expiresAt));
+            }
+        }
+    }
+
+    private SpeechTranscriptionResult lookup(String key) {
+        long now = System.currentTimeMillis();
+        synchronized (cache) {
+            CachedTranscription cached = cache.get(key);
+            if (cached == null) {
+                return null;
+            }
+            if (cached.isExpired(now)) {
+                cache.remove(key);
+                expirations.incrementAndGet();
+                return null;
+            }
+            return cached.result;
+        }
+    }
+
+    private static SpeechTranscriptionResult await(CompletableFuture<SpeechTranscriptionResult> running)
+            throws Exception {
+        try {
+            return running.get();
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+        }
+    }
+
+    /**
+     * Drop expired transcriptions
+     */
+    @Scheduled(fixedDelay = 300000)
+    public void purgeExpired() {
+        long now = System.currentTimeMillis();
+        int removed = 0;
+        synchronized (cache) {
+            var iterator = cache.values().iterator();
+            while (iterator.hasNext()) {
+                if (iterator.next().isExpired(now)) {
+                    iterator.remove();
+                    removed++;
+                }
+            }
+        }
+        if (removed > 0) {
+            expirations.addAndGet(removed);
+            log.debug("Purged {} expired transcriptions", removed);
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        synchronized (cache) {
+            stats.put("entries", cache.size());
+        }
+        stats.put("maxEntries", maxEntries);
+        stats.put("ttlMinutes", ttlMinutes);
+        long hitCount = hits.get();
+        long lookups = hitCount + misses.get() + coalesced.get();
+        stats.put("hits", hitCount);
+        stats.put("misses", misses.get());
+        stats.put("coalesced", coalesced.get());
+        stats.put("hitRate", lookups == 0 ? 0.0 : (double) (hitCount + coalesced.get()) / lookups);
+        stats.put("evictions", evictions.get());
+        stats.put("expirations", expirations.get());
+        return stats;
+    }
+
+    /**
+     * SHA-256 of a file, read in chunks so large recordings are not loaded at once
+     */
+    public static String contentHash(File file) throws IOException {
+        MessageDigest digest = newDigest();
+        ByteBuffer chunk = ByteBuffer.allocate(HASH_CHUNK_BYTES);
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            while (channel.read(chunk) != -1) {
+                chunk.flip();
+                digest.update(chunk);
+                chunk.clear();
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * SHA-256 of audio held in memory; the buffer's position is not changed
+     */
+    public static String contentHash(ByteBuffer audio) {
+        MessageDigest digest = newDigest();
+        digest.update(audio.duplicate());
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    public static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static String normalizeLanguage(String languageCode) {
+        return languageCode == null || languageCode.isBlank() ? DEFAULT_LANGUAGE : languageCode.trim().toLowerCase();
+    }
+
+    private static SpeechTranscriptionResult copy(SpeechTranscriptionResult result) {
+        if (result == null) {
+            return null;
+        }
+        SpeechTranscriptionResult copy = new SpeechTranscriptionResult(
+            result.isSuccess(), result.getText(), result.getConfidence(), result.getMessage());
+        copy.setEngineUnavailable(result.isEngineUnavailable());
+        return copy;
+    }
+
+    /**
+     * The conversion and recognition to run on a cache miss
+     */
+    @FunctionalInterface
+    public interface Transcription {
+        SpeechTranscriptionResult run() throws Exception;
+    }
+
+    private static class CachedTranscription {
+        private final SpeechTranscriptionResult result;
+        private final long expiresAt;
+
+        private CachedTranscription(SpeechTranscriptionResult result, long expiresAt) {
+            this.result = result;
+            this.expiresAt = expiresAt;
+        }
+
+        boolean isExpired(long now) {
+            return expiresAt <= now;
+        }
+    }
+}
@@ -0,0 +1,249 @@
+package com.secureherai.secureherai_api.service;
+
+import com.secureherai.secureherai_api.cluster.ClusterEvent;
+import com.secureherai.secureherai_api.cluster.ClusterEventBus;
+import com.secureherai.secureherai_api.repository.NotificationRepository;
+import com.secureherai.secureherai_api.repository.UnreadNotificationCounterRepository;
+import com.secureherai.secureherai_api.util.CounterCache;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Unread notification counts, kept per user in the notification_unread_counters table
+ * instead of counted over the notifications table on every badge refresh.
+ *
+ * Whatever changes whether a notification is unread calls {@link #add} in the same
+ * transaction, which updates the user's counter row in place. A user's first change,
+ * or first read, creates the row from a real count. Reads are served from a
+ * {@link CounterCache} on each node, which applies the deltas of committed changes, so
+ * a badge refresh usually costs a map lookup and otherwise a primary key lookup.
+ * Changes made on another node reach this node's cache through the cluster event bus,
+ * or when the cached counter expires after {@code notification.unread.cache-seconds}.
+ *
+ * Counters are checked against the notifications table a batch at a time, oldest check
+ * first, which corrects changes that bypassed {@link #add}, such as bulk deletes.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class UnreadCounterService {
+
+    private final UnreadNotificationCounterRepository counterRepository;
+    private final NotificationRepository notificationRepository;
+
+    @Autowired(required = false)
+    private ClusterEventBus clusterEventBus;
+
+    @Value("${notification.unread.cache-seconds:60}")
+    private long cacheSeconds;
+
+    @Value("${notification.unread.max-cached-users:100000}")
+    private int maxCachedUsers;
+
+    @Value("${notification.unread.cache-stripes:64}")
+    private int cacheStripes;
+
+    @Value("${notification.unread.reconcile-after-minutes:60}")
+    private long reconcileAfterMinutes;
+
+    @Value("${notification.unread.reconcile-batch-size:500}")
+    private int reconcileBatchSize;
+
+    // A counter changed more recently than this is not reconciled yet
+    private static final long QUIET_SECONDS = 60;
+
+    private CounterCache<UUID> cache;
+
+    private final AtomicLong reads = new AtomicLong();
+    private final AtomicLong loads = new AtomicLong();
+    private final AtomicLong created = new AtomicLong();
+    private final AtomicLong changes = new AtomicLong();
+    private final AtomicLong reconciled = new AtomicLong();
+
+    @PostConstruct
+    void init() {
+        cache = new CounterCache<>(cacheStripes, TimeUnit.SECONDS.toNanos(cacheSeconds), maxCachedUsers);
+        if (clusterEventBus != null) {
+            clusterEventBus.subscribe(ClusterEventBus.NOTIFICATION_CREATED, this::onRemoteChange);
+            clusterEventBus.subscribe(ClusterEventBus.NOTIFICATIONS_READ, this::onRemoteChange);
+        }
+    }
+
+    /**
+     * A user's unread count
+     */
+    public long get(UUID userId) {
+        reads.incrementAndGet();
+        return cache.get(userId, this::load);
+    }
+
+    /**
+     * A user's unread count as stored, including uncommitted changes of the current transaction
+     */
+    public long getStored(UUID userId) {
+        return load(userId);
+    }
+
+    /**
+     * Change a user's unread count, as part of the current transaction
+     *
+     * @param delta Notifications that became unread, negative for ones that were read
+     */
+    public void add(UUID userId, long delta) {
+        if (delta == 0) {
+            return;
+        }
+        long startedAt = System.nanoTime();
+        LocalDateTime now = LocalDateTime.now();
+        if (counterRepository.add(userId, delta, now) == 0) {
+            create(userId, delta, now);
+        }
+        changes.incrementAndGet();
+        applyAfterCommit(Map.of(userId, delta), startedAt);
+    }
+
+    /**
+     * Change several users' unread counts, as part of the current transaction; users
+     * whose counts change by the same amount are updated with one statement
+     */
+    public void addAll(Map<UUID, Long> deltas) {
+        long startedAt = System.nanoTime();
+        LocalDateTime now = LocalDateTime.now();
+        Map<Long, List<UUID>> usersByDelta = new HashMap<>();
+        deltas.forEach((userId, delta) -> {
+            if (delta != 0) {
+                usersByDelta.computeIfAbsent(delta, d -> new ArrayList<>()).add(userId);
+            }
+        });
+        for (Map.Entry<Long, List<UUID>> entry : usersByDelta.entrySet()) {
+            long delta = entry.getKey();
+            List<UUID> userIds = entry.getValue();
+            if (counterRepository.addAll(userIds, delta, now) < userIds.size()) {
+                // Some users have no counter yet. A counter another transaction created and
+                // committed since the update above is taken as updated; reconciliation
+                // corrects it in that rare case.
+                Set<UUID> existing = new HashSet<>(counterRepository.findExistingUserIds(userIds));
+                for (UUID userId : userIds) {
+                    if (!existing.contains(userId)) {
+                        create(userId, delta, now);
+                    }
+                }
+            }
+            changes.addAndGet(userIds.size());
+        }
+        applyAfterCommit(deltas, startedAt);
+    }
+
+    /**
+     * Create a user's counter from a real count, which includes this transaction's change;
+     * if another transaction created the counter first, its count does not, so the change
+     * is applied on top
+     */
+    private void create(UUID userId, long delta, LocalDateTime now) {
+        if (counterRepository.insertIfAbsent(userId, notificationRepository.countUnread(userId), now) == 1) {
+            created.incrementAndGet();
+        } else {
+            counterRepository.add(userId, delta, now);
+        }
+    }
+
+    private void applyAfterCommit(Map<UUID, Long> deltas, long startedAt) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            deltas.forEach((userId, delta) -> cache.add(userId, delta, startedAt));
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            private long committingAt = startedAt;
+
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                committingAt = System.nanoTime();
+            }
+
+            @Override
+            public void afterCommit() {
+                deltas.forEach((userId, delta) -> cache.add(userId, delta, committingAt));
+            }
+        });
+    }
+
+    /**
+     * Check the counters that were checked longest ago against the notifications table
+     */
+    @Scheduled(fixedDelayString = "${notification.unread.reconcile-interval-seconds:60}", timeUnit = TimeUnit.SECONDS)
+    public void reconcile() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime quietSince = now.minusSeconds(QUIET_SECONDS);
+        List<UUID> userIds = counterRepository.findReconcileCandidates(
+            now.minusMinutes(reconcileAfterMinutes), quietSince, PageRequest.of(0, reconcileBatchSize));
+        if (userIds.isEmpty()) {
+            cache.evictExpired();
+            return;
+        }
+        int updated = counterRepository.reconcile(userIds, quietSince, now);
+        userIds.forEach(cache::invalidate);
+        cache.evictExpired();
+        reconciled.addAndGet(updated);
+        log.debug("Reconciled {} unread counters", updated);
+    }
+
+    private long load(UUID userId) {
+        loads.incrementAndGet();
+        return counterRepository.findUnreadCount(userId).orElseGet(() -> {
+            long count = notificationRepository.countUnread(userId);
+            if (counterRepository.insertIfAbsent(userId, count, LocalDateTime.now()) == 1) {
+                created.incrementAndGet();
+                return count;
+            }
+            return counterRepository.findUnreadCount(userId).orElse(count);
+        });
+    }
+
+    /**
+     * Counts changed through another node; this node's own changes were applied when they committed
+     */
+    @SuppressWarnings("unchecked")
+    private void onRemoteChange(ClusterEvent event) {
+        if (event.isLocal()) {
+            return;
+        }
+        Object userId = event.getData().get("userId");
+        if (userId == null && event.getData().get("notification") instanceof Map) {
+            userId = ((Map<String, Object>) event.getData().get("notification")).get("userId");
+        }
+        if (userId != null) {
+            cache.invalidate(UUID.fromString(String.valueOf(userId)));
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("cached", cache.size());
+        stats.put("reads", reads.get());
+        stats.put("loads", loads.get());
+        stats.put("created", created.get());
+        stats.put("changes", changes.get());
+        stats.put("reconciled", reconciled.get());
+        return stats;
+    }
+}
@@ -1,20 +1,27 @@
 package com.secureherai.secureherai_api.service;
 
+import com.secureherai.secureherai_api.cluster.ClusterEventBus;
 import com.secureherai.secureherai_api.dto.auth.AuthRequest;
 import com.secureherai.secureherai_api.dto.auth.AuthResponse;
 import com.secureherai.secureherai_api.entity.User;
 import com.secureherai.secureherai_api.entity.Responder;
 import com.secureherai.secureherai_api.repository.UserRepository;
 import com.secureherai.secureherai_api.repository.ResponderRepository;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
 import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 
 @Service
+@Slf4j
 public class UserService {
 
     @Autowired
@@ -25,6 +32,28 @@ public class UserService {
     private ResponderRepository responderRepository;
     @Autowired
     private SettingsService settingsService;
+    @Autowired(required = false)
+    private ResponderLocationIndex responderLocationIndex;
+    @Autowired(required = false)
+    private ClusterEventBus clusterEventBus;
+
+    /**
+     * Fill in the geohash of users whose location was saved before the column existed;
+     * every later save keeps it current
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillGeohashes() {
+        int filled = 0;
+        List<User> batch;
+        while (!(batch = userRepository.findTop500ByGeohashIsNullAndCurrentLatitudeIsNotNullAndCurrentLongitudeIsNotNull()).isEmpty()) {
+            batch.forEach(User::refreshGeohash);
+            userRepository.saveAll(batch);
+            filled += batch.size();
+        }
+        if (filled > 0) {
+            log.info("Filled in the geohash of {} users", filled);
+        }
+    }
 
     public Object getProfile(UUID userId) {
         
@@ -194,6 +223,9 @@ public class UserService {
             }
             
             responderRepository.save(responder);
+            if (responderLocationIndex != null) {
+                responderLocationIndex.onStatusChanged(responder);
+            }
         }
         
         // Update current location if provided (for both regular users and responders)
@@ -205,6 +237,10 @@ public class UserService {
         
         userRepository.save(user);
         
+        if (request.getCurrentLatitude() != null && request.getCurrentLongitude() != null) {
+            onLocationChanged(user.getId(), request.getCurrentLatitude(), request.getCurrentLongitude());
+        }
+        
         return new AuthResponse.Success("Profile updated successfully");
     }
 
@@ -226,6 +262,18 @@ public class UserService {
         
         userRepository.save(user);
         
+        onLocationChanged(user.getId(), latitude, longitude);
+        
         return new AuthResponse.Success("Location updated successfully");
     }
+    
+    private void onLocationChanged(UUID userId, double latitude, double longitude) {
+        if (responderLocationIndex != null) {
+            responderLocationIndex.onLocationChanged(userId, latitude, longitude);
+        }
+        if (clusterEventBus != null) {
+            clusterEventBus.publish(ClusterEventBus.LOCATION_UPDATED, userId,
+                Map.of("latitude", latitude, "longitude", longitude));
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,138 @@
+package com.secureherai.secureherai_api.service;
+
+import com.secureherai.secureherai_api.entity.ScheduledTask;
+import com.secureherai.secureherai_api.entity.VoiceCommandJob;
+import com.secureherai.secureherai_api.repository.VoiceCommandJobRepository;
+import com.secureherai.secureherai_api.scheduler.DurableTimerService;
+import com.secureherai.secureherai_api.service.SOSIngestionPipeline.IngestionJob;
+import com.secureherai.secureherai_api.util.TransactionHooks;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Durable state of the voice commands in the {@link SOSIngestionPipeline}.
+ *
+ * A command is stored with the path of its raw upload when it is accepted, together
+ * with a recovery timer (see {@link DurableTimerService}), and every stage it reaches
+ * is recorded. The timer is canceled when the command finishes. If it fires first, the
+ * command is taken over, on whichever node runs the timer, once it has made no progress
+ * for {@code sos.pipeline.recover-after-seconds}: it went down with the node running it.
+ * A command that is still moving just gets a new timer.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class VoiceCommandJobStore {
+
+    static final String RECOVERY_TASK = "VOICE_COMMAND_RECOVERY";
+
+    private final VoiceCommandJobRepository voiceCommandJobRepository;
+    private final DurableTimerService durableTimerService;
+
+    // Longer than a transcription may take, which is the longest a stage goes without progress
+    @Value("${sos.pipeline.recover-after-seconds:180}")
+    private long recoverAfterSeconds;
+
+    /**
+     * Register the code that resumes commands taken over from a node that went down
+     */
+    public void registerRecoveryHandler(RecoveryHandler handler) {
+        durableTimerService.registerHandler(RECOVERY_TASK, task -> recover(task, handler));
+    }
+
+    /**
+     * Store an accepted command with its recovery timer
+     */
+    @Transactional
+    public VoiceCommandJob create(VoiceCommandJob job) {
+        VoiceCommandJob saved = voiceCommandJobRepository.save(job);
+        scheduleRecovery(saved.getId());
+        return saved;
+    }
+
+    /**
+     * Record the stage a command reached
+     *
+     * @return false if the command was taken over by another attempt, which now owns it
+     */
+    public boolean update(IngestionJob job) {
+        return voiceCommandJobRepository.updateState(job.getTrackingId(), job.getAttempt(), job.getStage(),
+            job.getMessage(), job.getTranscribedText(), job.getAlertId(), LocalDateTime.now()) == 1;
+    }
+
+    /**
+     * Record that a command finished, and cancel its recovery timer
+     *
+     * @return false if the command was taken over by another attempt, which now owns it
+     */
+    @Transactional
+    public boolean finish(IngestionJob job) {
+        if (!update(job)) {
+            return false;
+        }
+        durableTimerService.cancel(RECOVERY_TASK, job.getTrackingId().toString());
+        return true;
+    }
+
+    /**
+     * Drop a command that was not accepted after all
+     */
+    @Transactional
+    public void discard(UUID trackingId) {
+        voiceCommandJobRepository.deleteById(trackingId);
+        durableTimerService.cancel(RECOVERY_TASK, trackingId.toString());
+    }
+
+    public Optional<VoiceCommandJob> find(UUID trackingId) {
+        return voiceCommandJobRepository.findById(trackingId);
+    }
+
+    /**
+     * Drop commands that finished before the cutoff
+     */
+    public int deleteFinishedBefore(LocalDateTime cutoff) {
+        return voiceCommandJobRepository.deleteFinishedBefore(cutoff);
+    }
+
+    private void scheduleRecovery(UUID trackingId) {
+        durableTimerService.schedule(RECOVERY_TASK, trackingId.toString(), Map.of(),
+            Duration.ofSeconds(recoverAfterSeconds));
+    }
+
+    private void recover(ScheduledTask task, RecoveryHandler handler) {
+        UUID trackingId = UUID.fromString(task.getTaskKey());
+        VoiceCommandJob job = voiceCommandJobRepository.findById(trackingId).orElse(null);
+        if (job == null || job.getStage().isTerminal()) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        if (voiceCommandJobRepository.claimStale(trackingId, job.getAttempts(),
+                now.minusSeconds(recoverAfterSeconds), now) == 0) {
+            // Still making progress on its node
+            scheduleRecovery(trackingId);
+            return;
+        }
+        int attempt = job.getAttempts() + 1;
+        // Watches the new attempt in turn, in case this node goes down too
+        scheduleRecovery(trackingId);
+        log.warn("Taking over voice command {} at stage {} (attempt {})", trackingId, job.getStage(), attempt);
+        TransactionHooks.runAfterCommit(() -> handler.resume(job, attempt));
+    }
+
+    /**
+     * Resumes a command taken over from a node that went down
+     */
+    @FunctionalInterface
+    public interface RecoveryHandler {
+        void resume(VoiceCommandJob job, int attempt);
+    }
+}
@@ -0,0 +1,554 @@
+package com.secureherai.secureherai_api.service.speech;
+
+import com.microsoft.cognitiveservices.speech.CancellationDetails;
+import com.microsoft.cognitiveservices.speech.CancellationReason;
+import com.microsoft.cognitiveservices.speech.Connection;
+import com.microsoft.cognitiveservices.speech.ResultReason;
+import com.microsoft.cognitiveservices.speech.SpeechConfig;
+import com.microsoft.cognitiveservices.speech.SpeechRecognitionResult;
+import com.microsoft.cognitiveservices.speech.SpeechRecognizer;
+import com.microsoft.cognitiveservices.speech.audio.AudioConfig;
+import com.microsoft.cognitiveservices.speech.audio.AudioInputStream;
+import com.microsoft.cognitiveservices.speech.audio.AudioStreamFormat;
+import com.microsoft.cognitiveservices.speech.audio.PushAudioInputStream;
+import com.secureherai.secureherai_api.exception.SpeechServiceException;
+import com.secureherai.secureherai_api.service.AzureSpeechService.SpeechTranscriptionResult;
+import com.secureherai.secureherai_api.util.Deadline;
+import com.secureherai.secureherai_api.util.PrewarmedPool;
+import com.secureherai.secureherai_api.util.WavFile;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Azure Cognitive Services speech recognition for one region.
+ *
+ * A SpeechRecognizer is bound to its audio input, so it can't be reused across clips.
+ * Instead, when pooling is enabled, recognizers are built ahead of time per language
+ * on a shared long-lived SpeechConfig, each with its own push stream and an already
+ * opened service connection. A request then only streams its PCM into a ready
+ * recognizer; native initialization and the TLS/session handshake happen off the SOS
+ * critical path. Audio the push stream can't take (not 16 kHz mono PCM) and requests
+ * when the pool is disabled use a recognizer built for the file. Streaming sessions get
+ * a recognizer of their own on the shared configuration.
+ */
+@Slf4j
+public class AzureSpeechRecognitionEngine implements SpeechRecognitionEngine {
+
+    private static final String DEFAULT_LANGUAGE = "en-US";
+    private static final int PUSH_SAMPLE_RATE = 16000;
+    private static final int PUSH_CHUNK_BYTES = 32 * 1024;
+
+    private final String speechKey;
+    private final String speechRegion;
+    private final int maxLanguages;
+    private final PrewarmedPool<PushRecognizer> pool;
+
+    // Long-lived per-language configurations shared by all recognizers of this engine
+    private final Map<String, SpeechConfig> speechConfigs = new ConcurrentHashMap<>();
+
+    private final AtomicLong warmRecognitions = new AtomicLong();
+    private final AtomicLong warmRecognitionMillis = new AtomicLong();
+    private final AtomicLong coldRecognitions = new AtomicLong();
+    private final AtomicLong coldRecognitionMillis = new AtomicLong();
+    private final AtomicLong streamingSessions = new AtomicLong();
+
+    public AzureSpeechRecognitionEngine(String speechKey, String speechRegion) {
+        this(speechKey, speechRegion, 0, 0, 0);
+    }
+
+    /**
+     * @param poolSizePerLanguage Ready recognizers kept per language; 0 disables pooling
+     * @param maxLanguages Languages that get a pooled recognizer set and a cached configuration
+     * @param maxIdleMillis Ready recognizers older than this are rebuilt, before the service drops their connection
+     */
+    public AzureSpeechRecognitionEngine(String speechKey, String speechRegion, int poolSizePerLanguage,
+                                        int maxLanguages, long maxIdleMillis) {
+        this.speechKey = speechKey;
+        this.speechRegion = speechRegion;
+        this.maxLanguages = maxLanguages;
+        this.pool = poolSizePerLanguage > 0 && maxLanguages > 0
+            ? new PrewarmedPool<>("speech-" + speechRegion, this::createWarmRecognizer,
+                poolSizePerLanguage, maxLanguages, maxIdleMillis)
+            : null;
+    }
+
+    /**
+     * Build the recognizers for the given languages in the background and keep them healthy
+     */
+    public void warmUp(Collection<String> languages, long healthCheckIntervalMillis) {
+        if (pool == null) {
+            return;
+        }
+        pool.warmUp(languages.stream().map(AzureSpeechRecognitionEngine::normalizeLanguage).distinct().toList());
+        pool.startHealthChecks(healthCheckIntervalMillis);
+        log.info("Warming up Azure Speech recognizers ({}) for {}", speechRegion, languages);
+    }
+
+    @Override
+    public String getName() {
+        return "azure-" + speechRegion;
+    }
+
+    @Override
+    public SpeechTranscriptionResult recognize(File wavFile, String languageCode)
+            throws InterruptedException, ExecutionException {
+
+        String language = normalizeLanguage(languageCode);
+        byte[] pcm = pool != null ? readPushablePcm(wavFile) : null;
+        if (pcm == null) {
+            return recognizeFromFile(wavFile, language);
+        }
+        return recognizeFromStream(ByteBuffer.wrap(pcm), wavFile.getName(), language);
+    }
+
+    /**
+     * In-memory audio always goes through a push stream: a pooled recognizer when one
+     * is ready, otherwise one built for this clip
+     */
+    @Override
+    public SpeechTranscriptionResult recognizePcm(ByteBuffer pcm, String clipName, String languageCode)
+            throws InterruptedException, ExecutionException {
+        return recognizeFromStream(pcm.duplicate(), clipName, normalizeLanguage(languageCode));
+    }
+
+    /**
+     * Continuous recognition on a recognizer built for this session. Pooled recognizers
+     * are not used, as their connection was opened for single-shot recognition, but the
+     * session shares the language's long-lived configuration.
+     */
+    @Override
+    public StreamingRecognition startStreaming(String languageCode, Consumer<String> onPartial,
+                                               Consumer<String> onFinal, Consumer<String> onError,
+                                               Deadline deadline) throws InterruptedException, ExecutionException {
+        deadline.check("streaming recognition");
+        String language = normalizeLanguage(languageCode);
+        SpeechConfig speechConfig = cachedSpeechConfig(language);
+        SpeechConfig ownedConfig = speechConfig == null ? newSpeechConfig(language) : null;
+
+        PushRecognizer recognizer;
+        try {
+            recognizer = new PushRecognizer(ownedConfig != null ? ownedConfig : speechConfig, true);
+        } catch (RuntimeException e) {
+            if (ownedConfig != null) {
+                ownedConfig.close();
+            }
+            throw e;
+        }
+        PushStreamingRecognition recognition = new PushStreamingRecognition(recognizer.pushStream,
+            recognizer.recognizer, () -> {
+                recognizer.close();
+                if (ownedConfig != null) {
+                    ownedConfig.close();
+                }
+            });
+        recognition.start(onPartial, onFinal, onError);
+        streamingSessions.incrementAndGet();
+
+        log.debug("Started streaming recognition ({}, {})", speechRegion, language);
+        return recognition;
+    }
+
+    @Override
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("engine", getName());
+        stats.put("warmRecognitions", warmRecognitions.get());
+        stats.put("warmAverageMillis", average(warmRecognitionMillis, warmRecognitions));
+        stats.put("coldRecognitions", coldRecognitions.get());
+        stats.put("coldAverageMillis", average(coldRecognitionMillis, coldRecognitions));
+        stats.put("streamingSessions", streamingSessions.get());
+        if (pool != null) {
+            stats.put("pool", pool.getStats());
+        }
+        return stats;
+    }
+
+    @Override
+    public void close() {
+        if (pool != null) {
+            pool.close();
+        }
+        speechConfigs.values().forEach(SpeechConfig::close);
+        speechConfigs.clear();
+    }
+
+    /**
+     * Recognize with a recognizer built for this file
+     */
+    private SpeechTranscriptionResult recognizeFromFile(File wavFile, String language)
+            throws InterruptedException, ExecutionException {
+
+        long started = System.currentTimeMillis();
+        SpeechConfig speechConfig = cachedSpeechConfig(language);
+        boolean ownsConfig = speechConfig == null;
+        AudioConfig audioConfig = null;
+        SpeechRecognizer speechRecognizer = null;
+
+        try {
+            if (ownsConfig) {
+                speechConfig = newSpeechConfig(language);
+            }
+
+            // Configure audio input from file
+            audioConfig = AudioConfig.fromWavFileInput(wavFile.getAbsolutePath());
+
+            // Create speech recognizer
+            speechRecognizer = new SpeechRecognizer(speechConfig, audioConfig);
+
+            log.debug("Configured Azure Speech recognizer ({}) for file: {}", speechRegion, wavFile.getName());
+
+            // Perform recognition
+            Future<SpeechRecognitionResult> task = speechRecognizer.recognizeOnceAsync();
+            SpeechRecognitionResult result = task.get();
+            record(false, started);
+
+            return processRecognitionResult(result, wavFile.getName(), started);
+
+        } finally {
+            // Clean up resources
+            if (speechRecognizer != null) {
+                speechRecognizer.close();
+            }
+            if (audioConfig != null) {
+                audioConfig.close();
+            }
+            if (ownsConfig && speechConfig != null) {
+                speechConfig.close();
+            }
+        }
+    }
+
+    /**
+     * Recognize 16 kHz mono PCM pushed into a stream-fed recognizer
+     */
+    private SpeechTranscriptionResult recognizeFromStream(ByteBuffer pcm, String clipName, String language)
+            throws InterruptedException, ExecutionException {
+
+        long started = System.currentTimeMillis();
+        if (pool != null) {
+            try (PrewarmedPool.Lease<PushRecognizer> lease = pool.acquire(language)) {
+                SpeechRecognitionResult result = lease.get().recognize(pcm);
+                record(lease.isWarm(), started);
+                return processRecognitionResult(result, clipName, started);
+            }
+        }
+
+        SpeechConfig speechConfig = cachedSpeechConfig(language);
+        boolean ownsConfig = speechConfig == null;
+        if (ownsConfig) {
+            speechConfig = newSpeechConfig(language);
+        }
+        try (PushRecognizer recognizer = new PushRecognizer(speechConfig, false)) {
+            SpeechRecognitionResult result = recognizer.recognize(pcm);
+            record(false, started);
+            return processRecognitionResult(result, clipName, started);
+        } finally {
+            if (ownsConfig) {
+                speechConfig.close();
+            }
+        }
+    }
+
+    private PushRecognizer createWarmRecognizer(String language) {
+        SpeechConfig speechConfig = cachedSpeechConfig(language);
+        if (speechConfig == null) {
+            throw new IllegalStateException("No speech configuration slot for " + language);
+        }
+        return new PushRecognizer(speechConfig, false);
+    }
+
+    /**
+     * The shared configuration for a language, or null once the language limit is reached
+     */
+    private SpeechConfig cachedSpeechConfig(String language) {
+        SpeechConfig speechConfig = speechConfigs.get(language);
+        if (speechConfig != null) {
+            return speechConfig;
+        }
+        synchronized (speechConfigs) {
+            if (speechConfigs.size() >= maxLanguages && !speechConfigs.containsKey(language)) {
+                return null;
+            }
+            return speechConfigs.computeIfAbsent(language, this::newSpeechConfig);
+        }
+    }
+
+    private SpeechConfig newSpeechConfig(String language) {
+        SpeechConfig speechConfig = SpeechConfig.fromSubscription(speechKey, speechRegion);
+        speechConfig.setSpeechRecognitionLanguage(language);
+        return speechConfig;
+    }
+
+    /**
+     * The PCM samples of a 16 kHz mono 16-bit WAV file, or null if the push stream can't take it
+     */
+    private static byte[] readPushablePcm(File wavFile) {
+        try {
+            byte[] bytes = Files.readAllBytes(wavFile.toPath());
+            WavFile wav = WavFile.parse(bytes, bytes.length);
+            if (!wav.isPcm16() || wav.getSampleRate() != PUSH_SAMPLE_RATE || wav.getChannels() != 1) {
+                return null;
+            }
+            return Arrays.copyOfRange(bytes, wav.getDataOffset(), wav.getDataOffset() + wav.getDataLength());
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private void record(boolean warm, long started) {
+        long elapsed = System.currentTimeMillis() - started;
+        if (warm) {
+            warmRecognitions.incrementAndGet();
+            warmRecognitionMillis.addAndGet(elapsed);
+        } else {
+            coldRecognitions.incrementAndGet();
+            coldRecognitionMillis.addAndGet(elapsed);
+        }
+    }
+
+    private static double average(AtomicLong totalMillis, AtomicLong count) {
+        long n = count.get();
+        return n == 0 ? 0.0 : (double) totalMillis.get() / n;
+    }
+
+    private static String normalizeLanguage(String languageCode) {
+        return languageCode != null && !languageCode.trim().isEmpty() ? languageCode.trim() : DEFAULT_LANGUAGE;
+    }
+
+    /**
+     * Processes the Azure Speech recognition result
+     *
+     * @param result Azure Speech recognition result
+     * @param fileName File name for logging
+     * @param started When recognition started, for error reporting
+     * @return Processed transcription result
+     * @throws SpeechServiceException If Azure canceled the request with an error
+     */
+    private SpeechTranscriptionResult processRecognitionResult(SpeechRecognitionResult result, String fileName, long started) {
+        SpeechTranscriptionResult transcriptionResult = new SpeechTranscriptionResult();
+
+        switch (result.getReason()) {
+            case RecognizedSpeech:
+                log.info("Speech recognized successfully for file: {}", fileName);
+                transcriptionResult.setSuccess(true);
+                transcriptionResult.setText(result.getText());
+                transcriptionResult.setConfidence(1.0); // Azure doesn't provide confidence in basic recognition
+                transcriptionResult.setMessage("Speech recognized successfully");
+                break;
+
+            case NoMatch:
+                log.warn("No speech could be recognized for file: {}", fileName);
+                transcriptionResult.setSuccess(false);
+                transcriptionResult.setText("");
+                transcriptionResult.setConfidence(0.0);
+                transcriptionResult.setMessage("No speech could be recognized in the audio file");
+                break;
+
+            case Canceled:
+                CancellationDetails cancellation = CancellationDetails.fromResult(result);
+                log.error("Recognition was canceled for file: {}. Reason: {}", fileName, cancellation.getReason());
+
+                if (cancellation.getReason() == CancellationReason.Error) {
+                    // Service side failure: surface it so the caller can fail over or open the circuit
+                    String errorMessage = String.format("Recognition failed with error: %s - %s",
+                            cancellation.getErrorCode(), cancellation.getErrorDetails());
+                    log.error("Error details for file {}: {}", fileName, errorMessage);
+                    throw new SpeechServiceException(errorMessage, fileName, System.currentTimeMillis() - started);
+                }
+
+                transcriptionResult.setSuccess(false);
+                transcriptionResult.setText("");
+                transcriptionResult.setConfidence(0.0);
+                transcriptionResult.setMessage("Recognition was canceled: " + cancellation.getReason());
+                break;
+
+            default:
+                log.warn("Unexpected recognition result for file: {}", fileName);
+                transcriptionResult.setSuccess(false);
+                transcriptionResult.setText("");
+                transcriptionResult.setConfidence(0.0);
+                transcriptionResult.setMessage("Unexpected recognition result");
+                break;
+        }
+
+        // Log the result for debugging
+        if (!transcriptionResult.isSuccess()) {
+            log.warn("Azure Speech Service failed for {}: {}", fileName, transcriptionResult.getMessage());
+        }
+
+        return transcriptionResult;
+    }
+
+    /**
+     * A single-use recognizer reading from a push stream, with its connection opened in advance
+     * for either single-shot or continuous recognition
+     */
+    private static class PushRecognizer implements PrewarmedPool.Resource {
+        private final PushAudioInputStream pushStream;
+        private final AudioConfig audioConfig;
+        private final SpeechRecognizer recognizer;
+        private final Connection connection;
+        private volatile boolean disconnected;
+
+        PushRecognizer(SpeechConfig speechConfig, boolean continuous) {
+            pushStream = AudioInputStream.createPushStream(
+                AudioStreamFormat.getWaveFormatPCM((long) PUSH_SAMPLE_RATE, (short) 16, (short) 1));
+            audioConfig = AudioConfig.fromStreamInput(pushStream);
+            recognizer = new SpeechRecognizer(speechConfig, audioConfig);
+            connection = Connection.fromRecognizer(recognizer);
+            connection.disconnected.addEventListener((sender, e) -> disconnected = true);
+            // Do the TLS and session handshake now rather than on the first request
+            connection.openConnection(continuous);
+        }
+
+        /**
+         * Stream the samples in, end the stream and wait for the recognition result
+         */
+        SpeechRecognitionResult recognize(ByteBuffer pcm) throws InterruptedException, ExecutionException {
+            byte[] chunk = new byte[Math.min(PUSH_CHUNK_BYTES, pcm.remaining())];
+            while (pcm.hasRemaining()) {
+                if (pcm.remaining() < chunk.length) {
+                    chunk = new byte[pcm.remaining()];
+                }
+                pcm.get(chunk);
+                pushStream.write(chunk);
+            }
+            pushStream.close();
+            return recognizer.recognizeOnceAsync().get();
+        }
+
+        @Override
+        public boolean isHealthy() {
+            return !disconnected;
+        }
+
+        @Override
+        public void close() {
+            connection.close();
+            recognizer.close();
+            audioConfig.close();
+            pushStream.close();
+        }
+    }
+
+    /**
+     * Continuous recognition over a push recognizer, see {@link StreamingRecognition}
+     */
+    static class PushStreamingRecognition implements StreamingRecognition {
+        private static final long DRAIN_TIMEOUT_SECONDS = 5;
+
+        private final PushAudioInputStream pushStream;
+        private final SpeechRecognizer recognizer;
+        // Closes the recognizer and whatever was built for it
+        private final Runnable release;
+        private final CountDownLatch sessionStopped = new CountDownLatch(1);
+        private volatile boolean canceledWithError;
+        private boolean closed;
+        private boolean stoppedCleanly;
+
+        PushStreamingRecognition(PushAudioInputStream pushStream, SpeechRecognizer recognizer, Runnable release) {
+            this.pushStream = pushStream;
+            this.recognizer = recognizer;
+            this.release = release;
+        }
+
+        /**
+         * Route the recognizer's events to the callbacks and start recognizing; on failure
+         * the recognizer is released
+         */
+        void start(Consumer<String> onPartial, Consumer<String> onFinal, Consumer<String> onError)
+                throws InterruptedException, ExecutionException {
+            recognizer.recognizing.addEventListener((sender, e) -> onPartial.accept(e.getResult().getText()));
+            recognizer.recognized.addEventListener((sender, e) -> {
+                if (e.getResult().getReason() == ResultReason.RecognizedSpeech) {
+                    onFinal.accept(e.getResult().getText());
+                }
+            });
+            recognizer.canceled.addEventListener((sender, e) -> {
+                if (e.getReason() == CancellationReason.Error) {
+                    onCanceled(true);
+                    onError.accept(String.format("%s - %s", e.getErrorCode(), e.getErrorDetails()));
+                } else {
+                    onCanceled(false);
+                }
+            });
+            recognizer.sessionStopped.addEventListener((sender, e) -> onSessionStopped());
+
+            try {
+                recognizer.startContinuousRecognitionAsync().get();
+            } catch (InterruptedException | ExecutionException | RuntimeException e) {
+                abort();
+                throw e;
+            }
+        }
+
+        void onCanceled(boolean error) {
+            if (error) {
+                canceledWithError = true;
+            }
+            sessionStopped.countDown();
+        }
+
+        void onSessionStopped() {
+            sessionStopped.countDown();
+        }
+
+        @Override
+        public synchronized void write(byte[] pcmFrame) {
+            if (!closed && pcmFrame != null && pcmFrame.length > 0) {
+                pushStream.write(pcmFrame);
+            }
+        }
+
+        @Override
+        public void close() {
+            finish(DRAIN_TIMEOUT_SECONDS);
+        }
+
+        @Override
+        public synchronized boolean finish(long drainTimeoutSeconds) {
+            if (closed) {
+                return stoppedCleanly;
+            }
+            closed = true;
+            try {
+                pushStream.close();
+                boolean stopped = sessionStopped.await(drainTimeoutSeconds, TimeUnit.SECONDS);
+                if (!stopped) {
+                    log.warn("Streaming recognition did not drain within {} s", drainTimeoutSeconds);
+                }
+                stoppedCleanly = stopped && !canceledWithError;
+                recognizer.stopContinuousRecognitionAsync().get(DRAIN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                log.warn("Error stopping streaming recognition: {}", e.getMessage());
+            } finally {
+                release.run();
+            }
+            return stoppedCleanly;
+        }
+
+        private synchronized void abort() {
+            if (!closed) {
+                closed = true;
+                release.run();
+            }
+        }
+    }
+}
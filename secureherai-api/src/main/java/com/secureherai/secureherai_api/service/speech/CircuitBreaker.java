@@ -0,0 +1,97 @@
+package com.secureherai.secureherai_api.service.speech;
+
+/**
+ * Consecutive-failure circuit breaker for one speech engine.
+ *
+ * CLOSED lets every call through. After {@code failureThreshold} failures in a row the
+ * circuit OPENs and calls are refused for {@code openMillis}. Then a single trial call
+ * is let through (HALF_OPEN): success closes the circuit, failure opens it again.
+ */
+class CircuitBreaker {
+
+    enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private final int failureThreshold;
+    private final long openMillis;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+    private boolean trialInFlight;
+    private long timesOpened;
+
+    CircuitBreaker(int failureThreshold, long openMillis) {
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.openMillis = openMillis;
+    }
+
+    /**
+     * Ask to make a call. A caller that gets true must report the outcome with
+     * {@link #onSuccess()}, {@link #onFailure(long)} or {@link #onAbandoned()}.
+     */
+    synchronized boolean tryAcquire(long now) {
+        if (state == State.OPEN) {
+            if (now - openedAt < openMillis) {
+                return false;
+            }
+            state = State.HALF_OPEN;
+            trialInFlight = false;
+        }
+        if (state == State.HALF_OPEN) {
+            if (trialInFlight) {
+                return false;
+            }
+            trialInFlight = true;
+        }
+        return true;
+    }
+
+    /**
+     * Whether {@link #tryAcquire(long)} would currently let a call through, without claiming it
+     */
+    synchronized boolean isCallPermitted(long now) {
+        switch (state) {
+            case OPEN:
+                return now - openedAt >= openMillis;
+            case HALF_OPEN:
+                return !trialInFlight;
+            default:
+                return true;
+        }
+    }
+
+    synchronized void onSuccess() {
+        state = State.CLOSED;
+        consecutiveFailures = 0;
+        trialInFlight = false;
+    }
+
+    synchronized void onFailure(long now) {
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || (state == State.CLOSED && consecutiveFailures >= failureThreshold)) {
+            state = State.OPEN;
+            openedAt = now;
+            timesOpened++;
+        }
+        trialInFlight = false;
+    }
+
+    /**
+     * The call was canceled before it finished (it lost a hedge race); it says nothing about the engine
+     */
+    synchronized void onAbandoned() {
+        trialInFlight = false;
+    }
+
+    synchronized State getState() {
+        return state;
+    }
+
+    synchronized long getTimesOpened() {
+        return timesOpened;
+    }
+}
@@ -0,0 +1,96 @@
+package com.secureherai.secureherai_api.service.speech;
+
+import com.secureherai.secureherai_api.exception.SpeechServiceException;
+import com.secureherai.secureherai_api.service.AzureSpeechService.SpeechTranscriptionResult;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Deterministic stand-in for a cloud engine, for load tests and local development.
+ *
+ * The outcome is derived from the SHA-256 of the audio, so the same clip always gets
+ * the same transcript, latency and failure decision. That makes SOS throughput runs
+ * repeatable without Azure in the loop while still exercising the keyword and alert
+ * path (keyword-percent) and the circuit breaker (failure-percent).
+ */
+public class LocalSpeechRecognitionEngine implements SpeechRecognitionEngine {
+
+    private final String keywordTranscript;
+    private final String plainTranscript;
+    private final int keywordPercent;
+    private final long latencyMillis;
+    private final long jitterMillis;
+    private final int failurePercent;
+
+    /**
+     * @param keywordTranscript Transcript returned for clips that should trigger an alert
+     * @param plainTranscript Transcript returned for the other clips
+     * @param keywordPercent Share of clips (0-100) that get the keyword transcript
+     * @param latencyMillis Simulated base recognition time
+     * @param jitterMillis Upper bound of the extra, per-clip simulated time
+     * @param failurePercent Share of clips (0-100) that fail as if the service errored
+     */
+    public LocalSpeechRecognitionEngine(String keywordTranscript, String plainTranscript, int keywordPercent,
+                                        long latencyMillis, long jitterMillis, int failurePercent) {
+        this.keywordTranscript = keywordTranscript;
+        this.plainTranscript = plainTranscript;
+        this.keywordPercent = keywordPercent;
+        this.latencyMillis = Math.max(0, latencyMillis);
+        this.jitterMillis = Math.max(0, jitterMillis);
+        this.failurePercent = failurePercent;
+    }
+
+    @Override
+    public String getName() {
+        return "local";
+    }
+
+    @Override
+    public SpeechTranscriptionResult recognize(File wavFile, String languageCode) throws IOException, InterruptedException {
+        return recognize(sha256(ByteBuffer.wrap(Files.readAllBytes(wavFile.toPath()))), wavFile.getName());
+    }
+
+    @Override
+    public SpeechTranscriptionResult recognizePcm(ByteBuffer pcm, String clipName, String languageCode)
+            throws InterruptedException {
+        return recognize(sha256(pcm.duplicate()), clipName);
+    }
+
+    private SpeechTranscriptionResult recognize(byte[] digest, String clipName) throws InterruptedException {
+        long started = System.currentTimeMillis();
+
+        // Independent bytes of the digest drive each decision
+        long delay = latencyMillis + (jitterMillis == 0 ? 0 : unsigned(digest, 0) % (jitterMillis + 1));
+        if (delay > 0) {
+            Thread.sleep(delay);
+        }
+
+        if (unsigned(digest, 2) % 100 < failurePercent) {
+            throw new SpeechServiceException("Simulated recognition failure", clipName,
+                System.currentTimeMillis() - started);
+        }
+
+        boolean keyword = unsigned(digest, 4) % 100 < keywordPercent;
+        return new SpeechTranscriptionResult(true, keyword ? keywordTranscript : plainTranscript, 1.0,
+            "Speech recognized successfully");
+    }
+
+    private static int unsigned(byte[] digest, int offset) {
+        return ((digest[offset] & 0xFF) << 8) | (digest[offset + 1] & 0xFF);
+    }
+
+    private static byte[] sha256(ByteBuffer content) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(content);
+            return digest.digest();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,657 @@
+package com.secureherai.secureherai_api.service.speech;
+
+import com.secureherai.secureherai_api.exception.DeadlineExceededException;
+import com.secureherai.secureherai_api.exception.SpeechEngineUnavailableException;
+import com.secureherai.secureherai_api.service.AzureSpeechService.SpeechTranscriptionResult;
+import com.secureherai.secureherai_api.util.Deadline;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+/**
+ * The speech recognition engine the application uses: the configured engine(s) behind
+ * a concurrency limit, a per-engine circuit breaker, a hard timeout and optional hedging.
+ *
+ * Engines are tried in order (primary Azure region, then the hedge region). If the
+ * primary has not answered within the hedge delay, the same audio is sent to the next
+ * engine as well and the first answer wins; an engine that fails outright is failed
+ * over immediately. When no engine can take the request (circuits open, all permits
+ * busy, timeout) a {@link SpeechEngineUnavailableException} is thrown right away, so
+ * request threads never hang on a degraded provider and callers can fall back to the
+ * text SOS path.
+ *
+ * A request with a deadline waits no longer than the time it has left. Running out of
+ * that budget is reported as a {@link DeadlineExceededException} and, unlike a timeout,
+ * is not held against the engines' circuit breakers.
+ *
+ * Streaming sessions can't be hedged, as the audio is pushed to one engine as it arrives.
+ * They hold a permit until they are finished, fail over only while starting, and report
+ * to the circuit breaker once finished: a session that was canceled with an error or did
+ * not drain in time counts as a failure.
+ */
+@Service
+@Slf4j
+public class ResilientSpeechRecognitionEngine implements SpeechRecognitionEngine {
+
+    @Value("${speech.engine.type:azure}")
+    private String engineType = "azure";
+
+    @Value("${azure.speech.key:}")
+    private String speechKey;
+
+    @Value("${azure.speech.region:}")
+    private String speechRegion;
+
+    // Optional second region used for hedging and failover; the primary key is reused if no key is set
+    @Value("${azure.speech.hedge.region:}")
+    private String hedgeRegion;
+
+    @Value("${azure.speech.hedge.key:}")
+    private String hedgeKey;
+
+    @Value("${speech.engine.hedge-delay-ms:3000}")
+    private long hedgeDelayMillis = 3000;
+
+    @Value("${speech.engine.timeout-ms:15000}")
+    private long timeoutMillis = 15000;
+
+    @Value("${speech.engine.max-concurrent:16}")
+    private int maxConcurrent = 16;
+
+    @Value("${speech.engine.acquire-timeout-ms:250}")
+    private long acquireTimeoutMillis = 250;
+
+    @Value("${speech.engine.circuit.failure-threshold:5}")
+    private int circuitFailureThreshold = 5;
+
+    @Value("${speech.engine.circuit.open-ms:30000}")
+    private long circuitOpenMillis = 30000;
+
+    @Value("${azure.speech.pool.size-per-language:2}")
+    private int poolSizePerLanguage;
+
+    @Value("${azure.speech.pool.max-languages:4}")
+    private int poolMaxLanguages;
+
+    @Value("${azure.speech.pool.max-idle-seconds:240}")
+    private long poolMaxIdleSeconds;
+
+    @Value("${azure.speech.pool.health-check-interval-seconds:30}")
+    private long poolHealthCheckIntervalSeconds;
+
+    // Languages whose recognizers are built at startup; others are pooled on first use
+    @Value("${azure.speech.pool.warmup-languages:en-US}")
+    private List<String> poolWarmupLanguages;
+
+    @Value("${speech.local.keyword-transcript:help me}")
+    private String localKeywordTranscript;
+
+    @Value("${speech.local.plain-transcript:I am on my way home}")
+    private String localPlainTranscript;
+
+    @Value("${speech.local.keyword-percent:100}")
+    private int localKeywordPercent;
+
+    @Value("${speech.local.latency-ms:300}")
+    private long localLatencyMillis;
+
+    @Value("${speech.local.jitter-ms:200}")
+    private long localJitterMillis;
+
+    @Value("${speech.local.failure-percent:0}")
+    private int localFailurePercent;
+
+    private List<Lane> lanes = List.of();
+    private Semaphore permits;
+    private ThreadPoolExecutor executor;
+
+    private final AtomicLong saturated = new AtomicLong();
+    private final AtomicLong shortCircuited = new AtomicLong();
+    private final AtomicLong timeouts = new AtomicLong();
+    private final AtomicLong deadlineExceeded = new AtomicLong();
+    private final AtomicLong hedgesStarted = new AtomicLong();
+    private final AtomicLong failovers = new AtomicLong();
+    private final AtomicLong streamsStarted = new AtomicLong();
+
+    @PostConstruct
+    void init() {
+        start(buildEngines());
+    }
+
+    /**
+     * Wire up the given engines, in priority order
+     */
+    void start(List<SpeechRecognitionEngine> engines) {
+        List<Lane> configured = new ArrayList<>();
+        for (SpeechRecognitionEngine engine : engines) {
+            configured.add(new Lane(engine, new CircuitBreaker(circuitFailureThreshold, circuitOpenMillis)));
+        }
+        lanes = List.copyOf(configured);
+        permits = new Semaphore(maxConcurrent);
+
+        AtomicInteger counter = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "speech-engine-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        // Room for every permitted request to run on every engine, plus abandoned calls still unwinding
+        int maxThreads = Math.max(1, maxConcurrent * lanes.size() * 2);
+        executor = new ThreadPoolExecutor(0, maxThreads, 60L, TimeUnit.SECONDS,
+                new SynchronousQueue<>(), threadFactory, new ThreadPoolExecutor.AbortPolicy());
+
+        log.info("Speech recognition engines: {} (max concurrent={}, timeout={} ms, hedge delay={} ms)",
+                lanes.stream().map(lane -> lane.engine.getName()).toList(), maxConcurrent, timeoutMillis, hedgeDelayMillis);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+        for (Lane lane : lanes) {
+            try {
+                lane.engine.close();
+            } catch (RuntimeException e) {
+                log.warn("Error closing speech engine {}: {}", lane.engine.getName(), e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public String getName() {
+        return "resilient(" + String.join(",", lanes.stream().map(lane -> lane.engine.getName()).toList()) + ")";
+    }
+
+    @Override
+    public SpeechTranscriptionResult recognize(File wavFile, String languageCode) throws InterruptedException {
+        return recognizeWithPermit(engine -> engine.recognize(wavFile, languageCode));
+    }
+
+    @Override
+    public SpeechTranscriptionResult recognizePcm(ByteBuffer pcm, String clipName, String languageCode)
+            throws InterruptedException {
+        return recognizePcm(pcm, clipName, languageCode, Deadline.none());
+    }
+
+    @Override
+    public SpeechTranscriptionResult recognizePcm(ByteBuffer pcm, String clipName, String languageCode,
+                                                 Deadline deadline) throws InterruptedException {
+        deadline.check("speech recognition of " + clipName);
+        // Each hedged call reads through its own view of the shared samples
+        return recognizeWithPermit(engine -> engine.recognizePcm(pcm.duplicate(), clipName, languageCode), deadline);
+    }
+
+    private SpeechTranscriptionResult recognizeWithPermit(Request request) throws InterruptedException {
+        return recognizeWithPermit(request, Deadline.none());
+    }
+
+    private SpeechTranscriptionResult recognizeWithPermit(Request request, Deadline deadline) throws InterruptedException {
+        if (!permits.tryAcquire(deadline.capMillis(acquireTimeoutMillis), TimeUnit.MILLISECONDS)) {
+            saturated.incrementAndGet();
+            throw new SpeechEngineUnavailableException("Speech recognition is at capacity");
+        }
+        try {
+            return recognizeWithHedging(request, deadline);
+        } finally {
+            permits.release();
+        }
+    }
+
+    @Override
+    public StreamingRecognition startStreaming(String languageCode, Consumer<String> onPartial,
+                                               Consumer<String> onFinal, Consumer<String> onError,
+                                               Deadline deadline) throws InterruptedException {
+        deadline.check("streaming recognition");
+        if (!permits.tryAcquire(deadline.capMillis(acquireTimeoutMillis), TimeUnit.MILLISECONDS)) {
+            saturated.incrementAndGet();
+            throw new SpeechEngineUnavailableException("Speech recognition is at capacity");
+        }
+        StreamingRecognition recognition = null;
+        try {
+            recognition = startStreamingWithFailover(
+                engine -> engine.startStreaming(languageCode, onPartial, onFinal, onError, Deadline.none()), deadline);
+            return recognition;
+        } finally {
+            // A started session keeps its permit until it is finished
+            if (recognition == null) {
+                permits.release();
+            }
+        }
+    }
+
+    @Override
+    public boolean isAvailable() {
+        long now = System.currentTimeMillis();
+        return lanes.stream().anyMatch(lane -> lane.breaker.isCallPermitted(now));
+    }
+
+    @Override
+    public Map<String, Object> getStats() {
+        List<Map<String, Object>> engines = new ArrayList<>();
+        for (Lane lane : lanes) {
+            Map<String, Object> engineStats = new LinkedHashMap<>();
+            engineStats.put("engine", lane.engine.getName());
+            engineStats.put("circuit", lane.breaker.getState().name());
+            engineStats.put("circuitOpened", lane.breaker.getTimesOpened());
+            engineStats.put("calls", lane.calls.get());
+            engineStats.put("failures", lane.failures.get());
+            engineStats.put("wins", lane.wins.get());
+            engineStats.put("details", lane.engine.getStats());
+            engines.add(engineStats);
+        }
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("engineType", engineType);
+        stats.put("maxConcurrent", maxConcurrent);
+        stats.put("inFlight", permits == null ? 0 : maxConcurrent - permits.availablePermits());
+        stats.put("saturated", saturated.get());
+        stats.put("shortCircuited", shortCircuited.get());
+        stats.put("timeouts", timeouts.get());
+        stats.put("deadlineExceeded", deadlineExceeded.get());
+        stats.put("hedgesStarted", hedgesStarted.get());
+        stats.put("failovers", failovers.get());
+        stats.put("streamsStarted", streamsStarted.get());
+        stats.put("engines", engines);
+        return stats;
+    }
+
+    private SpeechTranscriptionResult recognizeWithHedging(Request request, Deadline requestDeadline)
+            throws InterruptedException {
+        long budgetMillis = requestDeadline.capMillis(timeoutMillis);
+        boolean cutShort = budgetMillis < timeoutMillis;
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(budgetMillis);
+        CompletionService<Attempt> completion = new ExecutorCompletionService<>(executor);
+        Map<Future<Attempt>, Call> running = new HashMap<>();
+        int[] nextLane = {0};
+        Exception lastFailure = null;
+
+        try {
+            if (startNext(nextLane, completion, running, request) == null) {
+                throw new SpeechEngineUnavailableException("Speech recognition is temporarily unavailable");
+            }
+
+            while (!running.isEmpty()) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    break;
+                }
+                boolean canHedge = hedgeDelayMillis > 0 && nextLane[0] < lanes.size();
+                long wait = canHedge ? Math.min(remaining, TimeUnit.MILLISECONDS.toNanos(hedgeDelayMillis)) : remaining;
+
+                Future<Attempt> done = completion.poll(wait, TimeUnit.NANOSECONDS);
+                if (done == null) {
+                    Lane hedge = canHedge ? startNext(nextLane, completion, running, request) : null;
+                    if (hedge != null) {
+                        hedgesStarted.incrementAndGet();
+                        log.info("Speech recognition slow, hedging to {}", hedge.engine.getName());
+                    }
+                    continue;
+                }
+
+                running.remove(done);
+                Attempt attempt = getAttempt(done);
+                if (attempt.result != null) {
+                    attempt.lane.wins.incrementAndGet();
+                    return attempt.result;
+                }
+
+                lastFailure = attempt.failure;
+                log.warn("Speech engine {} failed: {}", attempt.lane.engine.getName(), attempt.failure.getMessage());
+                if (running.isEmpty() && startNext(nextLane, completion, running, request) != null) {
+                    failovers.incrementAndGet();
+                }
+            }
+
+            if (!running.isEmpty() && cutShort) {
+                // The caller ran out of time, which says nothing about the engines' health
+                deadlineExceeded.incrementAndGet();
+                throw new DeadlineExceededException(
+                    "Speech recognition did not finish within the request deadline (" + budgetMillis + " ms)");
+            }
+            if (!running.isEmpty()) {
+                timeouts.incrementAndGet();
+                long now = System.currentTimeMillis();
+                for (Call call : running.values()) {
+                    call.lane.failures.incrementAndGet();
+                    call.lane.breaker.onFailure(now);
+                }
+                throw new SpeechEngineUnavailableException("Speech recognition timed out after " + timeoutMillis + " ms");
+            }
+            throw new SpeechEngineUnavailableException("Speech recognition failed: "
+                + (lastFailure != null ? lastFailure.getMessage() : "no engine available"), lastFailure);
+
+        } finally {
+            // Losing hedges and timed out calls are abandoned; their outcome no longer matters
+            for (Map.Entry<Future<Attempt>, Call> entry : running.entrySet()) {
+                entry.getValue().abandoned = true;
+                entry.getKey().cancel(true);
+            }
+        }
+    }
+
+    /**
+     * Start a streaming session on the first engine whose circuit lets it through, moving
+     * on to the next one if it fails to start. The wait for a start is capped by the
+     * timeout or the time the request has left.
+     */
+    private StreamingRecognition startStreamingWithFailover(StreamingRequest request, Deadline requestDeadline)
+            throws InterruptedException {
+        long budgetMillis = requestDeadline.capMillis(timeoutMillis);
+        boolean cutShort = budgetMillis < timeoutMillis;
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(budgetMillis);
+        Exception lastFailure = null;
+
+        for (Lane lane : lanes) {
+            if (!lane.breaker.tryAcquire(System.currentTimeMillis())) {
+                shortCircuited.incrementAndGet();
+                continue;
+            }
+            PendingStart pending = new PendingStart();
+            Future<StreamingRecognition> start;
+            try {
+                start = executor.submit(() -> pending.deliver(request.start(lane.engine)));
+            } catch (RejectedExecutionException e) {
+                lane.breaker.onAbandoned();
+                saturated.incrementAndGet();
+                continue;
+            }
+            lane.calls.incrementAndGet();
+
+            try {
+                StreamingRecognition recognition = start.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                if (lastFailure != null) {
+                    failovers.incrementAndGet();
+                }
+                streamsStarted.incrementAndGet();
+                return new MonitoredStreamingRecognition(lane, recognition);
+            } catch (TimeoutException e) {
+                pending.abandon(start);
+                if (cutShort) {
+                    // The caller ran out of time, which says nothing about the engine's health
+                    lane.breaker.onAbandoned();
+                    deadlineExceeded.incrementAndGet();
+                    throw new DeadlineExceededException(
+                        "Streaming recognition did not start within the request deadline (" + budgetMillis + " ms)");
+                }
+                timeouts.incrementAndGet();
+                lane.failures.incrementAndGet();
+                lane.breaker.onFailure(System.currentTimeMillis());
+                throw new SpeechEngineUnavailableException(
+                    "Streaming recognition did not start within " + timeoutMillis + " ms");
+            } catch (InterruptedException e) {
+                pending.abandon(start);
+                lane.breaker.onAbandoned();
+                throw e;
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof UnsupportedOperationException unsupported) {
+                    // A limitation of the engine, not a failure
+                    lane.breaker.onAbandoned();
+                    throw unsupported;
+                }
+                lastFailure = e.getCause() instanceof Exception cause ? cause : e;
+                lane.failures.incrementAndGet();
+                lane.breaker.onFailure(System.currentTimeMillis());
+                log.warn("Speech engine {} failed to start streaming: {}", lane.engine.getName(), lastFailure.getMessage());
+            }
+        }
+
+        if (lastFailure == null) {
+            throw new SpeechEngineUnavailableException("Speech recognition is temporarily unavailable");
+        }
+        throw new SpeechEngineUnavailableException("Speech recognition failed: " + lastFailure.getMessage(), lastFailure);
+    }
+
+    /**
+     * Start the request on the next engine whose circuit lets it through
+     *
+     * @return The engine lane that was started, or null if none could take the request
+     */
+    private Lane startNext(int[] nextLane, CompletionService<Attempt> completion, Map<Future<Attempt>, Call> running,
+                           Request request) {
+        long now = System.currentTimeMillis();
+        while (nextLane[0] < lanes.size()) {
+            Lane lane = lanes.get(nextLane[0]++);
+            if (!lane.breaker.tryAcquire(now)) {
+                shortCircuited.incrementAndGet();
+                continue;
+            }
+            Call call = new Call(lane);
+            try {
+                running.put(completion.submit(() -> call.run(request)), call);
+                return lane;
+            } catch (RejectedExecutionException e) {
+                lane.breaker.onAbandoned();
+                saturated.incrementAndGet();
+            }
+        }
+        return null;
+    }
+
+    private static Attempt getAttempt(Future<Attempt> done) throws InterruptedException {
+        try {
+            return done.get();
+        } catch (ExecutionException e) {
+            // Call.run catches every exception, so this only happens on an Error
+            throw new IllegalStateException("Speech engine call failed unexpectedly", e.getCause());
+        }
+    }
+
+    private List<SpeechRecognitionEngine> buildEngines() {
+        if ("local".equalsIgnoreCase(engineType)) {
+            return List.of(new LocalSpeechRecognitionEngine(localKeywordTranscript, localPlainTranscript,
+                localKeywordPercent, localLatencyMillis, localJitterMillis, localFailurePercent));
+        }
+
+        List<SpeechRecognitionEngine> engines = new ArrayList<>();
+        engines.add(newAzureEngine(speechKey, speechRegion));
+        if (hedgeRegion != null && !hedgeRegion.isBlank() && !hedgeRegion.equals(speechRegion)) {
+            String key = hedgeKey == null || hedgeKey.isBlank() ? speechKey : hedgeKey;
+            engines.add(newAzureEngine(key, hedgeRegion));
+        }
+        return engines;
+    }
+
+    private AzureSpeechRecognitionEngine newAzureEngine(String key, String region) {
+        AzureSpeechRecognitionEngine engine = new AzureSpeechRecognitionEngine(key, region,
+            poolSizePerLanguage, poolMaxLanguages, TimeUnit.SECONDS.toMillis(poolMaxIdleSeconds));
+        // Without credentials every warm-up attempt would fail; requests report the missing configuration instead
+        if (key != null && !key.isBlank() && region != null && !region.isBlank()) {
+            engine.warmUp(poolWarmupLanguages, TimeUnit.SECONDS.toMillis(poolHealthCheckIntervalSeconds));
+        }
+        return engine;
+    }
+
+    /**
+     * What to ask of an engine: a file or in-memory samples
+     */
+    @FunctionalInterface
+    private interface Request {
+        SpeechTranscriptionResult send(SpeechRecognitionEngine engine) throws Exception;
+    }
+
+    /**
+     * How to start a streaming session on an engine
+     */
+    @FunctionalInterface
+    private interface StreamingRequest {
+        StreamingRecognition start(SpeechRecognitionEngine engine) throws Exception;
+    }
+
+    /**
+     * One engine with its circuit breaker and counters
+     */
+    private static class Lane {
+        private final SpeechRecognitionEngine engine;
+        private final CircuitBreaker breaker;
+        private final AtomicLong calls = new AtomicLong();
+        private final AtomicLong failures = new AtomicLong();
+        private final AtomicLong wins = new AtomicLong();
+
+        Lane(SpeechRecognitionEngine engine, CircuitBreaker breaker) {
+            this.engine = engine;
+            this.breaker = breaker;
+        }
+    }
+
+    /**
+     * One request sent to one engine
+     */
+    private static class Call {
+        private final Lane lane;
+        // Set by the request thread once it no longer waits for this call
+        private volatile boolean abandoned;
+
+        Call(Lane lane) {
+            this.lane = lane;
+        }
+
+        Attempt run(Request request) {
+            lane.calls.incrementAndGet();
+            try {
+                SpeechTranscriptionResult result = request.send(lane.engine);
+                lane.breaker.onSuccess();
+                return new Attempt(lane, result, null);
+            } catch (Exception e) {
+                if (e instanceof InterruptedException) {
+                    Thread.currentThread().interrupt();
+                }
+                if (e instanceof InterruptedException || abandoned) {
+                    lane.breaker.onAbandoned();
+                } else {
+                    lane.failures.incrementAndGet();
+                    lane.breaker.onFailure(System.currentTimeMillis());
+                }
+                return new Attempt(lane, null, e);
+            }
+        }
+    }
+
+    private static class Attempt {
+        private final Lane lane;
+        private final SpeechTranscriptionResult result;
+        private final Exception failure;
+
+        Attempt(Lane lane, SpeechTranscriptionResult result, Exception failure) {
+            this.lane = lane;
+            this.result = result;
+            this.failure = failure;
+        }
+    }
+
+    /**
+     * Hands a started session over to the request thread, or closes it if the request
+     * thread stopped waiting for it
+     */
+    private static class PendingStart {
+        private StreamingRecognition recognition;
+        private boolean abandoned;
+
+        StreamingRecognition deliver(StreamingRecognition started) {
+            synchronized (this) {
+                if (!abandoned) {
+                    recognition = started;
+                    return started;
+                }
+            }
+            started.close();
+            return null;
+        }
+
+        void abandon(Future<StreamingRecognition> start) {
+            StreamingRecognition started;
+            synchronized (this) {
+                abandoned = true;
+                started = recognition;
+            }
+            start.cancel(true);
+            if (started != null) {
+                started.close();
+            }
+        }
+    }
+
+    /**
+     * A started session that returns its permit and reports its outcome to the engine's
+     * circuit breaker once finished
+     */
+    private class MonitoredStreamingRecognition implements StreamingRecognition {
+        private final Lane lane;
+        private final StreamingRecognition delegate;
+        private final AtomicBoolean finished = new AtomicBoolean();
+
+        MonitoredStreamingRecognition(Lane lane, StreamingRecognition delegate) {
+            this.lane = lane;
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void write(byte[] pcmFrame) {
+            delegate.write(pcmFrame);
+        }
+
+        @Override
+        public boolean finish(long drainTimeoutSeconds) {
+            return finishAndReport(() -> delegate.finish(drainTimeoutSeconds));
+        }
+
+        @Override
+        public void close() {
+            // Once closed, finish only returns the outcome of the drain
+            finishAndReport(() -> {
+                delegate.close();
+                return delegate.finish(0);
+            });
+        }
+
+        private boolean finishAndReport(BooleanSupplier finish) {
+            boolean stoppedCleanly = false;
+            try {
+                stoppedCleanly = finish.getAsBoolean();
+                return stoppedCleanly;
+            } finally {
+                if (finished.compareAndSet(false, true)) {
+                    report(stoppedCleanly);
+                    permits.release();
+                }
+            }
+        }
+
+        private void report(boolean stoppedCleanly) {
+            if (stoppedCleanly) {
+                lane.breaker.onSuccess();
+            } else if (Thread.currentThread().isInterrupted()) {
+                lane.breaker.onAbandoned();
+            } else {
+                lane.failures.incrementAndGet();
+                lane.breaker.onFailure(System.currentTimeMillis());
+            }
+        }
+    }
+}
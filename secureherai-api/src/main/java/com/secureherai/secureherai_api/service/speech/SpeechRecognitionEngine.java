@@ -0,0 +1,122 @@
+package com.secureherai.secureherai_api.service.speech;
+
+import com.secureherai.secureherai_api.exception.DeadlineExceededException;
+import com.secureherai.secureherai_api.service.AzureSpeechService.SpeechTranscriptionResult;
+import com.secureherai.secureherai_api.util.Deadline;
+import com.secureherai.secureherai_api.util.WavFile;
+
+import java.io.File;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Recognizes speech in a converted WAV file (16 kHz, 16-bit, mono PCM).
+ *
+ * Implementations return an unsuccessful result when the audio simply contains no
+ * recognizable speech, and throw when the engine itself failed (network, quota,
+ * authentication), so callers can tell a quiet clip from an outage.
+ */
+public interface SpeechRecognitionEngine extends AutoCloseable {
+
+    /**
+     * Short engine name used in logs and stats, e.g. "azure-eastus" or "local"
+     */
+    String getName();
+
+    /**
+     * Transcribe a WAV file
+     *
+     * @param wavFile Converted WAV audio
+     * @param languageCode Recognition language, or null for en-US
+     * @return The transcription result
+     * @throws Exception If the engine failed to process the request
+     */
+    SpeechTranscriptionResult recognize(File wavFile, String languageCode) throws Exception;
+
+    /**
+     * Transcribe 16 kHz, 16-bit, mono PCM held in memory. Engines that can only read
+     * files get it spilled to a temporary WAV file.
+     *
+     * @param pcm Raw samples from position to limit; the buffer's position is not changed
+     * @param clipName Name of the clip for logs and errors
+     * @param languageCode Recognition language, or null for en-US
+     * @return The transcription result
+     * @throws Exception If the engine failed to process the request
+     */
+    default SpeechTranscriptionResult recognizePcm(ByteBuffer pcm, String clipName, String languageCode) throws Exception {
+        ByteBuffer samples = pcm.duplicate();
+        Path wavPath = Files.createTempFile("pcm_", ".wav");
+        try {
+            byte[] header = new byte[WavFile.HEADER_SIZE];
+            WavFile.writeHeader(header, 16000, 1, 16, samples.remaining());
+            try (OutputStream out = Files.newOutputStream(wavPath)) {
+                out.write(header);
+                Channels.newChannel(out).write(samples);
+            }
+            return recognize(wavPath.toFile(), languageCode);
+        } finally {
+            Files.deleteIfExists(wavPath);
+        }
+    }
+
+    /**
+     * Transcribe 16 kHz, 16-bit, mono PCM within a request's deadline. Engines that
+     * cannot bound a call only refuse to start one once the deadline has passed.
+     *
+     * @param pcm Raw samples from position to limit; the buffer's position is not changed
+     * @param clipName Name of the clip for logs and errors
+     * @param languageCode Recognition language, or null for en-US
+     * @param deadline The request's deadline
+     * @return The transcription result
+     * @throws DeadlineExceededException If the deadline passed before recognition finished
+     * @throws Exception If the engine failed to process the request
+     */
+    default SpeechTranscriptionResult recognizePcm(ByteBuffer pcm, String clipName, String languageCode,
+                                                   Deadline deadline) throws Exception {
+        deadline.check("speech recognition of " + clipName);
+        return recognizePcm(pcm, clipName, languageCode);
+    }
+
+    /**
+     * Start continuous recognition over a push stream, so audio can be transcribed
+     * while it is still arriving. Frames written to the returned handle must be
+     * 16 kHz, 16-bit, mono PCM.
+     *
+     * @param languageCode Recognition language, or null for en-US
+     * @param onPartial Receives every intermediate hypothesis
+     * @param onFinal Receives each finalized phrase
+     * @param onError Receives error details if recognition is canceled with an error
+     * @param deadline The request's deadline for getting the session started
+     * @return Handle used to push audio and finish the stream
+     * @throws UnsupportedOperationException If the engine can only recognize whole clips
+     * @throws Exception If recognition failed to start
+     */
+    default StreamingRecognition startStreaming(String languageCode, Consumer<String> onPartial,
+                                                Consumer<String> onFinal, Consumer<String> onError,
+                                                Deadline deadline) throws Exception {
+        throw new UnsupportedOperationException("Streaming recognition is not supported by " + getName());
+    }
+
+    /**
+     * Whether the engine is currently accepting requests
+     */
+    default boolean isAvailable() {
+        return true;
+    }
+
+    default Map<String, Object> getStats() {
+        return Map.of("engine", getName());
+    }
+
+    /**
+     * Release pooled connections and native resources
+     */
+    @Override
+    default void close() {
+    }
+}
@@ -0,0 +1,28 @@
+package com.secureherai.secureherai_api.service.speech;
+
+/**
+ * Handle for a running continuous recognition fed through a push stream
+ */
+public interface StreamingRecognition extends AutoCloseable {
+
+    /**
+     * Push a frame of 16 kHz, 16-bit, mono PCM audio
+     */
+    void write(byte[] pcmFrame);
+
+    /**
+     * Signal end of audio, wait up to the given time for recognition to work through
+     * the rest of it and release native resources. Only the first call does the work;
+     * later calls return its outcome.
+     *
+     * @return true if the session stopped on its own within that time and was not
+     *         canceled with an error, i.e. every phrase of the audio was delivered
+     */
+    boolean finish(long drainTimeoutSeconds);
+
+    /**
+     * Signal end of audio, wait briefly for the last results and release native resources
+     */
+    @Override
+    void close();
+}
@@ -0,0 +1,497 @@
+package com.secureherai.secureherai_api.socket;
+
+import com.corundumstudio.socketio.AckCallback;
+import com.corundumstudio.socketio.SocketIOClient;
+import com.corundumstudio.socketio.SocketIONamespace;
+import com.corundumstudio.socketio.SocketIOServer;
+import com.secureherai.secureherai_api.cluster.ClusterEvent;
+import com.secureherai.secureherai_api.cluster.ClusterEventBus;
+import com.secureherai.secureherai_api.dto.notification.NotificationResponseDto;
+import com.secureherai.secureherai_api.entity.Alert;
+import com.secureherai.secureherai_api.entity.AlertResponder;
+import com.secureherai.secureherai_api.entity.Notification;
+import com.secureherai.secureherai_api.enums.AlertStatus;
+import com.secureherai.secureherai_api.repository.AlertRepository;
+import com.secureherai.secureherai_api.repository.AlertResponderRepository;
+import com.secureherai.secureherai_api.repository.NotificationRepository;
+import com.secureherai.secureherai_api.service.JwtService;
+import com.secureherai.secureherai_api.service.UnreadCounterService;
+import com.secureherai.secureherai_api.socket.PushQueue.Message;
+import com.secureherai.secureherai_api.util.TransactionHooks;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Socket.io namespace that pushes notifications to connected apps, so they no longer
+ * poll {@code /api/notifications} and {@code /api/notifications/count}.
+ *
+ * Protocol (namespace /notifications, JWT passed as the "token" query parameter):
+ *   server -> "notification" { id, type, title, message, payload, ... }  ack with any value
+ *   server -> "unread-count" { count }       on connect and after notifications are read
+ *   server -> "resync"       { dropped }     messages were dropped; fetch the list over REST
+ *   server -> "alert-created" / "alert-status-changed" { alertId, userId, status }
+ *   server -> "location-updated" { userId, latitude, longitude }  of a tracked participant
+ *   server -> "error"        { message }
+ *   client -> "track-alert" / "untrack-alert" { alertId }  follow an alert the user takes part in
+ *
+ * Every connection joins the room of its user; responders also join their responder room,
+ * which receives the emergency requests sent to them. Tracking an alert joins its room and
+ * the location rooms of the alert's owner and accepted responders; send "track-alert"
+ * again after a responder accepts to follow them too. Notifications and alert and
+ * location events reach the rooms on every node through the {@link ClusterEventBus}, so
+ * a user and their responders may be connected to different nodes. Each connection has a
+ * {@link PushQueue}, so a slow client cannot make the server buffer without bound. A
+ * notification stays PENDING until a client acknowledges it; acknowledgements are
+ * written back in batches. On connect the user's undelivered notifications are sent
+ * again, which covers pushes made while the app was offline or connected to another node.
+ */
+@Component
+@ConditionalOnProperty(name = "socketio.enabled", havingValue = "true")
+@RequiredArgsConstructor
+@Slf4j
+public class NotificationPushGateway {
+
+    public static final String NAMESPACE = "/notifications";
+
+    private static final String USER_ID_KEY = "userId";
+    private static final String QUEUE_KEY = "pushQueue";
+    private static final String RESPONDER_ROLE = "RESPONDER";
+    private static final String UNREAD_COUNT_EVENT = "unread-count";
+    // Emergency requests (15) and "are you safe?" checks (12) jump the queue
+    private static final int URGENT_PRIORITY = 10;
+    private static final int MAX_ACKS_PER_UPDATE = 500;
+    private static final List<String> FINAL_ALERT_STATUSES = List.of(AlertStatus.CANCELED.getValue(),
+        AlertStatus.RESOLVED.getValue(), AlertStatus.FALSE_ALARM.getValue(), AlertStatus.EXPIRED.getValue());
+
+    private final SocketIOServer socketIOServer;
+    private final JwtService jwtService;
+    private final NotificationRepository notificationRepository;
+    private final AlertRepository alertRepository;
+    private final AlertResponderRepository alertResponderRepository;
+    private final ClusterEventBus clusterEventBus;
+    private final UnreadCounterService unreadCounterService;
+
+    @Value("${notification.push.queue-capacity:100}")
+    private int queueCapacity;
+
+    @Value("${notification.push.max-in-flight:16}")
+    private int maxInFlight;
+
+    @Value("${notification.push.ack-timeout-seconds:30}")
+    private int ackTimeoutSeconds;
+
+    @Value("${notification.push.replay-limit:50}")
+    private int replayLimit;
+
+    @Value("${notification.push.workers:2}")
+    private int workers;
+
+    private SocketIONamespace namespace;
+    // Replays on connect and track requests read the database, which must not happen on a netty event loop
+    private ThreadPoolExecutor executor;
+    private final Queue<Long> acknowledged = new ConcurrentLinkedQueue<>();
+
+    private final AtomicLong pushed = new AtomicLong();
+    private final AtomicLong merged = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong delivered = new AtomicLong();
+    private final AtomicLong timedOut = new AtomicLong();
+
+    @PostConstruct
+    void registerListeners() {
+        AtomicInteger counter = new AtomicInteger();
+        executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(workers * 256), runnable -> {
+                    Thread thread = new Thread(runnable, "push-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+
+        namespace = socketIOServer.addNamespace(NAMESPACE);
+        namespace.addConnectListener(this::onConnect);
+        namespace.addEventListener("track-alert", Map.class, (client, data, ackRequest) ->
+            onTrackAlert(client, data, true));
+        namespace.addEventListener("untrack-alert", Map.class, (client, data, ackRequest) ->
+            onTrackAlert(client, data, false));
+
+        clusterEventBus.subscribe(ClusterEventBus.NOTIFICATION_CREATED, this::onNotificationCreated);
+        clusterEventBus.subscribe(ClusterEventBus.ALERT_CREATED, this::onAlertEvent);
+        clusterEventBus.subscribe(ClusterEventBus.ALERT_STATUS_CHANGED, this::onAlertEvent);
+        clusterEventBus.subscribe(ClusterEventBus.LOCATION_UPDATED, this::onLocationUpdated);
+        log.info("Registered notification push namespace {}", NAMESPACE);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+        flushAcknowledgements();
+    }
+
+    static String userRoom(UUID userId) {
+        return "user:" + userId;
+    }
+
+    static String responderRoom(UUID userId) {
+        return "responder:" + userId;
+    }
+
+    static String alertRoom(Object alertId) {
+        return "alert:" + alertId;
+    }
+
+    static String locationRoom(Object userId) {
+        return "location:" + userId;
+    }
+
+    /**
+     * Tell the user's connected apps their unread count; queued updates are merged
+     */
+    public void publishUnreadCount(UUID userId, long count) {
+        Message message = new Message(UNREAD_COUNT_EVENT, Map.of("count", count), null, UNREAD_COUNT_EVENT, false);
+        TransactionHooks.runAfterCommit(() -> deliver(userRoom(userId), message));
+    }
+
+    private void onConnect(SocketIOClient client) {
+        String token = client.getHandshakeData().getSingleUrlParam("token");
+        UUID userId;
+        String role;
+        try {
+            if (token == null || !jwtService.isTokenValid(token)) {
+                reject(client);
+                return;
+            }
+            userId = jwtService.extractUserId(token);
+            role = jwtService.extractRole(token);
+        } catch (Exception e) {
+            log.warn("Rejected notification push connection: {}", e.getMessage());
+            reject(client);
+            return;
+        }
+
+        client.set(USER_ID_KEY, userId);
+        client.set(QUEUE_KEY, new PushQueue(queueCapacity, maxInFlight));
+        client.joinRoom(userRoom(userId));
+        if (RESPONDER_ROLE.equals(role)) {
+            client.joinRoom(responderRoom(userId));
+        }
+
+        try {
+            executor.execute(() -> replay(client, userId));
+        } catch (RejectedExecutionException e) {
+            // The app falls back to fetching over REST
+            log.warn("Push replay queue is full, skipping replay for user: {}", userId);
+            client.sendEvent("resync", Map.of("dropped", 0));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void onNotificationCreated(ClusterEvent event) {
+        Long notificationId = Long.valueOf(event.getKey());
+        if (event.isTruncated()) {
+            // Too large to travel with the event; only load it if someone here can receive it
+            notificationRepository.findById(notificationId).ifPresent(notification -> {
+                if (hasClients(room(notification))) {
+                    deliver(room(notification), notificationMessage(notification));
+                }
+            });
+            return;
+        }
+        Map<String, Object> notification = (Map<String, Object>) event.getData().get("notification");
+        UUID userId = UUID.fromString(String.valueOf(notification.get("userId")));
+        String room = Notification.NotificationType.EMERGENCY_NEARBY.name().equals(notification.get("type"))
+            ? responderRoom(userId) : userRoom(userId);
+        Object priority = notification.get("priority");
+        boolean urgent = priority instanceof Number && ((Number) priority).intValue() >= URGENT_PRIORITY;
+        deliver(room, new Message("notification", notification, notificationId, null, urgent));
+        joinAlertRoom(room, notification);
+    }
+
+    /**
+     * Responders that receive an emergency request follow its alert from then on
+     */
+    @SuppressWarnings("unchecked")
+    private void joinAlertRoom(String room, Map<String, Object> notification) {
+        Object type = notification.get("type");
+        Object payload = notification.get("payload");
+        if (!Notification.NotificationType.EMERGENCY_NEARBY.name().equals(type) || !(payload instanceof Map)) {
+            return;
+        }
+        Object alertId = ((Map<String, Object>) payload).get("alertId");
+        if (alertId != null) {
+            for (SocketIOClient client : namespace.getRoomOperations(room).getClients()) {
+                client.joinRoom(alertRoom(alertId));
+            }
+        }
+    }
+
+    private void onAlertEvent(ClusterEvent event) {
+        if (event.isTruncated()) {
+            return;
+        }
+        Map<String, Object> data = event.getData();
+        Message message = new Message(event.getType(), data, null, event.getType() + ':' + event.getKey(), false);
+        deliver(userRoom(UUID.fromString(String.valueOf(data.get("userId")))), message);
+        String room = alertRoom(event.getKey());
+        deliver(room, message);
+        if (FINAL_ALERT_STATUSES.contains(String.valueOf(data.get("status")))) {
+            // Copied: leaving the room changes its client list
+            for (SocketIOClient client : new ArrayList<>(namespace.getRoomOperations(room).getClients())) {
+                untrack(client, event.getKey());
+            }
+        }
+    }
+
+    private void onLocationUpdated(ClusterEvent event) {
+        String room = locationRoom(event.getKey());
+        if (event.isTruncated() || !hasClients(room)) {
+            return;
+        }
+        Map<String, Object> data = new LinkedHashMap<>(event.getData());
+        data.put("userId", event.getKey());
+        // Followers only need the latest position
+        deliver(room, new Message(ClusterEventBus.LOCATION_UPDATED, data, null, room, false));
+    }
+
+    @SuppressWarnings("rawtypes")
+    private void onTrackAlert(SocketIOClient client, Map data, boolean track) {
+        UUID userId = client.get(USER_ID_KEY);
+        Object alertIdValue = data != null ? data.get("alertId") : null;
+        if (userId == null || alertIdValue == null) {
+            client.sendEvent("error", Map.of("message", "alertId is required"));
+            return;
+        }
+        UUID alertId;
+        try {
+            alertId = UUID.fromString(alertIdValue.toString());
+        } catch (IllegalArgumentException e) {
+            client.sendEvent("error", Map.of("message", "Invalid alertId"));
+            return;
+        }
+        if (!track) {
+            untrack(client, alertId.toString());
+            return;
+        }
+        try {
+            executor.execute(() -> track(client, userId, alertId));
+        } catch (RejectedExecutionException e) {
+            client.sendEvent("error", Map.of("message", "Server is busy, try again"));
+        }
+    }
+
+    /**
+     * Join the alert's room and its participants' location rooms, if the user takes part in it
+     */
+    private void track(SocketIOClient client, UUID userId, UUID alertId) {
+        Optional<Alert> alert = alertRepository.findById(alertId);
+        if (alert.isEmpty()) {
+            client.sendEvent("error", Map.of("message", "Alert not found"));
+            return;
+        }
+        List<AlertResponder> responders = alertResponderRepository.findByAlertId(alertId);
+        boolean isOwner = alert.get().getUserId().equals(userId);
+        boolean isResponder = responders.stream().anyMatch(responder -> responder.getResponderId().equals(userId))
+            || notificationRepository.existsByAlertIdAndUserId(alertId, userId);
+        if (!isOwner && !isResponder) {
+            client.sendEvent("error", Map.of("message", "Not authorized to track this alert"));
+            return;
+        }
+
+        List<String> rooms = new ArrayList<>();
+        rooms.add(alertRoom(alertId));
+        if (!isOwner) {
+            rooms.add(locationRoom(alert.get().getUserId()));
+        }
+        for (AlertResponder responder : responders) {
+            if (!responder.getResponderId().equals(userId) && (AlertStatus.ACCEPTED.equals(responder.getStatus())
+                    || AlertStatus.EN_ROUTE.equals(responder.getStatus()) || AlertStatus.ARRIVED.equals(responder.getStatus()))) {
+                rooms.add(locationRoom(responder.getResponderId()));
+            }
+        }
+        untrack(client, alertId.toString());
+        rooms.forEach(client::joinRoom);
+        client.set(trackingKey(alertId.toString()), rooms);
+    }
+
+    private static void untrack(SocketIOClient client, String alertId) {
+        List<String> rooms = client.get(trackingKey(alertId));
+        if (rooms != null) {
+            rooms.forEach(client::leaveRoom);
+            client.del(trackingKey(alertId));
+        }
+        client.leaveRoom(alertRoom(alertId));
+    }
+
+    private static String trackingKey(String alertId) {
+        return "tracking:" + alertId;
+    }
+
+    private static String room(Notification notification) {
+        return notification.getType() == Notification.NotificationType.EMERGENCY_NEARBY
+            ? responderRoom(notification.getUserId()) : userRoom(notification.getUserId());
+    }
+
+    private static boolean isUrgent(Notification notification) {
+        return notification.getPriority() != null && notification.getPriority() >= URGENT_PRIORITY;
+    }
+
+    private static Message notificationMessage(Notification notification) {
+        return new Message("notification", NotificationResponseDto.fromEntity(notification),
+            notification.getId(), null, isUrgent(notification));
+    }
+
+    private boolean hasClients(String room) {
+        return !namespace.getRoomOperations(room).getClients().isEmpty();
+    }
+
+    private void reject(SocketIOClient client) {
+        client.sendEvent("error", Map.of("message", "Authentication token is invalid or expired"));
+        client.disconnect();
+    }
+
+    /**
+     * Send the unread count and the notifications that were not delivered yet
+     */
+    private void replay(SocketIOClient client, UUID userId) {
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            List<Notification> undelivered = notificationRepository.findUndelivered(userId, now,
+                PageRequest.of(0, replayLimit));
+            long unread = unreadCounterService.get(userId);
+
+            enqueue(client, new Message(UNREAD_COUNT_EVENT, Map.of("count", unread), null, UNREAD_COUNT_EVENT, false));
+            for (Notification notification : undelivered) {
+                enqueue(client, notificationMessage(notification));
+            }
+        } catch (Exception e) {
+            log.error("Failed to replay notifications for user: {}", userId, e);
+        }
+    }
+
+    private void deliver(String room, Message message) {
+        for (SocketIOClient client : namespace.getRoomOperations(room).getClients()) {
+            enqueue(client, message);
+        }
+    }
+
+    private void enqueue(SocketIOClient client, Message message) {
+        PushQueue queue = client.get(QUEUE_KEY);
+        if (queue == null) {
+            return;
+        }
+        switch (queue.offer(message)) {
+            case MERGED -> merged.incrementAndGet();
+            case DISPLACED, DROPPED -> dropped.incrementAndGet();
+            default -> { }
+        }
+        pushed.incrementAndGet();
+        flush(client, queue);
+    }
+
+    private void flush(SocketIOClient client, PushQueue queue) {
+        // Hold messages back while netty's outbound buffer is over its high-water mark
+        if (!client.isChannelOpen() || !client.isWritable()) {
+            return;
+        }
+        int droppedCount = queue.takeDropped();
+        if (droppedCount > 0) {
+            client.sendEvent("resync", Map.of("dropped", droppedCount));
+        }
+        for (Message message : queue.take()) {
+            if (message.notificationId == null) {
+                client.sendEvent(message.event, message.payload);
+                queue.done();
+                continue;
+            }
+            client.sendEvent(message.event, new AckCallback<>(Object.class, ackTimeoutSeconds) {
+                @Override
+                public void onSuccess(Object result) {
+                    acknowledged.add(message.notificationId);
+                    delivered.incrementAndGet();
+                    queue.done();
+                    flush(client, queue);
+                }
+
+                @Override
+                public void onTimeout() {
+                    // Left PENDING: sent again on the next connect
+                    timedOut.incrementAndGet();
+                    queue.done();
+                    flush(client, queue);
+                }
+            }, message.payload);
+        }
+    }
+
+    /**
+     * Mark acknowledged notifications as sent, and resume queues that were waiting for
+     * their connection to become writable
+     */
+    @Scheduled(fixedDelayString = "${notification.push.flush-interval-millis:200}", timeUnit = TimeUnit.MILLISECONDS)
+    public void flushAcknowledgements() {
+        List<Long> ids = new ArrayList<>();
+        Long id;
+        while ((id = acknowledged.poll()) != null) {
+            ids.add(id);
+            if (ids.size() == MAX_ACKS_PER_UPDATE) {
+                markDelivered(ids);
+                ids = new ArrayList<>();
+            }
+        }
+        if (!ids.isEmpty()) {
+            markDelivered(ids);
+        }
+
+        if (namespace != null) {
+            for (SocketIOClient client : namespace.getAllClients()) {
+                PushQueue queue = client.get(QUEUE_KEY);
+                if (queue != null && queue.hasQueued()) {
+                    flush(client, queue);
+                }
+            }
+        }
+    }
+
+    private void markDelivered(List<Long> ids) {
+        try {
+            notificationRepository.markDelivered(ids, LocalDateTime.now());
+        } catch (Exception e) {
+            // Still PENDING, so they are pushed again on the next connect
+            log.error("Failed to mark {} pushed notifications as sent", ids.size(), e);
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("connections", namespace != null ? namespace.getAllClients().size() : 0);
+        stats.put("pushed", pushed.get());
+        stats.put("merged", merged.get());
+        stats.put("dropped", dropped.get());
+        stats.put("delivered", delivered.get());
+        stats.put("timedOut", timedOut.get());
+        stats.put("pendingAcks", acknowledged.size());
+        return stats;
+    }
+}
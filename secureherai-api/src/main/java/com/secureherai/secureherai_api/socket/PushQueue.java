@@ -0,0 +1,151 @@
+package com.secureherai.secureherai_api.socket;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Bounded send queue of one push connection.
+ *
+ * Messages wait here until the connection has a free in-flight slot, so a slow or stalled
+ * client holds at most {@code capacity} queued and {@code maxInFlight} unacknowledged
+ * messages. Urgent messages (emergencies) are sent before the rest. When the queue is full:
+ * <ul>
+ *   <li>a message with a merge key replaces the queued one with the same key, so bursts of
+ *       state updates such as the unread count collapse into the latest value</li>
+ *   <li>otherwise the oldest non-urgent message is dropped; a non-urgent message is dropped
+ *       itself when only urgent ones are queued, and an urgent one then pushes out the
+ *       oldest urgent one</li>
+ * </ul>
+ * Dropping is safe because the notification rows stay PENDING until a client acknowledges
+ * them; the client is told how many were dropped so it can fetch them. Thread safe.
+ */
+class PushQueue {
+
+    private final int capacity;
+    private final int maxInFlight;
+    private final Deque<Message> urgent = new ArrayDeque<>();
+    private final Deque<Message> normal = new ArrayDeque<>();
+    private int inFlight;
+    private int droppedSinceTaken;
+
+    PushQueue(int capacity, int maxInFlight) {
+        this.capacity = capacity;
+        this.maxInFlight = maxInFlight;
+    }
+
+    /**
+     * @return What happened to the message
+     */
+    synchronized Offer offer(Message message) {
+        if (message.mergeKey != null && (replace(urgent, message) || replace(normal, message))) {
+            return Offer.MERGED;
+        }
+        Offer result = Offer.QUEUED;
+        if (urgent.size() + normal.size() >= capacity) {
+            if (!normal.isEmpty()) {
+                normal.pollFirst();
+            } else if (!message.urgent) {
+                droppedSinceTaken++;
+                return Offer.DROPPED;
+            } else {
+                urgent.pollFirst();
+            }
+            droppedSinceTaken++;
+            result = Offer.DISPLACED;
+        }
+        (message.urgent ? urgent : normal).addLast(message);
+        return result;
+    }
+
+    /**
+     * Messages that can be sent now, urgent first; each takes an in-flight slot until {@link #done}
+     */
+    synchronized List<Message> take() {
+        int free = maxInFlight - inFlight;
+        if (free <= 0 || (urgent.isEmpty() && normal.isEmpty())) {
+            return List.of();
+        }
+        List<Message> sendable = new ArrayList<>(Math.min(free, urgent.size() + normal.size()));
+        while (sendable.size() < free) {
+            Message next = urgent.isEmpty() ? normal.pollFirst() : urgent.pollFirst();
+            if (next == null) {
+                break;
+            }
+            sendable.add(next);
+        }
+        inFlight += sendable.size();
+        return sendable;
+    }
+
+    /**
+     * A taken message was acknowledged, timed out, or needed no acknowledgement
+     */
+    synchronized void done() {
+        if (inFlight > 0) {
+            inFlight--;
+        }
+    }
+
+    /**
+     * Messages dropped since the last call
+     */
+    synchronized int takeDropped() {
+        int dropped = droppedSinceTaken;
+        droppedSinceTaken = 0;
+        return dropped;
+    }
+
+    synchronized boolean hasQueued() {
+        return !urgent.isEmpty() || !normal.isEmpty();
+    }
+
+    synchronized int size() {
+        return urgent.size() + normal.size();
+    }
+
+    synchronized int inFlight() {
+        return inFlight;
+    }
+
+    private static boolean replace(Deque<Message> queue, Message message) {
+        for (Iterator<Message> it = queue.iterator(); it.hasNext(); ) {
+            if (message.mergeKey.equals(it.next().mergeKey)) {
+                it.remove();
+                queue.addLast(message);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    enum Offer {
+        QUEUED,
+        MERGED,
+        // Queued in place of an older message
+        DISPLACED,
+        DROPPED
+    }
+
+    /**
+     * An event for the client
+     */
+    static class Message {
+        final String event;
+        final Object payload;
+        // Notification row to mark as sent once the client acknowledges it; null for no ack
+        final Long notificationId;
+        final String mergeKey;
+        final boolean urgent;
+
+        Message(String event, Object payload, Long notificationId, String mergeKey, boolean urgent) {
+            this.event = event;
+            this.payload = payload;
+            this.notificationId = notificationId;
+            this.mergeKey = mergeKey;
+            this.urgent = urgent;
+        }
+    }
+}
@@ -0,0 +1,424 @@
+package com.secureherai.secureherai_api.socket;
+
+import com.corundumstudio.socketio.AckRequest;
+import com.corundumstudio.socketio.SocketIOClient;
+import com.corundumstudio.socketio.SocketIONamespace;
+import com.corundumstudio.socketio.SocketIOServer;
+import com.secureherai.secureherai_api.dto.sos.LocationDto;
+import com.secureherai.secureherai_api.dto.sos.SOSVoiceStreamStartDto;
+import com.secureherai.secureherai_api.entity.Alert;
+import com.secureherai.secureherai_api.service.AzureSpeechService;
+import com.secureherai.secureherai_api.service.JwtService;
+import com.secureherai.secureherai_api.service.SOSIngestionPipeline;
+import com.secureherai.secureherai_api.service.SOSService;
+import com.secureherai.secureherai_api.service.speech.StreamingRecognition;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Socket.io namespace for real-time voice SOS.
+ *
+ * Protocol (namespace /sos-stream, JWT passed as the "token" query parameter):
+ *   client -> "start"  { latitude, longitude, address, languageCode }
+ *   client -> "audio"  binary frames of 16 kHz, 16-bit, mono PCM
+ *   client -> "stop"
+ *   server -> "partial" { text }            every intermediate hypothesis
+ *   server -> "alert"   { alertId, text }    as soon as a keyword is heard
+ *   server -> "final"   { text, alertId }    after the stream is drained
+ *   server -> "error"   { message }
+ */
+@Component
+@ConditionalOnProperty(name = "socketio.enabled", havingValue = "true")
+@RequiredArgsConstructor
+@Slf4j
+public class VoiceStreamSocketHandler {
+
+    public static final String NAMESPACE = "/sos-stream";
+
+    private static final String USER_ID_KEY = "userId";
+    private static final String SESSION_KEY = "voiceStreamSession";
+
+    private final SocketIOServer socketIOServer;
+    private final JwtService jwtService;
+    private final SOSService sosService;
+    private final SOSIngestionPipeline sosIngestionPipeline;
+    private final AzureSpeechService azureSpeechService;
+
+    @Value("${sos.stream.max-duration-seconds:120}")
+    private long maxDurationSeconds;
+
+    // 2 minutes of 16 kHz, 16-bit mono PCM is ~3.8 MB
+    @Value("${sos.stream.max-bytes:4194304}")
+    private long maxBytes;
+
+    // Audio received while recognition is still starting is held until it is attached;
+    // 5 seconds of 16 kHz, 16-bit mono PCM
+    @Value("${sos.stream.max-pending-bytes:160000}")
+    private long maxPendingBytes;
+
+    @Value("${sos.stream.session-workers:8}")
+    private int sessionWorkers;
+
+    // Starting and draining Azure recognition blocks, so it never runs on a netty event loop
+    private ThreadPoolExecutor sessionExecutor;
+
+    @PostConstruct
+    void registerListeners() {
+        AtomicInteger counter = new AtomicInteger();
+        sessionExecutor = new ThreadPoolExecutor(sessionWorkers, sessionWorkers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(sessionWorkers * 16), runnable -> {
+                    Thread thread = new Thread(runnable, "sos-stream-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+
+        SocketIONamespace namespace = socketIOServer.addNamespace(NAMESPACE);
+        namespace.addConnectListener(this::onConnect);
+        namespace.addDisconnectListener(this::onDisconnect);
+        namespace.addEventListener("start", SOSVoiceStreamStartDto.class, this::onStart);
+        namespace.addEventListener("audio", byte[].class, this::onAudio);
+        namespace.addEventListener("stop", Object.class, this::onStop);
+        log.info("Registered streaming voice SOS namespace {}", NAMESPACE);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        sessionExecutor.shutdownNow();
+    }
+
+    private void onConnect(SocketIOClient client) {
+        String token = client.getHandshakeData().getSingleUrlParam("token");
+        try {
+            if (token == null || !jwtService.isTokenValid(token)) {
+                sendError(client, "Authentication token is invalid or expired");
+                client.disconnect();
+                return;
+            }
+            client.set(USER_ID_KEY, jwtService.extractUserId(token));
+        } catch (Exception e) {
+            log.warn("Rejected streaming voice SOS connection: {}", e.getMessage());
+            sendError(client, "Authentication token is invalid or expired");
+            client.disconnect();
+        }
+    }
+
+    private void onDisconnect(SocketIOClient client) {
+        VoiceStreamSession session = client.get(SESSION_KEY);
+        if (session != null) {
+            client.del(SESSION_KEY);
+            finishSession(client, session, false);
+        }
+    }
+
+    private void onStart(SocketIOClient client, SOSVoiceStreamStartDto start, AckRequest ackRequest) {
+        UUID userId = client.get(USER_ID_KEY);
+        if (userId == null) {
+            sendError(client, "Not authenticated");
+            return;
+        }
+        if (client.get(SESSION_KEY) != null) {
+            sendError(client, "A voice stream is already active on this connection");
+            return;
+        }
+        if (start == null || start.getLatitude() == null || start.getLongitude() == null) {
+            sendError(client, "Location is required to start a voice stream");
+            return;
+        }
+
+        VoiceStreamSession session = new VoiceStreamSession(userId, start.toLocation(), maxPendingBytes);
+        client.set(SESSION_KEY, session);
+
+        try {
+            sessionExecutor.execute(() -> {
+                try {
+                    StreamingRecognition recognition = azureSpeechService.startStreamingRecognition(
+                        start.getLanguageCode(),
+                        partial -> onPartialResult(client, session, partial),
+                        phrase -> onFinalPhrase(client, session, phrase),
+                        error -> sendError(client, "Recognition failed: " + error)
+                    );
+                    if (!session.attach(recognition)) {
+                        // Stream was stopped while recognition was starting
+                        recognition.close();
+                        return;
+                    }
+                    log.info("Streaming voice SOS started for user: {}", userId);
+                    if (ackRequest.isAckRequested()) {
+                        ackRequest.sendAckData(Map.of("status", "started"));
+                    }
+                } catch (Exception e) {
+                    log.error("Failed to start streaming recognition for user: {}", userId, e);
+                    client.del(SESSION_KEY);
+                    sendError(client, "Could not start voice recognition: " + e.getMessage());
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            client.del(SESSION_KEY);
+            sendError(client, "Voice streaming is busy. Please use the text SOS command.");
+        }
+    }
+
+    private void onAudio(SocketIOClient client, byte[] frame, AckRequest ackRequest) {
+        VoiceStreamSession session = client.get(SESSION_KEY);
+        if (session == null || frame == null) {
+            return;
+        }
+
+        long received = session.addBytes(frame.length);
+        long elapsedSeconds = TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - session.getStartedNanos());
+        if (received > maxBytes || elapsedSeconds > maxDurationSeconds) {
+            log.info("Voice stream limit reached for user: {} ({} bytes, {}s)", session.getUserId(), received, elapsedSeconds);
+            client.del(SESSION_KEY);
+            finishSession(client, session, true);
+            return;
+        }
+
+        if (!session.write(frame) && session.markFramesDropped()) {
+            sendError(client, "Voice recognition is still starting, audio is being dropped");
+        }
+    }
+
+    private void onStop(SocketIOClient client, Object ignored, AckRequest ackRequest) {
+        VoiceStreamSession session = client.get(SESSION_KEY);
+        if (session == null) {
+            return;
+        }
+        client.del(SESSION_KEY);
+        finishSession(client, session, true);
+    }
+
+    private void onPartialResult(SocketIOClient client, VoiceStreamSession session, String text) {
+        Map<String, Object> partial = new HashMap<>();
+        partial.put("text", text);
+        client.sendEvent("partial", partial);
+
+        if (!session.isTriggered() && sosService.containsKeyword(text, session.getUserId())) {
+            triggerAlert(client, session, text);
+        }
+    }
+
+    private void onFinalPhrase(SocketIOClient client, VoiceStreamSession session, String phrase) {
+        session.appendPhrase(phrase);
+        if (!session.isTriggered() && sosService.containsKeyword(phrase, session.getUserId())) {
+            triggerAlert(client, session, phrase);
+        }
+    }
+
+    private void triggerAlert(SocketIOClient client, VoiceStreamSession session, String text) {
+        if (!session.markTriggered()) {
+            return;
+        }
+        try {
+            Alert alert = sosService.createVoiceAlert(session.getUserId(), session.getLocation(), text, null);
+            session.setAlert(alert.getId(), alert.isCoalesced());
+            sosIngestionPipeline.submitFanOut(alert);
+
+            Map<String, Object> payload = new HashMap<>();
+            payload.put("alertId", alert.getId());
+            payload.put("text", text);
+            payload.put("triggeredAt", alert.getTriggeredAt());
+            payload.put("coalesced", alert.isCoalesced());
+            client.sendEvent("alert", payload);
+            log.info("Streaming voice SOS alert {} triggered for user: {}", alert.getId(), session.getUserId());
+        } catch (Exception e) {
+            log.error("Failed to create streaming voice SOS alert for user: {}", session.getUserId(), e);
+            session.resetTrigger();
+            sendError(client, "Error creating alert: " + e.getMessage());
+        }
+    }
+
+    private void finishSession(SocketIOClient client, VoiceStreamSession session, boolean notifyClient) {
+        try {
+            sessionExecutor.execute(() -> drainSession(client, session, notifyClient));
+        } catch (RejectedExecutionException e) {
+            drainSession(client, session, notifyClient);
+        }
+    }
+
+    private void drainSession(SocketIOClient client, VoiceStreamSession session, boolean notifyClient) {
+        session.close();
+
+        String transcript = session.getTranscript();
+        UUID alertId = session.getAlertId();
+        // A coalesced alert keeps the message of the trigger that raised it
+        if (alertId != null && !session.isAlertCoalesced()) {
+            try {
+                sosService.attachTranscript(alertId, transcript);
+            } catch (Exception e) {
+                log.warn("Failed to attach transcript to alert {}: {}", alertId, e.getMessage());
+            }
+        }
+
+        if (notifyClient) {
+            Map<String, Object> result = new HashMap<>();
+            result.put("text", transcript);
+            result.put("alertId", alertId);
+            result.put("alertTriggered", alertId != null);
+            client.sendEvent("final", result);
+        }
+        log.info("Streaming voice SOS finished for user: {} (alert: {})", session.getUserId(), alertId);
+    }
+
+    private void sendError(SocketIOClient client, String message) {
+        client.sendEvent("error", Map.of("message", message));
+    }
+
+    /**
+     * State for one streaming voice command on a connection
+     */
+    static class VoiceStreamSession {
+        private final UUID userId;
+        private final LocationDto location;
+        private final long startedNanos = System.nanoTime();
+        private final AtomicBoolean triggered = new AtomicBoolean();
+        private final AtomicBoolean framesDropped = new AtomicBoolean();
+        private final StringBuilder transcript = new StringBuilder();
+        private final ArrayDeque<byte[]> pendingFrames = new ArrayDeque<>();
+        private final long maxPendingBytes;
+        private StreamingRecognition recognition;
+        private boolean closed;
+        private long bytesReceived;
+        private long pendingBytes;
+        private volatile UUID alertId;
+        private volatile boolean alertCoalesced;
+
+        VoiceStreamSession(UUID userId, LocationDto location, long maxPendingBytes) {
+            this.userId = userId;
+            this.location = location;
+            this.maxPendingBytes = maxPendingBytes;
+        }
+
+        /**
+         * Start feeding the recognition, beginning with the audio received while it was starting
+         *
+         * @return false if the stream was stopped in the meantime
+         */
+        synchronized boolean attach(StreamingRecognition recognition) {
+            if (closed) {
+                return false;
+            }
+            this.recognition = recognition;
+            for (byte[] frame : pendingFrames) {
+                recognition.write(frame);
+            }
+            pendingFrames.clear();
+            pendingBytes = 0;
+            return true;
+        }
+
+        /**
+         * Push a frame to the recognition, or hold it until the recognition is attached
+         *
+         * @return false if the frame was dropped because too much audio is already held
+         */
+        synchronized boolean write(byte[] frame) {
+            if (closed) {
+                return true;
+            }
+            if (recognition != null) {
+                recognition.write(frame);
+                return true;
+            }
+            if (pendingBytes + frame.length > maxPendingBytes) {
+                return false;
+            }
+            pendingFrames.add(frame);
+            pendingBytes += frame.length;
+            return true;
+        }
+
+        /**
+         * @return true the first time frames were dropped, so the client is told once
+         */
+        boolean markFramesDropped() {
+            return framesDropped.compareAndSet(false, true);
+        }
+
+        synchronized long addBytes(int count) {
+            bytesReceived += count;
+            return bytesReceived;
+        }
+
+        void close() {
+            StreamingRecognition toClose;
+            synchronized (this) {
+                closed = true;
+                toClose = recognition;
+                pendingFrames.clear();
+                pendingBytes = 0;
+            }
+            // Draining waits for Azure's final results, which call back into this session
+            if (toClose != null) {
+                toClose.close();
+            }
+        }
+
+        boolean markTriggered() {
+            return triggered.compareAndSet(false, true);
+        }
+
+        void resetTrigger() {
+            triggered.set(false);
+        }
+
+        boolean isTriggered() {
+            return triggered.get();
+        }
+
+        void appendPhrase(String phrase) {
+            synchronized (transcript) {
+                if (transcript.length() > 0) {
+                    transcript.append(' ');
+                }
+                transcript.append(phrase);
+            }
+        }
+
+        String getTranscript() {
+            synchronized (transcript) {
+                return transcript.toString();
+            }
+        }
+
+        UUID getUserId() {
+            return userId;
+        }
+
+        LocationDto getLocation() {
+            return location;
+        }
+
+        long getStartedNanos() {
+            return startedNanos;
+        }
+
+        UUID getAlertId() {
+            return alertId;
+        }
+
+        boolean isAlertCoalesced() {
+            return alertCoalesced;
+        }
+
+        void setAlert(UUID alertId, boolean coalesced) {
+            this.alertCoalesced = coalesced;
+            this.alertId = alertId;
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.secureherai.secureherai_api.util;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded pool of fixed-size direct buffers for holding short audio uploads in memory.
+ *
+ * An upload up to {@code audio.in-memory.max-bytes} is read straight into a pooled
+ * buffer instead of a temp file, so a short SOS clip can be converted and streamed to
+ * the recognizer without touching disk. Buffers are allocated on first use up to
+ * {@code audio.in-memory.max-buffers} and then recycled; when all are in use, or the
+ * upload is larger than a buffer, {@link #read} returns null and the caller falls back
+ * to the file-based path.
+ */
+@Component
+@Slf4j
+public class AudioBufferPool {
+
+    private static final int TRANSFER_CHUNK = 16 * 1024;
+
+    @Value("${audio.in-memory.enabled:true}")
+    private boolean enabled;
+
+    @Value("${audio.in-memory.max-bytes:1048576}")
+    private int bufferBytes;
+
+    @Value("${audio.in-memory.max-buffers:32}")
+    private int maxBuffers;
+
+    private BlockingQueue<ByteBuffer> free;
+    private final AtomicInteger allocated = new AtomicInteger();
+
+    private final AtomicLong inMemoryReads = new AtomicLong();
+    private final AtomicLong tooLarge = new AtomicLong();
+    private final AtomicLong exhausted = new AtomicLong();
+
+    @PostConstruct
+    void init() {
+        free = new ArrayBlockingQueue<>(Math.max(1, maxBuffers));
+        log.info("Audio buffer pool: {} in-memory uploads of up to {} bytes ({})",
+            maxBuffers, bufferBytes, enabled ? "enabled" : "disabled");
+    }
+
+    /**
+     * Largest upload that can be held in memory, or 0 when in-memory mode is off
+     */
+    public int getMaxBytes() {
+        return enabled ? bufferBytes : 0;
+    }
+
+    /**
+     * Read a stream of known size into a pooled buffer
+     *
+     * @param inputStream The upload; not closed
+     * @param size Declared size of the upload
+     * @param digest Updated with every byte read, may be null
+     * @return The buffer, flipped for reading, or null if the caller should use disk instead
+     * @throws IOException If reading fails or the stream is longer than declared
+     */
+    public PooledBuffer read(InputStream inputStream, long size, MessageDigest digest) throws IOException {
+        if (!enabled || free == null || size <= 0) {
+            return null;
+        }
+        if (size > bufferBytes) {
+            tooLarge.incrementAndGet();
+            return null;
+        }
+
+        PooledBuffer pooled = acquire();
+        if (pooled == null) {
+            exhausted.incrementAndGet();
+            return null;
+        }
+
+        ByteBuffer buffer = pooled.buffer;
+        byte[] chunk = new byte[(int) Math.min(TRANSFER_CHUNK, size)];
+        try {
+            int read;
+            while ((read = inputStream.read(chunk)) != -1) {
+                if (read > buffer.remaining()) {
+                    throw new IOException("Upload is larger than its declared size of " + size + " bytes");
+                }
+                buffer.put(chunk, 0, read);
+                if (digest != null) {
+                    digest.update(chunk, 0, read);
+                }
+            }
+        } catch (IOException e) {
+            pooled.close();
+            throw e;
+        }
+
+        buffer.flip();
+        inMemoryReads.incrementAndGet();
+        return pooled;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("bufferBytes", bufferBytes);
+        stats.put("allocated", allocated.get());
+        stats.put("free", free == null ? 0 : free.size());
+        stats.put("inMemoryReads", inMemoryReads.get());
+        stats.put("tooLarge", tooLarge.get());
+        stats.put("exhausted", exhausted.get());
+        return stats;
+    }
+
+    private PooledBuffer acquire() {
+        ByteBuffer buffer = free.poll();
+        if (buffer == null) {
+            if (allocated.incrementAndGet() > maxBuffers) {
+                allocated.decrementAndGet();
+                return null;
+            }
+            buffer = ByteBuffer.allocateDirect(bufferBytes);
+        }
+        buffer.clear();
+        return new PooledBuffer(buffer);
+    }
+
+    /**
+     * A borrowed buffer; closing it returns the buffer to the pool
+     */
+    public class PooledBuffer implements AutoCloseable {
+        private final ByteBuffer buffer;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private PooledBuffer(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        /**
+         * A read-only view of the content, positioned at its start
+         */
+        public ByteBuffer view() {
+            if (released.get()) {
+                throw new IllegalStateException("Buffer was already returned to the pool");
+            }
+            return buffer.asReadOnlyBuffer();
+        }
+
+        public int size() {
+            return buffer.limit();
+        }
+
+        @Override
+        public void close() {
+            if (released.compareAndSet(false, true)) {
+                free.offer(buffer);
+            }
+        }
+    }
+}
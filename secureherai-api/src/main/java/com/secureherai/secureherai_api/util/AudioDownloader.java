@@ -0,0 +1,396 @@
+package com.secureherai.secureherai_api.util;
+
+import com.secureherai.secureherai_api.exception.DeadlineExceededException;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Flow;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Streams audio from a URL with the JDK HTTP client.
+ *
+ * One client is shared by all downloads, so repeated fetches from the same host
+ * (most voice SOS clips come from Cloudinary) reuse a pooled HTTP/1.1 connection or a
+ * multiplexed HTTP/2 connection instead of paying a TCP and TLS handshake per clip.
+ * The body is handed over as an {@link InputStream} as soon as the response headers
+ * arrive, so format detection and conversion start while the rest is still in flight.
+ * Downloads are limited to {@code audio.download.max-bytes} (checked against
+ * Content-Length up front and counted while bytes arrive) and to
+ * {@code audio.download.timeout-seconds} from request to last byte.
+ */
+@Component
+@Slf4j
+public class AudioDownloader {
+
+    private static final String DEFAULT_FILE_NAME = "audio";
+
+    @Value("${audio.download.max-bytes:10485760}")
+    private long maxBytes;
+
+    @Value("${audio.download.connect-timeout-seconds:5}")
+    private long connectTimeoutSeconds;
+
+    @Value("${audio.download.timeout-seconds:30}")
+    private long timeoutSeconds;
+
+    private HttpClient httpClient;
+
+    private final AtomicLong downloads = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong tooLarge = new AtomicLong();
+    private final AtomicLong timedOut = new AtomicLong();
+    private final AtomicLong bytesReceived = new AtomicLong();
+
+    @PostConstruct
+    void init() {
+        httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(connectTimeoutSeconds))
+            .followRedirects(HttpClient.Redirect.NORMAL)
+            .build();
+    }
+
+    /**
+     * Start downloading audio
+     *
+     * @param audioUrl An http or https URL
+     * @return Completes with the open download once the response headers have arrived, or
+     *         exceptionally with an {@link IOException} for an error status, an oversized
+     *         Content-Length or a connection failure
+     * @throws IllegalArgumentException If the URL is not a valid http(s) URL
+     */
+    public CompletableFuture<Download> open(String audioUrl) {
+        return open(audioUrl, Deadline.none());
+    }
+
+    /**
+     * Start downloading audio within the request's deadline; the download timeout is
+     * capped at the time left
+     *
+     * @param audioUrl An http or https URL
+     * @param deadline The request's deadline
+     * @return See {@link #open(String)}
+     * @throws IllegalArgumentException If the URL is not a valid http(s) URL
+     * @throws DeadlineExceededException If the deadline has already passed
+     */
+    public CompletableFuture<Download> open(String audioUrl, Deadline deadline) {
+        URI uri = parseUrl(audioUrl);
+        deadline.check("downloading audio");
+        long timeoutMillis = deadline.capMillis(TimeUnit.SECONDS.toMillis(timeoutSeconds));
+        long readDeadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        HttpRequest request = HttpRequest.newBuilder(uri)
+            .timeout(Duration.ofMillis(timeoutMillis))
+            .header("Accept", "audio/*, */*;q=0.5")
+            .GET()
+            .build();
+
+        downloads.incrementAndGet();
+        return httpClient.sendAsync(request, responseInfo -> {
+                BodyStream body = new BodyStream(readDeadline, timeoutMillis);
+                if (responseInfo.statusCode() / 100 != 2 || contentLength(responseInfo.headers()) > maxBytes) {
+                    // Rejected below, so do not let the body arrive at all
+                    body.close();
+                }
+                return body;
+            })
+            .thenApply(response -> {
+                BodyStream body = response.body();
+                long contentLength = contentLength(response.headers());
+                if (response.statusCode() / 100 != 2) {
+                    body.close();
+                    throw new CompletionException(new IOException(
+                        "Audio download failed with HTTP " + response.statusCode()));
+                }
+                if (contentLength > maxBytes) {
+                    body.close();
+                    tooLarge.incrementAndGet();
+                    throw new CompletionException(new IOException(
+                        "Audio is " + contentLength + " bytes, the limit is " + maxBytes));
+                }
+                String contentType = response.headers().firstValue("Content-Type").orElse(null);
+                log.debug("Downloading {} ({}, {} bytes)", uri, contentType, contentLength);
+                return new Download(fileName(uri), contentType, contentLength, body);
+            })
+            .whenComplete((download, error) -> {
+                if (error != null) {
+                    failures.incrementAndGet();
+                    if (error.getCause() instanceof HttpTimeoutException) {
+                        timedOut.incrementAndGet();
+                    }
+                }
+            });
+    }
+
+    private static long contentLength(HttpHeaders headers) {
+        return headers.firstValueAsLong("Content-Length").orElse(-1L);
+    }
+
+    private static URI parseUrl(String audioUrl) {
+        URI uri;
+        try {
+            uri = URI.create(audioUrl.trim());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid audio URL: " + audioUrl, e);
+        }
+        String scheme = uri.getScheme();
+        if (uri.getHost() == null || !("http".equalsIgnoreCase(scheme) || "https".equalsIgnoreCase(scheme))) {
+            throw new IllegalArgumentException("Audio URL must be an http or https URL: " + audioUrl);
+        }
+        return uri;
+    }
+
+    /**
+     * Last path segment of the URL, which carries the extension format detection uses as a hint
+     */
+    private static String fileName(URI uri) {
+        String path = uri.getPath();
+        if (path == null) {
+            return DEFAULT_FILE_NAME;
+        }
+        String name = path.substring(path.lastIndexOf('/') + 1);
+        return name.isEmpty() ? DEFAULT_FILE_NAME : name;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("downloads", downloads.get());
+        stats.put("failures", failures.get());
+        stats.put("tooLarge", tooLarge.get());
+        stats.put("timedOut", timedOut.get());
+        stats.put("bytesReceived", bytesReceived.get());
+        stats.put("maxBytes", maxBytes);
+        return stats;
+    }
+
+    /**
+     * A download whose body is still arriving; closing it cancels the transfer
+     */
+    public static class Download implements AutoCloseable {
+        private final String fileName;
+        private final String contentType;
+        private final long contentLength;
+        private final InputStream body;
+
+        Download(String fileName, String contentType, long contentLength, InputStream body) {
+            this.fileName = fileName;
+            this.contentType = contentType;
+            this.contentLength = contentLength;
+            this.body = body;
+        }
+
+        public String getFileName() {
+            return fileName;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        /**
+         * Declared size of the body, or -1 if the server did not send one
+         */
+        public long getContentLength() {
+            return contentLength;
+        }
+
+        /**
+         * The body as it arrives. Reads fail with an {@link IOException} once the size or
+         * time limit is exceeded.
+         */
+        public InputStream getBody() {
+            return body;
+        }
+
+        @Override
+        public void close() {
+            try {
+                body.close();
+            } catch (IOException e) {
+                log.debug("Error closing download: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Response body subscriber read as a stream. It requests one batch of buffers at a
+     * time, so a slow reader holds back the connection instead of buffering the whole
+     * clip, and every read waits no longer than the download deadline.
+     */
+    private class BodyStream extends InputStream implements HttpResponse.BodySubscriber<BodyStream> {
+        // Distinct instance marking the end of the body, whether complete or failed
+        private final List<ByteBuffer> end = new ArrayList<>(0);
+        private final BlockingQueue<List<ByteBuffer>> batches = new LinkedBlockingQueue<>();
+        private final long deadline;
+        private final long timeoutMillis;
+
+        private volatile Flow.Subscription subscription;
+        private volatile Throwable error;
+        private volatile boolean closed;
+        private long received;
+        private List<ByteBuffer> batch = Collections.emptyList();
+        private int batchIndex;
+        private boolean delivered;
+        private boolean finished;
+
+        BodyStream(long deadline, long timeoutMillis) {
+            this.deadline = deadline;
+            this.timeoutMillis = timeoutMillis;
+        }
+
+        @Override
+        public CompletionStage<BodyStream> getBody() {
+            return CompletableFuture.completedFuture(this);
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            if (closed) {
+                subscription.cancel();
+            } else {
+                subscription.request(1);
+            }
+        }
+
+        @Override
+        public void onNext(List<ByteBuffer> item) {
+            if (closed) {
+                return;
+            }
+            long size = 0;
+            for (ByteBuffer buffer : item) {
+                size += buffer.remaining();
+            }
+            received += size;
+            bytesReceived.addAndGet(size);
+            if (received > maxBytes) {
+                subscription.cancel();
+                tooLarge.incrementAndGet();
+                failures.incrementAndGet();
+                onError(new IOException("Audio is larger than the limit of " + maxBytes + " bytes"));
+                return;
+            }
+            batches.offer(item);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            error = throwable;
+            batches.offer(end);
+        }
+
+        @Override
+        public void onComplete() {
+            batches.offer(end);
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] single = new byte[1];
+            return read(single, 0, 1) == -1 ? -1 : single[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] target, int offset, int length) throws IOException {
+            if (length == 0) {
+                return 0;
+            }
+            ByteBuffer current = currentBuffer();
+            if (current == null) {
+                return -1;
+            }
+            int count = Math.min(length, current.remaining());
+            current.get(target, offset, count);
+            return count;
+        }
+
+        /**
+         * The next buffer with bytes left, waiting for the network if needed, or null at the end
+         */
+        private ByteBuffer currentBuffer() throws IOException {
+            while (true) {
+                if (closed) {
+                    throw new IOException("Download was closed");
+                }
+                while (batchIndex < batch.size()) {
+                    ByteBuffer buffer = batch.get(batchIndex);
+                    if (buffer.hasRemaining()) {
+                        return buffer;
+                    }
+                    batchIndex++;
+                }
+                if (finished) {
+                    return null;
+                }
+                if (delivered) {
+                    // Done with this batch, let the next one in
+                    subscription.request(1);
+                }
+                batch = nextBatch();
+                batchIndex = 0;
+                delivered = batch != end;
+                if (batch == end) {
+                    finished = true;
+                    if (error != null) {
+                        throw error instanceof IOException ? (IOException) error : new IOException(error);
+                    }
+                }
+            }
+        }
+
+        private List<ByteBuffer> nextBatch() throws IOException {
+            long remaining = deadline - System.nanoTime();
+            List<ByteBuffer> next;
+            try {
+                next = remaining > 0 ? batches.poll(remaining, TimeUnit.NANOSECONDS) : batches.poll();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                close();
+                throw new IOException("Interrupted while downloading audio", e);
+            }
+            if (next == null) {
+                close();
+                timedOut.incrementAndGet();
+                failures.incrementAndGet();
+                throw new HttpTimeoutException("Audio download did not finish within " + timeoutMillis + " ms");
+            }
+            return next;
+        }
+
+        @Override
+        public void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            Flow.Subscription current = subscription;
+            if (current != null) {
+                current.cancel();
+            }
+            batches.clear();
+        }
+    }
+}
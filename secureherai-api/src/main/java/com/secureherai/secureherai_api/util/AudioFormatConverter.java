@@ -1,19 +1,24 @@
 package com.secureherai.secureherai_api.util;
 
+import com.secureherai.secureherai_api.exception.DeadlineExceededException;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.tika.Tika;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import ws.schild.jave.Encoder;
 import ws.schild.jave.MultimediaObject;
 import ws.schild.jave.encode.AudioAttributes;
 import ws.schild.jave.encode.EncodingAttributes;
 
+import java.io.BufferedInputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
 import java.util.Arrays;
 import java.util.List;
 
@@ -36,8 +41,13 @@ public class AudioFormatConverter {
     );
 
     private static final String TEMP_DIR = "data/temp";
+    private static final int TARGET_SAMPLE_RATE = 16000;
+    private static final int DETECTION_PREFIX_BYTES = 8192;
     private final Tika tika = new Tika();
 
+    @Autowired(required = false)
+    private FfmpegWorkerPool ffmpegWorkerPool;
+
     /**
      * Converts an audio file to WAV format suitable for Azure Speech service
      * 
@@ -66,16 +76,145 @@ public class AudioFormatConverter {
             throw new UnsupportedOperationException("Unsupported audio format: " + mimeType);
         }
 
-        // If already WAV, just copy to temp location for consistency
+        // WAV is handled in-process: passed through when already canonical, resampled otherwise
         if (isWavFormat(mimeType)) {
-            log.info("File is already in WAV format, copying to temp location");
-            return copyToTempLocation(inputFile);
+            return convertWavInProcess(inputFile, mimeType);
         }
 
         // Convert to WAV
         return convertAudioToWav(inputFile, mimeType);
     }
 
+    /**
+     * Converts audio held in memory to raw 16 kHz mono 16-bit PCM without touching disk
+     *
+     * @param audio The uploaded audio from position to limit; the buffer's position is not changed
+     * @param fileName Original file name, used for format detection and logging
+     * @return The PCM samples (a view of {@code audio} if it already is canonical WAV),
+     *         or null if this format can only be converted from a file
+     * @throws Exception If the format is unsupported or conversion fails
+     */
+    public ByteBuffer convertToPcm(ByteBuffer audio, String fileName) throws Exception {
+        byte[] prefix = new byte[Math.min(DETECTION_PREFIX_BYTES, audio.remaining())];
+        audio.duplicate().get(prefix);
+        String mimeType = tika.detect(prefix, fileName);
+        log.info("Detected audio format: {} for in-memory upload: {}", mimeType, fileName);
+
+        if (!isFormatSupported(mimeType)) {
+            throw new UnsupportedOperationException("Unsupported audio format: " + mimeType);
+        }
+
+        if (isWavFormat(mimeType)) {
+            WavFile wav;
+            try {
+                wav = WavFile.parse(audio);
+            } catch (IOException e) {
+                return transcodeInMemory(audio, fileName, mimeType);
+            }
+            if (wav.isCanonical(TARGET_SAMPLE_RATE)) {
+                return audio.slice().position(wav.getDataOffset()).limit(wav.getDataOffset() + wav.getDataLength()).slice();
+            }
+            if (PcmResampler.canConvert(wav)) {
+                return ByteBuffer.wrap(PcmResampler.toMonoPcm16(audio, wav, TARGET_SAMPLE_RATE));
+            }
+        }
+
+        return transcodeInMemory(audio, fileName, mimeType);
+    }
+
+    /**
+     * Converts audio that is still arriving, e.g. a download in flight, to raw 16 kHz
+     * mono 16-bit PCM. The format is detected from the first bytes; compressed audio
+     * that ffmpeg can read from a pipe is fed to a worker as it arrives, so conversion
+     * overlaps the transfer. Anything else is read into memory first and, if only the
+     * file-based encoder can handle it, converted from a temporary file.
+     *
+     * @param audio The audio; read to the end but not closed
+     * @param fileName Name used as a format detection hint and for logging
+     * @return The PCM samples
+     * @throws Exception If the format is unsupported, reading fails or conversion fails
+     */
+    public ByteBuffer convertToPcm(InputStream audio, String fileName) throws Exception {
+        return convertToPcm(audio, fileName, Deadline.none());
+    }
+
+    /**
+     * Converts audio that is still arriving within the request's deadline: the ffmpeg
+     * worker's timeout is capped at the time left, and conversion of fully read audio is
+     * not started once the deadline has passed.
+     *
+     * @param audio The audio; read to the end but not closed
+     * @param fileName Name used as a format detection hint and for logging
+     * @param deadline The request's deadline
+     * @return The PCM samples
+     * @throws DeadlineExceededException If the deadline passed before conversion could start
+     * @throws Exception If the format is unsupported, reading fails or conversion fails
+     */
+    public ByteBuffer convertToPcm(InputStream audio, String fileName, Deadline deadline) throws Exception {
+        BufferedInputStream input = new BufferedInputStream(audio, DETECTION_PREFIX_BYTES);
+        input.mark(DETECTION_PREFIX_BYTES);
+        byte[] prefix = input.readNBytes(DETECTION_PREFIX_BYTES);
+        input.reset();
+        if (prefix.length == 0) {
+            throw new IllegalArgumentException("Audio is empty: " + fileName);
+        }
+
+        String mimeType = tika.detect(prefix, fileName);
+        log.info("Detected audio format: {} for streamed audio: {}", mimeType, fileName);
+        if (!isFormatSupported(mimeType)) {
+            throw new UnsupportedOperationException("Unsupported audio format: " + mimeType);
+        }
+
+        if (!isWavFormat(mimeType) && ffmpegWorkerPool != null && ffmpegWorkerPool.isAvailable()
+                && FfmpegWorkerPool.canStream(ByteBuffer.wrap(prefix), fileName, mimeType)) {
+            return pcmFromWorkerOutput(ffmpegWorkerPool.transcode(input, fileName, deadline));
+        }
+
+        ByteBuffer buffered = ByteBuffer.wrap(input.readAllBytes());
+        deadline.check("converting " + fileName);
+        ByteBuffer pcm = convertToPcm(buffered, fileName);
+        return pcm != null ? pcm : convertSpilled(buffered, fileName, mimeType);
+    }
+
+    /**
+     * Converts in-memory audio with the file-based encoder and reads the PCM back
+     */
+    private ByteBuffer convertSpilled(ByteBuffer audio, String fileName, String mimeType) throws Exception {
+        Files.createDirectories(Paths.get(TEMP_DIR));
+        File spilled = Paths.get(TEMP_DIR, "spill_" + System.nanoTime() + "_" + fileName).toFile();
+        File wavFile = null;
+        try {
+            byte[] bytes = new byte[audio.remaining()];
+            audio.duplicate().get(bytes);
+            Files.write(spilled.toPath(), bytes);
+            wavFile = convertAudioToWav(spilled, mimeType);
+            byte[] wavBytes = Files.readAllBytes(wavFile.toPath());
+            WavFile wav = WavFile.parse(wavBytes, wavBytes.length);
+            return ByteBuffer.wrap(wavBytes, wav.getDataOffset(), wav.getDataLength()).slice();
+        } finally {
+            cleanupTempFile(wavFile);
+            cleanupTempFile(spilled);
+        }
+    }
+
+    /**
+     * Pipes in-memory audio through an ffmpeg worker, or returns null when no worker
+     * can read it (pool disabled, MP4 with a trailing index) so the caller uses a file
+     */
+    private ByteBuffer transcodeInMemory(ByteBuffer audio, String fileName, String mimeType) throws IOException {
+        if (ffmpegWorkerPool == null || !ffmpegWorkerPool.isAvailable()
+                || !FfmpegWorkerPool.canStream(audio, fileName, mimeType)) {
+            return null;
+        }
+        return pcmFromWorkerOutput(ffmpegWorkerPool.transcode(audio, fileName));
+    }
+
+    private static ByteBuffer pcmFromWorkerOutput(byte[] wavBytes) throws IOException {
+        WavFile wav = WavFile.parse(wavBytes, wavBytes.length);
+        // ffmpeg cannot seek back on a pipe, so everything after the data chunk header is audio
+        return ByteBuffer.wrap(wavBytes, wav.getDataOffset(), (wavBytes.length - wav.getDataOffset()) & ~1).slice();
+    }
+
     /**
      * Converts audio file from URL to WAV format
      * 
@@ -93,7 +232,7 @@ public class AudioFormatConverter {
 
         if (isWavFormat(detectedFormat)) {
             log.info("URL audio is already in WAV format");
-            return sourceFile; // Already in correct format
+            return convertWavInProcess(sourceFile, detectedFormat);
         }
 
         return convertAudioToWav(sourceFile, detectedFormat);
@@ -122,26 +261,70 @@ public class AudioFormatConverter {
     }
 
     /**
-     * Copies file to temp location (for WAV files that don't need conversion)
+     * Handles WAV input without starting ffmpeg. A file that is already 16 kHz mono
+     * 16-bit PCM is returned as is (callers only clean up files that differ from their
+     * input); other PCM layouts are downmixed and resampled in Java. Compressed WAV
+     * variants (ADPCM, mu-law, ...) still go through ffmpeg.
      */
-    private File copyToTempLocation(File inputFile) throws IOException {
-        String tempFileName = "wav_" + System.currentTimeMillis() + "_" + inputFile.getName();
-        File tempFile = Paths.get(TEMP_DIR, tempFileName).toFile();
-        
-        Files.copy(inputFile.toPath(), tempFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
-        
-        log.debug("Copied WAV file to temp location: {}", tempFile.getAbsolutePath());
-        return tempFile;
+    private File convertWavInProcess(File inputFile, String mimeType) throws Exception {
+        byte[] bytes = Files.readAllBytes(inputFile.toPath());
+        WavFile wav;
+        try {
+            wav = WavFile.parse(bytes, bytes.length);
+        } catch (IOException e) {
+            log.info("Could not parse WAV header of {} ({}), converting with ffmpeg", inputFile.getName(), e.getMessage());
+            return convertAudioToWav(inputFile, mimeType);
+        }
+
+        if (wav.isCanonical(TARGET_SAMPLE_RATE)) {
+            log.info("WAV file {} is already 16 kHz mono PCM, no conversion needed", inputFile.getName());
+            return inputFile;
+        }
+        if (!PcmResampler.canConvert(wav)) {
+            log.info("WAV file {} uses format {} at {} Hz, converting with ffmpeg",
+                     inputFile.getName(), wav.getAudioFormat(), wav.getSampleRate());
+            return convertAudioToWav(inputFile, mimeType);
+        }
+
+        File outputFile = newOutputFile(inputFile);
+        byte[] pcm = PcmResampler.toMonoPcm16(bytes, wav, TARGET_SAMPLE_RATE);
+        writeCanonicalWav(outputFile, pcm, 0, pcm.length);
+        log.info("Resampled WAV {} from {} Hz/{} ch/{} bit to 16 kHz mono in-process",
+                 inputFile.getName(), wav.getSampleRate(), wav.getChannels(), wav.getBitsPerSample());
+        return outputFile;
     }
 
     /**
-     * Performs the actual audio conversion using JAVE2
+     * Converts compressed audio, through a pre-spawned ffmpeg worker when the input can
+     * be piped and through the file-based JAVE2 encoder otherwise
      */
     private File convertAudioToWav(File inputFile, String mimeType) throws Exception {
-        String tempFileName = "converted_" + System.currentTimeMillis() + "_" + 
-                             getBaseName(inputFile.getName()) + ".wav";
-        File outputFile = Paths.get(TEMP_DIR, tempFileName).toFile();
+        File outputFile = newOutputFile(inputFile);
+
+        if (ffmpegWorkerPool != null && ffmpegWorkerPool.isAvailable()
+                && FfmpegWorkerPool.canStream(inputFile, mimeType)) {
+            try {
+                byte[] wavBytes = ffmpegWorkerPool.transcode(inputFile);
+                // ffmpeg cannot seek back on a pipe, so its header sizes are placeholders:
+                // everything after the data chunk header is audio
+                WavFile wav = WavFile.parse(wavBytes, wavBytes.length);
+                int dataLength = (wavBytes.length - wav.getDataOffset()) & ~1;
+                writeCanonicalWav(outputFile, wavBytes, wav.getDataOffset(), dataLength);
+                log.info("Converted {} to WAV with an ffmpeg worker: {}", inputFile.getName(), outputFile.getName());
+                return outputFile;
+            } catch (IOException e) {
+                Files.deleteIfExists(outputFile.toPath());
+                log.warn("ffmpeg worker failed for {} ({}), retrying with JAVE encoder", inputFile.getName(), e.getMessage());
+            }
+        }
+
+        return encodeWithJave(inputFile, mimeType, outputFile);
+    }
 
+    /**
+     * Performs the actual audio conversion using JAVE2
+     */
+    private File encodeWithJave(File inputFile, String mimeType, File outputFile) throws Exception {
         try {
             // Set up audio attributes for WAV output compatible with Azure Speech
             AudioAttributes audioAttributes = new AudioAttributes();
@@ -175,6 +358,22 @@ public class AudioFormatConverter {
         }
     }
 
+    private File newOutputFile(File inputFile) throws IOException {
+        Files.createDirectories(Paths.get(TEMP_DIR));
+        String tempFileName = "converted_" + System.currentTimeMillis() + "_" +
+                             getBaseName(inputFile.getName()) + ".wav";
+        return Paths.get(TEMP_DIR, tempFileName).toFile();
+    }
+
+    private void writeCanonicalWav(File outputFile, byte[] pcm, int offset, int length) throws IOException {
+        byte[] header = new byte[WavFile.HEADER_SIZE];
+        WavFile.writeHeader(header, TARGET_SAMPLE_RATE, 1, 16, length);
+        try (OutputStream out = Files.newOutputStream(outputFile.toPath())) {
+            out.write(header);
+            out.write(pcm, offset, length);
+        }
+    }
+
     /**
      * Gets the base name of a file without extension
      */
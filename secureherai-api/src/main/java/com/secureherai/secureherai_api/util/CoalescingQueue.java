@@ -0,0 +1,114 @@
+package com.secureherai.secureherai_api.util;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded FIFO queue in which a newer value replaces a queued value with the same key.
+ *
+ * Meant for state updates where only the latest value matters, such as the position
+ * of a responder: a burst of updates for one key takes one slot, and the replacement
+ * keeps the slot of the first update so a key that changes all the time is not pushed
+ * to the back of the queue. When the queue is full the oldest entry is dropped, so a
+ * stalled consumer costs at most {@code capacity} entries. Thread safe; {@link #poll}
+ * blocks until an entry is available.
+ *
+ * @param <K> Key that identifies what the value is about
+ * @param <V> Value type
+ */
+public class CoalescingQueue<K, V> {
+
+    private final int capacity;
+    private final LinkedHashMap<K, V> entries = new LinkedHashMap<>();
+    private long coalesced;
+    private long dropped;
+
+    public CoalescingQueue(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        this.capacity = capacity;
+    }
+
+    /**
+     * Add a value, replacing the queued value for the same key
+     *
+     * @return False if the oldest entry was dropped to make room
+     */
+    public synchronized boolean offer(K key, V value) {
+        if (entries.containsKey(key)) {
+            // put() on an existing key keeps its position
+            entries.put(key, value);
+            coalesced++;
+            return true;
+        }
+        boolean kept = true;
+        if (entries.size() >= capacity) {
+            Iterator<V> oldest = entries.values().iterator();
+            oldest.next();
+            oldest.remove();
+            dropped++;
+            kept = false;
+        }
+        entries.put(key, value);
+        notifyAll();
+        return kept;
+    }
+
+    /**
+     * Remove the oldest value, waiting up to the timeout for one to arrive
+     *
+     * @return The value, or null if the timeout passed first
+     */
+    public synchronized V poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (entries.isEmpty()) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return null;
+            }
+            TimeUnit.NANOSECONDS.timedWait(this, remaining);
+        }
+        return removeOldest();
+    }
+
+    /**
+     * Remove up to {@code max} of the oldest values without waiting
+     */
+    public synchronized List<V> drain(int max) {
+        List<V> drained = new ArrayList<>(Math.min(max, entries.size()));
+        while (drained.size() < max && !entries.isEmpty()) {
+            drained.add(removeOldest());
+        }
+        return drained;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Values that replaced a queued value
+     */
+    public synchronized long getCoalesced() {
+        return coalesced;
+    }
+
+    /**
+     * Values dropped because the queue was full
+     */
+    public synchronized long getDropped() {
+        return dropped;
+    }
+
+    private V removeOldest() {
+        Iterator<Map.Entry<K, V>> oldest = entries.entrySet().iterator();
+        V value = oldest.next().getValue();
+        oldest.remove();
+        return value;
+    }
+}
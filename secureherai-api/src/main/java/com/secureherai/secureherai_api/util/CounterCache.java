@@ -0,0 +1,130 @@
+package com.secureherai.secureherai_api.util;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToLongFunction;
+
+/**
+ * In-memory copy of counters that are kept in the database, such as unread counts.
+ *
+ * A counter is loaded once and then kept current with the deltas of committed changes,
+ * so reading it costs a map lookup. Each counter is a {@link LongAdder}, so concurrent
+ * changes to one key do not contend, and loads and changes are ordered through a striped
+ * array of versions instead of a lock: a load that may have raced with a change is not
+ * kept, and the next read loads again. Counters expire after a time to live, which
+ * bounds how long changes this cache does not see (made on another node, or directly in
+ * the database) stay hidden.
+ *
+ * @param <K> Counter key
+ */
+public class CounterCache<K> {
+
+    private final long ttlNanos;
+    private final int maxEntries;
+    private final Map<K, Entry> entries = new ConcurrentHashMap<>();
+    // Bumped by every change, per stripe of keys
+    private final AtomicLongArray versions;
+
+    /**
+     * @param stripes    Number of version stripes; more stripes discard fewer loads when
+     *                   other keys change at the same time
+     * @param ttlNanos   How long a loaded counter is used
+     * @param maxEntries Most counters kept; beyond that reads go to the loader
+     */
+    public CounterCache(int stripes, long ttlNanos, int maxEntries) {
+        if (stripes <= 0 || ttlNanos <= 0 || maxEntries <= 0) {
+            throw new IllegalArgumentException("Stripes, time to live and size must be positive");
+        }
+        this.versions = new AtomicLongArray(stripes);
+        this.ttlNanos = ttlNanos;
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * The counter for a key, loaded if it is not cached or has expired. Never negative.
+     */
+    public long get(K key, ToLongFunction<K> loader) {
+        long now = System.nanoTime();
+        Entry entry = entries.get(key);
+        if (entry != null && now - entry.loadedAt < ttlNanos) {
+            return Math.max(0, entry.count.sum());
+        }
+
+        int stripe = stripe(key);
+        long version = versions.get(stripe);
+        long value = loader.applyAsLong(key);
+        Entry loaded = new Entry(value, System.nanoTime());
+        if (entries.size() < maxEntries || entries.containsKey(key)) {
+            entries.put(key, loaded);
+            if (versions.get(stripe) != version) {
+                // A change committed while loading; the value may or may not include it
+                entries.remove(key, loaded);
+            }
+        }
+        return Math.max(0, value);
+    }
+
+    /**
+     * Apply a committed change to a cached counter
+     *
+     * @param startedAt {@link System#nanoTime()} taken before the change was committed; a
+     *                  counter loaded after that may already include the change and is dropped
+     */
+    public void add(K key, long delta, long startedAt) {
+        versions.incrementAndGet(stripe(key));
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return;
+        }
+        if (entry.loadedAt - startedAt < 0) {
+            entry.count.add(delta);
+        } else {
+            entries.remove(key, entry);
+        }
+    }
+
+    /**
+     * Forget a counter, for example after the stored value was corrected
+     */
+    public void invalidate(K key) {
+        versions.incrementAndGet(stripe(key));
+        entries.remove(key);
+    }
+
+    /**
+     * Drop expired counters so keys that are no longer read do not take up memory
+     *
+     * @return Number of counters dropped
+     */
+    public int evictExpired() {
+        long now = System.nanoTime();
+        int evicted = 0;
+        for (Map.Entry<K, Entry> entry : entries.entrySet()) {
+            if (now - entry.getValue().loadedAt >= ttlNanos && entries.remove(entry.getKey(), entry.getValue())) {
+                evicted++;
+            }
+        }
+        return evicted;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private int stripe(K key) {
+        int hash = key.hashCode();
+        return ((hash ^ (hash >>> 16)) & 0x7fffffff) % versions.length();
+    }
+
+    private static final class Entry {
+        final LongAdder count = new LongAdder();
+        final long loadedAt;
+
+        Entry(long value, long loadedAt) {
+            this.count.add(value);
+            this.loadedAt = loadedAt;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.secureherai.secureherai_api.util;
+
+import com.secureherai.secureherai_api.exception.DeadlineExceededException;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time budget for one request, set where the request enters and passed down to every
+ * stage that may block (download, conversion, recognition, DB writes, e-mail).
+ *
+ * Stages cap their own timeouts at what is left instead of adding them up, so the
+ * total time an SOS request takes is bounded by its budget. Based on
+ * {@link System#nanoTime()}, so wall clock changes do not affect it.
+ */
+public final class Deadline {
+
+    private static final Deadline NONE = new Deadline(0, false);
+
+    private final long expiresAtNanos;
+    private final boolean bounded;
+
+    private Deadline(long expiresAtNanos, boolean bounded) {
+        this.expiresAtNanos = expiresAtNanos;
+        this.bounded = bounded;
+    }
+
+    /**
+     * A deadline the given time from now
+     */
+    public static Deadline after(Duration budget) {
+        return new Deadline(System.nanoTime() + budget.toNanos(), true);
+    }
+
+    /**
+     * No deadline: stages fall back to their own timeouts
+     */
+    public static Deadline none() {
+        return NONE;
+    }
+
+    public boolean isBounded() {
+        return bounded;
+    }
+
+    public boolean isExpired() {
+        return bounded && expiresAtNanos - System.nanoTime() <= 0;
+    }
+
+    /**
+     * Time left in milliseconds, 0 once expired, {@link Long#MAX_VALUE} without a deadline
+     */
+    public long remainingMillis() {
+        if (!bounded) {
+            return Long.MAX_VALUE;
+        }
+        return Math.max(0, TimeUnit.NANOSECONDS.toMillis(expiresAtNanos - System.nanoTime()));
+    }
+
+    /**
+     * A stage's own timeout, shortened to the time left
+     */
+    public long capMillis(long timeoutMillis) {
+        return Math.min(timeoutMillis, remainingMillis());
+    }
+
+    /**
+     * A deadline that ends earlier by the given time, leaving it for the stages after this one
+     */
+    public Deadline reserve(Duration reserved) {
+        if (!bounded) {
+            return this;
+        }
+        return new Deadline(expiresAtNanos - reserved.toNanos(), true);
+    }
+
+    /**
+     * Fail fast before starting a stage that cannot finish in time
+     *
+     * @param stage What was about to run, for the error message
+     * @throws DeadlineExceededException If the deadline has passed
+     */
+    public void check(String stage) {
+        if (isExpired()) {
+            throw new DeadlineExceededException("Request deadline passed before " + stage);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return bounded ? "Deadline[" + remainingMillis() + " ms left]" : "Deadline[none]";
+    }
+}
@@ -0,0 +1,235 @@
+package com.secureherai.secureherai_api.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An e-mail body compiled once into static fragments and the slots between them.
+ *
+ * The static HTML is encoded to UTF-8 when the template is compiled, so rendering a
+ * message only encodes the slot values, adds up the lengths and copies everything into
+ * one exactly sized array; no {@code StringBuilder} regrowth and no re-encoding of the
+ * markup that is the same for every recipient.
+ *
+ * Syntax: {@code {{name}}} inserts a value as is (values are not escaped, as before);
+ * {@code {{#name}}...{{/name}}} is kept only when {@code name} has a non-empty value.
+ * A missing or null value renders as nothing. Immutable and thread safe.
+ */
+public final class EmailTemplate {
+
+    private final Node[] nodes;
+    private final String[] slots;
+
+    private EmailTemplate(Node[] nodes, String[] slots) {
+        this.nodes = nodes;
+        this.slots = slots;
+    }
+
+    /**
+     * @throws IllegalArgumentException If a tag is not closed or sections do not nest
+     */
+    public static EmailTemplate compile(String source) {
+        Map<String, Integer> slotIndexes = new LinkedHashMap<>();
+        Deque<Section> open = new ArrayDeque<>();
+        List<Node> current = new ArrayList<>();
+        int position = 0;
+        while (position < source.length()) {
+            int start = source.indexOf("{{", position);
+            if (start < 0) {
+                current.add(Node.text(source.substring(position)));
+                break;
+            }
+            if (start > position) {
+                current.add(Node.text(source.substring(position, start)));
+            }
+            int end = source.indexOf("}}", start + 2);
+            if (end < 0) {
+                throw new IllegalArgumentException("Unclosed tag at " + start);
+            }
+            String tag = source.substring(start + 2, end).trim();
+            position = end + 2;
+            if (tag.startsWith("#")) {
+                String name = tag.substring(1).trim();
+                open.push(new Section(name, slotIndex(slotIndexes, name), current));
+                current = new ArrayList<>();
+            } else if (tag.startsWith("/")) {
+                String name = tag.substring(1).trim();
+                Section section = open.poll();
+                if (section == null || !section.name.equals(name)) {
+                    throw new IllegalArgumentException("Unexpected {{/" + name + "}} at " + start);
+                }
+                Node node = Node.section(section.slot, current.toArray(new Node[0]));
+                current = section.parent;
+                current.add(node);
+            } else {
+                current.add(Node.slot(slotIndex(slotIndexes, tag)));
+            }
+        }
+        if (!open.isEmpty()) {
+            throw new IllegalArgumentException("Section {{#" + open.peek().name + "}} is not closed");
+        }
+        return new EmailTemplate(current.toArray(new Node[0]), slotIndexes.keySet().toArray(new String[0]));
+    }
+
+    /**
+     * Names of the values this template uses
+     */
+    public Set<String> getSlots() {
+        Set<String> names = new LinkedHashSet<>();
+        Collections.addAll(names, slots);
+        return names;
+    }
+
+    /**
+     * Render to UTF-8 bytes
+     */
+    public byte[] render(Map<String, String> values) {
+        byte[][] encoded = new byte[slots.length][];
+        for (int i = 0; i < slots.length; i++) {
+            String value = values.get(slots[i]);
+            encoded[i] = value == null || value.isEmpty() ? null : value.getBytes(StandardCharsets.UTF_8);
+        }
+        byte[] out = new byte[byteLength(nodes, encoded)];
+        write(nodes, encoded, out, 0);
+        return out;
+    }
+
+    /**
+     * Render to a string, for callers that store the body rather than send it
+     */
+    public String renderString(Map<String, String> values) {
+        String[] resolved = new String[slots.length];
+        for (int i = 0; i < slots.length; i++) {
+            String value = values.get(slots[i]);
+            resolved[i] = value == null || value.isEmpty() ? null : value;
+        }
+        StringBuilder out = new StringBuilder(charLength(nodes, resolved));
+        append(nodes, resolved, out);
+        return out.toString();
+    }
+
+    private static int slotIndex(Map<String, Integer> slotIndexes, String name) {
+        if (name.isEmpty()) {
+            throw new IllegalArgumentException("Empty tag");
+        }
+        return slotIndexes.computeIfAbsent(name, n -> slotIndexes.size());
+    }
+
+    private static int byteLength(Node[] nodes, byte[][] values) {
+        int length = 0;
+        for (Node node : nodes) {
+            switch (node.kind) {
+                case Node.TEXT -> length += node.bytes.length;
+                case Node.SLOT -> length += values[node.slot] != null ? values[node.slot].length : 0;
+                default -> length += values[node.slot] != null ? byteLength(node.children, values) : 0;
+            }
+        }
+        return length;
+    }
+
+    private static int write(Node[] nodes, byte[][] values, byte[] out, int offset) {
+        for (Node node : nodes) {
+            switch (node.kind) {
+                case Node.TEXT -> {
+                    System.arraycopy(node.bytes, 0, out, offset, node.bytes.length);
+                    offset += node.bytes.length;
+                }
+                case Node.SLOT -> {
+                    byte[] value = values[node.slot];
+                    if (value != null) {
+                        System.arraycopy(value, 0, out, offset, value.length);
+                        offset += value.length;
+                    }
+                }
+                default -> {
+                    if (values[node.slot] != null) {
+                        offset = write(node.children, values, out, offset);
+                    }
+                }
+            }
+        }
+        return offset;
+    }
+
+    private static int charLength(Node[] nodes, String[] values) {
+        int length = 0;
+        for (Node node : nodes) {
+            switch (node.kind) {
+                case Node.TEXT -> length += node.text.length();
+                case Node.SLOT -> length += values[node.slot] != null ? values[node.slot].length() : 0;
+                default -> length += values[node.slot] != null ? charLength(node.children, values) : 0;
+            }
+        }
+        return length;
+    }
+
+    private static void append(Node[] nodes, String[] values, StringBuilder out) {
+        for (Node node : nodes) {
+            switch (node.kind) {
+                case Node.TEXT -> out.append(node.text);
+                case Node.SLOT -> {
+                    if (values[node.slot] != null) {
+                        out.append(values[node.slot]);
+                    }
+                }
+                default -> {
+                    if (values[node.slot] != null) {
+                        append(node.children, values, out);
+                    }
+                }
+            }
+        }
+    }
+
+    private static final class Node {
+        static final int TEXT = 0;
+        static final int SLOT = 1;
+        static final int SECTION = 2;
+
+        final int kind;
+        final String text;
+        final byte[] bytes;
+        final int slot;
+        final Node[] children;
+
+        private Node(int kind, String text, int slot, Node[] children) {
+            this.kind = kind;
+            this.text = text;
+            this.bytes = text != null ? text.getBytes(StandardCharsets.UTF_8) : null;
+            this.slot = slot;
+            this.children = children;
+        }
+
+        static Node text(String text) {
+            return new Node(TEXT, text, -1, null);
+        }
+
+        static Node slot(int slot) {
+            return new Node(SLOT, null, slot, null);
+        }
+
+        static Node section(int slot, Node[] children) {
+            return new Node(SECTION, null, slot, children);
+        }
+    }
+
+    private static final class Section {
+        final String name;
+        final int slot;
+        final List<Node> parent;
+
+        Section(String name, int slot, List<Node> parent) {
+            this.name = name;
+            this.slot = slot;
+            this.parent = parent;
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.secureherai.secureherai_api.util;
+
+import jakarta.activation.DataHandler;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeBodyPart;
+import jakarta.mail.internet.MimeMessage;
+import jakarta.mail.internet.MimeMultipart;
+import jakarta.mail.util.ByteArrayDataSource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Compiled e-mail templates loaded from the classpath, with localized variants.
+ *
+ * A template {@code name} is the file {@code <basePath>name.html}, wrapped in
+ * {@code <basePath>layout.html} at the layout's {@code {{body}}} marker before it is
+ * compiled, so the shared header and footer end up in the same static fragments as the
+ * body. For a locale such as {@code bn-BD} the files {@code name_bn_BD.html},
+ * {@code name_bn.html} and {@code name.html} are tried in that order, and likewise for
+ * the layout. Each name and locale is compiled once, on first use.
+ */
+public class EmailTemplates {
+
+    public static final String HTML_CONTENT_TYPE = "text/html; charset=UTF-8";
+
+    private static final String LAYOUT = "layout";
+    private static final String BODY_MARKER = "{{body}}";
+
+    private final String basePath;
+    private final Map<String, EmailTemplate> compiled = new ConcurrentHashMap<>();
+
+    /**
+     * @param basePath Classpath directory of the templates, ending in '/'
+     */
+    public EmailTemplates(String basePath) {
+        this.basePath = basePath;
+    }
+
+    /**
+     * @param locale Preferred language, or null/{@link Locale#ROOT} for the default files
+     * @throws IllegalStateException If there is no file for the template
+     */
+    public EmailTemplate get(String name, Locale locale) {
+        Locale resolved = locale != null ? locale : Locale.ROOT;
+        return compiled.computeIfAbsent(name + '|' + resolved.toLanguageTag(), key -> compile(name, resolved));
+    }
+
+    /**
+     * Set an already rendered HTML body as the message content, in the structure
+     * {@code MimeMessageHelper} builds (mixed, then related, then the HTML part), without
+     * re-encoding the body or going through the helper for every message
+     */
+    public static void setHtmlContent(MimeMessage message, byte[] html) throws MessagingException {
+        MimeBodyPart htmlPart = new MimeBodyPart();
+        htmlPart.setDataHandler(new DataHandler(new ByteArrayDataSource(html, HTML_CONTENT_TYPE)));
+        htmlPart.setHeader("Content-Type", HTML_CONTENT_TYPE);
+
+        MimeMultipart related = new MimeMultipart("related");
+        related.addBodyPart(htmlPart);
+        MimeBodyPart relatedPart = new MimeBodyPart();
+        relatedPart.setContent(related);
+
+        MimeMultipart mixed = new MimeMultipart("mixed");
+        mixed.addBodyPart(relatedPart);
+        message.setContent(mixed);
+    }
+
+    private EmailTemplate compile(String name, Locale locale) {
+        String layout = load(LAYOUT, locale);
+        String body = load(name, locale);
+        int marker = layout.indexOf(BODY_MARKER);
+        if (marker < 0) {
+            throw new IllegalStateException("E-mail layout has no " + BODY_MARKER + " marker");
+        }
+        String source = layout.substring(0, marker) + body + layout.substring(marker + BODY_MARKER.length());
+        return EmailTemplate.compile(source);
+    }
+
+    private String load(String name, Locale locale) {
+        for (String candidate : candidates(name, locale)) {
+            try (InputStream in = EmailTemplates.class.getClassLoader().getResourceAsStream(basePath + candidate)) {
+                if (in != null) {
+                    String source = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+                    // Editors add a final newline; it would end up in every message
+                    return source.endsWith("\n") ? source.substring(0, source.length() - 1) : source;
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to read e-mail template " + candidate, e);
+            }
+        }
+        throw new IllegalStateException("No e-mail template " + basePath + name + ".html");
+    }
+
+    private static List<String> candidates(String name, Locale locale) {
+        List<String> candidates = new ArrayList<>(3);
+        if (!locale.getLanguage().isEmpty()) {
+            if (!locale.getCountry().isEmpty()) {
+                candidates.add(name + "_" + locale.getLanguage() + "_" + locale.getCountry() + ".html");
+            }
+            candidates.add(name + "_" + locale.getLanguage() + ".html");
+        }
+        candidates.add(name + ".html");
+        return candidates;
+    }
+}
@@ -0,0 +1,379 @@
+package com.secureherai.secureherai_api.util;
+
+import com.secureherai.secureherai_api.exception.DeadlineExceededException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ws.schild.jave.process.ffmpeg.DefaultFFMPEGLocator;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pool of pre-spawned ffmpeg processes that transcode audio to 16 kHz mono PCM WAV
+ * through stdin/stdout.
+ *
+ * Each worker is started ahead of time and blocks on its input pipe, so a conversion
+ * pays neither the process start nor the temp file round trip; the pool replaces a
+ * used worker in the background. ffmpeg cannot take a new input once it has finished
+ * one, so a worker serves exactly one file. Containers that need seeking (MP4/M4A
+ * with the index after the media data) cannot be read from a pipe and are left to
+ * the file-based JAVE encoder.
+ */
+@Component
+@Slf4j
+public class FfmpegWorkerPool {
+
+    private static final String POOL_KEY = "wav16k";
+    private static final int STREAM_CHUNK_BYTES = 16 * 1024;
+
+    @Value("${audio.ffmpeg.workers.enabled:true}")
+    private boolean enabled;
+
+    @Value("${audio.ffmpeg.workers.size:2}")
+    private int size;
+
+    @Value("${audio.ffmpeg.workers.timeout-seconds:30}")
+    private long timeoutSeconds;
+
+    @Value("${audio.ffmpeg.workers.max-idle-seconds:600}")
+    private long maxIdleSeconds;
+
+    @Value("${audio.ffmpeg.workers.health-check-interval-seconds:60}")
+    private long healthCheckIntervalSeconds;
+
+    @Value("${audio.ffmpeg.path:}")
+    private String ffmpegPath;
+
+    private volatile PrewarmedPool<Worker> pool;
+    private ExecutorService feeders;
+
+    private final AtomicLong conversions = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong totalMillis = new AtomicLong();
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            log.info("ffmpeg worker pool disabled; audio conversion uses the JAVE encoder");
+            return;
+        }
+
+        String executable = resolveExecutable();
+        if (executable == null) {
+            return;
+        }
+        List<String> command = List.of(executable, "-hide_banner", "-loglevel", "error", "-nostdin",
+            "-i", "pipe:0", "-vn", "-ac", "1", "-ar", "16000", "-acodec", "pcm_s16le", "-f", "wav", "pipe:1");
+
+        AtomicInteger counter = new AtomicInteger();
+        feeders = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "ffmpeg-feeder-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        pool = new PrewarmedPool<>("ffmpeg", key -> Worker.spawn(command), size, 1,
+            TimeUnit.SECONDS.toMillis(maxIdleSeconds));
+        pool.warmUp(List.of(POOL_KEY));
+        pool.startHealthChecks(TimeUnit.SECONDS.toMillis(healthCheckIntervalSeconds));
+        log.info("ffmpeg worker pool started with {} workers using {}", size, executable);
+    }
+
+    private String resolveExecutable() {
+        if (ffmpegPath != null && !ffmpegPath.isBlank()) {
+            return ffmpegPath;
+        }
+        try {
+            // Reuse the binary JAVE bundles for this platform
+            return new DefaultFFMPEGLocator().getExecutablePath();
+        } catch (Throwable e) {
+            log.warn("No ffmpeg executable found, worker pool disabled: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    public boolean isAvailable() {
+        return pool != null;
+    }
+
+    /**
+     * Transcode a file to a 16 kHz mono 16-bit PCM WAV held in memory
+     *
+     * @return The WAV bytes as written by ffmpeg; the header sizes may be unset
+     * @throws IOException If ffmpeg failed, timed out or produced no audio
+     */
+    public byte[] transcode(File inputFile) throws IOException {
+        return transcode(inputFile.getName(), stdin -> Files.copy(inputFile.toPath(), stdin), Deadline.none());
+    }
+
+    /**
+     * Transcode audio held in memory to a 16 kHz mono 16-bit PCM WAV held in memory
+     *
+     * @param audio The encoded audio from position to limit; the buffer's position is not changed
+     * @param name Name of the clip for logging
+     */
+    public byte[] transcode(ByteBuffer audio, String name) throws IOException {
+        ByteBuffer input = audio.duplicate();
+        return transcode(name, stdin -> {
+            WritableByteChannel channel = Channels.newChannel(stdin);
+            while (input.hasRemaining()) {
+                channel.write(input);
+            }
+        }, Deadline.none());
+    }
+
+    /**
+     * Transcode audio while it is still arriving, e.g. from a download in flight.
+     * ffmpeg decodes as the bytes come in, so conversion overlaps the transfer.
+     *
+     * @param audio The encoded audio; read to the end but not closed
+     * @param name Name of the clip for logging
+     * @throws IOException If reading the audio failed or it was cut short, or ffmpeg failed
+     */
+    public byte[] transcode(InputStream audio, String name) throws IOException {
+        return transcode(audio, name, Deadline.none());
+    }
+
+    /**
+     * Transcode audio while it is still arriving, giving up on ffmpeg once the request's
+     * deadline has passed
+     *
+     * @param audio The encoded audio; read to the end but not closed
+     * @param name Name of the clip for logging
+     * @param deadline Caps the worker timeout
+     * @throws IOException If reading the audio failed or it was cut short, or ffmpeg failed or timed out
+     * @throws DeadlineExceededException If the deadline passed before a worker was leased
+     */
+    public byte[] transcode(InputStream audio, String name, Deadline deadline) throws IOException {
+        return transcode(name, stdin -> {
+            byte[] chunk = new byte[STREAM_CHUNK_BYTES];
+            while (true) {
+                int read;
+                try {
+                    read = audio.read(chunk);
+                } catch (IOException e) {
+                    // Unlike a write error, this is not ffmpeg rejecting the input
+                    throw new UncheckedIOException(e);
+                }
+                if (read == -1) {
+                    return;
+                }
+                stdin.write(chunk, 0, read);
+            }
+        }, deadline);
+    }
+
+    private byte[] transcode(String name, Input input, Deadline deadline) throws IOException {
+        if (pool == null) {
+            throw new IOException("ffmpeg worker pool is not running");
+        }
+
+        deadline.check("converting " + name);
+        long started = System.nanoTime();
+        try (PrewarmedPool.Lease<Worker> lease = pool.acquire(POOL_KEY)) {
+            long timeoutMillis = deadline.capMillis(TimeUnit.SECONDS.toMillis(timeoutSeconds));
+            byte[] wav = lease.get().transcode(name, input, feeders, timeoutMillis);
+            conversions.incrementAndGet();
+            totalMillis.addAndGet(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+            return wav;
+        } catch (IOException | RuntimeException e) {
+            failures.incrementAndGet();
+            throw e instanceof IOException ? (IOException) e : new IOException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Whether ffmpeg can read this file from a pipe. Everything except MP4-family
+     * containers whose moov index comes after the media data.
+     */
+    public static boolean canStream(File file, String mimeType) {
+        if (!isMp4Family(file.getName(), mimeType)) {
+            return true;
+        }
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            return isMoovFirst(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        } catch (IOException e) {
+            log.debug("Could not inspect MP4 boxes of {}: {}", file.getName(), e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Whether ffmpeg can read audio held in memory from a pipe
+     */
+    public static boolean canStream(ByteBuffer audio, String name, String mimeType) {
+        return !isMp4Family(name, mimeType) || isMoovFirst(audio.slice());
+    }
+
+    private static boolean isMp4Family(String name, String mimeType) {
+        String type = mimeType == null ? "" : mimeType.toLowerCase();
+        String fileName = name == null ? "" : name.toLowerCase();
+        return type.contains("mp4") || type.contains("m4a") || type.contains("quicktime")
+            || fileName.endsWith(".m4a") || fileName.endsWith(".mp4");
+    }
+
+    private static boolean isMoovFirst(ByteBuffer boxes) {
+        long length = boxes.limit();
+        long position = 0;
+        while (position + 8 <= length) {
+            long boxSize = Integer.toUnsignedLong(boxes.getInt((int) position));
+            int type = boxes.getInt((int) position + 4);
+            if (type == 0x6d6f6f76) { // "moov"
+                return true;
+            }
+            if (type == 0x6d646174) { // "mdat"
+                return false;
+            }
+            if (boxSize == 1 && position + 16 <= length) {
+                boxSize = boxes.getLong((int) position + 8);
+            }
+            if (boxSize < 8 || position + boxSize > Integer.MAX_VALUE) {
+                return false;
+            }
+            position += boxSize;
+        }
+        return false;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", pool != null);
+        long count = conversions.get();
+        stats.put("conversions", count);
+        stats.put("failures", failures.get());
+        stats.put("averageMillis", count == 0 ? 0 : totalMillis.get() / count);
+        if (pool != null) {
+            stats.put("pool", pool.getStats());
+        }
+        return stats;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (pool != null) {
+            pool.close();
+            pool = null;
+        }
+        if (feeders != null) {
+            feeders.shutdownNow();
+        }
+    }
+
+    /**
+     * Writes the encoded input to ffmpeg's stdin
+     */
+    @FunctionalInterface
+    interface Input {
+        void writeTo(OutputStream stdin) throws IOException;
+    }
+
+    /**
+     * One idle ffmpeg process waiting for input on stdin
+     */
+    static class Worker implements PrewarmedPool.Resource {
+        private final Process process;
+
+        private Worker(Process process) {
+            this.process = process;
+        }
+
+        static Worker spawn(List<String> command) {
+            try {
+                Process process = new ProcessBuilder(new ArrayList<>(command))
+                    .redirectError(ProcessBuilder.Redirect.DISCARD)
+                    .start();
+                return new Worker(process);
+            } catch (IOException e) {
+                throw new IllegalStateException("Failed to start ffmpeg: " + e.getMessage(), e);
+            }
+        }
+
+        byte[] transcode(String name, Input input, ExecutorService feeders, long timeoutMillis) throws IOException {
+            // Kill the process if it stalls; that also unblocks the read below
+            CompletableFuture.runAsync(process::destroyForcibly,
+                CompletableFuture.delayedExecutor(timeoutMillis, TimeUnit.MILLISECONDS));
+
+            // Feed stdin from another thread so a full stdout pipe cannot deadlock us
+            CompletableFuture<Void> fed = CompletableFuture.runAsync(() -> {
+                try (OutputStream stdin = process.getOutputStream()) {
+                    input.writeTo(stdin);
+                } catch (IOException e) {
+                    // ffmpeg closes stdin early when it rejects the input; its exit code reports why
+                    log.debug("ffmpeg stdin closed early for {}: {}", name, e.getMessage());
+                }
+            }, feeders);
+
+            byte[] output;
+            try (InputStream stdout = process.getInputStream()) {
+                output = stdout.readAllBytes();
+            }
+
+            try {
+                if (!process.waitFor(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                    throw new IOException("ffmpeg did not exit for " + name);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while waiting for ffmpeg", e);
+            }
+
+            int exitCode = process.exitValue();
+            if (exitCode != 0 || output.length <= WavFile.HEADER_SIZE) {
+                throw new IOException("ffmpeg exited with code " + exitCode + " for " + name);
+            }
+            awaitInput(fed, name, timeoutMillis);
+            return output;
+        }
+
+        /**
+         * ffmpeg treats a closed stdin as the end of the clip, so a source that failed
+         * half way would otherwise pass as a short but valid recording
+         */
+        private static void awaitInput(CompletableFuture<Void> fed, String name, long timeoutMillis) throws IOException {
+            try {
+                fed.get(timeoutMillis, TimeUnit.MILLISECONDS);
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause() instanceof UncheckedIOException ? e.getCause().getCause() : e.getCause();
+                throw new IOException("Reading audio for " + name + " failed: " + cause.getMessage(), cause);
+            } catch (TimeoutException e) {
+                throw new IOException("Feeding audio to ffmpeg did not finish for " + name, e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while feeding ffmpeg", e);
+            }
+        }
+
+        @Override
+        public boolean isHealthy() {
+            return process.isAlive();
+        }
+
+        @Override
+        public void close() {
+            process.destroyForcibly();
+        }
+    }
+}
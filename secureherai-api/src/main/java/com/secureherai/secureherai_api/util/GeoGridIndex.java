@@ -0,0 +1,324 @@
+package com.secureherai.secureherai_api.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Points on the globe bucketed into a fixed latitude/longitude grid, for k-nearest
+ * queries that only look at the cells around the query point.
+ *
+ * Points are kept as primitive doubles. Moving or removing a point is O(1). A query
+ * walks outwards from the query's cell one ring of cells at a time and stops as soon
+ * as no point in the next ring can be closer than the k-th best found, or than the
+ * radius, so its cost depends on how many points are nearby rather than in total.
+ * Distances are great-circle (Haversine) distances in km. Reads run concurrently;
+ * updates take a short exclusive lock.
+ *
+ * @param <K> Point key
+ */
+public class GeoGridIndex<K> {
+
+    public static final double EARTH_RADIUS_KM = 6371;
+
+    private final double cellDegrees;
+    private final int lonCells;
+    private final Map<K, Point<K>> points = new HashMap<>();
+    private final Map<Long, List<Point<K>>> cells = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * @param cellDegrees Cell size; small enough that a few cells around a query hold k points,
+     *                    large enough that a radius spans a few dozen cells, not thousands
+     */
+    public GeoGridIndex(double cellDegrees) {
+        if (cellDegrees <= 0 || cellDegrees > 90) {
+            throw new IllegalArgumentException("Cell size must be between 0 and 90 degrees");
+        }
+        this.cellDegrees = cellDegrees;
+        this.lonCells = (int) Math.ceil(360 / cellDegrees);
+    }
+
+    /**
+     * Add a point or move it to a new position
+     */
+    public void put(K key, double latitude, double longitude) {
+        lock.writeLock().lock();
+        try {
+            link(key, latitude, longitude);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return true if the point was in the index
+     */
+    public boolean remove(K key) {
+        lock.writeLock().lock();
+        try {
+            Point<K> point = points.remove(key);
+            if (point == null) {
+                return false;
+            }
+            unlink(point);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Replace the whole contents at once, e.g. after reloading from the database
+     *
+     * @param positions Latitude and longitude per key
+     */
+    public void replaceAll(Map<K, double[]> positions) {
+        lock.writeLock().lock();
+        try {
+            points.clear();
+            cells.clear();
+            positions.forEach((key, position) -> link(key, position[0], position[1]));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean contains(K key) {
+        lock.readLock().lock();
+        try {
+            return points.containsKey(key);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return points.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * The k points nearest to a position, within a radius
+     *
+     * @param radiusKm Largest distance to return
+     * @return Up to k points, nearest first
+     */
+    public List<Neighbor<K>> nearest(double latitude, double longitude, int k, double radiusKm) {
+        if (k <= 0) {
+            return List.of();
+        }
+        // Max-heap on distance holding the best k so far
+        PriorityQueue<Neighbor<K>> best = new PriorityQueue<>(k + 1,
+            (a, b) -> Double.compare(b.distanceKm, a.distanceKm));
+
+        lock.readLock().lock();
+        try {
+            int latIndex = latIndex(latitude);
+            int lonIndex = lonIndex(longitude);
+            double radiusDegrees = Math.toDegrees(radiusKm / EARTH_RADIUS_KM);
+            int maxLatRing = (int) Math.ceil(radiusDegrees / cellDegrees) + 1;
+            double maxAbsLatitude = Math.min(90, Math.abs(latitude) + radiusDegrees + cellDegrees);
+            double lonScale = Math.cos(Math.toRadians(maxAbsLatitude));
+            // Near the poles, or for a radius covering half the globe, every column is in range
+            int maxLonRing = lonScale <= 1e-9 ? lonCells
+                : (int) Math.min(lonCells, Math.ceil(radiusDegrees / lonScale / cellDegrees) + 1);
+            boolean allColumns = 2 * maxLonRing + 1 >= lonCells;
+            if (allColumns) {
+                maxLonRing = lonCells / 2;
+            }
+
+            int maxRing = Math.max(maxLatRing, maxLonRing);
+            for (int ring = 0; ring <= maxRing; ring++) {
+                scanRing(ring, latIndex, lonIndex, maxLatRing, maxLonRing, allColumns,
+                    latitude, longitude, k, radiusKm, best);
+                double nextRingKm = nextRingLowerBoundKm(ring, latIndex, lonIndex, latitude, longitude,
+                    maxLatRing, maxLonRing, allColumns, lonScale);
+                if (nextRingKm > radiusKm || (best.size() == k && best.peek().distanceKm <= nextRingKm)) {
+                    break;
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<Neighbor<K>> result = new ArrayList<>(best);
+        result.sort((a, b) -> Double.compare(a.distanceKm, b.distanceKm));
+        return result;
+    }
+
+    private void scanRing(int ring, int latIndex, int lonIndex, int maxLatRing, int maxLonRing, boolean allColumns,
+                          double latitude, double longitude, int k, double radiusKm,
+                          PriorityQueue<Neighbor<K>> best) {
+        int latRing = Math.min(ring, maxLatRing);
+        int lonRing = Math.min(ring, maxLonRing);
+        for (int dLat = -latRing; dLat <= latRing; dLat++) {
+            boolean edgeRow = Math.abs(dLat) == ring;
+            int row = latIndex + dLat;
+            for (int dLon = -lonRing; dLon <= lonRing; dLon++) {
+                // Only the cells that make up this ring; inner ones were done before
+                if (!edgeRow && Math.abs(dLon) != ring) {
+                    continue;
+                }
+                // With every column in range, an even column count would visit the far column twice
+                if (allColumns && dLon == lonRing && 2 * lonRing >= lonCells) {
+                    continue;
+                }
+                List<Point<K>> members = cells.get(cellKey(row, Math.floorMod(lonIndex + dLon, lonCells)));
+                if (members == null) {
+                    continue;
+                }
+                for (Point<K> point : members) {
+                    double distanceKm = haversineKm(latitude, longitude, point.latitude, point.longitude);
+                    if (distanceKm > radiusKm) {
+                        continue;
+                    }
+                    if (best.size() < k) {
+                        best.add(new Neighbor<>(point.key, point.latitude, point.longitude, distanceKm));
+                    } else if (distanceKm < best.peek().distanceKm) {
+                        best.poll();
+                        best.add(new Neighbor<>(point.key, point.latitude, point.longitude, distanceKm));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Smallest distance from the query to any cell outside the rings scanned so far
+     */
+    private double nextRingLowerBoundKm(int ring, int latIndex, int lonIndex, double latitude, double longitude,
+                                        int maxLatRing, int maxLonRing, boolean allColumns, double lonScale) {
+        double bound = Double.MAX_VALUE;
+        if (ring < maxLatRing) {
+            double south = latitude - (latIndex - ring) * cellDegrees;
+            double north = (latIndex + ring + 1) * cellDegrees - latitude;
+            // Points further apart in latitude are at least that far apart on the sphere
+            bound = Math.min(bound, Math.toRadians(Math.min(south, north)) * EARTH_RADIUS_KM);
+        }
+        if (ring < maxLonRing && !allColumns) {
+            double west = longitude - (lonIndex - ring) * cellDegrees;
+            double east = (lonIndex + ring + 1) * cellDegrees - longitude;
+            // Haversine: sin(d/2) >= cos(lat1) cos(lat2) sin(dLon/2), both latitudes within the searched band
+            double halfGap = Math.toRadians(Math.min(west, east)) / 2;
+            double sinHalf = Math.min(1, lonScale * Math.sin(halfGap));
+            bound = Math.min(bound, 2 * EARTH_RADIUS_KM * Math.asin(sinHalf));
+        }
+        return bound;
+    }
+
+    private void link(K key, double latitude, double longitude) {
+        long cell = cellOf(latitude, longitude);
+        Point<K> point = points.get(key);
+        if (point != null) {
+            if (point.cell == cell) {
+                point.latitude = latitude;
+                point.longitude = longitude;
+                return;
+            }
+            unlink(point);
+        } else {
+            point = new Point<>(key);
+            points.put(key, point);
+        }
+        point.latitude = latitude;
+        point.longitude = longitude;
+        point.cell = cell;
+        List<Point<K>> members = cells.computeIfAbsent(cell, c -> new ArrayList<>());
+        point.slot = members.size();
+        members.add(point);
+    }
+
+    private void unlink(Point<K> point) {
+        List<Point<K>> members = cells.get(point.cell);
+        Point<K> last = members.remove(members.size() - 1);
+        if (last != point) {
+            members.set(point.slot, last);
+            last.slot = point.slot;
+        }
+        if (members.isEmpty()) {
+            cells.remove(point.cell);
+        }
+    }
+
+    private long cellOf(double latitude, double longitude) {
+        return cellKey(latIndex(latitude), lonIndex(longitude));
+    }
+
+    private int latIndex(double latitude) {
+        return (int) Math.floor(latitude / cellDegrees);
+    }
+
+    private int lonIndex(double longitude) {
+        return Math.floorMod((int) Math.floor(longitude / cellDegrees), lonCells);
+    }
+
+    private static long cellKey(int latIndex, int lonIndex) {
+        return ((long) latIndex << 32) | (lonIndex & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Great-circle distance in km
+     */
+    public static double haversineKm(double lat1, double lon1, double lat2, double lon2) {
+        double latDistance = Math.toRadians(lat2 - lat1);
+        double lonDistance = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(latDistance / 2) * Math.sin(latDistance / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+                * Math.sin(lonDistance / 2) * Math.sin(lonDistance / 2);
+        return 2 * EARTH_RADIUS_KM * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+    }
+
+    /**
+     * A point found by a query
+     */
+    public static class Neighbor<K> {
+        private final K key;
+        private final double latitude;
+        private final double longitude;
+        private final double distanceKm;
+
+        public Neighbor(K key, double latitude, double longitude, double distanceKm) {
+            this.key = key;
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.distanceKm = distanceKm;
+        }
+
+        public K getKey() {
+            return key;
+        }
+
+        public double getLatitude() {
+            return latitude;
+        }
+
+        public double getLongitude() {
+            return longitude;
+        }
+
+        public double getDistanceKm() {
+            return distanceKm;
+        }
+    }
+
+    private static class Point<K> {
+        private final K key;
+        private double latitude;
+        private double longitude;
+        private long cell;
+        private int slot;
+
+        Point(K key) {
+            this.key = key;
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.secureherai.secureherai_api.util;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Geohash encoding of positions.
+ *
+ * A geohash interleaves longitude and latitude bits and writes them in base 32, so every
+ * extra character narrows the cell and all positions inside a cell share its hash as a
+ * prefix. That makes "everything in this cell" a range of the sorted hashes, which a
+ * plain B-tree index on a geohash column can answer. The alphabet is lowercase digits
+ * and letters only, so the ranges are the same under binary and locale collations.
+ */
+public final class Geohash {
+
+    /** Characters stored in the users.geohash column */
+    public static final int STORED_PRECISION = 9;
+
+    private static final String BASE32 = "0123456789bcdefghjkmnpqrstuvwxyz";
+
+    private Geohash() {
+    }
+
+    /**
+     * @param precision Number of characters, 1 to 12
+     */
+    public static String encode(double latitude, double longitude, int precision) {
+        if (precision < 1 || precision > 12) {
+            throw new IllegalArgumentException("Geohash precision must be between 1 and 12");
+        }
+        double minLat = -90, maxLat = 90;
+        double minLon = -180, maxLon = 180;
+        StringBuilder hash = new StringBuilder(precision);
+        boolean evenBit = true;
+        int bit = 0;
+        int value = 0;
+        while (hash.length() < precision) {
+            if (evenBit) {
+                double mid = (minLon + maxLon) / 2;
+                if (longitude >= mid) {
+                    value = (value << 1) | 1;
+                    minLon = mid;
+                } else {
+                    value <<= 1;
+                    maxLon = mid;
+                }
+            } else {
+                double mid = (minLat + maxLat) / 2;
+                if (latitude >= mid) {
+                    value = (value << 1) | 1;
+                    minLat = mid;
+                } else {
+                    value <<= 1;
+                    maxLat = mid;
+                }
+            }
+            evenBit = !evenBit;
+            if (++bit == 5) {
+                hash.append(BASE32.charAt(value));
+                bit = 0;
+                value = 0;
+            }
+        }
+        return hash.toString();
+    }
+
+    /**
+     * Height of a cell in degrees of latitude
+     */
+    public static double cellHeightDegrees(int precision) {
+        return 180 / Math.pow(2, (5 * precision) / 2);
+    }
+
+    /**
+     * Width of a cell in degrees of longitude
+     */
+    public static double cellWidthDegrees(int precision) {
+        return 360 / Math.pow(2, (5 * precision + 1) / 2);
+    }
+
+    /**
+     * The cell containing a position and the cells around it, up to 9
+     */
+    public static List<String> neighborhood(double latitude, double longitude, int precision) {
+        double height = cellHeightDegrees(precision);
+        double width = cellWidthDegrees(precision);
+        Set<String> cells = new LinkedHashSet<>();
+        for (int dLat = -1; dLat <= 1; dLat++) {
+            // Past a pole there is nothing further; the polar row already covers it
+            double lat = Math.max(-90, Math.min(90 - 1e-9, latitude + dLat * height));
+            for (int dLon = -1; dLon <= 1; dLon++) {
+                cells.add(encode(lat, wrapLongitude(longitude + dLon * width), precision));
+            }
+        }
+        return new ArrayList<>(cells);
+    }
+
+    /**
+     * Smallest distance in km from a position to the outside of its 3x3 neighborhood, so
+     * anything closer than this is guaranteed to be in the neighborhood
+     */
+    public static double neighborhoodCoverageKm(double latitude, int precision) {
+        double height = cellHeightDegrees(precision);
+        double width = cellWidthDegrees(precision);
+        // Longitude degrees shrink towards the pole-most edge of the neighborhood
+        double edgeLatitude = Math.min(90, Math.abs(latitude) + 2 * height);
+        double kmPerDegree = Math.toRadians(1) * GeoGridIndex.EARTH_RADIUS_KM;
+        return Math.min(height * kmPerDegree, width * kmPerDegree * Math.cos(Math.toRadians(edgeLatitude)));
+    }
+
+    /**
+     * Smallest string greater than every hash starting with the prefix, or null if there
+     * is none (the prefix is all 'z')
+     */
+    public static String prefixUpperBound(String prefix) {
+        char[] chars = prefix.toCharArray();
+        for (int i = chars.length - 1; i >= 0; i--) {
+            int index = BASE32.indexOf(chars[i]);
+            if (index < 0) {
+                throw new IllegalArgumentException("Not a geohash: " + prefix);
+            }
+            if (index < BASE32.length() - 1) {
+                chars[i] = BASE32.charAt(index + 1);
+                return new String(chars, 0, i + 1);
+            }
+        }
+        return null;
+    }
+
+    private static double wrapLongitude(double longitude) {
+        return ((longitude + 180) % 360 + 360) % 360 - 180;
+    }
+}
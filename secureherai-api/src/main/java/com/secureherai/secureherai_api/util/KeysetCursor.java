@@ -0,0 +1,64 @@
+package com.secureherai.secureherai_api.util;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Position in a list ordered by creation time and then ID, newest first, handed to
+ * clients as an opaque token.
+ *
+ * The next page is the rows that come strictly after the last row of the previous page
+ * in that order, which an index on (created_at, id) finds with one range scan however
+ * deep the page is, and which neither skips nor repeats rows when new ones are added
+ * at the top in between.
+ */
+public final class KeysetCursor {
+
+    private final LocalDateTime createdAt;
+    private final long id;
+
+    public KeysetCursor(LocalDateTime createdAt, long id) {
+        if (createdAt == null) {
+            throw new IllegalArgumentException("Cursor needs a creation time");
+        }
+        this.createdAt = createdAt;
+        this.id = id;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * The token clients send back for the next page
+     */
+    public String encode() {
+        String position = createdAt + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Read a token made by {@link #encode}
+     *
+     * @throws IllegalArgumentException If the token was not made by {@link #encode}
+     */
+    public static KeysetCursor decode(String token) {
+        try {
+            String position = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = position.indexOf('|');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            return new KeysetCursor(LocalDateTime.parse(position.substring(0, separator)),
+                Long.parseLong(position.substring(separator + 1)));
+        } catch (DateTimeParseException | NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+}
@@ -0,0 +1,249 @@
+package com.secureherai.secureherai_api.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Immutable Aho-Corasick automaton for spotting SOS keywords in transcripts.
+ *
+ * Keywords match whole words only: text is folded to lower case and every run of
+ * non-word characters (spaces, punctuation) becomes a single separator, and each
+ * keyword is compiled with a separator on both sides. "help" therefore matches
+ * "Please, HELP!" but not "helpful", and "help me" matches "help... me".
+ *
+ * The transition table is a fully resolved DFA, so matching is one table lookup
+ * per character, a single pass over the text and allocates nothing. Instances are
+ * thread-safe and meant to be cached.
+ */
+public final class KeywordAutomaton {
+
+    private static final char SEPARATOR = ' ';
+    private static final int NO_MATCH = -1;
+
+    private final List<String> keywords;
+    private final char[] alphabet;      // sorted distinct keyword characters
+    private final int[] asciiClasses;   // fast path for the alphabet lookup
+    private final int width;            // alphabet.length + 1, class 0 is "not in any keyword"
+    private final int[] transitions;    // state * width + class -> next state
+    private final int[] accepting;      // keyword index completed in a state, or NO_MATCH
+
+    private KeywordAutomaton(List<String> keywords, char[] alphabet, int[] asciiClasses,
+                             int[] transitions, int[] accepting) {
+        this.keywords = keywords;
+        this.alphabet = alphabet;
+        this.asciiClasses = asciiClasses;
+        this.width = alphabet.length + 1;
+        this.transitions = transitions;
+        this.accepting = accepting;
+    }
+
+    /**
+     * Compile keywords into an automaton. Blank keywords and duplicates are ignored.
+     */
+    public static KeywordAutomaton compile(Collection<String> rawKeywords) {
+        Set<String> normalized = new LinkedHashSet<>();
+        if (rawKeywords != null) {
+            for (String raw : rawKeywords) {
+                String keyword = normalize(raw);
+                if (keyword != null) {
+                    normalized.add(keyword);
+                }
+            }
+        }
+
+        List<String> keywords = new ArrayList<>(normalized);
+        List<String> patterns = new ArrayList<>(keywords.size());
+        Set<Character> characters = new TreeSet<>();
+        int totalLength = 0;
+        for (String keyword : keywords) {
+            String pattern = SEPARATOR + keyword + SEPARATOR;
+            patterns.add(pattern);
+            totalLength += pattern.length();
+            for (int i = 0; i < pattern.length(); i++) {
+                characters.add(pattern.charAt(i));
+            }
+        }
+
+        char[] alphabet = new char[characters.size()];
+        int index = 0;
+        for (Character c : characters) {
+            alphabet[index++] = c;
+        }
+        int[] asciiClasses = new int[128];
+        for (int i = 0; i < alphabet.length; i++) {
+            if (alphabet[i] < 128) {
+                asciiClasses[alphabet[i]] = i + 1;
+            }
+        }
+
+        int width = alphabet.length + 1;
+        int maxStates = totalLength + 1;
+        int[] transitions = new int[maxStates * width];
+        Arrays.fill(transitions, NO_MATCH);
+        int[] accepting = new int[maxStates];
+        Arrays.fill(accepting, NO_MATCH);
+
+        // Build the trie
+        int stateCount = 1;
+        for (int k = 0; k < patterns.size(); k++) {
+            String pattern = patterns.get(k);
+            int state = 0;
+            for (int i = 0; i < pattern.length(); i++) {
+                int slot = state * width + classOf(alphabet, asciiClasses, pattern.charAt(i));
+                if (transitions[slot] == NO_MATCH) {
+                    transitions[slot] = stateCount++;
+                }
+                state = transitions[slot];
+            }
+            if (accepting[state] == NO_MATCH) {
+                accepting[state] = k;
+            }
+        }
+
+        // Resolve failure links breadth-first into a complete DFA
+        int[] failure = new int[stateCount];
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        for (int c = 0; c < width; c++) {
+            int next = transitions[c];
+            if (next == NO_MATCH) {
+                transitions[c] = 0;
+            } else {
+                failure[next] = 0;
+                queue.add(next);
+            }
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            if (accepting[state] == NO_MATCH) {
+                accepting[state] = accepting[failure[state]];
+            }
+            for (int c = 0; c < width; c++) {
+                int slot = state * width + c;
+                int fallback = transitions[failure[state] * width + c];
+                if (transitions[slot] == NO_MATCH) {
+                    transitions[slot] = fallback;
+                } else {
+                    failure[transitions[slot]] = fallback;
+                    queue.add(transitions[slot]);
+                }
+            }
+        }
+
+        return new KeywordAutomaton(
+            Collections.unmodifiableList(keywords),
+            alphabet,
+            asciiClasses,
+            Arrays.copyOf(transitions, stateCount * width),
+            Arrays.copyOf(accepting, stateCount)
+        );
+    }
+
+    /**
+     * Check whether the text contains any keyword as a whole word or phrase
+     */
+    public boolean matches(CharSequence text) {
+        return findFirst(text) != NO_MATCH;
+    }
+
+    /**
+     * Index into {@link #getKeywords()} of the first keyword found in the text, or -1
+     */
+    public int findFirst(CharSequence text) {
+        if (text == null || keywords.isEmpty()) {
+            return NO_MATCH;
+        }
+
+        // The start of the text counts as a word boundary
+        int state = transitions[classOf(alphabet, asciiClasses, SEPARATOR)];
+        boolean previousSeparator = true;
+
+        for (int i = 0, length = text.length(); i < length; i++) {
+            char c = text.charAt(i);
+            char folded;
+            if (isWordCharacter(c)) {
+                folded = Character.toLowerCase(c);
+                previousSeparator = false;
+            } else if (previousSeparator) {
+                continue;
+            } else {
+                folded = SEPARATOR;
+                previousSeparator = true;
+            }
+
+            state = transitions[state * width + classOf(alphabet, asciiClasses, folded)];
+            if (accepting[state] != NO_MATCH) {
+                return accepting[state];
+            }
+        }
+
+        // So does the end
+        if (!previousSeparator) {
+            state = transitions[state * width + classOf(alphabet, asciiClasses, SEPARATOR)];
+        }
+        return accepting[state];
+    }
+
+    public List<String> getKeywords() {
+        return keywords;
+    }
+
+    public boolean isEmpty() {
+        return keywords.isEmpty();
+    }
+
+    public int getStateCount() {
+        return accepting.length;
+    }
+
+    /**
+     * Fold a keyword the same way transcripts are folded during matching.
+     * Returns null if nothing but separators remain.
+     */
+    static String normalize(String raw) {
+        if (raw == null) {
+            return null;
+        }
+        StringBuilder builder = new StringBuilder(raw.length());
+        boolean previousSeparator = true;
+        for (int i = 0; i < raw.length(); i++) {
+            char c = raw.charAt(i);
+            if (isWordCharacter(c)) {
+                builder.append(Character.toLowerCase(c));
+                previousSeparator = false;
+            } else if (!previousSeparator) {
+                builder.append(SEPARATOR);
+                previousSeparator = true;
+            }
+        }
+        if (previousSeparator && builder.length() > 0) {
+            builder.setLength(builder.length() - 1);
+        }
+        return builder.length() == 0 ? null : builder.toString();
+    }
+
+    private static boolean isWordCharacter(char c) {
+        if (Character.isLetterOrDigit(c)) {
+            return true;
+        }
+        // Vowel signs in Bangla and other Indic scripts are combining marks, not letters
+        int type = Character.getType(c);
+        return type == Character.NON_SPACING_MARK
+            || type == Character.COMBINING_SPACING_MARK
+            || type == Character.ENCLOSING_MARK;
+    }
+
+    private static int classOf(char[] alphabet, int[] asciiClasses, char c) {
+        if (c < 128) {
+            return asciiClasses[c];
+        }
+        int index = Arrays.binarySearch(alphabet, c);
+        return index >= 0 ? index + 1 : 0;
+    }
+}
@@ -0,0 +1,220 @@
+package com.secureherai.secureherai_api.util;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Pure-Java conversion of uncompressed WAV audio to 16-bit mono PCM at a target rate.
+ *
+ * Handles the layouts phones and browsers actually produce (8/16/24/32-bit integer
+ * and float PCM, 1-8 channels, 8-48 kHz) without starting an ffmpeg process. Channels
+ * are averaged to mono and the rate is changed with a Blackman-windowed sinc filter;
+ * the filter taps are precomputed per phase, since every common rate pair reduces to
+ * a small rational ratio (44.1 kHz to 16 kHz is 160/441).
+ */
+public final class PcmResampler {
+
+    public static final int MIN_SAMPLE_RATE = 8000;
+    public static final int MAX_SAMPLE_RATE = 48000;
+    public static final int MAX_CHANNELS = 8;
+
+    // Zero crossings of the sinc on each side of the centre at the output rate
+    private static final int ZERO_CROSSINGS = 16;
+    // Keep the passband slightly below the output Nyquist so the window roll-off does not alias
+    private static final double PASSBAND = 0.95;
+    private static final int MAX_PHASES = 4096;
+
+    private PcmResampler() {
+    }
+
+    /**
+     * Whether the WAV layout can be converted here rather than by ffmpeg
+     */
+    public static boolean canConvert(WavFile wav) {
+        return (wav.isIntegerPcm() || wav.isFloatPcm())
+            && wav.getChannels() >= 1 && wav.getChannels() <= MAX_CHANNELS
+            && wav.getSampleRate() >= MIN_SAMPLE_RATE && wav.getSampleRate() <= MAX_SAMPLE_RATE;
+    }
+
+    /**
+     * Convert the data chunk of a parsed WAV file to 16-bit little-endian mono PCM
+     *
+     * @param bytes The complete WAV file
+     * @param wav The parsed header of {@code bytes}
+     * @param targetSampleRate Output sample rate in Hz
+     * @return Raw PCM samples without a header
+     */
+    public static byte[] toMonoPcm16(byte[] bytes, WavFile wav, int targetSampleRate) {
+        return toMonoPcm16(ByteBuffer.wrap(bytes), wav, targetSampleRate);
+    }
+
+    /**
+     * Convert the data chunk of a parsed WAV file held in a buffer, whose offsets are
+     * relative to the buffer's position
+     */
+    public static byte[] toMonoPcm16(ByteBuffer data, WavFile wav, int targetSampleRate) {
+        if (!canConvert(wav)) {
+            throw new IllegalArgumentException("Unsupported WAV layout: format " + wav.getAudioFormat()
+                + ", " + wav.getBitsPerSample() + " bits, " + wav.getChannels() + " channels, "
+                + wav.getSampleRate() + " Hz");
+        }
+        float[] mono = decodeMono(data, wav);
+        float[] resampled = resample(mono, wav.getSampleRate(), targetSampleRate);
+        return encodePcm16(resampled);
+    }
+
+    static float[] decodeMono(ByteBuffer data, WavFile wav) {
+        ByteBuffer buffer = data.slice().order(ByteOrder.LITTLE_ENDIAN);
+        int channels = wav.getChannels();
+        int bytesPerSample = wav.getBitsPerSample() / 8;
+        int frames = wav.getDataLength() / wav.getBlockAlign();
+        boolean floating = wav.isFloatPcm();
+        float[] mono = new float[frames];
+
+        int position = wav.getDataOffset();
+        for (int frame = 0; frame < frames; frame++) {
+            float sum = 0f;
+            for (int channel = 0; channel < channels; channel++) {
+                sum += readSample(buffer, position, bytesPerSample, floating);
+                position += bytesPerSample;
+            }
+            mono[frame] = sum / channels;
+        }
+        return mono;
+    }
+
+    private static float readSample(ByteBuffer buffer, int position, int bytesPerSample, boolean floating) {
+        if (floating) {
+            return bytesPerSample == 4 ? buffer.getFloat(position) : (float) buffer.getDouble(position);
+        }
+        switch (bytesPerSample) {
+            case 1:
+                // 8-bit WAV is unsigned with a 128 midpoint
+                return ((buffer.get(position) & 0xFF) - 128) / 128f;
+            case 2:
+                return buffer.getShort(position) / 32768f;
+            case 3:
+                int value = (buffer.get(position) & 0xFF)
+                    | (buffer.get(position + 1) & 0xFF) << 8
+                    | buffer.get(position + 2) << 16;
+                return value / 8388608f;
+            default:
+                return buffer.getInt(position) / 2147483648f;
+        }
+    }
+
+    static float[] resample(float[] input, int inputRate, int outputRate) {
+        if (inputRate == outputRate || input.length == 0) {
+            return input;
+        }
+
+        int gcd = gcd(inputRate, outputRate);
+        int up = outputRate / gcd;     // output samples per step
+        int down = inputRate / gcd;    // input samples per step
+        int outputLength = (int) ((long) input.length * up / down);
+
+        // Cutoff relative to the input Nyquist; widen the kernel when downsampling
+        double cutoff = PASSBAND * Math.min(1.0, (double) outputRate / inputRate);
+        int halfWidth = (int) Math.ceil(ZERO_CROSSINGS / cutoff);
+        int taps = 2 * halfWidth;
+
+        float[][] table = up <= MAX_PHASES ? buildTable(up, halfWidth, cutoff) : null;
+        float[] weights = table == null ? new float[taps] : null;
+        float[] output = new float[outputLength];
+
+        for (int i = 0; i < outputLength; i++) {
+            long scaled = (long) i * down;
+            int centre = (int) (scaled / up);
+            int phase = (int) (scaled % up);
+            float[] kernel;
+            if (table != null) {
+                kernel = table[phase];
+            } else {
+                fillKernel(weights, (double) phase / up, halfWidth, cutoff);
+                kernel = weights;
+            }
+
+            int first = centre - halfWidth + 1;
+            float sum = 0f;
+            if (first >= 0 && first + taps <= input.length) {
+                for (int t = 0; t < taps; t++) {
+                    sum += input[first + t] * kernel[t];
+                }
+            } else {
+                // Near the edges treat samples outside the clip as silence
+                for (int t = 0; t < taps; t++) {
+                    int index = first + t;
+                    if (index >= 0 && index < input.length) {
+                        sum += input[index] * kernel[t];
+                    }
+                }
+            }
+            output[i] = sum;
+        }
+        return output;
+    }
+
+    private static float[][] buildTable(int phases, int halfWidth, double cutoff) {
+        float[][] table = new float[phases][2 * halfWidth];
+        for (int phase = 0; phase < phases; phase++) {
+            fillKernel(table[phase], (double) phase / phases, halfWidth, cutoff);
+        }
+        return table;
+    }
+
+    /**
+     * Weights for the taps around an output position {@code fraction} past its centre sample,
+     * normalised to unit DC gain
+     */
+    private static void fillKernel(float[] kernel, double fraction, int halfWidth, double cutoff) {
+        double total = 0;
+        for (int t = 0; t < kernel.length; t++) {
+            double distance = fraction + halfWidth - 1 - t;
+            double weight = sinc(cutoff * distance) * blackman(distance / halfWidth);
+            kernel[t] = (float) weight;
+            total += weight;
+        }
+        for (int t = 0; t < kernel.length; t++) {
+            kernel[t] = (float) (kernel[t] / total);
+        }
+    }
+
+    private static double sinc(double x) {
+        if (Math.abs(x) < 1e-9) {
+            return 1.0;
+        }
+        double px = Math.PI * x;
+        return Math.sin(px) / px;
+    }
+
+    private static double blackman(double x) {
+        if (Math.abs(x) >= 1.0) {
+            return 0.0;
+        }
+        return 0.42 + 0.5 * Math.cos(Math.PI * x) + 0.08 * Math.cos(2 * Math.PI * x);
+    }
+
+    static byte[] encodePcm16(float[] samples) {
+        byte[] pcm = new byte[samples.length * 2];
+        for (int i = 0; i < samples.length; i++) {
+            int value = Math.round(samples[i] * 32767f);
+            if (value > Short.MAX_VALUE) {
+                value = Short.MAX_VALUE;
+            } else if (value < Short.MIN_VALUE) {
+                value = Short.MIN_VALUE;
+            }
+            pcm[2 * i] = (byte) value;
+            pcm[2 * i + 1] = (byte) (value >> 8);
+        }
+        return pcm;
+    }
+
+    private static int gcd(int a, int b) {
+        while (b != 0) {
+            int t = a % b;
+            a = b;
+            b = t;
+        }
+        return a;
+    }
+}
@@ -0,0 +1,285 @@
+package com.secureherai.secureherai_api.util;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Bounded pool of expensive, single-use resources that are created ahead of time,
+ * split into sub-pools by key (e.g. recognition language).
+ *
+ * A borrowed resource is used once and closed by the caller; the pool refills itself
+ * in the background so the next caller again finds a ready one. Idle resources are
+ * health checked periodically and replaced once unhealthy or too old. Keys beyond
+ * {@code maxKeys} are not pooled and get a freshly created resource every time.
+ */
+@Slf4j
+public class PrewarmedPool<T extends PrewarmedPool.Resource> {
+
+    /**
+     * A pooled resource
+     */
+    public interface Resource extends AutoCloseable {
+        boolean isHealthy();
+
+        @Override
+        void close();
+    }
+
+    private final String name;
+    private final Function<String, T> factory;
+    private final int sizePerKey;
+    private final int maxKeys;
+    private final long maxIdleMillis;
+    private final ScheduledExecutorService maintenance;
+
+    private final Map<String, SubPool<T>> subPools = new ConcurrentHashMap<>();
+
+    private final AtomicLong warmHits = new AtomicLong();
+    private final AtomicLong coldMisses = new AtomicLong();
+    private final AtomicLong created = new AtomicLong();
+    private final AtomicLong discarded = new AtomicLong();
+    private final AtomicLong creationFailures = new AtomicLong();
+
+    /**
+     * @param name Pool name for logs and the maintenance thread
+     * @param factory Creates a ready-to-use resource for a key; may throw
+     * @param sizePerKey Idle resources kept per key
+     * @param maxKeys Number of keys that get a sub-pool
+     * @param maxIdleMillis Idle resources older than this are replaced
+     */
+    public PrewarmedPool(String name, Function<String, T> factory, int sizePerKey, int maxKeys, long maxIdleMillis) {
+        this.name = name;
+        this.factory = factory;
+        this.sizePerKey = Math.max(1, sizePerKey);
+        this.maxKeys = Math.max(0, maxKeys);
+        this.maxIdleMillis = maxIdleMillis;
+
+        AtomicInteger counter = new AtomicInteger();
+        this.maintenance = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, name + "-pool-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Fill the sub-pools for the given keys in the background
+     */
+    public void warmUp(Collection<String> keys) {
+        for (String key : keys) {
+            SubPool<T> subPool = subPool(key);
+            if (subPool != null) {
+                scheduleRefill(key, subPool);
+            }
+        }
+    }
+
+    /**
+     * Periodically drop unhealthy or expired idle resources and top the sub-pools up again
+     */
+    public void startHealthChecks(long intervalMillis) {
+        if (intervalMillis > 0) {
+            maintenance.scheduleWithFixedDelay(this::healthCheck, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Take a ready resource for the key, or create one if none is idle
+     *
+     * @throws RuntimeException If a resource had to be created and creation failed
+     */
+    public Lease<T> acquire(String key) {
+        SubPool<T> subPool = subPool(key);
+        if (subPool != null) {
+            Entry<T> entry;
+            while ((entry = subPool.idle.poll()) != null) {
+                if (isUsable(entry, System.currentTimeMillis())) {
+                    warmHits.incrementAndGet();
+                    scheduleRefill(key, subPool);
+                    return new Lease<>(entry.resource, true);
+                }
+                discard(entry);
+            }
+            scheduleRefill(key, subPool);
+        }
+
+        coldMisses.incrementAndGet();
+        T resource = factory.apply(key);
+        created.incrementAndGet();
+        return new Lease<>(resource, false);
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> idle = new LinkedHashMap<>();
+        subPools.forEach((key, subPool) -> idle.put(key, subPool.idle.size()));
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("sizePerKey", sizePerKey);
+        stats.put("idle", idle);
+        stats.put("warmHits", warmHits.get());
+        stats.put("coldMisses", coldMisses.get());
+        stats.put("created", created.get());
+        stats.put("discarded", discarded.get());
+        stats.put("creationFailures", creationFailures.get());
+        return stats;
+    }
+
+    public void close() {
+        maintenance.shutdownNow();
+        for (SubPool<T> subPool : subPools.values()) {
+            Entry<T> entry;
+            while ((entry = subPool.idle.poll()) != null) {
+                closeQuietly(entry.resource);
+            }
+        }
+    }
+
+    public void healthCheck() {
+        long now = System.currentTimeMillis();
+        subPools.forEach((key, subPool) -> {
+            List<Entry<T>> stale = new ArrayList<>();
+            subPool.idle.removeIf(entry -> {
+                if (isUsable(entry, now)) {
+                    return false;
+                }
+                stale.add(entry);
+                return true;
+            });
+            stale.forEach(this::discard);
+            if (!stale.isEmpty()) {
+                log.debug("Replaced {} stale {} resources for {}", stale.size(), name, key);
+            }
+            fill(key, subPool);
+        });
+    }
+
+    private SubPool<T> subPool(String key) {
+        SubPool<T> subPool = subPools.get(key);
+        if (subPool != null) {
+            return subPool;
+        }
+        synchronized (subPools) {
+            if (subPools.size() >= maxKeys && !subPools.containsKey(key)) {
+                return null;
+            }
+            return subPools.computeIfAbsent(key, k -> new SubPool<>(sizePerKey));
+        }
+    }
+
+    private void scheduleRefill(String key, SubPool<T> subPool) {
+        if (subPool.refilling.compareAndSet(false, true)) {
+            try {
+                maintenance.execute(() -> {
+                    try {
+                        fill(key, subPool);
+                    } finally {
+                        subPool.refilling.set(false);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                // Pool is shutting down
+                subPool.refilling.set(false);
+            }
+        }
+    }
+
+    private void fill(String key, SubPool<T> subPool) {
+        while (subPool.idle.remainingCapacity() > 0) {
+            T resource;
+            try {
+                resource = factory.apply(key);
+                created.incrementAndGet();
+            } catch (RuntimeException e) {
+                // Try again on the next acquire or health check
+                creationFailures.incrementAndGet();
+                log.warn("Could not pre-create {} resource for {}: {}", name, key, e.getMessage());
+                return;
+            }
+            if (!subPool.idle.offer(new Entry<>(resource, System.currentTimeMillis()))) {
+                closeQuietly(resource);
+                return;
+            }
+        }
+    }
+
+    private boolean isUsable(Entry<T> entry, long now) {
+        return now - entry.createdAt < maxIdleMillis && entry.resource.isHealthy();
+    }
+
+    private void discard(Entry<T> entry) {
+        discarded.incrementAndGet();
+        closeQuietly(entry.resource);
+    }
+
+    private void closeQuietly(T resource) {
+        try {
+            resource.close();
+        } catch (RuntimeException e) {
+            log.debug("Error closing {} resource: {}", name, e.getMessage());
+        }
+    }
+
+    /**
+     * A borrowed resource; closing the lease closes the resource
+     */
+    public static class Lease<T extends Resource> implements AutoCloseable {
+        private final T resource;
+        private final boolean warm;
+
+        Lease(T resource, boolean warm) {
+            this.resource = resource;
+            this.warm = warm;
+        }
+
+        public T get() {
+            return resource;
+        }
+
+        /**
+         * Whether the resource came from the pool rather than being created for this call
+         */
+        public boolean isWarm() {
+            return warm;
+        }
+
+        @Override
+        public void close() {
+            resource.close();
+        }
+    }
+
+    private static class SubPool<T> {
+        private final BlockingQueue<Entry<T>> idle;
+        private final AtomicBoolean refilling = new AtomicBoolean();
+
+        SubPool(int size) {
+            this.idle = new ArrayBlockingQueue<>(size);
+        }
+    }
+
+    private static class Entry<T> {
+        private final T resource;
+        private final long createdAt;
+
+        Entry(T resource, long createdAt) {
+            this.resource = resource;
+            this.createdAt = createdAt;
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package com.secureherai.secureherai_api.util;
+
+import jakarta.mail.MessagingException;
+import jakarta.mail.Session;
+import jakarta.mail.Transport;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Open SMTP connections kept for reuse.
+ *
+ * Sending through {@code JavaMailSender.send} connects, authenticates (after STARTTLS),
+ * sends and disconnects every time, which costs several round trips per e-mail. Here a
+ * sender borrows a connected {@link Transport}, sends any number of messages over it and
+ * hands it back. A connection is checked with a NOOP before it is lent out again and
+ * closed once it has been idle for longer than the server is likely to keep it open.
+ * Thread safe; each borrowed transport is used by one thread at a time.
+ */
+@Slf4j
+public class SmtpConnectionPool implements AutoCloseable {
+
+    private final Session session;
+    private final String protocol;
+    private final String host;
+    private final int port;
+    private final String username;
+    private final String password;
+    private final int maxIdleConnections;
+    private final long maxIdleMillis;
+
+    private final Deque<IdleConnection> idle = new ArrayDeque<>();
+    private boolean closed;
+
+    private final AtomicLong opened = new AtomicLong();
+    private final AtomicLong reused = new AtomicLong();
+    private final AtomicLong discarded = new AtomicLong();
+
+    /**
+     * @param port Server port, or -1 for the protocol's default
+     * @param username User to log in as, or null/empty for no authentication
+     * @param maxIdleConnections Most connections kept open while unused
+     * @param maxIdleMillis How long an unused connection is kept open
+     */
+    public SmtpConnectionPool(Session session, String protocol, String host, int port, String username,
+                              String password, int maxIdleConnections, long maxIdleMillis) {
+        this.session = session;
+        this.protocol = protocol;
+        this.host = host;
+        this.port = port;
+        this.username = username == null || username.isEmpty() ? null : username;
+        this.password = password == null || password.isEmpty() ? null : password;
+        this.maxIdleConnections = maxIdleConnections;
+        this.maxIdleMillis = maxIdleMillis;
+    }
+
+    public Session getSession() {
+        return session;
+    }
+
+    /**
+     * A connected transport, reused if one is idle
+     *
+     * @throws MessagingException If a new connection cannot be opened
+     */
+    public Transport borrow() throws MessagingException {
+        IdleConnection connection;
+        while ((connection = pollIdle()) != null) {
+            // isConnected() sends a NOOP, which catches connections the server has dropped
+            if (System.currentTimeMillis() - connection.idleSince <= maxIdleMillis && connection.transport.isConnected()) {
+                reused.incrementAndGet();
+                return connection.transport;
+            }
+            discard(connection.transport);
+        }
+        Transport transport = session.getTransport(protocol);
+        transport.connect(host, port, username, password);
+        opened.incrementAndGet();
+        return transport;
+    }
+
+    /**
+     * Hand a transport back
+     *
+     * @param reusable False after an error that may have left the connection in an unknown state
+     */
+    public void release(Transport transport, boolean reusable) {
+        if (reusable) {
+            synchronized (this) {
+                if (!closed && idle.size() < maxIdleConnections) {
+                    idle.push(new IdleConnection(transport, System.currentTimeMillis()));
+                    return;
+                }
+            }
+        }
+        discard(transport);
+    }
+
+    /**
+     * Close the connections that have been idle for too long
+     *
+     * @return Number of connections closed
+     */
+    public int closeIdle() {
+        long now = System.currentTimeMillis();
+        Deque<Transport> expired = new ArrayDeque<>();
+        synchronized (this) {
+            for (Iterator<IdleConnection> it = idle.iterator(); it.hasNext(); ) {
+                IdleConnection connection = it.next();
+                if (now - connection.idleSince > maxIdleMillis) {
+                    it.remove();
+                    expired.add(connection.transport);
+                }
+            }
+        }
+        expired.forEach(this::discard);
+        return expired.size();
+    }
+
+    public synchronized int idleCount() {
+        return idle.size();
+    }
+
+    @Override
+    public void close() {
+        Deque<IdleConnection> open;
+        synchronized (this) {
+            closed = true;
+            open = new ArrayDeque<>(idle);
+            idle.clear();
+        }
+        open.forEach(connection -> discard(connection.transport));
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("idle", idleCount());
+        stats.put("opened", opened.get());
+        stats.put("reused", reused.get());
+        stats.put("discarded", discarded.get());
+        return stats;
+    }
+
+    private synchronized IdleConnection pollIdle() {
+        // Most recently used first: the one least likely to have timed out
+        return idle.pollFirst();
+    }
+
+    private void discard(Transport transport) {
+        discarded.incrementAndGet();
+        try {
+            transport.close();
+        } catch (MessagingException e) {
+            log.debug("Error closing SMTP connection: {}", e.getMessage());
+        }
+    }
+
+    private static class IdleConnection {
+        private final Transport transport;
+        private final long idleSince;
+
+        IdleConnection(Transport transport, long idleSince) {
+            this.transport = transport;
+            this.idleSince = idleSince;
+        }
+    }
+}
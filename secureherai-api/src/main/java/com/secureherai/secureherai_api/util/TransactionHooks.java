@@ -0,0 +1,83 @@
+package com.secureherai.secureherai_api.util;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs deferred work once the current transaction has committed.
+ *
+ * {@link #runAfterCommit} suits short follow-ups such as waking a worker or arming a
+ * timer for a row that must be visible first. {@link #runAsyncAfterCommit} is used for
+ * fan-out work that is moved off the request thread when its deadline has
+ * passed: the background task reads the alert the request just wrote, so it must not
+ * start before that row is visible.
+ *
+ * Background tasks run on a small pool of their own rather than the common fork-join
+ * pool, where blocking database and mail work would starve parallel streams and other
+ * async callers. The queue is bounded; once it is full the committing thread runs the
+ * task itself.
+ */
+@Slf4j
+public final class TransactionHooks {
+
+    private static final int WORKERS = 4;
+    private static final int QUEUE_CAPACITY = 256;
+
+    private static final ThreadPoolExecutor EXECUTOR = newExecutor();
+
+    private TransactionHooks() {
+    }
+
+    /**
+     * Run the action on the current thread after the current transaction commits, or
+     * right away if there is no transaction. Nothing runs if the transaction rolls back.
+     */
+    public static void runAfterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    /**
+     * Run the task in the background after the current transaction commits, or right
+     * away if there is no transaction. Nothing runs if the transaction rolls back.
+     */
+    public static void runAsyncAfterCommit(Runnable task) {
+        runAfterCommit(() -> runAsync(task));
+    }
+
+    private static void runAsync(Runnable task) {
+        EXECUTOR.execute(() -> {
+            try {
+                task.run();
+            } catch (RuntimeException | Error e) {
+                log.error("Deferred task failed", e);
+            }
+        });
+    }
+
+    private static ThreadPoolExecutor newExecutor() {
+        AtomicInteger counter = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(WORKERS, WORKERS, 60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(QUEUE_CAPACITY), runnable -> {
+                    Thread thread = new Thread(runnable, "after-commit-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+}
@@ -0,0 +1,199 @@
+package com.secureherai.secureherai_api.util;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * Frame-level energy and zero-crossing voice activity detector for 16-bit PCM.
+ *
+ * Audio is cut into 20 ms frames. A frame counts as speech when its energy is well
+ * above the clip's own noise floor (and above an absolute floor for near-silent
+ * recordings) and its zero-crossing rate is below what broadband noise produces.
+ * Speech runs shorter than a few frames (clicks, taps) are ignored. The result says
+ * whether the clip contains enough speech to be worth transcribing and where it
+ * starts and ends, so leading and trailing silence can be trimmed.
+ *
+ * Instances are immutable and thread-safe.
+ */
+public final class VoiceActivityDetector {
+
+    private static final int FRAME_MILLIS = 20;
+    private static final double SILENCE_DB = -100.0;
+    private static final double FULL_SCALE_SQUARED = 32768.0 * 32768.0;
+
+    private final double absoluteThresholdDb;
+    private final double noiseMarginDb;
+    private final double maxThresholdDb;
+    private final double maxZeroCrossingRate;
+    private final int minRunFrames;
+    private final int minSpeechMillis;
+    private final int paddingMillis;
+
+    /**
+     * @param absoluteThresholdDb Frames quieter than this (dBFS) are never speech
+     * @param noiseMarginDb How far above the estimated noise floor speech must be
+     * @param maxThresholdDb Upper bound for the adaptive threshold, so clips that are all speech still pass
+     * @param maxZeroCrossingRate Frames crossing zero more often than this (per sample) look like noise
+     * @param minRunFrames Shortest run of speech frames that counts
+     * @param minSpeechMillis Total speech needed for the clip to be worth transcribing
+     * @param paddingMillis Audio kept before the first and after the last speech frame
+     */
+    public VoiceActivityDetector(double absoluteThresholdDb, double noiseMarginDb, double maxThresholdDb,
+                                 double maxZeroCrossingRate, int minRunFrames, int minSpeechMillis, int paddingMillis) {
+        this.absoluteThresholdDb = absoluteThresholdDb;
+        this.noiseMarginDb = noiseMarginDb;
+        this.maxThresholdDb = maxThresholdDb;
+        this.maxZeroCrossingRate = maxZeroCrossingRate;
+        this.minRunFrames = Math.max(1, minRunFrames);
+        this.minSpeechMillis = minSpeechMillis;
+        this.paddingMillis = paddingMillis;
+    }
+
+    /**
+     * Analyze interleaved 16-bit little-endian PCM. Only the first channel is inspected.
+     *
+     * @param data Buffer holding the samples
+     * @param offset Offset of the first sample
+     * @param length Number of bytes of sample data
+     * @param sampleRate Samples per second
+     * @param channels Interleaved channel count
+     */
+    public Result analyze(byte[] data, int offset, int length, int sampleRate, int channels) {
+        return analyze(ByteBuffer.wrap(data), offset, length, sampleRate, channels);
+    }
+
+    /**
+     * Analyze interleaved 16-bit little-endian PCM held in a buffer (heap or direct).
+     * Offsets are absolute indices into the buffer; its position is not changed.
+     */
+    public Result analyze(ByteBuffer data, int offset, int length, int sampleRate, int channels) {
+        ByteBuffer samples = data.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        int blockAlign = 2 * channels;
+        int totalSamples = length / blockAlign;
+        int frameSamples = Math.max(1, sampleRate * FRAME_MILLIS / 1000);
+        int frameCount = totalSamples / frameSamples;
+        long totalMillis = totalSamples * 1000L / sampleRate;
+
+        if (frameCount == 0) {
+            return new Result(false, 0, 0, 0, totalMillis, SILENCE_DB, SILENCE_DB);
+        }
+
+        double[] energyDb = new double[frameCount];
+        double[] zeroCrossingRate = new double[frameCount];
+        for (int frame = 0; frame < frameCount; frame++) {
+            int frameStart = offset + frame * frameSamples * blockAlign;
+            double sumSquares = 0;
+            int crossings = 0;
+            int previous = 0;
+            for (int i = 0; i < frameSamples; i++) {
+                int position = frameStart + i * blockAlign;
+                int sample = samples.getShort(position);
+                sumSquares += (double) sample * sample;
+                if (i > 0 && (sample >= 0) != (previous >= 0)) {
+                    crossings++;
+                }
+                previous = sample;
+            }
+            double meanSquare = sumSquares / frameSamples;
+            energyDb[frame] = meanSquare == 0 ? SILENCE_DB : Math.max(SILENCE_DB, 10 * Math.log10(meanSquare / FULL_SCALE_SQUARED));
+            zeroCrossingRate[frame] = (double) crossings / frameSamples;
+        }
+
+        // Noise floor: the 10th percentile of frame energies
+        double[] sorted = energyDb.clone();
+        Arrays.sort(sorted);
+        double noiseFloorDb = sorted[frameCount / 10];
+        double thresholdDb = Math.min(maxThresholdDb, Math.max(absoluteThresholdDb, noiseFloorDb + noiseMarginDb));
+
+        // Keep only sufficiently long runs of speech frames
+        int firstSpeechFrame = -1;
+        int lastSpeechFrame = -1;
+        int speechFrames = 0;
+        int runStart = -1;
+        for (int frame = 0; frame <= frameCount; frame++) {
+            boolean speech = frame < frameCount
+                && energyDb[frame] > thresholdDb
+                && zeroCrossingRate[frame] <= maxZeroCrossingRate;
+            if (speech && runStart < 0) {
+                runStart = frame;
+            } else if (!speech && runStart >= 0) {
+                int runLength = frame - runStart;
+                if (runLength >= minRunFrames) {
+                    if (firstSpeechFrame < 0) {
+                        firstSpeechFrame = runStart;
+                    }
+                    lastSpeechFrame = frame - 1;
+                    speechFrames += runLength;
+                }
+                runStart = -1;
+            }
+        }
+
+        long speechMillis = (long) speechFrames * FRAME_MILLIS;
+        if (firstSpeechFrame < 0 || speechMillis < minSpeechMillis) {
+            return new Result(false, 0, 0, speechMillis, totalMillis, noiseFloorDb, thresholdDb);
+        }
+
+        int paddingFrames = paddingMillis / FRAME_MILLIS;
+        int startFrame = Math.max(0, firstSpeechFrame - paddingFrames);
+        int endFrame = lastSpeechFrame + 1 + paddingFrames;
+        int startByte = startFrame * frameSamples * blockAlign;
+        // The tail beyond the last whole frame is kept when the padding reaches the end
+        int endByte = endFrame >= frameCount ? totalSamples * blockAlign : endFrame * frameSamples * blockAlign;
+
+        return new Result(true, startByte, endByte, speechMillis, totalMillis, noiseFloorDb, thresholdDb);
+    }
+
+    /**
+     * Outcome of analyzing one clip. Byte offsets are relative to the analyzed data.
+     */
+    public static final class Result {
+        private final boolean speechDetected;
+        private final int speechStartByte;
+        private final int speechEndByte;
+        private final long speechMillis;
+        private final long totalMillis;
+        private final double noiseFloorDb;
+        private final double thresholdDb;
+
+        Result(boolean speechDetected, int speechStartByte, int speechEndByte, long speechMillis,
+               long totalMillis, double noiseFloorDb, double thresholdDb) {
+            this.speechDetected = speechDetected;
+            this.speechStartByte = speechStartByte;
+            this.speechEndByte = speechEndByte;
+            this.speechMillis = speechMillis;
+            this.totalMillis = totalMillis;
+            this.noiseFloorDb = noiseFloorDb;
+            this.thresholdDb = thresholdDb;
+        }
+
+        public boolean isSpeechDetected() {
+            return speechDetected;
+        }
+
+        public int getSpeechStartByte() {
+            return speechStartByte;
+        }
+
+        public int getSpeechEndByte() {
+            return speechEndByte;
+        }
+
+        public long getSpeechMillis() {
+            return speechMillis;
+        }
+
+        public long getTotalMillis() {
+            return totalMillis;
+        }
+
+        public double getNoiseFloorDb() {
+            return noiseFloorDb;
+        }
+
+        public double getThresholdDb() {
+            return thresholdDb;
+        }
+    }
+}
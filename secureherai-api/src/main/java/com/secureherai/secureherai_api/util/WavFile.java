@@ -0,0 +1,178 @@
+package com.secureherai.secureherai_api.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Minimal RIFF/WAVE header parser and writer for PCM audio.
+ *
+ * Only what the speech path needs: locate the fmt and data chunks, describe the
+ * sample layout, and write a canonical 44-byte header for PCM output.
+ */
+public final class WavFile {
+
+    public static final int HEADER_SIZE = 44;
+
+    private static final int FORMAT_PCM = 1;
+    private static final int FORMAT_IEEE_FLOAT = 3;
+    private static final int FORMAT_EXTENSIBLE = 0xFFFE;
+
+    private final int audioFormat;
+    private final int channels;
+    private final int sampleRate;
+    private final int bitsPerSample;
+    private final int dataOffset;
+    private final int dataLength;
+
+    private WavFile(int audioFormat, int channels, int sampleRate, int bitsPerSample, int dataOffset, int dataLength) {
+        this.audioFormat = audioFormat;
+        this.channels = channels;
+        this.sampleRate = sampleRate;
+        this.bitsPerSample = bitsPerSample;
+        this.dataOffset = dataOffset;
+        this.dataLength = dataLength;
+    }
+
+    /**
+     * Parse the header of a complete WAV file held in memory
+     *
+     * @throws IOException If the bytes are not a WAV file with fmt and data chunks
+     */
+    public static WavFile parse(byte[] bytes, int length) throws IOException {
+        return parse(ByteBuffer.wrap(bytes, 0, length));
+    }
+
+    /**
+     * Parse the header of a complete WAV file held in a buffer, from its position to
+     * its limit. Offsets are relative to the buffer's position, which is not changed.
+     *
+     * @throws IOException If the bytes are not a WAV file with fmt and data chunks
+     */
+    public static WavFile parse(ByteBuffer data) throws IOException {
+        ByteBuffer buffer = data.slice().order(ByteOrder.LITTLE_ENDIAN);
+        int length = buffer.remaining();
+        if (length < 12 || buffer.getInt(0) != 0x46464952 || buffer.getInt(8) != 0x45564157) { // "RIFF", "WAVE"
+            throw new IOException("Not a RIFF/WAVE file");
+        }
+
+        int audioFormat = -1;
+        int channels = 0;
+        int sampleRate = 0;
+        int bitsPerSample = 0;
+        int position = 12;
+
+        while (position + 8 <= length) {
+            int chunkId = buffer.getInt(position);
+            long chunkSize = Integer.toUnsignedLong(buffer.getInt(position + 4));
+            int body = position + 8;
+
+            if (chunkId == 0x20746d66 && body + 16 <= length) { // "fmt "
+                audioFormat = Short.toUnsignedInt(buffer.getShort(body));
+                channels = Short.toUnsignedInt(buffer.getShort(body + 2));
+                sampleRate = buffer.getInt(body + 4);
+                bitsPerSample = Short.toUnsignedInt(buffer.getShort(body + 14));
+                if (audioFormat == FORMAT_EXTENSIBLE && chunkSize >= 26 && body + 26 <= length) {
+                    // The real format code is the first two bytes of the sub-format GUID
+                    audioFormat = Short.toUnsignedInt(buffer.getShort(body + 24));
+                }
+            } else if (chunkId == 0x61746164) { // "data"
+                if (audioFormat < 0) {
+                    throw new IOException("WAV data chunk before fmt chunk");
+                }
+                // Streaming encoders may leave the size unset; trust the file length instead
+                long available = length - body;
+                int dataLength = (int) Math.min(chunkSize, available);
+                return new WavFile(audioFormat, channels, sampleRate, bitsPerSample, body, dataLength);
+            }
+
+            // Chunks are word aligned
+            position = (int) Math.min((long) body + chunkSize + (chunkSize & 1), Integer.MAX_VALUE);
+        }
+
+        throw new IOException("WAV file has no data chunk");
+    }
+
+    /**
+     * Write a canonical PCM header for the given layout
+     */
+    public static void writeHeader(byte[] target, int sampleRate, int channels, int bitsPerSample, int dataLength) {
+        ByteBuffer buffer = ByteBuffer.wrap(target, 0, HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        int blockAlign = channels * bitsPerSample / 8;
+        buffer.putInt(0x46464952);              // "RIFF"
+        buffer.putInt(36 + dataLength);
+        buffer.putInt(0x45564157);              // "WAVE"
+        buffer.putInt(0x20746d66);              // "fmt "
+        buffer.putInt(16);
+        buffer.putShort((short) FORMAT_PCM);
+        buffer.putShort((short) channels);
+        buffer.putInt(sampleRate);
+        buffer.putInt(sampleRate * blockAlign);
+        buffer.putShort((short) blockAlign);
+        buffer.putShort((short) bitsPerSample);
+        buffer.putInt(0x61746164);              // "data"
+        buffer.putInt(dataLength);
+    }
+
+    /**
+     * Whether samples are signed 16-bit little-endian PCM, the layout Azure expects
+     */
+    public boolean isPcm16() {
+        return audioFormat == FORMAT_PCM && bitsPerSample == 16 && channels > 0 && sampleRate > 0;
+    }
+
+    /**
+     * Whether this is the exact layout Azure expects: 16 kHz, mono, 16-bit PCM
+     */
+    public boolean isCanonical(int targetSampleRate) {
+        return isPcm16() && channels == 1 && sampleRate == targetSampleRate;
+    }
+
+    /**
+     * Whether samples are integer PCM of a width we can decode (8, 16, 24 or 32 bits)
+     */
+    public boolean isIntegerPcm() {
+        return audioFormat == FORMAT_PCM
+            && (bitsPerSample == 8 || bitsPerSample == 16 || bitsPerSample == 24 || bitsPerSample == 32);
+    }
+
+    /**
+     * Whether samples are 32- or 64-bit IEEE floats
+     */
+    public boolean isFloatPcm() {
+        return audioFormat == FORMAT_IEEE_FLOAT && (bitsPerSample == 32 || bitsPerSample == 64);
+    }
+
+    public int getBlockAlign() {
+        return channels * bitsPerSample / 8;
+    }
+
+    public long getDurationMillis() {
+        int blockAlign = getBlockAlign();
+        return blockAlign == 0 || sampleRate == 0 ? 0 : (dataLength / blockAlign) * 1000L / sampleRate;
+    }
+
+    public int getAudioFormat() {
+        return audioFormat;
+    }
+
+    public int getChannels() {
+        return channels;
+    }
+
+    public int getSampleRate() {
+        return sampleRate;
+    }
+
+    public int getBitsPerSample() {
+        return bitsPerSample;
+    }
+
+    public int getDataOffset() {
+        return dataOffset;
+    }
+
+    public int getDataLength() {
+        return dataLength;
+    }
+}
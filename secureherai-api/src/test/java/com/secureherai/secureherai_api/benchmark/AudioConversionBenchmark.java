@@ -0,0 +1,159 @@
+package com.secureherai.secureherai_api.benchmark;
+
+import com.secureherai.secureherai_api.util.AudioFormatConverter;
+import com.secureherai.secureherai_api.util.FfmpegWorkerPool;
+import com.secureherai.secureherai_api.util.WavFile;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+import ws.schild.jave.Encoder;
+import ws.schild.jave.MultimediaObject;
+import ws.schild.jave.encode.AudioAttributes;
+import ws.schild.jave.encode.EncodingAttributes;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-file latency of the audio conversion paths:
+ * <ul>
+ *   <li>WAV resampled in-process vs. the same WAV through a freshly spawned ffmpeg (JAVE)</li>
+ *   <li>MP3 through a freshly spawned ffmpeg (JAVE) vs. a pre-spawned pipe worker</li>
+ * </ul>
+ *
+ * Run from the IDE via {@link #main}, or after {@code mvn test-compile} with the test
+ * classpath: {@code java -cp ... com.secureherai.secureherai_api.benchmark.AudioConversionBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+public class AudioConversionBenchmark {
+
+    @Param({"3", "10"})
+    private int seconds;
+
+    private Path workDir;
+    private File wavInput;
+    private File mp3Input;
+    private AudioFormatConverter converter;
+    private FfmpegWorkerPool workerPool;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        workDir = Files.createTempDirectory("audio-bench");
+        wavInput = workDir.resolve("clip-44k-stereo.wav").toFile();
+        Files.write(wavInput.toPath(), toneWav(44100, 2, seconds));
+
+        mp3Input = workDir.resolve("clip.mp3").toFile();
+        AudioAttributes audio = new AudioAttributes();
+        audio.setCodec("libmp3lame");
+        audio.setBitRate(64000);
+        EncodingAttributes attributes = new EncodingAttributes();
+        attributes.setOutputFormat("mp3");
+        attributes.setAudioAttributes(audio);
+        new Encoder().encode(new MultimediaObject(wavInput), mp3Input, attributes);
+
+        converter = new AudioFormatConverter();
+        workerPool = new FfmpegWorkerPool();
+        ReflectionTestUtils.setField(workerPool, "enabled", true);
+        ReflectionTestUtils.setField(workerPool, "size", 4);
+        ReflectionTestUtils.setField(workerPool, "timeoutSeconds", 30L);
+        ReflectionTestUtils.setField(workerPool, "maxIdleSeconds", 600L);
+        ReflectionTestUtils.setField(workerPool, "healthCheckIntervalSeconds", 60L);
+        ReflectionTestUtils.setField(workerPool, "ffmpegPath", "");
+        workerPool.start();
+        // Let the pool finish spawning before measuring
+        Thread.sleep(1000);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        workerPool.shutdown();
+        try (var files = Files.list(workDir)) {
+            files.forEach(path -> path.toFile().delete());
+        }
+        Files.deleteIfExists(workDir);
+    }
+
+    @Benchmark
+    public long wavInProcess() throws Exception {
+        File output = converter.convertToWav(wavInput);
+        long length = output.length();
+        converter.cleanupTempFile(output);
+        return length;
+    }
+
+    @Benchmark
+    public long wavSpawnedFfmpeg() throws Exception {
+        return encodeWithJave(wavInput);
+    }
+
+    @Benchmark
+    public long mp3SpawnedFfmpeg() throws Exception {
+        return encodeWithJave(mp3Input);
+    }
+
+    @Benchmark
+    public long mp3PooledWorker() throws Exception {
+        return workerPool.transcode(mp3Input).length;
+    }
+
+    private long encodeWithJave(File input) throws Exception {
+        AudioAttributes audio = new AudioAttributes();
+        audio.setCodec("pcm_s16le");
+        audio.setChannels(1);
+        audio.setSamplingRate(16000);
+        EncodingAttributes attributes = new EncodingAttributes();
+        attributes.setOutputFormat("wav");
+        attributes.setAudioAttributes(audio);
+
+        File output = Files.createTempFile(workDir, "jave", ".wav").toFile();
+        try {
+            new Encoder().encode(new MultimediaObject(input), output, attributes);
+            return output.length();
+        } finally {
+            output.delete();
+        }
+    }
+
+    private static byte[] toneWav(int sampleRate, int channels, int seconds) {
+        int frames = sampleRate * seconds;
+        int dataLength = frames * channels * 2;
+        byte[] wav = new byte[WavFile.HEADER_SIZE + dataLength];
+        WavFile.writeHeader(wav, sampleRate, channels, 16, dataLength);
+        int position = WavFile.HEADER_SIZE;
+        for (int i = 0; i < frames; i++) {
+            short sample = (short) (8000 * Math.sin(2 * Math.PI * 440 * i / sampleRate));
+            for (int c = 0; c < channels; c++) {
+                wav[position++] = (byte) sample;
+                wav[position++] = (byte) (sample >> 8);
+            }
+        }
+        return wav;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+            .include(AudioConversionBenchmark.class.getSimpleName())
+            .build()).run();
+    }
+}
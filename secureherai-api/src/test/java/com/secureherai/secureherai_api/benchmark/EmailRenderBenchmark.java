@@ -0,0 +1,176 @@
+package com.secureherai.secureherai_api.benchmark;
+
+import com.secureherai.secureherai_api.util.EmailTemplate;
+import com.secureherai.secureherai_api.util.EmailTemplates;
+import jakarta.mail.Message;
+import jakarta.mail.Session;
+import jakarta.mail.internet.MimeMessage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.mail.javamail.MimeMessageHelper;
+
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of one emergency alert e-mail to one trusted contact, as paid once per contact
+ * during an alert:
+ * <ul>
+ *   <li>rendering the body: the original {@code StringBuilder} concatenation vs. the
+ *       compiled template's UTF-8 fragments</li>
+ *   <li>the whole message up to the bytes handed to SMTP: concatenation plus
+ *       {@code MimeMessageHelper} vs. template plus the pre-built multipart</li>
+ * </ul>
+ * {@link #main} adds the GC profiler, so {@code gc.alloc.rate.norm} shows bytes
+ * allocated per message.
+ *
+ * Run from the IDE via {@link #main}, or after {@code mvn test-compile} with the test
+ * classpath: {@code java -cp ... com.secureherai.secureherai_api.benchmark.EmailRenderBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+public class EmailRenderBenchmark {
+
+    private static final String SUBJECT = "🚨 EMERGENCY ALERT - Immediate Attention Required";
+
+    private Session session;
+    private EmailTemplate template;
+    private String[] contactNames;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        session = Session.getInstance(new Properties());
+        template = new EmailTemplates("email-templates/").get("emergency-alert", Locale.ENGLISH);
+        contactNames = new String[64];
+        for (int i = 0; i < contactNames.length; i++) {
+            contactNames[i] = "Contact " + i;
+        }
+    }
+
+    @Benchmark
+    public String renderConcatenated() {
+        return concatenated(nextContact(), "+8801712345678", "Emergency alert triggered via SOS",
+            "Road 27, Dhanmondi, Dhaka", "2025-07-01 10:15:00");
+    }
+
+    @Benchmark
+    public byte[] renderTemplate() {
+        return template.render(values(nextContact()));
+    }
+
+    @Benchmark
+    public MimeMessage messageWithHelper() throws Exception {
+        MimeMessage message = new MimeMessage(session);
+        MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
+        helper.setFrom("noreply@secureherai.com");
+        helper.setTo("contact@example.com");
+        helper.setSubject(SUBJECT);
+        helper.setText(renderConcatenated(), true);
+        message.saveChanges();
+        message.writeTo(OutputStream.nullOutputStream());
+        return message;
+    }
+
+    @Benchmark
+    public MimeMessage messageWithTemplate() throws Exception {
+        MimeMessage message = new MimeMessage(session);
+        message.setFrom("noreply@secureherai.com");
+        message.setRecipients(Message.RecipientType.TO, "contact@example.com");
+        message.setSubject(SUBJECT, "UTF-8");
+        EmailTemplates.setHtmlContent(message, renderTemplate());
+        message.saveChanges();
+        message.writeTo(OutputStream.nullOutputStream());
+        return message;
+    }
+
+    private String nextContact() {
+        next = (next + 1) & (contactNames.length - 1);
+        return contactNames[next];
+    }
+
+    private static Map<String, String> values(String contactName) {
+        Map<String, String> values = new HashMap<>();
+        values.put("contactName", contactName);
+        values.put("phone", "+8801712345678");
+        values.put("time", "2025-07-01 10:15:00");
+        values.put("location", "Road 27, Dhanmondi, Dhaka");
+        values.put("message", "Emergency alert triggered via SOS");
+        return values;
+    }
+
+    /**
+     * The body as the original EmailService built it
+     */
+    private static String concatenated(String contactName, String userPhoneOrName, String alertMessage,
+                                       String location, String triggeredTime) {
+        StringBuilder header = new StringBuilder();
+        header.append("<!DOCTYPE html><html><body style='font-family: Arial, sans-serif; line-height: 1.6; margin: 0; padding: 0; background-color: #f4f4f4;'>");
+        header.append("<div style='max-width: 600px; margin: 20px auto; background-color: white; border-radius: 8px; box-shadow: 0 2px 10px rgba(0,0,0,0.1); overflow: hidden;'>");
+        header.append("<div style='background: linear-gradient(135deg, rgb(0, 110, 255) 0%, rgb(168, 85, 247) 100%); padding: 20px; text-align: center;'>");
+        header.append("<h1 style='color: white; margin: 0; font-size: 24px;'>🛡️ SecureHerAI</h1>");
+        header.append("</div>");
+        header.append("<div style='padding: 30px 20px;'>");
+        header.append("<h2 style='color: #4a4a4a; margin-top: 0;'>" + "🚨 EMERGENCY ALERT" + "</h2>");
+
+        StringBuilder emailBody = new StringBuilder();
+        emailBody.append(header.toString());
+        emailBody.append("<div style='background-color: #fee; border: 2px solid #f44; border-radius: 8px; padding: 20px; margin: 20px 0;'>");
+        emailBody.append("<h3 style='color: #d44; margin: 0 0 15px 0; font-size: 18px;'>⚠️ Your trusted contact has triggered an emergency alert</h3>");
+        emailBody.append("<p style='margin: 10px 0; font-size: 16px;'><strong>Contact:</strong> " + contactName + "</p>");
+        if (userPhoneOrName != null && !userPhoneOrName.isEmpty()) {
+            emailBody.append("<p style='margin: 10px 0; font-size: 16px;'><strong>Phone:</strong> " + userPhoneOrName + "</p>");
+        }
+        emailBody.append("<p style='margin: 10px 0; font-size: 16px;'><strong>Time:</strong> " + triggeredTime + "</p>");
+        emailBody.append("<p style='margin: 10px 0; font-size: 16px;'><strong>Location:</strong> " + location + "</p>");
+        emailBody.append("<p style='margin: 10px 0; font-size: 16px;'><strong>Message:</strong> " + alertMessage + "</p>");
+        emailBody.append("</div>");
+        emailBody.append("<div style='background-color: #fff3cd; border: 1px solid #ffc107; border-radius: 8px; padding: 20px; margin: 20px 0;'>");
+        emailBody.append("<h4 style='color: #856404; margin: 0 0 10px 0;'>⚡ IMMEDIATE ACTION REQUIRED</h4>");
+        emailBody.append("<p style='margin: 10px 0; font-weight: bold; color: #856404;'>1. Contact them immediately at their phone number</p>");
+        emailBody.append("<p style='margin: 10px 0; font-weight: bold; color: #856404;'>2. If you cannot reach them, call local emergency services (911, 999, etc.)</p>");
+        emailBody.append("<p style='margin: 10px 0; font-weight: bold; color: #856404;'>3. If possible, go to their location to provide assistance</p>");
+        emailBody.append("</div>");
+        emailBody.append("<p style='color: #666; font-style: italic; margin-top: 30px;'>This is an automated emergency alert from SecureHerAI. Please take immediate action to ensure your trusted contact's safety.</p>");
+
+        StringBuilder footer = new StringBuilder();
+        footer.append("<hr style='margin: 30px 0; border: none; border-top: 1px solid #eee;'>");
+        footer.append("<div style='text-align: center; color: #666; font-size: 12px;'>");
+        footer.append("<p>© 2025 SecureHerAI. All rights reserved.</p>");
+        footer.append("<p>This email was sent from a no-reply address. Please do not reply to this email.</p>");
+        footer.append("</div>");
+        footer.append("</div>");
+        footer.append("</div>");
+        footer.append("</body></html>");
+        emailBody.append(footer.toString());
+        return emailBody.toString();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+            .include(EmailRenderBenchmark.class.getSimpleName())
+            .addProfiler(GCProfiler.class)
+            .build()).run();
+    }
+}
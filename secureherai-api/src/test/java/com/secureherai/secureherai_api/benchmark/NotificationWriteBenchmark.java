@@ -0,0 +1,306 @@
+package com.secureherai.secureherai_api.benchmark;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import org.h2.jdbcx.JdbcDataSource;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.cfg.Configuration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Writing the responder invitations of one alert, 5 batches of 2 responders, each batch
+ * in its own transaction:
+ * <ul>
+ *   <li>the original writes: IDs from an identity column, so every save inserts at once,
+ *       then the counter update, the event and the status update, per notification</li>
+ *   <li>{@code NotificationService.createNotifications}: IDs from a pooled sequence, one
+ *       counter update and one event per batch, and the rows inserted in one JDBC batch
+ *       with their final status at commit</li>
+ * </ul>
+ * Runs plain Hibernate on in-memory H2, with the same batching settings as the
+ * application, and counts the statements sent to the database, commits included, as
+ * round trips; the pooled sequence's {@code nextval} is counted when it happens, once per
+ * 50 IDs. The entities are stand-ins with the columns that matter, and a {@code SELECT}
+ * stands in for {@code pg_notify}. Round trips per alert are printed at the end of each
+ * run; the measured time is mostly H2's, so a network between the application and
+ * PostgreSQL widens the gap by the round trips saved.
+ *
+ * Run from the IDE via {@link #main}, or after {@code mvn test-compile} with the test
+ * classpath: {@code java -cp ... com.secureherai.secureherai_api.benchmark.NotificationWriteBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+public class NotificationWriteBenchmark {
+
+    private static final int MAX_RESPONDERS = 10;
+    private static final int BATCH_SIZE = 2;
+
+    private static final Set<String> ROUND_TRIPS = Set.of(
+        "execute", "executeQuery", "executeUpdate", "executeLargeUpdate", "executeBatch",
+        "executeLargeBatch", "commit");
+
+    private final AtomicLong roundTrips = new AtomicLong();
+    private long alerts;
+    private long totalRoundTrips;
+    private long totalAlerts;
+    private String scenario;
+
+    private SessionFactory identityFactory;
+    private SessionFactory pooledFactory;
+    private UUID[] responders;
+
+    @Entity
+    @Table(name = "identity_notifications")
+    public static class IdentityNotification {
+        @Id
+        @GeneratedValue(strategy = GenerationType.IDENTITY)
+        Long id;
+        UUID userId;
+        UUID alertId;
+        Integer batchNumber;
+        String title;
+        String payload;
+        String status;
+        LocalDateTime createdAt;
+    }
+
+    @Entity
+    @Table(name = "pooled_notifications")
+    public static class PooledNotification {
+        @Id
+        @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "pooled_notifications_seq")
+        @SequenceGenerator(name = "pooled_notifications_seq", sequenceName = "pooled_notifications_seq", allocationSize = 50)
+        Long id;
+        UUID userId;
+        UUID alertId;
+        Integer batchNumber;
+        String title;
+        String payload;
+        String status;
+        LocalDateTime createdAt;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        responders = new UUID[MAX_RESPONDERS];
+        for (int i = 0; i < MAX_RESPONDERS; i++) {
+            responders[i] = UUID.randomUUID();
+        }
+        // Without batching, as before
+        identityFactory = sessionFactory("identity", IdentityNotification.class, null);
+        pooledFactory = sessionFactory("pooled", PooledNotification.class, "50");
+        roundTrips.set(0);
+    }
+
+    private SessionFactory sessionFactory(String name, Class<?> entity, String batchSize) {
+        JdbcDataSource h2 = new JdbcDataSource();
+        h2.setURL("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1");
+        Configuration configuration = new Configuration()
+            .addAnnotatedClass(entity)
+            .setProperty(AvailableSettings.HBM2DDL_AUTO, "create-drop");
+        if (batchSize != null) {
+            configuration
+                .setProperty(AvailableSettings.STATEMENT_BATCH_SIZE, batchSize)
+                .setProperty(AvailableSettings.ORDER_INSERTS, "true")
+                .setProperty(AvailableSettings.ORDER_UPDATES, "true");
+        }
+        configuration.getProperties().put(AvailableSettings.DATASOURCE, counting(h2));
+        SessionFactory factory = configuration.buildSessionFactory();
+        factory.inTransaction(session -> {
+            session.createNativeMutationQuery(
+                "CREATE TABLE IF NOT EXISTS notification_unread_counters (user_id UUID PRIMARY KEY, unread_count BIGINT NOT NULL)")
+                .executeUpdate();
+            for (UUID responder : responders) {
+                session.createNativeMutationQuery("INSERT INTO notification_unread_counters VALUES (?1, 0)")
+                    .setParameter(1, responder)
+                    .executeUpdate();
+            }
+        });
+        return factory;
+    }
+
+    @Benchmark
+    public void identityPerNotification() {
+        scenario = "identity, per notification";
+        for (int start = 0; start < MAX_RESPONDERS; start += BATCH_SIZE) {
+            int batchNumber = start / BATCH_SIZE + 1;
+            UUID alertId = UUID.randomUUID();
+            try (Session session = identityFactory.openSession()) {
+                session.beginTransaction();
+                for (int i = start; i < start + BATCH_SIZE; i++) {
+                    IdentityNotification notification = new IdentityNotification();
+                    notification.userId = responders[i];
+                    notification.alertId = alertId;
+                    notification.batchNumber = batchNumber;
+                    notification.title = "Emergency Alert - Response Needed";
+                    notification.payload = payload(i, batchNumber);
+                    notification.status = "PENDING";
+                    notification.createdAt = LocalDateTime.now();
+                    session.persist(notification);
+                    session.createNativeMutationQuery(
+                        "UPDATE notification_unread_counters SET unread_count = unread_count + 1 WHERE user_id = ?1")
+                        .setParameter(1, responders[i])
+                        .executeUpdate();
+                    notify(session);
+                    notification.status = "SENT";
+                }
+                session.getTransaction().commit();
+            }
+        }
+        alerts++;
+    }
+
+    @Benchmark
+    public void pooledBatch() {
+        scenario = "pooled sequence, batched";
+        for (int start = 0; start < MAX_RESPONDERS; start += BATCH_SIZE) {
+            int batchNumber = start / BATCH_SIZE + 1;
+            UUID alertId = UUID.randomUUID();
+            try (Session session = pooledFactory.openSession()) {
+                session.beginTransaction();
+                List<UUID> userIds = new ArrayList<>(BATCH_SIZE);
+                for (int i = start; i < start + BATCH_SIZE; i++) {
+                    PooledNotification notification = new PooledNotification();
+                    notification.userId = responders[i];
+                    notification.alertId = alertId;
+                    notification.batchNumber = batchNumber;
+                    notification.title = "Emergency Alert - Response Needed";
+                    notification.payload = payload(i, batchNumber);
+                    notification.status = "SENT";
+                    notification.createdAt = LocalDateTime.now();
+                    session.persist(notification);
+                    userIds.add(responders[i]);
+                }
+                session.createNativeMutationQuery(
+                    "UPDATE notification_unread_counters SET unread_count = unread_count + 1 WHERE user_id IN (?1)")
+                    .setParameterList(1, userIds)
+                    .executeUpdate();
+                notify(session);
+                session.getTransaction().commit();
+            }
+        }
+        alerts++;
+    }
+
+    private static String payload(int responder, int batchNumber) {
+        return "{\"distance\":" + (responder + 1) * 0.7 + ",\"responderType\":\"POLICE\",\"batchNumber\":" + batchNumber + "}";
+    }
+
+    private static void notify(Session session) {
+        session.createNativeQuery("SELECT 1", Integer.class).getSingleResult();
+    }
+
+    @TearDown(Level.Iteration)
+    public void endIteration() {
+        totalRoundTrips += roundTrips.get();
+        totalAlerts += alerts;
+        alerts = 0;
+        identityFactory.inTransaction(session ->
+            session.createNativeMutationQuery("DELETE FROM identity_notifications").executeUpdate());
+        pooledFactory.inTransaction(session ->
+            session.createNativeMutationQuery("DELETE FROM pooled_notifications").executeUpdate());
+        roundTrips.set(0);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (totalAlerts > 0) {
+            System.out.printf("%n%s: %.2f round trips per alert%n", scenario, (double) totalRoundTrips / totalAlerts);
+        }
+        identityFactory.close();
+        pooledFactory.close();
+    }
+
+    /**
+     * The data source, with statements executed and commits counted as round trips
+     */
+    private DataSource counting(DataSource dataSource) {
+        return (DataSource) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{DataSource.class},
+            (proxy, method, args) -> {
+                Object result = invoke(dataSource, method, args);
+                return result instanceof Connection ? counting((Connection) result) : result;
+            });
+    }
+
+    private Connection counting(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Connection.class},
+            (proxy, method, args) -> {
+                count(method.getName());
+                Object result = invoke(connection, method, args);
+                if (result instanceof PreparedStatement) {
+                    return counting((PreparedStatement) result, PreparedStatement.class);
+                }
+                if (result instanceof Statement) {
+                    return counting((Statement) result, Statement.class);
+                }
+                return result;
+            });
+    }
+
+    private <T extends Statement> T counting(T statement, Class<T> type) {
+        return type.cast(Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{type},
+            (proxy, method, args) -> {
+                count(method.getName());
+                return invoke(statement, method, args);
+            }));
+    }
+
+    private void count(String method) {
+        if (ROUND_TRIPS.contains(method)) {
+            roundTrips.incrementAndGet();
+        }
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+            .include(NotificationWriteBenchmark.class.getSimpleName())
+            .build()).run();
+    }
+}
@@ -0,0 +1,149 @@
+package com.secureherai.secureherai_api.benchmark;
+
+import com.secureherai.secureherai_api.entity.Responder;
+import com.secureherai.secureherai_api.entity.User;
+import com.secureherai.secureherai_api.util.GeoGridIndex;
+import com.secureherai.secureherai_api.util.GeoGridIndex.Neighbor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Picking the 10 responders nearest to an alert:
+ * <ul>
+ *   <li>the original scan: Haversine over every available responder's BigDecimal
+ *       position, sort, take 10</li>
+ *   <li>a k-nearest query on the {@link GeoGridIndex} the responder location index uses</li>
+ *   <li>moving one responder in the index, as a location update does</li>
+ * </ul>
+ * Responders are spread over greater Dhaka; the scan is measured on entities already in
+ * memory, so it leaves out the query that loads them.
+ *
+ * Run from the IDE via {@link #main}, or after {@code mvn test-compile} with the test
+ * classpath: {@code java -cp ... com.secureherai.secureherai_api.benchmark.ResponderSearchBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+public class ResponderSearchBenchmark {
+
+    private static final int MAX_RESPONDERS = 10;
+    private static final double SEARCH_RADIUS_KM = 50;
+    private static final double MIN_LAT = 23.6;
+    private static final double MIN_LON = 90.2;
+    private static final double SPAN = 0.4;
+
+    @Param({"1000", "10000", "100000"})
+    private int responders;
+
+    private List<Responder> available;
+    private GeoGridIndex<UUID> index;
+    private UUID[] ids;
+    private double[][] alerts;
+    private Random random;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        random = new Random(42);
+        available = new ArrayList<>(responders);
+        index = new GeoGridIndex<>(0.02);
+        ids = new UUID[responders];
+        for (int i = 0; i < responders; i++) {
+            double latitude = MIN_LAT + random.nextDouble() * SPAN;
+            double longitude = MIN_LON + random.nextDouble() * SPAN;
+            User user = new User();
+            user.setId(UUID.randomUUID());
+            user.setCurrentLatitude(BigDecimal.valueOf(latitude));
+            user.setCurrentLongitude(BigDecimal.valueOf(longitude));
+            Responder responder = new Responder(user, Responder.ResponderType.POLICE, "B-" + i);
+            responder.setUserId(user.getId());
+            available.add(responder);
+            index.put(user.getId(), latitude, longitude);
+            ids[i] = user.getId();
+        }
+        alerts = new double[1024][];
+        for (int i = 0; i < alerts.length; i++) {
+            alerts[i] = new double[] {MIN_LAT + random.nextDouble() * SPAN, MIN_LON + random.nextDouble() * SPAN};
+        }
+    }
+
+    @Benchmark
+    public List<Map.Entry<Responder, Double>> linearScan() {
+        double[] alert = nextAlert();
+        BigDecimal alertLatitude = BigDecimal.valueOf(alert[0]);
+        BigDecimal alertLongitude = BigDecimal.valueOf(alert[1]);
+        return available.stream()
+            .map(responder -> Map.entry(responder, calculateDistance(alertLatitude, alertLongitude,
+                responder.getUser().getCurrentLatitude(), responder.getUser().getCurrentLongitude())))
+            .sorted(Comparator.comparingDouble(Map.Entry::getValue))
+            .limit(MAX_RESPONDERS)
+            .collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<Neighbor<UUID>> indexNearest() {
+        double[] alert = nextAlert();
+        return index.nearest(alert[0], alert[1], MAX_RESPONDERS, SEARCH_RADIUS_KM);
+    }
+
+    @Benchmark
+    public int indexLocationUpdate() {
+        UUID id = ids[random.nextInt(ids.length)];
+        index.put(id, MIN_LAT + random.nextDouble() * SPAN, MIN_LON + random.nextDouble() * SPAN);
+        return index.size();
+    }
+
+    private double[] nextAlert() {
+        next = (next + 1) & (alerts.length - 1);
+        return alerts[next];
+    }
+
+    /**
+     * The distance the original scan computes per responder
+     */
+    private static double calculateDistance(BigDecimal lat1, BigDecimal lon1, BigDecimal lat2, BigDecimal lon2) {
+        if (lat2 == null || lon2 == null) {
+            return Double.MAX_VALUE;
+        }
+        final int R = 6371;
+        double latDistance = Math.toRadians(lat2.doubleValue() - lat1.doubleValue());
+        double lonDistance = Math.toRadians(lon2.doubleValue() - lon1.doubleValue());
+        double a = Math.sin(latDistance / 2) * Math.sin(latDistance / 2)
+                + Math.cos(Math.toRadians(lat1.doubleValue())) * Math.cos(Math.toRadians(lat2.doubleValue()))
+                * Math.sin(lonDistance / 2) * Math.sin(lonDistance / 2);
+        double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+        return R * c;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+            .include(ResponderSearchBenchmark.class.getSimpleName())
+            .build()).run();
+    }
+}
@@ -0,0 +1,264 @@
+package com.secureherai.secureherai_api.cluster;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.secureherai.secureherai_api.entity.Notification;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ClusterEventBusTest {
+
+    private static final String CHANNEL = "secureherai_events";
+    private static final TypeReference<Map<String, Object>> MESSAGE_TYPE = new TypeReference<>() {};
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private final BlockingQueue<ClusterEvent> delivered = new LinkedBlockingQueue<>();
+    private ClusterEventBus bus;
+
+    @BeforeEach
+    void setUp() {
+        bus = new ClusterEventBus(jdbcTemplate, objectMapper);
+        ReflectionTestUtils.setField(bus, "enabled", true);
+        ReflectionTestUtils.setField(bus, "channel", CHANNEL);
+        ReflectionTestUtils.setField(bus, "backlogCapacity", 100);
+        ReflectionTestUtils.setField(bus, "datasourceUrl", "jdbc:postgresql://localhost:5432/secureherai");
+        bus.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        bus.shutdown();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void publish_InTransaction_DeliversLocallyOnlyAfterCommit() throws Exception {
+        // Arrange
+        bus.subscribe(ClusterEventBus.ALERT_CREATED, delivered::add);
+        TransactionSynchronizationManager.initSynchronization();
+
+        // Act
+        bus.publish(ClusterEventBus.ALERT_CREATED, "alert-1", Map.of("status", "ACTIVE"));
+
+        // Assert
+        verify(jdbcTemplate).queryForList(eq("SELECT pg_notify(?, ?)"), eq(CHANNEL), anyString());
+        assertNull(delivered.poll(200, TimeUnit.MILLISECONDS));
+
+        commit();
+        ClusterEvent event = delivered.poll(5, TimeUnit.SECONDS);
+        assertNotNull(event);
+        assertEquals("alert-1", event.getKey());
+        assertEquals("ACTIVE", event.getData().get("status"));
+        assertTrue(event.isLocal());
+    }
+
+    @Test
+    void publish_RolledBack_IsNotDeliveredLocally() throws Exception {
+        // Arrange
+        bus.subscribe(ClusterEventBus.ALERT_CREATED, delivered::add);
+        TransactionSynchronizationManager.initSynchronization();
+
+        // Act
+        bus.publish(ClusterEventBus.ALERT_CREATED, "alert-1", Map.of("status", "ACTIVE"));
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+        }
+
+        // Assert
+        assertNull(delivered.poll(200, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void publish_PayloadOverLimit_SendsTruncatedEvent() throws Exception {
+        // Arrange
+        bus.subscribe(ClusterEventBus.ALERT_CREATED, delivered::add);
+        Map<String, Object> data = Map.of("message", "x".repeat(7900));
+
+        // Act
+        bus.publish(ClusterEventBus.ALERT_CREATED, "alert-1", data);
+
+        // Assert
+        Map<String, Object> message = objectMapper.readValue(sentPayload(), MESSAGE_TYPE);
+        assertEquals(ClusterEventBus.ALERT_CREATED, message.get("type"));
+        assertEquals("alert-1", message.get("key"));
+        assertFalse(message.containsKey("data"));
+        assertEquals(1L, bus.getStats().get("truncated"));
+
+        // This node still gets the whole event
+        ClusterEvent local = delivered.poll(5, TimeUnit.SECONDS);
+        assertNotNull(local);
+        assertEquals(data, local.getData());
+        assertFalse(local.isTruncated());
+    }
+
+    @Test
+    void receive_TruncatedEventFromAnotherNode_IsMarkedTruncated() throws Exception {
+        // Arrange
+        bus.subscribe(ClusterEventBus.ALERT_CREATED, delivered::add);
+        String payload = objectMapper.writeValueAsString(
+            Map.of("type", ClusterEventBus.ALERT_CREATED, "key", "alert-1", "node", "other-node"));
+
+        // Act
+        ReflectionTestUtils.invokeMethod(bus, "receive", payload);
+
+        // Assert
+        ClusterEvent event = delivered.poll(5, TimeUnit.SECONDS);
+        assertNotNull(event);
+        assertTrue(event.isTruncated());
+        assertFalse(event.isLocal());
+        assertTrue(event.getData().isEmpty());
+    }
+
+    @Test
+    void receive_OwnNotification_IsFilteredOut() throws Exception {
+        // Arrange
+        bus.subscribe(ClusterEventBus.ALERT_CREATED, delivered::add);
+        bus.publish(ClusterEventBus.ALERT_CREATED, "alert-1", Map.of("status", "ACTIVE"));
+        String ownPayload = sentPayload();
+        assertNotNull(delivered.poll(5, TimeUnit.SECONDS));
+
+        Map<String, Object> other = objectMapper.readValue(ownPayload, MESSAGE_TYPE);
+        other.put("node", "other-node");
+        other.put("key", "alert-2");
+        String otherPayload = objectMapper.writeValueAsString(other);
+
+        // Act
+        ReflectionTestUtils.invokeMethod(bus, "receive", ownPayload);
+        ReflectionTestUtils.invokeMethod(bus, "receive", otherPayload);
+
+        // Assert
+        ClusterEvent event = delivered.poll(5, TimeUnit.SECONDS);
+        assertNotNull(event);
+        assertEquals("alert-2", event.getKey());
+        assertFalse(event.isLocal());
+        assertNull(delivered.poll(200, TimeUnit.MILLISECONDS));
+        assertEquals(1L, bus.getStats().get("received"));
+    }
+
+    @Test
+    void publish_SameTypeAndKeyWhileHandlerIsBusy_CoalescesIntoLatest() throws Exception {
+        // Arrange
+        CountDownLatch dispatching = new CountDownLatch(1);
+        CountDownLatch gate = new CountDownLatch(1);
+        Consumer<ClusterEvent> handler = event -> {
+            delivered.add(event);
+            if (event.getKey().equals("responder-0")) {
+                dispatching.countDown();
+                awaitQuietly(gate);
+            }
+        };
+        bus.subscribe(ClusterEventBus.LOCATION_UPDATED, handler);
+        bus.subscribe(ClusterEventBus.ALERT_STATUS_CHANGED, handler);
+        bus.publish(ClusterEventBus.LOCATION_UPDATED, "responder-0", Map.of("latitude", 0));
+        assertTrue(dispatching.await(5, TimeUnit.SECONDS));
+
+        // Act
+        bus.publish(ClusterEventBus.LOCATION_UPDATED, "responder-1", Map.of("latitude", 1));
+        bus.publish(ClusterEventBus.LOCATION_UPDATED, "responder-1", Map.of("latitude", 2));
+        bus.publish(ClusterEventBus.ALERT_STATUS_CHANGED, "responder-1", Map.of("status", "RESOLVED"));
+        gate.countDown();
+
+        // Assert
+        List<ClusterEvent> events = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            ClusterEvent event = delivered.poll(5, TimeUnit.SECONDS);
+            assertNotNull(event);
+            events.add(event);
+        }
+        assertNull(delivered.poll(200, TimeUnit.MILLISECONDS));
+        assertEquals(ClusterEventBus.LOCATION_UPDATED, events.get(1).getType());
+        assertEquals(2, events.get(1).getData().get("latitude"));
+        assertEquals(ClusterEventBus.ALERT_STATUS_CHANGED, events.get(2).getType());
+        assertEquals("responder-1", events.get(2).getKey());
+        assertEquals(1L, bus.getStats().get("coalesced"));
+    }
+
+    @Test
+    void publishNotificationsCreated_SendsBatchWithOneStatement() throws Exception {
+        // Arrange
+        bus.subscribe(ClusterEventBus.NOTIFICATION_CREATED, delivered::add);
+        List<Notification> notifications = List.of(notification(41L), notification(42L));
+
+        // Act
+        bus.publishNotificationsCreated(notifications);
+
+        // Assert
+        ArgumentCaptor<Object> payloads = ArgumentCaptor.forClass(Object.class);
+        verify(jdbcTemplate, times(1)).queryForList(
+            eq("SELECT pg_notify(?, payload) FROM unnest(?::text[]) AS payload"), eq(CHANNEL), payloads.capture());
+        String[] sent = (String[]) payloads.getValue();
+        assertEquals(2, sent.length);
+        assertEquals("41", objectMapper.readValue(sent[0], MESSAGE_TYPE).get("key"));
+        assertEquals("42", objectMapper.readValue(sent[1], MESSAGE_TYPE).get("key"));
+        verifyNoMoreInteractions(jdbcTemplate);
+
+        List<String> keys = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            ClusterEvent event = delivered.poll(5, TimeUnit.SECONDS);
+            assertNotNull(event);
+            assertTrue(event.getData().containsKey("notification"));
+            keys.add(event.getKey());
+        }
+        assertEquals(List.of("41", "42"), keys);
+    }
+
+    private String sentPayload() {
+        ArgumentCaptor<String> payload = ArgumentCaptor.forClass(String.class);
+        verify(jdbcTemplate).queryForList(eq("SELECT pg_notify(?, ?)"), eq(CHANNEL), payload.capture());
+        return payload.getValue();
+    }
+
+    private Notification notification(Long id) {
+        Notification notification = new Notification();
+        notification.setId(id);
+        notification.setUserId(UUID.randomUUID());
+        notification.setType(Notification.NotificationType.EMERGENCY_NEARBY);
+        notification.setChannel(Notification.NotificationChannel.IN_APP);
+        notification.setTitle("Emergency Alert");
+        notification.setMessage("Emergency alert nearby");
+        return notification;
+    }
+
+    private static void commit() {
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCommit();
+        }
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
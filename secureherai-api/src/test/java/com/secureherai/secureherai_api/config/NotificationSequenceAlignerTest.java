@@ -0,0 +1,62 @@
+package com.secureherai.secureherai_api.config;
+
+import com.secureherai.secureherai_api.entity.Notification;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class NotificationSequenceAlignerTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @InjectMocks
+    private NotificationSequenceAligner notificationSequenceAligner;
+
+    @Test
+    void align_PostgreSQL_MovesSequenceABlockPastExistingIds() {
+        // Arrange
+        ReflectionTestUtils.setField(notificationSequenceAligner, "datasourceUrl", "jdbc:postgresql://localhost:5432/secureherai");
+        when(jdbcTemplate.queryForObject(contains("setval('notifications_seq'"), eq(Long.class),
+            eq(Notification.ID_ALLOCATION_SIZE))).thenReturn(151L);
+
+        // Act
+        notificationSequenceAligner.align();
+
+        // Assert
+        verify(jdbcTemplate).queryForObject(contains("GREATEST(nextval('notifications_seq')"), eq(Long.class),
+            eq(Notification.ID_ALLOCATION_SIZE));
+    }
+
+    @Test
+    void align_OtherDatabase_LeavesSequenceAlone() {
+        // Arrange
+        ReflectionTestUtils.setField(notificationSequenceAligner, "datasourceUrl", "jdbc:h2:mem:testdb");
+
+        // Act
+        notificationSequenceAligner.align();
+
+        // Assert
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void aligner_IsCreatedAfterSchemaUpdate() {
+        // The schema update that creates the sequence runs when the entity manager factory starts
+        DependsOn dependsOn = NotificationSequenceAligner.class.getAnnotation(DependsOn.class);
+
+        assertNotNull(dependsOn);
+        assertArrayEquals(new String[]{"entityManagerFactory"}, dependsOn.value());
+    }
+}
@@ -0,0 +1,93 @@
+package com.secureherai.secureherai_api.controller;
+
+import com.secureherai.secureherai_api.config.TestSecurityConfig;
+import com.secureherai.secureherai_api.service.JwtService;
+import com.secureherai.secureherai_api.service.NotificationService;
+import com.secureherai.secureherai_api.service.NotificationStreamService;
+import com.secureherai.secureherai_api.util.KeysetCursor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.UUID;
+
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(NotificationController.class)
+@Import(TestSecurityConfig.class)
+class NotificationControllerTest {
+
+    private static final String INVALID_CURSOR = "not-a-cursor";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private NotificationService notificationService;
+
+    @MockBean
+    private NotificationStreamService notificationStreamService;
+
+    @MockBean
+    private JwtService jwtService;
+
+    private UUID testUserId;
+    private String validToken;
+
+    @BeforeEach
+    void setUp() {
+        testUserId = UUID.randomUUID();
+        validToken = "valid.jwt.token";
+
+        // Setup JWT validation
+        when(jwtService.isTokenValid(validToken)).thenReturn(true);
+        when(jwtService.extractUserId(validToken)).thenReturn(testUserId);
+
+        // The service decodes the cursor before it queries anything
+        when(notificationService.getUserNotifications(eq(testUserId), anyString(), anyInt()))
+            .thenAnswer(invocation -> {
+                KeysetCursor.decode(invocation.getArgument(1));
+                return null;
+            });
+        when(notificationService.getUnreadNotifications(eq(testUserId), anyString(), anyInt()))
+            .thenAnswer(invocation -> {
+                KeysetCursor.decode(invocation.getArgument(1));
+                return null;
+            });
+    }
+
+    @Test
+    void getUserNotifications_InvalidCursor_ReturnsBadRequest() throws Exception {
+        // Act & Assert
+        mockMvc.perform(get("/api/notifications")
+                .header("Authorization", "Bearer " + validToken)
+                .param("cursor", INVALID_CURSOR))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.success").value(false))
+                .andExpect(jsonPath("$.message").value("Invalid cursor"));
+
+        verify(notificationService, never()).countUnreadNotifications(testUserId);
+    }
+
+    @Test
+    void getUnreadNotifications_InvalidCursor_ReturnsBadRequest() throws Exception {
+        // Act & Assert
+        mockMvc.perform(get("/api/notifications/unread")
+                .header("Authorization", "Bearer " + validToken)
+                .param("cursor", INVALID_CURSOR))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.success").value(false))
+                .andExpect(jsonPath("$.message").value("Invalid cursor"));
+
+        verify(notificationService, never()).countUnreadNotifications(testUserId);
+    }
+}
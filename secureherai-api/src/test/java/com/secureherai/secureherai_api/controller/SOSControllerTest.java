@@ -6,9 +6,14 @@ import com.secureherai.secureherai_api.dto.sos.LocationDto;
 import com.secureherai.secureherai_api.dto.sos.SOSTextCommandRequestDto;
 import com.secureherai.secureherai_api.dto.sos.SOSVoiceUrlCommandRequestDto;
 import com.secureherai.secureherai_api.entity.Alert;
+import com.secureherai.secureherai_api.entity.VoiceCommandJob;
 import com.secureherai.secureherai_api.enums.AlertStatus;
 import com.secureherai.secureherai_api.service.JwtService;
+import com.secureherai.secureherai_api.service.SOSIdempotencyService;
+import com.secureherai.secureherai_api.service.SOSIngestionPipeline;
+import com.secureherai.secureherai_api.service.SOSIngestionPipeline.IngestionJob;
 import com.secureherai.secureherai_api.service.SOSService;
+import com.secureherai.secureherai_api.util.Deadline;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -21,7 +26,10 @@ import org.springframework.test.web.servlet.MockMvc;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
@@ -39,6 +47,12 @@ class SOSControllerTest {
     @MockBean
     private SOSService sosService;
 
+    @MockBean
+    private SOSIngestionPipeline sosIngestionPipeline;
+
+    @MockBean
+    private SOSIdempotencyService sosIdempotencyService;
+
     @MockBean
     private JwtService jwtService;
 
@@ -55,6 +69,10 @@ class SOSControllerTest {
         testUserId = UUID.randomUUID();
         validToken = "valid.jwt.token";
         
+        // Requests without a stored response run straight through
+        when(sosIdempotencyService.execute(any(), any(), any(), any(), any(), any()))
+            .thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(5).get());
+        
         // Setup location data
         locationDto = new LocationDto();
         locationDto.setLatitude(BigDecimal.valueOf(23.8103));
@@ -86,7 +104,7 @@ class SOSControllerTest {
         requestDto.setKeyword("help");
         requestDto.setLocation(locationDto);
         
-        when(sosService.processTextCommand(eq(testUserId), anyString(), eq("help"), any(LocationDto.class)))
+        when(sosService.processTextCommand(eq(testUserId), anyString(), eq("help"), any(LocationDto.class), any(Deadline.class)))
             .thenReturn(testAlert);
 
         // Act & Assert
@@ -98,7 +116,7 @@ class SOSControllerTest {
                 .andExpect(jsonPath("$.success").value(true))
                 .andExpect(jsonPath("$.alertId").isNotEmpty());
         
-        verify(sosService).processTextCommand(eq(testUserId), anyString(), eq("help"), any(LocationDto.class));
+        verify(sosService).processTextCommand(eq(testUserId), anyString(), eq("help"), any(LocationDto.class), any(Deadline.class));
     }
     
     @Test
@@ -109,7 +127,7 @@ class SOSControllerTest {
         requestDto.setKeyword("test");  // Not "help"
         requestDto.setLocation(locationDto);
         
-        when(sosService.processTextCommand(eq(testUserId), anyString(), eq("test"), any(LocationDto.class)))
+        when(sosService.processTextCommand(eq(testUserId), anyString(), eq("test"), any(LocationDto.class), any(Deadline.class)))
             .thenReturn(null); // No alert created
 
         // Act & Assert
@@ -120,7 +138,7 @@ class SOSControllerTest {
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.success").value(false));
         
-        verify(sosService).processTextCommand(eq(testUserId), anyString(), eq("test"), any(LocationDto.class));
+        verify(sosService).processTextCommand(eq(testUserId), anyString(), eq("test"), any(LocationDto.class), any(Deadline.class));
     }
 
     // Utility method for string matching in JSON response
@@ -146,7 +164,7 @@ class SOSControllerTest {
                 .content(objectMapper.writeValueAsString(requestDto)))
                 .andExpect(status().isUnauthorized());
         
-        verify(sosService, never()).processTextCommand(any(), anyString(), anyString(), any(LocationDto.class));
+        verify(sosService, never()).processTextCommand(any(), anyString(), anyString(), any(LocationDto.class), any(Deadline.class));
     }
     
     @Test
@@ -156,7 +174,7 @@ class SOSControllerTest {
         requestDto.setAudioUrl("https://example.com/audio.wav");
         requestDto.setLocation(locationDto);
         
-        when(sosService.processVoiceCommandFromUrl(eq(testUserId), anyString(), any(LocationDto.class)))
+        when(sosService.processVoiceCommandFromUrl(eq(testUserId), anyString(), any(LocationDto.class), any(Deadline.class)))
             .thenReturn(testAlert);
 
         // Act & Assert
@@ -168,7 +186,84 @@ class SOSControllerTest {
                 .andExpect(jsonPath("$.success").value(true))
                 .andExpect(jsonPath("$.alertId").isNotEmpty());
         
-        verify(sosService).processVoiceCommandFromUrl(eq(testUserId), anyString(), any(LocationDto.class));
+        verify(sosService).processVoiceCommandFromUrl(eq(testUserId), anyString(), any(LocationDto.class), any(Deadline.class));
+    }
+
+    @Test
+    void submitVoiceCommand_ValidUpload_ReturnsAccepted() throws Exception {
+        // Arrange
+        MockMultipartFile audio = new MockMultipartFile("audio", "help.wav", "audio/wav", "dummy audio".getBytes());
+        IngestionJob job = new IngestionJob(voiceCommandJob(testUserId), locationDto, null, null, 1);
+        
+        when(sosIngestionPipeline.submitVoiceCommand(eq(testUserId), any(), any(LocationDto.class)))
+            .thenReturn(job);
+
+        // Act & Assert
+        mockMvc.perform(multipart("/api/sos/voice-command/upload")
+                .file(audio)
+                .param("latitude", "23.8103")
+                .param("longitude", "90.4125")
+                .header("Authorization", "Bearer " + validToken))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.success").value(true))
+                .andExpect(jsonPath("$.trackingId").value(job.getTrackingId().toString()))
+                .andExpect(jsonPath("$.finished").value(false));
+    }
+    
+    @Test
+    void submitVoiceCommand_PipelineSaturated_ReturnsServiceUnavailable() throws Exception {
+        // Arrange
+        MockMultipartFile audio = new MockMultipartFile("audio", "help.wav", "audio/wav", "dummy audio".getBytes());
+        
+        when(sosIngestionPipeline.submitVoiceCommand(eq(testUserId), any(), any(LocationDto.class)))
+            .thenThrow(new RejectedExecutionException("full"));
+
+        // Act & Assert
+        mockMvc.perform(multipart("/api/sos/voice-command/upload")
+                .file(audio)
+                .param("latitude", "23.8103")
+                .param("longitude", "90.4125")
+                .header("Authorization", "Bearer " + validToken))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(jsonPath("$.success").value(false));
+    }
+    
+    @Test
+    void getVoiceCommandStatus_OtherUsersJob_ReturnsNotFound() throws Exception {
+        // Arrange
+        VoiceCommandJob job = voiceCommandJob(UUID.randomUUID());
+        when(sosIngestionPipeline.getJob(job.getId())).thenReturn(Optional.of(job));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/sos/voice-command/" + job.getId() + "/status")
+                .header("Authorization", "Bearer " + validToken))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.success").value(false));
+    }
+
+    @Test
+    void getVoiceCommandStatus_StoredJob_ReturnsStoredStage() throws Exception {
+        // Arrange
+        VoiceCommandJob job = voiceCommandJob(testUserId);
+        job.setStage(VoiceCommandJob.Stage.COMPLETED);
+        job.setAlertId(UUID.randomUUID());
+        job.setMessage("SOS Alert triggered successfully");
+        when(sosIngestionPipeline.getJob(job.getId())).thenReturn(Optional.of(job));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/sos/voice-command/" + job.getId() + "/status")
+                .header("Authorization", "Bearer " + validToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.stage").value("COMPLETED"))
+                .andExpect(jsonPath("$.finished").value(true))
+                .andExpect(jsonPath("$.alertId").value(job.getAlertId().toString()));
+    }
+
+    private VoiceCommandJob voiceCommandJob(UUID userId) {
+        VoiceCommandJob job = new VoiceCommandJob(userId, locationDto.getLatitude(), locationDto.getLongitude(),
+            locationDto.getAddress(), "data/temp/temp_sos_test.wav", "ab12", 11L, ".wav", "help.wav");
+        job.setId(UUID.randomUUID());
+        return job;
     }
 
     @Test
@@ -3,6 +3,10 @@ package com.secureherai.secureherai_api.controller;
 import com.secureherai.secureherai_api.config.TestSecurityConfig;
 import com.secureherai.secureherai_api.service.AzureSpeechService;
 import com.secureherai.secureherai_api.service.JwtService;
+import com.secureherai.secureherai_api.service.SpeechPreFilter;
+import com.secureherai.secureherai_api.util.AudioBufferPool;
+import com.secureherai.secureherai_api.util.AudioDownloader;
+import com.secureherai.secureherai_api.util.FfmpegWorkerPool;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -34,6 +38,18 @@ class SpeechControllerTest {
     @MockBean
     private JwtService jwtService;
 
+    @MockBean
+    private SpeechPreFilter speechPreFilter;
+
+    @MockBean
+    private FfmpegWorkerPool ffmpegWorkerPool;
+
+    @MockBean
+    private AudioBufferPool audioBufferPool;
+
+    @MockBean
+    private AudioDownloader audioDownloader;
+
     private UUID testUserId;
     private String validToken;
     private AzureSpeechService.SpeechTranscriptionResult successResult;
@@ -0,0 +1,88 @@
+package com.secureherai.secureherai_api.repository;
+
+import com.secureherai.secureherai_api.entity.EmailOutbox;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@ActiveProfiles("test")
+class EmailOutboxRepositoryTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EmailOutboxRepository emailOutboxRepository;
+
+    @Test
+    void existsByDedupKey_QueuedEmail_Found() {
+        persist("a@example.com", "alert:1|a@example.com", LocalDateTime.now());
+
+        assertTrue(emailOutboxRepository.existsByDedupKey("alert:1|a@example.com"));
+        assertFalse(emailOutboxRepository.existsByDedupKey("alert:1|b@example.com"));
+    }
+
+    @Test
+    void claim_DueEmails_ReadBackByToken() {
+        LocalDateTime now = LocalDateTime.now();
+        EmailOutbox first = persist("a@example.com", null, now.minusSeconds(2));
+        EmailOutbox second = persist("b@example.com", null, now.minusSeconds(1));
+        persist("later@example.com", null, now.plusMinutes(1));
+
+        List<UUID> ids = emailOutboxRepository.findReadyIds(now, PageRequest.of(0, 10));
+        assertEquals(List.of(first.getId(), second.getId()), ids);
+
+        UUID claimToken = UUID.randomUUID();
+        assertEquals(2, emailOutboxRepository.claim(ids, claimToken, now, now.plusMinutes(2)));
+        assertEquals(0, emailOutboxRepository.claim(ids, UUID.randomUUID(), now, now.plusMinutes(2)));
+
+        entityManager.clear();
+        List<EmailOutbox> claimed = emailOutboxRepository.findByClaimToken(claimToken);
+        assertEquals(2, claimed.size());
+        assertTrue(claimed.stream().allMatch(e -> e.getStatus() == EmailOutbox.Status.SENDING && e.getAttempts() == 1));
+        assertTrue(emailOutboxRepository.findReadyIds(now, PageRequest.of(0, 10)).isEmpty());
+    }
+
+    @Test
+    void claim_ExpiredLease_TakenOver() {
+        LocalDateTime now = LocalDateTime.now();
+        EmailOutbox email = persist("a@example.com", null, now.minusMinutes(10));
+        emailOutboxRepository.claim(List.of(email.getId()), UUID.randomUUID(), now.minusMinutes(10), now.minusMinutes(5));
+
+        assertEquals(List.of(email.getId()), emailOutboxRepository.findReadyIds(now, PageRequest.of(0, 10)));
+        assertEquals(1, emailOutboxRepository.claim(List.of(email.getId()), UUID.randomUUID(), now, now.plusMinutes(2)));
+    }
+
+    @Test
+    void markSentAndReschedule_UpdateStatus() {
+        LocalDateTime now = LocalDateTime.now();
+        EmailOutbox sent = persist("a@example.com", null, now);
+        EmailOutbox retried = persist("b@example.com", null, now);
+
+        emailOutboxRepository.markSent(List.of(sent.getId()), now);
+        emailOutboxRepository.reschedule(retried.getId(), now.plusMinutes(1), "421 Try again later");
+
+        entityManager.clear();
+        assertEquals(EmailOutbox.Status.SENT, emailOutboxRepository.findById(sent.getId()).orElseThrow().getStatus());
+        EmailOutbox pending = emailOutboxRepository.findById(retried.getId()).orElseThrow();
+        assertEquals(EmailOutbox.Status.PENDING, pending.getStatus());
+        assertEquals("421 Try again later", pending.getLastError());
+        assertTrue(emailOutboxRepository.findReadyIds(now, PageRequest.of(0, 10)).isEmpty());
+        assertEquals(1, emailOutboxRepository.deleteSentBefore(now.plusSeconds(1)));
+    }
+
+    private EmailOutbox persist(String recipient, String dedupKey, LocalDateTime nextAttemptAt) {
+        EmailOutbox email = new EmailOutbox(recipient, "Subject", "<p>Body</p>", dedupKey, nextAttemptAt);
+        return entityManager.persistAndFlush(email);
+    }
+}
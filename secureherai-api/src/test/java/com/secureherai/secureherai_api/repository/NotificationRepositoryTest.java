@@ -0,0 +1,142 @@
+package com.secureherai.secureherai_api.repository;
+
+import com.secureherai.secureherai_api.entity.Notification;
+import com.secureherai.secureherai_api.entity.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@ActiveProfiles("test")
+class NotificationRepositoryTest {
+
+    private static final int PAGE_SIZE = 3;
+    private static final LocalDateTime CREATED_AT = LocalDateTime.of(2026, 1, 15, 12, 0);
+    private static final AtomicInteger counter = new AtomicInteger(0);
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private NotificationRepository notificationRepository;
+
+    private User testUser;
+    private User otherUser;
+
+    @BeforeEach
+    void setUp() {
+        int uniqueId = counter.incrementAndGet();
+        testUser = entityManager.persist(createTestUser(uniqueId));
+        otherUser = entityManager.persist(createTestUser(uniqueId + 1000));
+    }
+
+    @Test
+    void findPageAfter_RowsWithEqualCreatedAt_PagesWithoutGapsOrDuplicates() {
+        // Arrange
+        List<Notification> expected = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            expected.add(persist(testUser, CREATED_AT, Notification.NotificationStatus.SENT));
+            persist(otherUser, CREATED_AT, Notification.NotificationStatus.SENT);
+        }
+        for (int i = 0; i < 2; i++) {
+            expected.add(persist(testUser, CREATED_AT.minusMinutes(1), Notification.NotificationStatus.READ));
+        }
+        entityManager.clear();
+
+        // Act
+        List<Long> paged = new ArrayList<>();
+        List<Notification> page = notificationRepository.findFirstPage(testUser.getId(), pageable());
+        while (!page.isEmpty()) {
+            page.forEach(n -> paged.add(n.getId()));
+            Notification last = page.get(page.size() - 1);
+            page = notificationRepository.findPageAfter(testUser.getId(), last.getCreatedAt(), last.getId(), pageable());
+        }
+
+        // Assert
+        assertEquals(newestFirst(expected), paged);
+        assertEquals(paged.size(), new HashSet<>(paged).size());
+    }
+
+    @Test
+    void findUnreadPageAfter_RowsWithEqualCreatedAt_SkipsReadAndPagesWithoutGapsOrDuplicates() {
+        // Arrange
+        List<Notification> expected = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            if (i % 3 == 0) {
+                persist(testUser, CREATED_AT, Notification.NotificationStatus.READ);
+            }
+            Notification.NotificationStatus status = i % 2 == 0
+                ? Notification.NotificationStatus.PENDING : Notification.NotificationStatus.SENT;
+            expected.add(persist(testUser, CREATED_AT, status));
+            persist(otherUser, CREATED_AT, Notification.NotificationStatus.SENT);
+        }
+        expected.add(persist(testUser, CREATED_AT.minusMinutes(1), Notification.NotificationStatus.SENT));
+        entityManager.clear();
+
+        // Act
+        List<Long> paged = new ArrayList<>();
+        List<Notification> page = notificationRepository.findUnreadFirstPage(testUser.getId(), pageable());
+        while (!page.isEmpty()) {
+            page.forEach(n -> paged.add(n.getId()));
+            Notification last = page.get(page.size() - 1);
+            page = notificationRepository.findUnreadPageAfter(testUser.getId(), last.getCreatedAt(), last.getId(),
+                pageable());
+        }
+
+        // Assert
+        assertEquals(newestFirst(expected), paged);
+        assertEquals(paged.size(), new HashSet<>(paged).size());
+    }
+
+    private static Pageable pageable() {
+        return PageRequest.of(0, PAGE_SIZE);
+    }
+
+    private static List<Long> newestFirst(List<Notification> notifications) {
+        return notifications.stream()
+            .sorted(Comparator.comparing(Notification::getCreatedAt).thenComparing(Notification::getId).reversed())
+            .map(Notification::getId)
+            .toList();
+    }
+
+    private Notification persist(User user, LocalDateTime createdAt, Notification.NotificationStatus status) {
+        Notification notification = new Notification(user.getId(), Notification.NotificationType.EMERGENCY_NEARBY,
+            Notification.NotificationChannel.IN_APP, "Emergency Alert", "Emergency alert nearby");
+        notification.setCreatedAt(createdAt);
+        notification.setStatus(status);
+        return entityManager.persistAndFlush(notification);
+    }
+
+    private User createTestUser(int uniqueId) {
+        User user = new User();
+        user.setFullName("Test User " + uniqueId);
+        user.setEmail("notification.user" + uniqueId + "@example.com");
+        user.setPhone("+9876544" + String.format("%03d", uniqueId));
+        user.setPasswordHash("hashedPassword");
+        user.setRole(User.Role.USER);
+        user.setEmailAlerts(true);
+        user.setSmsAlerts(true);
+        user.setPushNotifications(true);
+        user.setIsVerified(true);
+        user.setIsAccountNonExpired(true);
+        user.setIsAccountNonLocked(true);
+        user.setIsCredentialsNonExpired(true);
+        user.setIsEnabled(true);
+        user.setCreatedAt(LocalDateTime.now());
+        return user;
+    }
+}
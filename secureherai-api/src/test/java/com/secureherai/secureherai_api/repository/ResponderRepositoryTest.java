@@ -2,6 +2,7 @@ package com.secureherai.secureherai_api.repository;
 
 import com.secureherai.secureherai_api.entity.Responder;
 import com.secureherai.secureherai_api.entity.User;
+import com.secureherai.secureherai_api.util.Geohash;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -258,6 +259,53 @@ class ResponderRepositoryTest {
         assertEquals(testUser3.getId(), availableMedicalResponders.get(0).getUserId());
     }
     
+    @Test
+    void findNearestCandidates_ReturnsAvailableRespondersInNeighborhood_NearestFirst() {
+        // Arrange
+        entityManager.persist(testResponder);
+        
+        // A second responder a few km away in Manhattan
+        testUser2.setCurrentLatitude(new BigDecimal("40.730600"));
+        testUser2.setCurrentLongitude(new BigDecimal("-73.986600"));
+        Responder nearbyResponder = new Responder();
+        nearbyResponder.setUser(testUser2);
+        nearbyResponder.setResponderType(Responder.ResponderType.MEDICAL);
+        nearbyResponder.setBadgeNumber("M" + (counter.get() + 1000));
+        nearbyResponder.setStatus(Responder.Status.AVAILABLE);
+        nearbyResponder.setIsActive(true);
+        entityManager.persist(nearbyResponder);
+        
+        // A third one in Dhaka, outside the neighborhood
+        testUser3.setCurrentLatitude(new BigDecimal("23.810300"));
+        testUser3.setCurrentLongitude(new BigDecimal("90.412500"));
+        Responder farResponder = new Responder();
+        farResponder.setUser(testUser3);
+        farResponder.setResponderType(Responder.ResponderType.FIRE);
+        farResponder.setBadgeNumber("F" + (counter.get() + 2000));
+        farResponder.setStatus(Responder.Status.AVAILABLE);
+        farResponder.setIsActive(true);
+        entityManager.persist(farResponder);
+        
+        entityManager.flush();
+        
+        // Act
+        double latitude = 40.7130;
+        double longitude = -74.0050;
+        List<ResponderCandidate> candidates = responderRepository.findNearestCandidates(Responder.Status.AVAILABLE,
+            Geohash.neighborhood(latitude, longitude, 5), latitude, longitude, 10);
+        List<ResponderCandidate> busyCandidates = responderRepository.findNearestCandidates(Responder.Status.BUSY,
+            Geohash.neighborhood(latitude, longitude, 5), latitude, longitude, 10);
+        
+        // Assert
+        assertTrue(testUser.getGeohash().startsWith("dr5r"));
+        assertEquals(2, candidates.size());
+        assertEquals(testUser.getId(), candidates.get(0).getUserId());
+        assertEquals(Responder.ResponderType.POLICE, candidates.get(0).getResponderType());
+        assertEquals(40.7128, candidates.get(0).getLatitude(), 1e-6);
+        assertEquals(testUser2.getId(), candidates.get(1).getUserId());
+        assertTrue(busyCandidates.isEmpty());
+    }
+    
     @Test
     void deleteByUserId_RemovesResponder() {
         // Arrange
@@ -0,0 +1,91 @@
+package com.secureherai.secureherai_api.repository;
+
+import com.secureherai.secureherai_api.entity.ScheduledTask;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@ActiveProfiles("test")
+class ScheduledTaskRepositoryTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private ScheduledTaskRepository scheduledTaskRepository;
+
+    @Test
+    void claim_DueTask_OnlyOnce() {
+        LocalDateTime now = LocalDateTime.now();
+        ScheduledTask task = persist("alert-1", now.minusSeconds(1));
+
+        assertEquals(1, scheduledTaskRepository.claim(task.getId(), now, now.plusMinutes(5)));
+        assertEquals(0, scheduledTaskRepository.claim(task.getId(), now, now.plusMinutes(5)));
+
+        entityManager.clear();
+        ScheduledTask claimed = scheduledTaskRepository.findById(task.getId()).orElseThrow();
+        assertEquals(ScheduledTask.Status.RUNNING, claimed.getStatus());
+        assertEquals(1, claimed.getAttempts());
+    }
+
+    @Test
+    void claim_NotYetDue_Refused() {
+        LocalDateTime now = LocalDateTime.now();
+        ScheduledTask task = persist("alert-1", now.plusMinutes(1));
+
+        assertEquals(0, scheduledTaskRepository.claim(task.getId(), now, now.plusMinutes(5)));
+    }
+
+    @Test
+    void claim_ExpiredLease_TakenOver() {
+        LocalDateTime now = LocalDateTime.now();
+        ScheduledTask task = persist("alert-1", now.minusMinutes(10));
+        scheduledTaskRepository.claim(task.getId(), now.minusMinutes(10), now.minusMinutes(5));
+
+        assertEquals(1, scheduledTaskRepository.claim(task.getId(), now, now.plusMinutes(5)));
+    }
+
+    @Test
+    void findDueBefore_ReturnsPendingWithinHorizonAndAbandoned() {
+        LocalDateTime now = LocalDateTime.now();
+        ScheduledTask soon = persist("alert-1", now.plusMinutes(1));
+        persist("alert-2", now.plusHours(2));
+        ScheduledTask abandoned = persist("alert-3", now.minusMinutes(10));
+        scheduledTaskRepository.claim(abandoned.getId(), now.minusMinutes(10), now.minusMinutes(5));
+        ScheduledTask running = persist("alert-4", now.minusMinutes(1));
+        scheduledTaskRepository.claim(running.getId(), now, now.plusMinutes(5));
+
+        List<UUID> ids = scheduledTaskRepository.findDueBefore(now.plusMinutes(10), now, PageRequest.of(0, 10))
+            .stream().map(row -> (UUID) row[0]).toList();
+
+        assertEquals(List.of(abandoned.getId(), soon.getId()), ids);
+    }
+
+    @Test
+    void deletePending_RemovesOnlyThatSubject() {
+        LocalDateTime now = LocalDateTime.now();
+        persist("alert-1", now.plusMinutes(1));
+        ScheduledTask other = persist("alert-2", now.plusMinutes(1));
+
+        assertEquals(1, scheduledTaskRepository.deletePending("TEST", "alert-1"));
+
+        entityManager.clear();
+        assertEquals(List.of(other.getId()),
+            scheduledTaskRepository.findAll().stream().map(ScheduledTask::getId).toList());
+    }
+
+    private ScheduledTask persist(String taskKey, LocalDateTime dueAt) {
+        return entityManager.persistAndFlush(new ScheduledTask("TEST", taskKey, Map.of("batchNumber", 1), dueAt));
+    }
+}
@@ -0,0 +1,299 @@
+package com.secureherai.secureherai_api.scheduler;
+
+import com.secureherai.secureherai_api.entity.ScheduledTask;
+import com.secureherai.secureherai_api.repository.ScheduledTaskRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DurableTimerServiceTest {
+
+    private static final String TASK_TYPE = "TEST";
+
+    @Mock
+    private ScheduledTaskRepository scheduledTaskRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private DurableTimerService durableTimerService;
+
+    @BeforeEach
+    void setUp() {
+        durableTimerService = new DurableTimerService(scheduledTaskRepository, transactionManager);
+        ReflectionTestUtils.setField(durableTimerService, "tickMillis", 10L);
+        ReflectionTestUtils.setField(durableTimerService, "workers", 1);
+        ReflectionTestUtils.setField(durableTimerService, "queueCapacity", 10);
+        ReflectionTestUtils.setField(durableTimerService, "scanIntervalSeconds", 60L);
+        ReflectionTestUtils.setField(durableTimerService, "horizonMinutes", 10L);
+        ReflectionTestUtils.setField(durableTimerService, "scanBatchSize", 100);
+        ReflectionTestUtils.setField(durableTimerService, "leaseSeconds", 300L);
+        ReflectionTestUtils.setField(durableTimerService, "maxAttempts", 3);
+        ReflectionTestUtils.setField(durableTimerService, "retryBackoffSeconds", 10L);
+        durableTimerService.init();
+        lenient().when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+    }
+
+    @AfterEach
+    void tearDown() {
+        durableTimerService.shutdown();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void run_ClaimLost_DoesNotRunTask() {
+        // Arrange
+        UUID taskId = UUID.randomUUID();
+        DurableTimerService.TaskHandler handler = mock(DurableTimerService.TaskHandler.class);
+        durableTimerService.registerHandler(TASK_TYPE, handler);
+        when(scheduledTaskRepository.claim(eq(taskId), any(LocalDateTime.class), any(LocalDateTime.class))).thenReturn(0);
+
+        // Act
+        durableTimerService.run(taskId);
+
+        // Assert
+        verify(scheduledTaskRepository, never()).findById(any());
+        verifyNoInteractions(handler, transactionManager);
+        assertEquals(1L, durableTimerService.getStats().get("lostClaims"));
+    }
+
+    @Test
+    void run_Claimed_RunsHandlerAndDeletesTaskInOneTransaction() throws Exception {
+        // Arrange
+        ScheduledTask task = claimedTask(1);
+        DurableTimerService.TaskHandler handler = mock(DurableTimerService.TaskHandler.class);
+        durableTimerService.registerHandler(TASK_TYPE, handler);
+
+        // Act
+        LocalDateTime before = LocalDateTime.now();
+        durableTimerService.run(task.getId());
+
+        // Assert
+        ArgumentCaptor<LocalDateTime> lockedUntil = ArgumentCaptor.forClass(LocalDateTime.class);
+        InOrder inOrder = inOrder(scheduledTaskRepository, transactionManager, handler);
+        inOrder.verify(scheduledTaskRepository).claim(eq(task.getId()), any(LocalDateTime.class), lockedUntil.capture());
+        inOrder.verify(transactionManager).getTransaction(any());
+        inOrder.verify(handler).handle(task);
+        inOrder.verify(scheduledTaskRepository).deleteById(task.getId());
+        inOrder.verify(transactionManager).commit(any());
+        assertFalse(lockedUntil.getValue().isBefore(before.plusSeconds(300)));
+        assertEquals(1L, durableTimerService.getStats().get("completed"));
+    }
+
+    @Test
+    void run_HandlerFails_ReschedulesWithExponentialBackoff() throws Exception {
+        // Arrange
+        ScheduledTask task = claimedTask(2);
+        durableTimerService.registerHandler(TASK_TYPE, failingHandler());
+
+        // Act
+        long before = System.currentTimeMillis();
+        durableTimerService.run(task.getId());
+        long after = System.currentTimeMillis();
+
+        // Assert
+        ArgumentCaptor<LocalDateTime> dueAt = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(scheduledTaskRepository).reschedule(eq(task.getId()), dueAt.capture(), eq("Responder lookup failed"));
+        verify(scheduledTaskRepository, never()).deleteById(any());
+        verify(scheduledTaskRepository, never()).markFailed(any(), anyString());
+        verify(transactionManager).rollback(any());
+        // Second attempt: 10 s doubled once
+        long dueAtMillis = dueAt.getValue().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        assertTrue(dueAtMillis >= before + 20_000 && dueAtMillis <= after + 20_000);
+        assertEquals(1, durableTimerService.getStats().get("inWheel"));
+        assertEquals(1L, durableTimerService.getStats().get("retried"));
+    }
+
+    @Test
+    void run_HandlerFailsOnLastAttempt_MarksTaskFailed() throws Exception {
+        // Arrange
+        ScheduledTask task = claimedTask(3);
+        durableTimerService.registerHandler(TASK_TYPE, failingHandler());
+
+        // Act
+        durableTimerService.run(task.getId());
+
+        // Assert
+        verify(scheduledTaskRepository).markFailed(task.getId(), "Responder lookup failed");
+        verify(scheduledTaskRepository, never()).reschedule(any(), any(), any());
+        assertEquals(0, durableTimerService.getStats().get("inWheel"));
+        assertEquals(1L, durableTimerService.getStats().get("failed"));
+    }
+
+    @Test
+    void schedule_InTransaction_ArmsWheelOnlyAfterCommit() {
+        // Arrange
+        stubSave();
+        TransactionSynchronizationManager.initSynchronization();
+
+        // Act
+        durableTimerService.schedule(TASK_TYPE, "alert-1", Map.of("batchNumber", 1), Duration.ofHours(1));
+
+        // Assert
+        assertEquals(0, durableTimerService.getStats().get("inWheel"));
+        commit();
+        assertEquals(1, durableTimerService.getStats().get("inWheel"));
+    }
+
+    @Test
+    void schedule_RolledBack_NeverArmsWheel() {
+        // Arrange
+        stubSave();
+        TransactionSynchronizationManager.initSynchronization();
+
+        // Act
+        durableTimerService.schedule(TASK_TYPE, "alert-1", Map.of("batchNumber", 1), Duration.ofHours(1));
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+        }
+
+        // Assert
+        assertEquals(0, durableTimerService.getStats().get("inWheel"));
+    }
+
+    @Test
+    void schedule_AlreadyDue_RunsOnlyAfterCommit() throws Exception {
+        // Arrange
+        ScheduledTask task = stubSave();
+        CountDownLatch handled = new CountDownLatch(1);
+        durableTimerService.registerHandler(TASK_TYPE, scheduledTask -> handled.countDown());
+        when(scheduledTaskRepository.claim(eq(task.getId()), any(LocalDateTime.class), any(LocalDateTime.class))).thenReturn(1);
+        when(scheduledTaskRepository.findById(task.getId())).thenReturn(Optional.of(task));
+        TransactionSynchronizationManager.initSynchronization();
+
+        // Act
+        durableTimerService.schedule(TASK_TYPE, "alert-1", Map.of("batchNumber", 1), Duration.ZERO);
+
+        // Assert
+        assertFalse(handled.await(200, TimeUnit.MILLISECONDS));
+        commit();
+        assertTrue(handled.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void cancel_InTransaction_RemovesFromWheelAfterCommit() {
+        // Arrange
+        ScheduledTask task = stubSave();
+        durableTimerService.schedule(TASK_TYPE, "alert-1", Map.of("batchNumber", 1), Duration.ofHours(1));
+        when(scheduledTaskRepository.findOpenIds(TASK_TYPE, "alert-1")).thenReturn(List.of(task.getId()));
+        when(scheduledTaskRepository.deletePending(TASK_TYPE, "alert-1")).thenReturn(1);
+        TransactionSynchronizationManager.initSynchronization();
+
+        // Act
+        int canceled = durableTimerService.cancel(TASK_TYPE, "alert-1");
+
+        // Assert
+        assertEquals(1, canceled);
+        assertEquals(1, durableTimerService.getStats().get("inWheel"));
+        commit();
+        assertEquals(0, durableTimerService.getStats().get("inWheel"));
+    }
+
+    @Test
+    void recover_ExpiredRunningLease_RunsTaskAgain() throws Exception {
+        // Arrange
+        ScheduledTask abandoned = claimedTask(2);
+        ScheduledTask later = new ScheduledTask(TASK_TYPE, "alert-2", Map.of(), LocalDateTime.now().plusMinutes(5));
+        later.setId(UUID.randomUUID());
+        CountDownLatch handled = new CountDownLatch(1);
+        durableTimerService.registerHandler(TASK_TYPE, scheduledTask -> handled.countDown());
+        when(scheduledTaskRepository.findDueBefore(any(LocalDateTime.class), any(LocalDateTime.class), any(Pageable.class)))
+            .thenReturn(List.of(
+                new Object[] {abandoned.getId(), LocalDateTime.now().minusMinutes(10)},
+                new Object[] {later.getId(), later.getDueAt()}));
+
+        // Act
+        durableTimerService.recover();
+
+        // Assert
+        assertTrue(handled.await(5, TimeUnit.SECONDS));
+        ArgumentCaptor<LocalDateTime> horizon = ArgumentCaptor.forClass(LocalDateTime.class);
+        ArgumentCaptor<LocalDateTime> now = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(scheduledTaskRepository).findDueBefore(horizon.capture(), now.capture(), any(Pageable.class));
+        // The horizon reaches a scan interval past the configured one
+        assertEquals(Duration.ofMinutes(11), Duration.between(now.getValue(), horizon.getValue()));
+        verify(scheduledTaskRepository, never()).claim(eq(later.getId()), any(), any());
+        assertEquals(2L, durableTimerService.getStats().get("recovered"));
+    }
+
+    @Test
+    void scan_TaskAlreadyInWheel_IsNotArmedAgain() {
+        // Arrange
+        ScheduledTask task = stubSave();
+        durableTimerService.schedule(TASK_TYPE, "alert-1", Map.of("batchNumber", 1), Duration.ofHours(1));
+        when(scheduledTaskRepository.findDueBefore(any(LocalDateTime.class), any(LocalDateTime.class), any(Pageable.class)))
+            .thenReturn(List.<Object[]>of(new Object[] {task.getId(), task.getDueAt()}));
+
+        // Act
+        durableTimerService.scan();
+
+        // Assert
+        assertEquals(1, durableTimerService.getStats().get("inWheel"));
+        assertEquals(0L, durableTimerService.getStats().get("recovered"));
+    }
+
+    // A task as the claim left it: RUNNING, with the attempt counted
+    private ScheduledTask claimedTask(int attempts) {
+        ScheduledTask task = new ScheduledTask(TASK_TYPE, "alert-1", Map.of("batchNumber", 1), LocalDateTime.now());
+        task.setId(UUID.randomUUID());
+        task.setStatus(ScheduledTask.Status.RUNNING);
+        task.setAttempts(attempts);
+        when(scheduledTaskRepository.claim(eq(task.getId()), any(LocalDateTime.class), any(LocalDateTime.class))).thenReturn(1);
+        when(scheduledTaskRepository.findById(task.getId())).thenReturn(Optional.of(task));
+        return task;
+    }
+
+    private ScheduledTask stubSave() {
+        UUID taskId = UUID.randomUUID();
+        when(scheduledTaskRepository.save(any(ScheduledTask.class))).thenAnswer(invocation -> {
+            ScheduledTask task = invocation.getArgument(0);
+            task.setId(taskId);
+            return task;
+        });
+        ScheduledTask task = new ScheduledTask(TASK_TYPE, "alert-1", Map.of("batchNumber", 1), LocalDateTime.now().plusHours(1));
+        task.setId(taskId);
+        return task;
+    }
+
+    private static DurableTimerService.TaskHandler failingHandler() {
+        return task -> {
+            throw new IllegalStateException("Responder lookup failed");
+        };
+    }
+
+    private static void commit() {
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCommit();
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.secureherai.secureherai_api.scheduler;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HierarchicalTimingWheelTest {
+
+    private static final long START = 1_700_000_000_000L;
+
+    @Test
+    void advance_FiresOnlyOnceDue() {
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(1000, 64, START);
+        assertTrue(wheel.schedule("a", START + 2500));
+
+        assertTrue(wheel.advance(START + 2499).isEmpty());
+        assertEquals(List.of("a"), wheel.advance(START + 2500));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void schedule_AlreadyDue_ReturnsFalse() {
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(1000, 64, START);
+
+        assertFalse(wheel.schedule("past", START - 1));
+        assertFalse(wheel.schedule("now", START));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void schedule_OneHourAhead_CascadesThroughLevels() {
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(1000, 64, START);
+        long due = START + 3_600_000L;
+        wheel.schedule("escalation", due);
+
+        assertTrue(wheel.levels() >= 2);
+        List<String> fired = new ArrayList<>();
+        for (long now = START; now < due; now += 1000) {
+            fired.addAll(wheel.advance(now));
+        }
+        assertTrue(fired.isEmpty());
+        assertEquals(List.of("escalation"), wheel.advance(due));
+    }
+
+    @Test
+    void cancel_RemovesTimer() {
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(100, 8, START);
+        wheel.schedule("a", START + 500);
+        wheel.schedule("b", START + 500);
+
+        assertTrue(wheel.cancel("a"));
+        assertFalse(wheel.cancel("a"));
+        assertEquals(List.of("b"), wheel.advance(START + 1000));
+    }
+
+    @Test
+    void schedule_SameKey_ReplacesDueTime() {
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(100, 8, START);
+        wheel.schedule("a", START + 300);
+        wheel.schedule("a", START + 5000);
+
+        assertTrue(wheel.advance(START + 4900).isEmpty());
+        assertEquals(List.of("a"), wheel.advance(START + 5000));
+    }
+
+    @Test
+    void advance_RandomTimers_EachFiresWithinOneTickOfDue() {
+        long tick = 100;
+        HierarchicalTimingWheel<Integer> wheel = new HierarchicalTimingWheel<>(tick, 8, START);
+        Random random = new Random(42);
+        long[] due = new long[2000];
+        for (int i = 0; i < due.length; i++) {
+            due[i] = START + 1 + random.nextInt(2_000_000);
+            assertTrue(wheel.schedule(i, due[i]));
+        }
+
+        int fired = 0;
+        for (long now = START; now <= START + 2_000_000 + tick; now += 37) {
+            for (int key : wheel.advance(now)) {
+                assertTrue(due[key] <= now, "fired early");
+                assertTrue(now - due[key] < tick + 37, "fired late");
+                fired++;
+            }
+        }
+        assertEquals(due.length, fired);
+    }
+
+    @Test
+    void advance_IdleWheel_JumpsAhead() {
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(1000, 64, START);
+        wheel.advance(START + 86_400_000L);
+
+        wheel.schedule("a", START + 86_402_000L);
+
+        assertTrue(wheel.advance(START + 86_401_000L).isEmpty());
+        assertEquals(List.of("a"), wheel.advance(START + 86_402_000L));
+    }
+}
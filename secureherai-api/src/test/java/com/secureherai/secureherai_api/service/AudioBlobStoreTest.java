@@ -0,0 +1,112 @@
+package com.secureherai.secureherai_api.service;
+
+import com.secureherai.secureherai_api.service.AudioBlobStore.StagedAudio;
+import com.secureherai.secureherai_api.util.AudioBufferPool;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AudioBlobStoreTest {
+
+    @TempDir
+    Path tempDir;
+
+    private AudioBlobStore audioBlobStore;
+
+    @BeforeEach
+    void setUp() {
+        audioBlobStore = new AudioBlobStore();
+        ReflectionTestUtils.setField(audioBlobStore, "blobDirectory", tempDir.resolve("sos").toString());
+        ReflectionTestUtils.setField(audioBlobStore, "stagingDirectory", tempDir.resolve("temp").toString());
+    }
+
+    @Test
+    void stage_HashesWhileWriting() throws Exception {
+        MockMultipartFile upload = new MockMultipartFile("audio", "help.WAV", "audio/wav", "abc".getBytes());
+
+        StagedAudio staged = audioBlobStore.stage(upload);
+
+        assertTrue(staged.getFile().exists());
+        assertEquals(3, staged.getSize());
+        assertEquals(".wav", staged.getExtension());
+        // sha256("abc")
+        assertEquals("ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad", staged.getSha256());
+    }
+
+    @Test
+    void promote_StoresInShardedDirectoryAndKeepsStagedFile() throws Exception {
+        StagedAudio staged = audioBlobStore.stage(
+            new MockMultipartFile("audio", "help.wav", "audio/wav", "abc".getBytes()));
+
+        String url = audioBlobStore.promote(staged);
+
+        assertTrue(url.endsWith("sos/ba/78/ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad.wav"));
+        assertArrayEquals("abc".getBytes(), Files.readAllBytes(Paths.get(url)));
+        assertTrue(staged.getFile().exists());
+    }
+
+    @Test
+    void promote_IdenticalUpload_IsStoredOnce() throws Exception {
+        StagedAudio first = audioBlobStore.stage(
+            new MockMultipartFile("audio", "one.wav", "audio/wav", "same recording".getBytes()));
+        StagedAudio second = audioBlobStore.stage(
+            new MockMultipartFile("audio", "two.wav", "audio/wav", "same recording".getBytes()));
+
+        String firstUrl = audioBlobStore.promote(first);
+        String secondUrl = audioBlobStore.promote(second);
+
+        assertEquals(firstUrl, secondUrl);
+        try (Stream<Path> blobs = Files.walk(tempDir.resolve("sos"))) {
+            assertEquals(1, blobs.filter(Files::isRegularFile).count());
+        }
+        assertEquals(1L, audioBlobStore.getStats().get("duplicatesSkipped"));
+    }
+
+    @Test
+    void stage_ShortUploadWithBufferPool_HeldInMemoryUntilReleased() throws Exception {
+        AudioBufferPool pool = bufferPool(8);
+        ReflectionTestUtils.setField(audioBlobStore, "audioBufferPool", pool);
+
+        StagedAudio staged = audioBlobStore.stage(
+            new MockMultipartFile("audio", "help.wav", "audio/wav", "abc".getBytes()));
+        String url = audioBlobStore.promote(staged);
+
+        assertTrue(staged.isInMemory());
+        assertNull(staged.getFile());
+        assertEquals("ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad", staged.getSha256());
+        assertArrayEquals("abc".getBytes(), Files.readAllBytes(Paths.get(url)));
+        assertFalse(Files.exists(tempDir.resolve("temp")), "Nothing should be staged on disk");
+
+        staged.releaseBuffer();
+        assertEquals(1, pool.getStats().get("free"));
+    }
+
+    @Test
+    void stage_UploadLargerThanBuffer_StagedOnDisk() throws Exception {
+        ReflectionTestUtils.setField(audioBlobStore, "audioBufferPool", bufferPool(2));
+
+        StagedAudio staged = audioBlobStore.stage(
+            new MockMultipartFile("audio", "help.wav", "audio/wav", "abc".getBytes()));
+
+        assertFalse(staged.isInMemory());
+        assertTrue(staged.getFile().exists());
+    }
+
+    private static AudioBufferPool bufferPool(int bufferBytes) {
+        AudioBufferPool pool = new AudioBufferPool();
+        ReflectionTestUtils.setField(pool, "enabled", true);
+        ReflectionTestUtils.setField(pool, "bufferBytes", bufferBytes);
+        ReflectionTestUtils.setField(pool, "maxBuffers", 1);
+        ReflectionTestUtils.invokeMethod(pool, "init");
+        return pool;
+    }
+}
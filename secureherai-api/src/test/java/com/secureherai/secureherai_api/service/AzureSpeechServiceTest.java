@@ -1,7 +1,11 @@
 package com.secureherai.secureherai_api.service;
 
+import com.secureherai.secureherai_api.exception.SpeechEngineUnavailableException;
 import com.secureherai.secureherai_api.service.AzureSpeechService.SpeechTranscriptionResult;
+import com.secureherai.secureherai_api.service.speech.SpeechRecognitionEngine;
+import com.secureherai.secureherai_api.service.speech.StreamingRecognition;
 import com.secureherai.secureherai_api.util.AudioFormatConverter;
+import com.secureherai.secureherai_api.util.Deadline;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -329,4 +333,64 @@ class AzureSpeechServiceTest {
         verify(audioConverter).isSupportedByExtension(testAudioFile.getName());
         verify(audioConverter).convertToWav(testAudioFile);
     }
+
+    @Test
+    void transcribeAudioFile_KnownContentHash_UsesItAsCacheKeyWithoutRehashing() throws Exception {
+        // Arrange
+        TranscriptionCache transcriptionCache = mock(TranscriptionCache.class);
+        SpeechTranscriptionResult cachedResult = new SpeechTranscriptionResult(true, "please help", 1.0, "ok");
+        when(audioConverter.isSupportedByExtension(testAudioFile.getName())).thenReturn(true);
+        when(transcriptionCache.get(eq("ab12"), isNull(), any())).thenReturn(cachedResult);
+        ReflectionTestUtils.setField(azureSpeechService, "transcriptionCache", transcriptionCache);
+
+        // Act
+        SpeechTranscriptionResult result = azureSpeechService.transcribeAudioFile(testAudioFile, "ab12");
+
+        // Assert
+        assertSame(cachedResult, result);
+        verify(testAudioFile, never()).toPath();
+        verify(audioConverter, never()).convertToWav(any());
+    }
+
+    @Test
+    void startStreamingRecognition_LocalEngine_ThrowsUnsupportedOperationException() {
+        // Arrange
+        ReflectionTestUtils.setField(azureSpeechService, "engineType", "local");
+
+        // Act & Assert
+        assertThrows(UnsupportedOperationException.class, () ->
+                azureSpeechService.startStreamingRecognition("en-US", text -> {}, text -> {}, error -> {}));
+    }
+
+    @Test
+    void startStreamingRecognition_EngineUnavailable_ThrowsWithoutConnecting() {
+        // Arrange
+        SpeechRecognitionEngine engine = mock(SpeechRecognitionEngine.class);
+        when(engine.isAvailable()).thenReturn(false);
+        ReflectionTestUtils.setField(azureSpeechService, "engineType", "azure");
+        ReflectionTestUtils.setField(azureSpeechService, "speechRecognitionEngine", engine);
+
+        // Act & Assert
+        assertThrows(SpeechEngineUnavailableException.class, () ->
+                azureSpeechService.startStreamingRecognition("en-US", text -> {}, text -> {}, error -> {}));
+        verify(engine).isAvailable();
+    }
+
+    @Test
+    void startStreamingRecognition_GoesThroughSpeechEngine() throws Exception {
+        // Arrange
+        SpeechRecognitionEngine engine = mock(SpeechRecognitionEngine.class);
+        StreamingRecognition recognition = mock(StreamingRecognition.class);
+        when(engine.isAvailable()).thenReturn(true);
+        when(engine.startStreaming(eq("en-US"), any(), any(), any(), any(Deadline.class))).thenReturn(recognition);
+        ReflectionTestUtils.setField(azureSpeechService, "engineType", "azure");
+        ReflectionTestUtils.setField(azureSpeechService, "speechRecognitionEngine", engine);
+
+        // Act
+        StreamingRecognition result =
+                azureSpeechService.startStreamingRecognition("en-US", text -> {}, text -> {}, error -> {});
+
+        // Assert
+        assertSame(recognition, result);
+    }
 }
@@ -0,0 +1,121 @@
+package com.secureherai.secureherai_api.service;
+
+import com.secureherai.secureherai_api.service.AzureSpeechService.SpeechTranscriptionResult;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EarlyExitTranscriptionTest {
+
+    private final Predicate<String> keywordMatcher = text -> text.toLowerCase().contains("help");
+
+    @Test
+    void onPartial_KeywordInConsecutiveHypotheses_ConfirmedBeforeTranscriptFinishes() throws Exception {
+        EarlyExitTranscription transcription = new EarlyExitTranscription(keywordMatcher, 2);
+
+        transcription.onPartial("please");
+        transcription.onPartial("please help");
+        assertFalse(transcription.isKeywordConfirmed());
+        transcription.onPartial("please help me");
+
+        assertEquals("please help me", transcription.awaitKeyword(1, TimeUnit.SECONDS));
+        assertFalse(transcription.getTranscript().isDone());
+    }
+
+    @Test
+    void onPartial_RevisedHypothesis_ResetsConfirmation() {
+        EarlyExitTranscription transcription = new EarlyExitTranscription(keywordMatcher, 2);
+
+        transcription.onPartial("kelp");
+        transcription.onPartial("help");
+        transcription.onPartial("yelp");
+        transcription.onPartial("yelp me");
+
+        assertFalse(transcription.isKeywordConfirmed());
+    }
+
+    @Test
+    void onFinal_KeywordInPhrase_ConfirmedImmediately() throws Exception {
+        EarlyExitTranscription transcription = new EarlyExitTranscription(keywordMatcher, 3);
+
+        transcription.onFinal("Help me.");
+
+        assertEquals("Help me.", transcription.awaitKeyword(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void onStopped_JoinsPhrasesIntoTranscript() throws Exception {
+        EarlyExitTranscription transcription = new EarlyExitTranscription(keywordMatcher, 1);
+
+        transcription.onPartial("help");
+        transcription.onFinal("Help me.");
+        transcription.onFinal("I am near the station.");
+        transcription.onStopped(true);
+
+        SpeechTranscriptionResult transcript = transcription.awaitTranscript(1, TimeUnit.SECONDS);
+        assertTrue(transcript.isSuccess());
+        assertEquals("Help me. I am near the station.", transcript.getText());
+        assertEquals("help", transcription.awaitKeyword(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void onStopped_NoKeyword_KeywordResultIsNull() throws Exception {
+        EarlyExitTranscription transcription = new EarlyExitTranscription(keywordMatcher, 1);
+
+        transcription.onFinal("I am on my way home.");
+        transcription.onStopped(true);
+
+        assertNull(transcription.awaitKeyword(1, TimeUnit.SECONDS));
+        assertEquals("I am on my way home.", transcription.awaitTranscript(1, TimeUnit.SECONDS).getText());
+    }
+
+    @Test
+    void onStopped_ErrorWithoutSpeech_ReportsUnavailable() throws Exception {
+        EarlyExitTranscription transcription = new EarlyExitTranscription(keywordMatcher, 1);
+
+        transcription.onError("ServiceTimeout - no response");
+        transcription.onStopped(false);
+
+        SpeechTranscriptionResult transcript = transcription.awaitTranscript(1, TimeUnit.SECONDS);
+        assertFalse(transcript.isSuccess());
+        assertTrue(transcript.isEngineUnavailable());
+    }
+
+    @Test
+    void onStopped_ErrorAfterPhrases_TruncatedTranscriptIsNotASuccess() throws Exception {
+        EarlyExitTranscription transcription = new EarlyExitTranscription(keywordMatcher, 1);
+
+        transcription.onFinal("I am near the");
+        transcription.onError("ConnectionFailure - connection was closed");
+        transcription.onStopped(false);
+
+        SpeechTranscriptionResult transcript = transcription.awaitTranscript(1, TimeUnit.SECONDS);
+        assertFalse(transcript.isSuccess());
+        assertTrue(transcript.getMessage().contains("ConnectionFailure"));
+    }
+
+    @Test
+    void onStopped_NotDrainedInTime_TruncatedTranscriptIsNotASuccess() throws Exception {
+        EarlyExitTranscription transcription = new EarlyExitTranscription(keywordMatcher, 1);
+
+        transcription.onFinal("I am near the");
+        transcription.onStopped(false);
+
+        SpeechTranscriptionResult transcript = transcription.awaitTranscript(1, TimeUnit.SECONDS);
+        assertFalse(transcript.isSuccess());
+        assertEquals("Recognition did not finish in time", transcript.getMessage());
+        assertNull(transcription.awaitKeyword(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void finished_CompletesBothResults() throws Exception {
+        EarlyExitTranscription transcription = EarlyExitTranscription.finished(
+            new SpeechTranscriptionResult(true, "help me", 1.0, "ok"), keywordMatcher);
+
+        assertEquals("help me", transcription.awaitKeyword(0, TimeUnit.SECONDS));
+        assertTrue(transcription.getTranscript().isDone());
+    }
+}
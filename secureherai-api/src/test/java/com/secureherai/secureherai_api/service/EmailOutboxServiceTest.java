@@ -0,0 +1,169 @@
+package com.secureherai.secureherai_api.service;
+
+import com.secureherai.secureherai_api.entity.EmailOutbox;
+import com.secureherai.secureherai_api.repository.EmailOutboxRepository;
+import com.secureherai.secureherai_api.util.FakeSmtpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class EmailOutboxServiceTest {
+
+    @Mock
+    private EmailOutboxRepository emailOutboxRepository;
+
+    private FakeSmtpServer smtpServer;
+    private EmailOutboxService emailOutboxService;
+
+    @BeforeEach
+    void setUp() {
+        smtpServer = new FakeSmtpServer();
+        JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("localhost");
+        mailSender.setPort(smtpServer.getPort());
+
+        emailOutboxService = new EmailOutboxService(emailOutboxRepository, mailSender);
+        ReflectionTestUtils.setField(emailOutboxService, "fromEmail", "noreply@secureherai.com");
+        ReflectionTestUtils.setField(emailOutboxService, "workers", 1);
+        ReflectionTestUtils.setField(emailOutboxService, "batchSize", 20);
+        ReflectionTestUtils.setField(emailOutboxService, "maxAttempts", 3);
+        ReflectionTestUtils.setField(emailOutboxService, "retryBackoffSeconds", 15L);
+        ReflectionTestUtils.setField(emailOutboxService, "maxBackoffSeconds", 1800L);
+        ReflectionTestUtils.setField(emailOutboxService, "connectionIdleSeconds", 60L);
+        emailOutboxService.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        emailOutboxService.shutdown();
+        smtpServer.close();
+    }
+
+    @Test
+    void enqueue_NewRecipient_SavesRowWithDedupKey() {
+        when(emailOutboxRepository.existsByDedupKey("alert:42|contact@example.com")).thenReturn(false);
+
+        boolean queued = emailOutboxService.enqueue(" Contact@Example.com ", "Subject", "<p>Body</p>", "alert:42");
+
+        assertTrue(queued);
+        ArgumentCaptor<EmailOutbox> saved = ArgumentCaptor.forClass(EmailOutbox.class);
+        verify(emailOutboxRepository).save(saved.capture());
+        assertEquals("Contact@Example.com", saved.getValue().getRecipient());
+        assertEquals("alert:42|contact@example.com", saved.getValue().getDedupKey());
+        assertEquals(EmailOutbox.Status.PENDING, saved.getValue().getStatus());
+    }
+
+    @Test
+    void enqueue_SameReferenceAndRecipient_NotQueuedAgain() {
+        when(emailOutboxRepository.existsByDedupKey("alert:42|contact@example.com")).thenReturn(true);
+
+        boolean queued = emailOutboxService.enqueue("contact@example.com", "Subject", "<p>Body</p>", "alert:42");
+
+        assertFalse(queued);
+        verify(emailOutboxRepository, never()).save(any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void send_Batch_SentOverOneConnectionAndMarkedTogether() {
+        List<EmailOutbox> batch = List.of(
+            row("a@example.com", "alert:1|a@example.com"),
+            row("b@example.com", "alert:1|b@example.com"),
+            row("c@example.com", null));
+
+        emailOutboxService.send(batch);
+
+        assertEquals(3, smtpServer.getMessages().size());
+        assertEquals(1, smtpServer.getConnections());
+        assertTrue(smtpServer.getMessages().get(0).getData().contains("<p>Body</p>"));
+        ArgumentCaptor<Collection<UUID>> ids = ArgumentCaptor.forClass(Collection.class);
+        verify(emailOutboxRepository).markSent(ids.capture(), any(LocalDateTime.class));
+        assertEquals(3, ids.getValue().size());
+    }
+
+    @Test
+    void send_NextBatch_ReusesConnection() {
+        emailOutboxService.send(List.of(row("a@example.com", null)));
+        emailOutboxService.send(List.of(row("b@example.com", null)));
+
+        assertEquals(2, smtpServer.getMessages().size());
+        assertEquals(1, smtpServer.getConnections());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void send_SameKeyTwiceInBatch_SentOnce() {
+        EmailOutbox first = row("a@example.com", "alert:1|a@example.com");
+        EmailOutbox second = row("a@example.com", "alert:1|a@example.com");
+
+        emailOutboxService.send(List.of(first, second));
+
+        assertEquals(1, smtpServer.getMessages().size());
+        ArgumentCaptor<Collection<UUID>> ids = ArgumentCaptor.forClass(Collection.class);
+        verify(emailOutboxRepository).markSent(ids.capture(), any(LocalDateTime.class));
+        assertTrue(ids.getValue().containsAll(List.of(first.getId(), second.getId())));
+    }
+
+    @Test
+    void send_RecipientRejected_FailsAtOnceAndSendsTheRest() {
+        EmailOutbox rejected = row("rejected@example.com", null);
+
+        emailOutboxService.send(List.of(rejected, row("a@example.com", null)));
+
+        verify(emailOutboxRepository).markFailed(eq(rejected.getId()), anyString());
+        verify(emailOutboxRepository, never()).reschedule(any(), any(), any());
+        assertEquals(1, smtpServer.getMessages().size());
+        assertEquals(1, smtpServer.getConnections());
+    }
+
+    @Test
+    void send_ServerUnavailable_RetriedWithBackoff() {
+        smtpServer.close();
+        EmailOutbox email = row("a@example.com", null);
+
+        emailOutboxService.send(List.of(email));
+
+        ArgumentCaptor<LocalDateTime> nextAttempt = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(emailOutboxRepository).reschedule(eq(email.getId()), nextAttempt.capture(), any());
+        assertTrue(nextAttempt.getValue().isAfter(LocalDateTime.now().plusSeconds(10)));
+        verify(emailOutboxRepository, never()).markSent(any(), any());
+    }
+
+    @Test
+    void send_ServerUnavailableOnLastAttempt_MarkedFailed() {
+        smtpServer.close();
+        EmailOutbox email = row("a@example.com", null);
+        email.setAttempts(3);
+
+        emailOutboxService.send(List.of(email));
+
+        verify(emailOutboxRepository).markFailed(eq(email.getId()), any());
+        verify(emailOutboxRepository, never()).reschedule(any(), any(), any());
+    }
+
+    private static EmailOutbox row(String recipient, String dedupKey) {
+        EmailOutbox email = new EmailOutbox(recipient, "Subject", "<p>Body</p>", dedupKey, LocalDateTime.now());
+        email.setId(UUID.randomUUID());
+        email.setStatus(EmailOutbox.Status.SENDING);
+        email.setAttempts(1);
+        return email;
+    }
+}
@@ -0,0 +1,89 @@
+package com.secureherai.secureherai_api.service;
+
+import com.secureherai.secureherai_api.entity.Settings;
+import com.secureherai.secureherai_api.repository.SettingsRepository;
+import com.secureherai.secureherai_api.util.KeywordAutomaton;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class KeywordMatcherServiceTest {
+
+    @Mock
+    private SettingsRepository settingsRepository;
+
+    @InjectMocks
+    private KeywordMatcherService keywordMatcherService;
+
+    private UUID testUserId;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(keywordMatcherService, "cacheMaxUsers", 100);
+        testUserId = UUID.randomUUID();
+    }
+
+    @Test
+    void automaton_MatchesWholeWordsOnly() {
+        KeywordAutomaton automaton = KeywordAutomaton.compile(List.of("help", "sos", "help me"));
+
+        assertTrue(automaton.matches("Please HELP!"));
+        assertTrue(automaton.matches("sos"));
+        assertTrue(automaton.matches("someone... help,   me"));
+        assertFalse(automaton.matches("that was helpful"));
+        assertFalse(automaton.matches("an sosa sauce"));
+        assertFalse(automaton.matches(""));
+        assertFalse(automaton.matches(null));
+    }
+
+    @Test
+    void automaton_OverlappingKeywords_FindsLaterMatch() {
+        KeywordAutomaton automaton = KeywordAutomaton.compile(List.of("call the police", "police"));
+
+        assertEquals(1, automaton.findFirst("call the cops, no, police"));
+        assertEquals(0, automaton.findFirst("call the police now"));
+    }
+
+    @Test
+    void matches_UsesDefaultAndCustomKeywords() {
+        Settings settings = new Settings();
+        settings.setSosKeyword("bachao, red umbrella");
+        when(settingsRepository.findByUserId(testUserId)).thenReturn(Optional.of(settings));
+
+        assertTrue(keywordMatcherService.matches("Bachao!", testUserId));
+        assertTrue(keywordMatcherService.matches("I see a red umbrella", testUserId));
+        assertTrue(keywordMatcherService.matches("emergency", testUserId));
+        assertFalse(keywordMatcherService.matches("red wine", testUserId));
+
+        // Compiled once, then served from the cache
+        verify(settingsRepository, times(1)).findByUserId(testUserId);
+    }
+
+    @Test
+    void invalidate_ReloadsChangedKeyword() {
+        Settings settings = new Settings();
+        settings.setSosKeyword("bachao");
+        when(settingsRepository.findByUserId(testUserId)).thenReturn(Optional.of(settings));
+
+        assertTrue(keywordMatcherService.matches("bachao", testUserId));
+
+        settings.setSosKeyword("pineapple");
+        keywordMatcherService.invalidate(testUserId);
+
+        assertFalse(keywordMatcherService.matches("bachao", testUserId));
+        assertTrue(keywordMatcherService.matches("pineapple", testUserId));
+        verify(settingsRepository, times(2)).findByUserId(testUserId);
+    }
+}
@@ -0,0 +1,335 @@
+package com.secureherai.secureherai_api.service;
+
+import com.secureherai.secureherai_api.cluster.ClusterEventBus;
+import com.secureherai.secureherai_api.entity.Alert;
+import com.secureherai.secureherai_api.entity.Notification;
+import com.secureherai.secureherai_api.entity.Responder;
+import com.secureherai.secureherai_api.entity.ScheduledTask;
+import com.secureherai.secureherai_api.repository.AlertRepository;
+import com.secureherai.secureherai_api.repository.AlertResponderRepository;
+import com.secureherai.secureherai_api.repository.NotificationRepository;
+import com.secureherai.secureherai_api.repository.ResponderRepository;
+import com.secureherai.secureherai_api.repository.TrustedContactRepository;
+import com.secureherai.secureherai_api.repository.UserRepository;
+import com.secureherai.secureherai_api.scheduler.DurableTimerService;
+import com.secureherai.secureherai_api.util.Deadline;
+import com.secureherai.secureherai_api.util.GeoGridIndex.Neighbor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class NotificationServiceTest {
+
+    @Mock
+    private NotificationRepository notificationRepository;
+
+    @Mock
+    private TrustedContactRepository trustedContactRepository;
+
+    @Mock
+    private ResponderRepository responderRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private EmailService emailService;
+
+    @Mock
+    private EmailOutboxService emailOutboxService;
+
+    @Mock
+    private AlertResponderRepository alertResponderRepository;
+
+    @Mock
+    private AlertRepository alertRepository;
+
+    @Mock
+    private DurableTimerService durableTimerService;
+
+    @Mock
+    private ResponderLocationIndex responderLocationIndex;
+
+    @Mock
+    private UnreadCounterService unreadCounterService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private ClusterEventBus clusterEventBus;
+
+    @InjectMocks
+    private NotificationService notificationService;
+
+    private Alert alert;
+    private Responder responder;
+
+    @BeforeEach
+    void setUp() {
+        notificationService.registerTimerHandlers();
+
+        alert = new Alert();
+        alert.setId(UUID.randomUUID());
+        alert.setUserId(UUID.randomUUID());
+        alert.setLatitude(BigDecimal.valueOf(23.8103));
+        alert.setLongitude(BigDecimal.valueOf(90.4125));
+        alert.setAddress("Dhaka, Bangladesh");
+
+        responder = new Responder();
+        responder.setUserId(UUID.randomUUID());
+    }
+
+    @Test
+    void sendSOSAlertNotifications_DeadlinePassed_NotifiesRespondersInOwnTransaction() throws Exception {
+        // Arrange
+        stubNearbyResponder();
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        CountDownLatch committed = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            committed.countDown();
+            return null;
+        }).when(transactionManager).commit(any());
+
+        // Act
+        notificationService.sendSOSAlertNotifications(alert, Deadline.after(Duration.ZERO));
+
+        // Assert
+        assertTrue(committed.await(5, TimeUnit.SECONDS));
+        InOrder inOrder = inOrder(transactionManager, notificationRepository, durableTimerService);
+        inOrder.verify(transactionManager).getTransaction(any());
+        inOrder.verify(notificationRepository, atLeastOnce()).saveAll(anyList());
+        inOrder.verify(durableTimerService).schedule(eq(NotificationService.BATCH_ESCALATION_TASK),
+            eq(alert.getId().toString()), anyMap(), any(Duration.class));
+        inOrder.verify(transactionManager).commit(any());
+    }
+
+    @Test
+    void sendSOSAlertNotifications_WithinDeadline_NotifiesRespondersInCallersTransaction() {
+        // Arrange
+        stubNearbyResponder();
+
+        // Act
+        notificationService.sendSOSAlertNotifications(alert, Deadline.none());
+
+        // Assert
+        verify(durableTimerService).schedule(eq(NotificationService.BATCH_ESCALATION_TASK),
+            eq(alert.getId().toString()), anyMap(), any(Duration.class));
+        verifyNoInteractions(transactionManager);
+    }
+
+    @Test
+    void createNotifications_SavesBatchTogetherAndCountsUnreadPerUser() {
+        // Arrange
+        ReflectionTestUtils.setField(notificationService, "clusterEventBus", clusterEventBus);
+        UUID userId = UUID.randomUUID();
+        UUID otherUserId = UUID.randomUUID();
+        List<Notification> notifications = List.of(inAppNotification(userId), inAppNotification(userId),
+            inAppNotification(otherUserId));
+        List<Notification.NotificationStatus> savedStatuses = new ArrayList<>();
+        when(notificationRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            invocation.<List<Notification>>getArgument(0).forEach(n -> savedStatuses.add(n.getStatus()));
+            return invocation.getArgument(0);
+        });
+
+        // Act
+        List<Notification> saved = notificationService.createNotifications(notifications);
+
+        // Assert
+        assertEquals(3, saved.size());
+        verify(unreadCounterService).addAll(Map.of(userId, 2L, otherUserId, 1L));
+        verify(clusterEventBus, times(1)).publishNotificationsCreated(saved);
+        // The SENT status is set before the save, so it goes into the batched insert even
+        // if something flushes the session before the transaction commits
+        verify(notificationRepository, times(1)).saveAll(saved);
+        assertEquals(Collections.nCopies(3, Notification.NotificationStatus.SENT), savedStatuses);
+    }
+
+    @Test
+    void createNotifications_PublishFails_MarksInAppFailedAndTakesThemOffUnread() {
+        // Arrange
+        ReflectionTestUtils.setField(notificationService, "clusterEventBus", clusterEventBus);
+        UUID userId = UUID.randomUUID();
+        List<Notification> notifications = List.of(inAppNotification(userId), inAppNotification(userId));
+        when(notificationRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+        doThrow(new IllegalStateException("Database unavailable")).when(clusterEventBus).publishNotificationsCreated(anyList());
+
+        // Act
+        List<Notification> saved = notificationService.createNotifications(notifications);
+
+        // Assert
+        assertTrue(saved.stream().allMatch(n -> n.getStatus() == Notification.NotificationStatus.FAILED));
+        InOrder inOrder = inOrder(unreadCounterService);
+        inOrder.verify(unreadCounterService).addAll(Map.of(userId, 2L));
+        inOrder.verify(unreadCounterService).addAll(Map.of(userId, -2L));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void sendSOSAlertNotifications_InvitesFirstBatchOfNearestRespondersInOneWrite() {
+        // Arrange
+        Responder second = new Responder();
+        second.setUserId(UUID.randomUUID());
+        Responder third = new Responder();
+        third.setUserId(UUID.randomUUID());
+        stubNearbyResponders(responder, second, third);
+        List<List<Notification>> writes = new ArrayList<>();
+        when(notificationRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            writes.add(new ArrayList<>(invocation.<List<Notification>>getArgument(0)));
+            return invocation.getArgument(0);
+        });
+
+        // Act
+        notificationService.sendSOSAlertNotifications(alert, Deadline.none());
+
+        // Assert
+        List<Notification> invitations = writes.get(0);
+        assertEquals(2, invitations.size());
+        assertEquals(List.of(responder.getUserId(), second.getUserId()),
+            invitations.stream().map(Notification::getUserId).toList());
+        for (Notification invitation : invitations) {
+            assertEquals(alert.getId(), invitation.getAlertId());
+            assertEquals(1, invitation.getBatchNumber());
+            assertEquals(Notification.NotificationType.EMERGENCY_NEARBY, invitation.getType());
+        }
+        ArgumentCaptor<Map<UUID, Long>> unread = ArgumentCaptor.forClass(Map.class);
+        verify(unreadCounterService, atLeastOnce()).addAll(unread.capture());
+        assertEquals(Map.of(responder.getUserId(), 1L, second.getUserId(), 1L), unread.getAllValues().get(0));
+    }
+
+    @Test
+    void markNotificationAsRead_Unread_TakesOneOffUnreadCount() {
+        // Arrange
+        UUID userId = UUID.randomUUID();
+        when(notificationRepository.markUnreadAsRead(eq(7L), eq(userId), any(LocalDateTime.class))).thenReturn(1);
+
+        // Act
+        boolean marked = notificationService.markNotificationAsRead(7L, userId);
+
+        // Assert
+        assertTrue(marked);
+        verify(unreadCounterService).add(userId, -1);
+    }
+
+    @Test
+    void markNotificationAsRead_AlreadyRead_LeavesUnreadCount() {
+        // Arrange
+        UUID userId = UUID.randomUUID();
+        when(notificationRepository.markUnreadAsRead(eq(7L), eq(userId), any(LocalDateTime.class))).thenReturn(0);
+        when(notificationRepository.existsByIdAndUserId(7L, userId)).thenReturn(true);
+
+        // Act
+        boolean marked = notificationService.markNotificationAsRead(7L, userId);
+
+        // Assert
+        assertTrue(marked);
+        verify(unreadCounterService, never()).add(any(), anyLong());
+    }
+
+    @Test
+    void markAllNotificationsAsRead_TakesReadCountOffUnreadCount() {
+        // Arrange
+        UUID userId = UUID.randomUUID();
+        when(notificationRepository.markAllUnreadAsRead(eq(userId), any(LocalDateTime.class))).thenReturn(3);
+
+        // Act
+        int marked = notificationService.markAllNotificationsAsRead(userId);
+
+        // Assert
+        assertEquals(3, marked);
+        verify(unreadCounterService).add(userId, -3);
+    }
+
+    @Test
+    void batchEscalation_TtlPassed_TakesExpiredInvitationsOffUnreadCounts() throws Exception {
+        // Arrange
+        ArgumentCaptor<DurableTimerService.TaskHandler> handler = ArgumentCaptor.forClass(DurableTimerService.TaskHandler.class);
+        verify(durableTimerService).registerHandler(eq(NotificationService.BATCH_ESCALATION_TASK), handler.capture());
+        UUID otherUserId = UUID.randomUUID();
+        List<Notification> batch = List.of(expiredInvitation(responder.getUserId()),
+            expiredInvitation(responder.getUserId()), expiredInvitation(otherUserId));
+        when(alertRepository.findById(alert.getId())).thenReturn(Optional.of(alert));
+        when(notificationRepository.findByAlertIdAndTypeAndStatus(alert.getId(),
+            Notification.NotificationType.EMERGENCY_NEARBY, Notification.NotificationStatus.PENDING)).thenReturn(batch);
+        when(notificationRepository.countRespondersNotifiedForAlert(alert.getId(),
+            Notification.NotificationType.EMERGENCY_NEARBY)).thenReturn(10L);
+        Map<String, Object> payload = Map.of("alertId", alert.getId().toString(), "batchNumber", 1,
+            "responderIds", List.of(), "distances", List.of());
+
+        // Act
+        handler.getValue().handle(new ScheduledTask(NotificationService.BATCH_ESCALATION_TASK,
+            alert.getId().toString(), payload, LocalDateTime.now()));
+
+        // Assert
+        assertTrue(batch.stream().allMatch(n -> n.getStatus() == Notification.NotificationStatus.FAILED));
+        verify(unreadCounterService).addAll(Map.of(responder.getUserId(), -2L, otherUserId, -1L));
+    }
+
+    private Notification inAppNotification(UUID userId) {
+        Notification notification = new Notification();
+        notification.setUserId(userId);
+        notification.setType(Notification.NotificationType.EMERGENCY_NEARBY);
+        notification.setChannel(Notification.NotificationChannel.IN_APP);
+        notification.setTitle("Emergency Alert");
+        notification.setMessage("Emergency alert nearby");
+        notification.setPriority(15);
+        return notification;
+    }
+
+    private Notification expiredInvitation(UUID userId) {
+        Notification notification = inAppNotification(userId);
+        notification.setAlertId(alert.getId());
+        notification.setBatchNumber(1);
+        notification.setStatus(Notification.NotificationStatus.PENDING);
+        notification.setExpiresAt(LocalDateTime.now().minusMinutes(1));
+        return notification;
+    }
+
+    private void stubNearbyResponders(Responder... nearest) {
+        List<Neighbor<UUID>> neighbors = new ArrayList<>();
+        for (int i = 0; i < nearest.length; i++) {
+            neighbors.add(new Neighbor<>(nearest[i].getUserId(), 23.8110, 90.4130, 0.1 * (i + 1)));
+        }
+        when(responderLocationIndex.findNearest(anyDouble(), anyDouble(), anyInt(), anyDouble())).thenReturn(neighbors);
+        when(responderRepository.findAllById(anyList())).thenReturn(List.of(nearest));
+        lenient().when(notificationRepository.countRespondersNotifiedForAlert(
+            alert.getId(), Notification.NotificationType.EMERGENCY_NEARBY)).thenReturn(0L);
+        lenient().when(trustedContactRepository.findByUserId(alert.getUserId())).thenReturn(List.of());
+    }
+
+    private void stubNearbyResponder() {
+        stubNearbyResponders(responder);
+        when(notificationRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+    }
+}
@@ -0,0 +1,268 @@
+package com.secureherai.secureherai_api.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.secureherai.secureherai_api.cluster.ClusterEvent;
+import com.secureherai.secureherai_api.cluster.ClusterEventBus;
+import com.secureherai.secureherai_api.repository.NotificationRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class NotificationStreamServiceTest {
+
+    private static final Pattern EVENT_NAME = Pattern.compile("event:([\\w-]+)");
+
+    @Mock
+    private NotificationRepository notificationRepository;
+
+    @Mock
+    private ClusterEventBus clusterEventBus;
+
+    @Mock
+    private UnreadCounterService unreadCounterService;
+
+    private final Map<String, Consumer<ClusterEvent>> subscribers = new ConcurrentHashMap<>();
+    private final List<TestEmitter> emitters = new CopyOnWriteArrayList<>();
+    private NotificationStreamService notificationStreamService;
+
+    @BeforeEach
+    void setUp() {
+        doAnswer(invocation -> subscribers.put(invocation.getArgument(0), invocation.getArgument(1)))
+            .when(clusterEventBus).subscribe(anyString(), any());
+        lenient().when(unreadCounterService.get(any(UUID.class))).thenReturn(3L);
+
+        notificationStreamService = new NotificationStreamService(notificationRepository, clusterEventBus,
+                unreadCounterService, new ObjectMapper()) {
+            @Override
+            SseEmitter newEmitter() {
+                TestEmitter emitter = new TestEmitter();
+                emitters.add(emitter);
+                return emitter;
+            }
+        };
+        ReflectionTestUtils.setField(notificationStreamService, "timeoutMinutes", 30L);
+        ReflectionTestUtils.setField(notificationStreamService, "heartbeatSeconds", 3600L);
+        ReflectionTestUtils.setField(notificationStreamService, "replaySize", 100);
+        ReflectionTestUtils.setField(notificationStreamService, "maxQueuedBytes", 65536);
+        ReflectionTestUtils.setField(notificationStreamService, "resumeWindowMinutes", 5L);
+        ReflectionTestUtils.setField(notificationStreamService, "maxStreamsPerUser", 5);
+        ReflectionTestUtils.setField(notificationStreamService, "workers", 2);
+        notificationStreamService.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        notificationStreamService.shutdown();
+    }
+
+    @Test
+    void open_SendsUnreadCountFirst() throws Exception {
+        // Act
+        notificationStreamService.open(UUID.randomUUID(), null);
+
+        // Assert
+        assertEquals("unread-count", emitters.get(0).nextEventName());
+        assertEquals(1, streamCount());
+    }
+
+    @Test
+    void emitterCompleted_RemovesStream() throws Exception {
+        // Arrange
+        UUID userId = UUID.randomUUID();
+        notificationStreamService.open(userId, null);
+        TestEmitter emitter = emitters.get(0);
+        assertEquals("unread-count", emitter.nextEventName());
+
+        // Act
+        emitter.complete();
+        notificationCreated(userId, 1L);
+
+        // Assert
+        assertEquals(0, streamCount());
+        assertNull(emitter.events.poll(200, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void emitterTimedOut_RemovesStream() throws Exception {
+        // Arrange
+        notificationStreamService.open(UUID.randomUUID(), null);
+
+        // Act
+        emitters.get(0).timeOut();
+
+        // Assert
+        assertEquals(0, streamCount());
+    }
+
+    @Test
+    void sendFails_CompletesEmitterWithErrorAndRemovesStream() throws Exception {
+        // Arrange
+        UUID userId = UUID.randomUUID();
+        notificationStreamService.open(userId, null);
+        TestEmitter emitter = emitters.get(0);
+        assertEquals("unread-count", emitter.nextEventName());
+        emitter.failSends = true;
+
+        // Act
+        notificationCreated(userId, 1L);
+
+        // Assert
+        assertTrue(emitter.failed.await(5, TimeUnit.SECONDS));
+        assertEquals(0, streamCount());
+    }
+
+    @Test
+    void notificationCreated_ReachesOnlyTargetUsersStreams() throws Exception {
+        // Arrange
+        UUID userId = UUID.randomUUID();
+        UUID otherUserId = UUID.randomUUID();
+        notificationStreamService.open(userId, null);
+        notificationStreamService.open(userId, null);
+        notificationStreamService.open(otherUserId, null);
+        TestEmitter first = emitters.get(0);
+        TestEmitter second = emitters.get(1);
+        TestEmitter other = emitters.get(2);
+        for (TestEmitter emitter : emitters) {
+            assertEquals("unread-count", emitter.nextEventName());
+        }
+
+        // Act
+        notificationCreated(userId, 41L);
+        notificationCreated(otherUserId, 42L);
+
+        // Assert
+        assertEquals("notification", first.nextEventName());
+        assertEquals("notification", second.nextEventName());
+        String otherEvent = other.nextEvent();
+        assertEquals("notification", eventName(otherEvent));
+        assertTrue(otherEvent.contains(otherUserId.toString()));
+        assertNull(first.events.poll(200, TimeUnit.MILLISECONDS));
+        assertNull(other.events.poll(200, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void notificationsRead_ReachesOnlyTargetUsersStreams() throws Exception {
+        // Arrange
+        UUID userId = UUID.randomUUID();
+        UUID otherUserId = UUID.randomUUID();
+        notificationStreamService.open(userId, null);
+        notificationStreamService.open(otherUserId, null);
+        TestEmitter emitter = emitters.get(0);
+        TestEmitter other = emitters.get(1);
+        assertEquals("unread-count", emitter.nextEventName());
+        assertEquals("unread-count", other.nextEventName());
+
+        // Act
+        subscribers.get(ClusterEventBus.NOTIFICATIONS_READ).accept(new ClusterEvent(ClusterEventBus.NOTIFICATIONS_READ,
+            userId + ":7", Map.of("userId", userId.toString(), "notificationId", 7L, "count", 1), true, false));
+
+        // Assert
+        assertEquals("read", emitter.nextEventName());
+        assertNull(other.events.poll(200, TimeUnit.MILLISECONDS));
+    }
+
+    private void notificationCreated(UUID userId, long notificationId) {
+        Map<String, Object> notification = Map.of("id", notificationId, "userId", userId.toString());
+        subscribers.get(ClusterEventBus.NOTIFICATION_CREATED).accept(new ClusterEvent(ClusterEventBus.NOTIFICATION_CREATED,
+            String.valueOf(notificationId), Map.of("notification", notification), true, false));
+    }
+
+    private int streamCount() {
+        return (Integer) notificationStreamService.getStats().get("streams");
+    }
+
+    private static String eventName(String event) {
+        Matcher matcher = EVENT_NAME.matcher(event);
+        return matcher.find() ? matcher.group(1) : null;
+    }
+
+    /**
+     * Stands in for the servlet container: records what is sent and runs the callbacks
+     * the container would run when the response completes, times out or fails
+     */
+    private static class TestEmitter extends SseEmitter {
+        private final BlockingQueue<String> events = new LinkedBlockingQueue<>();
+        private final List<Runnable> completionCallbacks = new CopyOnWriteArrayList<>();
+        private final List<Runnable> timeoutCallbacks = new CopyOnWriteArrayList<>();
+        private final List<Consumer<Throwable>> errorCallbacks = new CopyOnWriteArrayList<>();
+        private final CountDownLatch failed = new CountDownLatch(1);
+        private volatile boolean failSends;
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            if (failSends) {
+                throw new IOException("Broken pipe");
+            }
+            StringBuilder event = new StringBuilder();
+            builder.build().forEach(part -> event.append(part.getData()));
+            events.add(event.toString());
+        }
+
+        @Override
+        public void onCompletion(Runnable callback) {
+            completionCallbacks.add(callback);
+        }
+
+        @Override
+        public void onTimeout(Runnable callback) {
+            timeoutCallbacks.add(callback);
+        }
+
+        @Override
+        public void onError(Consumer<Throwable> callback) {
+            errorCallbacks.add(callback);
+        }
+
+        @Override
+        public void complete() {
+            completionCallbacks.forEach(Runnable::run);
+        }
+
+        @Override
+        public void completeWithError(Throwable error) {
+            errorCallbacks.forEach(callback -> callback.accept(error));
+            complete();
+            failed.countDown();
+        }
+
+        void timeOut() {
+            timeoutCallbacks.forEach(Runnable::run);
+            complete();
+        }
+
+        String nextEvent() throws InterruptedException {
+            String event = events.poll(5, TimeUnit.SECONDS);
+            assertNotNull(event, "No event was sent");
+            return event;
+        }
+
+        String nextEventName() throws InterruptedException {
+            return eventName(nextEvent());
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package com.secureherai.secureherai_api.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.secureherai.secureherai_api.dto.sos.SOSAlertResponseDto;
+import com.secureherai.secureherai_api.entity.IdempotencyRecord;
+import com.secureherai.secureherai_api.repository.IdempotencyRecordRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SOSIdempotencyServiceTest {
+
+    @Mock
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    @InjectMocks
+    private SOSIdempotencyService sosIdempotencyService;
+
+    private UUID testUserId;
+    private AtomicInteger executions;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(sosIdempotencyService, "ttlHours", 24L);
+        ReflectionTestUtils.setField(sosIdempotencyService, "cacheMaxEntries", 100);
+        ReflectionTestUtils.setField(sosIdempotencyService, "inFlightTimeoutSeconds", 120L);
+        testUserId = UUID.randomUUID();
+        executions = new AtomicInteger();
+    }
+
+    @Test
+    void execute_SameKeyTwice_RunsActionOnceAndReplaysResponse() {
+        when(idempotencyRecordRepository.insertClaim(anyString(), eq(testUserId), any(LocalDateTime.class))).thenReturn(1);
+        when(idempotencyRecordRepository.completeClaim(anyString(), any(LocalDateTime.class), eq(201), anyString(),
+            any(LocalDateTime.class))).thenReturn(1);
+
+        ResponseEntity<SOSAlertResponseDto> first = execute("key-1", HttpStatus.CREATED);
+        ResponseEntity<SOSAlertResponseDto> second = execute("key-1", HttpStatus.CREATED);
+
+        assertEquals(1, executions.get());
+        assertEquals(HttpStatus.CREATED, second.getStatusCode());
+        assertEquals("true", second.getHeaders().getFirst(SOSIdempotencyService.REPLAYED_HEADER));
+        assertEquals(first.getBody().getAlertId(), second.getBody().getAlertId());
+        verify(idempotencyRecordRepository, times(1)).insertClaim(anyString(), eq(testUserId), any(LocalDateTime.class));
+        verify(idempotencyRecordRepository).completeClaim(anyString(), any(LocalDateTime.class), eq(201), anyString(),
+            any(LocalDateTime.class));
+    }
+
+    @Test
+    void execute_WithoutKey_AlwaysRunsAction() {
+        execute(null, HttpStatus.CREATED);
+        execute(null, HttpStatus.CREATED);
+
+        assertEquals(2, executions.get());
+        verifyNoInteractions(idempotencyRecordRepository);
+    }
+
+    @Test
+    void execute_ServerError_ReleasesClaimAndIsNotStored() {
+        when(idempotencyRecordRepository.insertClaim(anyString(), eq(testUserId), any(LocalDateTime.class))).thenReturn(1);
+
+        execute("key-2", HttpStatus.INTERNAL_SERVER_ERROR);
+        ResponseEntity<SOSAlertResponseDto> retry = execute("key-2", HttpStatus.CREATED);
+
+        assertEquals(2, executions.get());
+        assertEquals(HttpStatus.CREATED, retry.getStatusCode());
+        verify(idempotencyRecordRepository).releaseClaim(anyString(), any(LocalDateTime.class));
+        verify(idempotencyRecordRepository, times(1)).completeClaim(anyString(), any(LocalDateTime.class), anyInt(),
+            anyString(), any(LocalDateTime.class));
+    }
+
+    @Test
+    void execute_KeyStoredInDatabase_ReplaysWithoutRunningAction() throws Exception {
+        SOSAlertResponseDto stored = new SOSAlertResponseDto(true, "SOS Alert triggered successfully");
+        IdempotencyRecord record = new IdempotencyRecord("hash", testUserId, 201, objectMapper.writeValueAsString(stored));
+        record.setCreatedAt(LocalDateTime.now().minusMinutes(5));
+        when(idempotencyRecordRepository.insertClaim(anyString(), eq(testUserId), any(LocalDateTime.class))).thenReturn(0);
+        when(idempotencyRecordRepository.findById(anyString())).thenReturn(Optional.of(record));
+
+        ResponseEntity<SOSAlertResponseDto> response = execute("key-3", HttpStatus.CREATED);
+
+        assertEquals(0, executions.get());
+        assertEquals(HttpStatus.CREATED, response.getStatusCode());
+        assertEquals("SOS Alert triggered successfully", response.getBody().getMessage());
+    }
+
+    @Test
+    void execute_KeyClaimedOnAnotherInstance_ReturnsConflictWithoutRunningAction() {
+        IdempotencyRecord claim = new IdempotencyRecord("hash", testUserId, null, null);
+        claim.setCreatedAt(LocalDateTime.now().minusSeconds(5));
+        when(idempotencyRecordRepository.insertClaim(anyString(), eq(testUserId), any(LocalDateTime.class))).thenReturn(0);
+        when(idempotencyRecordRepository.findById(anyString())).thenReturn(Optional.of(claim));
+
+        ResponseEntity<SOSAlertResponseDto> response = execute("key-4", HttpStatus.CREATED);
+
+        assertEquals(0, executions.get());
+        assertEquals(HttpStatus.CONFLICT, response.getStatusCode());
+        assertFalse(response.getBody().isSuccess());
+
+        // The conflict is not remembered, so a retry asks the database again
+        execute("key-4", HttpStatus.CREATED);
+        verify(idempotencyRecordRepository, times(2)).insertClaim(anyString(), eq(testUserId), any(LocalDateTime.class));
+    }
+
+    @Test
+    void execute_StaleClaimTakenOver_RunsAction() {
+        when(idempotencyRecordRepository.insertClaim(anyString(), eq(testUserId), any(LocalDateTime.class))).thenReturn(0);
+        when(idempotencyRecordRepository.takeOverClaim(anyString(), any(LocalDateTime.class), any(LocalDateTime.class),
+            any(LocalDateTime.class))).thenReturn(1);
+        when(idempotencyRecordRepository.completeClaim(anyString(), any(LocalDateTime.class), eq(201), anyString(),
+            any(LocalDateTime.class))).thenReturn(1);
+
+        ResponseEntity<SOSAlertResponseDto> response = execute("key-5", HttpStatus.CREATED);
+
+        assertEquals(1, executions.get());
+        assertEquals(HttpStatus.CREATED, response.getStatusCode());
+        verify(idempotencyRecordRepository, never()).findById(anyString());
+    }
+
+    @Test
+    void execute_SameKeyOnAnotherOperation_RunsActionAgain() {
+        when(idempotencyRecordRepository.insertClaim(anyString(), eq(testUserId), any(LocalDateTime.class))).thenReturn(1);
+        when(idempotencyRecordRepository.completeClaim(anyString(), any(LocalDateTime.class), eq(201), anyString(),
+            any(LocalDateTime.class))).thenReturn(1);
+
+        execute("key-6", "POST /api/sos/text-command", HttpStatus.CREATED);
+        ResponseEntity<SOSAlertResponseDto> cancel = execute("key-6", "POST /api/sos/cancel", HttpStatus.CREATED);
+
+        assertEquals(2, executions.get());
+        assertNull(cancel.getHeaders().getFirst(SOSIdempotencyService.REPLAYED_HEADER));
+        ArgumentCaptor<String> keyHashes = ArgumentCaptor.forClass(String.class);
+        verify(idempotencyRecordRepository, times(2)).insertClaim(keyHashes.capture(), eq(testUserId),
+            any(LocalDateTime.class));
+        assertNotEquals(keyHashes.getAllValues().get(0), keyHashes.getAllValues().get(1));
+    }
+
+    private ResponseEntity<SOSAlertResponseDto> execute(String key, HttpStatus status) {
+        return execute(key, "POST /api/sos/text-command", status);
+    }
+
+    private ResponseEntity<SOSAlertResponseDto> execute(String key, String operation, HttpStatus status) {
+        return sosIdempotencyService.execute(testUserId, key, operation, SOSAlertResponseDto.class,
+            message -> new SOSAlertResponseDto(false, message),
+            () -> {
+                executions.incrementAndGet();
+                SOSAlertResponseDto body = new SOSAlertResponseDto(status.is2xxSuccessful(), "done");
+                body.setAlertId(UUID.randomUUID());
+                return ResponseEntity.status(status).body(body);
+            });
+    }
+}
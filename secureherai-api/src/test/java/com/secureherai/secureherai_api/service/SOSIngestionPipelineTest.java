@@ -0,0 +1,334 @@
+package com.secureherai.secureherai_api.service;
+
+import com.secureherai.secureherai_api.dto.sos.LocationDto;
+import com.secureherai.secureherai_api.entity.Alert;
+import com.secureherai.secureherai_api.entity.VoiceCommandJob;
+import com.secureherai.secureherai_api.entity.VoiceCommandJob.Stage;
+import com.secureherai.secureherai_api.service.AudioBlobStore.StagedAudio;
+import com.secureherai.secureherai_api.service.AzureSpeechService.SpeechTranscriptionResult;
+import com.secureherai.secureherai_api.service.SOSIngestionPipeline.IngestionJob;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.File;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SOSIngestionPipelineTest {
+
+    @Mock
+    private SOSService sosService;
+
+    @Mock
+    private AzureSpeechService azureSpeechService;
+
+    @Mock
+    private VoiceCommandJobStore voiceCommandJobStore;
+
+    @InjectMocks
+    private SOSIngestionPipeline pipeline;
+
+    private UUID testUserId;
+    private LocationDto locationDto;
+    private MockMultipartFile audioFile;
+    private File rawFile;
+    private StagedAudio stagedAudio;
+
+    // Stands in for the voice_command_jobs table
+    private final Map<UUID, VoiceCommandJob> records = new ConcurrentHashMap<>();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        ReflectionTestUtils.setField(pipeline, "transcribeWorkers", 1);
+        ReflectionTestUtils.setField(pipeline, "transcribeQueueCapacity", 4);
+        ReflectionTestUtils.setField(pipeline, "decideWorkers", 1);
+        ReflectionTestUtils.setField(pipeline, "decideQueueCapacity", 4);
+        ReflectionTestUtils.setField(pipeline, "commitWorkers", 1);
+        ReflectionTestUtils.setField(pipeline, "commitQueueCapacity", 4);
+        ReflectionTestUtils.setField(pipeline, "fanOutWorkers", 1);
+        ReflectionTestUtils.setField(pipeline, "fanOutQueueCapacity", 4);
+        ReflectionTestUtils.setField(pipeline, "jobRetentionMinutes", 30L);
+        ReflectionTestUtils.setField(pipeline, "maxAttempts", 3);
+        pipeline.startStages();
+
+        testUserId = UUID.randomUUID();
+        locationDto = new LocationDto(BigDecimal.valueOf(23.8103), BigDecimal.valueOf(90.4125), "Dhaka, Bangladesh");
+        audioFile = new MockMultipartFile("audio", "help.wav", "audio/wav", "dummy audio content".getBytes());
+        rawFile = new File("data/temp/temp_sos_test.wav");
+        stagedAudio = new StagedAudio(rawFile, "ab12", 19, ".wav");
+
+        lenient().when(sosService.stageUpload(any())).thenReturn(stagedAudio);
+        lenient().when(sosService.persistUpload(stagedAudio)).thenReturn(rawFile);
+
+        lenient().when(voiceCommandJobStore.create(any())).thenAnswer(invocation -> {
+            VoiceCommandJob record = invocation.getArgument(0);
+            record.setId(UUID.randomUUID());
+            records.put(record.getId(), record);
+            return record;
+        });
+        lenient().when(voiceCommandJobStore.update(any())).thenAnswer(invocation -> store(invocation.getArgument(0)));
+        lenient().when(voiceCommandJobStore.finish(any())).thenAnswer(invocation -> store(invocation.getArgument(0)));
+        lenient().when(voiceCommandJobStore.find(any()))
+            .thenAnswer(invocation -> Optional.ofNullable(records.get(invocation.<UUID>getArgument(0))));
+    }
+
+    @AfterEach
+    void tearDown() {
+        pipeline.stopStages();
+    }
+
+    @Test
+    void submitVoiceCommand_KeywordDetected_CommitsAlertAndFansOut() throws Exception {
+        // Arrange
+        Alert alert = new Alert();
+        alert.setId(UUID.randomUUID());
+        alert.setUserId(testUserId);
+
+        when(azureSpeechService.transcribeAudioFile(rawFile, "ab12"))
+            .thenReturn(new SpeechTranscriptionResult(true, "please help me", 1.0, "ok"));
+        when(sosService.containsKeyword("please help me", testUserId)).thenReturn(true);
+        when(sosService.saveAudioFile(stagedAudio)).thenReturn("data/sos/ab/12/ab12.wav");
+        when(sosService.createVoiceAlert(testUserId, locationDto, "please help me", "data/sos/ab/12/ab12.wav")).thenReturn(alert);
+
+        // Act
+        IngestionJob job = pipeline.submitVoiceCommand(testUserId, audioFile, locationDto);
+        VoiceCommandJob finished = awaitTerminal(job.getTrackingId());
+
+        // Assert
+        assertEquals(Stage.COMPLETED, finished.getStage());
+        assertEquals(alert.getId(), finished.getAlertId());
+        assertEquals(rawFile.getPath(), finished.getAudioPath());
+        verify(sosService).dispatchAlertFanOut(alert);
+        verify(sosService).cleanupTemporaryFile(rawFile);
+    }
+
+    @Test
+    void submitVoiceCommand_NoKeyword_FinishesWithoutAlert() throws Exception {
+        // Arrange
+        when(azureSpeechService.transcribeAudioFile(rawFile, "ab12"))
+            .thenReturn(new SpeechTranscriptionResult(true, "just checking in", 1.0, "ok"));
+        when(sosService.containsKeyword("just checking in", testUserId)).thenReturn(false);
+
+        // Act
+        IngestionJob job = pipeline.submitVoiceCommand(testUserId, audioFile, locationDto);
+        VoiceCommandJob finished = awaitTerminal(job.getTrackingId());
+
+        // Assert
+        assertEquals(Stage.NO_KEYWORD, finished.getStage());
+        assertNull(finished.getAlertId());
+        verify(sosService, never()).createVoiceAlert(any(), any(), anyString(), anyString());
+        verify(sosService, never()).dispatchAlertFanOut(any());
+    }
+
+    @Test
+    void submitVoiceCommand_EarlyExit_CommitsOnKeywordAndAttachesTranscript() throws Exception {
+        // Arrange
+        ReflectionTestUtils.setField(pipeline, "transcribeTimeoutSeconds", 5L);
+        Alert alert = new Alert();
+        alert.setId(UUID.randomUUID());
+        alert.setUserId(testUserId);
+        EarlyExitTranscription transcription = new EarlyExitTranscription(text -> text.contains("help"), 1);
+
+        when(azureSpeechService.isEarlyExitEnabled()).thenReturn(true);
+        when(azureSpeechService.transcribeUntilKeyword(eq(rawFile), eq("ab12"), any())).thenAnswer(invocation -> {
+            transcription.onPartial("please help");
+            return transcription;
+        });
+        when(sosService.saveAudioFile(stagedAudio)).thenReturn("data/sos/ab/12/ab12.wav");
+        when(sosService.createVoiceAlert(testUserId, locationDto, "please help", "data/sos/ab/12/ab12.wav")).thenReturn(alert);
+
+        // Act
+        IngestionJob job = pipeline.submitVoiceCommand(testUserId, audioFile, locationDto);
+        VoiceCommandJob finished = awaitTerminal(job.getTrackingId());
+        transcription.onFinal("Please help me, I am near the station.");
+        transcription.onStopped(true);
+
+        // Assert
+        assertEquals(Stage.COMPLETED, finished.getStage());
+        assertEquals(alert.getId(), finished.getAlertId());
+        verify(sosService).dispatchAlertFanOut(alert);
+        verify(sosService, timeout(5000)).attachTranscript(alert.getId(), "Please help me, I am near the station.");
+        verify(azureSpeechService, never()).transcribeAudioFile(any(), any());
+    }
+
+    @Test
+    void submitVoiceCommand_EarlyExitCoalesced_KeepsAlertMessage() throws Exception {
+        // Arrange
+        ReflectionTestUtils.setField(pipeline, "transcribeTimeoutSeconds", 5L);
+        Alert alert = new Alert();
+        alert.setId(UUID.randomUUID());
+        alert.setUserId(testUserId);
+        alert.setCoalesced(true);
+        EarlyExitTranscription transcription = new EarlyExitTranscription(text -> text.contains("help"), 1);
+
+        when(azureSpeechService.isEarlyExitEnabled()).thenReturn(true);
+        when(azureSpeechService.transcribeUntilKeyword(eq(rawFile), eq("ab12"), any())).thenAnswer(invocation -> {
+            transcription.onPartial("please help");
+            return transcription;
+        });
+        when(sosService.saveAudioFile(stagedAudio)).thenReturn("data/sos/ab/12/ab12.wav");
+        when(sosService.createVoiceAlert(testUserId, locationDto, "please help", "data/sos/ab/12/ab12.wav")).thenReturn(alert);
+
+        // Act
+        IngestionJob job = pipeline.submitVoiceCommand(testUserId, audioFile, locationDto);
+        awaitTerminal(job.getTrackingId());
+        transcription.onFinal("Please help me, I am near the station.");
+        transcription.onStopped(true);
+
+        // Assert
+        assertTrue(transcription.getTranscript().isDone());
+        verify(sosService, after(200).never()).attachTranscript(any(), anyString());
+    }
+
+    @Test
+    void submitVoiceCommand_TranscriptionFails_MarksJobFailed() throws Exception {
+        // Arrange
+        when(azureSpeechService.transcribeAudioFile(rawFile, "ab12"))
+            .thenReturn(new SpeechTranscriptionResult(false, "", 0.0, "No speech"));
+
+        // Act
+        IngestionJob job = pipeline.submitVoiceCommand(testUserId, audioFile, locationDto);
+        VoiceCommandJob finished = awaitTerminal(job.getTrackingId());
+
+        // Assert
+        assertEquals(Stage.FAILED, finished.getStage());
+        verify(sosService, never()).containsKeyword(anyString(), any());
+    }
+
+    @Test
+    void submitVoiceCommand_TakenOverByAnotherAttempt_StopsWithoutTouchingUpload() throws Exception {
+        // Arrange
+        doReturn(false).when(voiceCommandJobStore).update(any());
+
+        // Act
+        pipeline.submitVoiceCommand(testUserId, audioFile, locationDto);
+
+        // Assert
+        verify(voiceCommandJobStore, timeout(5000)).update(any());
+        verify(azureSpeechService, after(200).never()).transcribeAudioFile(any(), any());
+        verify(sosService, never()).cleanupTemporaryFile(any());
+    }
+
+    @Test
+    void resume_CommandOfNodeThatWentDown_TranscribesRawUploadAgain(@TempDir Path tempDir) throws Exception {
+        // Arrange
+        File upload = Files.write(tempDir.resolve("temp_sos_resumed.wav"), "dummy audio content".getBytes()).toFile();
+        VoiceCommandJob record = storedRecord(upload, Stage.TRANSCRIBING, 2);
+        Alert alert = new Alert();
+        alert.setId(UUID.randomUUID());
+        alert.setUserId(testUserId);
+
+        when(azureSpeechService.transcribeAudioFile(upload, "ab12"))
+            .thenReturn(new SpeechTranscriptionResult(true, "please help me", 1.0, "ok"));
+        when(sosService.containsKeyword("please help me", testUserId)).thenReturn(true);
+        when(sosService.saveAudioFile(any())).thenReturn("data/sos/ab/12/ab12.wav");
+        when(sosService.createVoiceAlert(testUserId, locationDto, "please help me", "data/sos/ab/12/ab12.wav")).thenReturn(alert);
+
+        // Act
+        pipeline.resume(record, 2);
+        VoiceCommandJob finished = awaitTerminal(record.getId());
+
+        // Assert
+        assertEquals(Stage.COMPLETED, finished.getStage());
+        assertEquals(alert.getId(), finished.getAlertId());
+        verify(sosService).dispatchAlertFanOut(alert);
+        verify(sosService).cleanupTemporaryFile(upload);
+    }
+
+    @Test
+    void resume_AlertAlreadyCommitted_OnlyFansOut() throws Exception {
+        // Arrange
+        Alert alert = new Alert();
+        alert.setId(UUID.randomUUID());
+        alert.setUserId(testUserId);
+        VoiceCommandJob record = storedRecord(rawFile, Stage.FANNING_OUT, 2);
+        record.setAlertId(alert.getId());
+        when(sosService.findAlert(alert.getId())).thenReturn(Optional.of(alert));
+
+        // Act
+        pipeline.resume(record, 2);
+        VoiceCommandJob finished = awaitTerminal(record.getId());
+
+        // Assert
+        assertEquals(Stage.COMPLETED, finished.getStage());
+        verify(sosService).dispatchAlertFanOut(alert);
+        verify(sosService, never()).createVoiceAlert(any(), any(), anyString(), anyString());
+        verify(azureSpeechService, never()).transcribeAudioFile(any(), any());
+    }
+
+    @Test
+    void resume_TooManyAttempts_MarksJobFailed() throws Exception {
+        // Arrange
+        VoiceCommandJob record = storedRecord(rawFile, Stage.TRANSCRIBING, 4);
+
+        // Act
+        pipeline.resume(record, 4);
+
+        // Assert
+        assertEquals(Stage.FAILED, records.get(record.getId()).getStage());
+        verify(azureSpeechService, never()).transcribeAudioFile(any(), any());
+        verify(sosService).cleanupTemporaryFile(rawFile);
+    }
+
+    private VoiceCommandJob storedRecord(File upload, Stage stage, int attempts) {
+        VoiceCommandJob record = new VoiceCommandJob(testUserId, locationDto.getLatitude(), locationDto.getLongitude(),
+            locationDto.getAddress(), upload.getPath(), "ab12", 19L, ".wav", "help.wav");
+        record.setId(UUID.randomUUID());
+        record.setStage(stage);
+        record.setAttempts(attempts);
+        records.put(record.getId(), record);
+        return record;
+    }
+
+    // Records a job's progress the way the store does: only for the attempt that owns it
+    private boolean store(IngestionJob job) {
+        VoiceCommandJob stored = records.get(job.getTrackingId());
+        if (stored == null || stored.getAttempts() != job.getAttempt()) {
+            return false;
+        }
+        VoiceCommandJob record = new VoiceCommandJob(stored.getUserId(), stored.getLatitude(), stored.getLongitude(),
+            stored.getAddress(), stored.getAudioPath(), stored.getAudioSha256(), stored.getAudioSize(),
+            stored.getAudioExtension(), stored.getOriginalFileName());
+        record.setId(stored.getId());
+        record.setAttempts(stored.getAttempts());
+        record.setStage(job.getStage());
+        record.setMessage(job.getMessage());
+        record.setTranscribedText(job.getTranscribedText());
+        record.setAlertId(job.getAlertId());
+        records.put(record.getId(), record);
+        return true;
+    }
+
+    private VoiceCommandJob awaitTerminal(UUID trackingId) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (System.currentTimeMillis() < deadline) {
+            VoiceCommandJob job = pipeline.getJob(trackingId).orElseThrow();
+            if (job.getStage().isTerminal()) {
+                return job;
+            }
+            Thread.sleep(10);
+        }
+        fail("Voice command did not finish in time");
+        return null;
+    }
+}
@@ -2,26 +2,36 @@ package com.secureherai.secureherai_api.service;
 
 import com.secureherai.secureherai_api.dto.sos.LocationDto;
 import com.secureherai.secureherai_api.entity.Alert;
+import com.secureherai.secureherai_api.entity.AlertTrigger;
 import com.secureherai.secureherai_api.repository.AlertRepository;
+import com.secureherai.secureherai_api.repository.AlertTriggerRepository;
+import com.secureherai.secureherai_api.repository.UserRepository;
 import com.secureherai.secureherai_api.enums.AlertStatus;
+import com.secureherai.secureherai_api.exception.SpeechEngineUnavailableException;
 import com.secureherai.secureherai_api.service.AzureSpeechService.SpeechTranscriptionResult;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.File;
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -33,6 +43,15 @@ class SOSServiceTest {
     @Mock
     private AzureSpeechService azureSpeechService;
 
+    @Mock
+    private AlertTriggerRepository alertTriggerRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Spy
+    private AudioBlobStore audioBlobStore = new AudioBlobStore();
+
     @InjectMocks
     private SOSService sosService;
 
@@ -82,7 +101,7 @@ class SOSServiceTest {
         // Arrange
         SpeechTranscriptionResult failedTranscription = new SpeechTranscriptionResult(false, "", 0.0, "Transcription failed");
         
-        when(azureSpeechService.transcribeAudioFile(any(File.class))).thenReturn(failedTranscription);
+        when(azureSpeechService.transcribeAudioFile(any(File.class), any())).thenReturn(failedTranscription);
 
         // Act
         Alert result = sosService.processVoiceCommand(testUserId, mockAudioFile, locationDto);
@@ -90,7 +109,20 @@ class SOSServiceTest {
         // Assert
         assertNull(result);
         
-        verify(azureSpeechService).transcribeAudioFile(any(File.class));
+        verify(azureSpeechService).transcribeAudioFile(any(File.class), any());
+        verify(alertRepository, never()).save(any(Alert.class));
+    }
+
+    @Test
+    void processVoiceCommand_SpeechEngineUnavailable_ThrowsForTextFallback() throws Exception {
+        // Arrange
+        when(azureSpeechService.transcribeAudioFile(any(File.class), any()))
+            .thenReturn(SpeechTranscriptionResult.unavailable("Speech recognition is temporarily unavailable"));
+
+        // Act & Assert
+        SpeechEngineUnavailableException exception = assertThrows(SpeechEngineUnavailableException.class,
+            () -> sosService.processVoiceCommand(testUserId, mockAudioFile, locationDto));
+        assertEquals(SOSService.VOICE_UNAVAILABLE_MESSAGE, exception.getMessage());
         verify(alertRepository, never()).save(any(Alert.class));
     }
 
@@ -101,7 +133,7 @@ class SOSServiceTest {
         String transcribedText = "This is a normal message without any trigger phrases";
         SpeechTranscriptionResult transcriptionResult = new SpeechTranscriptionResult(true, transcribedText, 0.9, "Success");
         
-        when(azureSpeechService.transcribeAudioFile(any(File.class))).thenReturn(transcriptionResult);
+        when(azureSpeechService.transcribeAudioFile(any(File.class), any())).thenReturn(transcriptionResult);
         
         // The key is not to mock the alertRepository.save here to let the real flow run
         
@@ -111,11 +143,63 @@ class SOSServiceTest {
         // Assert
         assertNull(result);
         
-        verify(azureSpeechService).transcribeAudioFile(any(File.class));
+        verify(azureSpeechService).transcribeAudioFile(any(File.class), any());
         // Verify that save was never called since no keywords were detected
         verify(alertRepository, never()).save(any(Alert.class));
     }
     
+    @Test
+    void createVoiceAlert_WithinCoalescingWindow_MergesIntoActiveAlert() {
+        // Arrange
+        ReflectionTestUtils.setField(sosService, "coalesceWindowSeconds", 120L);
+        
+        Alert activeAlert = new Alert();
+        activeAlert.setId(UUID.randomUUID());
+        activeAlert.setUserId(testUserId);
+        activeAlert.setLatitude(BigDecimal.valueOf(23.7000));
+        activeAlert.setLongitude(BigDecimal.valueOf(90.3000));
+        activeAlert.setTriggerMethod("text");
+        
+        when(alertRepository.findFirstByUserIdAndStatusAndTriggeredAtAfterOrderByTriggeredAtDesc(
+            eq(testUserId), eq(AlertStatus.ACTIVE), any(LocalDateTime.class)))
+            .thenReturn(Optional.of(activeAlert));
+        when(alertRepository.save(activeAlert)).thenReturn(activeAlert);
+        
+        // Act
+        Alert result = sosService.createVoiceAlert(testUserId, locationDto, "help me again", "data/sos/ab/cd/abcd.wav");
+        sosService.dispatchAlertFanOut(result);
+        
+        // Assert
+        assertSame(activeAlert, result);
+        assertTrue(result.isCoalesced());
+        assertEquals(locationDto.getLatitude(), result.getLatitude());
+        assertEquals("data/sos/ab/cd/abcd.wav", result.getAudioRecording());
+        verify(alertTriggerRepository).save(any(AlertTrigger.class));
+        verify(alertRepository, times(1)).save(any(Alert.class));
+    }
+    
+    @Test
+    void createVoiceAlert_WithinCoalescingWindow_LocksUserBeforeLookingForActiveAlert() {
+        // Arrange
+        ReflectionTestUtils.setField(sosService, "coalesceWindowSeconds", 120L);
+        
+        when(alertRepository.findFirstByUserIdAndStatusAndTriggeredAtAfterOrderByTriggeredAtDesc(
+            eq(testUserId), eq(AlertStatus.ACTIVE), any(LocalDateTime.class)))
+            .thenReturn(Optional.empty());
+        when(alertRepository.save(any(Alert.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        
+        // Act
+        Alert result = sosService.createVoiceAlert(testUserId, locationDto, "help me", null);
+        
+        // Assert
+        assertFalse(result.isCoalesced());
+        InOrder inOrder = inOrder(userRepository, alertRepository);
+        inOrder.verify(userRepository).lockById(testUserId);
+        inOrder.verify(alertRepository).findFirstByUserIdAndStatusAndTriggeredAtAfterOrderByTriggeredAtDesc(
+            eq(testUserId), eq(AlertStatus.ACTIVE), any(LocalDateTime.class));
+        inOrder.verify(alertRepository).save(any(Alert.class));
+    }
+    
     @Test
     void getUserAlerts_ReturnsUserAlerts() {
         // Arrange
@@ -0,0 +1,164 @@
+package com.secureherai.secureherai_api.service;
+
+import com.secureherai.secureherai_api.util.WavFile;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SpeechPreFilterTest {
+
+    private static final int SAMPLE_RATE = 16000;
+
+    @TempDir
+    Path tempDir;
+
+    private SpeechPreFilter speechPreFilter;
+
+    @BeforeEach
+    void setUp() {
+        speechPreFilter = new SpeechPreFilter();
+        ReflectionTestUtils.setField(speechPreFilter, "enabled", true);
+        ReflectionTestUtils.setField(speechPreFilter, "tempDirectory", tempDir.resolve("temp").toString());
+        ReflectionTestUtils.setField(speechPreFilter, "absoluteThresholdDb", -50.0);
+        ReflectionTestUtils.setField(speechPreFilter, "noiseMarginDb", 10.0);
+        ReflectionTestUtils.setField(speechPreFilter, "maxThresholdDb", -30.0);
+        ReflectionTestUtils.setField(speechPreFilter, "maxZeroCrossingRate", 0.35);
+        ReflectionTestUtils.setField(speechPreFilter, "minRunFrames", 3);
+        ReflectionTestUtils.setField(speechPreFilter, "minSpeechMillis", 250);
+        ReflectionTestUtils.setField(speechPreFilter, "paddingMillis", 300);
+        ReflectionTestUtils.setField(speechPreFilter, "minTrimMillis", 500);
+        speechPreFilter.initDetector();
+    }
+
+    @Test
+    void filter_Silence_IsRejected() throws Exception {
+        File wav = writeWav("silence.wav", new short[SAMPLE_RATE * 3]);
+
+        SpeechPreFilter.PreFilterResult result = speechPreFilter.filter(wav);
+
+        assertFalse(result.isSpeechDetected());
+        assertNull(result.getAudioFile());
+        assertEquals(3000, result.getOriginalMillis());
+        assertEquals(1L, speechPreFilter.getStats().get("rejected"));
+        assertEquals(1.0, speechPreFilter.getStats().get("rejectionRate"));
+    }
+
+    @Test
+    void filter_BroadbandNoise_IsRejected() throws Exception {
+        // Loud but noise-like (high zero-crossing rate), e.g. fabric rubbing on the microphone
+        short[] samples = new short[SAMPLE_RATE * 2];
+        Random random = new Random(42);
+        for (int i = 0; i < samples.length; i++) {
+            samples[i] = (short) (random.nextGaussian() * 3000);
+        }
+        File wav = writeWav("noise.wav", samples);
+
+        assertFalse(speechPreFilter.filter(wav).isSpeechDetected());
+    }
+
+    @Test
+    void filter_ShortClick_IsRejected() throws Exception {
+        short[] samples = new short[SAMPLE_RATE * 2];
+        addTone(samples, 8000, 40, 0.3);
+        File wav = writeWav("click.wav", samples);
+
+        assertFalse(speechPreFilter.filter(wav).isSpeechDetected());
+    }
+
+    @Test
+    void filter_SpeechSurroundedBySilence_IsTrimmed() throws Exception {
+        // 2 s silence, 1 s voiced audio, 2 s silence
+        short[] samples = new short[SAMPLE_RATE * 5];
+        addTone(samples, SAMPLE_RATE * 2, 1000, 0.3);
+        File wav = writeWav("help.wav", samples);
+
+        SpeechPreFilter.PreFilterResult result = speechPreFilter.filter(wav);
+
+        assertTrue(result.isSpeechDetected());
+        assertTrue(result.isTrimmed());
+        assertNotEquals(wav, result.getAudioFile());
+        assertEquals(5000, result.getOriginalMillis());
+        // The speech plus 300 ms padding on each side
+        assertEquals(1600, result.getKeptMillis());
+
+        byte[] trimmed = Files.readAllBytes(result.getAudioFile().toPath());
+        WavFile header = WavFile.parse(trimmed, trimmed.length);
+        assertTrue(header.isPcm16());
+        assertEquals(SAMPLE_RATE, header.getSampleRate());
+        assertEquals(1600, header.getDurationMillis());
+        assertEquals(1L, speechPreFilter.getStats().get("trimmed"));
+    }
+
+    @Test
+    void filter_MostlySpeech_IsPassedThroughUntrimmed() throws Exception {
+        short[] samples = new short[SAMPLE_RATE * 2];
+        addTone(samples, SAMPLE_RATE / 10, 1800, 0.3);
+        File wav = writeWav("speech.wav", samples);
+
+        SpeechPreFilter.PreFilterResult result = speechPreFilter.filter(wav);
+
+        assertTrue(result.isSpeechDetected());
+        assertFalse(result.isTrimmed());
+        assertEquals(wav, result.getAudioFile());
+    }
+
+    @Test
+    void filter_NotWav_PassesThrough() throws Exception {
+        File notWav = tempDir.resolve("audio.mp3").toFile();
+        Files.write(notWav.toPath(), new byte[] {1, 2, 3, 4});
+
+        SpeechPreFilter.PreFilterResult result = speechPreFilter.filter(notWav);
+
+        assertTrue(result.isSpeechDetected());
+        assertEquals(notWav, result.getAudioFile());
+        assertEquals(1L, speechPreFilter.getStats().get("skipped"));
+    }
+
+    @Test
+    void filter_Disabled_PassesThroughWithoutReading() {
+        ReflectionTestUtils.setField(speechPreFilter, "enabled", false);
+        File missing = tempDir.resolve("missing.wav").toFile();
+
+        SpeechPreFilter.PreFilterResult result = speechPreFilter.filter(missing);
+
+        assertTrue(result.isSpeechDetected());
+        assertEquals(missing, result.getAudioFile());
+        assertEquals(0L, speechPreFilter.getStats().get("analyzed"));
+    }
+
+    /**
+     * A 220 Hz tone with a few harmonics, low enough in zero crossings to look voiced
+     */
+    private static void addTone(short[] samples, int startSample, int durationMillis, double amplitude) {
+        int count = SAMPLE_RATE * durationMillis / 1000;
+        for (int i = 0; i < count && startSample + i < samples.length; i++) {
+            double t = (double) i / SAMPLE_RATE;
+            double value = Math.sin(2 * Math.PI * 220 * t)
+                + 0.5 * Math.sin(2 * Math.PI * 440 * t)
+                + 0.25 * Math.sin(2 * Math.PI * 660 * t);
+            samples[startSample + i] = (short) (value / 1.75 * amplitude * Short.MAX_VALUE);
+        }
+    }
+
+    private File writeWav(String name, short[] samples) throws Exception {
+        byte[] bytes = new byte[WavFile.HEADER_SIZE + samples.length * 2];
+        WavFile.writeHeader(bytes, SAMPLE_RATE, 1, 16, samples.length * 2);
+        ByteBuffer data = ByteBuffer.wrap(bytes, WavFile.HEADER_SIZE, samples.length * 2).order(ByteOrder.LITTLE_ENDIAN);
+        for (short sample : samples) {
+            data.putShort(sample);
+        }
+        Path path = tempDir.resolve(name);
+        Files.write(path, bytes);
+        return path.toFile();
+    }
+}
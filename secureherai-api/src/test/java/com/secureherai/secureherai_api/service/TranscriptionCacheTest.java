@@ -0,0 +1,135 @@
+package com.secureherai.secureherai_api.service;
+
+import com.secureherai.secureherai_api.service.AzureSpeechService.SpeechTranscriptionResult;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TranscriptionCacheTest {
+
+    private static final String HASH = "ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad";
+
+    @TempDir
+    Path tempDir;
+
+    private TranscriptionCache cache;
+    private final AtomicInteger recognitions = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        cache = new TranscriptionCache();
+        ReflectionTestUtils.setField(cache, "enabled", true);
+        ReflectionTestUtils.setField(cache, "maxEntries", 2);
+        ReflectionTestUtils.setField(cache, "ttlMinutes", 60L);
+    }
+
+    @Test
+    void get_SameAudioAndLanguage_RecognizedOnce() throws Exception {
+        SpeechTranscriptionResult first = cache.get(HASH, null, () -> recognize("help me"));
+        SpeechTranscriptionResult second = cache.get(HASH, null, () -> recognize("other"));
+
+        assertEquals("help me", second.getText());
+        assertNotSame(first, second);
+        assertEquals(1, recognitions.get());
+        assertEquals(1L, cache.getStats().get("hits"));
+        assertEquals(1L, cache.getStats().get("misses"));
+    }
+
+    @Test
+    void get_DifferentLanguage_IsSeparateEntry() throws Exception {
+        cache.get(HASH, "en-US", () -> recognize("help me"));
+        SpeechTranscriptionResult bangla = cache.get(HASH, "bn-BD", () -> recognize("bachao"));
+
+        assertEquals("bachao", bangla.getText());
+        assertEquals(2, recognitions.get());
+    }
+
+    @Test
+    void get_FailedResult_NotCached() throws Exception {
+        cache.get(HASH, null, () -> {
+            recognitions.incrementAndGet();
+            return SpeechTranscriptionResult.unavailable("Speech recognition is temporarily unavailable");
+        });
+        SpeechTranscriptionResult retry = cache.get(HASH, null, () -> recognize("help me"));
+
+        assertTrue(retry.isSuccess());
+        assertEquals(2, recognitions.get());
+    }
+
+    @Test
+    void get_ExpiredEntry_RecognizedAgain() throws Exception {
+        ReflectionTestUtils.setField(cache, "ttlMinutes", 0L);
+
+        cache.get(HASH, null, () -> recognize("help me"));
+        cache.get(HASH, null, () -> recognize("help me"));
+
+        assertEquals(2, recognitions.get());
+        assertEquals(1L, cache.getStats().get("expirations"));
+    }
+
+    @Test
+    void get_OverMaxEntries_EvictsLeastRecentlyUsed() throws Exception {
+        cache.get("a", null, () -> recognize("one"));
+        cache.get("b", null, () -> recognize("two"));
+        cache.get("a", null, () -> recognize("one"));
+        cache.get("c", null, () -> recognize("three"));
+
+        cache.get("a", null, () -> recognize("one"));
+        cache.get("b", null, () -> recognize("two"));
+
+        assertEquals(4, recognitions.get(), "b was least recently used and should have been evicted");
+        assertEquals(2, cache.getStats().get("entries"));
+    }
+
+    @Test
+    void get_ConcurrentDuplicates_ShareOneRecognition() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<SpeechTranscriptionResult> first = executor.submit(() -> cache.get(HASH, null, () -> {
+                started.countDown();
+                release.await(5, TimeUnit.SECONDS);
+                return recognize("help me");
+            }));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            Future<SpeechTranscriptionResult> duplicate = executor.submit(() -> cache.get(HASH, null, () -> recognize("other")));
+            Thread.sleep(100);
+            release.countDown();
+
+            assertEquals("help me", first.get(5, TimeUnit.SECONDS).getText());
+            assertEquals("help me", duplicate.get(5, TimeUnit.SECONDS).getText());
+            assertEquals(1, recognitions.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void contentHash_FileAndBuffer_Match() throws Exception {
+        File file = tempDir.resolve("clip.wav").toFile();
+        Files.write(file.toPath(), "abc".getBytes());
+
+        assertEquals(HASH, TranscriptionCache.contentHash(file));
+        assertEquals(HASH, TranscriptionCache.contentHash(ByteBuffer.wrap("abc".getBytes())));
+    }
+
+    private SpeechTranscriptionResult recognize(String text) {
+        recognitions.incrementAndGet();
+        return new SpeechTranscriptionResult(true, text, 0.9, "Speech recognized successfully");
+    }
+}
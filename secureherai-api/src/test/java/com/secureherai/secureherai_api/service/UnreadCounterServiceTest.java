@@ -0,0 +1,307 @@
+package com.secureherai.secureherai_api.service;
+
+import com.secureherai.secureherai_api.cluster.ClusterEvent;
+import com.secureherai.secureherai_api.cluster.ClusterEventBus;
+import com.secureherai.secureherai_api.repository.NotificationRepository;
+import com.secureherai.secureherai_api.repository.UnreadNotificationCounterRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UnreadCounterServiceTest {
+
+    @Mock
+    private UnreadNotificationCounterRepository counterRepository;
+
+    @Mock
+    private NotificationRepository notificationRepository;
+
+    @Mock
+    private ClusterEventBus clusterEventBus;
+
+    @InjectMocks
+    private UnreadCounterService unreadCounterService;
+
+    private UUID userId;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(unreadCounterService, "clusterEventBus", clusterEventBus);
+        ReflectionTestUtils.setField(unreadCounterService, "cacheSeconds", 60L);
+        ReflectionTestUtils.setField(unreadCounterService, "maxCachedUsers", 100);
+        ReflectionTestUtils.setField(unreadCounterService, "cacheStripes", 4);
+        ReflectionTestUtils.setField(unreadCounterService, "reconcileAfterMinutes", 60L);
+        ReflectionTestUtils.setField(unreadCounterService, "reconcileBatchSize", 500);
+        unreadCounterService.init();
+        userId = UUID.randomUUID();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void get_NoCounterYet_CreatesItFromCountUnreadAndCachesIt() {
+        // Arrange
+        when(counterRepository.findUnreadCount(userId)).thenReturn(Optional.empty());
+        when(notificationRepository.countUnread(userId)).thenReturn(4L);
+        when(counterRepository.insertIfAbsent(eq(userId), eq(4L), any(LocalDateTime.class))).thenReturn(1);
+
+        // Act
+        long first = unreadCounterService.get(userId);
+        long second = unreadCounterService.get(userId);
+
+        // Assert
+        assertEquals(4, first);
+        assertEquals(4, second);
+        verify(notificationRepository, times(1)).countUnread(userId);
+        assertEquals(1L, unreadCounterService.getStats().get("created"));
+    }
+
+    @Test
+    void get_CounterCreatedByAnotherTransaction_ReadsStoredCount() {
+        // Arrange
+        when(counterRepository.findUnreadCount(userId)).thenReturn(Optional.empty(), Optional.of(5L));
+        when(notificationRepository.countUnread(userId)).thenReturn(4L);
+        when(counterRepository.insertIfAbsent(eq(userId), eq(4L), any(LocalDateTime.class))).thenReturn(0);
+
+        // Act
+        long count = unreadCounterService.get(userId);
+
+        // Assert
+        assertEquals(5, count);
+        assertEquals(0L, unreadCounterService.getStats().get("created"));
+    }
+
+    @Test
+    void add_NoCounterYet_CreatesItFromCountUnread() {
+        // Arrange
+        when(counterRepository.add(eq(userId), eq(1L), any(LocalDateTime.class))).thenReturn(0);
+        when(notificationRepository.countUnread(userId)).thenReturn(3L);
+        when(counterRepository.insertIfAbsent(eq(userId), eq(3L), any(LocalDateTime.class))).thenReturn(1);
+
+        // Act
+        unreadCounterService.add(userId, 1);
+
+        // Assert
+        // The count already includes this change, so it is not added again
+        verify(counterRepository, times(1)).add(eq(userId), anyLong(), any(LocalDateTime.class));
+        assertEquals(1L, unreadCounterService.getStats().get("created"));
+    }
+
+    @Test
+    void add_CounterCreatedByAnotherTransaction_AppliesChangeOnTop() {
+        // Arrange
+        when(counterRepository.add(eq(userId), eq(1L), any(LocalDateTime.class))).thenReturn(0, 1);
+        when(notificationRepository.countUnread(userId)).thenReturn(3L);
+        when(counterRepository.insertIfAbsent(eq(userId), eq(3L), any(LocalDateTime.class))).thenReturn(0);
+
+        // Act
+        unreadCounterService.add(userId, 1);
+
+        // Assert
+        verify(counterRepository, times(2)).add(eq(userId), eq(1L), any(LocalDateTime.class));
+        assertEquals(0L, unreadCounterService.getStats().get("created"));
+    }
+
+    @Test
+    void addAll_SomeUsersWithoutCounter_CreatesOnlyTheMissingOnes() {
+        // Arrange
+        UUID newUserId = UUID.randomUUID();
+        when(counterRepository.addAll(eq(List.of(userId, newUserId)), eq(-1L), any(LocalDateTime.class))).thenReturn(1);
+        when(counterRepository.findExistingUserIds(List.of(userId, newUserId))).thenReturn(List.of(userId));
+        when(notificationRepository.countUnread(newUserId)).thenReturn(0L);
+        when(counterRepository.insertIfAbsent(eq(newUserId), eq(0L), any(LocalDateTime.class))).thenReturn(1);
+
+        // Act
+        unreadCounterService.addAll(orderedDeltas(userId, -1L, newUserId, -1L));
+
+        // Assert
+        verify(notificationRepository, never()).countUnread(userId);
+        verify(counterRepository, never()).insertIfAbsent(eq(userId), anyLong(), any(LocalDateTime.class));
+        assertEquals(2L, unreadCounterService.getStats().get("changes"));
+    }
+
+    @Test
+    void add_NegativeDeltaInTransaction_LowersCachedCountOnlyAfterCommit() {
+        // Arrange
+        when(counterRepository.findUnreadCount(userId)).thenReturn(Optional.of(5L));
+        when(counterRepository.add(eq(userId), eq(-2L), any(LocalDateTime.class))).thenReturn(1);
+        unreadCounterService.get(userId);
+        TransactionSynchronizationManager.initSynchronization();
+
+        // Act
+        unreadCounterService.add(userId, -2);
+
+        // Assert
+        assertEquals(5, unreadCounterService.get(userId));
+        commit();
+        assertEquals(3, unreadCounterService.get(userId));
+        verify(counterRepository, times(1)).findUnreadCount(userId);
+    }
+
+    @Test
+    void add_NegativeDeltaRolledBack_LeavesCachedCount() {
+        // Arrange
+        when(counterRepository.findUnreadCount(userId)).thenReturn(Optional.of(5L));
+        when(counterRepository.add(eq(userId), eq(-5L), any(LocalDateTime.class))).thenReturn(1);
+        unreadCounterService.get(userId);
+        TransactionSynchronizationManager.initSynchronization();
+
+        // Act
+        unreadCounterService.add(userId, -5);
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+        }
+
+        // Assert
+        assertEquals(5, unreadCounterService.get(userId));
+    }
+
+    @Test
+    void add_ZeroDelta_DoesNothing() {
+        // Act
+        unreadCounterService.add(userId, 0);
+
+        // Assert
+        verifyNoInteractions(counterRepository, notificationRepository);
+    }
+
+    @Test
+    void reconcile_QuietCounters_RecountsAndReloadsCachedCount() {
+        // Arrange
+        when(counterRepository.findUnreadCount(userId)).thenReturn(Optional.of(5L), Optional.of(2L));
+        unreadCounterService.get(userId);
+        when(counterRepository.findReconcileCandidates(any(LocalDateTime.class), any(LocalDateTime.class),
+            any(Pageable.class))).thenReturn(List.of(userId));
+        when(counterRepository.reconcile(eq(List.of(userId)), any(LocalDateTime.class), any(LocalDateTime.class)))
+            .thenReturn(1);
+
+        // Act
+        unreadCounterService.reconcile();
+
+        // Assert
+        ArgumentCaptor<LocalDateTime> checkedBefore = ArgumentCaptor.forClass(LocalDateTime.class);
+        ArgumentCaptor<LocalDateTime> quietSince = ArgumentCaptor.forClass(LocalDateTime.class);
+        ArgumentCaptor<Pageable> batch = ArgumentCaptor.forClass(Pageable.class);
+        verify(counterRepository).findReconcileCandidates(checkedBefore.capture(), quietSince.capture(), batch.capture());
+        ArgumentCaptor<LocalDateTime> now = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(counterRepository).reconcile(eq(List.of(userId)), eq(quietSince.getValue()), now.capture());
+
+        // Counters that changed within the last minute are left for the next run
+        assertEquals(Duration.ofSeconds(60), Duration.between(quietSince.getValue(), now.getValue()));
+        assertEquals(Duration.ofMinutes(60), Duration.between(checkedBefore.getValue(), now.getValue()));
+        assertEquals(500, batch.getValue().getPageSize());
+
+        assertEquals(2, unreadCounterService.get(userId));
+        assertEquals(1L, unreadCounterService.getStats().get("reconciled"));
+    }
+
+    @Test
+    void reconcile_NoCandidates_UpdatesNothing() {
+        // Arrange
+        when(counterRepository.findReconcileCandidates(any(LocalDateTime.class), any(LocalDateTime.class),
+            any(Pageable.class))).thenReturn(List.of());
+
+        // Act
+        unreadCounterService.reconcile();
+
+        // Assert
+        verify(counterRepository, never()).reconcile(any(), any(), any());
+    }
+
+    @Test
+    void remoteNotificationsRead_InvalidatesCachedCount() {
+        // Arrange
+        Consumer<ClusterEvent> handler = subscribedHandler(ClusterEventBus.NOTIFICATIONS_READ);
+        when(counterRepository.findUnreadCount(userId)).thenReturn(Optional.of(5L), Optional.of(1L));
+        unreadCounterService.get(userId);
+
+        // Act
+        handler.accept(new ClusterEvent(ClusterEventBus.NOTIFICATIONS_READ, userId + ":all",
+            Map.of("userId", userId.toString(), "all", true, "count", 4), false, false));
+
+        // Assert
+        assertEquals(1, unreadCounterService.get(userId));
+    }
+
+    @Test
+    void localNotificationsRead_KeepsCachedCount() {
+        // Arrange
+        Consumer<ClusterEvent> handler = subscribedHandler(ClusterEventBus.NOTIFICATIONS_READ);
+        when(counterRepository.findUnreadCount(userId)).thenReturn(Optional.of(5L));
+        unreadCounterService.get(userId);
+
+        // Act
+        handler.accept(new ClusterEvent(ClusterEventBus.NOTIFICATIONS_READ, userId + ":all",
+            Map.of("userId", userId.toString(), "all", true, "count", 4), true, false));
+
+        // Assert
+        // This node's own change was applied to the cache when it committed
+        assertEquals(5, unreadCounterService.get(userId));
+        verify(counterRepository, times(1)).findUnreadCount(userId);
+    }
+
+    @Test
+    void remoteNotificationCreated_InvalidatesCachedCountOfRecipient() {
+        // Arrange
+        Consumer<ClusterEvent> handler = subscribedHandler(ClusterEventBus.NOTIFICATION_CREATED);
+        when(counterRepository.findUnreadCount(userId)).thenReturn(Optional.of(5L), Optional.of(6L));
+        unreadCounterService.get(userId);
+
+        // Act
+        handler.accept(new ClusterEvent(ClusterEventBus.NOTIFICATION_CREATED, "42",
+            Map.of("notification", Map.of("id", 42, "userId", userId.toString())), false, false));
+
+        // Assert
+        assertEquals(6, unreadCounterService.get(userId));
+    }
+
+    @SuppressWarnings("unchecked")
+    private Consumer<ClusterEvent> subscribedHandler(String type) {
+        ArgumentCaptor<Consumer<ClusterEvent>> handler = ArgumentCaptor.forClass(Consumer.class);
+        verify(clusterEventBus).subscribe(eq(type), handler.capture());
+        return handler.getValue();
+    }
+
+    private static Map<UUID, Long> orderedDeltas(UUID first, long firstDelta, UUID second, long secondDelta) {
+        Map<UUID, Long> deltas = new LinkedHashMap<>();
+        deltas.put(first, firstDelta);
+        deltas.put(second, secondDelta);
+        return deltas;
+    }
+
+    private static void commit() {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        synchronizations.forEach(synchronization -> synchronization.beforeCommit(false));
+        synchronizations.forEach(TransactionSynchronization::afterCommit);
+    }
+}
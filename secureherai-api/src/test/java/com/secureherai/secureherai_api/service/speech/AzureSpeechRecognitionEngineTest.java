@@ -0,0 +1,85 @@
+package com.secureherai.secureherai_api.service.speech;
+
+import com.microsoft.cognitiveservices.speech.SpeechRecognizer;
+import com.microsoft.cognitiveservices.speech.audio.PushAudioInputStream;
+import com.secureherai.secureherai_api.service.speech.AzureSpeechRecognitionEngine.PushStreamingRecognition;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class AzureSpeechRecognitionEngineTest {
+
+    private PushAudioInputStream pushStream;
+    private SpeechRecognizer recognizer;
+    private final AtomicInteger releases = new AtomicInteger();
+    private PushStreamingRecognition recognition;
+
+    @BeforeEach
+    void setUp() {
+        pushStream = mock(PushAudioInputStream.class);
+        recognizer = mock(SpeechRecognizer.class);
+        when(recognizer.stopContinuousRecognitionAsync()).thenReturn(CompletableFuture.completedFuture(null));
+        recognition = new PushStreamingRecognition(pushStream, recognizer, releases::incrementAndGet);
+    }
+
+    @Test
+    void streamingRecognition_Write_PushesFramesUntilFinished() {
+        // Arrange
+        byte[] frame = {1, 2, 3, 4};
+
+        // Act
+        recognition.write(frame);
+        recognition.write(new byte[0]);
+        recognition.finish(0);
+        recognition.write(frame);
+
+        // Assert
+        verify(pushStream, times(1)).write(frame);
+        verify(pushStream, times(1)).write(any(byte[].class));
+        verify(pushStream).close();
+    }
+
+    @Test
+    void streamingRecognition_Close_ReleasesRecognizerOnce() {
+        // Act
+        recognition.finish(0);
+        recognition.close();
+
+        // Assert
+        verify(recognizer, times(1)).stopContinuousRecognitionAsync();
+        assertEquals(1, releases.get());
+    }
+
+    @Test
+    void streamingRecognition_SessionStopped_FinishesCleanly() {
+        // Arrange
+        recognition.onSessionStopped();
+
+        // Act & Assert
+        assertTrue(recognition.finish(0));
+        assertTrue(recognition.finish(0));
+    }
+
+    @Test
+    void streamingRecognition_CanceledWithError_DoesNotFinishCleanly() {
+        // Arrange
+        recognition.onCanceled(true);
+
+        // Act & Assert
+        assertFalse(recognition.finish(0));
+        assertEquals(1, releases.get());
+    }
+
+    @Test
+    void streamingRecognition_NotDrainedInTime_DoesNotFinishCleanly() {
+        // Act & Assert
+        assertFalse(recognition.finish(0));
+        assertEquals(1, releases.get());
+    }
+}
@@ -0,0 +1,327 @@
+package com.secureherai.secureherai_api.service.speech;
+
+import com.secureherai.secureherai_api.exception.DeadlineExceededException;
+import com.secureherai.secureherai_api.exception.SpeechEngineUnavailableException;
+import com.secureherai.secureherai_api.exception.SpeechServiceException;
+import com.secureherai.secureherai_api.service.AzureSpeechService.SpeechTranscriptionResult;
+import com.secureherai.secureherai_api.util.Deadline;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResilientSpeechRecognitionEngineTest {
+
+    @TempDir
+    Path tempDir;
+
+    private ResilientSpeechRecognitionEngine engine;
+    private File wavFile;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        engine = new ResilientSpeechRecognitionEngine();
+        ReflectionTestUtils.setField(engine, "hedgeDelayMillis", 0L);
+        ReflectionTestUtils.setField(engine, "timeoutMillis", 2000L);
+        ReflectionTestUtils.setField(engine, "maxConcurrent", 4);
+        ReflectionTestUtils.setField(engine, "acquireTimeoutMillis", 50L);
+        ReflectionTestUtils.setField(engine, "circuitFailureThreshold", 2);
+        ReflectionTestUtils.setField(engine, "circuitOpenMillis", 60000L);
+
+        wavFile = tempDir.resolve("clip.wav").toFile();
+        Files.write(wavFile.toPath(), new byte[] {1, 2, 3, 4});
+    }
+
+    @AfterEach
+    void tearDown() {
+        engine.shutdown();
+    }
+
+    @Test
+    void recognize_HealthyEngine_ReturnsItsResult() throws Exception {
+        engine.start(List.of(new StubEngine("primary", 0, false)));
+
+        SpeechTranscriptionResult result = engine.recognize(wavFile, "en-US");
+
+        assertTrue(result.isSuccess());
+        assertEquals("primary", result.getText());
+    }
+
+    @Test
+    void recognize_RepeatedFailures_OpenCircuitAndFailFast() throws Exception {
+        StubEngine failing = new StubEngine("primary", 0, true);
+        engine.start(List.of(failing));
+
+        assertThrows(SpeechEngineUnavailableException.class, () -> engine.recognize(wavFile, null));
+        assertThrows(SpeechEngineUnavailableException.class, () -> engine.recognize(wavFile, null));
+
+        // Circuit is open now: the engine is not called again
+        assertFalse(engine.isAvailable());
+        assertThrows(SpeechEngineUnavailableException.class, () -> engine.recognize(wavFile, null));
+        assertEquals(2, failing.calls.get());
+        assertEquals(1L, engine.getStats().get("shortCircuited"));
+    }
+
+    @Test
+    void recognize_PrimaryFails_FailsOverToSecondEngine() throws Exception {
+        engine.start(List.of(new StubEngine("primary", 0, true), new StubEngine("secondary", 0, false)));
+
+        SpeechTranscriptionResult result = engine.recognize(wavFile, null);
+
+        assertEquals("secondary", result.getText());
+        assertEquals(1L, engine.getStats().get("failovers"));
+    }
+
+    @Test
+    void recognize_SlowPrimary_HedgeAnswersFirst() throws Exception {
+        ReflectionTestUtils.setField(engine, "hedgeDelayMillis", 50L);
+        StubEngine slow = new StubEngine("primary", 1000, false);
+        engine.start(List.of(slow, new StubEngine("secondary", 0, false)));
+
+        long started = System.nanoTime();
+        SpeechTranscriptionResult result = engine.recognize(wavFile, null);
+
+        assertEquals("secondary", result.getText());
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started) < 900);
+        assertEquals(1L, engine.getStats().get("hedgesStarted"));
+        // The losing call was abandoned, not counted against the primary's circuit
+        assertTrue(slow.interrupted.await(1, TimeUnit.SECONDS));
+        assertTrue(engine.isAvailable());
+    }
+
+    @Test
+    void recognize_TimeoutCountsAsFailure() throws Exception {
+        ReflectionTestUtils.setField(engine, "timeoutMillis", 100L);
+        ReflectionTestUtils.setField(engine, "circuitFailureThreshold", 1);
+        engine.start(List.of(new StubEngine("primary", 5000, false)));
+
+        SpeechEngineUnavailableException exception = assertThrows(SpeechEngineUnavailableException.class,
+            () -> engine.recognize(wavFile, null));
+
+        assertTrue(exception.getMessage().contains("timed out"));
+        assertFalse(engine.isAvailable());
+        assertEquals(1L, engine.getStats().get("timeouts"));
+    }
+
+    @Test
+    void recognizePcm_RequestDeadlineShorterThanTimeout_FailsWithoutOpeningCircuit() throws Exception {
+        ReflectionTestUtils.setField(engine, "circuitFailureThreshold", 1);
+        engine.start(List.of(new StubEngine("primary", 5000, false)));
+
+        long started = System.nanoTime();
+        assertThrows(DeadlineExceededException.class, () -> engine.recognizePcm(
+            ByteBuffer.wrap(new byte[] {1, 2, 3, 4}), "clip", null, Deadline.after(Duration.ofMillis(100))));
+
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started) < 1000);
+        assertTrue(engine.isAvailable());
+        assertEquals(1L, engine.getStats().get("deadlineExceeded"));
+        assertEquals(0L, engine.getStats().get("timeouts"));
+    }
+
+    @Test
+    void recognize_AllPermitsBusy_RejectsImmediately() throws Exception {
+        ReflectionTestUtils.setField(engine, "maxConcurrent", 1);
+        StubEngine slow = new StubEngine("primary", 1000, false);
+        engine.start(List.of(slow));
+
+        Thread busy = new Thread(() -> {
+            try {
+                engine.recognize(wavFile, null);
+            } catch (Exception ignored) {
+            }
+        });
+        busy.start();
+        assertTrue(slow.started.await(1, TimeUnit.SECONDS));
+
+        assertThrows(SpeechEngineUnavailableException.class, () -> engine.recognize(wavFile, null));
+        assertEquals(1L, engine.getStats().get("saturated"));
+        busy.join();
+    }
+
+    @Test
+    void localEngine_SameAudio_SameTranscript() throws Exception {
+        LocalSpeechRecognitionEngine local = new LocalSpeechRecognitionEngine("help me", "all good", 50, 0, 0, 0);
+        File other = tempDir.resolve("other.wav").toFile();
+        Files.write(other.toPath(), new byte[] {9, 8, 7, 6, 5});
+
+        for (File clip : new File[] {wavFile, other}) {
+            String first = local.recognize(clip, null).getText();
+            assertEquals(first, local.recognize(clip, null).getText());
+        }
+
+        LocalSpeechRecognitionEngine alwaysKeyword = new LocalSpeechRecognitionEngine("help me", "all good", 100, 0, 0, 0);
+        assertEquals("help me", alwaysKeyword.recognize(other, null).getText());
+        LocalSpeechRecognitionEngine alwaysFailing = new LocalSpeechRecognitionEngine("help me", "all good", 100, 0, 0, 100);
+        assertThrows(SpeechServiceException.class, () -> alwaysFailing.recognize(other, null));
+    }
+
+    @Test
+    void getStats_ReportsPerEngineCircuitState() throws Exception {
+        engine.start(List.of(new StubEngine("primary", 0, false)));
+        engine.recognize(wavFile, null);
+
+        @SuppressWarnings("unchecked")
+        Map<String, Object> primary = ((List<Map<String, Object>>) engine.getStats().get("engines")).get(0);
+        assertEquals("primary", primary.get("engine"));
+        assertEquals("CLOSED", primary.get("circuit"));
+        assertEquals(1L, primary.get("calls"));
+        assertEquals(1L, primary.get("wins"));
+    }
+
+    @Test
+    void startStreaming_HoldsPermitUntilFinished() throws Exception {
+        ReflectionTestUtils.setField(engine, "maxConcurrent", 1);
+        engine.start(List.of(new StubEngine("primary", 0, false)));
+
+        StreamingRecognition stream = engine.startStreaming(null, text -> {}, text -> {}, error -> {}, Deadline.none());
+
+        assertThrows(SpeechEngineUnavailableException.class, () -> engine.recognize(wavFile, null));
+        assertEquals(1, engine.getStats().get("inFlight"));
+        assertTrue(stream.finish(0));
+        stream.close();
+        assertEquals(0, engine.getStats().get("inFlight"));
+        assertEquals("primary", engine.recognize(wavFile, null).getText());
+    }
+
+    @Test
+    void startStreaming_SessionsEndingWithErrors_OpenCircuit() throws Exception {
+        StubEngine primary = new StubEngine("primary", 0, false);
+        primary.streamStopsCleanly = false;
+        engine.start(List.of(primary));
+
+        for (int i = 0; i < 2; i++) {
+            StreamingRecognition stream = engine.startStreaming(null, text -> {}, text -> {}, error -> {}, Deadline.none());
+            assertFalse(stream.finish(0));
+        }
+
+        assertFalse(engine.isAvailable());
+        assertThrows(SpeechEngineUnavailableException.class,
+            () -> engine.startStreaming(null, text -> {}, text -> {}, error -> {}, Deadline.none()));
+        assertEquals(2, primary.calls.get());
+    }
+
+    @Test
+    void startStreaming_PrimaryFailsToStart_FailsOverToSecondEngine() throws Exception {
+        StubEngine secondary = new StubEngine("secondary", 0, false);
+        engine.start(List.of(new StubEngine("primary", 0, true), secondary));
+
+        StreamingRecognition stream = engine.startStreaming(null, text -> {}, text -> {}, error -> {}, Deadline.none());
+
+        assertEquals(1, secondary.calls.get());
+        assertEquals(1L, engine.getStats().get("failovers"));
+        stream.close();
+    }
+
+    @Test
+    void startStreaming_StartHangs_TimesOutAndCountsAsFailure() throws Exception {
+        ReflectionTestUtils.setField(engine, "timeoutMillis", 100L);
+        ReflectionTestUtils.setField(engine, "circuitFailureThreshold", 1);
+        StubEngine slow = new StubEngine("primary", 5000, false);
+        engine.start(List.of(slow));
+
+        long started = System.nanoTime();
+        SpeechEngineUnavailableException exception = assertThrows(SpeechEngineUnavailableException.class,
+            () -> engine.startStreaming(null, text -> {}, text -> {}, error -> {}, Deadline.none()));
+
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started) < 1000);
+        assertTrue(exception.getMessage().contains("did not start"));
+        assertTrue(slow.interrupted.await(1, TimeUnit.SECONDS));
+        assertFalse(engine.isAvailable());
+        assertEquals(0, engine.getStats().get("inFlight"));
+    }
+
+    @Test
+    void startStreaming_RequestDeadlineShorterThanTimeout_FailsWithoutOpeningCircuit() throws Exception {
+        ReflectionTestUtils.setField(engine, "circuitFailureThreshold", 1);
+        engine.start(List.of(new StubEngine("primary", 5000, false)));
+
+        assertThrows(DeadlineExceededException.class, () -> engine.startStreaming(null, text -> {}, text -> {},
+            error -> {}, Deadline.after(Duration.ofMillis(100))));
+
+        assertTrue(engine.isAvailable());
+        assertEquals(1L, engine.getStats().get("deadlineExceeded"));
+    }
+
+    private static class StubEngine implements SpeechRecognitionEngine {
+        private final String name;
+        private final long delayMillis;
+        private final boolean fail;
+        private final AtomicInteger calls = new AtomicInteger();
+        private final CountDownLatch started = new CountDownLatch(1);
+        private final CountDownLatch interrupted = new CountDownLatch(1);
+        private boolean streamStopsCleanly = true;
+
+        StubEngine(String name, long delayMillis, boolean fail) {
+            this.name = name;
+            this.delayMillis = delayMillis;
+            this.fail = fail;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public SpeechTranscriptionResult recognize(File wavFile, String languageCode) throws Exception {
+            calls.incrementAndGet();
+            started.countDown();
+            try {
+                Thread.sleep(delayMillis);
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+                throw e;
+            }
+            if (fail) {
+                throw new SpeechServiceException("Service unavailable", wavFile.getName(), delayMillis);
+            }
+            return new SpeechTranscriptionResult(true, name, 1.0, "Speech recognized successfully");
+        }
+
+        @Override
+        public StreamingRecognition startStreaming(String languageCode, Consumer<String> onPartial,
+                                                   Consumer<String> onFinal, Consumer<String> onError,
+                                                   Deadline deadline) throws Exception {
+            calls.incrementAndGet();
+            try {
+                Thread.sleep(delayMillis);
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+                throw e;
+            }
+            if (fail) {
+                throw new SpeechServiceException("Service unavailable", name, delayMillis);
+            }
+            boolean stopsCleanly = streamStopsCleanly;
+            return new StreamingRecognition() {
+                @Override
+                public void write(byte[] pcmFrame) {
+                }
+
+                @Override
+                public boolean finish(long drainTimeoutSeconds) {
+                    return stopsCleanly;
+                }
+
+                @Override
+                public void close() {
+                }
+            };
+        }
+    }
+}
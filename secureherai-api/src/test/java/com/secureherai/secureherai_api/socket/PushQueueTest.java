@@ -0,0 +1,80 @@
+package com.secureherai.secureherai_api.socket;
+
+import com.secureherai.secureherai_api.socket.PushQueue.Message;
+import com.secureherai.secureherai_api.socket.PushQueue.Offer;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PushQueueTest {
+
+    @Test
+    void offer_SameMergeKey_KeepsLatestOnly() {
+        PushQueue queue = new PushQueue(10, 10);
+
+        assertEquals(Offer.QUEUED, queue.offer(count(1)));
+        assertEquals(Offer.QUEUED, queue.offer(notification(1L, false)));
+        assertEquals(Offer.MERGED, queue.offer(count(2)));
+
+        List<Message> taken = queue.take();
+        assertEquals(2, taken.size());
+        assertEquals(Long.valueOf(1L), taken.get(0).notificationId);
+        assertEquals(2, taken.get(1).payload);
+    }
+
+    @Test
+    void offer_Full_DropsOldestNormalMessage() {
+        PushQueue queue = new PushQueue(2, 10);
+        queue.offer(notification(1L, false));
+        queue.offer(notification(2L, false));
+
+        assertEquals(Offer.DISPLACED, queue.offer(notification(3L, false)));
+
+        assertEquals(List.of(2L, 3L), ids(queue.take()));
+        assertEquals(1, queue.takeDropped());
+        assertEquals(0, queue.takeDropped());
+    }
+
+    @Test
+    void offer_FullOfUrgent_DropsNormalAndDisplacesOldestUrgent() {
+        PushQueue queue = new PushQueue(2, 10);
+        queue.offer(notification(1L, true));
+        queue.offer(notification(2L, true));
+
+        assertEquals(Offer.DROPPED, queue.offer(notification(3L, false)));
+        assertEquals(Offer.DISPLACED, queue.offer(notification(4L, true)));
+
+        assertEquals(List.of(2L, 4L), ids(queue.take()));
+        assertEquals(2, queue.takeDropped());
+    }
+
+    @Test
+    void take_UrgentFirstWithinInFlightLimit() {
+        PushQueue queue = new PushQueue(10, 2);
+        queue.offer(notification(1L, false));
+        queue.offer(notification(2L, false));
+        queue.offer(notification(3L, true));
+
+        assertEquals(List.of(3L, 1L), ids(queue.take()));
+        assertTrue(queue.take().isEmpty());
+        assertEquals(2, queue.inFlight());
+
+        queue.done();
+        assertEquals(List.of(2L), ids(queue.take()));
+        assertFalse(queue.hasQueued());
+    }
+
+    private static Message notification(long id, boolean urgent) {
+        return new Message("notification", "n" + id, id, null, urgent);
+    }
+
+    private static Message count(int count) {
+        return new Message("unread-count", count, null, "unread-count", false);
+    }
+
+    private static List<Long> ids(List<Message> messages) {
+        return messages.stream().map(message -> message.notificationId).toList();
+    }
+}
@@ -0,0 +1,204 @@
+package com.secureherai.secureherai_api.socket;
+
+import com.corundumstudio.socketio.AckRequest;
+import com.corundumstudio.socketio.SocketIOClient;
+import com.corundumstudio.socketio.SocketIONamespace;
+import com.corundumstudio.socketio.SocketIOServer;
+import com.corundumstudio.socketio.listener.DataListener;
+import com.secureherai.secureherai_api.dto.sos.SOSVoiceStreamStartDto;
+import com.secureherai.secureherai_api.service.AzureSpeechService;
+import com.secureherai.secureherai_api.service.JwtService;
+import com.secureherai.secureherai_api.service.SOSIngestionPipeline;
+import com.secureherai.secureherai_api.service.SOSService;
+import com.secureherai.secureherai_api.service.speech.StreamingRecognition;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class VoiceStreamSocketHandlerTest {
+
+    @Mock
+    private SocketIOServer socketIOServer;
+
+    @Mock
+    private SocketIONamespace namespace;
+
+    @Mock
+    private JwtService jwtService;
+
+    @Mock
+    private SOSService sosService;
+
+    @Mock
+    private SOSIngestionPipeline sosIngestionPipeline;
+
+    @Mock
+    private AzureSpeechService azureSpeechService;
+
+    @Mock
+    private SocketIOClient client;
+
+    @Mock
+    private AckRequest ackRequest;
+
+    @Mock
+    private StreamingRecognition recognition;
+
+    @InjectMocks
+    private VoiceStreamSocketHandler handler;
+
+    private final Map<String, DataListener<Object>> listeners = new ConcurrentHashMap<>();
+    private final Map<String, Object> clientStore = new ConcurrentHashMap<>();
+    private final CountDownLatch recognitionStarting = new CountDownLatch(1);
+    private final CountDownLatch recognitionClosed = new CountDownLatch(1);
+
+    @BeforeEach
+    void setUp() throws Exception {
+        ReflectionTestUtils.setField(handler, "maxDurationSeconds", 120L);
+        ReflectionTestUtils.setField(handler, "maxBytes", 4194304L);
+        ReflectionTestUtils.setField(handler, "maxPendingBytes", 8L);
+        ReflectionTestUtils.setField(handler, "sessionWorkers", 2);
+
+        when(socketIOServer.addNamespace(VoiceStreamSocketHandler.NAMESPACE)).thenReturn(namespace);
+        doAnswer(invocation -> {
+            listeners.put(invocation.getArgument(0), invocation.getArgument(2));
+            return null;
+        }).when(namespace).addEventListener(anyString(), any(), any());
+        handler.registerListeners();
+
+        lenient().doAnswer(invocation -> clientStore.put(invocation.getArgument(0), invocation.getArgument(1)))
+            .when(client).set(anyString(), any());
+        lenient().when(client.get(anyString())).thenAnswer(invocation -> clientStore.get(invocation.<String>getArgument(0)));
+        lenient().doAnswer(invocation -> clientStore.remove(invocation.<String>getArgument(0)))
+            .when(client).del(anyString());
+        clientStore.put("userId", UUID.randomUUID());
+
+        // Recognition starts only once the test lets it, as Azure takes a while to connect
+        lenient().when(azureSpeechService.startStreamingRecognition(any(), any(), any(), any())).thenAnswer(invocation -> {
+            recognitionStarting.await(5, TimeUnit.SECONDS);
+            return recognition;
+        });
+        lenient().doAnswer(invocation -> {
+            recognitionClosed.countDown();
+            return null;
+        }).when(recognition).close();
+    }
+
+    @AfterEach
+    void tearDown() {
+        handler.shutdown();
+    }
+
+    @Test
+    void audio_WhileRecognitionStarts_IsWrittenInOrderOnceAttached() throws Exception {
+        // Arrange
+        byte[] first = {1, 2};
+        byte[] second = {3, 4};
+        byte[] third = {5, 6};
+
+        CountDownLatch flushed = writesOf(second);
+
+        // Act
+        send("start", startDto());
+        send("audio", first);
+        send("audio", second);
+        recognitionStarting.countDown();
+        assertTrue(flushed.await(5, TimeUnit.SECONDS));
+        send("audio", third);
+
+        // Assert
+        InOrder inOrder = inOrder(recognition);
+        inOrder.verify(recognition).write(first);
+        inOrder.verify(recognition).write(second);
+        inOrder.verify(recognition).write(third);
+        verify(client, never()).sendEvent(eq("error"), any(Object[].class));
+    }
+
+    @Test
+    void stop_StreamDrainedBeforeRecognitionStarted_ClosesRecognitionWithoutWritingAudio() throws Exception {
+        // Act
+        send("start", startDto());
+        send("audio", new byte[]{1, 2});
+        send("stop", null);
+        verify(client, timeout(5000)).sendEvent(eq("final"), any(Object[].class));
+        recognitionStarting.countDown();
+
+        // Assert
+        assertTrue(recognitionClosed.await(5, TimeUnit.SECONDS));
+        verify(recognition, never()).write(any());
+    }
+
+    @Test
+    void audio_PendingLimitExceeded_DropsFramesAndReportsOnce() throws Exception {
+        // Arrange
+        byte[] held = {1, 2, 3, 4, 5, 6};
+        byte[] dropped = {7, 8, 9};
+        CountDownLatch flushed = writesOf(held);
+
+        // Act
+        send("start", startDto());
+        send("audio", held);
+        send("audio", dropped);
+        send("audio", dropped);
+        recognitionStarting.countDown();
+        assertTrue(flushed.await(5, TimeUnit.SECONDS));
+
+        // Assert
+        verify(recognition, never()).write(dropped);
+        verify(client, times(1)).sendEvent("error",
+            Map.of("message", "Voice recognition is still starting, audio is being dropped"));
+    }
+
+    @Test
+    void start_RecognitionFailsToStart_SendsErrorAndClearsSession() throws Exception {
+        // Arrange
+        doThrow(new IllegalStateException("No connection"))
+            .when(azureSpeechService).startStreamingRecognition(any(), any(), any(), any());
+
+        // Act
+        send("start", startDto());
+
+        // Assert
+        verify(client, timeout(5000)).sendEvent("error",
+            Map.of("message", "Could not start voice recognition: No connection"));
+        verify(client, timeout(5000)).del("voiceStreamSession");
+    }
+
+    // Frames reach the recognition on the session executor, so wait for them with a latch
+    private CountDownLatch writesOf(byte[] frame) {
+        CountDownLatch written = new CountDownLatch(1);
+        lenient().doAnswer(invocation -> {
+            written.countDown();
+            return null;
+        }).when(recognition).write(frame);
+        return written;
+    }
+
+    private void send(String event, Object data) throws Exception {
+        listeners.get(event).onData(client, data, ackRequest);
+    }
+
+    private static SOSVoiceStreamStartDto startDto() {
+        return new SOSVoiceStreamStartDto(BigDecimal.valueOf(23.8103), BigDecimal.valueOf(90.4125), "Dhaka, Bangladesh", "en-US");
+    }
+}
@@ -0,0 +1,168 @@
+package com.secureherai.secureherai_api.util;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.http.HttpTimeoutException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AudioDownloaderTest {
+
+    private HttpServer server;
+    private AudioDownloader downloader;
+    private final Set<Integer> clientPorts = ConcurrentHashMap.newKeySet();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+
+        downloader = new AudioDownloader();
+        ReflectionTestUtils.setField(downloader, "maxBytes", 1000L);
+        ReflectionTestUtils.setField(downloader, "connectTimeoutSeconds", 2L);
+        ReflectionTestUtils.setField(downloader, "timeoutSeconds", 1L);
+        ReflectionTestUtils.invokeMethod(downloader, "init");
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    void open_StreamsBodyWithNameAndType() throws Exception {
+        byte[] clip = bytes(600);
+        serve("/clips/help.mp3", exchange -> respond(exchange, 200, clip.length, clip));
+
+        try (AudioDownloader.Download download = downloader.open(url("/clips/help.mp3")).get()) {
+            assertEquals("help.mp3", download.getFileName());
+            assertEquals("audio/mpeg", download.getContentType());
+            assertEquals(600, download.getContentLength());
+            assertArrayEquals(clip, download.getBody().readAllBytes());
+        }
+    }
+
+    @Test
+    void open_SequentialDownloads_ReuseConnection() throws Exception {
+        byte[] clip = bytes(100);
+        serve("/clip.wav", exchange -> respond(exchange, 200, clip.length, clip));
+
+        for (int i = 0; i < 3; i++) {
+            try (AudioDownloader.Download download = downloader.open(url("/clip.wav")).get()) {
+                assertEquals(100, download.getBody().readAllBytes().length);
+            }
+        }
+
+        assertEquals(1, clientPorts.size(), "All downloads should share one connection");
+    }
+
+    @Test
+    void open_DeclaredSizeOverLimit_FailsBeforeReadingBody() {
+        byte[] clip = bytes(2000);
+        serve("/big.mp3", exchange -> respond(exchange, 200, clip.length, clip));
+
+        ExecutionException exception = assertThrows(ExecutionException.class,
+            () -> downloader.open(url("/big.mp3")).get());
+
+        assertTrue(exception.getCause() instanceof IOException);
+        assertTrue(exception.getCause().getMessage().contains("limit"));
+        assertEquals(1L, downloader.getStats().get("tooLarge"));
+    }
+
+    @Test
+    void read_ChunkedBodyOverLimit_FailsWhileStreaming() throws Exception {
+        byte[] clip = bytes(5000);
+        serve("/chunked.mp3", exchange -> respond(exchange, 200, 0, clip));
+
+        try (AudioDownloader.Download download = downloader.open(url("/chunked.mp3")).get()) {
+            assertEquals(-1, download.getContentLength());
+            InputStream body = download.getBody();
+            assertThrows(IOException.class, body::readAllBytes);
+        }
+    }
+
+    @Test
+    void read_StalledBody_TimesOut() throws Exception {
+        serve("/stalled.mp3", exchange -> {
+            exchange.sendResponseHeaders(200, 0);
+            OutputStream out = exchange.getResponseBody();
+            out.write(bytes(10));
+            out.flush();
+            try {
+                Thread.sleep(3000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.close();
+        });
+
+        try (AudioDownloader.Download download = downloader.open(url("/stalled.mp3")).get()) {
+            InputStream body = download.getBody();
+            assertEquals(10, body.readNBytes(10).length);
+            assertThrows(HttpTimeoutException.class, body::read);
+        }
+        assertEquals(1L, downloader.getStats().get("timedOut"));
+    }
+
+    @Test
+    void open_ErrorStatus_Fails() {
+        serve("/missing.mp3", exchange -> respond(exchange, 404, -1, new byte[0]));
+
+        ExecutionException exception = assertThrows(ExecutionException.class,
+            () -> downloader.open(url("/missing.mp3")).get());
+
+        assertEquals("Audio download failed with HTTP 404", exception.getCause().getMessage());
+    }
+
+    @Test
+    void open_NonHttpUrl_Rejected() {
+        assertThrows(IllegalArgumentException.class, () -> downloader.open("file:///etc/passwd"));
+    }
+
+    private void serve(String path, Handler handler) {
+        server.createContext(path, exchange -> {
+            clientPorts.add(exchange.getRemoteAddress().getPort());
+            handler.handle(exchange);
+        });
+    }
+
+    private static void respond(HttpExchange exchange, int status, long length, byte[] body) throws IOException {
+        exchange.getResponseHeaders().add("Content-Type", "audio/mpeg");
+        exchange.sendResponseHeaders(status, length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private String url(String path) {
+        return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort() + path;
+    }
+
+    private static byte[] bytes(int length) {
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = (byte) i;
+        }
+        return bytes;
+    }
+
+    @FunctionalInterface
+    private interface Handler {
+        void handle(HttpExchange exchange) throws IOException;
+    }
+}
@@ -0,0 +1,198 @@
+package com.secureherai.secureherai_api.util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AudioFormatConverterTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final AudioFormatConverter converter = new AudioFormatConverter();
+    private final List<File> outputs = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        outputs.forEach(converter::cleanupTempFile);
+    }
+
+    @Test
+    void convertToWav_CanonicalWav_ReturnedWithoutCopy() throws Exception {
+        File input = writeWav("canonical.wav", 16000, 1, 16, tone(16000, 1, 1.0, 440));
+
+        File output = converter.convertToWav(input);
+
+        assertEquals(input, output);
+    }
+
+    @Test
+    void convertToWav_StereoAt44k_ResampledToMono16k() throws Exception {
+        File input = writeWav("stereo.wav", 44100, 2, 16, tone(44100, 2, 2.0, 440));
+
+        File output = convert(input);
+
+        byte[] bytes = Files.readAllBytes(output.toPath());
+        WavFile wav = WavFile.parse(bytes, bytes.length);
+        assertTrue(wav.isCanonical(16000));
+        assertEquals(2000, wav.getDurationMillis(), 1);
+        // A 440 Hz tone crosses zero 880 times per second
+        assertEquals(1760, zeroCrossings(bytes, wav), 10);
+    }
+
+    @Test
+    void convertToWav_EightBitAt8k_UpsampledWithoutClipping() throws Exception {
+        File input = writeWav("narrowband.wav", 8000, 1, 8, tone(8000, 1, 1.0, 300));
+
+        File output = convert(input);
+
+        byte[] bytes = Files.readAllBytes(output.toPath());
+        WavFile wav = WavFile.parse(bytes, bytes.length);
+        assertEquals(16000 * 2, wav.getDataLength());
+        assertEquals(600, zeroCrossings(bytes, wav), 10);
+        assertTrue(peak(bytes, wav) < 0.6, "Amplitude should be preserved, not amplified");
+        assertTrue(peak(bytes, wav) > 0.4, "Amplitude should be preserved, not attenuated");
+    }
+
+    @Test
+    void canStream_OnlyRejectsMp4WithIndexAfterMedia() throws Exception {
+        File faststart = tempDir.resolve("faststart.m4a").toFile();
+        Files.write(faststart.toPath(), boxes("ftyp", "moov", "mdat"));
+        File trailingIndex = tempDir.resolve("trailing.m4a").toFile();
+        Files.write(trailingIndex.toPath(), boxes("ftyp", "mdat", "moov"));
+        File mp3 = tempDir.resolve("clip.mp3").toFile();
+        Files.write(mp3.toPath(), new byte[] {(byte) 0xFF, (byte) 0xFB, 0, 0});
+
+        assertTrue(FfmpegWorkerPool.canStream(faststart, "audio/mp4"));
+        assertFalse(FfmpegWorkerPool.canStream(trailingIndex, "audio/mp4"));
+        assertTrue(FfmpegWorkerPool.canStream(mp3, "audio/mpeg"));
+    }
+
+    @Test
+    void convertToPcm_CanonicalWav_ReturnsDataChunkWithoutCopy() throws Exception {
+        byte[] wav = wavBytes(16000, 1, 16, tone(16000, 1, 1.0, 440));
+        ByteBuffer audio = ByteBuffer.allocateDirect(wav.length).put(wav).flip();
+
+        ByteBuffer pcm = converter.convertToPcm(audio, "canonical.wav");
+
+        assertEquals(16000 * 2, pcm.remaining());
+        assertTrue(pcm.isDirect(), "Canonical audio should be a view of the upload buffer");
+        assertEquals(wav[WavFile.HEADER_SIZE], pcm.get(0));
+        assertEquals(0, audio.position());
+    }
+
+    @Test
+    void convertToPcm_StereoAt44k_ResampledInMemory() throws Exception {
+        ByteBuffer audio = ByteBuffer.wrap(wavBytes(44100, 2, 16, tone(44100, 2, 1.0, 440)));
+
+        ByteBuffer pcm = converter.convertToPcm(audio, "stereo.wav");
+
+        assertEquals(16000 * 2, pcm.remaining());
+    }
+
+    @Test
+    void convertToPcm_CompressedWithoutWorkers_ReturnsNullForDiskFallback() throws Exception {
+        ByteBuffer audio = ByteBuffer.wrap(new byte[] {'I', 'D', '3', 4, 0, 0, 0, 0, 0, 0});
+
+        assertNull(converter.convertToPcm(audio, "clip.mp3"));
+    }
+
+    @Test
+    void convertToPcm_Stream_WavDetectedFromPrefixAndResampled() throws Exception {
+        byte[] wav = wavBytes(44100, 2, 16, tone(44100, 2, 1.0, 440));
+
+        ByteBuffer pcm = converter.convertToPcm(new ByteArrayInputStream(wav), "audio");
+
+        assertEquals(16000 * 2, pcm.remaining());
+    }
+
+    private File convert(File input) throws Exception {
+        File output = converter.convertToWav(input);
+        assertNotEquals(input, output);
+        outputs.add(output);
+        return output;
+    }
+
+    private File writeWav(String name, int sampleRate, int channels, int bits, double[] samples) throws Exception {
+        File file = tempDir.resolve(name).toFile();
+        Files.write(file.toPath(), wavBytes(sampleRate, channels, bits, samples));
+        return file;
+    }
+
+    private static byte[] wavBytes(int sampleRate, int channels, int bits, double[] samples) {
+        int bytesPerSample = bits / 8;
+        int dataLength = samples.length * bytesPerSample;
+        byte[] wav = new byte[WavFile.HEADER_SIZE + dataLength];
+        WavFile.writeHeader(wav, sampleRate, channels, bits, dataLength);
+        int position = WavFile.HEADER_SIZE;
+        for (double sample : samples) {
+            if (bits == 8) {
+                wav[position++] = (byte) (Math.round(sample * 127) + 128);
+            } else {
+                short value = (short) Math.round(sample * 32767);
+                wav[position++] = (byte) value;
+                wav[position++] = (byte) (value >> 8);
+            }
+        }
+        return wav;
+    }
+
+    private static double[] tone(int sampleRate, int channels, double seconds, double frequency) {
+        int frames = (int) (sampleRate * seconds);
+        double[] samples = new double[frames * channels];
+        for (int i = 0; i < frames; i++) {
+            // Quarter phase offset so the first sample is not a zero crossing
+            double value = 0.5 * Math.sin(2 * Math.PI * frequency * i / sampleRate + Math.PI / 4);
+            for (int c = 0; c < channels; c++) {
+                samples[i * channels + c] = value;
+            }
+        }
+        return samples;
+    }
+
+    private static int zeroCrossings(byte[] bytes, WavFile wav) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+        int crossings = 0;
+        short previous = buffer.getShort(wav.getDataOffset());
+        for (int position = wav.getDataOffset() + 2; position + 1 < wav.getDataOffset() + wav.getDataLength(); position += 2) {
+            short current = buffer.getShort(position);
+            if ((previous < 0) != (current < 0)) {
+                crossings++;
+            }
+            previous = current;
+        }
+        return crossings;
+    }
+
+    private static double peak(byte[] bytes, WavFile wav) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+        int peak = 0;
+        // Skip the edges, where the filter fades in and out
+        for (int position = wav.getDataOffset() + 200; position + 200 < wav.getDataOffset() + wav.getDataLength(); position += 2) {
+            peak = Math.max(peak, Math.abs(buffer.getShort(position)));
+        }
+        return peak / 32768.0;
+    }
+
+    private static byte[] boxes(String... types) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (String type : types) {
+            ByteBuffer box = ByteBuffer.allocate(16);
+            box.putInt(16).put(type.getBytes()).putLong(0);
+            out.writeBytes(box.array());
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,67 @@
+package com.secureherai.secureherai_api.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CoalescingQueueTest {
+
+    @Test
+    void offer_SameKey_ReplacesValueInPlace() {
+        CoalescingQueue<String, String> queue = new CoalescingQueue<>(10);
+
+        queue.offer("a", "a1");
+        queue.offer("b", "b1");
+        queue.offer("a", "a2");
+
+        assertEquals(List.of("a2", "b1"), queue.drain(10));
+        assertEquals(1, queue.getCoalesced());
+    }
+
+    @Test
+    void offer_Full_DropsOldest() {
+        CoalescingQueue<String, String> queue = new CoalescingQueue<>(2);
+
+        assertTrue(queue.offer("a", "a1"));
+        assertTrue(queue.offer("b", "b1"));
+        assertFalse(queue.offer("c", "c1"));
+        assertTrue(queue.offer("c", "c2"));
+
+        assertEquals(List.of("b1", "c2"), queue.drain(10));
+        assertEquals(1, queue.getDropped());
+    }
+
+    @Test
+    void drain_TakesAtMostMax() {
+        CoalescingQueue<Integer, Integer> queue = new CoalescingQueue<>(10);
+        for (int i = 0; i < 5; i++) {
+            queue.offer(i, i);
+        }
+
+        assertEquals(List.of(0, 1, 2), queue.drain(3));
+        assertEquals(2, queue.size());
+    }
+
+    @Test
+    void poll_WaitsForValue() throws Exception {
+        CoalescingQueue<String, String> queue = new CoalescingQueue<>(10);
+
+        assertNull(queue.poll(10, TimeUnit.MILLISECONDS));
+
+        CompletableFuture<String> polled = CompletableFuture.supplyAsync(() -> {
+            try {
+                return queue.poll(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        Thread.sleep(50);
+        queue.offer("a", "a1");
+
+        assertEquals("a1", polled.get(5, TimeUnit.SECONDS));
+    }
+}
@@ -0,0 +1,101 @@
+package com.secureherai.secureherai_api.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CounterCacheTest {
+
+    private static final long HOUR = TimeUnit.HOURS.toNanos(1);
+
+    @Test
+    void get_LoadsOnceThenServesCachedValue() {
+        CounterCache<String> cache = new CounterCache<>(4, HOUR, 10);
+        AtomicInteger loads = new AtomicInteger();
+
+        assertEquals(3, cache.get("a", key -> { loads.incrementAndGet(); return 3; }));
+        assertEquals(3, cache.get("a", key -> { loads.incrementAndGet(); return 99; }));
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void add_ChangeAfterLoad_AppliedToCachedValue() {
+        CounterCache<String> cache = new CounterCache<>(4, HOUR, 10);
+        cache.get("a", key -> 3);
+
+        cache.add("a", 2, System.nanoTime());
+        cache.add("a", -4, System.nanoTime());
+
+        assertEquals(1, cache.get("a", key -> 99));
+    }
+
+    @Test
+    void add_ChangeStartedBeforeLoad_DropsCachedValue() {
+        CounterCache<String> cache = new CounterCache<>(4, HOUR, 10);
+        long startedAt = System.nanoTime();
+        // Loaded while the change was committing, so it may already include it
+        cache.get("a", key -> 4);
+
+        cache.add("a", 1, startedAt);
+
+        assertEquals(4, cache.get("a", key -> 4));
+        assertEquals(4, cache.get("a", key -> 99));
+    }
+
+    @Test
+    void get_ChangeCommittedWhileLoading_NotCached() {
+        CounterCache<String> cache = new CounterCache<>(4, HOUR, 10);
+
+        long loaded = cache.get("a", key -> {
+            cache.add("a", 1, System.nanoTime());
+            return 5;
+        });
+
+        assertEquals(5, loaded);
+        assertEquals(0, cache.size());
+        assertEquals(6, cache.get("a", key -> 6));
+    }
+
+    @Test
+    void get_NeverNegative() {
+        CounterCache<String> cache = new CounterCache<>(4, HOUR, 10);
+        cache.get("a", key -> 1);
+
+        cache.add("a", -3, System.nanoTime());
+
+        assertEquals(0, cache.get("a", key -> 99));
+    }
+
+    @Test
+    void get_Full_DoesNotCacheNewKeys() {
+        CounterCache<String> cache = new CounterCache<>(4, HOUR, 1);
+        cache.get("a", key -> 1);
+
+        assertEquals(2, cache.get("b", key -> 2));
+        assertEquals(3, cache.get("b", key -> 3));
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    void evictExpired_DropsExpiredCounters() throws Exception {
+        CounterCache<String> cache = new CounterCache<>(4, TimeUnit.MILLISECONDS.toNanos(1), 10);
+        cache.get("a", key -> 1);
+        Thread.sleep(5);
+
+        assertEquals(1, cache.evictExpired());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void invalidate_ForcesReload() {
+        CounterCache<String> cache = new CounterCache<>(4, HOUR, 10);
+        cache.get("a", key -> 1);
+
+        cache.invalidate("a");
+
+        assertEquals(7, cache.get("a", key -> 7));
+    }
+}
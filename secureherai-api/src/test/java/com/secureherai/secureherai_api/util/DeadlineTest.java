@@ -0,0 +1,52 @@
+package com.secureherai.secureherai_api.util;
+
+import com.secureherai.secureherai_api.exception.DeadlineExceededException;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DeadlineTest {
+
+    @Test
+    void none_IsNeverExpired() {
+        Deadline deadline = Deadline.none();
+
+        assertFalse(deadline.isBounded());
+        assertFalse(deadline.isExpired());
+        assertEquals(Long.MAX_VALUE, deadline.remainingMillis());
+        assertEquals(5000, deadline.capMillis(5000));
+        assertSame(deadline, deadline.reserve(Duration.ofSeconds(2)));
+        assertDoesNotThrow(() -> deadline.check("recognizing speech"));
+    }
+
+    @Test
+    void capMillis_ShortensTimeoutToTimeLeft() {
+        Deadline deadline = Deadline.after(Duration.ofSeconds(1));
+
+        assertTrue(deadline.capMillis(30000) <= 1000);
+        assertEquals(10, deadline.capMillis(10));
+    }
+
+    @Test
+    void reserve_EndsEarlier() {
+        Deadline deadline = Deadline.after(Duration.ofSeconds(10));
+        Deadline transcription = deadline.reserve(Duration.ofSeconds(4));
+
+        assertTrue(transcription.remainingMillis() <= 6000);
+        assertTrue(deadline.remainingMillis() > 6000);
+    }
+
+    @Test
+    void check_AfterExpiry_Throws() throws Exception {
+        Deadline deadline = Deadline.after(Duration.ofMillis(1));
+        Thread.sleep(5);
+
+        assertTrue(deadline.isExpired());
+        assertEquals(0, deadline.remainingMillis());
+        DeadlineExceededException error = assertThrows(DeadlineExceededException.class,
+            () -> deadline.check("recognizing speech"));
+        assertTrue(error.getMessage().contains("recognizing speech"));
+    }
+}
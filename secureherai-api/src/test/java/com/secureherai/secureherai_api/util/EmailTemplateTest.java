@@ -0,0 +1,78 @@
+package com.secureherai.secureherai_api.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EmailTemplateTest {
+
+    @Test
+    void render_FillsSlotsBetweenStaticFragments() {
+        EmailTemplate template = EmailTemplate.compile("<p>Dear {{name}},</p><p>{{ name }} at {{place}}</p>");
+
+        String html = new String(template.render(Map.of("name", "Nusrat", "place", "ঢাকা")), StandardCharsets.UTF_8);
+
+        assertEquals("<p>Dear Nusrat,</p><p>Nusrat at ঢাকা</p>", html);
+        assertEquals(Set.of("name", "place"), template.getSlots());
+    }
+
+    @Test
+    void render_SectionKeptOnlyWithValue() {
+        EmailTemplate template = EmailTemplate.compile("A{{#phone}}<p>Phone: {{phone}}</p>{{/phone}}B");
+        Map<String, String> values = new HashMap<>();
+
+        assertEquals("AB", template.renderString(values));
+        values.put("phone", "");
+        assertEquals("AB", template.renderString(values));
+        values.put("phone", "+880");
+        assertEquals("A<p>Phone: +880</p>B", template.renderString(values));
+        assertArrayEquals(template.renderString(values).getBytes(StandardCharsets.UTF_8), template.render(values));
+    }
+
+    @Test
+    void compile_UnbalancedTags_Rejected() {
+        assertThrows(IllegalArgumentException.class, () -> EmailTemplate.compile("{{name"));
+        assertThrows(IllegalArgumentException.class, () -> EmailTemplate.compile("{{#a}}x"));
+        assertThrows(IllegalArgumentException.class, () -> EmailTemplate.compile("{{#a}}x{{/b}}"));
+    }
+
+    @Test
+    void templates_EmergencyAlertPhoneLineOnlyWithPhone() {
+        EmailTemplate template = new EmailTemplates("email-templates/").get("emergency-alert", Locale.ENGLISH);
+        Map<String, String> values = new HashMap<>();
+        values.put("contactName", "Jane Doe");
+        values.put("location", "Dhanmondi, Dhaka");
+
+        String withoutPhone = template.renderString(values);
+        values.put("phone", "+8801700000000");
+        String withPhone = template.renderString(values);
+
+        assertTrue(withoutPhone.contains("<strong>Contact:</strong> Jane Doe"));
+        assertTrue(withoutPhone.contains("<strong>Location:</strong> Dhanmondi, Dhaka"));
+        assertFalse(withoutPhone.contains("<strong>Phone:</strong>"));
+        assertTrue(withPhone.contains("<strong>Phone:</strong> +8801700000000"));
+    }
+
+    @Test
+    void templates_LocalizedVariantWithFallback() {
+        EmailTemplates templates = new EmailTemplates("email-templates/");
+        Map<String, String> values = Map.of("contactName", "Nusrat", "message", "Help");
+
+        String bangla = templates.get("emergency-alert", Locale.forLanguageTag("bn-BD")).renderString(values);
+        String french = templates.get("emergency-alert", Locale.FRENCH).renderString(values);
+
+        assertTrue(bangla.contains("জরুরি সতর্কতা"));
+        assertTrue(bangla.contains("সর্বস্বত্ব সংরক্ষিত"));
+        assertTrue(french.contains("EMERGENCY ALERT"));
+        assertTrue(french.startsWith("<!DOCTYPE html>"));
+        assertTrue(french.endsWith("</body></html>"));
+        assertSame(templates.get("emergency-alert", Locale.FRENCH), templates.get("emergency-alert", Locale.FRENCH));
+        assertThrows(IllegalStateException.class, () -> templates.get("missing", Locale.ENGLISH));
+    }
+}
@@ -0,0 +1,102 @@
+package com.secureherai.secureherai_api.util;
+
+import com.secureherai.secureherai_api.util.GeoGridIndex.Neighbor;
+import org.junit.jupiter.api.Test;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GeoGridIndexTest {
+
+    // Dhaka
+    private static final double LAT = 23.8103;
+    private static final double LON = 90.4125;
+
+    @Test
+    void nearest_ReturnsClosestFirst() {
+        GeoGridIndex<String> index = new GeoGridIndex<>(0.05);
+        index.put("far", LAT + 0.3, LON);
+        index.put("near", LAT + 0.001, LON);
+        index.put("middle", LAT, LON + 0.1);
+
+        List<Neighbor<String>> nearest = index.nearest(LAT, LON, 2, 100);
+
+        assertEquals(List.of("near", "middle"), keys(nearest));
+        assertEquals(0.111, nearest.get(0).getDistanceKm(), 0.001);
+    }
+
+    @Test
+    void nearest_OutsideRadius_Excluded() {
+        GeoGridIndex<String> index = new GeoGridIndex<>(0.05);
+        index.put("near", LAT + 0.01, LON);
+        index.put("far", LAT + 1, LON);
+
+        assertEquals(List.of("near"), keys(index.nearest(LAT, LON, 10, 20)));
+    }
+
+    @Test
+    void put_ExistingKey_MovesPoint() {
+        GeoGridIndex<String> index = new GeoGridIndex<>(0.05);
+        index.put("a", LAT + 1, LON);
+        index.put("b", LAT + 0.5, LON);
+
+        index.put("a", LAT, LON);
+
+        assertEquals(2, index.size());
+        assertEquals("a", index.nearest(LAT, LON, 1, 500).get(0).getKey());
+    }
+
+    @Test
+    void remove_PointNoLongerFound() {
+        GeoGridIndex<String> index = new GeoGridIndex<>(0.05);
+        index.put("a", LAT, LON);
+        index.put("b", LAT, LON);
+
+        assertTrue(index.remove("a"));
+        assertFalse(index.remove("a"));
+        assertEquals(List.of("b"), keys(index.nearest(LAT, LON, 10, 1)));
+    }
+
+    @Test
+    void nearest_AcrossAntimeridian_FindsPointOnOtherSide() {
+        GeoGridIndex<String> index = new GeoGridIndex<>(0.5);
+        index.put("west", 0, -179.9);
+
+        assertEquals(List.of("west"), keys(index.nearest(0, 179.9, 1, 50)));
+    }
+
+    @Test
+    void nearest_RandomPoints_MatchesLinearScan() {
+        GeoGridIndex<Integer> index = new GeoGridIndex<>(0.05);
+        Random random = new Random(7);
+        Map<Integer, double[]> positions = new HashMap<>();
+        for (int i = 0; i < 5000; i++) {
+            positions.put(i, new double[] {LAT - 1 + 2 * random.nextDouble(), LON - 1 + 2 * random.nextDouble()});
+        }
+        index.replaceAll(positions);
+
+        for (int query = 0; query < 50; query++) {
+            double lat = LAT - 1 + 2 * random.nextDouble();
+            double lon = LON - 1 + 2 * random.nextDouble();
+            double radiusKm = 5 + random.nextInt(100);
+            List<Integer> expected = positions.entrySet().stream()
+                .filter(e -> GeoGridIndex.haversineKm(lat, lon, e.getValue()[0], e.getValue()[1]) <= radiusKm)
+                .sorted(Comparator.comparingDouble(e -> GeoGridIndex.haversineKm(lat, lon, e.getValue()[0], e.getValue()[1])))
+                .limit(10)
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toList());
+
+            assertEquals(expected, keys(index.nearest(lat, lon, 10, radiusKm)));
+        }
+    }
+
+    private static <K> List<K> keys(List<Neighbor<K>> neighbors) {
+        return neighbors.stream().map(Neighbor::getKey).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,64 @@
+package com.secureherai.secureherai_api.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GeohashTest {
+
+    @Test
+    void encode_KnownPositions() {
+        assertEquals("u4pruydqqvj", Geohash.encode(57.64911, 10.40744, 11));
+        assertEquals("dr5regw3p", Geohash.encode(40.7128, -74.0060, 9));
+    }
+
+    @Test
+    void encode_ShorterPrecision_IsPrefix() {
+        String full = Geohash.encode(23.8103, 90.4125, 9);
+
+        assertEquals(full.substring(0, 5), Geohash.encode(23.8103, 90.4125, 5));
+    }
+
+    @Test
+    void neighborhood_ContainsOwnCellAndEightNeighbors() {
+        List<String> cells = Geohash.neighborhood(23.8103, 90.4125, 6);
+
+        assertEquals(9, cells.size());
+        assertTrue(cells.contains(Geohash.encode(23.8103, 90.4125, 6)));
+    }
+
+    @Test
+    void neighborhood_CoversEverythingWithinCoverage() {
+        Random random = new Random(7);
+        for (int i = 0; i < 2000; i++) {
+            double lat = -60 + random.nextDouble() * 120;
+            double lon = -180 + random.nextDouble() * 360;
+            int precision = 3 + random.nextInt(5);
+            double coverageKm = Geohash.neighborhoodCoverageKm(lat, precision);
+            // A point just inside the coverage distance in a random direction
+            double bearing = random.nextDouble() * 2 * Math.PI;
+            double distanceDegrees = Math.toDegrees(coverageKm * 0.99 / GeoGridIndex.EARTH_RADIUS_KM);
+            double otherLat = lat + distanceDegrees * Math.cos(bearing);
+            double otherLon = lon + distanceDegrees * Math.sin(bearing) / Math.cos(Math.toRadians(otherLat));
+            if (GeoGridIndex.haversineKm(lat, lon, otherLat, otherLon) > coverageKm) {
+                continue;
+            }
+
+            String otherCell = Geohash.encode(otherLat, otherLon, precision);
+
+            assertTrue(Geohash.neighborhood(lat, lon, precision).contains(otherCell),
+                "point " + i + " at precision " + precision);
+        }
+    }
+
+    @Test
+    void prefixUpperBound_NextCellInOrder() {
+        assertEquals("dr5s", Geohash.prefixUpperBound("dr5r"));
+        assertEquals("ds", Geohash.prefixUpperBound("drz"));
+        assertNull(Geohash.prefixUpperBound("zz"));
+        assertTrue("dr5regw3p".compareTo("dr5r") >= 0 && "dr5regw3p".compareTo(Geohash.prefixUpperBound("dr5r")) < 0);
+    }
+}
@@ -0,0 +1,35 @@
+package com.secureherai.secureherai_api.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KeysetCursorTest {
+
+    @Test
+    void decode_RoundTripsEncodedCursor() {
+        LocalDateTime createdAt = LocalDateTime.of(2025, 3, 14, 9, 26, 53, 589_793_000);
+
+        KeysetCursor cursor = KeysetCursor.decode(new KeysetCursor(createdAt, 42).encode());
+
+        assertEquals(createdAt, cursor.getCreatedAt());
+        assertEquals(42, cursor.getId());
+    }
+
+    @Test
+    void encode_IsUrlSafe() {
+        String token = new KeysetCursor(LocalDateTime.of(2025, 1, 1, 0, 0), Long.MAX_VALUE).encode();
+
+        assertTrue(token.matches("[A-Za-z0-9_-]+"), token);
+    }
+
+    @Test
+    void decode_InvalidToken_Throws() {
+        assertThrows(IllegalArgumentException.class, () -> KeysetCursor.decode("not a cursor!"));
+        assertThrows(IllegalArgumentException.class, () -> KeysetCursor.decode("bm90IGEgY3Vyc29y"));
+        assertThrows(IllegalArgumentException.class, () -> KeysetCursor.decode(
+            new KeysetCursor(LocalDateTime.of(2025, 1, 1, 0, 0), 1).encode() + "AA"));
+    }
+}
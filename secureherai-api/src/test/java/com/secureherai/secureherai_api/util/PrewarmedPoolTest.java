@@ -0,0 +1,172 @@
+package com.secureherai.secureherai_api.util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PrewarmedPoolTest {
+
+    private final AtomicInteger createdCount = new AtomicInteger();
+    private PrewarmedPool<FakeResource> pool;
+
+    @AfterEach
+    void tearDown() {
+        if (pool != null) {
+            pool.close();
+        }
+    }
+
+    @Test
+    void acquire_AfterWarmUp_ReturnsReadyResource() throws Exception {
+        pool = new PrewarmedPool<>("test", this::create, 2, 4, 60000);
+        pool.warmUp(List.of("en-US"));
+        awaitIdle("en-US", 2);
+
+        try (PrewarmedPool.Lease<FakeResource> lease = pool.acquire("en-US")) {
+            assertTrue(lease.isWarm());
+            assertEquals("en-US", lease.get().key);
+        }
+
+        assertEquals(1L, pool.getStats().get("warmHits"));
+        assertEquals(0L, pool.getStats().get("coldMisses"));
+    }
+
+    @Test
+    void acquire_RefillsInBackground() throws Exception {
+        pool = new PrewarmedPool<>("test", this::create, 1, 4, 60000);
+        pool.warmUp(List.of("bn-BD"));
+        awaitIdle("bn-BD", 1);
+
+        pool.acquire("bn-BD").close();
+        awaitIdle("bn-BD", 1);
+
+        assertTrue(pool.acquire("bn-BD").isWarm());
+        assertEquals(2L, pool.getStats().get("warmHits"));
+    }
+
+    @Test
+    void acquire_LeaseCloseClosesResource() {
+        pool = new PrewarmedPool<>("test", this::create, 1, 4, 60000);
+
+        PrewarmedPool.Lease<FakeResource> lease = pool.acquire("en-US");
+        lease.close();
+
+        assertFalse(lease.isWarm());
+        assertTrue(lease.get().closed);
+    }
+
+    @Test
+    void acquire_KeysBeyondLimit_AreNotPooled() throws Exception {
+        pool = new PrewarmedPool<>("test", this::create, 1, 1, 60000);
+        pool.warmUp(List.of("en-US", "bn-BD"));
+        awaitIdle("en-US", 1);
+
+        assertFalse(pool.acquire("bn-BD").isWarm());
+        assertFalse(idleCounts().containsKey("bn-BD"));
+    }
+
+    @Test
+    void healthCheck_ReplacesUnhealthyResources() throws Exception {
+        pool = new PrewarmedPool<>("test", this::create, 1, 4, 60000);
+        pool.warmUp(List.of("en-US"));
+        awaitIdle("en-US", 1);
+        int before = createdCount.get();
+
+        // The idle resource lost its connection
+        FakeResource.lastCreated.healthy = false;
+        pool.healthCheck();
+
+        assertEquals(1L, pool.getStats().get("discarded"));
+        assertEquals(before + 1, createdCount.get());
+        try (PrewarmedPool.Lease<FakeResource> lease = pool.acquire("en-US")) {
+            assertTrue(lease.isWarm());
+            assertTrue(lease.get().healthy);
+        }
+    }
+
+    @Test
+    void acquire_ExpiredResource_IsDiscardedAndCreatedFresh() throws Exception {
+        pool = new PrewarmedPool<>("test", this::create, 1, 4, 0);
+        pool.warmUp(List.of("en-US"));
+        awaitCreated(1);
+
+        try (PrewarmedPool.Lease<FakeResource> lease = pool.acquire("en-US")) {
+            assertFalse(lease.isWarm());
+        }
+        assertTrue((Long) pool.getStats().get("discarded") >= 1L);
+    }
+
+    @Test
+    void warmUp_CreationFailure_IsCountedAndAcquireStillWorks() throws Exception {
+        AtomicInteger attempts = new AtomicInteger();
+        pool = new PrewarmedPool<>("test", key -> {
+            if (attempts.incrementAndGet() == 1) {
+                throw new IllegalStateException("service unreachable");
+            }
+            return create(key);
+        }, 1, 4, 60000);
+
+        pool.warmUp(List.of("en-US"));
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        while ((Long) pool.getStats().get("creationFailures") == 0 && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+
+        assertEquals(1L, pool.getStats().get("creationFailures"));
+        assertNotNull(pool.acquire("en-US").get());
+    }
+
+    private FakeResource create(String key) {
+        createdCount.incrementAndGet();
+        return new FakeResource(key);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> idleCounts() {
+        return (Map<String, Object>) pool.getStats().get("idle");
+    }
+
+    private void awaitIdle(String key, int count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        while (!Integer.valueOf(count).equals(idleCounts().get(key)) && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(count, idleCounts().get(key));
+    }
+
+    private void awaitCreated(int count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        while (createdCount.get() < count && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+
+    private static class FakeResource implements PrewarmedPool.Resource {
+        private static volatile FakeResource lastCreated;
+
+        private final String key;
+        private volatile boolean healthy = true;
+        private volatile boolean closed;
+
+        FakeResource(String key) {
+            this.key = key;
+            lastCreated = this;
+        }
+
+        @Override
+        public boolean isHealthy() {
+            return healthy;
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+}
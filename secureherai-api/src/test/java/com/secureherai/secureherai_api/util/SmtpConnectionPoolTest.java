@@ -0,0 +1,106 @@
+package com.secureherai.secureherai_api.util;
+
+import jakarta.mail.Message;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Session;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.InternetAddress;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SmtpConnectionPoolTest {
+
+    private FakeSmtpServer server;
+    private Session session;
+
+    @BeforeEach
+    void setUp() {
+        server = new FakeSmtpServer();
+        Properties properties = new Properties();
+        properties.put("mail.smtp.connectiontimeout", "2000");
+        properties.put("mail.smtp.timeout", "2000");
+        session = Session.getInstance(properties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.close();
+    }
+
+    @Test
+    void borrow_AfterRelease_ReusesConnection() throws Exception {
+        SmtpConnectionPool pool = pool(60_000);
+
+        Transport first = pool.borrow();
+        send(first, "a@example.com");
+        pool.release(first, true);
+        Transport second = pool.borrow();
+        send(second, "b@example.com");
+        pool.release(second, true);
+
+        assertSame(first, second);
+        assertEquals(1, server.getConnections());
+        assertEquals(2, server.getMessages().size());
+        assertEquals("b@example.com", server.getMessages().get(1).getRecipients().get(0));
+        pool.close();
+    }
+
+    @Test
+    void borrow_ServerDroppedConnection_OpensNewOne() throws Exception {
+        SmtpConnectionPool pool = pool(60_000);
+        Transport first = pool.borrow();
+        pool.release(first, true);
+
+        server.dropConnections();
+        Transport second = pool.borrow();
+        send(second, "a@example.com");
+
+        assertEquals(2, server.getConnections());
+        assertEquals(1, server.getMessages().size());
+        pool.release(second, true);
+        pool.close();
+    }
+
+    @Test
+    void release_NotReusable_ClosesConnection() throws Exception {
+        SmtpConnectionPool pool = pool(60_000);
+
+        pool.release(pool.borrow(), false);
+        pool.release(pool.borrow(), true);
+
+        assertEquals(2, server.getConnections());
+        assertEquals(1, pool.idleCount());
+        pool.close();
+        assertEquals(0, pool.idleCount());
+    }
+
+    @Test
+    void closeIdle_ClosesConnectionsIdleTooLong() throws Exception {
+        SmtpConnectionPool pool = pool(0);
+        pool.release(pool.borrow(), true);
+        Thread.sleep(5);
+
+        assertEquals(1, pool.closeIdle());
+        assertEquals(0, pool.idleCount());
+    }
+
+    private SmtpConnectionPool pool(long maxIdleMillis) {
+        return new SmtpConnectionPool(session, "smtp", "localhost", server.getPort(), "", "", 2, maxIdleMillis);
+    }
+
+    private void send(Transport transport, String to) throws MessagingException {
+        MimeMessage message = new MimeMessage(session);
+        message.setFrom(new InternetAddress("noreply@secureherai.com"));
+        message.setRecipient(Message.RecipientType.TO, new InternetAddress(to));
+        message.setSubject("Test");
+        message.setText("Hello");
+        message.saveChanges();
+        transport.sendMessage(message, message.getAllRecipients());
+    }
+}
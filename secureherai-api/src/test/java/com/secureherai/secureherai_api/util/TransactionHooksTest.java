@@ -0,0 +1,97 @@
+package com.secureherai.secureherai_api.util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TransactionHooksTest {
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void runAfterCommit_NoTransaction_RunsRightAway() {
+        AtomicInteger runs = new AtomicInteger();
+
+        TransactionHooks.runAfterCommit(runs::incrementAndGet);
+
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    void runAfterCommit_InTransaction_RunsOnCommittingThread() {
+        TransactionSynchronizationManager.initSynchronization();
+        AtomicReference<Thread> thread = new AtomicReference<>();
+
+        TransactionHooks.runAfterCommit(() -> thread.set(Thread.currentThread()));
+
+        assertNull(thread.get());
+        commit();
+        assertSame(Thread.currentThread(), thread.get());
+    }
+
+    @Test
+    void runAfterCommit_RolledBack_NeverRuns() {
+        TransactionSynchronizationManager.initSynchronization();
+        AtomicInteger runs = new AtomicInteger();
+
+        TransactionHooks.runAfterCommit(runs::incrementAndGet);
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+        }
+
+        assertEquals(0, runs.get());
+    }
+
+    @Test
+    void runAsyncAfterCommit_NoTransaction_RunsOnDedicatedPool() throws Exception {
+        CompletableFuture<String> thread = new CompletableFuture<>();
+
+        TransactionHooks.runAsyncAfterCommit(() -> thread.complete(Thread.currentThread().getName()));
+
+        assertTrue(thread.get(5, TimeUnit.SECONDS).startsWith("after-commit-"));
+    }
+
+    @Test
+    void runAsyncAfterCommit_InTransaction_WaitsForCommit() throws Exception {
+        TransactionSynchronizationManager.initSynchronization();
+        CompletableFuture<Boolean> ran = new CompletableFuture<>();
+
+        TransactionHooks.runAsyncAfterCommit(() -> ran.complete(true));
+
+        assertThrows(Exception.class, () -> ran.get(200, TimeUnit.MILLISECONDS));
+        commit();
+        assertTrue(ran.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void runAsyncAfterCommit_RolledBack_NeverRuns() throws Exception {
+        TransactionSynchronizationManager.initSynchronization();
+        CompletableFuture<Boolean> ran = new CompletableFuture<>();
+
+        TransactionHooks.runAsyncAfterCommit(() -> ran.complete(true));
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+        }
+
+        assertThrows(Exception.class, () -> ran.get(200, TimeUnit.MILLISECONDS));
+    }
+
+    private static void commit() {
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCommit();
+        }
+    }
+}
@@ -81,7 +81,8 @@ export function NotificationProvider({ children }: NotificationProviderProps) {
           const filteredPrev = prev.filter((n) => !unreadIds.includes(n.id));
           return [...unreadNotifications, ...filteredPrev];
         });
-        setUnreadCount(unreadNotifications.length);
+        // The list is a page; the count covers all unread notifications
+        setUnreadCount(response.data.unreadCount ?? unreadNotifications.length);
       } else {
         setError(response.error || "Failed to fetch unread notifications");
       }
@@ -111,6 +111,7 @@ export interface NotificationListResponse {
   unreadCount: number;
   page?: number;
   size?: number;
+  nextCursor?: string | null;
   message?: string;
   error?: string;
 }